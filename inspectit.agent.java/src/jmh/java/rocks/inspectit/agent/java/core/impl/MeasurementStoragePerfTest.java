@@ -0,0 +1,195 @@
+package rocks.inspectit.agent.java.core.impl;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.communication.data.TimerData;
+
+/**
+ * Performance test comparing the {@link MeasurementStorage} with the string keyed map that was
+ * used in the {@link CoreService} before. Best run with <code>-prof gc</code> to see the
+ * allocation rate of the both approaches.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(value = 1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class MeasurementStoragePerfTest {
+
+	/**
+	 * Sensor type id used.
+	 */
+	private static final long SENSOR_TYPE_ID = 7L;
+
+	/**
+	 * Amount of different methods.
+	 */
+	@Param({ "100", "10000" })
+	private int methods;
+
+	/**
+	 * If prefix (for example SQL string) should be used.
+	 */
+	@Param({ "false", "true" })
+	private boolean usePrefix;
+
+	/**
+	 * Storage under test.
+	 */
+	private MeasurementStorage<DefaultData> measurementStorage;
+
+	/**
+	 * Map as used before.
+	 */
+	private Map<String, DefaultData> stringKeyMap;
+
+	/**
+	 * Data object used for the puts, so that only the key handling is measured.
+	 */
+	private final TimerData timerData = new TimerData();
+
+	/**
+	 * Prefixes to use.
+	 */
+	private String[] prefixes;
+
+	/**
+	 * Fills the storages with one element for each method.
+	 */
+	@Setup(Level.Iteration)
+	public void init() {
+		measurementStorage = new MeasurementStorage<DefaultData>();
+		stringKeyMap = new ConcurrentHashMap<String, DefaultData>();
+		prefixes = new String[methods];
+
+		for (int i = 0; i < methods; i++) {
+			if (usePrefix) {
+				prefixes[i] = "SELECT * FROM TABLE_" + i + " WHERE ID = ?";
+			}
+			measurementStorage.put(i, SENSOR_TYPE_ID, prefixes[i], timerData);
+			stringKeyMap.put(stringKey(SENSOR_TYPE_ID, i, prefixes[i]), timerData);
+		}
+	}
+
+	/**
+	 * Per thread state holding the method to access.
+	 */
+	@State(Scope.Thread)
+	public static class MethodCounter {
+
+		/**
+		 * Current method.
+		 */
+		private int method;
+
+		/**
+		 * Returns next method id.
+		 *
+		 * @param methods
+		 *            Amount of methods.
+		 * @return Method id.
+		 */
+		int next(int methods) {
+			method++;
+			if (method >= methods) {
+				method = 0;
+			}
+			return method;
+		}
+	}
+
+	/**
+	 * Steady state get as performed by the sensor hooks with the {@link MeasurementStorage}.
+	 *
+	 * @param counter
+	 *            Thread counter.
+	 * @return Found data.
+	 */
+	@Benchmark
+	public DefaultData measurementStorageGet(MethodCounter counter) {
+		int method = counter.next(methods);
+		return measurementStorage.get(method, SENSOR_TYPE_ID, prefixes[method]);
+	}
+
+	/**
+	 * Steady state get as performed by the sensor hooks with the string keyed map.
+	 *
+	 * @param counter
+	 *            Thread counter.
+	 * @return Found data.
+	 */
+	@Benchmark
+	public DefaultData stringKeyMapGet(MethodCounter counter) {
+		int method = counter.next(methods);
+		return stringKeyMap.get(stringKey(SENSOR_TYPE_ID, method, prefixes[method]));
+	}
+
+	/**
+	 * Put of already existing key with the {@link MeasurementStorage}.
+	 *
+	 * @param counter
+	 *            Thread counter.
+	 * @return Replaced data.
+	 */
+	@Benchmark
+	public DefaultData measurementStoragePut(MethodCounter counter) {
+		int method = counter.next(methods);
+		return measurementStorage.put(method, SENSOR_TYPE_ID, prefixes[method], timerData);
+	}
+
+	/**
+	 * Put of already existing key with the string keyed map.
+	 *
+	 * @param counter
+	 *            Thread counter.
+	 * @return Replaced data.
+	 */
+	@Benchmark
+	public DefaultData stringKeyMapPut(MethodCounter counter) {
+		int method = counter.next(methods);
+		return stringKeyMap.put(stringKey(SENSOR_TYPE_ID, method, prefixes[method]), timerData);
+	}
+
+	/**
+	 * Creates the key as it was done in the {@link CoreService} before.
+	 *
+	 * @param sensorTypeIdent
+	 *            Sensor type id.
+	 * @param methodIdent
+	 *            Method id.
+	 * @param prefix
+	 *            Prefix or <code>null</code>.
+	 * @return String key.
+	 */
+	private static String stringKey(long sensorTypeIdent, long methodIdent, String prefix) {
+		StringBuilder builder = new StringBuilder();
+		if (null != prefix) {
+			builder.append(prefix);
+			builder.append('.');
+		}
+		builder.append(methodIdent);
+		builder.append('.');
+		builder.append(sensorTypeIdent);
+		return builder.toString();
+	}
+
+}
@@ -0,0 +1,313 @@
+package rocks.inspectit.agent.java.instrumentation.asm;
+
+import info.novatec.inspectit.org.objectweb.asm.ClassReader;
+import info.novatec.inspectit.org.objectweb.asm.ClassWriter;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import rocks.inspectit.agent.java.Agent;
+import rocks.inspectit.agent.java.IAgent;
+import rocks.inspectit.agent.java.config.impl.RegisteredSensorConfig;
+import rocks.inspectit.agent.java.core.IPlatformManager;
+import rocks.inspectit.agent.java.core.IdNotAvailableException;
+import rocks.inspectit.agent.java.core.impl.CoreService;
+import rocks.inspectit.agent.java.hooking.IHookDispatcher;
+import rocks.inspectit.agent.java.hooking.InlinedTimer;
+import rocks.inspectit.agent.java.hooking.impl.HookDispatcher;
+import rocks.inspectit.agent.java.sensor.method.timer.TimerSensor;
+import rocks.inspectit.agent.java.util.Timer;
+import rocks.inspectit.shared.all.instrumentation.config.PriorityEnum;
+import rocks.inspectit.shared.all.instrumentation.config.impl.MethodInstrumentationConfig;
+import rocks.inspectit.shared.all.instrumentation.config.impl.MethodSensorTypeConfig;
+import rocks.inspectit.shared.all.instrumentation.config.impl.PropertyPathStart;
+import rocks.inspectit.shared.all.instrumentation.config.impl.SensorInstrumentationPoint;
+
+/**
+ * Performance test comparing the per call overhead of a method instrumented with the timer sensor
+ * via the {@link IHookDispatcher} and the {@link TimerSensor} with the same method instrumented
+ * with the inlined timer. Complements the {@link ClassInstrumenterPerfTest} that measures the
+ * instrumentation itself.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(value = 1)
+@State(Scope.Thread)
+public class InlinedTimerPerfTest {
+
+	/**
+	 * Method id used.
+	 */
+	private static final long METHOD_ID = 1L;
+
+	/**
+	 * Timer sensor type id used.
+	 */
+	private static final long SENSOR_TYPE_ID = 2L;
+
+	/**
+	 * How the measured method is instrumented: not at all, with the dispatcher or with the inlined
+	 * timer.
+	 */
+	@Param({ "none", "dispatcher", "inlined" })
+	private String mode;
+
+	/**
+	 * Instance of the instrumented {@link Target}.
+	 */
+	private Computation target;
+
+	/**
+	 * Argument for the measured method.
+	 */
+	private long value;
+
+	/**
+	 * Instruments the {@link Target} class based on the mode and prepares the dispatcher.
+	 */
+	@Setup(Level.Trial)
+	public void init() throws Exception {
+		SensorInstrumentationPoint sensorInstrumentationPoint = new SensorInstrumentationPoint();
+		sensorInstrumentationPoint.setId(METHOD_ID);
+		sensorInstrumentationPoint.addSensorId(SENSOR_TYPE_ID, PriorityEnum.MAX);
+		if ("inlined".equals(mode)) {
+			sensorInstrumentationPoint.setInlinedTimer(true);
+			sensorInstrumentationPoint.setInlinedTimerSlot(InlinedTimer.allocateSlot());
+		} else if ("dispatcher".equals(mode)) {
+			HookDispatcher hookDispatcher = createHookDispatcher();
+			sensorInstrumentationPoint.setDispatchIndex(hookDispatcher.getDispatchIndex(METHOD_ID));
+			Agent.agent = new BenchmarkAgent(hookDispatcher);
+		}
+
+		MethodInstrumentationConfig instrumentationConfig = new MethodInstrumentationConfig();
+		instrumentationConfig.setTargetClassFqn(Target.class.getName());
+		instrumentationConfig.setTargetMethodName("compute");
+		instrumentationConfig.setReturnType("long");
+		instrumentationConfig.setParameterTypes(Collections.singletonList("long"));
+		instrumentationConfig.setSensorInstrumentationPoint(sensorInstrumentationPoint);
+
+		byte[] byteCode = instrument(instrumentationConfig);
+		Class<?> targetClass = new TargetClassLoader(byteCode).loadClass(Target.class.getName());
+		target = (Computation) targetClass.newInstance();
+	}
+
+	/**
+	 * Calls the measured method.
+	 */
+	@Benchmark
+	public long call() {
+		return target.compute(value++);
+	}
+
+	/**
+	 * Instruments the {@link Target} class unless mode is none.
+	 *
+	 * @param instrumentationConfig
+	 *            Instrumentation config of the measured method.
+	 * @return Byte code of the target class.
+	 */
+	private byte[] instrument(MethodInstrumentationConfig instrumentationConfig) throws IOException {
+		ClassReader classReader = new ClassReader(Target.class.getName());
+		LoaderAwareClassWriter classWriter = new LoaderAwareClassWriter(classReader, ClassWriter.COMPUTE_FRAMES, null);
+		if ("none".equals(mode)) {
+			classReader.accept(classWriter, 0);
+		} else {
+			ClassInstrumenter classInstrumenter = new ClassInstrumenter(classWriter, Collections.singletonList(instrumentationConfig), false);
+			classReader.accept(classInstrumenter, ClassReader.SKIP_FRAMES | ClassReader.SKIP_DEBUG);
+		}
+		return classWriter.toByteArray();
+	}
+
+	/**
+	 * Creates the hook dispatcher with the timer sensor mapped to the measured method, wired as
+	 * Spring would do it.
+	 *
+	 * @return Hook dispatcher.
+	 */
+	private HookDispatcher createHookDispatcher() throws Exception {
+		IPlatformManager platformManager = new IPlatformManager() {
+			public boolean isPlatformRegistered() {
+				return true;
+			}
+
+			public long getPlatformId() throws IdNotAvailableException {
+				return 1L;
+			}
+
+			public void unregisterPlatform() {
+			}
+		};
+
+		MethodSensorTypeConfig sensorTypeConfig = new MethodSensorTypeConfig();
+		sensorTypeConfig.setId(SENSOR_TYPE_ID);
+		sensorTypeConfig.setParameters(new HashMap<String, Object>());
+		TimerSensor timerSensor = new TimerSensor(new Timer(), platformManager, null);
+		timerSensor.init(sensorTypeConfig);
+
+		RegisteredSensorConfig rsc = new RegisteredSensorConfig();
+		rsc.setId(METHOD_ID);
+		rsc.setSettings(new HashMap<String, Object>());
+		rsc.setPropertyAccessorList(Collections.<PropertyPathStart> emptyList());
+		rsc.addMethodSensor(timerSensor);
+
+		CoreService coreService = new CoreService();
+		setField(coreService, "log", LoggerFactory.getLogger(CoreService.class));
+
+		HookDispatcher hookDispatcher = new HookDispatcher();
+		setField(hookDispatcher, "log", LoggerFactory.getLogger(HookDispatcher.class));
+		setField(hookDispatcher, "coreService", coreService);
+		hookDispatcher.addMapping(METHOD_ID, rsc);
+		return hookDispatcher;
+	}
+
+	/**
+	 * Sets the field that would be injected by Spring.
+	 *
+	 * @param object
+	 *            Object to set field on.
+	 * @param name
+	 *            Field name.
+	 * @param value
+	 *            Value to set.
+	 */
+	private static void setField(Object object, String name, Object value) throws Exception {
+		Field field = object.getClass().getDeclaredField(name);
+		field.setAccessible(true);
+		field.set(object, value);
+	}
+
+	/**
+	 * Interface of the measured method, loaded by the benchmark class loader so that the
+	 * instrumented class can be called without reflection.
+	 */
+	public interface Computation {
+
+		/**
+		 * Measured method.
+		 *
+		 * @param value
+		 *            Value.
+		 * @return Computed value.
+		 */
+		long compute(long value);
+
+	}
+
+	/**
+	 * Class with the measured method.
+	 */
+	public static class Target implements Computation {
+
+		/**
+		 * {@inheritDoc}
+		 * <p>
+		 * Intentionally cheap so that the instrumentation overhead dominates.
+		 */
+		@Override
+		public long compute(long value) {
+			return (value * 31L) + 7L;
+		}
+
+	}
+
+	/**
+	 * Class loader defining the given byte code of the {@link Target} class.
+	 */
+	private static class TargetClassLoader extends ClassLoader {
+
+		/**
+		 * Byte code of the target class.
+		 */
+		private final byte[] byteCode;
+
+		/**
+		 * Default constructor.
+		 *
+		 * @param byteCode
+		 *            Byte code of the target class.
+		 */
+		TargetClassLoader(byte[] byteCode) {
+			super(InlinedTimerPerfTest.class.getClassLoader());
+			this.byteCode = byteCode;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+			if (Target.class.getName().equals(name)) {
+				Class<?> clazz = findLoadedClass(name);
+				if (null == clazz) {
+					clazz = defineClass(name, byteCode, 0, byteCode.length);
+				}
+				return clazz;
+			}
+			return super.loadClass(name, resolve);
+		}
+
+	}
+
+	/**
+	 * Agent providing only the hook dispatcher.
+	 */
+	private static class BenchmarkAgent implements IAgent {
+
+		/**
+		 * Hook dispatcher.
+		 */
+		private final IHookDispatcher hookDispatcher;
+
+		/**
+		 * Default constructor.
+		 *
+		 * @param hookDispatcher
+		 *            Hook dispatcher.
+		 */
+		BenchmarkAgent(IHookDispatcher hookDispatcher) {
+			this.hookDispatcher = hookDispatcher;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public byte[] inspectByteCode(byte[] byteCode, String className, ClassLoader classLoader) {
+			return null;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public IHookDispatcher getHookDispatcher() {
+			return hookDispatcher;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public Class<?> loadClass(Object[] params) {
+			return null;
+		}
+
+	}
+
+}
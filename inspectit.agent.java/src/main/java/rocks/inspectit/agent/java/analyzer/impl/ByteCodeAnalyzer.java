@@ -8,8 +8,12 @@ import java.io.InputStream;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.commons.codec.digest.DigestUtils;
@@ -35,7 +39,13 @@ import rocks.inspectit.agent.java.hooking.IHookDispatcherMapper;
 import rocks.inspectit.agent.java.instrumentation.asm.ClassAnalyzer;
 import rocks.inspectit.agent.java.instrumentation.asm.ClassInstrumenter;
 import rocks.inspectit.agent.java.instrumentation.asm.LoaderAwareClassWriter;
+import rocks.inspectit.agent.java.sensor.exception.ExceptionSensor;
 import rocks.inspectit.agent.java.sensor.method.IMethodSensor;
+import rocks.inspectit.agent.java.sensor.method.jdbc.ConnectionSensor;
+import rocks.inspectit.agent.java.sensor.method.jdbc.PreparedStatementParameterSensor;
+import rocks.inspectit.agent.java.sensor.method.jdbc.PreparedStatementSensor;
+import rocks.inspectit.agent.java.sensor.method.logging.Log4JLoggingSensor;
+import rocks.inspectit.agent.java.sensor.method.timer.InlinedTimerCollector;
 import rocks.inspectit.shared.all.exception.BusinessException;
 import rocks.inspectit.shared.all.instrumentation.classcache.Type;
 import rocks.inspectit.shared.all.instrumentation.config.impl.InstrumentationDefinition;
@@ -102,6 +112,12 @@ public class ByteCodeAnalyzer implements IByteCodeAnalyzer, InitializingBean {
 	@Autowired
 	private List<IMethodSensor> methodSensors;
 
+	/**
+	 * {@link InlinedTimerCollector} assigning the inlined timer slots.
+	 */
+	@Autowired
+	private InlinedTimerCollector inlinedTimerCollector;
+
 	/**
 	 * Map of {@link IMethodSensor}s to their IDs for faster lookups.
 	 */
@@ -109,29 +125,11 @@ public class ByteCodeAnalyzer implements IByteCodeAnalyzer, InitializingBean {
 
 	/**
 	 * {@inheritDoc}
+	 * <p>
+	 * The type and all of its depending types that were not sent yet are sent to the server in one
+	 * call.
 	 */
 	public byte[] analyzeAndInstrument(byte[] byteCode, String className, final ClassLoader classLoader) {
-		return analyzeAndInstrumentInternal(byteCode, className, classLoader, true);
-	}
-
-	/**
-	 * Internal implementation of the {@link #analyzeAndInstrument(byte[], String, ClassLoader)}.
-	 * Provides option to define if the instrumentation needs to be performed or not.
-	 *
-	 * @param byteCode
-	 *            The byte-code of the class to analyze. If <code>null</code> is passed byte code
-	 *            will be loaded using {@link #getByteCodeFromClassLoader(String, ClassLoader)}.
-	 * @param className
-	 *            The class name.
-	 * @param classLoader
-	 *            The class loader.
-	 * @param performInstrumentation
-	 *            If instrumentation should be performed with the instrumentation result sent by the
-	 *            server.
-	 * @return The instrumented byte code or <code>null</code> if instrumentation was not performed
-	 *         (or in case of error).
-	 */
-	private byte[] analyzeAndInstrumentInternal(byte[] byteCode, String className, final ClassLoader classLoader, boolean performInstrumentation) {
 		try {
 			if (null == byteCode) {
 				// try to read from class loader, if it fails just return
@@ -161,29 +159,37 @@ public class ByteCodeAnalyzer implements IByteCodeAnalyzer, InitializingBean {
 					return null;
 				}
 
-				// parse first, do not use internFQNs
-				ClassReader classReader = new ClassReader(byteCode);
-				ClassAnalyzer classAnalyzer = new ClassAnalyzer(hash);
-				classReader.accept(classAnalyzer, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
-				Type type = (Type) classAnalyzer.getType();
+				Type type = parse(byteCode, hash);
 
-				// analyze all necessary depending classes before
-				analyzeDependingTypes(type, classLoader);
+				// collect all necessary depending classes, they must be sent before the type
+				Map<String, Type> hashAndTypes = new LinkedHashMap<String, Type>();
+				Set<String> analyzedFqns = new HashSet<String>();
+				collectDependingTypes(type, classLoader, hashAndTypes, analyzedFqns);
+				hashAndTypes.put(hash, type);
 
 				// try connecting to server
-				instrumentationResult = connection.analyze(platformManager.getPlatformId(), hash, type);
+				Map<String, InstrumentationDefinition> instrumentationResults = connection.analyzeAll(platformManager.getPlatformId(), hashAndTypes);
+				if (null == instrumentationResults) {
+					instrumentationResults = Collections.emptyMap();
+				}
+
+				// register types as sent
+				for (Entry<String, Type> entry : hashAndTypes.entrySet()) {
+					String sentHash = entry.getKey();
+					String fqn = hash.equals(sentHash) ? className : entry.getValue().getFQN();
+					classHashHelper.registerSent(fqn, sentHash);
+					classHashHelper.registerInstrumentationDefinition(fqn, instrumentationResults.get(sentHash));
+				}
 
-				// register type as sent
-				classHashHelper.registerSent(className, hash);
-				classHashHelper.registerInstrumentationDefinition(className, instrumentationResult);
+				// depending types count as analyzed only once the server has them
+				for (String analyzedFqn : analyzedFqns) {
+					classHashHelper.registerAnalyzed(analyzedFqn);
+				}
+				instrumentationResult = instrumentationResults.get(hash);
 			}
 
 			// execute instrumentation if needed
-			if (performInstrumentation) {
-				return performInstrumentation(byteCode, classLoader, instrumentationResult);
-			} else {
-				return null;
-			}
+			return performInstrumentation(byteCode, classLoader, instrumentationResult);
 		} catch (IdNotAvailableException idNotAvailableException) {
 			log.error("Error occurred instrumenting the byte code of class " + className, idNotAvailableException);
 			return null;
@@ -200,19 +206,57 @@ public class ByteCodeAnalyzer implements IByteCodeAnalyzer, InitializingBean {
 	}
 
 	/**
-	 * Analyze the depending types of the given type and sends the results to the server if needed.
+	 * Parses the given byte code to the {@link Type}. Does not use internFQNs.
+	 *
+	 * @param byteCode
+	 *            Byte code of the class.
+	 * @param hash
+	 *            Class hash code.
+	 * @return Parsed {@link Type}.
+	 */
+	private Type parse(byte[] byteCode, String hash) {
+		ClassReader classReader = new ClassReader(byteCode);
+		ClassAnalyzer classAnalyzer = new ClassAnalyzer(hash);
+		classReader.accept(classAnalyzer, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+		return (Type) classAnalyzer.getType();
+	}
+
+	/**
+	 * Collects the depending types of the given type that were not sent to the server yet. The
+	 * depending types of each type are collected before the type itself, so the server can process
+	 * the types in the iteration order of the given map.
 	 *
 	 * @param type
 	 *            {@link Type}
 	 * @param classLoader
 	 *            {@link ClassLoader} used for loading the given type.
+	 * @param hashAndTypes
+	 *            Map to add the collected types to, with class hash code as key.
+	 * @param analyzedFqns
+	 *            FQNs of the depending types already visited in this collection. They are
+	 *            registered as analyzed by the caller once the types are successfully sent.
 	 */
-	private void analyzeDependingTypes(Type type, ClassLoader classLoader) {
+	private void collectDependingTypes(Type type, ClassLoader classLoader, Map<String, Type> hashAndTypes, Set<String> analyzedFqns) {
 		Collection<Type> dependingTypes = type.getDependingTypes();
 		if (CollectionUtils.isNotEmpty(dependingTypes)) {
 			for (Type dependingType : dependingTypes) {
-				if (!classHashHelper.isAnalyzed(dependingType.getFQN())) {
-					analyzeAndInstrumentInternal(null, dependingType.getFQN(), classLoader, false);
+				String fqn = dependingType.getFQN();
+				if (classHashHelper.isAnalyzed(fqn) || analyzedFqns.contains(fqn)) {
+					continue;
+				}
+
+				byte[] byteCode = getByteCodeFromClassLoader(fqn, classLoader);
+				if (null == byteCode) {
+					continue;
+				}
+
+				analyzedFqns.add(fqn);
+
+				String hash = DigestUtils.sha256Hex(byteCode);
+				if (!classHashHelper.isSent(fqn, hash)) {
+					Type parsedType = parse(byteCode, hash);
+					collectDependingTypes(parsedType, classLoader, hashAndTypes, analyzedFqns);
+					hashAndTypes.put(hash, parsedType);
 				}
 			}
 		}
@@ -242,6 +286,17 @@ public class ByteCodeAnalyzer implements IByteCodeAnalyzer, InitializingBean {
 
 		Collection<MethodInstrumentationConfig> instrumentationConfigs = instrumentationResult.getMethodInstrumentationConfigs();
 
+		// dispatch indexes and slots must be assigned before the instrumentation
+		for (MethodInstrumentationConfig config : instrumentationConfigs) {
+			SensorInstrumentationPoint sensorInstrumentationPoint = config.getSensorInstrumentationPoint();
+			if (null != sensorInstrumentationPoint) {
+				sensorInstrumentationPoint.setDispatchIndex(hookDispatcherMapper.getDispatchIndex(sensorInstrumentationPoint.getId()));
+				if (sensorInstrumentationPoint.isInlinedTimer()) {
+					inlinedTimerCollector.assignSlot(sensorInstrumentationPoint);
+				}
+			}
+		}
+
 		// here do the instrumentation
 		ClassReader classReader = new ClassReader(byteCode);
 		LoaderAwareClassWriter classWriter = new LoaderAwareClassWriter(classReader, ClassWriter.COMPUTE_FRAMES, classLoader);
@@ -301,6 +356,7 @@ public class ByteCodeAnalyzer implements IByteCodeAnalyzer, InitializingBean {
 		rsc.setId(sensorInstrumentationPoint.getId());
 		rsc.setStartsInvocation(sensorInstrumentationPoint.isStartsInvocation());
 		rsc.setSettings(sensorInstrumentationPoint.getSettings());
+		rsc.setMinDuration(getMinDuration(sensorInstrumentationPoint.getSettings()));
 		// accessor list must be thread safe
 		if (CollectionUtils.isNotEmpty(sensorInstrumentationPoint.getPropertyAccessorList())) {
 			rsc.setPropertyAccessorList(new CopyOnWriteArrayList<PropertyPathStart>(sensorInstrumentationPoint.getPropertyAccessorList()));
@@ -309,19 +365,72 @@ public class ByteCodeAnalyzer implements IByteCodeAnalyzer, InitializingBean {
 		}
 
 		// resolve sensors
+		int sensorKinds = 0;
 		for (long sensorId : sensorInstrumentationPoint.getSensorIds()) {
 			IMethodSensor sensor = methodSensorMap.get(sensorId);
 			if (null != sensor) {
 				rsc.addMethodSensor(sensor);
+				sensorKinds |= getSensorKind(sensor);
 			} else {
 				String methodFull = config.getTargetClassFqn() + "#" + config.getTargetMethodName();
 				log.error("Sensor with the id " + sensorId + " does not exists on the agent, but it's defined for the method: " + methodFull);
 			}
 		}
+		rsc.setSensorKinds(sensorKinds);
 
 		return rsc;
 	}
 
+	/**
+	 * Returns the sensor kind flag of the given sensor as defined in the
+	 * {@link RegisteredSensorConfig}.
+	 *
+	 * @param sensor
+	 *            Method sensor.
+	 * @return Sensor kind flag or <code>0</code> if sensor has no special kind.
+	 */
+	private int getSensorKind(IMethodSensor sensor) {
+		String className = sensor.getSensorTypeConfig().getClassName();
+		if (ExceptionSensor.class.getCanonicalName().equals(className)) {
+			return RegisteredSensorConfig.EXCEPTION_SENSOR;
+		} else if (PreparedStatementSensor.class.getCanonicalName().equals(className)) {
+			return RegisteredSensorConfig.PREPARED_STATEMENT_SENSOR;
+		} else if (PreparedStatementParameterSensor.class.getCanonicalName().equals(className)) {
+			return RegisteredSensorConfig.PREPARED_STATEMENT_PARAMETER_SENSOR;
+		} else if (ConnectionSensor.class.getCanonicalName().equals(className)) {
+			return RegisteredSensorConfig.CONNECTION_SENSOR;
+		} else if (Log4JLoggingSensor.class.getCanonicalName().equals(className)) {
+			return RegisteredSensorConfig.LOG4J_LOGGING_SENSOR;
+		}
+		return 0;
+	}
+
+	/**
+	 * Parses the <code>minduration</code> setting. The CMR sends the setting as number, but the
+	 * string representation is accepted as well.
+	 *
+	 * @param settings
+	 *            Settings of the sensor instrumentation point, can be <code>null</code>.
+	 * @return Parsed minimum duration or <code>0</code> if it's not set or can not be parsed.
+	 */
+	private double getMinDuration(Map<String, Object> settings) {
+		if (MapUtils.isEmpty(settings)) {
+			return 0;
+		}
+
+		Object minDuration = settings.get("minduration");
+		if (minDuration instanceof Number) {
+			return ((Number) minDuration).doubleValue();
+		} else if (null != minDuration) {
+			try {
+				return Double.parseDouble(minDuration.toString());
+			} catch (NumberFormatException e) {
+				log.warn("Invalid invocation sequence minimum duration setting: " + minDuration, e);
+			}
+		}
+		return 0;
+	}
+
 	/**
 	 * Tries to read the byte code form the input stream provided by the given class loader. If the
 	 * class loader is <code>null</code>, then {@link ClassLoader#getResourceAsStream(String)} will
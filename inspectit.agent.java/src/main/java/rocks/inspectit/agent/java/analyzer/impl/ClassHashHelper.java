@@ -25,7 +25,9 @@ import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
 
 import rocks.inspectit.agent.java.config.IConfigurationStorage;
+import rocks.inspectit.agent.java.connection.IConnection;
 import rocks.inspectit.agent.java.core.ICoreService;
+import rocks.inspectit.agent.java.core.IPlatformManager;
 import rocks.inspectit.agent.java.io.FileResolver;
 import rocks.inspectit.agent.java.spring.PrototypesProvider;
 import rocks.inspectit.shared.all.instrumentation.config.impl.InstrumentationDefinition;
@@ -77,6 +79,18 @@ public class ClassHashHelper implements InitializingBean, DisposableBean {
 	@Autowired
 	private FileResolver fileResolver;
 
+	/**
+	 * Connection to the CMR, used to pre-warm the cache.
+	 */
+	@Autowired
+	private IConnection connection;
+
+	/**
+	 * Platform manager to get the agent id.
+	 */
+	@Autowired
+	private IPlatformManager platformManager;
+
 	/**
 	 * Serialization manager to use when storing loading from disk.
 	 */
@@ -207,7 +221,8 @@ public class ClassHashHelper implements InitializingBean, DisposableBean {
 	 * {@inheritDoc}
 	 * <P>
 	 * Loads the possible existing class cache from the disk if CMR reports to know classes from
-	 * this agent.
+	 * this agent. Otherwise the classes from the disk cache that the CMR still knows by the hash
+	 * are pre-warmed, so they don't have to be parsed and sent again.
 	 */
 	public void afterPropertiesSet() throws Exception {
 		serializationManager = prototypesProvider.createSerializer();
@@ -216,6 +231,7 @@ public class ClassHashHelper implements InitializingBean, DisposableBean {
 		if (configurationStorage.isClassCacheExistsOnCmr()) {
 			loadCacheFromDisk();
 		} else {
+			prewarmCacheFromDisk();
 			deleteCacheFromDisk();
 		}
 
@@ -253,8 +269,60 @@ public class ClassHashHelper implements InitializingBean, DisposableBean {
 	/**
 	 * Load sent classes from disk.
 	 */
-	@SuppressWarnings("unchecked")
 	private void loadCacheFromDisk() {
+		Map<String, Collection<String>> fqnWithHashes = readCacheFromDisk();
+		if (MapUtils.isNotEmpty(fqnWithHashes)) {
+			for (Entry<String, Collection<String>> entry : fqnWithHashes.entrySet()) {
+				ClassEntry classEntry = getOrCreateEntry(entry.getKey());
+				for (String hash : entry.getValue()) {
+					classEntry.addHash(hash);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Asks the CMR which classes from the disk cache it already knows by the hash and registers
+	 * the known ones as sent together with their instrumentation results. The unknown classes
+	 * will be analyzed as usual when loaded.
+	 */
+	private void prewarmCacheFromDisk() {
+		Map<String, Collection<String>> fqnWithHashes = readCacheFromDisk();
+		if (MapUtils.isEmpty(fqnWithHashes)) {
+			return;
+		}
+
+		Map<String, String> hashToFqn = new HashMap<String, String>();
+		for (Entry<String, Collection<String>> entry : fqnWithHashes.entrySet()) {
+			for (String hash : entry.getValue()) {
+				hashToFqn.put(hash, entry.getKey());
+			}
+		}
+
+		try {
+			Map<String, InstrumentationDefinition> knownHashes = connection.analyzeKnown(platformManager.getPlatformId(), hashToFqn.keySet());
+			if (MapUtils.isNotEmpty(knownHashes)) {
+				for (Entry<String, InstrumentationDefinition> entry : knownHashes.entrySet()) {
+					String fqn = hashToFqn.get(entry.getKey());
+					if (null != fqn) {
+						registerSent(fqn, entry.getKey());
+						registerInstrumentationDefinition(fqn, entry.getValue());
+					}
+				}
+			}
+		} catch (Exception e) { // NOPMD
+			log.warn("Unable to pre-warm the sending classes cache from disk.", e);
+		}
+	}
+
+	/**
+	 * Reads the FQNs with the sent hashes from the disk.
+	 *
+	 * @return Map of class FQNs to the sent hashes or <code>null</code> if cache file does not
+	 *         exist or can not be read.
+	 */
+	@SuppressWarnings("unchecked")
+	private Map<String, Collection<String>> readCacheFromDisk() {
 		File file = fileResolver.getClassHashCacheFile().getAbsoluteFile();
 
 		if (file.exists()) {
@@ -263,13 +331,7 @@ public class ClassHashHelper implements InitializingBean, DisposableBean {
 				fileInputStream = new FileInputStream(file);
 				Input input = new Input(fileInputStream);
 
-				Map<String, Collection<String>> fqnWithHashes = (Map<String, Collection<String>>) serializationManager.deserialize(input);
-				for (Entry<String, Collection<String>> entry : fqnWithHashes.entrySet()) {
-					ClassEntry classEntry = getOrCreateEntry(entry.getKey());
-					for (String hash : entry.getValue()) {
-						classEntry.addHash(hash);
-					}
-				}
+				return (Map<String, Collection<String>>) serializationManager.deserialize(input);
 			} catch (Throwable t) { // NOPMD
 				log.warn("Unable to load sending classes cache from disk.", t);
 			} finally {
@@ -282,6 +344,7 @@ public class ClassHashHelper implements InitializingBean, DisposableBean {
 				}
 			}
 		}
+		return null;
 	}
 
 	/**
@@ -24,6 +24,16 @@ public interface IBufferStrategy<E> extends Iterator<List<E>> {
 	 */
 	void addMeasurements(List<E> measurements);
 
+	/**
+	 * Gives back the measurements retrieved by {@link #next()} that could not be sent. The
+	 * measurements are older than the ones added in the meantime, thus they are placed before
+	 * them and are the first to be dropped if the buffer is full.
+	 *
+	 * @param measurements
+	 *            The measurements to give back.
+	 */
+	void requeueMeasurements(List<E> measurements);
+
 	/**
 	 * Initializes the buffer strategy with the given {@link Map}.
 	 *
@@ -1,5 +1,6 @@
 package rocks.inspectit.agent.java.buffer.impl;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
@@ -13,7 +14,9 @@ import rocks.inspectit.shared.all.spring.logger.Log;
 
 /**
  * The simplest version of a buffer strategy contains just the reference to one measurement list.
- * Every time a new one is added, the old one is thrown away.
+ * Every time a new one is added while the old one was not sent yet, both are merged into one list,
+ * as long as the merged list does not exceed the maximum amount of elements. Otherwise the old one
+ * is thrown away.
  *
  * @author Patrice Bouillet
  *
@@ -26,6 +29,21 @@ public class SimpleBufferStrategy extends AbstractBufferStrategy<MethodSensorDat
 	@Log
 	Logger log;
 
+	/**
+	 * The default maximum amount of elements in the merged measurements.
+	 */
+	private static final int DEFAULT_MAX_ELEMENTS = 100000;
+
+	/**
+	 * The maximum amount of elements in the merged measurements.
+	 */
+	private int maxElements = DEFAULT_MAX_ELEMENTS;
+
+	/**
+	 * Total amount of the dropped elements.
+	 */
+	private long droppedCount;
+
 	/**
 	 * Stores the reference to the last given measurements.
 	 */
@@ -45,11 +63,21 @@ public class SimpleBufferStrategy extends AbstractBufferStrategy<MethodSensorDat
 		}
 		synchronized (this) {
 			if (newMeasurements) {
-				// if the measurements already exist, this buffer strategy will simply drop the old
-				// ones, because we can not let the data pile up if the sending of the data is not
-				// fast enough
+				if ((this.measurements.size() + measurements.size()) <= maxElements) {
+					// the sending is not fast enough, so we merge the measurements until the limit
+					List<MethodSensorData> merged = new ArrayList<MethodSensorData>(this.measurements.size() + measurements.size());
+					merged.addAll(this.measurements);
+					merged.addAll(measurements);
+					this.measurements = merged;
+					return;
+				}
+
+				// if the limit is reached, this buffer strategy will simply drop the old ones,
+				// because we can not let the data pile up if the sending of the data is not fast
+				// enough
+				droppedCount += this.measurements.size();
 				if (log.isDebugEnabled()) {
-					log.debug("Possible data loss due to the excessive data creation on the Agent!");
+					log.debug("Data loss due to the excessive data creation on the Agent! Dropped data objects count (total): " + droppedCount);
 				}
 			}
 			this.measurements = measurements;
@@ -57,6 +85,34 @@ public class SimpleBufferStrategy extends AbstractBufferStrategy<MethodSensorDat
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	public final void requeueMeasurements(final List<MethodSensorData> measurements) {
+		if (null == measurements) {
+			throw new IllegalArgumentException("Measurements cannot be null!");
+		}
+		synchronized (this) {
+			if (newMeasurements) {
+				if ((measurements.size() + this.measurements.size()) <= maxElements) {
+					List<MethodSensorData> merged = new ArrayList<MethodSensorData>(measurements.size() + this.measurements.size());
+					merged.addAll(measurements);
+					merged.addAll(this.measurements);
+					this.measurements = merged;
+				} else {
+					// the given measurements are the old ones, so they are dropped
+					droppedCount += measurements.size();
+					if (log.isDebugEnabled()) {
+						log.debug("Data loss due to the excessive data creation on the Agent! Dropped data objects count (total): " + droppedCount);
+					}
+				}
+				return;
+			}
+			this.measurements = measurements;
+			newMeasurements = true;
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -89,7 +145,18 @@ public class SimpleBufferStrategy extends AbstractBufferStrategy<MethodSensorDat
 	 * {@inheritDoc}
 	 */
 	public final void init(final Map<String, String> settings) {
-		// nothing to do
+		if (settings.containsKey("maxElements")) {
+			this.maxElements = Integer.parseInt(settings.get("maxElements"));
+		}
+	}
+
+	/**
+	 * Returns the total amount of the dropped elements.
+	 *
+	 * @return Total amount of the dropped elements.
+	 */
+	public final synchronized long getDroppedCount() {
+		return droppedCount;
 	}
 
 }
@@ -83,6 +83,27 @@ public class SizeBufferStrategy extends AbstractBufferStrategy<MethodSensorData>
 
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The measurements are put back on top of the stack where {@link #next()} took them from, so
+	 * that they are retried first.
+	 */
+	public void requeueMeasurements(List<MethodSensorData> measurements) {
+		if (null == measurements) {
+			throw new IllegalArgumentException("Measurements cannot be null!");
+		}
+
+		synchronized (this) {
+			if (stack.size() >= size) {
+				stack.removeFirst();
+				log.info("Possible data loss due to the excessive data creation on the Agent!");
+			}
+
+			stack.addLast(measurements);
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -18,6 +18,31 @@ import rocks.inspectit.shared.all.instrumentation.config.impl.PropertyPathStart;
  */
 public class RegisteredSensorConfig {
 
+	/**
+	 * Sensor kind flag of the exception sensor.
+	 */
+	public static final int EXCEPTION_SENSOR = 1;
+
+	/**
+	 * Sensor kind flag of the prepared statement sensor.
+	 */
+	public static final int PREPARED_STATEMENT_SENSOR = 1 << 1;
+
+	/**
+	 * Sensor kind flag of the prepared statement parameter sensor.
+	 */
+	public static final int PREPARED_STATEMENT_PARAMETER_SENSOR = 1 << 2;
+
+	/**
+	 * Sensor kind flag of the connection sensor.
+	 */
+	public static final int CONNECTION_SENSOR = 1 << 3;
+
+	/**
+	 * Sensor kind flag of the Log4J logging sensor.
+	 */
+	public static final int LOG4J_LOGGING_SENSOR = 1 << 4;
+
 	/**
 	 * The method id.
 	 */
@@ -53,6 +78,12 @@ public class RegisteredSensorConfig {
 	 */
 	private Map<String, Object> settings;
 
+	/**
+	 * Minimum duration of the invocation sequence started by this method parsed from the
+	 * <code>minduration</code> setting. Zero or less if no minimum duration is set.
+	 */
+	private double minDuration;
+
 	/**
 	 * If <code>propertyAccess</code> is set to true, then this list contains at least one element.
 	 * The contents is of type {@link PropertyPathStart}.
@@ -69,6 +100,13 @@ public class RegisteredSensorConfig {
 	 */
 	private final List<IMethodSensor> methodSensorsReverse = new ArrayList<IMethodSensor>(1);
 
+	/**
+	 * Bit mask of the sensor kind flags of the method sensors, see {@link #EXCEPTION_SENSOR} and
+	 * the other flag constants. Allows checking for the specific sensors without comparing the
+	 * sensor class names on every invocation.
+	 */
+	private int sensorKinds;
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -209,6 +247,25 @@ public class RegisteredSensorConfig {
 		this.settings.putAll(settings);
 	}
 
+	/**
+	 * Gets {@link #minDuration}.
+	 *
+	 * @return {@link #minDuration}
+	 */
+	public double getMinDuration() {
+		return minDuration;
+	}
+
+	/**
+	 * Sets {@link #minDuration}.
+	 *
+	 * @param minDuration
+	 *            New value for {@link #minDuration}
+	 */
+	public void setMinDuration(double minDuration) {
+		this.minDuration = minDuration;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -275,4 +332,23 @@ public class RegisteredSensorConfig {
 		methodSensors.add(methodSensor);
 		methodSensorsReverse.add(0, methodSensor);
 	}
+
+	/**
+	 * Gets {@link #sensorKinds}.
+	 *
+	 * @return {@link #sensorKinds}
+	 */
+	public int getSensorKinds() {
+		return sensorKinds;
+	}
+
+	/**
+	 * Sets {@link #sensorKinds}.
+	 *
+	 * @param sensorKinds
+	 *            New value for {@link #sensorKinds}
+	 */
+	public void setSensorKinds(int sensorKinds) {
+		this.sensorKinds = sensorKinds;
+	}
 }
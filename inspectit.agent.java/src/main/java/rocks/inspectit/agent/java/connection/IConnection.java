@@ -1,6 +1,7 @@
 package rocks.inspectit.agent.java.connection;
 
 import java.net.ConnectException;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -57,10 +58,14 @@ public interface IConnection {
 	 *
 	 * @param dataObjects
 	 *            The measurements to send.
+	 * @return The ingest capacity advertised by the server, that is the amount of the further
+	 *         measurement lists the server can accept at the moment, or
+	 *         {@link rocks.inspectit.shared.all.cmr.service.IAgentStorageService#REJECTED} if the
+	 *         measurements were not accepted and should be sent again later.
 	 * @throws ServerUnavailableException
 	 *             If server to send the request to is unavailable.
 	 */
-	void sendDataObjects(List<? extends DefaultData> dataObjects) throws ServerUnavailableException;
+	int sendDataObjects(List<? extends DefaultData> dataObjects) throws ServerUnavailableException;
 
 	/**
 	 * Registers the agent with the CMR. The CMR will answer with the {@link AgentConfig} containing
@@ -114,6 +119,44 @@ public interface IConnection {
 	 */
 	InstrumentationDefinition analyze(long platformIdent, String hash, Type type) throws ServerUnavailableException, BusinessException;
 
+	/**
+	 * Analyzes all given types in one call, returning the {@link InstrumentationDefinition}s for
+	 * the types that should be instrumented on the Agent. Implementations can combine concurrent
+	 * calls into one request to the server.
+	 *
+	 * @param platformIdent
+	 *            Id of the agent.
+	 * @param hashAndTypes
+	 *            Map of class hash codes to the types that have been parsed from the byte-code.
+	 *            Types should come after the types they depend on.
+	 * @return Map of class hash codes to the instrumentation definitions. Can contain the results
+	 *         of other types as well, and returns <code>null</code> if the server could not
+	 *         provide the result.
+	 * @throws ServerUnavailableException
+	 *             If server to send the request to is unavailable.
+	 * @throws BusinessException
+	 *             If {@link BusinessException} is thrown on the server.
+	 */
+	Map<String, InstrumentationDefinition> analyzeAll(long platformIdent, Map<String, Type> hashAndTypes) throws ServerUnavailableException, BusinessException;
+
+	/**
+	 * Returns the {@link InstrumentationDefinition}s for the classes that are already known to the
+	 * server by the given hashes, without sending the types.
+	 *
+	 * @param platformIdent
+	 *            Id of the agent.
+	 * @param hashes
+	 *            Class hash codes.
+	 * @return Map of the known class hash codes to the instrumentation definitions, with
+	 *         <code>null</code> values for the known classes that should not be instrumented.
+	 *         Returns <code>null</code> if the server could not provide the result.
+	 * @throws ServerUnavailableException
+	 *             If server to send the request to is unavailable.
+	 * @throws BusinessException
+	 *             If {@link BusinessException} is thrown on the server.
+	 */
+	Map<String, InstrumentationDefinition> analyzeKnown(long platformIdent, Collection<String> hashes) throws ServerUnavailableException, BusinessException;
+
 	/**
 	 * Informs the CMR that the methods have been instrumented on the agent.
 	 *
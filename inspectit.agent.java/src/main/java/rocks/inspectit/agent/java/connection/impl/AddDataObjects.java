@@ -12,7 +12,7 @@ import rocks.inspectit.shared.all.communication.DefaultData;
  * @author Patrice Bouillet
  *
  */
-public class AddDataObjects extends AbstractRemoteMethodCall<IAgentStorageService, Void> {
+public class AddDataObjects extends AbstractRemoteMethodCall<IAgentStorageService, Integer> {
 
 	/**
 	 * A list containing our measurements we want to send.
@@ -38,9 +38,8 @@ public class AddDataObjects extends AbstractRemoteMethodCall<IAgentStorageServic
 	 * {@inheritDoc}
 	 */
 	@Override
-	protected Void performRemoteCall(IAgentStorageService remoteObject) {
-		remoteObject.addDataObjects(dataObjects);
-		return null;
+	protected Integer performRemoteCall(IAgentStorageService remoteObject) {
+		return Integer.valueOf(remoteObject.addDataObjects(dataObjects));
 	}
 
 }
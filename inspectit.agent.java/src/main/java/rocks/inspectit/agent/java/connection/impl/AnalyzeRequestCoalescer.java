@@ -0,0 +1,364 @@
+package rocks.inspectit.agent.java.connection.impl;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import rocks.inspectit.agent.java.connection.ServerUnavailableException;
+import rocks.inspectit.shared.all.exception.BusinessException;
+import rocks.inspectit.shared.all.instrumentation.classcache.Type;
+import rocks.inspectit.shared.all.instrumentation.config.impl.InstrumentationDefinition;
+import rocks.inspectit.shared.all.kryonet.rmi.ResponseFuture;
+
+/**
+ * Coalesces the analyze requests of concurrently class loading threads into batched calls to the
+ * server. Every request is queued. The first thread that finds no send in progress becomes the
+ * sender and sends the types of all queued requests in one call, until the queue is empty. The
+ * calls are asynchronous, so the sender does not wait for the response of one batch before sending
+ * the next one. The requests of a batch are completed when the response of its call is received.
+ * Thus many batches can be in flight over one connection and the class loading threads only wait
+ * for the response to their own request.
+ */
+abstract class AnalyzeRequestCoalescer {
+
+	/**
+	 * Max amount of types to send in one call. Requests are never split, so this number can be
+	 * exceeded by the types of a single request.
+	 */
+	private static final int MAX_BATCH_TYPES = 1000;
+
+	/**
+	 * Queued requests.
+	 */
+	private final ConcurrentLinkedQueue<AnalyzeRequest> queue = new ConcurrentLinkedQueue<AnalyzeRequest>();
+
+	/**
+	 * If a thread is currently sending.
+	 */
+	private final AtomicBoolean sending = new AtomicBoolean();
+
+	/**
+	 * Time in milliseconds to wait for the result of a request.
+	 */
+	private final long responseTimeout;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param responseTimeout
+	 *            Time in milliseconds to wait for the result of a request.
+	 */
+	AnalyzeRequestCoalescer(long responseTimeout) {
+		this.responseTimeout = responseTimeout;
+	}
+
+	/**
+	 * Analyzes the given types. Blocks until the types are analyzed, either by the calling thread or
+	 * by another thread sending the request together with its own.
+	 *
+	 * @param platformIdent
+	 *            Id of the agent.
+	 * @param hashAndTypes
+	 *            Map of class hash codes to the types.
+	 * @return Map of class hash codes to the instrumentation definitions, can contain results of
+	 *         the other types sent in the same call or be <code>null</code> if server could not
+	 *         provide the result.
+	 * @throws ServerUnavailableException
+	 *             If server is unavailable or the result was not received within the response
+	 *             timeout.
+	 * @throws BusinessException
+	 *             If {@link BusinessException} is thrown on the server.
+	 */
+	public Map<String, InstrumentationDefinition> analyze(long platformIdent, Map<String, Type> hashAndTypes) throws ServerUnavailableException, BusinessException {
+		AnalyzeRequest request = new AnalyzeRequest(platformIdent, hashAndTypes);
+		queue.add(request);
+
+		if (sending.compareAndSet(false, true)) {
+			do {
+				try {
+					sendQueued();
+				} finally {
+					sending.set(false);
+				}
+				// a request queued after the last poll and before the flag was cleared would have
+				// failed to become the sender, so it must be sent by us
+			} while (!queue.isEmpty() && sending.compareAndSet(false, true));
+		}
+
+		boolean interrupted = false;
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(responseTimeout);
+		while (!request.isCompleted()) {
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0) {
+				request.timeout();
+				break;
+			}
+			try {
+				request.await(remaining);
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+
+		return request.getResult();
+	}
+
+	/**
+	 * Sends all queued requests without waiting for the responses. Requests of the same agent are
+	 * combined into one call.
+	 */
+	private void sendQueued() {
+		AnalyzeRequest first = queue.poll();
+		while (null != first) {
+			List<AnalyzeRequest> batch = new ArrayList<AnalyzeRequest>();
+			List<AnalyzeRequest> otherAgents = new ArrayList<AnalyzeRequest>(0);
+			Map<String, Type> hashAndTypes = new LinkedHashMap<String, Type>(first.hashAndTypes);
+			batch.add(first);
+
+			while (hashAndTypes.size() < MAX_BATCH_TYPES) {
+				AnalyzeRequest next = queue.poll();
+				if (null == next) {
+					break;
+				} else if (next.platformIdent == first.platformIdent) {
+					batch.add(next);
+					hashAndTypes.putAll(next.hashAndTypes);
+				} else {
+					otherAgents.add(next);
+				}
+			}
+			queue.addAll(otherAgents);
+
+			try {
+				ResponseFuture<Map<String, InstrumentationDefinition>> responseFuture = sendAnalyze(first.platformIdent, hashAndTypes);
+				for (AnalyzeRequest request : batch) {
+					request.responseFuture = responseFuture;
+				}
+				responseFuture.addCallback(new BatchCallback(batch));
+			} catch (Throwable throwable) { // NOPMD
+				// also errors must complete the batch, otherwise the waiting threads never return
+				complete(batch, null, throwable);
+			}
+
+			first = queue.poll();
+		}
+	}
+
+	/**
+	 * Completes all requests of the batch.
+	 *
+	 * @param batch
+	 *            Requests sent in one call.
+	 * @param result
+	 *            Result of the call.
+	 * @param exception
+	 *            Exception or error of the call or <code>null</code> if call was successful.
+	 */
+	private static void complete(List<AnalyzeRequest> batch, Map<String, InstrumentationDefinition> result, Throwable exception) {
+		for (AnalyzeRequest request : batch) {
+			request.complete(result, exception);
+		}
+	}
+
+	/**
+	 * Sends the call to the server without waiting for the response.
+	 *
+	 * @param platformIdent
+	 *            Id of the agent.
+	 * @param hashAndTypes
+	 *            Combined types of all requests in the batch.
+	 * @return {@link ResponseFuture} of the map of class hash codes to the instrumentation
+	 *         definitions.
+	 * @throws ServerUnavailableException
+	 *             If server is unavailable.
+	 */
+	protected abstract ResponseFuture<Map<String, InstrumentationDefinition>> sendAnalyze(long platformIdent, Map<String, Type> hashAndTypes) throws ServerUnavailableException;
+
+	/**
+	 * Handles the failure of a sent call. Invoked in the thread receiving the response.
+	 *
+	 * @param failure
+	 *            Exception thrown on the server or the failure of the connection.
+	 * @return Result to complete the requests with, <code>null</code> if server could not provide
+	 *         the result.
+	 * @throws ServerUnavailableException
+	 *             If the failure means that the server is unavailable.
+	 * @throws BusinessException
+	 *             If the failure is a {@link BusinessException} thrown on the server.
+	 */
+	protected abstract Map<String, InstrumentationDefinition> handleFailure(Throwable failure) throws ServerUnavailableException, BusinessException;
+
+	/**
+	 * Completes the requests of a batch when the response of its call is received.
+	 */
+	private class BatchCallback implements ResponseFuture.Callback<Map<String, InstrumentationDefinition>> {
+
+		/**
+		 * Requests sent in the call.
+		 */
+		private final List<AnalyzeRequest> batch;
+
+		/**
+		 * Default constructor.
+		 *
+		 * @param batch
+		 *            Requests sent in the call.
+		 */
+		BatchCallback(List<AnalyzeRequest> batch) {
+			this.batch = batch;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public void completed(Map<String, InstrumentationDefinition> result) {
+			complete(batch, result, null);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public void failed(Throwable failure) {
+			try {
+				complete(batch, handleFailure(failure), null);
+			} catch (Throwable throwable) { // NOPMD
+				complete(batch, null, throwable);
+			}
+		}
+	}
+
+	/**
+	 * One queued analyze request.
+	 */
+	private static class AnalyzeRequest {
+
+		/**
+		 * Id of the agent.
+		 */
+		private final long platformIdent;
+
+		/**
+		 * Types to analyze.
+		 */
+		private final Map<String, Type> hashAndTypes;
+
+		/**
+		 * Latch released on completion. Publishes {@link #result} and {@link #exception}.
+		 */
+		private final CountDownLatch completed = new CountDownLatch(1);
+
+		/**
+		 * If the request was completed. Only the first completion is taken.
+		 */
+		private final AtomicBoolean completing = new AtomicBoolean();
+
+		/**
+		 * Future of the call the request was sent in, <code>null</code> until sent.
+		 */
+		private volatile ResponseFuture<?> responseFuture;
+
+		/**
+		 * Result of the call.
+		 */
+		private Map<String, InstrumentationDefinition> result;
+
+		/**
+		 * Exception or error of the call.
+		 */
+		private Throwable exception;
+
+		/**
+		 * Default constructor.
+		 *
+		 * @param platformIdent
+		 *            Id of the agent.
+		 * @param hashAndTypes
+		 *            Types to analyze.
+		 */
+		AnalyzeRequest(long platformIdent, Map<String, Type> hashAndTypes) {
+			this.platformIdent = platformIdent;
+			this.hashAndTypes = hashAndTypes;
+		}
+
+		/**
+		 * Completes the request.
+		 *
+		 * @param result
+		 *            Result of the call.
+		 * @param exception
+		 *            Exception or error of the call or <code>null</code> if call was successful.
+		 */
+		void complete(Map<String, InstrumentationDefinition> result, Throwable exception) {
+			if (completing.compareAndSet(false, true)) {
+				this.result = result;
+				this.exception = exception;
+				completed.countDown();
+			}
+		}
+
+		/**
+		 * Completes the request with the server timeout and stops waiting for the response of the
+		 * call. The requests sent in the same call were sent at the same time and thus also time out.
+		 */
+		void timeout() {
+			complete(null, new ServerUnavailableException(true));
+			ResponseFuture<?> future = responseFuture;
+			if (null != future) {
+				future.cancel(false);
+			}
+		}
+
+		/**
+		 * Returns if request is completed.
+		 *
+		 * @return Returns if request is completed.
+		 */
+		boolean isCompleted() {
+			return 0 == completed.getCount();
+		}
+
+		/**
+		 * Waits for the completion.
+		 *
+		 * @param timeoutNanos
+		 *            Max time to wait in nanoseconds.
+		 * @throws InterruptedException
+		 *             If thread is interrupted while waiting.
+		 */
+		void await(long timeoutNanos) throws InterruptedException {
+			completed.await(timeoutNanos, TimeUnit.NANOSECONDS);
+		}
+
+		/**
+		 * Returns the result or throws the exception of the call. Must only be called when
+		 * completed.
+		 *
+		 * @return Result of the call.
+		 * @throws ServerUnavailableException
+		 *             If server was unavailable.
+		 * @throws BusinessException
+		 *             If {@link BusinessException} was thrown on the server.
+		 */
+		Map<String, InstrumentationDefinition> getResult() throws ServerUnavailableException, BusinessException {
+			if (exception instanceof ServerUnavailableException) {
+				throw (ServerUnavailableException) exception;
+			} else if (exception instanceof BusinessException) {
+				throw (BusinessException) exception;
+			} else if (exception instanceof RuntimeException) {
+				throw (RuntimeException) exception;
+			} else if (exception instanceof Error) {
+				throw (Error) exception;
+			}
+			return result;
+		}
+	}
+
+}
@@ -6,6 +6,7 @@ import java.net.InetAddress;
 import java.net.NetworkInterface;
 import java.net.SocketException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Map;
@@ -32,7 +33,9 @@ import rocks.inspectit.shared.all.instrumentation.classcache.Type;
 import rocks.inspectit.shared.all.instrumentation.config.impl.AgentConfig;
 import rocks.inspectit.shared.all.instrumentation.config.impl.InstrumentationDefinition;
 import rocks.inspectit.shared.all.kryonet.Client;
+import rocks.inspectit.shared.all.kryonet.rmi.IAsyncRemoteObject;
 import rocks.inspectit.shared.all.kryonet.rmi.ObjectSpace;
+import rocks.inspectit.shared.all.kryonet.rmi.ResponseFuture;
 import rocks.inspectit.shared.all.spring.logger.Log;
 
 /**
@@ -45,6 +48,12 @@ import rocks.inspectit.shared.all.spring.logger.Log;
 @Component
 public class KryoNetConnection implements IConnection {
 
+	/**
+	 * Time in milliseconds to wait for the result of the analyze requests. Same as the default
+	 * response timeout of the remote objects.
+	 */
+	private static final long ANALYZE_RESPONSE_TIMEOUT = 3000L;
+
 	/**
 	 * The logger of the class.
 	 */
@@ -67,6 +76,18 @@ public class KryoNetConnection implements IConnection {
 	 */
 	private IAgentService agentService;
 
+	/**
+	 * Agent service for the one-way calls, the CMR sends no response for the invocations on this
+	 * remote object.
+	 */
+	private IAgentService oneWayAgentService;
+
+	/**
+	 * Agent service for the asynchronous calls, invocations on this remote object return
+	 * immediately and the response is received via the {@link ResponseFuture}.
+	 */
+	private IAgentService asyncAgentService;
+
 	/**
 	 * THe keep-alive service remote object to send keep-alive messages.
 	 */
@@ -83,6 +104,21 @@ public class KryoNetConnection implements IConnection {
 	 */
 	private List<String> networkInterfaces;
 
+	/**
+	 * Combines concurrent {@link #analyzeAll(long, Map)} calls into one remote call.
+	 */
+	private final AnalyzeRequestCoalescer analyzeRequestCoalescer = new AnalyzeRequestCoalescer(ANALYZE_RESPONSE_TIMEOUT) {
+		@Override
+		protected ResponseFuture<Map<String, InstrumentationDefinition>> sendAnalyze(long platformIdent, Map<String, Type> hashAndTypes) throws ServerUnavailableException {
+			return analyzeAllAsync(platformIdent, hashAndTypes);
+		}
+
+		@Override
+		protected Map<String, InstrumentationDefinition> handleFailure(Throwable failure) throws ServerUnavailableException, BusinessException {
+			return handleAnalyzeAllFailure(failure);
+		}
+	};
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -97,14 +133,23 @@ public class KryoNetConnection implements IConnection {
 
 				int agentStorageServiceId = IAgentStorageService.class.getAnnotation(ServiceInterface.class).serviceId();
 				agentStorageService = ObjectSpace.getRemoteObject(client, agentStorageServiceId, IAgentStorageService.class);
-				((RemoteObject) agentStorageService).setNonBlocking(true);
-				((RemoteObject) agentStorageService).setTransmitReturnValue(false);
+				// blocking, as the returned value is the ingest capacity of the CMR
+				((RemoteObject) agentStorageService).setNonBlocking(false);
+				((RemoteObject) agentStorageService).setTransmitReturnValue(true);
 
 				int agentServiceServiceId = IAgentService.class.getAnnotation(ServiceInterface.class).serviceId();
 				agentService = ObjectSpace.getRemoteObject(client, agentServiceServiceId, IAgentService.class);
 				((RemoteObject) agentService).setNonBlocking(false);
 				((RemoteObject) agentService).setTransmitReturnValue(true);
 
+				oneWayAgentService = ObjectSpace.getRemoteObject(client, agentServiceServiceId, IAgentService.class);
+				((RemoteObject) oneWayAgentService).setNonBlocking(true);
+				((RemoteObject) oneWayAgentService).setTransmitReturnValue(false);
+				((RemoteObject) oneWayAgentService).setTransmitExceptions(false);
+
+				asyncAgentService = ObjectSpace.getAsyncRemoteObject(client, agentServiceServiceId, IAgentService.class);
+				((RemoteObject) asyncAgentService).setTransmitReturnValue(true);
+
 				int keepAliveServiceId = IKeepAliveService.class.getAnnotation(ServiceInterface.class).serviceId();
 				keepAliveService = ObjectSpace.getRemoteObject(client, keepAliveServiceId, IKeepAliveService.class);
 				((RemoteObject) keepAliveService).setNonBlocking(true);
@@ -136,6 +181,8 @@ public class KryoNetConnection implements IConnection {
 
 		agentStorageService = null; // NOPMD
 		agentService = null; // NOPMD
+		oneWayAgentService = null; // NOPMD
+		asyncAgentService = null; // NOPMD
 		keepAliveService = null; // NOPMD
 	}
 
@@ -220,7 +267,10 @@ public class KryoNetConnection implements IConnection {
 		};
 
 		try {
-			return call.makeCall();
+			AgentConfig agentConfig = call.makeCall();
+			// the CMR decides per agent if the data is compressed
+			client.setCompression(agentConfig.isDataCompression());
+			return agentConfig;
 		} catch (ExecutionException executionException) {
 			if (log.isTraceEnabled()) {
 				log.trace("register(String, String)", executionException);
@@ -269,7 +319,7 @@ public class KryoNetConnection implements IConnection {
 	/**
 	 * {@inheritDoc}
 	 */
-	public void sendDataObjects(List<? extends DefaultData> measurements) throws ServerUnavailableException {
+	public int sendDataObjects(List<? extends DefaultData> measurements) throws ServerUnavailableException {
 		if (!isConnected()) {
 			throw new ServerUnavailableException();
 		}
@@ -277,12 +327,13 @@ public class KryoNetConnection implements IConnection {
 		if ((null != measurements) && !measurements.isEmpty()) {
 			try {
 				AddDataObjects remote = new AddDataObjects(agentStorageService, measurements);
-				remote.makeCall();
+				return remote.makeCall().intValue();
 			} catch (ExecutionException executionException) {
 				// there should be no execution exception
 				log.error("Could not send data objects", executionException);
 			}
 		}
+		return 0;
 	}
 
 	/**
@@ -320,6 +371,117 @@ public class KryoNetConnection implements IConnection {
 
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	public Map<String, InstrumentationDefinition> analyzeAll(long platformIdent, Map<String, Type> hashAndTypes) throws ServerUnavailableException, BusinessException {
+		if (!isConnected()) {
+			throw new ServerUnavailableException();
+		}
+
+		return analyzeRequestCoalescer.analyze(platformIdent, hashAndTypes);
+	}
+
+	/**
+	 * Sends the remote call of the {@link IAgentService#analyzeAll(long, Map)} without waiting for
+	 * the response.
+	 *
+	 * @param platformIdent
+	 *            Id of the agent.
+	 * @param hashAndTypes
+	 *            Map of class hash codes to the types.
+	 * @return {@link ResponseFuture} of the map of class hash codes to the instrumentation
+	 *         definitions.
+	 * @throws ServerUnavailableException
+	 *             If server to send the request to is unavailable.
+	 */
+	private ResponseFuture<Map<String, InstrumentationDefinition>> analyzeAllAsync(final long platformIdent, final Map<String, Type> hashAndTypes) throws ServerUnavailableException {
+		// make call
+		FailFastRemoteMethodCall<IAgentService, ResponseFuture<Map<String, InstrumentationDefinition>>> call = new FailFastRemoteMethodCall<IAgentService, ResponseFuture<Map<String, InstrumentationDefinition>>>(
+				asyncAgentService) {
+			@Override
+			protected ResponseFuture<Map<String, InstrumentationDefinition>> performRemoteCall(IAgentService service) throws Exception {
+				service.analyzeAll(platformIdent, hashAndTypes);
+				return ((IAsyncRemoteObject) service).getLastResponseFuture();
+			}
+		};
+
+		try {
+			return call.makeCall();
+		} catch (ExecutionException executionException) {
+			// there should be no execution exception as the call does not wait for the response
+			log.error("Could not send the analyze request", executionException);
+			throw new ServerUnavailableException(); // NOPMD
+		}
+	}
+
+	/**
+	 * Handles the failure of the remote call of the {@link IAgentService#analyzeAll(long, Map)}
+	 * the same way as a failed blocking call.
+	 *
+	 * @param failure
+	 *            Exception thrown on the server or the failure of the connection.
+	 * @return <code>null</code> if unexpected exception occurred.
+	 * @throws ServerUnavailableException
+	 *             If the communication with the server failed.
+	 * @throws BusinessException
+	 *             If {@link BusinessException} is thrown on the server.
+	 */
+	private Map<String, InstrumentationDefinition> handleAnalyzeAllFailure(Throwable failure) throws ServerUnavailableException, BusinessException {
+		if (log.isTraceEnabled()) {
+			log.trace("analyzeAll(long,Map)", failure);
+		}
+
+		// check for business exception
+		if (failure instanceof BusinessException) {
+			throw (BusinessException) failure;
+		}
+
+		// kryonet reports the communication errors via runtime exceptions
+		if (failure instanceof RuntimeException) {
+			log.warn("Communication with the server failed.", failure);
+			throw new ServerUnavailableException(); // NOPMD
+		}
+
+		// otherwise we log and return null as it's unexpected exception for us
+		log.error("Could not get instrumentation results", failure);
+		return null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public Map<String, InstrumentationDefinition> analyzeKnown(final long platformIdent, final Collection<String> hashes) throws ServerUnavailableException, BusinessException {
+		if (!isConnected()) {
+			throw new ServerUnavailableException();
+		}
+
+		// make call
+		FailFastRemoteMethodCall<IAgentService, Map<String, InstrumentationDefinition>> call = new FailFastRemoteMethodCall<IAgentService, Map<String, InstrumentationDefinition>>(agentService) {
+			@Override
+			protected Map<String, InstrumentationDefinition> performRemoteCall(IAgentService service) throws Exception {
+				return service.analyzeKnown(platformIdent, hashes);
+			}
+		};
+
+		try {
+			return call.makeCall();
+		} catch (ExecutionException executionException) {
+			if (log.isTraceEnabled()) {
+				log.trace("analyzeKnown(long,Collection)", executionException);
+			}
+
+			// check for business exception
+			if (executionException.getCause() instanceof BusinessException) {
+				throw ((BusinessException) executionException.getCause()); // NOPMD
+			}
+
+			// otherwise we log and return null as it's unexpected exception for us
+			log.error("Could not get instrumentation results of the known classes", executionException);
+			return null;
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -330,7 +492,7 @@ public class KryoNetConnection implements IConnection {
 
 		if (MapUtils.isNotEmpty(methodToSensorMap)) {
 			try {
-				InstrumentationAppliedCall call = new InstrumentationAppliedCall(agentService, methodToSensorMap);
+				InstrumentationAppliedCall call = new InstrumentationAppliedCall(oneWayAgentService, methodToSensorMap);
 				call.makeCall();
 			} catch (ExecutionException executionException) {
 				// there should be no execution exception
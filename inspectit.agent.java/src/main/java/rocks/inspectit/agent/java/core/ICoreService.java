@@ -144,13 +144,31 @@ public interface ICoreService {
 	 */
 	IObjectStorage getObjectStorage(long sensorTypeIdent, long methodIdent, String prefix);
 
+	/**
+	 * Starts an update of the saved measurements by the current thread. Measurements returned by
+	 * the get methods can be changed in place until the update is ended with
+	 * {@link #endUpdate(Object)}, as they are not prepared for sending before. Every call must be
+	 * followed by {@link #endUpdate(Object)} in a finally block.
+	 *
+	 * @return Update token to be passed to {@link #endUpdate(Object)}.
+	 */
+	Object beginUpdate();
+
+	/**
+	 * Ends the update started with {@link #beginUpdate()}.
+	 *
+	 * @param update
+	 *            Update token returned by {@link #beginUpdate()}.
+	 */
+	void endUpdate(Object update);
+
 	/**
 	 * Adds a new list listener.
 	 *
 	 * @param listener
 	 *            The listener to add.
 	 */
-	void addListListener(ListListener<?> listener);
+	void addListListener(ListListener listener);
 
 	/**
 	 * Removes a list listener.
@@ -158,7 +176,7 @@ public interface ICoreService {
 	 * @param listener
 	 *            The listener to remove.
 	 */
-	void removeListListener(ListListener<?> listener);
+	void removeListListener(ListListener listener);
 
 	/**
 	 * Returns the scheduled executor-service.
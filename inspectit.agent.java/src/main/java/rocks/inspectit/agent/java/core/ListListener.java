@@ -1,24 +1,25 @@
 package rocks.inspectit.agent.java.core;
 
 import java.util.EventListener;
-import java.util.List;
 
 /**
- * The {@link ListListener} interface allows a class to react on events that change a list.
- *
- * @param <E>
- *            The content class of the list.
+ * The {@link ListListener} interface allows a class to react on events that change the list of
+ * measurements kept by the {@link ICoreService}. Listeners are not given the list itself, but the
+ * counters the core service keeps incrementally, thus notification is constant in time no matter
+ * how many measurements are currently kept.
  *
  * @author Patrice Bouillet
  */
-public interface ListListener<E> extends EventListener {
+public interface ListListener extends EventListener {
 
 	/**
 	 * The content of a list has changed.
 	 *
-	 * @param list
-	 *            The list which was changed.
+	 * @param elementCount
+	 *            Number of elements currently in the list.
+	 * @param approximateSize
+	 *            Approximate size of all elements currently in the list in bytes.
 	 */
-	void contentChanged(List<E> list);
+	void contentChanged(int elementCount, long approximateSize);
 
 }
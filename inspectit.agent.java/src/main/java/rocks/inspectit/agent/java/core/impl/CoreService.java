@@ -2,8 +2,7 @@ package rocks.inspectit.agent.java.core.impl;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
@@ -26,6 +25,7 @@ import rocks.inspectit.agent.java.core.ListListener;
 import rocks.inspectit.agent.java.sending.ISendingStrategy;
 import rocks.inspectit.agent.java.sensor.jmx.IJmxSensor;
 import rocks.inspectit.agent.java.sensor.platform.IPlatformSensor;
+import rocks.inspectit.shared.all.cmr.service.IAgentStorageService;
 import rocks.inspectit.shared.all.communication.DefaultData;
 import rocks.inspectit.shared.all.communication.ExceptionEvent;
 import rocks.inspectit.shared.all.communication.MethodSensorData;
@@ -97,34 +97,20 @@ public class CoreService implements ICoreService, InitializingBean, DisposableBe
 	private ScheduledExecutorService executorService;
 
 	/**
-	 * Already used data objects which can be used directly on the CMR to persist.
+	 * Buffer the application threads are currently writing measurements to.
 	 */
-	private Map<String, DefaultData> sensorDataObjects = new ConcurrentHashMap<String, DefaultData>();
+	private volatile MeasurementBuffer activeBuffer = new MeasurementBuffer();
 
 	/**
-	 * Contains object storage instances which will be initialized when sending.
+	 * Second buffer, harvested by the preparing thread before sending.
 	 */
-	private Map<String, IObjectStorage> objectStorages = new ConcurrentHashMap<String, IObjectStorage>();
+	private MeasurementBuffer processingBuffer = new MeasurementBuffer();
 
 	/**
-	 * Used as second hash table for the measurements when processed before sending.
+	 * The registered list listeners. Copy on write, as listeners are notified from the application
+	 * threads.
 	 */
-	private Map<String, DefaultData> measurementsProcessing = new ConcurrentHashMap<String, DefaultData>();
-
-	/**
-	 * Used as second hash table for the object storages when processed before sending.
-	 */
-	private Map<String, IObjectStorage> objectStoragesProcessing = new ConcurrentHashMap<String, IObjectStorage>();
-
-	/**
-	 * Temporary Map to switch the references of the active hash table with the processed one.
-	 */
-	private Map<String, ?> temp;
-
-	/**
-	 * The registered list listeners.
-	 */
-	private final List<ListListener<?>> listListeners = new ArrayList<ListListener<?>>();
+	private final List<ListListener> listListeners = new CopyOnWriteArrayList<ListListener>();
 
 	/**
 	 * The default refresh time.
@@ -159,6 +145,32 @@ public class CoreService implements ICoreService, InitializingBean, DisposableBe
 	 */
 	private boolean sendingExceptionNotice = false;
 
+	/**
+	 * Minimum time in milliseconds the sending is paused when the CMR has no ingest capacity left.
+	 */
+	private static final long MIN_SENDING_PAUSE = 100L;
+
+	/**
+	 * Maximum time in milliseconds the sending is paused when the CMR keeps rejecting the data.
+	 */
+	private static final long MAX_SENDING_PAUSE = 5000L;
+
+	/**
+	 * Time in milliseconds until the sending is paused because the CMR advertised no ingest
+	 * capacity or rejected the data.
+	 */
+	private volatile long sendingPausedUntil;
+
+	/**
+	 * Current pause of the sending, doubled every time the CMR rejects the data.
+	 */
+	private long sendingPause = MIN_SENDING_PAUSE;
+
+	/**
+	 * Amount of the measurement lists rejected by the CMR since the sending was not throttled.
+	 */
+	private long rejectedLists;
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -245,7 +257,16 @@ public class CoreService implements ICoreService, InitializingBean, DisposableBe
 		builder.append('.');
 		// Added timestamp to be able to send multiple objects to cmr.
 		builder.append(jmxSensorValueData.getTimeStamp().getTime());
-		sensorDataObjects.put(builder.toString(), jmxSensorValueData);
+		String key = builder.toString();
+
+		int stripe = MeasurementBuffer.stripe();
+		MeasurementBuffer buffer = enterActiveBuffer(stripe);
+		try {
+			DefaultData previous = buffer.getSensorDataObjects().put(key, jmxSensorValueData);
+			buffer.elementAdded(previous, null);
+		} finally {
+			buffer.exit(stripe);
+		}
 		notifyListListeners();
 	}
 
@@ -253,15 +274,14 @@ public class CoreService implements ICoreService, InitializingBean, DisposableBe
 	 * {@inheritDoc}
 	 */
 	public void addMethodSensorData(long sensorTypeIdent, long methodIdent, String prefix, MethodSensorData methodSensorData) {
-		StringBuilder builder = new StringBuilder();
-		if (null != prefix) {
-			builder.append(prefix);
-			builder.append('.');
+		int stripe = MeasurementBuffer.stripe();
+		MeasurementBuffer buffer = enterActiveBuffer(stripe);
+		try {
+			DefaultData previous = buffer.getMethodSensorDataObjects().put(methodIdent, sensorTypeIdent, prefix, methodSensorData);
+			buffer.elementAdded(previous, prefix);
+		} finally {
+			buffer.exit(stripe);
 		}
-		builder.append(methodIdent);
-		builder.append('.');
-		builder.append(sensorTypeIdent);
-		sensorDataObjects.put(builder.toString(), methodSensorData);
 		notifyListListeners();
 	}
 
@@ -269,22 +289,27 @@ public class CoreService implements ICoreService, InitializingBean, DisposableBe
 	 * {@inheritDoc}
 	 */
 	public MethodSensorData getMethodSensorData(long sensorTypeIdent, long methodIdent, String prefix) {
-		StringBuilder builder = new StringBuilder();
-		if (null != prefix) {
-			builder.append(prefix);
-			builder.append('.');
+		int stripe = MeasurementBuffer.stripe();
+		MeasurementBuffer buffer = enterActiveBuffer(stripe);
+		try {
+			return (MethodSensorData) buffer.getMethodSensorDataObjects().get(methodIdent, sensorTypeIdent, prefix);
+		} finally {
+			buffer.exit(stripe);
 		}
-		builder.append(methodIdent);
-		builder.append('.');
-		builder.append(sensorTypeIdent);
-		return (MethodSensorData) sensorDataObjects.get(builder.toString());
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	public void addPlatformSensorData(long sensorTypeIdent, SystemSensorData systemSensorData) {
-		sensorDataObjects.put(Long.toString(sensorTypeIdent), systemSensorData);
+		int stripe = MeasurementBuffer.stripe();
+		MeasurementBuffer buffer = enterActiveBuffer(stripe);
+		try {
+			DefaultData previous = buffer.getSensorDataObjects().put(Long.toString(sensorTypeIdent), systemSensorData);
+			buffer.elementAdded(previous, null);
+		} finally {
+			buffer.exit(stripe);
+		}
 		notifyListListeners();
 	}
 
@@ -292,25 +317,32 @@ public class CoreService implements ICoreService, InitializingBean, DisposableBe
 	 * {@inheritDoc}
 	 */
 	public SystemSensorData getPlatformSensorData(long sensorTypeIdent) {
-		return (SystemSensorData) sensorDataObjects.get(Long.toString(sensorTypeIdent));
+		int stripe = MeasurementBuffer.stripe();
+		MeasurementBuffer buffer = enterActiveBuffer(stripe);
+		try {
+			return (SystemSensorData) buffer.getSensorDataObjects().get(Long.toString(sensorTypeIdent));
+		} finally {
+			buffer.exit(stripe);
+		}
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	public void addExceptionSensorData(long sensorTypeIdent, long throwableIdentityHashCode, ExceptionSensorData exceptionSensorData) {
-		StringBuilder builder = new StringBuilder();
-		builder.append(sensorTypeIdent);
-		builder.append("::");
-		builder.append(throwableIdentityHashCode);
-		String key = builder.toString();
-
 		// we always only save the first data object, because this object contains the nested
 		// objects to create the whole exception tree
 		if (exceptionSensorData.getExceptionEvent().equals(ExceptionEvent.CREATED)) {
 			// if a data object with the same hash code was already created, then it has to be For
 			// us only the last-most data object is relevant
-			sensorDataObjects.put(key, exceptionSensorData);
+			int stripe = MeasurementBuffer.stripe();
+			MeasurementBuffer buffer = enterActiveBuffer(stripe);
+			try {
+				DefaultData previous = buffer.getMethodSensorDataObjects().put(throwableIdentityHashCode, sensorTypeIdent, null, exceptionSensorData);
+				buffer.elementAdded(previous, null);
+			} finally {
+				buffer.exit(stripe);
+			}
 			notifyListListeners();
 		}
 	}
@@ -319,27 +351,27 @@ public class CoreService implements ICoreService, InitializingBean, DisposableBe
 	 * {@inheritDoc}
 	 */
 	public ExceptionSensorData getExceptionSensorData(long sensorTypeIdent, long throwableIdentityHashCode) {
-		StringBuilder builder = new StringBuilder();
-		builder.append(sensorTypeIdent);
-		builder.append("::");
-		builder.append(throwableIdentityHashCode);
-
-		return (ExceptionSensorData) sensorDataObjects.get(builder.toString());
+		int stripe = MeasurementBuffer.stripe();
+		MeasurementBuffer buffer = enterActiveBuffer(stripe);
+		try {
+			return (ExceptionSensorData) buffer.getMethodSensorDataObjects().get(throwableIdentityHashCode, sensorTypeIdent, null);
+		} finally {
+			buffer.exit(stripe);
+		}
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	public void addObjectStorage(long sensorTypeIdent, long methodIdent, String prefix, IObjectStorage objectStorage) {
-		StringBuilder builder = new StringBuilder();
-		if (null != prefix) {
-			builder.append(prefix);
-			builder.append('.');
+		int stripe = MeasurementBuffer.stripe();
+		MeasurementBuffer buffer = enterActiveBuffer(stripe);
+		try {
+			IObjectStorage previous = buffer.getObjectStorages().put(methodIdent, sensorTypeIdent, prefix, objectStorage);
+			buffer.elementAdded(previous, prefix);
+		} finally {
+			buffer.exit(stripe);
 		}
-		builder.append(methodIdent);
-		builder.append('.');
-		builder.append(sensorTypeIdent);
-		objectStorages.put(builder.toString(), objectStorage);
 		notifyListListeners();
 	}
 
@@ -347,15 +379,56 @@ public class CoreService implements ICoreService, InitializingBean, DisposableBe
 	 * {@inheritDoc}
 	 */
 	public IObjectStorage getObjectStorage(long sensorTypeIdent, long methodIdent, String prefix) {
-		StringBuilder builder = new StringBuilder();
-		if (null != prefix) {
-			builder.append(prefix);
-			builder.append('.');
+		int stripe = MeasurementBuffer.stripe();
+		MeasurementBuffer buffer = enterActiveBuffer(stripe);
+		try {
+			return buffer.getObjectStorages().get(methodIdent, sensorTypeIdent, prefix);
+		} finally {
+			buffer.exit(stripe);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The active buffer is entered for the whole update, so the preparing thread can not harvest it
+	 * while measurements got from it are changed. Gets and adds during the update still enter the
+	 * active buffer on their own. If the buffers are switched in the meantime they go to the new
+	 * buffer, which can not be harvested before the next switch, and that one waits for this
+	 * update to end.
+	 */
+	public Object beginUpdate() {
+		return enterActiveBuffer(MeasurementBuffer.stripe());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void endUpdate(Object update) {
+		((MeasurementBuffer) update).exit(MeasurementBuffer.stripe());
+	}
+
+	/**
+	 * Enters the currently active buffer as a writer. The caller must {@link MeasurementBuffer#exit(int)
+	 * exit} the returned buffer with the same stripe when done.
+	 * <p>
+	 * After entering it is checked that the buffer is still the active one. If the preparing thread
+	 * switched the buffers in the meantime, the old buffer is left and the new active one is entered,
+	 * thus no write can land in a buffer that is being harvested.
+	 *
+	 * @param stripe
+	 *            Writer stripe of the current thread.
+	 * @return Entered active buffer.
+	 */
+	private MeasurementBuffer enterActiveBuffer(int stripe) {
+		while (true) {
+			MeasurementBuffer buffer = activeBuffer;
+			buffer.enter(stripe);
+			if (buffer == activeBuffer) { // NOPMD
+				return buffer;
+			}
+			buffer.exit(stripe);
 		}
-		builder.append(methodIdent);
-		builder.append('.');
-		builder.append(sensorTypeIdent);
-		return objectStorages.get(builder.toString());
 	}
 
 	/**
@@ -368,7 +441,7 @@ public class CoreService implements ICoreService, InitializingBean, DisposableBe
 	/**
 	 * {@inheritDoc}
 	 */
-	public void addListListener(ListListener<?> listener) {
+	public void addListListener(ListListener listener) {
 		if (!listListeners.contains(listener)) {
 			listListeners.add(listener);
 		}
@@ -377,20 +450,20 @@ public class CoreService implements ICoreService, InitializingBean, DisposableBe
 	/**
 	 * {@inheritDoc}
 	 */
-	public void removeListListener(ListListener<?> listener) {
+	public void removeListListener(ListListener listener) {
 		listListeners.remove(listener);
 	}
 
 	/**
 	 * Notify all registered listeners that a change occurred in the lists.
 	 */
-	@SuppressWarnings({ "unchecked", "rawtypes" })
 	private void notifyListListeners() {
 		if (!listListeners.isEmpty()) {
-			List temp = new ArrayList(sensorDataObjects.values());
-			temp.addAll(objectStorages.values());
-			for (ListListener<?> listListener : listListeners) {
-				listListener.contentChanged(temp);
+			MeasurementBuffer buffer = activeBuffer;
+			int count = buffer.getElementCount();
+			long size = buffer.getApproximateSize();
+			for (ListListener listListener : listListeners) {
+				listListener.contentChanged(count, size);
 			}
 		}
 	}
@@ -429,11 +502,17 @@ public class CoreService implements ICoreService, InitializingBean, DisposableBe
 					log.error("Sensor refresher was interrupted!");
 				}
 
-				// iterate the platformSensors and update the information
+				// iterate the platformSensors and update the information, the sensors change their
+				// data objects in place
 				if (CollectionUtils.isNotEmpty(platformSensors)) {
 					for (IPlatformSensor platformSensor : platformSensors) {
 						if (platformSensor.automaticUpdate()) {
-							platformSensor.update(CoreService.this);
+							Object update = beginUpdate();
+							try {
+								platformSensor.update(CoreService.this);
+							} finally {
+								endUpdate(update);
+							}
 						}
 					}
 				}
@@ -470,8 +549,9 @@ public class CoreService implements ICoreService, InitializingBean, DisposableBe
 	/**
 	 * Prepares collected data for sending.
 	 *
-	 * Get all the value objects from the object storages and generate a list containing all the
-	 * value objects.
+	 * Switches the active and processing buffer, waits until all writers that entered the old
+	 * buffer before the switch are done and then harvests it. The value objects of the object
+	 * storages are generated and put in the same list with all other measurements.
 	 *
 	 * <b> WARNING: This code is supposed to be run single-threaded! We ensure single-threaded
 	 * invocation by only calling this method within the single <code>PreparingThread</code>. During
@@ -480,32 +560,23 @@ public class CoreService implements ICoreService, InitializingBean, DisposableBe
 	 *
 	 * @return <code>true</code> if new data were prepared, else <code>false</code>
 	 */
-	@SuppressWarnings("unchecked")
 	private boolean prepareData() {
+		MeasurementBuffer buffer = activeBuffer;
+
 		// check if measurements are added in the last interval, if not nothing needs to be sent.
-		if (sensorDataObjects.isEmpty() && objectStorages.isEmpty()) {
+		if (buffer.isEmpty()) {
 			return false;
 		}
 
-		// switch the references so that new data is stored while sending
-		temp = sensorDataObjects;
-		sensorDataObjects = measurementsProcessing;
-		measurementsProcessing = (Map<String, DefaultData>) temp;
+		// switch the buffers so that new data is stored while sending
+		activeBuffer = processingBuffer;
+		processingBuffer = buffer;
 
-		temp = objectStorages;
-		objectStorages = objectStoragesProcessing;
-		objectStoragesProcessing = (Map<String, IObjectStorage>) temp;
+		// writers that entered the old buffer before the switch must finish first
+		buffer.awaitWriters();
 
-		// copy the measurements values to a new list
-		List<DefaultData> tempList = new ArrayList<DefaultData>(measurementsProcessing.values());
-		measurementsProcessing.clear();
-
-		// iterate the object storages and get the value objects which will be stored in the same
-		// list.
-		for (IObjectStorage objectStorage : objectStoragesProcessing.values()) {
-			tempList.add(objectStorage.finalizeDataObject());
-		}
-		objectStoragesProcessing.clear();
+		List<DefaultData> tempList = new ArrayList<DefaultData>();
+		buffer.harvest(tempList);
 
 		// Now give the strategy the list
 		bufferStrategy.addMeasurements(tempList);
@@ -529,9 +600,22 @@ public class CoreService implements ICoreService, InitializingBean, DisposableBe
 					return;
 				}
 
+				// if the CMR has no capacity keep data in buffer strategy
+				if (getSendingPause() > 0) {
+					return;
+				}
+
 				List<DefaultData> dataToSend = bufferStrategy.next();
-				connection.sendDataObjects(dataToSend);
+				int capacity = connection.sendDataObjects(dataToSend);
 				sendingExceptionNotice = false;
+
+				if (IAgentStorageService.REJECTED == capacity) {
+					// give the older data back, the buffer strategy decides what is kept
+					bufferStrategy.requeueMeasurements(dataToSend);
+					onDataRejected();
+					return;
+				}
+				onDataAccepted(capacity);
 			}
 		} catch (ServerUnavailableException serverUnavailableException) {
 			if (serverUnavailableException.isServerTimeout()) {
@@ -550,6 +634,46 @@ public class CoreService implements ICoreService, InitializingBean, DisposableBe
 		}
 	}
 
+	/**
+	 * Pauses the sending after the CMR rejected the data. The pause is doubled for every
+	 * consecutive rejection up to the {@link #MAX_SENDING_PAUSE}.
+	 */
+	private void onDataRejected() {
+		if (0 == rejectedLists) {
+			log.info("CMR is over its ingest capacity, the sending of the data is slowed down.");
+		}
+		rejectedLists++;
+		sendingPausedUntil = System.currentTimeMillis() + sendingPause;
+		sendingPause = Math.min(sendingPause * 2, MAX_SENDING_PAUSE);
+	}
+
+	/**
+	 * Updates the sending pause after the CMR accepted the data.
+	 *
+	 * @param capacity
+	 *            Ingest capacity advertised by the CMR.
+	 */
+	private void onDataAccepted(int capacity) {
+		if (0 != rejectedLists) {
+			log.info("CMR accepts the data again. Measurement lists rejected in the meantime: " + rejectedLists);
+			rejectedLists = 0;
+		}
+		sendingPause = MIN_SENDING_PAUSE;
+		if (capacity <= 0) {
+			// accepted but no capacity left, give the CMR some time
+			sendingPausedUntil = System.currentTimeMillis() + MIN_SENDING_PAUSE;
+		}
+	}
+
+	/**
+	 * Returns the time in milliseconds the sending is still paused.
+	 *
+	 * @return Time in milliseconds the sending is still paused or <code>0</code> if it's not paused.
+	 */
+	private long getSendingPause() {
+		return Math.max(0L, sendingPausedUntil - System.currentTimeMillis());
+	}
+
 	/**
 	 * This implementation of a {@link Thread} is used to prepare the data and value objects that
 	 * have to be sent to the CMR. Prepared data is put into {@link IBufferStrategy}.
@@ -628,12 +752,13 @@ public class CoreService implements ICoreService, InitializingBean, DisposableBe
 		@Override
 		public void run() {
 			while (!isInterrupted()) {
-				// wait for activation if there is nothing to send
-				if (!bufferStrategy.hasNext()) {
+				// wait for activation if there is nothing to send or until the sending pause is over
+				long pause = getSendingPause();
+				if (!bufferStrategy.hasNext() || (pause > 0)) {
 					synchronized (this) {
 						try {
 							if (!isInterrupted()) {
-								wait();
+								wait(pause);
 							}
 						} catch (InterruptedException e) {
 							log.error("Sending thread interrupted and shuting down!");
@@ -683,7 +808,8 @@ public class CoreService implements ICoreService, InitializingBean, DisposableBe
 			CoreService.this.prepareData();
 
 			// Try to send data for the last time. We do not set a timeout here, the user can simply
-			// kill the process for good if it takes too long.
+			// kill the process for good if it takes too long. The sending pause is ignored.
+			sendingPausedUntil = 0;
 			CoreService.this.send();
 
 			// At the end unregister platform
@@ -0,0 +1,262 @@
+package rocks.inspectit.agent.java.core.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import rocks.inspectit.agent.java.core.IObjectStorage;
+import rocks.inspectit.shared.all.communication.DefaultData;
+
+/**
+ * One collection buffer (epoch) of the {@link CoreService}. The core service keeps two buffers, the
+ * active one the application threads are writing to and the one being harvested by the preparing
+ * thread.
+ * <p>
+ * Writers announce themselves with {@link #enter(int)} and {@link #exit(int)} on a striped writer
+ * counter, so that threads do not contend on a single counter. After the preparing thread switched
+ * the active buffer, it waits in {@link #awaitWriters()} until all writers that entered the old
+ * buffer are gone. A writer must re-check that the buffer it entered is still the active one,
+ * otherwise it has to exit and enter the new active buffer. Because of this protocol no write can
+ * land in a buffer that is already harvested, and no locks are needed on the application threads.
+ * <p>
+ * Hooks that change measurements in place keep the buffer entered for the whole get-update-add
+ * sequence, see {@link CoreService#beginUpdate()}.
+ */
+class MeasurementBuffer {
+
+	/**
+	 * Padding of the writer stripes in ints, so that every stripe lies in its own cache line.
+	 */
+	private static final int STRIPE_PADDING = 16;
+
+	/**
+	 * Mask used to resolve the stripe of a thread.
+	 */
+	private static final int STRIPE_MASK;
+
+	static {
+		int stripes = 1;
+		int minStripes = Runtime.getRuntime().availableProcessors() << 2;
+		while (stripes < minStripes) {
+			stripes <<= 1;
+		}
+		STRIPE_MASK = stripes - 1;
+	}
+
+	/**
+	 * Estimated size of one data object or object storage in bytes.
+	 */
+	private static final long ELEMENT_SIZE_ESTIMATE = 200L;
+
+	/**
+	 * Estimated size of an empty string (object header, char array header and fields) in bytes.
+	 */
+	private static final long STRING_SIZE_ESTIMATE = 40L;
+
+	/**
+	 * Number of yields when waiting for the writers before the preparing thread starts parking.
+	 */
+	private static final int MAX_YIELDS = 64;
+
+	/**
+	 * Initial park time when waiting for the writers in nanoseconds.
+	 */
+	private static final long MIN_PARK_NANOS = 1000L;
+
+	/**
+	 * Maximum park time when waiting for the writers in nanoseconds.
+	 */
+	private static final long MAX_PARK_NANOS = 1000000L;
+
+	/**
+	 * Platform and JMX data objects which can be used directly on the CMR to persist.
+	 */
+	private final Map<String, DefaultData> sensorDataObjects = new ConcurrentHashMap<String, DefaultData>();
+
+	/**
+	 * Method sensor and exception sensor data objects which can be used directly on the CMR to
+	 * persist. Method data is keyed by the method id, exception data by the throwable identity hash
+	 * code. As exception and method sensors never share the sensor type id, the keys can not clash.
+	 */
+	private final MeasurementStorage<DefaultData> methodSensorDataObjects = new MeasurementStorage<DefaultData>();
+
+	/**
+	 * Object storage instances which will be finalized when sending.
+	 */
+	private final MeasurementStorage<IObjectStorage> objectStorages = new MeasurementStorage<IObjectStorage>();
+
+	/**
+	 * Striped counter of the writers currently in this buffer.
+	 */
+	private final AtomicIntegerArray writers = new AtomicIntegerArray((STRIPE_MASK + 1) * STRIPE_PADDING);
+
+	/**
+	 * Number of elements in this buffer. Maintained incrementally, thus listeners can be notified
+	 * without touching the storages.
+	 */
+	private final AtomicInteger elementCount = new AtomicInteger();
+
+	/**
+	 * Approximate size of the elements in this buffer in bytes.
+	 */
+	private final AtomicLong approximateSize = new AtomicLong();
+
+	/**
+	 * Returns the writer stripe of the current thread.
+	 *
+	 * @return Writer stripe to be passed to {@link #enter(int)} and {@link #exit(int)}.
+	 */
+	static int stripe() {
+		return ((int) Thread.currentThread().getId() & STRIPE_MASK) * STRIPE_PADDING;
+	}
+
+	/**
+	 * Announces a writer in the given stripe.
+	 *
+	 * @param stripe
+	 *            Stripe of the writer.
+	 */
+	void enter(int stripe) {
+		writers.incrementAndGet(stripe);
+	}
+
+	/**
+	 * Removes a writer from the given stripe.
+	 *
+	 * @param stripe
+	 *            Stripe of the writer.
+	 */
+	void exit(int stripe) {
+		writers.decrementAndGet(stripe);
+	}
+
+	/**
+	 * Waits until there are no writers in this buffer. Must only be called after this buffer is no
+	 * longer the active one, as otherwise new writers can always come.
+	 * <p>
+	 * Writers usually leave within microseconds, so the waiting thread first yields. If a writer is
+	 * descheduled, the thread parks with an exponentially growing time, so that it does not burn a
+	 * CPU the application threads could use.
+	 */
+	void awaitWriters() {
+		int yields = 0;
+		long parkNanos = MIN_PARK_NANOS;
+		for (int i = 0; i < writers.length(); i += STRIPE_PADDING) {
+			while (writers.get(i) > 0) {
+				if (yields < MAX_YIELDS) {
+					yields++;
+					Thread.yield();
+				} else {
+					LockSupport.parkNanos(parkNanos);
+					parkNanos = Math.min(parkNanos << 1, MAX_PARK_NANOS);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Updates the counters of this buffer if a new element was added.
+	 *
+	 * @param previous
+	 *            Element previously stored under the same key, <code>null</code> if the element
+	 *            was added under a new key.
+	 * @param prefix
+	 *            Prefix the element was stored with, can be <code>null</code>.
+	 */
+	void elementAdded(Object previous, String prefix) {
+		if (null == previous) {
+			elementCount.incrementAndGet();
+			if (null == prefix) {
+				approximateSize.addAndGet(ELEMENT_SIZE_ESTIMATE);
+			} else {
+				approximateSize.addAndGet(ELEMENT_SIZE_ESTIMATE + STRING_SIZE_ESTIMATE + (prefix.length() << 1));
+			}
+		}
+	}
+
+	/**
+	 * Returns if this buffer holds no elements.
+	 *
+	 * @return Returns if this buffer holds no elements.
+	 */
+	boolean isEmpty() {
+		return sensorDataObjects.isEmpty() && methodSensorDataObjects.isEmpty() && objectStorages.isEmpty();
+	}
+
+	/**
+	 * Adds all data objects of this buffer to the given list, object storages are finalized.
+	 * Afterwards this buffer is cleared and can be activated again.
+	 * <p>
+	 * Must only be called after {@link #awaitWriters()}.
+	 *
+	 * @param list
+	 *            List to add data objects to.
+	 */
+	void harvest(List<DefaultData> list) {
+		list.addAll(sensorDataObjects.values());
+		methodSensorDataObjects.addAllTo(list);
+
+		List<IObjectStorage> objectStorageList = new ArrayList<IObjectStorage>();
+		objectStorages.addAllTo(objectStorageList);
+		for (IObjectStorage objectStorage : objectStorageList) {
+			list.add(objectStorage.finalizeDataObject());
+		}
+
+		sensorDataObjects.clear();
+		methodSensorDataObjects.clear();
+		objectStorages.clear();
+		elementCount.set(0);
+		approximateSize.set(0L);
+	}
+
+	/**
+	 * Gets {@link #sensorDataObjects}.
+	 *
+	 * @return {@link #sensorDataObjects}
+	 */
+	Map<String, DefaultData> getSensorDataObjects() {
+		return sensorDataObjects;
+	}
+
+	/**
+	 * Gets {@link #methodSensorDataObjects}.
+	 *
+	 * @return {@link #methodSensorDataObjects}
+	 */
+	MeasurementStorage<DefaultData> getMethodSensorDataObjects() {
+		return methodSensorDataObjects;
+	}
+
+	/**
+	 * Gets {@link #objectStorages}.
+	 *
+	 * @return {@link #objectStorages}
+	 */
+	MeasurementStorage<IObjectStorage> getObjectStorages() {
+		return objectStorages;
+	}
+
+	/**
+	 * Gets {@link #elementCount}.
+	 *
+	 * @return {@link #elementCount}
+	 */
+	int getElementCount() {
+		return elementCount.get();
+	}
+
+	/**
+	 * Gets {@link #approximateSize}.
+	 *
+	 * @return {@link #approximateSize}
+	 */
+	long getApproximateSize() {
+		return approximateSize.get();
+	}
+
+}
@@ -0,0 +1,233 @@
+package rocks.inspectit.agent.java.core.impl;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.cliffc.high_scale_lib.NonBlockingHashMapLong;
+
+/**
+ * Storage used by the {@link CoreService} to keep the measurements until they are sent. Elements
+ * are keyed by the primitive id (method id in most cases) and sensor type id plus an optional
+ * prefix, so that no key objects have to be created when storing or retrieving values.
+ * <p>
+ * Internally the storage is a two level {@link NonBlockingHashMapLong}. The first level is keyed
+ * by the id, the second level by a key combining a local sensor type index and the interned
+ * prefix id. Both are assigned locally by this storage as int values, thus the combined key is
+ * always unique. Prefix ids are valid until the storage is {@link #clear() cleared}, sensor type
+ * indexes are kept for the lifetime of the storage.
+ * <p>
+ * The second level maps survive a {@link #clear()}, thus ids that report in every collection cycle
+ * do not allocate a new map after each sending. Maps that stayed empty for a whole cycle are
+ * removed on the next clear, so that short living ids (like the exception identity hashes) do not
+ * accumulate.
+ *
+ * @param <E>
+ *            Type of elements in the storage.
+ */
+public class MeasurementStorage<E> {
+
+	/**
+	 * Prefix id used when no prefix is defined.
+	 */
+	private static final int NO_PREFIX_ID = 0;
+
+	/**
+	 * Mask for the lower 32 bits of the combined key.
+	 */
+	private static final long LOWER_BITS_MASK = 0xFFFFFFFFL;
+
+	/**
+	 * The elements stored, keyed by the id and the combined sensor type/prefix key.
+	 */
+	private final NonBlockingHashMapLong<NonBlockingHashMapLong<E>> storage = new NonBlockingHashMapLong<NonBlockingHashMapLong<E>>();
+
+	/**
+	 * Local indexes of the sensor types.
+	 */
+	private final NonBlockingHashMapLong<Integer> sensorTypeIndexes = new NonBlockingHashMapLong<Integer>();
+
+	/**
+	 * Generator for the sensor type indexes.
+	 */
+	private final AtomicInteger sensorTypeIndexGenerator = new AtomicInteger();
+
+	/**
+	 * Interned prefix ids.
+	 */
+	private final ConcurrentHashMap<String, Integer> prefixIds = new ConcurrentHashMap<String, Integer>();
+
+	/**
+	 * Generator for the prefix ids. Id <code>0</code> is reserved for no prefix.
+	 */
+	private final AtomicInteger prefixIdGenerator = new AtomicInteger(NO_PREFIX_ID);
+
+	/**
+	 * Returns the element stored under given keys.
+	 *
+	 * @param id
+	 *            Id, usually the method id.
+	 * @param sensorTypeId
+	 *            The id of the sensor type.
+	 * @param prefix
+	 *            An arbitrary prefix {@link String}, can be <code>null</code>.
+	 * @return Stored element or <code>null</code> if nothing is stored under the given keys.
+	 */
+	public E get(long id, long sensorTypeId, String prefix) {
+		NonBlockingHashMapLong<E> elements = storage.get(id);
+		if (null == elements) {
+			return null;
+		}
+
+		Integer sensorTypeIndex = sensorTypeIndexes.get(sensorTypeId);
+		if (null == sensorTypeIndex) {
+			return null;
+		}
+
+		int prefixId = NO_PREFIX_ID;
+		if (null != prefix) {
+			Integer interned = prefixIds.get(prefix);
+			if (null == interned) {
+				return null;
+			}
+			prefixId = interned.intValue();
+		}
+
+		return elements.get(combine(sensorTypeIndex.intValue(), prefixId));
+	}
+
+	/**
+	 * Stores the element under given keys. If an element is already stored under the same keys, it
+	 * will be replaced.
+	 *
+	 * @param id
+	 *            Id, usually the method id.
+	 * @param sensorTypeId
+	 *            The id of the sensor type.
+	 * @param prefix
+	 *            An arbitrary prefix {@link String}, can be <code>null</code>.
+	 * @param element
+	 *            Element to store.
+	 * @return Element previously stored under the given keys or <code>null</code> if there was
+	 *         none.
+	 */
+	public E put(long id, long sensorTypeId, String prefix, E element) {
+		NonBlockingHashMapLong<E> elements = storage.get(id);
+		if (null == elements) {
+			elements = new NonBlockingHashMapLong<E>();
+			NonBlockingHashMapLong<E> existing = storage.putIfAbsent(id, elements);
+			if (null != existing) {
+				elements = existing;
+			}
+		}
+
+		int prefixId = NO_PREFIX_ID;
+		if (null != prefix) {
+			prefixId = internPrefix(prefix);
+		}
+
+		return elements.put(combine(getSensorTypeIndex(sensorTypeId), prefixId), element);
+	}
+
+	/**
+	 * Adds all stored elements to the given collection.
+	 *
+	 * @param collection
+	 *            Collection to add elements to.
+	 */
+	public void addAllTo(Collection<? super E> collection) {
+		for (NonBlockingHashMapLong<E> elements : storage.values()) {
+			collection.addAll(elements.values());
+		}
+	}
+
+	/**
+	 * Returns if storage holds no elements.
+	 *
+	 * @return Returns if storage holds no elements.
+	 */
+	public boolean isEmpty() {
+		for (NonBlockingHashMapLong<E> elements : storage.values()) {
+			if (!elements.isEmpty()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Removes all elements from the storage and releases all interned prefixes. Second level maps
+	 * holding elements are emptied and kept, the ones that were already empty are removed.
+	 * <p>
+	 * Must not be called concurrently with {@link #put(long, long, String, Object)}, as a put to a
+	 * map being removed would be lost.
+	 */
+	public void clear() {
+		for (Iterator<NonBlockingHashMapLong<E>> it = storage.values().iterator(); it.hasNext();) {
+			NonBlockingHashMapLong<E> elements = it.next();
+			if (elements.isEmpty()) {
+				it.remove();
+			} else {
+				for (Iterator<E> elementIt = elements.values().iterator(); elementIt.hasNext();) {
+					elementIt.next();
+					elementIt.remove();
+				}
+			}
+		}
+		prefixIds.clear();
+		prefixIdGenerator.set(NO_PREFIX_ID);
+	}
+
+	/**
+	 * Returns the local index of the sensor type, creates one if it does not exist.
+	 *
+	 * @param sensorTypeId
+	 *            The id of the sensor type.
+	 * @return Local index of the sensor type.
+	 */
+	private int getSensorTypeIndex(long sensorTypeId) {
+		Integer index = sensorTypeIndexes.get(sensorTypeId);
+		if (null == index) {
+			index = Integer.valueOf(sensorTypeIndexGenerator.getAndIncrement());
+			Integer existing = sensorTypeIndexes.putIfAbsent(sensorTypeId, index);
+			if (null != existing) {
+				index = existing;
+			}
+		}
+		return index.intValue();
+	}
+
+	/**
+	 * Returns the interned id of the prefix, creates one if the prefix is not yet interned.
+	 *
+	 * @param prefix
+	 *            Prefix to intern.
+	 * @return Interned id of the prefix.
+	 */
+	private int internPrefix(String prefix) {
+		Integer prefixId = prefixIds.get(prefix);
+		if (null == prefixId) {
+			prefixId = Integer.valueOf(prefixIdGenerator.incrementAndGet());
+			Integer existing = prefixIds.putIfAbsent(prefix, prefixId);
+			if (null != existing) {
+				prefixId = existing;
+			}
+		}
+		return prefixId.intValue();
+	}
+
+	/**
+	 * Combines the sensor type index and prefix id to the single long key.
+	 *
+	 * @param sensorTypeIndex
+	 *            Local sensor type index.
+	 * @param prefixId
+	 *            Interned prefix id.
+	 * @return Combined key.
+	 */
+	private static long combine(int sensorTypeIndex, int prefixId) {
+		return ((long) prefixId << 32) | (sensorTypeIndex & LOWER_BITS_MASK);
+	}
+
+}
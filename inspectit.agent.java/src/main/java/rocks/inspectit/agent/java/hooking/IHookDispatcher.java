@@ -14,7 +14,7 @@ public interface IHookDispatcher {
 	 * Dispatches the 'before' method statement.
 	 *
 	 * @param id
-	 *            The id of the method.
+	 *            The dispatch index of the method.
 	 * @param object
 	 *            The instance of the class or the class itself.
 	 * @param parameters
@@ -26,7 +26,7 @@ public interface IHookDispatcher {
 	 * Dispatches the first 'after' method statement.
 	 *
 	 * @param id
-	 *            The id of the method.
+	 *            The dispatch index of the method.
 	 * @param object
 	 *            The instance of the class or the class itself.
 	 * @param parameters
@@ -40,7 +40,7 @@ public interface IHookDispatcher {
 	 * Dispatches the second 'after' method statement.
 	 *
 	 * @param id
-	 *            The id of the method.
+	 *            The dispatch index of the method.
 	 * @param object
 	 *            The instance of the class or the class itself.
 	 * @param parameters
@@ -54,7 +54,7 @@ public interface IHookDispatcher {
 	 * Dispatches the 'addCatch' statement of a method.
 	 *
 	 * @param id
-	 *            The id of the method.
+	 *            The dispatch index of the method.
 	 * @param object
 	 *            The instance of the class.
 	 * @param parameters
@@ -68,7 +68,7 @@ public interface IHookDispatcher {
 	 * Dispatches the handler of a {@link Throwable}.
 	 *
 	 * @param id
-	 *            The id of the method where the {@link Throwable} is handled.
+	 *            The dispatch index of the method where the {@link Throwable} is handled.
 	 * @param exceptionObject
 	 *            The instance of the {@link Throwable} object.
 	 */
@@ -78,7 +78,7 @@ public interface IHookDispatcher {
 	 * Dispatches the 'addCatch' statement of a constructor.
 	 *
 	 * @param id
-	 *            The id of the method.
+	 *            The dispatch index of the method.
 	 * @param object
 	 *            The instance of the class.
 	 * @param parameters
@@ -92,7 +92,7 @@ public interface IHookDispatcher {
 	 * Dispatches the handler of a {@link Throwable}.
 	 *
 	 * @param id
-	 *            The id of the constructor where the {@link Throwable} is handled.
+	 *            The dispatch index of the constructor where the {@link Throwable} is handled.
 	 * @param exceptionObject
 	 *            The instance of the {@link Throwable} object.
 	 */
@@ -102,7 +102,7 @@ public interface IHookDispatcher {
 	 * Dispatches the 'before' constructor statement.
 	 *
 	 * @param id
-	 *            The id of the method.
+	 *            The dispatch index of the method.
 	 * @param parameters
 	 *            The parameters of the method.
 	 */
@@ -112,7 +112,7 @@ public interface IHookDispatcher {
 	 * Dispatches the 'after' constructor statement.
 	 *
 	 * @param id
-	 *            The id of the method.
+	 *            The dispatch index of the method.
 	 * @param object
 	 *            The instance of the class or the class itself.
 	 * @param parameters
@@ -120,4 +120,51 @@ public interface IHookDispatcher {
 	 */
 	void dispatchConstructorAfterBody(long id, Object object, Object[] parameters);
 
+	/**
+	 * Dispatches the 'before' method statement when none of the sensors needs the object or the
+	 * parameters of the method.
+	 *
+	 * @param id
+	 *            The dispatch index of the method.
+	 */
+	void dispatchMethodBeforeBody(long id);
+
+	/**
+	 * Dispatches the first 'after' method statement when none of the sensors needs the object, the
+	 * parameters or the return value of the method.
+	 *
+	 * @param id
+	 *            The dispatch index of the method.
+	 */
+	void dispatchFirstMethodAfterBody(long id);
+
+	/**
+	 * Dispatches the second 'after' method statement when none of the sensors needs the object,
+	 * the parameters or the return value of the method.
+	 *
+	 * @param id
+	 *            The dispatch index of the method.
+	 */
+	void dispatchSecondMethodAfterBody(long id);
+
+	/**
+	 * Dispatches the 'before' constructor statement when none of the sensors needs the parameters
+	 * of the constructor.
+	 *
+	 * @param id
+	 *            The dispatch index of the method.
+	 */
+	void dispatchConstructorBeforeBody(long id);
+
+	/**
+	 * Dispatches the 'after' constructor statement when none of the sensors needs the parameters
+	 * of the constructor.
+	 *
+	 * @param id
+	 *            The dispatch index of the method.
+	 * @param object
+	 *            The instance of the class or the class itself.
+	 */
+	void dispatchConstructorAfterBody(long id, Object object);
+
 }
\ No newline at end of file
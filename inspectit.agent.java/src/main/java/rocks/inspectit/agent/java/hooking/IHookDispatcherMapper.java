@@ -12,7 +12,20 @@ import rocks.inspectit.agent.java.config.impl.RegisteredSensorConfig;
 public interface IHookDispatcherMapper {
 
 	/**
-	 * Adds a method or constructor mapping to the dispatcher.
+	 * Returns the dispatch index of the method or constructor with the given id. The index is
+	 * reserved on the first call and the same index is returned for the id on all following calls.
+	 * Instrumented methods pass the dispatch index instead of the id to the {@link IHookDispatcher}
+	 * so that the mapping can be looked up by the array access.
+	 *
+	 * @param id
+	 *            The id of the method or constructor.
+	 * @return Dispatch index, starting with 0.
+	 */
+	int getDispatchIndex(long id);
+
+	/**
+	 * Adds a method or constructor mapping to the dispatcher. The mapping is available under the
+	 * dispatch index of the id, see {@link #getDispatchIndex(long)}.
 	 *
 	 * @param id
 	 *            The id of the mapping.
@@ -0,0 +1,57 @@
+package rocks.inspectit.agent.java.hooking;
+
+import rocks.inspectit.agent.java.config.impl.RegisteredSensorConfig;
+import rocks.inspectit.agent.java.core.ICoreService;
+import rocks.inspectit.agent.java.util.ThreadContext;
+
+/**
+ * Constructor hook that keeps its state in the {@link ThreadContext}. The hook dispatcher resolves
+ * the context once per dispatch and passes it to these methods instead of calling the ones of the
+ * {@link IConstructorHook}.
+ *
+ */
+public interface IThreadContextConstructorHook extends IConstructorHook {
+
+	/**
+	 * Same as
+	 * {@link IConstructorHook#beforeConstructor(long, long, Object[], RegisteredSensorConfig)} with
+	 * the context of the executing thread.
+	 *
+	 * @param threadContext
+	 *            {@link ThreadContext} of the executing thread.
+	 * @param methodId
+	 *            The unique method id.
+	 * @param sensorTypeId
+	 *            The unique sensor type id.
+	 * @param parameters
+	 *            The array of parameters.
+	 * @param rsc
+	 *            The {@link RegisteredSensorConfig} object which holds all the information of the
+	 *            executed method.
+	 */
+	void beforeConstructor(ThreadContext threadContext, long methodId, long sensorTypeId, Object[] parameters, RegisteredSensorConfig rsc);
+
+	/**
+	 * Same as
+	 * {@link IConstructorHook#afterConstructor(ICoreService, long, long, Object, Object[], RegisteredSensorConfig)}
+	 * with the context of the executing thread.
+	 *
+	 * @param threadContext
+	 *            {@link ThreadContext} of the executing thread.
+	 * @param coreService
+	 *            The core service.
+	 * @param methodId
+	 *            The unique method id.
+	 * @param sensorTypeId
+	 *            The unique sensor type id.
+	 * @param object
+	 *            The class itself which contains the hook.
+	 * @param parameters
+	 *            The array of parameters.
+	 * @param rsc
+	 *            The {@link RegisteredSensorConfig} object which holds all the information of the
+	 *            executed method.
+	 */
+	void afterConstructor(ThreadContext threadContext, ICoreService coreService, long methodId, long sensorTypeId, Object object, Object[] parameters, RegisteredSensorConfig rsc);
+
+}
@@ -0,0 +1,88 @@
+package rocks.inspectit.agent.java.hooking;
+
+import rocks.inspectit.agent.java.config.impl.RegisteredSensorConfig;
+import rocks.inspectit.agent.java.core.ICoreService;
+import rocks.inspectit.agent.java.util.ThreadContext;
+
+/**
+ * Method hook that keeps its state in the {@link ThreadContext}. The hook dispatcher resolves the
+ * context once per dispatch and passes it to these methods instead of calling the ones of the
+ * {@link IMethodHook}.
+ *
+ */
+public interface IThreadContextMethodHook extends IMethodHook {
+
+	/**
+	 * Releases the {@link ThreadContext} slot of the hook. Called when the hook is replaced by a new
+	 * instance and will not be executed anymore.
+	 */
+	void release();
+
+	/**
+	 * Same as {@link IMethodHook#beforeBody(long, long, Object, Object[], RegisteredSensorConfig)}
+	 * with the context of the executing thread.
+	 *
+	 * @param threadContext
+	 *            {@link ThreadContext} of the executing thread.
+	 * @param methodId
+	 *            The unique method id.
+	 * @param sensorTypeId
+	 *            The unique sensor type id.
+	 * @param object
+	 *            The class itself which contains the hook.
+	 * @param parameters
+	 *            The parameters of the method call.
+	 * @param rsc
+	 *            The {@link RegisteredSensorConfig} object which holds all the information of the
+	 *            executed method.
+	 */
+	void beforeBody(ThreadContext threadContext, long methodId, long sensorTypeId, Object object, Object[] parameters, RegisteredSensorConfig rsc);
+
+	/**
+	 * Same as
+	 * {@link IMethodHook#firstAfterBody(long, long, Object, Object[], Object, RegisteredSensorConfig)}
+	 * with the context of the executing thread.
+	 *
+	 * @param threadContext
+	 *            {@link ThreadContext} of the executing thread.
+	 * @param methodId
+	 *            The unique method id.
+	 * @param sensorTypeId
+	 *            The unique sensor type id.
+	 * @param object
+	 *            The class itself which contains the hook.
+	 * @param parameters
+	 *            The parameters of the method call.
+	 * @param result
+	 *            The return value
+	 * @param rsc
+	 *            The {@link RegisteredSensorConfig} object which holds all the information of the
+	 *            executed method.
+	 */
+	void firstAfterBody(ThreadContext threadContext, long methodId, long sensorTypeId, Object object, Object[] parameters, Object result, RegisteredSensorConfig rsc);
+
+	/**
+	 * Same as
+	 * {@link IMethodHook#secondAfterBody(ICoreService, long, long, Object, Object[], Object, RegisteredSensorConfig)}
+	 * with the context of the executing thread.
+	 *
+	 * @param threadContext
+	 *            {@link ThreadContext} of the executing thread.
+	 * @param coreService
+	 *            The reference to the core service which holds the data objects etc.
+	 * @param methodId
+	 *            The unique method id.
+	 * @param sensorTypeId
+	 *            The unique sensor type id.
+	 * @param object
+	 *            The class itself which contains the hook.
+	 * @param parameters
+	 *            The parameters of the method call.
+	 * @param result
+	 *            The return value
+	 * @param rsc
+	 *            The {@link RegisteredSensorConfig} object which holds all the information of the
+	 *            executed method.
+	 */
+	void secondAfterBody(ThreadContext threadContext, ICoreService coreService, long methodId, long sensorTypeId, Object object, Object[] parameters, Object result, RegisteredSensorConfig rsc);
+}
@@ -0,0 +1,150 @@
+package rocks.inspectit.agent.java.hooking;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Static aggregation target of the inlined timer. Methods instrumented with the inlined timer keep
+ * the start time in a local variable and call {@link #recordDuration(int, long)} on exit, which
+ * only updates the preallocated slot of the method. No thread local, no map lookup and no object
+ * creation is involved.
+ * <p>
+ * Same as the {@link IHookDispatcher} this class must be loaded by the bootstrap class loader, so
+ * it can only depend on the JDK classes.
+ */
+public final class InlinedTimer {
+
+	/**
+	 * Index of the invocation count in the slot.
+	 */
+	private static final int COUNT = 0;
+
+	/**
+	 * Index of the summed duration in nanoseconds in the slot.
+	 */
+	private static final int DURATION = 1;
+
+	/**
+	 * Index of the minimum duration in nanoseconds in the slot.
+	 */
+	private static final int MIN = 2;
+
+	/**
+	 * Index of the maximum duration in nanoseconds in the slot.
+	 */
+	private static final int MAX = 3;
+
+	/**
+	 * Size of one slot.
+	 */
+	private static final int SLOT_SIZE = 4;
+
+	/**
+	 * Initial length of the slots array.
+	 */
+	private static final int INITIAL_SLOTS_LENGTH = 64;
+
+	/**
+	 * Allocated slots. Written only under the class lock, always as the new array reference so that
+	 * the volatile write publishes the added slot. Array is copied when growing, slots themselves
+	 * are never replaced, thus recording into the slot read from the old array is never lost.
+	 */
+	private static volatile AtomicLongArray[] slots = new AtomicLongArray[INITIAL_SLOTS_LENGTH]; // NOPMD
+
+	/**
+	 * Number of allocated slots. Written only under the class lock.
+	 */
+	private static volatile int slotCount; // NOPMD
+
+	/**
+	 * Private constructor to prevent instantiation.
+	 */
+	private InlinedTimer() {
+	}
+
+	/**
+	 * Records the duration of one invocation. Called from the instrumented methods.
+	 *
+	 * @param slot
+	 *            Slot of the method.
+	 * @param start
+	 *            Start time of the invocation as returned by {@link System#nanoTime()}.
+	 */
+	public static void recordDuration(int slot, long start) {
+		long duration = System.nanoTime() - start;
+		AtomicLongArray values = slots[slot];
+		values.incrementAndGet(COUNT);
+		values.addAndGet(DURATION, duration);
+
+		long min = values.get(MIN);
+		while ((duration < min) && !values.compareAndSet(MIN, min, duration)) {
+			min = values.get(MIN);
+		}
+		long max = values.get(MAX);
+		while ((duration > max) && !values.compareAndSet(MAX, max, duration)) {
+			max = values.get(MAX);
+		}
+	}
+
+	/**
+	 * Allocates new slot. Slot must be allocated before the method using it is instrumented.
+	 *
+	 * @return Index of the allocated slot.
+	 */
+	public static synchronized int allocateSlot() {
+		int index = slotCount;
+		AtomicLongArray[] current = slots;
+		if (index >= current.length) {
+			AtomicLongArray[] grown = new AtomicLongArray[current.length * 2];
+			System.arraycopy(current, 0, grown, 0, current.length);
+			current = grown;
+		}
+
+		AtomicLongArray slot = new AtomicLongArray(SLOT_SIZE);
+		slot.set(MIN, Long.MAX_VALUE);
+		slot.set(MAX, Long.MIN_VALUE);
+		current[index] = slot;
+
+		// volatile write publishes the slot, also when the array did not grow
+		slots = current;
+		slotCount = index + 1;
+		return index;
+	}
+
+	/**
+	 * Returns number of allocated slots.
+	 *
+	 * @return Number of allocated slots.
+	 */
+	public static int getSlotCount() {
+		return slotCount;
+	}
+
+	/**
+	 * Drains the values aggregated in the slot since the last drain and resets the slot. The values
+	 * are not drained atomically, thus an invocation recorded during the drain can have the count
+	 * and the duration reported in two following drains and the drained minimum and maximum can
+	 * still be unset ({@link Long#MAX_VALUE} and {@link Long#MIN_VALUE}). Totals are never lost.
+	 *
+	 * @param slot
+	 *            Slot to drain.
+	 * @param result
+	 *            Array of at least four elements to write count, duration, minimum and maximum
+	 *            duration in nanoseconds to.
+	 * @return <code>true</code> if the slot had any invocation, <code>false</code> otherwise in
+	 *         which case the result array is not changed.
+	 */
+	public static boolean drain(int slot, long[] result) {
+		AtomicLongArray values = slots[slot];
+		long count = values.getAndSet(COUNT, 0);
+		if (0 == count) {
+			return false;
+		}
+
+		result[COUNT] = count;
+		result[DURATION] = values.getAndSet(DURATION, 0);
+		result[MIN] = values.getAndSet(MIN, Long.MAX_VALUE);
+		result[MAX] = values.getAndSet(MAX, Long.MIN_VALUE);
+		return true;
+	}
+
+}
@@ -1,6 +1,8 @@
 package rocks.inspectit.agent.java.hooking.impl;
 
-import org.cliffc.high_scale_lib.NonBlockingHashMapLong;
+import java.util.HashMap;
+import java.util.Map;
+
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -8,14 +10,16 @@ import org.springframework.stereotype.Component;
 import rocks.inspectit.agent.java.config.impl.RegisteredSensorConfig;
 import rocks.inspectit.agent.java.core.ICoreService;
 import rocks.inspectit.agent.java.hooking.IConstructorHook;
-import rocks.inspectit.agent.java.hooking.IHook;
 import rocks.inspectit.agent.java.hooking.IHookDispatcher;
 import rocks.inspectit.agent.java.hooking.IHookDispatcherMapper;
 import rocks.inspectit.agent.java.hooking.IMethodHook;
+import rocks.inspectit.agent.java.hooking.IThreadContextConstructorHook;
+import rocks.inspectit.agent.java.hooking.IThreadContextMethodHook;
 import rocks.inspectit.agent.java.sensor.exception.ExceptionSensor;
 import rocks.inspectit.agent.java.sensor.exception.IExceptionSensorHook;
 import rocks.inspectit.agent.java.sensor.method.IMethodSensor;
 import rocks.inspectit.agent.java.sensor.method.invocationsequence.InvocationSequenceSensor;
+import rocks.inspectit.agent.java.util.ThreadContext;
 import rocks.inspectit.shared.all.instrumentation.config.impl.MethodSensorTypeConfig;
 import rocks.inspectit.shared.all.spring.logger.Log;
 
@@ -55,44 +59,223 @@ public class HookDispatcher implements IHookDispatcherMapper, IHookDispatcher {
 	private ExceptionSensor exceptionSensor;
 
 	/**
-	 * Contains all hooks. Using concurrent map as we need to enable thread-safety of
-	 * {@link #addMapping(long, RegisteredSensorConfig)}.
+	 * Initial length of the mappings array.
 	 */
-	private final NonBlockingHashMapLong<RegisteredSensorConfig> mappings = new NonBlockingHashMapLong<RegisteredSensorConfig>();
+	private static final int INITIAL_MAPPINGS_LENGTH = 1024;
 
 	/**
-	 * Stores the current Status of the invocation sequence tracer in a {@link ThreadLocal} object.
+	 * Contains all hooks indexed by the dispatch index. Written only under the lock of this
+	 * dispatcher, always as the new array reference so that the volatile write publishes the
+	 * changed elements to the dispatching threads, which read it without any locking.
 	 */
-	private final InvocationSequenceCount invocationSequenceCount = new InvocationSequenceCount();
+	private volatile Mapping[] mappings = new Mapping[INITIAL_MAPPINGS_LENGTH];
 
 	/**
-	 * A thread local holder object to save the current started invocation sequence.
+	 * Dispatch indexes by the method id. Guarded by this dispatcher.
 	 */
-	private final ThreadLocal<IHook> invocationSequenceHolder = new ThreadLocal<IHook>();
+	private final Map<Long, Integer> dispatchIndexes = new HashMap<Long, Integer>();
 
 	/**
-	 * If an execution of the dispatching is already in progress, we don't dispatch anything else
-	 * for this thread.
+	 * {@inheritDoc}
 	 */
-	private final ExecutionMarker executionMarker = new ExecutionMarker();
+	public synchronized int getDispatchIndex(long id) {
+		Long key = Long.valueOf(id);
+		Integer index = dispatchIndexes.get(key);
+		if (null == index) {
+			index = Integer.valueOf(dispatchIndexes.size());
+			dispatchIndexes.put(key, index);
+		}
+		return index.intValue();
+	}
 
 	/**
 	 * {@inheritDoc}
 	 */
-	public void addMapping(long id, RegisteredSensorConfig rsc) {
-		mappings.put(id, rsc);
+	public synchronized void addMapping(long id, RegisteredSensorConfig rsc) {
+		int index = getDispatchIndex(id);
+		Mapping[] current = mappings;
+		if (index >= current.length) {
+			Mapping[] grown = new Mapping[Math.max(current.length * 2, index + 1)];
+			System.arraycopy(current, 0, grown, 0, current.length);
+			current = grown;
+		}
+		current[index] = new Mapping(id, rsc);
+		// volatile write publishes the element, also when the array did not grow
+		mappings = current;
+	}
+
+	/**
+	 * Returns the mapping for the given dispatch index.
+	 *
+	 * @param index
+	 *            Dispatch index passed by the instrumented method.
+	 * @return Mapping or <code>null</code> if no mapping is added for the index.
+	 */
+	private Mapping getMapping(long index) {
+		Mapping[] current = mappings;
+		if ((index >= 0) && (index < current.length)) {
+			return current[(int) index];
+		}
+		return null;
+	}
+
+	/**
+	 * Calls the before body method of the hook, passing the {@link ThreadContext} if the hook is an
+	 * {@link IThreadContextMethodHook}.
+	 *
+	 * @param methodHook
+	 *            Hook to call.
+	 * @param threadContext
+	 *            {@link ThreadContext} of the executing thread.
+	 * @param methodId
+	 *            The unique method id.
+	 * @param sensorTypeId
+	 *            The unique sensor type id.
+	 * @param object
+	 *            The class itself which contains the hook.
+	 * @param parameters
+	 *            The parameters of the method call.
+	 * @param rsc
+	 *            The {@link RegisteredSensorConfig} of the executed method.
+	 */
+	private static void beforeBody(IMethodHook methodHook, ThreadContext threadContext, long methodId, long sensorTypeId, Object object, Object[] parameters, RegisteredSensorConfig rsc) {
+		if (methodHook instanceof IThreadContextMethodHook) {
+			((IThreadContextMethodHook) methodHook).beforeBody(threadContext, methodId, sensorTypeId, object, parameters, rsc);
+		} else {
+			methodHook.beforeBody(methodId, sensorTypeId, object, parameters, rsc);
+		}
+	}
+
+	/**
+	 * Calls the first after body method of the hook, passing the {@link ThreadContext} if the hook
+	 * is an {@link IThreadContextMethodHook}.
+	 *
+	 * @param methodHook
+	 *            Hook to call.
+	 * @param threadContext
+	 *            {@link ThreadContext} of the executing thread.
+	 * @param methodId
+	 *            The unique method id.
+	 * @param sensorTypeId
+	 *            The unique sensor type id.
+	 * @param object
+	 *            The class itself which contains the hook.
+	 * @param parameters
+	 *            The parameters of the method call.
+	 * @param result
+	 *            The return value.
+	 * @param rsc
+	 *            The {@link RegisteredSensorConfig} of the executed method.
+	 */
+	private static void firstAfterBody(IMethodHook methodHook, ThreadContext threadContext, long methodId, long sensorTypeId, Object object, Object[] parameters, Object result,
+			RegisteredSensorConfig rsc) {
+		if (methodHook instanceof IThreadContextMethodHook) {
+			((IThreadContextMethodHook) methodHook).firstAfterBody(threadContext, methodId, sensorTypeId, object, parameters, result, rsc);
+		} else {
+			methodHook.firstAfterBody(methodId, sensorTypeId, object, parameters, result, rsc);
+		}
+	}
+
+	/**
+	 * Calls the second after body method of the hook, passing the {@link ThreadContext} if the
+	 * hook is an {@link IThreadContextMethodHook}.
+	 *
+	 * @param methodHook
+	 *            Hook to call.
+	 * @param threadContext
+	 *            {@link ThreadContext} of the executing thread.
+	 * @param coreService
+	 *            Core service to pass to the hook.
+	 * @param methodId
+	 *            The unique method id.
+	 * @param sensorTypeId
+	 *            The unique sensor type id.
+	 * @param object
+	 *            The class itself which contains the hook.
+	 * @param parameters
+	 *            The parameters of the method call.
+	 * @param result
+	 *            The return value.
+	 * @param rsc
+	 *            The {@link RegisteredSensorConfig} of the executed method.
+	 */
+	private static void secondAfterBody(IMethodHook methodHook, ThreadContext threadContext, ICoreService coreService, long methodId, long sensorTypeId, Object object, Object[] parameters,
+			Object result, RegisteredSensorConfig rsc) {
+		if (methodHook instanceof IThreadContextMethodHook) {
+			((IThreadContextMethodHook) methodHook).secondAfterBody(threadContext, coreService, methodId, sensorTypeId, object, parameters, result, rsc);
+		} else {
+			methodHook.secondAfterBody(coreService, methodId, sensorTypeId, object, parameters, result, rsc);
+		}
+	}
+
+	/**
+	 * Calls the before constructor method of the hook, passing the {@link ThreadContext} if the
+	 * hook is an {@link IThreadContextConstructorHook}.
+	 *
+	 * @param constructorHook
+	 *            Hook to call.
+	 * @param threadContext
+	 *            {@link ThreadContext} of the executing thread.
+	 * @param methodId
+	 *            The unique method id.
+	 * @param sensorTypeId
+	 *            The unique sensor type id.
+	 * @param parameters
+	 *            The parameters of the constructor call.
+	 * @param rsc
+	 *            The {@link RegisteredSensorConfig} of the executed constructor.
+	 */
+	private static void beforeConstructor(IConstructorHook constructorHook, ThreadContext threadContext, long methodId, long sensorTypeId, Object[] parameters, RegisteredSensorConfig rsc) {
+		if (constructorHook instanceof IThreadContextConstructorHook) {
+			((IThreadContextConstructorHook) constructorHook).beforeConstructor(threadContext, methodId, sensorTypeId, parameters, rsc);
+		} else {
+			constructorHook.beforeConstructor(methodId, sensorTypeId, parameters, rsc);
+		}
+	}
+
+	/**
+	 * Calls the after constructor method of the hook, passing the {@link ThreadContext} if the hook
+	 * is an {@link IThreadContextConstructorHook}.
+	 *
+	 * @param constructorHook
+	 *            Hook to call.
+	 * @param threadContext
+	 *            {@link ThreadContext} of the executing thread.
+	 * @param coreService
+	 *            Core service to pass to the hook.
+	 * @param methodId
+	 *            The unique method id.
+	 * @param sensorTypeId
+	 *            The unique sensor type id.
+	 * @param object
+	 *            The constructed object.
+	 * @param parameters
+	 *            The parameters of the constructor call.
+	 * @param rsc
+	 *            The {@link RegisteredSensorConfig} of the executed constructor.
+	 */
+	private static void afterConstructor(IConstructorHook constructorHook, ThreadContext threadContext, ICoreService coreService, long methodId, long sensorTypeId, Object object, Object[] parameters,
+			RegisteredSensorConfig rsc) {
+		if (constructorHook instanceof IThreadContextConstructorHook) {
+			((IThreadContextConstructorHook) constructorHook).afterConstructor(threadContext, coreService, methodId, sensorTypeId, object, parameters, rsc);
+		} else {
+			constructorHook.afterConstructor(coreService, methodId, sensorTypeId, object, parameters, rsc);
+		}
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
-	public void dispatchMethodBeforeBody(long id, Object object, Object[] parameters) {
-		if (!executionMarker.isActive()) {
+	public void dispatchMethodBeforeBody(long index, Object object, Object[] parameters) {
+		ThreadContext threadContext = ThreadContext.current();
+		if (!threadContext.isExecutionActive()) {
 			try {
-				executionMarker.active();
+				threadContext.setExecutionActive(true);
 
 				try {
-					RegisteredSensorConfig rsc = mappings.get(id);
+					Mapping mapping = getMapping(index);
+					long id = mapping.id;
+					RegisteredSensorConfig rsc = mapping.rsc;
 
 					if (rsc.isStartsInvocation()) {
 						// The sensor configuration contains an invocation sequence
@@ -100,33 +283,33 @@ public class HookDispatcher implements IHookDispatcherMapper, IHookDispatcher {
 						// access. Additionally, we need to save the count of the called
 						// invocation sensors, as another nested one could be started,
 						// too.
-						invocationSequenceCount.increment();
+						threadContext.incrementInvocationSequenceCount();
 
-						if (null == invocationSequenceHolder.get()) {
-							invocationSequenceHolder.set(invocationSequenceSensor.getHook());
+						if (null == threadContext.getInvocationSequenceHook()) {
+							threadContext.setInvocationSequenceHook(invocationSequenceSensor.getHook());
 						}
-					} else if (null != invocationSequenceHolder.get()) {
+					} else if (null != threadContext.getInvocationSequenceHook()) {
 						// We are executing the following sensor types in an invocation
 						// sequence context, thus we have to execute the before body
 						// method of the invocation sequence hook manually.
-						IMethodHook invocationHook = (IMethodHook) invocationSequenceHolder.get();
+						IMethodHook invocationHook = (IMethodHook) threadContext.getInvocationSequenceHook();
 
 						// The sensor type ID is not important here, thus we are passing
 						// a -1. It is already stored in the data object
-						invocationHook.beforeBody(id, -1, object, parameters, rsc);
+						beforeBody(invocationHook, threadContext, id, -1, object, parameters, rsc);
 					}
 
 					// Now iterate over all registered sensor types and execute them
 					// reverse execution (sensor with lowest priority first)
 					for (IMethodSensor methodSensor : rsc.getMethodSensorsReverse()) {
 						IMethodHook methodHook = (IMethodHook) methodSensor.getHook();
-						methodHook.beforeBody(id, methodSensor.getSensorTypeConfig().getId(), object, parameters, rsc);
+						beforeBody(methodHook, threadContext, id, methodSensor.getSensorTypeConfig().getId(), object, parameters, rsc);
 					}
 				} catch (Throwable throwable) { // NOPMD
 					log.error("An error happened in the Hook Dispatcher! (before body)", throwable);
 				}
 			} finally {
-				executionMarker.deactive();
+				threadContext.setExecutionActive(false);
 			}
 		}
 	}
@@ -134,25 +317,28 @@ public class HookDispatcher implements IHookDispatcherMapper, IHookDispatcher {
 	/**
 	 * {@inheritDoc}
 	 */
-	public void dispatchFirstMethodAfterBody(long id, Object object, Object[] parameters, Object returnValue) {
-		if (!executionMarker.isActive()) {
+	public void dispatchFirstMethodAfterBody(long index, Object object, Object[] parameters, Object returnValue) {
+		ThreadContext threadContext = ThreadContext.current();
+		if (!threadContext.isExecutionActive()) {
 			try {
-				executionMarker.active();
+				threadContext.setExecutionActive(true);
 
 				try {
-					RegisteredSensorConfig rsc = mappings.get(id);
+					Mapping mapping = getMapping(index);
+					long id = mapping.id;
+					RegisteredSensorConfig rsc = mapping.rsc;
 
 					// Now iterate over all registered sensor types and execute them
 					// normal execution (sensor with highest priority first)
 					for (IMethodSensor methodSensor : rsc.getMethodSensors()) {
 						IMethodHook methodHook = (IMethodHook) methodSensor.getHook();
-						methodHook.firstAfterBody(id, methodSensor.getSensorTypeConfig().getId(), object, parameters, returnValue, rsc);
+						firstAfterBody(methodHook, threadContext, id, methodSensor.getSensorTypeConfig().getId(), object, parameters, returnValue, rsc);
 					}
 				} catch (Throwable throwable) { // NOPMD
 					log.error("An error happened in the Hook Dispatcher! (after body)", throwable);
 				}
 			} finally {
-				executionMarker.deactive();
+				threadContext.setExecutionActive(false);
 			}
 		}
 	}
@@ -160,19 +346,22 @@ public class HookDispatcher implements IHookDispatcherMapper, IHookDispatcher {
 	/**
 	 * {@inheritDoc}
 	 */
-	public void dispatchSecondMethodAfterBody(long id, Object object, Object[] parameters, Object returnValue) {
-		if (!executionMarker.isActive()) {
+	public void dispatchSecondMethodAfterBody(long index, Object object, Object[] parameters, Object returnValue) {
+		ThreadContext threadContext = ThreadContext.current();
+		if (!threadContext.isExecutionActive()) {
 			try {
-				executionMarker.active();
+				threadContext.setExecutionActive(true);
 
 				try {
-					RegisteredSensorConfig rsc = mappings.get(id);
+					Mapping mapping = getMapping(index);
+					long id = mapping.id;
+					RegisteredSensorConfig rsc = mapping.rsc;
 
-					if (null != invocationSequenceHolder.get()) {
+					if (null != threadContext.getInvocationSequenceHook()) {
 						// Need to replace the core service with the one from the invocation
 						// sequence so that all data objects can be associated to that invocation
 						// record.
-						ICoreService invocCoreService = (ICoreService) invocationSequenceHolder.get();
+						ICoreService invocCoreService = (ICoreService) threadContext.getInvocationSequenceHook();
 
 						// Now iterate over all registered sensor types and execute them
 						// normal execution (sensor with highest priority first)
@@ -181,38 +370,36 @@ public class HookDispatcher implements IHookDispatcherMapper, IHookDispatcher {
 							// the invocation sequence sensor needs the original core service!
 							long sensorId = methodSensor.getSensorTypeConfig().getId();
 							if (invocCoreService == methodHook) { // NOPMD
-								methodHook.secondAfterBody(coreService, id, sensorId, object, parameters, returnValue, rsc);
+								secondAfterBody(methodHook, threadContext, coreService, id, sensorId, object, parameters, returnValue, rsc);
 							} else {
-								methodHook.secondAfterBody(invocCoreService, id, sensorId, object, parameters, returnValue, rsc);
+								secondAfterBody(methodHook, threadContext, invocCoreService, id, sensorId, object, parameters, returnValue, rsc);
 							}
 						}
 					} else {
 						for (IMethodSensor methodSensor : rsc.getMethodSensors()) {
 							IMethodHook methodHook = (IMethodHook) methodSensor.getHook();
-							methodHook.secondAfterBody(coreService, id, methodSensor.getSensorTypeConfig().getId(), object, parameters, returnValue, rsc);
+							secondAfterBody(methodHook, threadContext, coreService, id, methodSensor.getSensorTypeConfig().getId(), object, parameters, returnValue, rsc);
 						}
 					}
 
 					if (rsc.isStartsInvocation()) {
-						invocationSequenceCount.decrement();
-
-						if (0 == invocationSequenceCount.getCount()) {
-							invocationSequenceHolder.set(null);
+						if (0 == threadContext.decrementInvocationSequenceCount()) {
+							threadContext.setInvocationSequenceHook(null);
 						}
-					} else if (null != invocationSequenceHolder.get()) {
+					} else if (null != threadContext.getInvocationSequenceHook()) {
 						// We have to execute the after body method of the invocation sequence hook
 						// manually.
-						IMethodHook invocationHook = (IMethodHook) invocationSequenceHolder.get();
+						IMethodHook invocationHook = (IMethodHook) threadContext.getInvocationSequenceHook();
 
 						// The sensor type ID is not important here, thus we are passing a -1. It is
 						// already stored in the data object
-						invocationHook.secondAfterBody(coreService, id, -1, object, parameters, returnValue, rsc);
+						secondAfterBody(invocationHook, threadContext, coreService, id, -1, object, parameters, returnValue, rsc);
 					}
 				} catch (Throwable throwable) { // NOPMD
 					log.error("An error happened in the Hook Dispatcher! (second after body)", throwable);
 				}
 			} finally {
-				executionMarker.deactive();
+				threadContext.setExecutionActive(false);
 			}
 		}
 	}
@@ -220,21 +407,27 @@ public class HookDispatcher implements IHookDispatcherMapper, IHookDispatcher {
 	/**
 	 * {@inheritDoc}
 	 */
-	public void dispatchOnThrowInBody(long id, Object object, Object[] parameters, Object exceptionObject) {
-		if (!executionMarker.isActive()) {
+	public void dispatchOnThrowInBody(long index, Object object, Object[] parameters, Object exceptionObject) {
+		ThreadContext threadContext = ThreadContext.current();
+		if (!threadContext.isExecutionActive()) {
 			try {
-				executionMarker.active();
+				threadContext.setExecutionActive(true);
 
 				// rsc contains the settings for the actual method where the exception was thrown.
-				RegisteredSensorConfig rsc = mappings.get(id);
+				Mapping mapping = getMapping(index);
+				if (null == mapping) {
+					return;
+				}
+				long id = mapping.id;
+				RegisteredSensorConfig rsc = mapping.rsc;
 				MethodSensorTypeConfig sensorTypeConfig = exceptionSensor.getSensorTypeConfig();
 				long sensorTypeId = sensorTypeConfig.getId();
 
 				ICoreService invocCoreService = null;
-				if (null != invocationSequenceHolder.get()) {
+				if (null != threadContext.getInvocationSequenceHook()) {
 					// Need to replace the core service with the one from the invocation sequence so
 					// that all data objects can be associated to that invocation record.
-					invocCoreService = (ICoreService) invocationSequenceHolder.get();
+					invocCoreService = (ICoreService) threadContext.getInvocationSequenceHook();
 				}
 
 				IExceptionSensorHook exceptionHook = (IExceptionSensorHook) exceptionSensor.getHook();
@@ -244,7 +437,7 @@ public class HookDispatcher implements IHookDispatcherMapper, IHookDispatcher {
 					exceptionHook.dispatchOnThrowInBody(coreService, id, sensorTypeId, object, exceptionObject, parameters, rsc);
 				}
 			} finally {
-				executionMarker.deactive();
+				threadContext.setExecutionActive(false);
 			}
 		}
 	}
@@ -252,20 +445,26 @@ public class HookDispatcher implements IHookDispatcherMapper, IHookDispatcher {
 	/**
 	 * {@inheritDoc}
 	 */
-	public void dispatchBeforeCatch(long id, Object exceptionObject) {
-		if (!executionMarker.isActive()) {
+	public void dispatchBeforeCatch(long index, Object exceptionObject) {
+		ThreadContext threadContext = ThreadContext.current();
+		if (!threadContext.isExecutionActive()) {
 			try {
-				executionMarker.active();
+				threadContext.setExecutionActive(true);
 
 				// rsc contains the settings of the actual method where the exception is catched.
-				RegisteredSensorConfig rsc = mappings.get(id);
+				Mapping mapping = getMapping(index);
+				if (null == mapping) {
+					return;
+				}
+				long id = mapping.id;
+				RegisteredSensorConfig rsc = mapping.rsc;
 				long sensorTypeId = exceptionSensor.getSensorTypeConfig().getId();
 
 				ICoreService invocCoreService = null;
-				if (null != invocationSequenceHolder.get()) {
+				if (null != threadContext.getInvocationSequenceHook()) {
 					// Need to replace the core service with the one from the invocation sequence so
 					// that all data objects can be associated to that invocation record.
-					invocCoreService = (ICoreService) invocationSequenceHolder.get();
+					invocCoreService = (ICoreService) threadContext.getInvocationSequenceHook();
 				}
 
 				IExceptionSensorHook exceptionHook = (IExceptionSensorHook) exceptionSensor.getHook();
@@ -275,7 +474,7 @@ public class HookDispatcher implements IHookDispatcherMapper, IHookDispatcher {
 					exceptionHook.dispatchBeforeCatchBody(coreService, id, sensorTypeId, exceptionObject, rsc);
 				}
 			} finally {
-				executionMarker.deactive();
+				threadContext.setExecutionActive(false);
 			}
 		}
 	}
@@ -283,21 +482,27 @@ public class HookDispatcher implements IHookDispatcherMapper, IHookDispatcher {
 	/**
 	 * {@inheritDoc}
 	 */
-	public void dispatchConstructorOnThrowInBody(long id, Object object, Object[] parameters, Object exceptionObject) {
-		if (!executionMarker.isActive()) {
+	public void dispatchConstructorOnThrowInBody(long index, Object object, Object[] parameters, Object exceptionObject) {
+		ThreadContext threadContext = ThreadContext.current();
+		if (!threadContext.isExecutionActive()) {
 			try {
-				executionMarker.active();
+				threadContext.setExecutionActive(true);
 
 				// rsc contains the settings for the actual constructor where the exception was
 				// thrown.
-				RegisteredSensorConfig rsc = mappings.get(id);
+				Mapping mapping = getMapping(index);
+				if (null == mapping) {
+					return;
+				}
+				long id = mapping.id;
+				RegisteredSensorConfig rsc = mapping.rsc;
 				long sensorTypeId = exceptionSensor.getSensorTypeConfig().getId();
 
 				ICoreService invocCoreService = null;
-				if (null != invocationSequenceHolder.get()) {
+				if (null != threadContext.getInvocationSequenceHook()) {
 					// Need to replace the core service with the one from the invocation sequence so
 					// that all data objects can be associated to that invocation record.
-					invocCoreService = (ICoreService) invocationSequenceHolder.get();
+					invocCoreService = (ICoreService) threadContext.getInvocationSequenceHook();
 				}
 
 				IExceptionSensorHook exceptionHook = (IExceptionSensorHook) exceptionSensor.getHook();
@@ -307,7 +512,7 @@ public class HookDispatcher implements IHookDispatcherMapper, IHookDispatcher {
 					exceptionHook.dispatchOnThrowInBody(coreService, id, sensorTypeId, object, exceptionObject, parameters, rsc);
 				}
 			} finally {
-				executionMarker.deactive();
+				threadContext.setExecutionActive(false);
 			}
 		}
 	}
@@ -315,21 +520,27 @@ public class HookDispatcher implements IHookDispatcherMapper, IHookDispatcher {
 	/**
 	 * {@inheritDoc}
 	 */
-	public void dispatchConstructorBeforeCatch(long id, Object exceptionObject) {
-		if (!executionMarker.isActive()) {
+	public void dispatchConstructorBeforeCatch(long index, Object exceptionObject) {
+		ThreadContext threadContext = ThreadContext.current();
+		if (!threadContext.isExecutionActive()) {
 			try {
-				executionMarker.active();
+				threadContext.setExecutionActive(true);
 
 				// rsc contains the settings of the actual constructor where the exception is
 				// catched.
-				RegisteredSensorConfig rsc = mappings.get(id);
+				Mapping mapping = getMapping(index);
+				if (null == mapping) {
+					return;
+				}
+				long id = mapping.id;
+				RegisteredSensorConfig rsc = mapping.rsc;
 				long sensorTypeId = exceptionSensor.getSensorTypeConfig().getId();
 
 				ICoreService invocCoreService = null;
-				if (null != invocationSequenceHolder.get()) {
+				if (null != threadContext.getInvocationSequenceHook()) {
 					// Need to replace the core service with the one from the invocation sequence so
 					// that all data objects can be associated to that invocation record.
-					invocCoreService = (ICoreService) invocationSequenceHolder.get();
+					invocCoreService = (ICoreService) threadContext.getInvocationSequenceHook();
 				}
 
 				IExceptionSensorHook exceptionHook = (IExceptionSensorHook) exceptionSensor.getHook();
@@ -339,7 +550,7 @@ public class HookDispatcher implements IHookDispatcherMapper, IHookDispatcher {
 					exceptionHook.dispatchBeforeCatchBody(coreService, id, sensorTypeId, exceptionObject, rsc);
 				}
 			} finally {
-				executionMarker.deactive();
+				threadContext.setExecutionActive(false);
 			}
 		}
 	}
@@ -347,45 +558,48 @@ public class HookDispatcher implements IHookDispatcherMapper, IHookDispatcher {
 	/**
 	 * {@inheritDoc}
 	 */
-	public void dispatchConstructorBeforeBody(long id, Object[] parameters) {
-		if (!executionMarker.isActive()) {
+	public void dispatchConstructorBeforeBody(long index, Object[] parameters) {
+		ThreadContext threadContext = ThreadContext.current();
+		if (!threadContext.isExecutionActive()) {
 			try {
-				executionMarker.active();
+				threadContext.setExecutionActive(true);
 
 				try {
-					RegisteredSensorConfig rsc = mappings.get(id);
+					Mapping mapping = getMapping(index);
+					long id = mapping.id;
+					RegisteredSensorConfig rsc = mapping.rsc;
 
 					if (rsc.isStartsInvocation()) {
 						// The sensor configuration contains an invocation sequence sensor. We have
 						// to set it on the thread local map for later access. Additionally, we need
 						// to save the count of the called invocation sensors, as another nested one
 						// could be started, too.
-						invocationSequenceCount.increment();
-						if (null == invocationSequenceHolder.get()) {
-							invocationSequenceHolder.set(invocationSequenceSensor.getHook());
+						threadContext.incrementInvocationSequenceCount();
+						if (null == threadContext.getInvocationSequenceHook()) {
+							threadContext.setInvocationSequenceHook(invocationSequenceSensor.getHook());
 						}
-					} else if (null != invocationSequenceHolder.get()) {
+					} else if (null != threadContext.getInvocationSequenceHook()) {
 						// We are executing the following sensor types in an invocation sequence
 						// context, thus we have to execute the before body method of the invocation
 						// sequence hook manually.
-						IConstructorHook invocationHook = (IConstructorHook) invocationSequenceHolder.get();
+						IConstructorHook invocationHook = (IConstructorHook) threadContext.getInvocationSequenceHook();
 
 						// The sensor type ID is not important here, thus we are passing a -1. It is
 						// already stored in the data object
-						invocationHook.beforeConstructor(id, -1, parameters, rsc);
+						beforeConstructor(invocationHook, threadContext, id, -1, parameters, rsc);
 					}
 
 					// Now iterate over all registered sensor types and execute them
 					// reverse execution (sensor with lowest priority first)
 					for (IMethodSensor methodSensor : rsc.getMethodSensorsReverse()) {
 						IConstructorHook constructorHook = (IConstructorHook) methodSensor.getHook();
-						constructorHook.beforeConstructor(id, methodSensor.getSensorTypeConfig().getId(), parameters, rsc);
+						beforeConstructor(constructorHook, threadContext, id, methodSensor.getSensorTypeConfig().getId(), parameters, rsc);
 					}
 				} catch (Throwable throwable) { // NOPMD
 					log.error("An error happened in the Hook Dispatcher! (before constructor)", throwable);
 				}
 			} finally {
-				executionMarker.deactive();
+				threadContext.setExecutionActive(false);
 			}
 		}
 	}
@@ -393,19 +607,22 @@ public class HookDispatcher implements IHookDispatcherMapper, IHookDispatcher {
 	/**
 	 * {@inheritDoc}
 	 */
-	public void dispatchConstructorAfterBody(long id, Object object, Object[] parameters) {
-		if (!executionMarker.isActive()) {
+	public void dispatchConstructorAfterBody(long index, Object object, Object[] parameters) {
+		ThreadContext threadContext = ThreadContext.current();
+		if (!threadContext.isExecutionActive()) {
 			try {
-				executionMarker.active();
+				threadContext.setExecutionActive(true);
 
 				try {
-					RegisteredSensorConfig rsc = mappings.get(id);
+					Mapping mapping = getMapping(index);
+					long id = mapping.id;
+					RegisteredSensorConfig rsc = mapping.rsc;
 
-					if (null != invocationSequenceHolder.get()) {
+					if (null != threadContext.getInvocationSequenceHook()) {
 						// Need to replace the core service with the one from the invocation
 						// sequence so that all data objects can be associated to that invocation
 						// record.
-						ICoreService invocCoreService = (ICoreService) invocationSequenceHolder.get();
+						ICoreService invocCoreService = (ICoreService) threadContext.getInvocationSequenceHook();
 
 						for (IMethodSensor methodSensor : rsc.getMethodSensors()) {
 							IConstructorHook constructorHook = (IConstructorHook) methodSensor.getHook();
@@ -413,123 +630,101 @@ public class HookDispatcher implements IHookDispatcherMapper, IHookDispatcher {
 							// original core service!
 							long sensorId = methodSensor.getSensorTypeConfig().getId();
 							if (invocCoreService == constructorHook) { // NOPMD
-								constructorHook.afterConstructor(coreService, id, sensorId, object, parameters, rsc);
+								afterConstructor(constructorHook, threadContext, coreService, id, sensorId, object, parameters, rsc);
 							} else {
-								constructorHook.afterConstructor(invocCoreService, id, sensorId, object, parameters, rsc);
+								afterConstructor(constructorHook, threadContext, invocCoreService, id, sensorId, object, parameters, rsc);
 							}
 						}
 					} else {
 						for (IMethodSensor methodSensor : rsc.getMethodSensors()) {
 							IConstructorHook constructorHook = (IConstructorHook) methodSensor.getHook();
-							constructorHook.afterConstructor(coreService, id, methodSensor.getSensorTypeConfig().getId(), object, parameters, rsc);
+							afterConstructor(constructorHook, threadContext, coreService, id, methodSensor.getSensorTypeConfig().getId(), object, parameters, rsc);
 						}
 					}
 
 					if (rsc.isStartsInvocation()) {
-						invocationSequenceCount.decrement();
-
-						if (0 == invocationSequenceCount.getCount()) {
-							invocationSequenceHolder.set(null);
+						if (0 == threadContext.decrementInvocationSequenceCount()) {
+							threadContext.setInvocationSequenceHook(null);
 						}
-					} else if (null != invocationSequenceHolder.get()) {
+					} else if (null != threadContext.getInvocationSequenceHook()) {
 						// We have to execute the after body method of the invocation
 						// sequence hook manually.
-						IConstructorHook invocationHook = (IConstructorHook) invocationSequenceHolder.get();
+						IConstructorHook invocationHook = (IConstructorHook) threadContext.getInvocationSequenceHook();
 
 						// The sensor type ID is not important here, thus we are passing
 						// a -1. It is already stored in the data object
-						invocationHook.afterConstructor(coreService, id, -1, object, parameters, rsc);
+						afterConstructor(invocationHook, threadContext, coreService, id, -1, object, parameters, rsc);
 					}
 				} catch (Throwable throwable) { // NOPMD
 					log.error("An error happened in the Hook Dispatcher! (after constructor)", throwable);
 				}
 			} finally {
-				executionMarker.deactive();
+				threadContext.setExecutionActive(false);
 			}
 		}
 	}
 
 	/**
-	 * Private inner class used to track the count of the started invocation sequences in one
-	 * thread. Thus it extends {@link ThreadLocal} to provide a unique number for every Thread.
-	 *
-	 * @author Patrice Bouillet
-	 *
+	 * {@inheritDoc}
 	 */
-	private static class InvocationSequenceCount extends ThreadLocal<Long> {
-
-		/**
-		 * {@inheritDoc}
-		 */
-		@Override
-		protected Long initialValue() {
-			return Long.valueOf(0);
-		}
-
-		/**
-		 * Increments the stored value.
-		 */
-		public void increment() {
-			super.set(Long.valueOf(super.get().longValue() + 1));
-		}
+	public void dispatchMethodBeforeBody(long index) {
+		dispatchMethodBeforeBody(index, null, null);
+	}
 
-		/**
-		 * Decrements the stored value.
-		 */
-		public void decrement() {
-			super.set(Long.valueOf(super.get().longValue() - 1));
-		}
+	/**
+	 * {@inheritDoc}
+	 */
+	public void dispatchFirstMethodAfterBody(long index) {
+		dispatchFirstMethodAfterBody(index, null, null, null);
+	}
 
-		/**
-		 * Returns the current count.
-		 *
-		 * @return The count.
-		 */
-		public long getCount() {
-			return super.get().longValue();
-		}
+	/**
+	 * {@inheritDoc}
+	 */
+	public void dispatchSecondMethodAfterBody(long index) {
+		dispatchSecondMethodAfterBody(index, null, null, null);
+	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	public void dispatchConstructorBeforeBody(long index) {
+		dispatchConstructorBeforeBody(index, null);
 	}
 
 	/**
-	 * ThreadLocal execution marker which is used to mark executions as already in progress to not
-	 * dispatch over and over again.
-	 *
-	 * @author Patrice Bouillet
-	 *
+	 * {@inheritDoc}
 	 */
-	private static class ExecutionMarker extends ThreadLocal<Boolean> {
+	public void dispatchConstructorAfterBody(long index, Object object) {
+		dispatchConstructorAfterBody(index, object, null);
+	}
 
-		/**
-		 * {@inheritDoc}
-		 */
-		@Override
-		protected Boolean initialValue() {
-			return Boolean.FALSE;
-		}
+	/**
+	 * Method id and the {@link RegisteredSensorConfig} mapped to one dispatch index.
+	 */
+	private static final class Mapping {
 
 		/**
-		 * Execution is active.
+		 * Method id.
 		 */
-		public void active() {
-			super.set(Boolean.TRUE);
-		}
+		private final long id;
 
 		/**
-		 * Execution is deactive.
+		 * Registered sensor config of the method.
 		 */
-		public void deactive() {
-			super.set(Boolean.FALSE);
-		}
+		private final RegisteredSensorConfig rsc;
 
 		/**
-		 * Defines if our own execution is active, and thus we have to skip the whole processing
-		 * (because it could happen, that we'll never end then).
+		 * Default constructor.
 		 *
-		 * @return if own execution is active.
+		 * @param id
+		 *            Method id.
+		 * @param rsc
+		 *            Registered sensor config of the method.
 		 */
-		public boolean isActive() {
-			return super.get().booleanValue();
+		Mapping(long id, RegisteredSensorConfig rsc) {
+			this.id = id;
+			this.rsc = rsc;
 		}
 
 	}
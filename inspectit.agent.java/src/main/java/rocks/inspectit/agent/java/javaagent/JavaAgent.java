@@ -34,6 +34,7 @@ import java.util.regex.Pattern;
 import rocks.inspectit.agent.java.Agent;
 import rocks.inspectit.agent.java.IAgent;
 import rocks.inspectit.agent.java.hooking.IHookDispatcher;
+import rocks.inspectit.agent.java.hooking.InlinedTimer;
 
 /**
  * The JavaAgent is used since Java 5.0 to instrument classes before they are actually loaded by the
@@ -342,6 +343,9 @@ public class JavaAgent implements ClassFileTransformer {
 			// available in the standard classloader.
 			ignoreClasses.add(IHookDispatcher.class.getCanonicalName());
 
+			// ignore inlined timer because it is called directly from the instrumented methods
+			ignoreClasses.add(InlinedTimer.class.getCanonicalName());
+
 			// ignore the following classes because they are used in the JavaAgent class
 			ignoreClasses.add(JavaAgent.class.getCanonicalName());
 			ignoreClasses.add(InspectItClassLoader.class.getCanonicalName());
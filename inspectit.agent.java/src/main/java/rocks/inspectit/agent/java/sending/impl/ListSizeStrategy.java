@@ -1,11 +1,9 @@
 package rocks.inspectit.agent.java.sending.impl;
 
-import java.util.List;
 import java.util.Map;
 
 import rocks.inspectit.agent.java.core.ListListener;
 import rocks.inspectit.agent.java.sending.AbstractSendingStrategy;
-import rocks.inspectit.shared.all.communication.DefaultData;
 
 /**
  * A simple implementation which checks the size of the list of the current value objects. If the
@@ -14,7 +12,7 @@ import rocks.inspectit.shared.all.communication.DefaultData;
  * @author Patrice Bouillet
  *
  */
-public class ListSizeStrategy extends AbstractSendingStrategy implements ListListener<List<DefaultData>> {
+public class ListSizeStrategy extends AbstractSendingStrategy implements ListListener {
 
 	/**
 	 * Default size.
@@ -45,8 +43,8 @@ public class ListSizeStrategy extends AbstractSendingStrategy implements ListLis
 	/**
 	 * {@inheritDoc}
 	 */
-	public void contentChanged(List<List<DefaultData>> list) {
-		if (list.size() > size) {
+	public void contentChanged(int elementCount, long approximateSize) {
+		if (elementCount > size) {
 			sendNow();
 		}
 	}
@@ -0,0 +1,75 @@
+package rocks.inspectit.agent.java.sending.impl;
+
+import java.util.Map;
+
+import rocks.inspectit.agent.java.core.ListListener;
+import rocks.inspectit.agent.java.sending.AbstractSendingStrategy;
+
+/**
+ * Strategy that checks both the number of current value objects and their approximate size in
+ * bytes. If any of the two defined thresholds is exceeded, {@link #sendNow()} is called. Both values
+ * are maintained incrementally by the core service, thus checking is constant in time.
+ * <p>
+ * Supported settings are <code>size</code> for the number of elements and <code>bytes</code> for
+ * the approximate size. Non-positive values deactivate the corresponding threshold.
+ */
+public class SizeAndBytesStrategy extends AbstractSendingStrategy implements ListListener {
+
+	/**
+	 * Default size.
+	 */
+	private static final long DEFAULT_SIZE = 1000L;
+
+	/**
+	 * Default bytes (1 MB).
+	 */
+	private static final long DEFAULT_BYTES = 1048576L;
+
+	/**
+	 * The size threshold.
+	 */
+	private long size = DEFAULT_SIZE;
+
+	/**
+	 * The bytes threshold.
+	 */
+	private long bytes = DEFAULT_BYTES;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void startStrategy() {
+		getCoreService().addListListener(this);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void stop() {
+		getCoreService().removeListListener(this);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void contentChanged(int elementCount, long approximateSize) {
+		if (((size > 0) && (elementCount > size)) || ((bytes > 0) && (approximateSize > bytes))) {
+			sendNow();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void init(Map<String, String> settings) {
+		if (settings.containsKey("size")) {
+			this.size = Long.parseLong(settings.get("size"));
+		}
+		if (settings.containsKey("bytes")) {
+			this.bytes = Long.parseLong(settings.get("bytes"));
+		}
+	}
+
+}
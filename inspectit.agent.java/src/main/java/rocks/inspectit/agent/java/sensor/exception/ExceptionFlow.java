@@ -0,0 +1,143 @@
+package rocks.inspectit.agent.java.sensor.exception;
+
+import java.sql.Timestamp;
+
+import rocks.inspectit.shared.all.communication.data.ExceptionSensorData;
+
+/**
+ * Per-thread state of the exception flow tracked by the {@link ExceptionSensorHook}. One instance
+ * is kept per thread and reused for all exceptions, thus all state is kept in primitive fields and
+ * no objects are created for tracking a new exception.
+ */
+class ExceptionFlow {
+
+	/**
+	 * If any exception was tracked in the thread.
+	 */
+	private boolean active;
+
+	/**
+	 * The identity hashcode of the currently tracked {@link Throwable} object.
+	 */
+	private long identityHash;
+
+	/**
+	 * The last {@link ExceptionSensorData} of the tracked {@link Throwable} object or
+	 * <code>null</code> if the object is not recorded because of the rate limiting.
+	 */
+	private ExceptionSensorData exceptionSensorData;
+
+	/**
+	 * If the id of the method where the exception was handled is set.
+	 */
+	private boolean handlerSet;
+
+	/**
+	 * The id of the method where the exception was handled.
+	 */
+	private long handlerId;
+
+	/**
+	 * Last created timestamp.
+	 */
+	private Timestamp timestamp;
+
+	/**
+	 * Starts tracking of the new {@link Throwable} object.
+	 *
+	 * @param identityHash
+	 *            The identity hashcode of the {@link Throwable} object.
+	 * @param exceptionSensorData
+	 *            The {@link ExceptionSensorData} of the object or <code>null</code> if the object is
+	 *            not recorded.
+	 */
+	void start(long identityHash, ExceptionSensorData exceptionSensorData) {
+		this.active = true;
+		this.identityHash = identityHash;
+		this.exceptionSensorData = exceptionSensorData;
+	}
+
+	/**
+	 * Links the new data object as the child of the current one and makes it current.
+	 *
+	 * @param data
+	 *            The {@link ExceptionSensorData} of the next event of the tracked object.
+	 */
+	void next(ExceptionSensorData data) {
+		exceptionSensorData.setChild(data);
+		exceptionSensorData = data;
+	}
+
+	/**
+	 * Returns if any exception was tracked in the thread.
+	 *
+	 * @return If any exception was tracked in the thread.
+	 */
+	boolean isActive() {
+		return active;
+	}
+
+	/**
+	 * Returns if the given object is the currently tracked one.
+	 *
+	 * @param hash
+	 *            The identity hashcode of the {@link Throwable} object.
+	 * @return If the given object is the currently tracked one.
+	 */
+	boolean isTracked(long hash) {
+		return active && (identityHash == hash);
+	}
+
+	/**
+	 * Returns if the currently tracked object is not recorded because of the rate limiting.
+	 *
+	 * @return If the currently tracked object is not recorded.
+	 */
+	boolean isSuppressed() {
+		return null == exceptionSensorData;
+	}
+
+	/**
+	 * Sets the id of the method where the exception was handled.
+	 *
+	 * @param id
+	 *            Method id.
+	 */
+	void setHandlerId(long id) {
+		handlerSet = true;
+		handlerId = id;
+	}
+
+	/**
+	 * Resets the id of the method where the exception was handled.
+	 */
+	void resetHandlerId() {
+		handlerSet = false;
+	}
+
+	/**
+	 * Returns if the exception was handled in the given method.
+	 *
+	 * @param id
+	 *            Method id.
+	 * @return If the exception was handled in the given method.
+	 */
+	boolean isHandledIn(long id) {
+		return handlerSet && (handlerId == id);
+	}
+
+	/**
+	 * Returns the timestamp for the current time. The timestamp is reused as long as the time in
+	 * milliseconds does not change.
+	 *
+	 * @return Timestamp.
+	 */
+	Timestamp getTimestamp() {
+		long now = System.currentTimeMillis();
+		if ((null == timestamp) || (timestamp.getTime() != now)) {
+			timestamp = new Timestamp(now);
+		}
+		return timestamp;
+	}
+
+}
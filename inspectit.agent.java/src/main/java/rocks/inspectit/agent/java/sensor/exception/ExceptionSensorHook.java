@@ -1,10 +1,8 @@
 package rocks.inspectit.agent.java.sensor.exception;
 
-import java.io.PrintWriter;
-import java.io.StringWriter;
-import java.io.Writer;
-import java.sql.Timestamp;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,6 +18,12 @@ import rocks.inspectit.shared.all.communication.data.ExceptionSensorData;
 /**
  * This class adds additional code to a constructor of type {@link Throwable}, to the
  * <code>throw</code> statement and to the <code>catch</code> block catching type {@link Throwable}.
+ * <p>
+ * The flow of the exception is tracked in the reused per-thread {@link ExceptionFlow}. The stack
+ * trace is captured only for the recorded exceptions and formatted by the
+ * {@link StackTraceFormatter} that reuses the already formatted frames. If the maximum amount of
+ * exceptions per second is defined, exceptions of one type exceeding the limit are not recorded at
+ * all, so that exception storms do not overload the application.
  *
  * @author Eduard Tudenhoefner
  * @see IExceptionSensorHook
@@ -38,19 +42,35 @@ public class ExceptionSensorHook implements IExceptionSensorHook {
 	private final IPlatformManager platformManager;
 
 	/**
-	 * The thread local containing the {@link IdentityHashToDataObject} object.
+	 * The thread local containing the {@link ExceptionFlow} object.
 	 */
-	private final ThreadLocal<IdentityHashToDataObject> exceptionDataHolder = new ThreadLocal<IdentityHashToDataObject>();
+	private final ThreadLocal<ExceptionFlow> exceptionFlow = new ThreadLocal<ExceptionFlow>() {
+		@Override
+		protected ExceptionFlow initialValue() {
+			return new ExceptionFlow();
+		}
+	};
 
 	/**
-	 * The thread local containing the id of the method where the exception was handled.
+	 * The StringConstraint to ensure a maximum length of strings.
 	 */
-	private final ThreadLocal<Long> exceptionHandlerId = new ThreadLocal<Long>();
+	private final StringConstraint strConstraint;
 
 	/**
-	 * The StringConstraint to ensure a maximum length of strings.
+	 * Formatter of the stack traces.
 	 */
-	private final StringConstraint strConstraint;
+	private final StackTraceFormatter stackTraceFormatter = new StackTraceFormatter();
+
+	/**
+	 * Maximum amount of the recorded exceptions of one type per second. Zero means unlimited.
+	 */
+	private final int maxExceptionsPerSecond;
+
+	/**
+	 * Rate windows by the fully qualified name of the exception type. Keyed by name so that the
+	 * exception classes and thus the class loaders of redeployed applications are not referenced.
+	 */
+	private final ConcurrentHashMap<String, RateWindow> rateWindows = new ConcurrentHashMap<String, RateWindow>();
 
 	/**
 	 * The default constructor which needs one parameter for initialization.
@@ -63,6 +83,7 @@ public class ExceptionSensorHook implements IExceptionSensorHook {
 	public ExceptionSensorHook(IPlatformManager platformManager, Map<String, Object> parameter) {
 		this.platformManager = platformManager;
 		this.strConstraint = new StringConstraint(parameter);
+		this.maxExceptionsPerSecond = getMaxExceptionsPerSecond(parameter);
 	}
 
 	/**
@@ -81,31 +102,38 @@ public class ExceptionSensorHook implements IExceptionSensorHook {
 		String throwableClass = object.getClass().getName();
 		String rscTragetClassname = rsc.getTargetClassFqn();
 		if (throwableClass.equals(rscTragetClassname)) {
-			try {
-				long platformId = platformManager.getPlatformId();
-				Timestamp timestamp = new Timestamp(System.currentTimeMillis());
-				Long identityHash = Long.valueOf(System.identityHashCode(object));
+			ExceptionFlow flow = exceptionFlow.get();
+			long identityHash = System.identityHashCode(object);
+
+			// need to reset the exception handler id
+			flow.resetHandlerId();
 
-				// need to reset the exception handler id
-				exceptionHandlerId.set(null);
+			// getting the actual object with information
+			Throwable throwable = (Throwable) object;
+
+			if (!isRecordingAllowed(throwable)) {
+				// track the object, but do not record any event of it
+				flow.start(identityHash, null);
+				return;
+			}
 
-				// getting the actual object with information
-				Throwable throwable = (Throwable) object;
+			try {
+				long platformId = platformManager.getPlatformId();
 
 				// creating the data object
-				ExceptionSensorData data = new ExceptionSensorData(timestamp, platformId, sensorTypeId, methodId);
-				data.setThrowableIdentityHashCode(identityHash.longValue());
+				ExceptionSensorData data = new ExceptionSensorData(flow.getTimestamp(), platformId, sensorTypeId, methodId);
+				data.setThrowableIdentityHashCode(identityHash);
 				data.setExceptionEvent(ExceptionEvent.CREATED);
-				data.setThrowableType(throwable.getClass().getName());
+				data.setThrowableType(throwableClass);
 
 				// set the static information of the current object
 				setStaticInformation(data, throwable);
 
-				// creating the mapping object and setting it on the thread local
-				exceptionDataHolder.set(new IdentityHashToDataObject(identityHash, data));
+				// start tracking the object
+				flow.start(identityHash, data);
 
 				// adding the data object to the core service
-				coreService.addExceptionSensorData(sensorTypeId, data.getThrowableIdentityHashCode(), data);
+				coreService.addExceptionSensorData(sensorTypeId, identityHash, data);
 			} catch (IdNotAvailableException e) {
 				if (LOG.isDebugEnabled()) {
 					LOG.debug("Could not start exception sequence because of a (currently) not mapped ID");
@@ -118,28 +146,35 @@ public class ExceptionSensorHook implements IExceptionSensorHook {
 	 * {@inheritDoc}
 	 */
 	public void dispatchOnThrowInBody(ICoreService coreService, long id, long sensorTypeId, Object object, Object exceptionObject, Object[] parameters, RegisteredSensorConfig rsc) {
-		// get the mapping object
-		IdentityHashToDataObject mappingObject = exceptionDataHolder.get();
+		ExceptionFlow flow = exceptionFlow.get();
+
+		if (flow.isActive()) {
+			long identityHash = System.identityHashCode(exceptionObject);
+			boolean tracked = flow.isTracked(identityHash);
+			if (tracked && flow.isSuppressed()) {
+				return;
+			}
+
+			// getting the actual object with information
+			Throwable throwable = (Throwable) exceptionObject;
+			if (!tracked && !isRecordingAllowed(throwable)) {
+				flow.start(identityHash, null);
+				return;
+			}
 
-		if (null != mappingObject) {
 			try {
 				long platformId = platformManager.getPlatformId();
-				Timestamp timestamp = new Timestamp(System.currentTimeMillis());
-				Long identityHash = Long.valueOf(System.identityHashCode(exceptionObject));
-
-				// getting the actual object with information
-				Throwable throwable = (Throwable) exceptionObject;
 
 				// creating the data object
-				ExceptionSensorData data = new ExceptionSensorData(timestamp, platformId, sensorTypeId, id);
-				data.setThrowableIdentityHashCode(identityHash.longValue());
+				ExceptionSensorData data = new ExceptionSensorData(flow.getTimestamp(), platformId, sensorTypeId, id);
+				data.setThrowableIdentityHashCode(identityHash);
 				data.setThrowableType(throwable.getClass().getName());
 
 				// check whether it's the same Throwable object as before
-				if (mappingObject.getIdentityHash().equals(identityHash)) {
+				if (tracked) {
 					// we have to check whether the Throwable object is just passed or explicitly
 					// rethrown
-					if ((null != exceptionHandlerId.get()) && (id == exceptionHandlerId.get().longValue())) {
+					if (flow.isHandledIn(id)) {
 						// the Throwable object is explicitly rethrown
 						data.setExceptionEvent(ExceptionEvent.RETHROWN);
 					} else {
@@ -149,23 +184,18 @@ public class ExceptionSensorHook implements IExceptionSensorHook {
 					}
 
 					// current object is the child of the previous object
-					ExceptionSensorData parent = mappingObject.getExceptionSensorData();
-					parent.setChild(data);
-
-					// we are just exchanging the data object and setting it on the mapping object
-					mappingObject.setExceptionSensorData(data);
-					exceptionDataHolder.set(mappingObject);
+					flow.next(data);
 				} else {
 					// it's a new Throwable object, that we didn't recognize earlier
 					data.setExceptionEvent(ExceptionEvent.UNREGISTERED_PASSED);
 					setStaticInformation(data, throwable);
 
-					// we are creating a new mapping object and setting it on the thread local
-					exceptionDataHolder.set(new IdentityHashToDataObject(identityHash, data));
+					// start tracking the new object
+					flow.start(identityHash, data);
 				}
 
 				// adding the data object to the core service
-				coreService.addExceptionSensorData(sensorTypeId, data.getThrowableIdentityHashCode(), data);
+				coreService.addExceptionSensorData(sensorTypeId, identityHash, data);
 			} catch (IdNotAvailableException e) {
 				if (LOG.isDebugEnabled()) {
 					LOG.debug("Could not start exception sequence because of a (currently) not mapped ID");
@@ -178,47 +208,50 @@ public class ExceptionSensorHook implements IExceptionSensorHook {
 	 * {@inheritDoc}
 	 */
 	public void dispatchBeforeCatchBody(ICoreService coreService, long id, long sensorTypeId, Object exceptionObject, RegisteredSensorConfig rsc) {
-		// get the mapping object
-		IdentityHashToDataObject mappingObject = exceptionDataHolder.get();
+		ExceptionFlow flow = exceptionFlow.get();
 
-		if (null != mappingObject) {
-			try {
-				long platformId = platformManager.getPlatformId();
-				Timestamp timestamp = new Timestamp(System.currentTimeMillis());
-				Long identityHash = Long.valueOf(System.identityHashCode(exceptionObject));
+		if (flow.isActive()) {
+			long identityHash = System.identityHashCode(exceptionObject);
+
+			// save id of the method where the exception is catched
+			flow.setHandlerId(id);
 
-				// save id of the method where the exception is catched
-				exceptionHandlerId.set(Long.valueOf(id));
+			boolean tracked = flow.isTracked(identityHash);
+			if (tracked && flow.isSuppressed()) {
+				return;
+			}
 
-				// getting the actual object with information
-				Throwable throwable = (Throwable) exceptionObject;
+			// getting the actual object with information
+			Throwable throwable = (Throwable) exceptionObject;
+			if (!tracked && !isRecordingAllowed(throwable)) {
+				flow.start(identityHash, null);
+				return;
+			}
+
+			try {
+				long platformId = platformManager.getPlatformId();
 
 				// creating the data object
-				ExceptionSensorData data = new ExceptionSensorData(timestamp, platformId, sensorTypeId, id);
-				data.setThrowableIdentityHashCode(identityHash.longValue());
+				ExceptionSensorData data = new ExceptionSensorData(flow.getTimestamp(), platformId, sensorTypeId, id);
+				data.setThrowableIdentityHashCode(identityHash);
 				data.setThrowableType(throwable.getClass().getName());
 				data.setExceptionEvent(ExceptionEvent.HANDLED);
 
 				// check whether it's the same Throwable object as before
-				if (mappingObject.getIdentityHash().equals(identityHash)) {
+				if (tracked) {
 					// current object is the child of the previous object
-					ExceptionSensorData parent = mappingObject.getExceptionSensorData();
-					parent.setChild(data);
-
-					// we are just exchanging the data object and setting it on the mapping object
-					mappingObject.setExceptionSensorData(data);
-					exceptionDataHolder.set(mappingObject);
+					flow.next(data);
 				} else {
 					// it's a Throwable object, that we didn't recognize earlier
 					data.setExceptionEvent(ExceptionEvent.UNREGISTERED_PASSED);
 					setStaticInformation(data, throwable);
 
-					// we are creating a new mapping object and setting it on the thread local
-					exceptionDataHolder.set(new IdentityHashToDataObject(identityHash, data));
+					// start tracking the new object
+					flow.start(identityHash, data);
 				}
 
 				// adding the data object to the core service
-				coreService.addExceptionSensorData(sensorTypeId, data.getThrowableIdentityHashCode(), data);
+				coreService.addExceptionSensorData(sensorTypeId, identityHash, data);
 			} catch (IdNotAvailableException e) {
 				if (LOG.isDebugEnabled()) {
 					LOG.debug("Could not start exception sequence because of a (currently) not mapped ID");
@@ -227,6 +260,54 @@ public class ExceptionSensorHook implements IExceptionSensorHook {
 		}
 	}
 
+	/**
+	 * Returns if the exception can be recorded with respect to the
+	 * {@link #maxExceptionsPerSecond}.
+	 *
+	 * @param throwable
+	 *            The {@link Throwable} object to record.
+	 * @return <code>true</code> if the exception can be recorded.
+	 */
+	private boolean isRecordingAllowed(Throwable throwable) {
+		if (maxExceptionsPerSecond <= 0) {
+			return true;
+		}
+
+		String type = throwable.getClass().getName();
+		RateWindow rateWindow = rateWindows.get(type);
+		if (null == rateWindow) {
+			rateWindow = new RateWindow();
+			RateWindow existing = rateWindows.putIfAbsent(type, rateWindow);
+			if (null != existing) {
+				rateWindow = existing;
+			}
+		}
+		return rateWindow.tryAcquire(System.currentTimeMillis() / 1000L, maxExceptionsPerSecond);
+	}
+
+	/**
+	 * Reads the maximum amount of exceptions per second from the parameters.
+	 *
+	 * @param parameter
+	 *            Additional parameters.
+	 * @return Maximum amount of exceptions per second or zero if not defined.
+	 */
+	private static int getMaxExceptionsPerSecond(Map<String, Object> parameter) {
+		if (null == parameter) {
+			return 0;
+		}
+		Object value = parameter.get("maxExceptionsPerSecond");
+		if (null == value) {
+			return 0;
+		}
+		try {
+			return Integer.parseInt(value.toString());
+		} catch (NumberFormatException e) {
+			LOG.warn("Invalid value for the maximum amount of exceptions per second: " + value);
+			return 0;
+		}
+	}
+
 	/**
 	 * Gets static information (class name, stackTrace, cause) from the {@link Throwable} object and
 	 * sets them on the passed data object.
@@ -264,7 +345,7 @@ public class ExceptionSensorHook implements IExceptionSensorHook {
 		}
 
 		try {
-			exceptionSensorData.setStackTrace(strConstraint.crop(stackTraceToString(throwable)));
+			exceptionSensorData.setStackTrace(strConstraint.crop(stackTraceFormatter.format(throwable)));
 		} catch (Exception e) {
 			if (LOG.isDebugEnabled()) {
 				LOG.debug("It was not possible to retrieve the stack trace from " + throwable.getClass().getName(), e);
@@ -273,16 +354,41 @@ public class ExceptionSensorHook implements IExceptionSensorHook {
 	}
 
 	/**
-	 * Gets the stack trace from the {@link Throwable} object and returns it as a string.
-	 *
-	 * @param throwable
-	 *            The {@link Throwable} object where to get the stack trace from.
-	 * @return A string representation of a stack trace.
+	 * Counts the recorded exceptions of one type in the current second.
 	 */
-	private String stackTraceToString(Throwable throwable) {
-		Writer result = new StringWriter();
-		PrintWriter writer = new PrintWriter(result);
-		throwable.printStackTrace(writer);
-		return result.toString();
+	private static final class RateWindow {
+
+		/**
+		 * The second the count belongs to.
+		 */
+		private volatile long second;
+
+		/**
+		 * Amount of exceptions recorded in the second.
+		 */
+		private final AtomicInteger count = new AtomicInteger();
+
+		/**
+		 * Tries to record one more exception.
+		 *
+		 * @param currentSecond
+		 *            Current time in seconds.
+		 * @param max
+		 *            Maximum amount of exceptions per second.
+		 * @return <code>true</code> if the exception can be recorded.
+		 */
+		boolean tryAcquire(long currentSecond, int max) {
+			if (second != currentSecond) {
+				synchronized (this) {
+					if (second != currentSecond) {
+						count.set(0);
+						second = currentSecond;
+					}
+				}
+			}
+			return count.incrementAndGet() <= max;
+		}
+
 	}
+
 }
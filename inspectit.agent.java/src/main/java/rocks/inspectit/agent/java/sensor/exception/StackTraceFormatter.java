@@ -0,0 +1,177 @@
+package rocks.inspectit.agent.java.sensor.exception;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Formats the stack trace of a {@link Throwable} in the same way as
+ * {@link Throwable#printStackTrace()} does. The formatted frames are cached by the frames, so that
+ * exceptions thrown from the same place are formatted only once and only the description lines of
+ * the throwable and its causes are created for every exception.
+ */
+class StackTraceFormatter {
+
+	/**
+	 * Maximum amount of the cached frame blocks. When reached, new frame blocks are formatted
+	 * without caching.
+	 */
+	private static final int MAX_CACHED_FRAMES = 1000;
+
+	/**
+	 * Line separator.
+	 */
+	private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+	/**
+	 * Cached formatted frames.
+	 */
+	private final Map<Frames, String> framesCache = new ConcurrentHashMap<Frames, String>();
+
+	/**
+	 * Formats the stack trace of the given throwable.
+	 *
+	 * @param throwable
+	 *            Throwable.
+	 * @return Stack trace as string.
+	 */
+	public String format(Throwable throwable) {
+		StringBuilder stringBuilder = new StringBuilder();
+		StackTraceElement[] trace = throwable.getStackTrace();
+		stringBuilder.append(throwable).append(LINE_SEPARATOR);
+		stringBuilder.append(getFrames(trace, 0));
+
+		// guard against cause cycles
+		Map<Throwable, Boolean> seen = null;
+		Throwable cause = throwable.getCause();
+		while ((null != cause) && (cause != throwable)) {
+			if (null == seen) {
+				seen = new IdentityHashMap<Throwable, Boolean>();
+				seen.put(throwable, Boolean.TRUE);
+			}
+			if (null != seen.put(cause, Boolean.TRUE)) {
+				break;
+			}
+
+			StackTraceElement[] causeTrace = cause.getStackTrace();
+			int inCommon = framesInCommon(causeTrace, trace);
+			stringBuilder.append("Caused by: ").append(cause).append(LINE_SEPARATOR);
+			stringBuilder.append(getFrames(causeTrace, inCommon));
+
+			trace = causeTrace;
+			cause = cause.getCause();
+		}
+		return stringBuilder.toString();
+	}
+
+	/**
+	 * Returns the formatted frames, from the cache if possible.
+	 *
+	 * @param trace
+	 *            Stack trace elements.
+	 * @param inCommon
+	 *            Amount of the frames at the end that are in common with the enclosing trace and
+	 *            thus not printed.
+	 * @return Formatted frames.
+	 */
+	private String getFrames(StackTraceElement[] trace, int inCommon) {
+		Frames frames = new Frames(trace, inCommon);
+		String formatted = framesCache.get(frames);
+		if (null == formatted) {
+			StringBuilder stringBuilder = new StringBuilder();
+			int count = trace.length - inCommon;
+			for (int i = 0; i < count; i++) {
+				stringBuilder.append("\tat ").append(trace[i]).append(LINE_SEPARATOR);
+			}
+			if (0 != inCommon) {
+				stringBuilder.append("\t... ").append(inCommon).append(" more").append(LINE_SEPARATOR);
+			}
+			formatted = stringBuilder.toString();
+			if (framesCache.size() < MAX_CACHED_FRAMES) {
+				framesCache.put(frames, formatted);
+			}
+		}
+		return formatted;
+	}
+
+	/**
+	 * Computes the amount of the frames at the end of the trace that are same as in the enclosing
+	 * trace.
+	 *
+	 * @param trace
+	 *            Stack trace elements.
+	 * @param enclosingTrace
+	 *            Enclosing stack trace elements.
+	 * @return Amount of the frames in common.
+	 */
+	private int framesInCommon(StackTraceElement[] trace, StackTraceElement[] enclosingTrace) {
+		int m = trace.length - 1;
+		int n = enclosingTrace.length - 1;
+		while ((m >= 0) && (n >= 0) && trace[m].equals(enclosingTrace[n])) {
+			m--;
+			n--;
+		}
+		return trace.length - 1 - m;
+	}
+
+	/**
+	 * Key of the cached frames.
+	 */
+	private static final class Frames {
+
+		/**
+		 * Stack trace elements.
+		 */
+		private final StackTraceElement[] trace;
+
+		/**
+		 * Amount of the frames in common with the enclosing trace.
+		 */
+		private final int inCommon;
+
+		/**
+		 * Hash code computed in advance.
+		 */
+		private final int hash;
+
+		/**
+		 * Default constructor.
+		 *
+		 * @param trace
+		 *            Stack trace elements.
+		 * @param inCommon
+		 *            Amount of the frames in common with the enclosing trace.
+		 */
+		Frames(StackTraceElement[] trace, int inCommon) {
+			this.trace = trace;
+			this.inCommon = inCommon;
+			this.hash = (31 * Arrays.hashCode(trace)) + inCommon;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Frames)) {
+				return false;
+			}
+			Frames other = (Frames) obj;
+			return (hash == other.hash) && (inCommon == other.inCommon) && Arrays.equals(trace, other.trace);
+		}
+
+	}
+
+}
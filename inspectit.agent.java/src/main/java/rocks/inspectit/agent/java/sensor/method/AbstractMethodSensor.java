@@ -6,6 +6,8 @@ import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import rocks.inspectit.agent.java.config.IConfigurationStorage;
+import rocks.inspectit.agent.java.hooking.IHook;
+import rocks.inspectit.agent.java.hooking.IThreadContextMethodHook;
 import rocks.inspectit.shared.all.instrumentation.config.impl.AbstractSensorTypeConfig;
 import rocks.inspectit.shared.all.instrumentation.config.impl.MethodSensorTypeConfig;
 
@@ -43,7 +45,13 @@ public abstract class AbstractMethodSensor implements IMethodSensor, Initializin
 	public void init(MethodSensorTypeConfig sensorTypeConfig) {
 		this.sensorTypeConfig = sensorTypeConfig;
 
+		IHook replacedHook = getHook();
 		initHook(sensorTypeConfig.getParameters());
+
+		// the replaced hook is not executed anymore, so its thread context slot can be reused
+		if (replacedHook instanceof IThreadContextMethodHook) {
+			((IThreadContextMethodHook) replacedHook).release();
+		}
 	}
 
 	/**
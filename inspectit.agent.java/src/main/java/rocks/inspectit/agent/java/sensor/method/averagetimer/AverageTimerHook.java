@@ -13,24 +13,25 @@ import rocks.inspectit.agent.java.core.ICoreService;
 import rocks.inspectit.agent.java.core.IPlatformManager;
 import rocks.inspectit.agent.java.core.IdNotAvailableException;
 import rocks.inspectit.agent.java.core.impl.CoreService;
-import rocks.inspectit.agent.java.hooking.IConstructorHook;
-import rocks.inspectit.agent.java.hooking.IMethodHook;
+import rocks.inspectit.agent.java.hooking.IThreadContextConstructorHook;
+import rocks.inspectit.agent.java.hooking.IThreadContextMethodHook;
 import rocks.inspectit.agent.java.util.StringConstraint;
-import rocks.inspectit.agent.java.util.ThreadLocalStack;
+import rocks.inspectit.agent.java.util.ThreadContext;
 import rocks.inspectit.agent.java.util.Timer;
+import rocks.inspectit.agent.java.util.TimingStack;
 import rocks.inspectit.shared.all.communication.data.ParameterContentData;
 import rocks.inspectit.shared.all.communication.data.TimerData;
 
 /**
- * The hook implementation for the average timer sensor. It uses the {@link ThreadLocalStack} class
- * to save the time when the method was called. After the complete original method was executed, it
- * computes the how long the method took to finish. Afterwards, the measurement is added to the
- * {@link CoreService}.
+ * The hook implementation for the average timer sensor. It uses the {@link TimingStack} of the
+ * {@link ThreadContext} to save the time when the method was called. After the complete original
+ * method was executed, it computes the how long the method took to finish. Afterwards, the
+ * measurement is added to the {@link CoreService}.
  *
  * @author Patrice Bouillet
  *
  */
-public class AverageTimerHook implements IMethodHook, IConstructorHook {
+public class AverageTimerHook implements IThreadContextMethodHook, IThreadContextConstructorHook {
 
 	/**
 	 * The logger of this class. Initialized manually.
@@ -38,9 +39,9 @@ public class AverageTimerHook implements IMethodHook, IConstructorHook {
 	private static final Logger LOG = LoggerFactory.getLogger(AverageTimerHook.class);
 
 	/**
-	 * The stack containing the start time values.
+	 * Slot of this hook in the {@link ThreadContext} holding the start and end time values.
 	 */
-	private final ThreadLocalStack<Double> timeStack = new ThreadLocalStack<Double>();
+	private final int timingSlot = ThreadContext.allocateSlot();
 
 	/**
 	 * The timer used for accurate measuring.
@@ -81,26 +82,56 @@ public class AverageTimerHook implements IMethodHook, IConstructorHook {
 		this.strConstraint = new StringConstraint(param);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	public void release() {
+		ThreadContext.releaseSlot(timingSlot);
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
 	public void beforeBody(long methodId, long sensorTypeId, Object object, Object[] parameters, RegisteredSensorConfig rsc) {
-		timeStack.push(new Double(timer.getCurrentTime()));
+		beforeBody(ThreadContext.current(), methodId, sensorTypeId, object, parameters, rsc);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void beforeBody(ThreadContext threadContext, long methodId, long sensorTypeId, Object object, Object[] parameters, RegisteredSensorConfig rsc) {
+		threadContext.getTimingStack(timingSlot).pushTime(timer.getCurrentTime());
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	public void firstAfterBody(long methodId, long sensorTypeId, Object object, Object[] parameters, Object result, RegisteredSensorConfig rsc) {
-		timeStack.push(new Double(timer.getCurrentTime()));
+		firstAfterBody(ThreadContext.current(), methodId, sensorTypeId, object, parameters, result, rsc);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void firstAfterBody(ThreadContext threadContext, long methodId, long sensorTypeId, Object object, Object[] parameters, Object result, RegisteredSensorConfig rsc) {
+		threadContext.getTimingStack(timingSlot).pushTime(timer.getCurrentTime());
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	public void secondAfterBody(ICoreService coreService, long methodId, long sensorTypeId, Object object, Object[] parameters, Object result, RegisteredSensorConfig rsc) {
-		double endTime = timeStack.pop().doubleValue();
-		double startTime = timeStack.pop().doubleValue();
+		secondAfterBody(ThreadContext.current(), coreService, methodId, sensorTypeId, object, parameters, result, rsc);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void secondAfterBody(ThreadContext threadContext, ICoreService coreService, long methodId, long sensorTypeId, Object object, Object[] parameters, Object result,
+			RegisteredSensorConfig rsc) {
+		TimingStack timingStack = threadContext.getTimingStack(timingSlot);
+		double endTime = timingStack.popTime();
+		double startTime = timingStack.popTime();
 		double duration = endTime - startTime;
 
 		List<ParameterContentData> parameterContentData = null;
@@ -116,33 +147,38 @@ public class AverageTimerHook implements IMethodHook, IConstructorHook {
 			}
 		}
 
-		TimerData timerData = (TimerData) coreService.getMethodSensorData(sensorTypeId, methodId, prefix);
+		Object update = coreService.beginUpdate();
+		try {
+			TimerData timerData = (TimerData) coreService.getMethodSensorData(sensorTypeId, methodId, prefix);
+
+			if (null == timerData) {
+				try {
+					long platformId = platformManager.getPlatformId();
 
-		if (null == timerData) {
-			try {
-				long platformId = platformManager.getPlatformId();
+					Timestamp timestamp = new Timestamp(System.currentTimeMillis() - Math.round(duration));
 
-				Timestamp timestamp = new Timestamp(System.currentTimeMillis() - Math.round(duration));
+					timerData = new TimerData(timestamp, platformId, sensorTypeId, methodId, parameterContentData);
+					timerData.increaseCount();
+					timerData.addDuration(duration);
+					timerData.calculateMin(duration);
+					timerData.calculateMax(duration);
 
-				timerData = new TimerData(timestamp, platformId, sensorTypeId, methodId, parameterContentData);
+					coreService.addMethodSensorData(sensorTypeId, methodId, prefix, timerData);
+				} catch (IdNotAvailableException e) {
+					if (LOG.isDebugEnabled()) {
+						LOG.debug("Could not save the average timer data because of an unavailable id. " + e.getMessage());
+					}
+				}
+			} else {
 				timerData.increaseCount();
 				timerData.addDuration(duration);
+
 				timerData.calculateMin(duration);
 				timerData.calculateMax(duration);
 
-				coreService.addMethodSensorData(sensorTypeId, methodId, prefix, timerData);
-			} catch (IdNotAvailableException e) {
-				if (LOG.isDebugEnabled()) {
-					LOG.debug("Could not save the average timer data because of an unavailable id. " + e.getMessage());
-				}
 			}
-		} else {
-			timerData.increaseCount();
-			timerData.addDuration(duration);
-
-			timerData.calculateMin(duration);
-			timerData.calculateMax(duration);
-
+		} finally {
+			coreService.endUpdate(update);
 		}
 	}
 
@@ -150,15 +186,29 @@ public class AverageTimerHook implements IMethodHook, IConstructorHook {
 	 * {@inheritDoc}
 	 */
 	public void beforeConstructor(long methodId, long sensorTypeId, Object[] parameters, RegisteredSensorConfig rsc) {
-		timeStack.push(new Double(timer.getCurrentTime()));
+		beforeConstructor(ThreadContext.current(), methodId, sensorTypeId, parameters, rsc);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void beforeConstructor(ThreadContext threadContext, long methodId, long sensorTypeId, Object[] parameters, RegisteredSensorConfig rsc) {
+		threadContext.getTimingStack(timingSlot).pushTime(timer.getCurrentTime());
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	public void afterConstructor(ICoreService coreService, long methodId, long sensorTypeId, Object object, Object[] parameters, RegisteredSensorConfig rsc) {
-		timeStack.push(new Double(timer.getCurrentTime()));
-		secondAfterBody(coreService, methodId, sensorTypeId, object, parameters, null, rsc);
+		afterConstructor(ThreadContext.current(), coreService, methodId, sensorTypeId, object, parameters, rsc);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void afterConstructor(ThreadContext threadContext, ICoreService coreService, long methodId, long sensorTypeId, Object object, Object[] parameters, RegisteredSensorConfig rsc) {
+		threadContext.getTimingStack(timingSlot).pushTime(timer.getCurrentTime());
+		secondAfterBody(threadContext, coreService, methodId, sensorTypeId, object, parameters, null, rsc);
 	}
 
 }
@@ -2,6 +2,8 @@ package rocks.inspectit.agent.java.sensor.method.http;
 
 import java.lang.management.ThreadMXBean;
 import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
 
@@ -12,16 +14,17 @@ import rocks.inspectit.agent.java.config.impl.RegisteredSensorConfig;
 import rocks.inspectit.agent.java.core.ICoreService;
 import rocks.inspectit.agent.java.core.IPlatformManager;
 import rocks.inspectit.agent.java.core.IdNotAvailableException;
-import rocks.inspectit.agent.java.hooking.IMethodHook;
+import rocks.inspectit.agent.java.hooking.IThreadContextMethodHook;
 import rocks.inspectit.agent.java.sensor.method.timer.TimerHook;
 import rocks.inspectit.agent.java.util.StringConstraint;
-import rocks.inspectit.agent.java.util.ThreadLocalStack;
+import rocks.inspectit.agent.java.util.ThreadContext;
 import rocks.inspectit.agent.java.util.Timer;
+import rocks.inspectit.agent.java.util.TimingStack;
 import rocks.inspectit.shared.all.communication.data.HttpTimerData;
 
 /**
- * The hook implementation for the http sensor. It uses the {@link ThreadLocalStack} class to save
- * the time when the method was called.
+ * The hook implementation for the http sensor. It uses the {@link TimingStack} of the
+ * {@link ThreadContext} to save the time when the method was called.
  * <p>
  * This hook measures timer data like the {@link TimerHook} but in addition provides Http
  * information. Another difference is that we ensure that only one Http metric per request is
@@ -30,7 +33,7 @@ import rocks.inspectit.shared.all.communication.data.HttpTimerData;
  * @author Stefan Siegl
  *
  */
-public class HttpHook implements IMethodHook {
+public class HttpHook implements IThreadContextMethodHook {
 
 	/**
 	 * The logger of this class. Initialized manually.
@@ -38,9 +41,9 @@ public class HttpHook implements IMethodHook {
 	private static final Logger LOG = LoggerFactory.getLogger(HttpHook.class);
 
 	/**
-	 * The stack containing the start time values.
+	 * Slot of this hook in the {@link ThreadContext} holding the start and end time values.
 	 */
-	private final ThreadLocalStack<Double> timeStack = new ThreadLocalStack<Double>();
+	private final int timingSlot = ThreadContext.allocateSlot();
 
 	/**
 	 * The timer used for accurate measuring.
@@ -67,11 +70,6 @@ public class HttpHook implements IMethodHook {
 	 */
 	private boolean threadCPUTimeEnabled = false;
 
-	/**
-	 * The stack containing the start time values.
-	 */
-	private final ThreadLocalStack<Long> threadCpuTimeStack = new ThreadLocalStack<Long>();
-
 	/**
 	 * Extractor for Http parameters.
 	 */
@@ -127,7 +125,7 @@ public class HttpHook implements IMethodHook {
 		this.timer = timer;
 		this.platformManager = platformManager;
 		this.threadMXBean = threadMXBean;
-		this.extractor = new HttpRequestParameterExtractor(new StringConstraint(parameters));
+		this.extractor = new HttpRequestParameterExtractor(new StringConstraint(parameters), getNames(parameters, "capturedHeaders"), getNames(parameters, "capturedAttributes"));
 
 		if ((null != parameters) && "true".equals(parameters.get("sessioncapture"))) {
 			if (LOG.isDebugEnabled()) {
@@ -158,10 +156,24 @@ public class HttpHook implements IMethodHook {
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	public void release() {
+		ThreadContext.releaseSlot(timingSlot);
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
 	public void beforeBody(long methodId, long sensorTypeId, Object object, Object[] parameters, RegisteredSensorConfig rsc) {
+		beforeBody(ThreadContext.current(), methodId, sensorTypeId, object, parameters, rsc);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void beforeBody(ThreadContext threadContext, long methodId, long sensorTypeId, Object object, Object[] parameters, RegisteredSensorConfig rsc) {
 
 		// We mark the invocation of the first servlet and the calls from within it. This way we
 		// gather information just once (from the first one) and avoid overhead and inconclusive
@@ -183,9 +195,10 @@ public class HttpHook implements IMethodHook {
 					// timer. We cannot do that after we read the information from the request
 					// object because these methods could be instrumented and thus the whole http
 					// timer would be off - resulting in very strange results.
-					timeStack.push(new Double(timer.getCurrentTime()));
+					TimingStack timingStack = threadContext.getTimingStack(timingSlot);
+					timingStack.pushTime(timer.getCurrentTime());
 					if (threadCPUTimeEnabled) {
-						threadCpuTimeStack.push(Long.valueOf(threadMXBean.getCurrentThreadCpuTime()));
+						timingStack.pushCpuTime(threadMXBean.getCurrentThreadCpuTime());
 					}
 
 					// Mark first invocation
@@ -203,6 +216,13 @@ public class HttpHook implements IMethodHook {
 	 * {@inheritDoc}
 	 */
 	public void firstAfterBody(long methodId, long sensorTypeId, Object object, Object[] parameters, Object result, RegisteredSensorConfig rsc) {
+		firstAfterBody(ThreadContext.current(), methodId, sensorTypeId, object, parameters, result, rsc);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void firstAfterBody(ThreadContext threadContext, long methodId, long sensorTypeId, Object object, Object[] parameters, Object result, RegisteredSensorConfig rsc) {
 
 		// no invocation marked -> skip
 		if (!refMarker.isMarkerSet()) {
@@ -214,9 +234,10 @@ public class HttpHook implements IMethodHook {
 
 		if (refMarker.matchesFirst()) {
 			// Get the timer and store it.
-			timeStack.push(new Double(timer.getCurrentTime()));
+			TimingStack timingStack = threadContext.getTimingStack(timingSlot);
+			timingStack.pushTime(timer.getCurrentTime());
 			if (threadCPUTimeEnabled) {
-				threadCpuTimeStack.push(Long.valueOf(threadMXBean.getCurrentThreadCpuTime()));
+				timingStack.pushCpuTime(threadMXBean.getCurrentThreadCpuTime());
 			}
 		}
 	}
@@ -225,6 +246,14 @@ public class HttpHook implements IMethodHook {
 	 * {@inheritDoc}
 	 */
 	public void secondAfterBody(ICoreService coreService, long methodId, long sensorTypeId, Object object, Object[] parameters, Object result, RegisteredSensorConfig rsc) {
+		secondAfterBody(ThreadContext.current(), coreService, methodId, sensorTypeId, object, parameters, result, rsc);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void secondAfterBody(ThreadContext threadContext, ICoreService coreService, long methodId, long sensorTypeId, Object object, Object[] parameters, Object result,
+			RegisteredSensorConfig rsc) {
 
 		// check if in the right(first) invocation
 		if (refMarker.isMarkerSet() && refMarker.matchesFirst()) {
@@ -241,15 +270,16 @@ public class HttpHook implements IMethodHook {
 				if (providesHttpMetrics(servletRequestClass)) {
 
 					try {
-						double endTime = timeStack.pop().doubleValue();
-						double startTime = timeStack.pop().doubleValue();
+						TimingStack timingStack = threadContext.getTimingStack(timingSlot);
+						double endTime = timingStack.popTime();
+						double startTime = timingStack.popTime();
 						double duration = endTime - startTime;
 
 						// default setting to a negative number
 						double cpuDuration = -1.0d;
 						if (threadCPUTimeEnabled) {
-							long cpuEndTime = threadCpuTimeStack.pop().longValue();
-							long cpuStartTime = threadCpuTimeStack.pop().longValue();
+							long cpuEndTime = timingStack.popCpuTime();
+							long cpuStartTime = timingStack.popCpuTime();
 							cpuDuration = (cpuEndTime - cpuStartTime) / 1000000.0d;
 						}
 
@@ -297,6 +327,34 @@ public class HttpHook implements IMethodHook {
 		}
 	}
 
+	/**
+	 * Returns the comma separated names defined in the parameter.
+	 *
+	 * @param parameters
+	 *            the map containing the configuration parameters
+	 * @param key
+	 *            the parameter key
+	 * @return the names or <code>null</code> if the parameter is not defined
+	 */
+	static String[] getNames(Map<String, Object> parameters, String key) {
+		if (null == parameters) {
+			return null;
+		}
+		Object value = parameters.get(key);
+		if (null == value) {
+			return null;
+		}
+
+		List<String> names = new ArrayList<String>();
+		for (String name : value.toString().split(",")) {
+			String trimmed = name.trim();
+			if (trimmed.length() > 0) {
+				names.add(trimmed);
+			}
+		}
+		return names.toArray(new String[names.size()]);
+	}
+
 	/**
 	 * Checks if the given Class is realizing the HttpServletRequest interface directly or
 	 * indirectly. Only if this interface is realized, we can get Http metric information.
@@ -15,6 +15,11 @@ import rocks.inspectit.shared.all.communication.data.HttpInfo;
 
 /**
  * Thread-safe realization to extract information from <code>HttpServletRequests</code>.
+ * <p>
+ * The <code>Method</code> objects are resolved only once per request (and session) class and
+ * cached by the class, so that extracting does not need any look-up by name. If the headers or
+ * attributes to capture are defined, only those are read from the request, otherwise all headers
+ * and attributes are enumerated.
  *
  * @author Stefan Siegl
  */
@@ -31,17 +36,22 @@ class HttpRequestParameterExtractor {
 	private StringConstraint strConstraint;
 
 	/**
-	 * Marker method. This method severs for marking the cache key in {@link #methodCache} as
-	 * unavailable. Since we can not put <code>null</code> to a {@link ConcurrentHashMap} we need to
-	 * put some method to serve as a marker.
+	 * Names of the headers to capture or <code>null</code> to capture all headers.
 	 */
-	private Method markerMethod;
+	private final String[] capturedHeaders;
 
 	/**
-	 * Keeps track of already looked up <code>Method</code> objects for faster access. Get and Put
-	 * operations are synchronized by the concurrent hash map.
+	 * Names of the attributes to capture or <code>null</code> to capture all attributes.
 	 */
-	private ConcurrentHashMap<String, Method> methodCache = new ConcurrentHashMap<String, Method>();
+	private final String[] capturedAttributes;
+
+	/**
+	 * Keeps track of already looked up <code>Method</code> objects for faster access. The array
+	 * holds the methods of one class indexed by the {@link HttpMethods} ordinal, with
+	 * <code>null</code> for the methods not available in the class. Get and Put operations are
+	 * synchronized by the concurrent hash map.
+	 */
+	private ConcurrentHashMap<Class<?>, Method[]> methodCache = new ConcurrentHashMap<Class<?>, Method[]>();
 
 	/**
 	 * Structure to store all necessary methods that we can invoke to get http information. These
@@ -51,25 +61,25 @@ class HttpRequestParameterExtractor {
 	 */
 	private enum HttpMethods {
 		/** Request URI in Servlet. */
-		SERVLET_REQUEST_URI("getRequestURI", (Class<?>[]) null),
+		SERVLET_REQUEST_URI("getRequestURI", (Class<?>[]) null, false),
 		/** Parameter map. */
-		SERVLET_GET_PARAMETER_MAP("getParameterMap", (Class<?>[]) null),
+		SERVLET_GET_PARAMETER_MAP("getParameterMap", (Class<?>[]) null, false),
 		/** Gets all attributes names. */
-		SERVLET_GET_ATTRIBUTE_NAMES("getAttributeNames", (Class<?>[]) null),
+		SERVLET_GET_ATTRIBUTE_NAMES("getAttributeNames", (Class<?>[]) null, false),
 		/** Gets a given attributes name value. */
-		SERVLET_GET_ATTRIBUTE("getAttribute", new Class[] { String.class }),
+		SERVLET_GET_ATTRIBUTE("getAttribute", new Class[] { String.class }, false),
 		/** Gets all header names. */
-		SERVLET_GET_HEADER_NAMES("getHeaderNames", (Class<?>[]) null),
+		SERVLET_GET_HEADER_NAMES("getHeaderNames", (Class<?>[]) null, false),
 		/** Gets the value of one given header. */
-		SERVLET_GET_HEADER("getHeader", new Class[] { String.class }),
+		SERVLET_GET_HEADER("getHeader", new Class[] { String.class }, false),
 		/** Gets the session. */
-		SERVLET_GET_SESSION("getSession", new Class[] { boolean.class }),
+		SERVLET_GET_SESSION("getSession", new Class[] { boolean.class }, false),
 		/** Reads the request method. */
-		SERVLET_GET_METHOD("getMethod", (Class<?>[]) null),
+		SERVLET_GET_METHOD("getMethod", (Class<?>[]) null, false),
 		/** Gets all attribute names in the session. */
-		SESSION_GET_ATTRIBUTE_NAMES("getAttributeNames", (Class<?>[]) null),
+		SESSION_GET_ATTRIBUTE_NAMES("getAttributeNames", (Class<?>[]) null, true),
 		/** Gets the value of a session attribute. */
-		SESSION_GET_ATTRIBUTE("getAttribute", new Class[] { String.class });
+		SESSION_GET_ATTRIBUTE("getAttribute", new Class[] { String.class }, true);
 
 		/**
 		 * Constructor.
@@ -78,16 +88,21 @@ class HttpRequestParameterExtractor {
 		 *            method
 		 * @param parameters
 		 *            parameters
+		 * @param sessionMethod
+		 *            if method belongs to the session
 		 */
-		private HttpMethods(String methodName, Class<?>[] parameters) { // NOPMD
+		private HttpMethods(String methodName, Class<?>[] parameters, boolean sessionMethod) { // NOPMD
 			this.methodName = methodName;
 			this.parameters = parameters;
+			this.sessionMethod = sessionMethod;
 		}
 
 		/** name of the method. */
 		private String methodName;
 		/** parameters of the methods. */
 		private Class<?>[] parameters;
+		/** if method belongs to the session, otherwise to the request. */
+		private boolean sessionMethod;
 	}
 
 	/**
@@ -97,14 +112,24 @@ class HttpRequestParameterExtractor {
 	 *            the string constraints.
 	 */
 	public HttpRequestParameterExtractor(StringConstraint strConstraint) {
+		this(strConstraint, null, null);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param strConstraint
+	 *            the string constraints.
+	 * @param capturedHeaders
+	 *            names of the headers to capture or <code>null</code> to capture all headers.
+	 * @param capturedAttributes
+	 *            names of the attributes to capture or <code>null</code> to capture all
+	 *            attributes.
+	 */
+	public HttpRequestParameterExtractor(StringConstraint strConstraint, String[] capturedHeaders, String[] capturedAttributes) {
 		this.strConstraint = strConstraint;
-		try {
-			// setting marker method to point to Object.toString()
-			// this will represent non existing cache method
-			markerMethod = Object.class.getMethod("toString", new Class[0]);
-		} catch (Exception e) {
-			throw new IllegalStateException("Method toString() can not be found", e);
-		}
+		this.capturedHeaders = capturedHeaders;
+		this.capturedAttributes = capturedAttributes;
 	}
 
 	/**
@@ -211,13 +236,32 @@ class HttpRequestParameterExtractor {
 	 * @return the attributes
 	 */
 	public Map<String, String> getAttributes(Class<?> httpServletRequestClass, Object httpServletRequest) {
-		Method attributesMethod = retrieveMethod(HttpMethods.SERVLET_GET_ATTRIBUTE_NAMES, httpServletRequestClass);
-		if (null == attributesMethod) {
+		Method attributeValue = retrieveMethod(HttpMethods.SERVLET_GET_ATTRIBUTE, httpServletRequestClass);
+		if (null == attributeValue) {
 			return null;
 		}
 
-		Method attributeValue = retrieveMethod(HttpMethods.SERVLET_GET_ATTRIBUTE, httpServletRequestClass);
-		if (null == attributeValue) {
+		if (null != capturedAttributes) {
+			try {
+				Map<String, String> attributes = null;
+				for (String attrName : capturedAttributes) {
+					Object value = attributeValue.invoke(httpServletRequest, attrName);
+					if (null != value) {
+						if (null == attributes) {
+							attributes = new HashMap<String, String>(capturedAttributes.length * 2);
+						}
+						attributes.put(attrName, strConstraint.crop(getAttributeValue(value)));
+					}
+				}
+				return attributes;
+			} catch (Exception e) {
+				LOG.error("Invocation of " + attributeValue.getName() + " to get attributes on given object failed.", e);
+				return null;
+			}
+		}
+
+		Method attributesMethod = retrieveMethod(HttpMethods.SERVLET_GET_ATTRIBUTE_NAMES, httpServletRequestClass);
+		if (null == attributesMethod) {
 			return null;
 		}
 
@@ -255,13 +299,32 @@ class HttpRequestParameterExtractor {
 	 * @return the headers
 	 */
 	public Map<String, String> getHeaders(Class<?> httpServletRequestClass, Object httpServletRequest) {
-		Method headerNamesMethod = retrieveMethod(HttpMethods.SERVLET_GET_HEADER_NAMES, httpServletRequestClass);
-		if (null == headerNamesMethod) {
+		Method headerValueMethod = retrieveMethod(HttpMethods.SERVLET_GET_HEADER, httpServletRequestClass);
+		if (null == headerValueMethod) {
 			return null;
 		}
 
-		Method headerValueMethod = retrieveMethod(HttpMethods.SERVLET_GET_HEADER, httpServletRequestClass);
-		if (null == headerValueMethod) {
+		if (null != capturedHeaders) {
+			try {
+				Map<String, String> headersResult = null;
+				for (String headerName : capturedHeaders) {
+					String headerValue = (String) headerValueMethod.invoke(httpServletRequest, headerName);
+					if (null != headerValue) {
+						if (null == headersResult) {
+							headersResult = new HashMap<String, String>(capturedHeaders.length * 2);
+						}
+						headersResult.put(headerName, strConstraint.crop(headerValue));
+					}
+				}
+				return headersResult;
+			} catch (Exception e) {
+				LOG.error("Invocation of to get headers on given object failed.", e);
+				return null;
+			}
+		}
+
+		Method headerNamesMethod = retrieveMethod(HttpMethods.SERVLET_GET_HEADER_NAMES, httpServletRequestClass);
+		if (null == headerNamesMethod) {
 			return null;
 		}
 
@@ -351,8 +414,8 @@ class HttpRequestParameterExtractor {
 	}
 
 	/**
-	 * Tries a lookup in the cache first, then tries to get the <code>Method</code> object via
-	 * reflection.
+	 * Tries a lookup in the cache first, then resolves all <code>Method</code> objects of the same
+	 * kind (request or session) via reflection for the class and caches them.
 	 *
 	 * @param httpMethod
 	 *            the Method to lookup
@@ -362,43 +425,48 @@ class HttpRequestParameterExtractor {
 	 * @return the <code>Method</code> object or <code>null</code> if the method cannot be found.
 	 */
 	private Method retrieveMethod(HttpMethods httpMethod, Class<?> clazzUsedToLookup) {
-		String cacheLookupName = getCacheLookupName(httpMethod, clazzUsedToLookup);
-		Method m = methodCache.get(cacheLookupName);
-
-		if (null == m) {
-			// We do not yet have the method in the Cache
-			try {
-				m = clazzUsedToLookup.getMethod(httpMethod.methodName, httpMethod.parameters);
-				m.setAccessible(true);
-				Method existing = methodCache.putIfAbsent(cacheLookupName, m);
-				if (null != existing) {
-					m = existing;
-				}
-			} catch (Exception e) {
-				LOG.error("The provided class " + clazzUsedToLookup.getCanonicalName() + " did not provide the desired method.", e);
-
-				// Do not try to look up every time.
-				// Can not place null as value anyway
-				methodCache.putIfAbsent(cacheLookupName, markerMethod);
+		Method[] methods = methodCache.get(clazzUsedToLookup);
+
+		if (null == methods) {
+			// We do not yet have the methods of the class in the Cache
+			methods = resolveMethods(clazzUsedToLookup, httpMethod.sessionMethod);
+			Method[] existing = methodCache.putIfAbsent(clazzUsedToLookup, methods);
+			if (null != existing) {
+				methods = existing;
 			}
-		} else if (markerMethod.equals(m)) {
-			return null;
 		}
 
-		return m;
+		return methods[httpMethod.ordinal()];
 	}
 
 	/**
-	 * Generates and return a lookup name for the cache.
+	 * Resolves the <code>Method</code> objects of the given kind via reflection.
 	 *
-	 * @param httpMethod
-	 *            the Method to lookup
 	 * @param clazz
-	 *            the concrete class to lookup the method upon.
-	 * @return the generated lookup name.
+	 *            the concrete class to lookup the methods upon.
+	 * @param sessionMethods
+	 *            if session or request methods should be resolved.
+	 * @return the methods indexed by the {@link HttpMethods} ordinal, <code>null</code> for the
+	 *         methods that can not be found.
 	 */
-	private String getCacheLookupName(HttpMethods httpMethod, Class<?> clazz) {
-		return clazz.getCanonicalName() + '#' + httpMethod.methodName;
+	private Method[] resolveMethods(Class<?> clazz, boolean sessionMethods) {
+		HttpMethods[] httpMethods = HttpMethods.values();
+		Method[] methods = new Method[httpMethods.length];
+		for (HttpMethods httpMethod : httpMethods) {
+			if (httpMethod.sessionMethod != sessionMethods) {
+				continue;
+			}
+
+			try {
+				Method m = clazz.getMethod(httpMethod.methodName, httpMethod.parameters);
+				m.setAccessible(true);
+				methods[httpMethod.ordinal()] = m;
+			} catch (Exception e) {
+				// Do not try to look up every time, method stays null
+				LOG.error("The provided class " + clazz.getCanonicalName() + " did not provide the desired method.", e);
+			}
+		}
+		return methods;
 	}
 
 	/**
@@ -2,7 +2,7 @@ package rocks.inspectit.agent.java.sensor.method.invocationsequence;
 
 import java.net.ConnectException;
 import java.sql.Timestamp;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ScheduledExecutorService;
@@ -19,17 +19,11 @@ import rocks.inspectit.agent.java.core.IObjectStorage;
 import rocks.inspectit.agent.java.core.IPlatformManager;
 import rocks.inspectit.agent.java.core.IdNotAvailableException;
 import rocks.inspectit.agent.java.core.ListListener;
-import rocks.inspectit.agent.java.hooking.IConstructorHook;
-import rocks.inspectit.agent.java.hooking.IMethodHook;
+import rocks.inspectit.agent.java.hooking.IThreadContextConstructorHook;
+import rocks.inspectit.agent.java.hooking.IThreadContextMethodHook;
 import rocks.inspectit.agent.java.sending.ISendingStrategy;
-import rocks.inspectit.agent.java.sensor.exception.ExceptionSensor;
-import rocks.inspectit.agent.java.sensor.method.IMethodSensor;
-import rocks.inspectit.agent.java.sensor.method.jdbc.ConnectionSensor;
-import rocks.inspectit.agent.java.sensor.method.jdbc.PreparedStatementParameterSensor;
-import rocks.inspectit.agent.java.sensor.method.jdbc.PreparedStatementSensor;
-import rocks.inspectit.agent.java.sensor.method.logging.Log4JLoggingSensor;
 import rocks.inspectit.agent.java.util.StringConstraint;
-import rocks.inspectit.agent.java.util.ThreadLocalStack;
+import rocks.inspectit.agent.java.util.ThreadContext;
 import rocks.inspectit.agent.java.util.Timer;
 import rocks.inspectit.shared.all.communication.DefaultData;
 import rocks.inspectit.shared.all.communication.MethodSensorData;
@@ -43,28 +37,44 @@ import rocks.inspectit.shared.all.communication.data.LoggingData;
 import rocks.inspectit.shared.all.communication.data.ParameterContentData;
 import rocks.inspectit.shared.all.communication.data.SqlStatementData;
 import rocks.inspectit.shared.all.communication.data.TimerData;
-import rocks.inspectit.shared.all.instrumentation.config.impl.MethodSensorTypeConfig;
 import rocks.inspectit.shared.all.instrumentation.config.impl.PlatformSensorTypeConfig;
 
 /**
- * The invocation sequence hook stores the record of the invocation sequences in a
- * {@link ThreadLocal} object.
+ * The invocation sequence hook stores the record of the invocation sequences in the
+ * {@link ThreadContext} of the thread.
  * <p>
  * This hook implements the {@link ICoreService} interface which simulates the core service to all
  * other hooks which are called during the execution of this invocation. The
  * <code>defaultCoreService</code> field is used to delegate some calls directly to the original
  * core service and later sending of the data to the server.
+ * <p>
+ * The size of one invocation sequence can be limited with the <code>maxElements</code>,
+ * <code>maxDepth</code> and <code>maxBytes</code> parameters. Calls exceeding the limits are
+ * summarized in the overflow elements instead of being recorded. With the
+ * <code>streamThreshold</code> parameter the completed direct children of the long running
+ * invocation sequences are sent as own invocation sequences before the root call returns.
  *
  * @author Patrice Bouillet
  *
  */
-public class InvocationSequenceHook implements IMethodHook, IConstructorHook, ICoreService {
+public class InvocationSequenceHook implements IThreadContextMethodHook, IThreadContextConstructorHook, ICoreService {
 
 	/**
 	 * The logger of this class. Initialized manually.
 	 */
 	private static final Logger LOG = LoggerFactory.getLogger(InvocationSequenceHook.class);
 
+	/**
+	 * Estimated size in bytes of one invocation sequence element without the attached data.
+	 */
+	private static final long ELEMENT_BYTES = 200L;
+
+	/**
+	 * Estimated size in bytes of one data object attached to the invocation sequence element, not
+	 * including the strings.
+	 */
+	private static final long DATA_OBJECT_BYTES = 100L;
+
 	/**
 	 * The Platform manager.
 	 */
@@ -76,47 +86,49 @@ public class InvocationSequenceHook implements IMethodHook, IConstructorHook, IC
 	private final IPropertyAccessor propertyAccessor;
 
 	/**
-	 * The {@link ThreadLocal} object which holds an {@link InvocationSequenceData} object if an
-	 * invocation record is started.
+	 * Slot of this hook in the {@link ThreadContext} holding the {@link InvocationState} of the
+	 * thread.
 	 */
-	private final ThreadLocal<InvocationSequenceData> threadLocalInvocationData = new ThreadLocal<InvocationSequenceData>();
+	private final int stateSlot = ThreadContext.allocateSlot();
 
 	/**
-	 * Stores the value of the method ID in the {@link ThreadLocal} object. Used to identify the
-	 * correct start and end of the record.
+	 * The timer used for accurate measuring.
 	 */
-	private final ThreadLocal<Long> invocationStartId = new ThreadLocal<Long>();
+	private final Timer timer;
 
 	/**
-	 * Stores the count of the of the starting method being called in the same invocation sequence
-	 * so that closing is done on the right end.
+	 * The StringConstraint to ensure a maximum length of strings.
 	 */
-	private final ThreadLocal<Long> invocationStartIdCount = new ThreadLocal<Long>();
+	private final StringConstraint strConstraint;
 
 	/**
-	 * The timer used for accurate measuring.
+	 * If enhanced exception sensor is ON.
 	 */
-	private final Timer timer;
+	private final boolean enhancedExceptionSensor;
 
 	/**
-	 * The stack containing the start time values.
+	 * Maximum total amount of elements in one invocation sequence including the root, counted over
+	 * all levels and not per parent. Zero or less means unlimited.
 	 */
-	private final ThreadLocalStack<Double> timeStack = new ThreadLocalStack<Double>();
+	private final long maxElements;
 
 	/**
-	 * Saves the min duration for faster access of the values.
+	 * Maximum depth of the elements in one invocation sequence, the root having depth zero. Zero
+	 * or less means unlimited.
 	 */
-	private final Map<Long, Double> minDurationMap = new HashMap<Long, Double>();
+	private final int maxDepth;
 
 	/**
-	 * The StringConstraint to ensure a maximum length of strings.
+	 * Maximum estimated size in bytes of one invocation sequence. Zero or less means unlimited.
 	 */
-	private final StringConstraint strConstraint;
+	private final long maxBytes;
 
 	/**
-	 * If enhanced exception sensor is ON.
+	 * Amount of elements in the invocation sequence after which every completed direct child of
+	 * the root is sent to the core service as own invocation sequence. Zero or less disables the
+	 * streaming.
 	 */
-	private final boolean enhancedExceptionSensor;
+	private final long streamThreshold;
 
 	/**
 	 * The default constructor is initialized with a reference to the original {@link ICoreService}
@@ -139,12 +151,70 @@ public class InvocationSequenceHook implements IMethodHook, IConstructorHook, IC
 		this.propertyAccessor = propertyAccessor;
 		this.strConstraint = new StringConstraint(param);
 		this.enhancedExceptionSensor = enhancedExceptionSensor;
+		this.maxElements = getLongParameter(param, "maxElements");
+		this.maxDepth = (int) getLongParameter(param, "maxDepth");
+		this.maxBytes = getLongParameter(param, "maxBytes");
+		this.streamThreshold = getLongParameter(param, "streamThreshold");
+	}
+
+	/**
+	 * Returns the long value of the parameter with the given name.
+	 *
+	 * @param param
+	 *            Sensor parameters.
+	 * @param name
+	 *            Name of the parameter.
+	 * @return Parsed value or <code>0</code> if the parameter is not set or not valid.
+	 */
+	private static long getLongParameter(Map<String, Object> param, String name) {
+		Object value = param.get(name);
+		if (null != value) {
+			try {
+				return Long.parseLong(value.toString());
+			} catch (NumberFormatException e) {
+				if (LOG.isWarnEnabled()) {
+					LOG.warn("Property '" + name + "' is not defined correctly. Using no limit.");
+				}
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Returns the {@link InvocationState} kept in the given context, creates it on first use. All
+	 * the state of the record is kept in primitive fields of the same object.
+	 *
+	 * @param threadContext
+	 *            {@link ThreadContext} of the executing thread.
+	 * @return {@link InvocationState} of the thread.
+	 */
+	private InvocationState getState(ThreadContext threadContext) {
+		InvocationState state = (InvocationState) threadContext.getHookState(stateSlot);
+		if (null == state) {
+			state = new InvocationState();
+			threadContext.setHookState(stateSlot, state);
+		}
+		return state;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void release() {
+		ThreadContext.releaseSlot(stateSlot);
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	public void beforeBody(long methodId, long sensorTypeId, Object object, Object[] parameters, RegisteredSensorConfig rsc) {
+		beforeBody(ThreadContext.current(), methodId, sensorTypeId, object, parameters, rsc);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void beforeBody(ThreadContext threadContext, long methodId, long sensorTypeId, Object object, Object[] parameters, RegisteredSensorConfig rsc) {
 		if (skip(rsc)) {
 			return;
 		}
@@ -153,27 +223,45 @@ public class InvocationSequenceHook implements IMethodHook, IConstructorHook, IC
 			long platformId = platformManager.getPlatformId();
 			Timestamp timestamp = new Timestamp(System.currentTimeMillis());
 
-			if (null == threadLocalInvocationData.get()) {
+			InvocationState state = getState(threadContext);
+			if (null == state.invocationSequenceData) {
 				// the sensor type is only available in the beginning of the
 				// sequence trace
 
 				// save the start time
-				timeStack.push(new Double(timer.getCurrentTime()));
+				state.startTime = timer.getCurrentTime();
 
 				// no invocation tracer is currently started, so we do that now.
 				InvocationSequenceData invocationSequenceData = new InvocationSequenceData(timestamp, platformId, sensorTypeId, methodId);
-				threadLocalInvocationData.set(invocationSequenceData);
+				state.invocationSequenceData = invocationSequenceData;
 
-				invocationStartId.set(Long.valueOf(methodId));
-				invocationStartIdCount.set(Long.valueOf(1));
+				state.startId = methodId;
+				state.startIdCount = 1;
+				state.depth = 0;
+				state.elements = 1;
+				state.estimatedBytes = ELEMENT_BYTES;
 			} else {
-				if (methodId == invocationStartId.get().longValue()) {
-					long count = invocationStartIdCount.get().longValue();
-					invocationStartIdCount.set(Long.valueOf(count + 1));
+				if (methodId == state.startId) {
+					state.startIdCount++;
+				}
+
+				if (state.overflowDepth > 0) {
+					// inside of a call that was not recorded, thus just count this one
+					state.overflowDepth++;
+					overflow(state, timestamp, methodId);
+					return;
 				}
+
 				// A subsequent call to the before body method where an
 				// invocation tracer is already started.
-				InvocationSequenceData invocationSequenceData = threadLocalInvocationData.get();
+				InvocationSequenceData invocationSequenceData = state.invocationSequenceData;
+				if (isLimitReached(state)) {
+					state.overflowDepth = 1;
+					state.overflowStart = timer.getCurrentTime();
+					overflow(state, timestamp, methodId);
+					return;
+				}
+
 				invocationSequenceData.setChildCount(invocationSequenceData.getChildCount() + 1L);
 
 				InvocationSequenceData nestedInvocationSequenceData = new InvocationSequenceData(timestamp, platformId, invocationSequenceData.getSensorTypeIdent(), methodId);
@@ -182,7 +270,10 @@ public class InvocationSequenceHook implements IMethodHook, IConstructorHook, IC
 
 				invocationSequenceData.getNestedSequences().add(nestedInvocationSequenceData);
 
-				threadLocalInvocationData.set(nestedInvocationSequenceData);
+				state.invocationSequenceData = nestedInvocationSequenceData;
+				state.depth++;
+				state.elements++;
+				state.estimatedBytes += ELEMENT_BYTES;
 			}
 		} catch (IdNotAvailableException idNotAvailableException) {
 			if (LOG.isDebugEnabled()) {
@@ -195,19 +286,25 @@ public class InvocationSequenceHook implements IMethodHook, IConstructorHook, IC
 	 * {@inheritDoc}
 	 */
 	public void firstAfterBody(long methodId, long sensorTypeId, Object object, Object[] parameters, Object result, RegisteredSensorConfig rsc) {
+		firstAfterBody(ThreadContext.current(), methodId, sensorTypeId, object, parameters, result, rsc);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void firstAfterBody(ThreadContext threadContext, long methodId, long sensorTypeId, Object object, Object[] parameters, Object result, RegisteredSensorConfig rsc) {
 		if (skip(rsc)) {
 			return;
 		}
 
-		InvocationSequenceData invocationSequenceData = threadLocalInvocationData.get();
+		InvocationState state = getState(threadContext);
 
-		if (null != invocationSequenceData) {
-			if (methodId == invocationStartId.get().longValue()) {
-				long count = invocationStartIdCount.get().longValue();
-				invocationStartIdCount.set(Long.valueOf(count - 1));
+		if (null != state.invocationSequenceData) {
+			if (methodId == state.startId) {
+				state.startIdCount--;
 
-				if (0 == (count - 1)) {
-					timeStack.push(new Double(timer.getCurrentTime()));
+				if (0 == state.startIdCount) {
+					state.endTime = timer.getCurrentTime();
 				}
 			}
 		}
@@ -217,11 +314,20 @@ public class InvocationSequenceHook implements IMethodHook, IConstructorHook, IC
 	 * {@inheritDoc}
 	 */
 	public void secondAfterBody(ICoreService coreService, long methodId, long sensorTypeId, Object object, Object[] parameters, Object result, RegisteredSensorConfig rsc) {
+		secondAfterBody(ThreadContext.current(), coreService, methodId, sensorTypeId, object, parameters, result, rsc);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void secondAfterBody(ThreadContext threadContext, ICoreService coreService, long methodId, long sensorTypeId, Object object, Object[] parameters, Object result,
+			RegisteredSensorConfig rsc) {
 		if (skip(rsc)) {
 			return;
 		}
 
-		InvocationSequenceData invocationSequenceData = threadLocalInvocationData.get();
+		InvocationState state = getState(threadContext);
+		InvocationSequenceData invocationSequenceData = state.invocationSequenceData;
 
 		if (null != invocationSequenceData) {
 			// check if some properties need to be accessed and saved
@@ -234,32 +340,40 @@ public class InvocationSequenceHook implements IMethodHook, IConstructorHook, IC
 				}
 			}
 
-			if ((methodId == invocationStartId.get().longValue()) && (0 == invocationStartIdCount.get().longValue())) {
-				double endTime = timeStack.pop().doubleValue();
-				double startTime = timeStack.pop().doubleValue();
+			if ((methodId == state.startId) && (0 == state.startIdCount)) {
+				double endTime = state.endTime;
+				double startTime = state.startTime;
 				double duration = endTime - startTime;
 
 				// complete the sequence and store the data object in the 'true'
 				// core service so that it can be transmitted to the server. we
 				// just need an arbitrary prefix so that this sequence will
 				// never be overwritten in the core service!
-				if (minDurationMap.containsKey(invocationStartId.get())) {
+				if (rsc.getMinDuration() > 0) {
 					checkForSavingOrNot(coreService, methodId, sensorTypeId, rsc, invocationSequenceData, startTime, endTime, duration);
 				} else {
-					// maybe not saved yet in the map
-					if (rsc.getSettings().containsKey("minduration")) {
-						minDurationMap.put(invocationStartId.get(), Double.valueOf((String) rsc.getSettings().get("minduration")));
-						checkForSavingOrNot(coreService, methodId, sensorTypeId, rsc, invocationSequenceData, startTime, endTime, duration);
-					} else {
-						invocationSequenceData.setDuration(duration);
-						invocationSequenceData.setStart(startTime);
-						invocationSequenceData.setEnd(endTime);
-						coreService.addMethodSensorData(sensorTypeId, methodId, String.valueOf(startTime), invocationSequenceData);
-					}
+					invocationSequenceData.setDuration(duration);
+					invocationSequenceData.setStart(startTime);
+					invocationSequenceData.setEnd(endTime);
+					coreService.addMethodSensorData(sensorTypeId, methodId, String.valueOf(startTime), invocationSequenceData);
 				}
 
-				threadLocalInvocationData.set(null);
+				state.invocationSequenceData = null;
+				state.overflowSequence = null;
+				state.overflowDepth = 0;
 			} else {
+				if (state.overflowDepth > 0) {
+					// closing the call that was not recorded
+					state.overflowDepth--;
+					if (0 == state.overflowDepth) {
+						InvocationSequenceData overflowSequence = state.overflowSequence;
+						double end = timer.getCurrentTime();
+						overflowSequence.setEnd(end);
+						overflowSequence.setDuration(overflowSequence.getDuration() + (end - state.overflowStart));
+					}
+					return;
+				}
+
 				// check for the correct id we must be sure that
 				// we are closing the right sequence
 				if (methodId != invocationSequenceData.getMethodIdent()) {
@@ -282,14 +396,174 @@ public class InvocationSequenceHook implements IMethodHook, IConstructorHook, IC
 						}
 						parentSequence.setChildCount(parentSequence.getChildCount() + invocationSequenceData.getChildCount());
 					}
+					state.elements--;
+					state.estimatedBytes -= ELEMENT_BYTES;
 				} else {
 					invocationSequenceData.setEnd(timer.getCurrentTime());
 					invocationSequenceData.setDuration(invocationSequenceData.getEnd() - invocationSequenceData.getStart());
 					parentSequence.setChildCount(parentSequence.getChildCount() + invocationSequenceData.getChildCount());
+
+					if ((null == parentSequence.getParentSequence()) && (streamThreshold > 0) && (state.elements >= streamThreshold)) {
+						stream(coreService, state, invocationSequenceData);
+					}
+				}
+				state.invocationSequenceData = parentSequence;
+				state.depth--;
+			}
+		}
+	}
+
+	/**
+	 * Returns if any of the limits of the invocation sequence is reached, so that no new element
+	 * should be added.
+	 *
+	 * @param state
+	 *            State of the invocation sequence recording.
+	 * @return <code>true</code> if no new element can be added.
+	 */
+	private boolean isLimitReached(InvocationState state) {
+		return ((maxElements > 0) && (state.elements >= maxElements)) || ((maxDepth > 0) && (state.depth >= maxDepth)) || ((maxBytes > 0) && (state.estimatedBytes >= maxBytes));
+	}
+
+	/**
+	 * Records the call that is not added as own element because of the limits. All such calls are
+	 * summarized in one overflow element of the current parent: the overflow element has the id of
+	 * the first not recorded method, the not recorded calls as the child count and the summed
+	 * duration of the not recorded calls.
+	 *
+	 * @param state
+	 *            State of the invocation sequence recording.
+	 * @param timestamp
+	 *            Timestamp for the overflow element if it needs to be created.
+	 * @param methodId
+	 *            Id of the not recorded method.
+	 */
+	private void overflow(InvocationState state, Timestamp timestamp, long methodId) {
+		InvocationSequenceData parent = state.invocationSequenceData;
+		InvocationSequenceData overflowSequence = state.overflowSequence;
+		List<InvocationSequenceData> nestedSequences = parent.getNestedSequences();
+		boolean sameParent = (null != overflowSequence) && !nestedSequences.isEmpty() && (nestedSequences.get(nestedSequences.size() - 1) == overflowSequence); // NOPMD
+
+		if (!sameParent) {
+			overflowSequence = new InvocationSequenceData(timestamp, parent.getPlatformIdent(), parent.getSensorTypeIdent(), methodId);
+			overflowSequence.setStart(state.overflowStart);
+			overflowSequence.setParentSequence(parent);
+			nestedSequences.add(overflowSequence);
+			state.overflowSequence = overflowSequence;
+		} else {
+			overflowSequence.setChildCount(overflowSequence.getChildCount() + 1L);
+		}
+		parent.setChildCount(parent.getChildCount() + 1L);
+	}
+
+	/**
+	 * Sends the completed direct child of the root to the core service as own invocation sequence.
+	 * In the root the child is replaced with the element that holds only the method, the timings
+	 * and the child count of the sent child, so that the memory of the child sub-tree can be
+	 * released.
+	 *
+	 * @param coreService
+	 *            Core service to send the child to.
+	 * @param state
+	 *            State of the invocation sequence recording.
+	 * @param child
+	 *            Completed direct child of the root.
+	 */
+	private void stream(ICoreService coreService, InvocationState state, InvocationSequenceData child) {
+		InvocationSequenceData root = child.getParentSequence();
+		InvocationSequenceData placeholder = new InvocationSequenceData(child.getTimeStamp(), child.getPlatformIdent(), child.getSensorTypeIdent(), child.getMethodIdent());
+		placeholder.setStart(child.getStart());
+		placeholder.setEnd(child.getEnd());
+		placeholder.setDuration(child.getDuration());
+		placeholder.setChildCount(child.getChildCount());
+		placeholder.setParentSequence(root);
+
+		// the child is the last element as it was just completed
+		List<InvocationSequenceData> nestedSequences = root.getNestedSequences();
+		nestedSequences.set(nestedSequences.size() - 1, placeholder);
+		child.setParentSequence(null);
+
+		// the child element stays in the root as placeholder
+		state.elements -= countNestedElements(child);
+		state.estimatedBytes = Math.max(ELEMENT_BYTES, state.estimatedBytes - (estimateSize(child) - ELEMENT_BYTES));
+
+		coreService.addMethodSensorData(child.getSensorTypeIdent(), child.getMethodIdent(), String.valueOf(child.getStart()), child);
+	}
+
+	/**
+	 * Counts all elements below the given invocation sequence.
+	 *
+	 * @param invocationSequenceData
+	 *            Invocation sequence.
+	 * @return Amount of the nested elements in the complete sub-tree.
+	 */
+	private long countNestedElements(InvocationSequenceData invocationSequenceData) {
+		long count = 0;
+		List<InvocationSequenceData> stack = new ArrayList<InvocationSequenceData>();
+		stack.add(invocationSequenceData);
+		while (!stack.isEmpty()) {
+			InvocationSequenceData current = stack.remove(stack.size() - 1);
+			count += current.getNestedSequences().size();
+			stack.addAll(current.getNestedSequences());
+		}
+		return count;
+	}
+
+	/**
+	 * Estimates the size of the complete sub-tree of the given invocation sequence the same way the
+	 * size is estimated while recording.
+	 *
+	 * @param invocationSequenceData
+	 *            Invocation sequence.
+	 * @return Estimated size in bytes.
+	 */
+	private long estimateSize(InvocationSequenceData invocationSequenceData) {
+		long size = 0;
+		List<InvocationSequenceData> stack = new ArrayList<InvocationSequenceData>();
+		stack.add(invocationSequenceData);
+		while (!stack.isEmpty()) {
+			InvocationSequenceData current = stack.remove(stack.size() - 1);
+			size += ELEMENT_BYTES;
+			if (null != current.getTimerData()) {
+				size += estimateSize(current.getTimerData());
+			}
+			if (null != current.getSqlStatementData()) {
+				size += estimateSize(current.getSqlStatementData());
+			}
+			if (null != current.getLoggingData()) {
+				size += estimateSize(current.getLoggingData());
+			}
+			if (null != current.getExceptionSensorDataObjects()) {
+				for (ExceptionSensorData exceptionSensorData : current.getExceptionSensorDataObjects()) {
+					size += estimateSize(exceptionSensorData);
 				}
-				threadLocalInvocationData.set(parentSequence);
 			}
+			stack.addAll(current.getNestedSequences());
+		}
+		return size;
+	}
+
+	/**
+	 * Estimates the size of the data object attached to the invocation sequence element.
+	 *
+	 * @param dataObject
+	 *            Data object.
+	 * @return Estimated size in bytes.
+	 */
+	private long estimateSize(DefaultData dataObject) {
+		long size = DATA_OBJECT_BYTES;
+		String string = null;
+		if (dataObject instanceof SqlStatementData) {
+			string = ((SqlStatementData) dataObject).getSql();
+		} else if (dataObject instanceof LoggingData) {
+			string = ((LoggingData) dataObject).getMessage();
+		} else if (dataObject instanceof ExceptionSensorData) {
+			string = ((ExceptionSensorData) dataObject).getStackTrace();
+		}
+		if (null != string) {
+			size += 2L * string.length();
 		}
+		return size;
 	}
 
 	/**
@@ -303,13 +577,8 @@ public class InvocationSequenceHook implements IMethodHook, IConstructorHook, IC
 	 * @return True if the invocation should be removed.
 	 */
 	private boolean removeDueToExceptionDelegation(RegisteredSensorConfig rsc, InvocationSequenceData invocationSequenceData) {
-		List<IMethodSensor> sensors = rsc.getMethodSensors();
-		if (1 == sensors.size()) {
-			MethodSensorTypeConfig methodSensorTypeConfig = sensors.get(0).getSensorTypeConfig();
-
-			if (ExceptionSensor.class.getCanonicalName().equals(methodSensorTypeConfig.getClassName())) {
-				return CollectionUtils.isEmpty(invocationSequenceData.getExceptionSensorDataObjects());
-			}
+		if ((1 == rsc.getMethodSensors().size()) && (0 != (rsc.getSensorKinds() & RegisteredSensorConfig.EXCEPTION_SENSOR))) {
+			return CollectionUtils.isEmpty(invocationSequenceData.getExceptionSensorDataObjects());
 		}
 
 		return false;
@@ -326,16 +595,8 @@ public class InvocationSequenceHook implements IMethodHook, IConstructorHook, IC
 	 * @return True if the invocation should be removed.
 	 */
 	private boolean removeDueToWrappedSqls(RegisteredSensorConfig rsc, InvocationSequenceData invocationSequenceData) {
-		List<IMethodSensor> sensors = rsc.getMethodSensors();
-		if ((1 == sensors.size()) || ((2 == sensors.size()) && enhancedExceptionSensor)) {
-			for (IMethodSensor methodSensor : sensors) {
-				MethodSensorTypeConfig methodSensorTypeConfig = methodSensor.getSensorTypeConfig();
-				if (PreparedStatementSensor.class.getCanonicalName().equals(methodSensorTypeConfig.getClassName())) {
-					if ((null == invocationSequenceData.getSqlStatementData()) || (0 == invocationSequenceData.getSqlStatementData().getCount())) {
-						return true;
-					}
-				}
-			}
+		if (isSingleSensor(rsc) && (0 != (rsc.getSensorKinds() & RegisteredSensorConfig.PREPARED_STATEMENT_SENSOR))) {
+			return (null == invocationSequenceData.getSqlStatementData()) || (0 == invocationSequenceData.getSqlStatementData().getCount());
 		}
 
 		return false;
@@ -353,14 +614,8 @@ public class InvocationSequenceHook implements IMethodHook, IConstructorHook, IC
 	 * @return True if the invocation should be removed.
 	 */
 	private boolean removeDueToNotCapturedLogging(RegisteredSensorConfig rsc, InvocationSequenceData invocationSequenceData) {
-		List<IMethodSensor> sensors = rsc.getMethodSensors();
-		if ((1 == sensors.size()) || ((2 == sensors.size()) && enhancedExceptionSensor)) {
-			for (IMethodSensor methodSensor : sensors) {
-				MethodSensorTypeConfig methodSensorTypeConfig = methodSensor.getSensorTypeConfig();
-				if (Log4JLoggingSensor.class.getCanonicalName().equals(methodSensorTypeConfig.getClassName())) {
-					return !InvocationSequenceDataHelper.hasLoggingData(invocationSequenceData);
-				}
-			}
+		if (isSingleSensor(rsc) && (0 != (rsc.getSensorKinds() & RegisteredSensorConfig.LOG4J_LOGGING_SENSOR))) {
+			return !InvocationSequenceDataHelper.hasLoggingData(invocationSequenceData);
 		}
 		return false;
 	}
@@ -384,20 +639,20 @@ public class InvocationSequenceHook implements IMethodHook, IConstructorHook, IC
 	 *         otherwise.
 	 */
 	private boolean skip(RegisteredSensorConfig rsc) {
-		List<IMethodSensor> sensors = rsc.getMethodSensors();
-		if ((1 == sensors.size()) || ((2 == sensors.size()) && enhancedExceptionSensor)) {
-			for (IMethodSensor methodSensor : sensors) {
-				MethodSensorTypeConfig methodSensorTypeConfig = methodSensor.getSensorTypeConfig();
-				if (PreparedStatementParameterSensor.class.getCanonicalName().equals(methodSensorTypeConfig.getClassName())) {
-					return true;
-				}
+		return isSingleSensor(rsc) && (0 != (rsc.getSensorKinds() & (RegisteredSensorConfig.PREPARED_STATEMENT_PARAMETER_SENSOR | RegisteredSensorConfig.CONNECTION_SENSOR)));
+	}
 
-				if (ConnectionSensor.class.getCanonicalName().equals(methodSensorTypeConfig.getClassName())) {
-					return true;
-				}
-			}
-		}
-		return false;
+	/**
+	 * Returns if the {@link RegisteredSensorConfig} has only one sensor, not counting the exception
+	 * sensor when the enhanced exception sensor is active.
+	 *
+	 * @param rsc
+	 *            {@link RegisteredSensorConfig}.
+	 * @return <code>true</code> if the method is instrumented with a single sensor.
+	 */
+	private boolean isSingleSensor(RegisteredSensorConfig rsc) {
+		int size = rsc.getMethodSensors().size();
+		return (1 == size) || ((2 == size) && enhancedExceptionSensor);
 	}
 
 	/**
@@ -424,7 +679,7 @@ public class InvocationSequenceHook implements IMethodHook, IConstructorHook, IC
 	 */
 	private void checkForSavingOrNot(ICoreService coreService, long methodId, long sensorTypeId, RegisteredSensorConfig rsc, InvocationSequenceData invocationSequenceData, double startTime, // NOCHK
 			double endTime, double duration) {
-		double minduration = minDurationMap.get(invocationStartId.get()).doubleValue();
+		double minduration = rsc.getMinDuration();
 		if (duration >= minduration) {
 			if (LOG.isDebugEnabled()) {
 				LOG.debug("Saving invocation. " + duration + " > " + minduration + " ID(local): " + rsc.getId());
@@ -444,26 +699,48 @@ public class InvocationSequenceHook implements IMethodHook, IConstructorHook, IC
 	 * {@inheritDoc}
 	 */
 	public void beforeConstructor(long methodId, long sensorTypeId, Object[] parameters, RegisteredSensorConfig rsc) {
-		beforeBody(methodId, sensorTypeId, null, parameters, rsc);
+		beforeBody(ThreadContext.current(), methodId, sensorTypeId, null, parameters, rsc);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void beforeConstructor(ThreadContext threadContext, long methodId, long sensorTypeId, Object[] parameters, RegisteredSensorConfig rsc) {
+		beforeBody(threadContext, methodId, sensorTypeId, null, parameters, rsc);
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	public void afterConstructor(ICoreService coreService, long methodId, long sensorTypeId, Object object, Object[] parameters, RegisteredSensorConfig rsc) {
-		firstAfterBody(methodId, sensorTypeId, object, parameters, null, rsc);
-		secondAfterBody(coreService, methodId, sensorTypeId, object, parameters, null, rsc);
+		afterConstructor(ThreadContext.current(), coreService, methodId, sensorTypeId, object, parameters, rsc);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void afterConstructor(ThreadContext threadContext, ICoreService coreService, long methodId, long sensorTypeId, Object object, Object[] parameters, RegisteredSensorConfig rsc) {
+		firstAfterBody(threadContext, methodId, sensorTypeId, object, parameters, null, rsc);
+		secondAfterBody(threadContext, coreService, methodId, sensorTypeId, object, parameters, null, rsc);
 	}
 
 	/**
 	 * Save the data objects which are coming from all the different sensor types in the current
 	 * invocation tracer context.
 	 *
+	 * @param state
+	 *            {@link InvocationState} of the thread.
 	 * @param dataObject
 	 *            The data object to save.
 	 */
-	private void saveDataObject(DefaultData dataObject) {
-		InvocationSequenceData invocationSequenceData = threadLocalInvocationData.get();
+	private void saveDataObject(InvocationState state, DefaultData dataObject) {
+		if (state.overflowDepth > 0) {
+			// data of the calls that are not recorded is not kept
+			return;
+		}
+
+		InvocationSequenceData invocationSequenceData = state.invocationSequenceData;
+		state.estimatedBytes += estimateSize(dataObject);
 
 		if (dataObject.getClass().equals(SqlStatementData.class)) {
 			// don't overwrite an already existing sql statement data object.
@@ -506,41 +783,44 @@ public class InvocationSequenceHook implements IMethodHook, IConstructorHook, IC
 	 * {@inheritDoc}
 	 */
 	public void addMethodSensorData(long sensorTypeId, long methodId, String prefix, MethodSensorData methodSensorData) {
-		if (null == threadLocalInvocationData.get()) {
+		InvocationState state = getState(ThreadContext.current());
+		if (null == state.invocationSequenceData) {
 			LOG.error("thread data NULL!!!!");
 			return;
 		}
-		saveDataObject(methodSensorData.finalizeData());
+		saveDataObject(state, methodSensorData.finalizeData());
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	public void addObjectStorage(long sensorTypeId, long methodId, String prefix, IObjectStorage objectStorage) {
-		if (null == threadLocalInvocationData.get()) {
+		InvocationState state = getState(ThreadContext.current());
+		if (null == state.invocationSequenceData) {
 			LOG.error("thread data NULL!!!!");
 			return;
 		}
 		DefaultData defaultData = objectStorage.finalizeDataObject();
-		saveDataObject(defaultData.finalizeData());
+		saveDataObject(state, defaultData.finalizeData());
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	public void addPlatformSensorData(long sensorTypeIdent, SystemSensorData systemSensorData) {
-		saveDataObject(systemSensorData.finalizeData());
+		saveDataObject(getState(ThreadContext.current()), systemSensorData.finalizeData());
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	public void addExceptionSensorData(long sensorTypeIdent, long throwableIdentityHashCode, ExceptionSensorData exceptionSensorData) {
-		if (null == threadLocalInvocationData.get()) {
+		InvocationState state = getState(ThreadContext.current());
+		if (null == state.invocationSequenceData) {
 			LOG.info("thread data NULL!!!!");
 			return;
 		}
-		saveDataObject(exceptionSensorData.finalizeData());
+		saveDataObject(state, exceptionSensorData.finalizeData());
 	}
 
 	// ///////////////////////////////////////////////// //
@@ -575,6 +855,21 @@ public class InvocationSequenceHook implements IMethodHook, IConstructorHook, IC
 		return null;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The invocation sequence never returns saved measurements, thus there is nothing to protect.
+	 */
+	public Object beginUpdate() {
+		return null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void endUpdate(Object update) {
+	}
+
 	// //////////////////////////////////////////////
 	// All unsupported methods are below from here //
 	// //////////////////////////////////////////////
@@ -582,7 +877,7 @@ public class InvocationSequenceHook implements IMethodHook, IConstructorHook, IC
 	/**
 	 * {@inheritDoc}
 	 */
-	public void addListListener(ListListener<?> listener) {
+	public void addListListener(ListListener listener) {
 		throw new UnsupportedMethodException();
 	}
 
@@ -603,7 +898,7 @@ public class InvocationSequenceHook implements IMethodHook, IConstructorHook, IC
 	/**
 	 * {@inheritDoc}
 	 */
-	public void removeListListener(ListListener<?> listener) {
+	public void removeListListener(ListListener listener) {
 		throw new UnsupportedMethodException();
 	}
 
@@ -663,4 +958,70 @@ public class InvocationSequenceHook implements IMethodHook, IConstructorHook, IC
 		throw new UnsupportedMethodException();
 	}
 
+	/**
+	 * State of the invocation sequence recording in one thread.
+	 */
+	private static class InvocationState {
+
+		/**
+		 * Currently recorded {@link InvocationSequenceData} object or <code>null</code> if no
+		 * invocation record is started.
+		 */
+		private InvocationSequenceData invocationSequenceData;
+
+		/**
+		 * The method id that started the record. Used to identify the correct start and end of the
+		 * record.
+		 */
+		private long startId;
+
+		/**
+		 * The count of the starting method being called in the same invocation sequence so that
+		 * closing is done on the right end.
+		 */
+		private long startIdCount;
+
+		/**
+		 * Start time of the record.
+		 */
+		private double startTime;
+
+		/**
+		 * End time of the record.
+		 */
+		private double endTime;
+
+		/**
+		 * Depth of the {@link #invocationSequenceData} in the record, root having depth zero.
+		 */
+		private int depth;
+
+		/**
+		 * Amount of elements in the record.
+		 */
+		private long elements;
+
+		/**
+		 * Estimated size of the record in bytes.
+		 */
+		private long estimatedBytes;
+
+		/**
+		 * Nesting depth of the calls that are not recorded because of the limits, zero if the
+		 * current call is recorded.
+		 */
+		private int overflowDepth;
+
+		/**
+		 * Start time of the outermost call that is not recorded.
+		 */
+		private double overflowStart;
+
+		/**
+		 * Last created element summarizing the calls that are not recorded.
+		 */
+		private InvocationSequenceData overflowSequence;
+
+	}
+
 }
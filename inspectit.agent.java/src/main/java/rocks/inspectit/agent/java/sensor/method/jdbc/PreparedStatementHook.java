@@ -14,10 +14,11 @@ import rocks.inspectit.agent.java.core.ICoreService;
 import rocks.inspectit.agent.java.core.IPlatformManager;
 import rocks.inspectit.agent.java.core.IdNotAvailableException;
 import rocks.inspectit.agent.java.hooking.IConstructorHook;
-import rocks.inspectit.agent.java.hooking.IMethodHook;
+import rocks.inspectit.agent.java.hooking.IThreadContextMethodHook;
 import rocks.inspectit.agent.java.util.StringConstraint;
-import rocks.inspectit.agent.java.util.ThreadLocalStack;
+import rocks.inspectit.agent.java.util.ThreadContext;
 import rocks.inspectit.agent.java.util.Timer;
+import rocks.inspectit.agent.java.util.TimingStack;
 import rocks.inspectit.shared.all.communication.data.SqlStatementData;
 
 /**
@@ -31,7 +32,7 @@ import rocks.inspectit.shared.all.communication.data.SqlStatementData;
  * @author Patrice Bouillet
  *
  */
-public class PreparedStatementHook implements IMethodHook, IConstructorHook {
+public class PreparedStatementHook implements IThreadContextMethodHook, IConstructorHook {
 
 	/**
 	 * The logger of this class. Initialized manually.
@@ -39,9 +40,9 @@ public class PreparedStatementHook implements IMethodHook, IConstructorHook {
 	Logger log = LoggerFactory.getLogger(PreparedStatementHook.class);
 
 	/**
-	 * The stack containing the start time values.
+	 * Slot of this hook in the {@link ThreadContext} holding the start and end time values.
 	 */
-	private final ThreadLocalStack<Double> timeStack = new ThreadLocalStack<Double>();
+	private final int timingSlot = ThreadContext.allocateSlot();
 
 	/**
 	 * The timer used for accurate measuring.
@@ -112,11 +113,25 @@ public class PreparedStatementHook implements IMethodHook, IConstructorHook {
 		this.statementReflectionCache = statementReflectionCache;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	public void release() {
+		ThreadContext.releaseSlot(timingSlot);
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
 	public void beforeBody(long methodId, long sensorTypeId, Object object, Object[] parameters, RegisteredSensorConfig rsc) {
-		timeStack.push(new Double(timer.getCurrentTime()));
+		beforeBody(ThreadContext.current(), methodId, sensorTypeId, object, parameters, rsc);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void beforeBody(ThreadContext threadContext, long methodId, long sensorTypeId, Object object, Object[] parameters, RegisteredSensorConfig rsc) {
+		threadContext.getTimingStack(timingSlot).pushTime(timer.getCurrentTime());
 		threadLast.set(Boolean.TRUE);
 	}
 
@@ -124,15 +139,31 @@ public class PreparedStatementHook implements IMethodHook, IConstructorHook {
 	 * {@inheritDoc}
 	 */
 	public void firstAfterBody(long methodId, long sensorTypeId, Object object, Object[] parameters, Object result, RegisteredSensorConfig rsc) {
-		timeStack.push(new Double(timer.getCurrentTime()));
+		firstAfterBody(ThreadContext.current(), methodId, sensorTypeId, object, parameters, result, rsc);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void firstAfterBody(ThreadContext threadContext, long methodId, long sensorTypeId, Object object, Object[] parameters, Object result, RegisteredSensorConfig rsc) {
+		threadContext.getTimingStack(timingSlot).pushTime(timer.getCurrentTime());
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	public void secondAfterBody(ICoreService coreService, long methodId, long sensorTypeId, Object object, Object[] parameters, Object result, RegisteredSensorConfig rsc) {
-		double endTime = timeStack.pop().doubleValue();
-		double startTime = timeStack.pop().doubleValue();
+		secondAfterBody(ThreadContext.current(), coreService, methodId, sensorTypeId, object, parameters, result, rsc);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void secondAfterBody(ThreadContext threadContext, ICoreService coreService, long methodId, long sensorTypeId, Object object, Object[] parameters, Object result,
+			RegisteredSensorConfig rsc) {
+		TimingStack timingStack = threadContext.getTimingStack(timingSlot);
+		double endTime = timingStack.popTime();
+		double startTime = timingStack.popTime();
 
 		if (threadLast.get().booleanValue()) {
 			threadLast.set(Boolean.FALSE);
@@ -140,37 +171,42 @@ public class PreparedStatementHook implements IMethodHook, IConstructorHook {
 			String sql = statementStorage.getPreparedStatement(object);
 			if (null != sql) {
 				double duration = endTime - startTime;
-				SqlStatementData sqlData = (SqlStatementData) coreService.getMethodSensorData(sensorTypeId, methodId, sql);
-				if (null == sqlData) {
-					try {
-						Timestamp timestamp = new Timestamp(System.currentTimeMillis() - Math.round(duration));
-						List<String> params = statementStorage.getParameters(object);
-						long platformId = platformManager.getPlatformId();
-
-						sqlData = new SqlStatementData(timestamp, platformId, sensorTypeId, methodId);
-						sqlData.setPreparedStatement(true);
-						sqlData.setSql(strConstraint.crop(sql));
-						sqlData.setDuration(duration);
-						sqlData.calculateMin(duration);
-						sqlData.calculateMax(duration);
-						sqlData.setCount(1L);
-						sqlData.setParameterValues(params);
+				Object update = coreService.beginUpdate();
+				try {
+					SqlStatementData sqlData = (SqlStatementData) coreService.getMethodSensorData(sensorTypeId, methodId, sql);
+					if (null == sqlData) {
+						try {
+							Timestamp timestamp = new Timestamp(System.currentTimeMillis() - Math.round(duration));
+							List<String> params = statementStorage.getParameters(object);
+							long platformId = platformManager.getPlatformId();
+
+							sqlData = new SqlStatementData(timestamp, platformId, sensorTypeId, methodId);
+							sqlData.setPreparedStatement(true);
+							sqlData.setSql(strConstraint.crop(sql));
+							sqlData.setDuration(duration);
+							sqlData.calculateMin(duration);
+							sqlData.calculateMax(duration);
+							sqlData.setCount(1L);
+							sqlData.setParameterValues(params);
 
-						// populate the connection meta data.
-						connectionMetaDataStorage.populate(sqlData, statementReflectionCache.getConnection(object.getClass(), object));
+							// populate the connection meta data.
+							connectionMetaDataStorage.populate(sqlData, statementReflectionCache.getConnection(object.getClass(), object));
 
-						coreService.addMethodSensorData(sensorTypeId, methodId, sql, sqlData);
-					} catch (IdNotAvailableException e) {
-						if (log.isDebugEnabled()) {
-							log.debug("Could not save the sql data because of an unavailable id. " + e.getMessage());
+							coreService.addMethodSensorData(sensorTypeId, methodId, sql, sqlData);
+						} catch (IdNotAvailableException e) {
+							if (log.isDebugEnabled()) {
+								log.debug("Could not save the sql data because of an unavailable id. " + e.getMessage());
+							}
 						}
-					}
-				} else {
-					sqlData.increaseCount();
-					sqlData.addDuration(duration);
+					} else {
+						sqlData.increaseCount();
+						sqlData.addDuration(duration);
 
-					sqlData.calculateMin(duration);
-					sqlData.calculateMax(duration);
+						sqlData.calculateMin(duration);
+						sqlData.calculateMax(duration);
+					}
+				} finally {
+					coreService.endUpdate(update);
 				}
 			} else {
 				// the sql was not found, we'll try again
@@ -0,0 +1,192 @@
+package rocks.inspectit.agent.java.sensor.method.jdbc;
+
+import java.util.List;
+
+/**
+ * Normalizes SQL statements by replacing the string and numeric literals with the <code>?</code>
+ * placeholder and collapsing the white spaces, so that the statements differing only in the
+ * inlined values result in the same normalized statement. The normalized statement can be
+ * identified by the stable 64-bit fingerprint.
+ * <p>
+ * Quoted identifiers and comments are left untouched.
+ */
+public final class SqlNormalizer {
+
+	/**
+	 * FNV-1a 64-bit offset basis.
+	 */
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+	/**
+	 * FNV-1a 64-bit prime.
+	 */
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	/**
+	 * Private constructor.
+	 */
+	private SqlNormalizer() {
+	}
+
+	/**
+	 * Normalizes the given SQL statement.
+	 *
+	 * @param sql
+	 *            SQL statement.
+	 * @param literals
+	 *            List to add the replaced literals to in the order of their appearance. Can be
+	 *            <code>null</code> if literals are not needed.
+	 * @return Normalized SQL statement.
+	 */
+	public static String normalize(String sql, List<String> literals) {
+		int length = sql.length();
+		StringBuilder normalized = new StringBuilder(length);
+		int i = 0;
+		while (i < length) {
+			char c = sql.charAt(i);
+			if (Character.isWhitespace(c)) {
+				// collapse white spaces, the leading and trailing are removed
+				while ((i < length) && Character.isWhitespace(sql.charAt(i))) {
+					i++;
+				}
+				if ((normalized.length() > 0) && (i < length)) {
+					normalized.append(' ');
+				}
+			} else if ('\'' == c) {
+				int end = skipQuoted(sql, i, '\'');
+				addLiteral(normalized, literals, sql.substring(i, end));
+				i = end;
+			} else if (('"' == c) || ('`' == c)) {
+				int end = skipQuoted(sql, i, c);
+				normalized.append(sql, i, end);
+				i = end;
+			} else if (('-' == c) && ((i + 1) < length) && ('-' == sql.charAt(i + 1))) {
+				int end = sql.indexOf('\n', i);
+				end = (end < 0) ? length : end;
+				normalized.append(sql, i, end);
+				i = end;
+			} else if (('/' == c) && ((i + 1) < length) && ('*' == sql.charAt(i + 1))) {
+				int end = sql.indexOf("*/", i + 2);
+				end = (end < 0) ? length : end + 2;
+				normalized.append(sql, i, end);
+				i = end;
+			} else if (Character.isDigit(c) && !isIdentifierPart(normalized)) {
+				int end = skipNumber(sql, i);
+				addLiteral(normalized, literals, sql.substring(i, end));
+				i = end;
+			} else {
+				normalized.append(c);
+				i++;
+			}
+		}
+		return normalized.toString();
+	}
+
+	/**
+	 * Computes the 64-bit FNV-1a fingerprint of the given SQL statement.
+	 *
+	 * @param sql
+	 *            SQL statement, usually normalized.
+	 * @return Fingerprint, never <code>0</code> so that zero can denote the missing fingerprint.
+	 */
+	public static long fingerprint(String sql) {
+		long hash = FNV_OFFSET_BASIS;
+		for (int i = 0; i < sql.length(); i++) {
+			char c = sql.charAt(i);
+			hash ^= c & 0xff;
+			hash *= FNV_PRIME;
+			hash ^= c >>> 8;
+			hash *= FNV_PRIME;
+		}
+		return (0L == hash) ? FNV_OFFSET_BASIS : hash;
+	}
+
+	/**
+	 * Appends the placeholder and remembers the literal.
+	 *
+	 * @param normalized
+	 *            Normalized statement being built.
+	 * @param literals
+	 *            List of literals or <code>null</code>.
+	 * @param literal
+	 *            Replaced literal.
+	 */
+	private static void addLiteral(StringBuilder normalized, List<String> literals, String literal) {
+		normalized.append('?');
+		if (null != literals) {
+			literals.add(literal);
+		}
+	}
+
+	/**
+	 * Returns the index after the quoted part starting at the given index. Doubled quotes are
+	 * treated as the escaped quote.
+	 *
+	 * @param sql
+	 *            SQL statement.
+	 * @param start
+	 *            Index of the opening quote.
+	 * @param quote
+	 *            Quote character.
+	 * @return Index after the closing quote or length of the statement if the quote is not closed.
+	 */
+	private static int skipQuoted(String sql, int start, char quote) {
+		int length = sql.length();
+		int i = start + 1;
+		while (i < length) {
+			if (quote == sql.charAt(i)) {
+				if (((i + 1) < length) && (quote == sql.charAt(i + 1))) {
+					i += 2;
+					continue;
+				}
+				return i + 1;
+			}
+			i++;
+		}
+		return length;
+	}
+
+	/**
+	 * Returns the index after the numeric literal starting at the given index. Decimals, exponents
+	 * and hexadecimal numbers are included.
+	 *
+	 * @param sql
+	 *            SQL statement.
+	 * @param start
+	 *            Index of the first digit.
+	 * @return Index after the numeric literal.
+	 */
+	private static int skipNumber(String sql, int start) {
+		int length = sql.length();
+		boolean hex = ((start + 1) < length) && ('0' == sql.charAt(start)) && (('x' == sql.charAt(start + 1)) || ('X' == sql.charAt(start + 1)));
+		int i = start + 1;
+		while (i < length) {
+			char c = sql.charAt(i);
+			if (Character.isLetterOrDigit(c) || ('.' == c)) {
+				i++;
+			} else if (!hex && (('+' == c) || ('-' == c)) && (('e' == sql.charAt(i - 1)) || ('E' == sql.charAt(i - 1)))) {
+				i++;
+			} else {
+				break;
+			}
+		}
+		return i;
+	}
+
+	/**
+	 * Returns if the last character of the normalized statement is part of an identifier, in which
+	 * case a following digit belongs to the identifier as well.
+	 *
+	 * @param normalized
+	 *            Normalized statement being built.
+	 * @return <code>true</code> if the digit would continue an identifier.
+	 */
+	private static boolean isIdentifierPart(StringBuilder normalized) {
+		if (0 == normalized.length()) {
+			return false;
+		}
+		char last = normalized.charAt(normalized.length() - 1);
+		return Character.isLetterOrDigit(last) || ('_' == last) || ('$' == last) || ('"' == last) || ('`' == last) || ('?' == last) || (':' == last);
+	}
+
+}
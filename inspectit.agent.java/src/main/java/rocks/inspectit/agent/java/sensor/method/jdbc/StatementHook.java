@@ -1,7 +1,10 @@
 package rocks.inspectit.agent.java.sensor.method.jdbc;
 
 import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,24 +14,31 @@ import rocks.inspectit.agent.java.core.ICoreService;
 import rocks.inspectit.agent.java.core.IPlatformManager;
 import rocks.inspectit.agent.java.core.IdNotAvailableException;
 import rocks.inspectit.agent.java.core.impl.CoreService;
-import rocks.inspectit.agent.java.hooking.IMethodHook;
+import rocks.inspectit.agent.java.hooking.IThreadContextMethodHook;
 import rocks.inspectit.agent.java.util.StringConstraint;
-import rocks.inspectit.agent.java.util.ThreadLocalStack;
+import rocks.inspectit.agent.java.util.ThreadContext;
 import rocks.inspectit.agent.java.util.Timer;
+import rocks.inspectit.agent.java.util.TimingStack;
 import rocks.inspectit.shared.all.communication.data.SqlStatementData;
 
 /**
- * The hook implementation for the statement sensor. It uses the {@link ThreadLocalStack} class to
- * know if some execute methods call each other which would result in multiple data objects for only
- * one query. After the complete SQL method was executed, it computes how long the method took to
- * finish and saves the executed SQL Statement String. Afterwards, the measurement is added to the
- * {@link CoreService}.
+ * The hook implementation for the statement sensor. It uses the {@link TimingStack} of the
+ * {@link ThreadContext} to know if some execute methods call each other which would result in
+ * multiple data objects for only one query. After the complete SQL method was executed, it computes
+ * how long the method took to finish and saves the executed SQL Statement String. Afterwards, the
+ * measurement is added to the {@link CoreService}.
+ * <p>
+ * If the SQL normalization is active, the literals in the SQL are replaced with placeholders by
+ * the {@link SqlNormalizer} and the data is aggregated by the fingerprint of the normalized SQL, so
+ * that statements with inlined values do not create a new data object per value. The replaced
+ * literals of the first call can be kept as parameter values. Optionally the normalized SQL is
+ * sent only from time to time and the CMR resolves it from the fingerprint in between.
  *
  * @author Christian Herzog
  * @author Patrice Bouillet
  *
  */
-public class StatementHook implements IMethodHook {
+public class StatementHook implements IThreadContextMethodHook {
 
 	/**
 	 * The logger of this class. Initialized manually.
@@ -36,9 +46,21 @@ public class StatementHook implements IMethodHook {
 	private static final Logger LOG = LoggerFactory.getLogger(StatementHook.class);
 
 	/**
-	 * The stack containing the start time values.
+	 * Interval in milliseconds after which the SQL of a fingerprint is sent again, so that the CMR
+	 * can recover the SQL after a restart or a lost data object.
 	 */
-	private final ThreadLocalStack<Double> timeStack = new ThreadLocalStack<Double>();
+	private static final long SQL_TEXT_RESEND_INTERVAL = 300000L;
+
+	/**
+	 * Maximum amount of fingerprints remembered for sending the SQL only once. Further
+	 * fingerprints are always sent with the SQL.
+	 */
+	private static final int MAX_SENT_FINGERPRINTS = 10000;
+
+	/**
+	 * Slot of this hook in the {@link ThreadContext} holding the start and end time values.
+	 */
+	private final int timingSlot = ThreadContext.allocateSlot();
 
 	/**
 	 * The timer used for accurate measuring.
@@ -71,6 +93,26 @@ public class StatementHook implements IMethodHook {
 	 */
 	private final StatementReflectionCache statementReflectionCache;
 
+	/**
+	 * If the SQL should be normalized and aggregated by the fingerprint.
+	 */
+	private final boolean normalizeSql;
+
+	/**
+	 * If the replaced literals of the first call should be kept as parameter values.
+	 */
+	private final boolean sampleLiterals;
+
+	/**
+	 * If the normalized SQL should be sent only once per {@link #SQL_TEXT_RESEND_INTERVAL}.
+	 */
+	private final boolean sqlTextOnce;
+
+	/**
+	 * Time when the SQL was last sent by the fingerprint.
+	 */
+	private final Map<Long, Long> sqlTextSent = new ConcurrentHashMap<Long, Long>();
+
 	/**
 	 * The only constructor which needs the {@link Timer}.
 	 *
@@ -92,13 +134,30 @@ public class StatementHook implements IMethodHook {
 		this.connectionMetaDataStorage = connectionMetaDataStorage;
 		this.strConstraint = new StringConstraint(parameter);
 		this.statementReflectionCache = statementReflectionCache;
+		this.normalizeSql = (null != parameter) && "true".equals(parameter.get("normalizeSql"));
+		this.sampleLiterals = normalizeSql && "true".equals(parameter.get("sampleLiterals"));
+		this.sqlTextOnce = normalizeSql && "true".equals(parameter.get("sqlTextOnce"));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void release() {
+		ThreadContext.releaseSlot(timingSlot);
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	public void beforeBody(long methodId, long sensorTypeId, Object object, Object[] parameters, RegisteredSensorConfig rsc) {
-		timeStack.push(new Double(timer.getCurrentTime()));
+		beforeBody(ThreadContext.current(), methodId, sensorTypeId, object, parameters, rsc);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void beforeBody(ThreadContext threadContext, long methodId, long sensorTypeId, Object object, Object[] parameters, RegisteredSensorConfig rsc) {
+		threadContext.getTimingStack(timingSlot).pushTime(timer.getCurrentTime());
 		threadLast.set(Boolean.TRUE);
 	}
 
@@ -106,52 +165,143 @@ public class StatementHook implements IMethodHook {
 	 * {@inheritDoc}
 	 */
 	public void firstAfterBody(long methodId, long sensorTypeId, Object object, Object[] parameters, Object result, RegisteredSensorConfig rsc) {
-		timeStack.push(new Double(timer.getCurrentTime()));
+		firstAfterBody(ThreadContext.current(), methodId, sensorTypeId, object, parameters, result, rsc);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void firstAfterBody(ThreadContext threadContext, long methodId, long sensorTypeId, Object object, Object[] parameters, Object result, RegisteredSensorConfig rsc) {
+		threadContext.getTimingStack(timingSlot).pushTime(timer.getCurrentTime());
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	public void secondAfterBody(ICoreService coreService, long methodId, long sensorTypeId, Object object, Object[] parameters, Object result, RegisteredSensorConfig rsc) {
-		double endTime = timeStack.pop().doubleValue();
-		double startTime = timeStack.pop().doubleValue();
+		secondAfterBody(ThreadContext.current(), coreService, methodId, sensorTypeId, object, parameters, result, rsc);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void secondAfterBody(ThreadContext threadContext, ICoreService coreService, long methodId, long sensorTypeId, Object object, Object[] parameters, Object result,
+			RegisteredSensorConfig rsc) {
+		TimingStack timingStack = threadContext.getTimingStack(timingSlot);
+		double endTime = timingStack.popTime();
+		double startTime = timingStack.popTime();
 
 		if (threadLast.get().booleanValue()) {
 			threadLast.set(Boolean.FALSE);
 
 			double duration = endTime - startTime;
 			String sql = parameters[0].toString();
-			SqlStatementData sqlData = (SqlStatementData) coreService.getMethodSensorData(sensorTypeId, methodId, sql);
+			List<String> literals = null;
+			long fingerprint = 0L;
+			String key = sql;
+			if (normalizeSql) {
+				if (sampleLiterals) {
+					literals = new ArrayList<String>();
+				}
+				sql = SqlNormalizer.normalize(sql, literals);
+				fingerprint = SqlNormalizer.fingerprint(sql);
+				key = String.valueOf(fingerprint);
+			}
+			Object update = coreService.beginUpdate();
+			try {
+				SqlStatementData sqlData = (SqlStatementData) coreService.getMethodSensorData(sensorTypeId, methodId, key);
 
-			if (null == sqlData) {
-				try {
-					Timestamp timestamp = new Timestamp(System.currentTimeMillis() - Math.round(duration));
-					long platformId = platformManager.getPlatformId();
+				if (null == sqlData) {
+					try {
+						Timestamp timestamp = new Timestamp(System.currentTimeMillis() - Math.round(duration));
+						long platformId = platformManager.getPlatformId();
+
+						sqlData = new SqlStatementData(timestamp, platformId, sensorTypeId, methodId);
+						sqlData.setPreparedStatement(false);
+						if (normalizeSql) {
+							sqlData.setSqlFingerprint(fingerprint);
+							if (isSqlTextNeeded(coreService, fingerprint)) {
+								sqlData.setSql(strConstraint.crop(sql));
+							}
+							if ((null != literals) && !literals.isEmpty() && (literals.size() == countPlaceholders(sql))) {
+								for (int i = 0; i < literals.size(); i++) {
+									literals.set(i, strConstraint.crop(literals.get(i)));
+								}
+								sqlData.setParameterValues(literals);
+							}
+						} else {
+							sqlData.setSql(strConstraint.crop(sql));
+						}
+						sqlData.setDuration(duration);
+						sqlData.calculateMin(duration);
+						sqlData.calculateMax(duration);
+						sqlData.setCount(1L);
+
+						// populate the connection meta data.
+						connectionMetaDataStorage.populate(sqlData, statementReflectionCache.getConnection(object.getClass(), object));
+						coreService.addMethodSensorData(sensorTypeId, methodId, key, sqlData);
+					} catch (IdNotAvailableException e) {
+						if (LOG.isDebugEnabled()) {
+							LOG.debug("Could not save the sql data because of an unavailable id. " + e.getMessage());
+						}
+					}
+				} else {
+					sqlData.increaseCount();
+					sqlData.addDuration(duration);
 
-					sqlData = new SqlStatementData(timestamp, platformId, sensorTypeId, methodId);
-					sqlData.setPreparedStatement(false);
-					sqlData.setSql(strConstraint.crop(sql));
-					sqlData.setDuration(duration);
 					sqlData.calculateMin(duration);
 					sqlData.calculateMax(duration);
-					sqlData.setCount(1L);
-
-					// populate the connection meta data.
-					connectionMetaDataStorage.populate(sqlData, statementReflectionCache.getConnection(object.getClass(), object));
-					coreService.addMethodSensorData(sensorTypeId, methodId, sql, sqlData);
-				} catch (IdNotAvailableException e) {
-					if (LOG.isDebugEnabled()) {
-						LOG.debug("Could not save the sql data because of an unavailable id. " + e.getMessage());
-					}
 				}
-			} else {
-				sqlData.increaseCount();
-				sqlData.addDuration(duration);
+			} finally {
+				coreService.endUpdate(update);
+			}
+		}
+	}
+
+	/**
+	 * Returns if the normalized SQL has to be set to the new data object. The SQL can be omitted
+	 * only for the data objects added to the {@link CoreService} directly, as only those are sent
+	 * in the order of the creation. Data objects that are part of the invocation sequences always
+	 * get the SQL.
+	 *
+	 * @param coreService
+	 *            Core service the data object is added to.
+	 * @param fingerprint
+	 *            Fingerprint of the normalized SQL.
+	 * @return <code>true</code> if the SQL has to be set.
+	 */
+	private boolean isSqlTextNeeded(ICoreService coreService, long fingerprint) {
+		if (!sqlTextOnce || !(coreService instanceof CoreService)) {
+			return true;
+		}
 
-				sqlData.calculateMin(duration);
-				sqlData.calculateMax(duration);
+		long now = System.currentTimeMillis();
+		Long key = Long.valueOf(fingerprint);
+		Long sent = sqlTextSent.get(key);
+		if ((null != sent) && ((now - sent.longValue()) < SQL_TEXT_RESEND_INTERVAL)) {
+			return false;
+		}
+		if ((null != sent) || (sqlTextSent.size() < MAX_SENT_FINGERPRINTS)) {
+			sqlTextSent.put(key, Long.valueOf(now));
+		}
+		return true;
+	}
+
+	/**
+	 * Counts the placeholders in the SQL.
+	 *
+	 * @param sql
+	 *            SQL.
+	 * @return Amount of <code>?</code> characters.
+	 */
+	private static int countPlaceholders(String sql) {
+		int count = 0;
+		for (int i = 0; i < sql.length(); i++) {
+			if ('?' == sql.charAt(i)) {
+				count++;
 			}
 		}
+		return count;
 	}
 
 }
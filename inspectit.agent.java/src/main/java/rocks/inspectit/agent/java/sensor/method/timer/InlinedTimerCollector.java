@@ -0,0 +1,217 @@
+package rocks.inspectit.agent.java.sensor.method.timer;
+
+import java.sql.Timestamp;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import rocks.inspectit.agent.java.core.ICoreService;
+import rocks.inspectit.agent.java.core.IPlatformManager;
+import rocks.inspectit.agent.java.core.IdNotAvailableException;
+import rocks.inspectit.agent.java.hooking.InlinedTimer;
+import rocks.inspectit.shared.all.communication.MethodSensorData;
+import rocks.inspectit.shared.all.communication.data.TimerData;
+import rocks.inspectit.shared.all.instrumentation.config.impl.SensorInstrumentationPoint;
+import rocks.inspectit.shared.all.spring.logger.Log;
+
+/**
+ * Assigns the {@link InlinedTimer} slots to the methods instrumented with the inlined timer and
+ * periodically collects the aggregated slot values as {@link TimerData} to the core service.
+ */
+@Component
+public class InlinedTimerCollector implements InitializingBean, DisposableBean {
+
+	/**
+	 * Period in milliseconds of the slots collection.
+	 */
+	private static final long COLLECT_PERIOD = 1000L;
+
+	/**
+	 * Nanoseconds in one millisecond.
+	 */
+	private static final double NANOS_IN_MILLI = 1000000d;
+
+	/**
+	 * The logger of the class.
+	 */
+	@Log
+	Logger log;
+
+	/**
+	 * The core service.
+	 */
+	@Autowired
+	private ICoreService coreService;
+
+	/**
+	 * Platform manager.
+	 */
+	@Autowired
+	private IPlatformManager platformManager;
+
+	/**
+	 * Assigned slots by the method id.
+	 */
+	private final Map<Long, Integer> methodSlots = new ConcurrentHashMap<Long, Integer>();
+
+	/**
+	 * Methods by the assigned slot.
+	 */
+	private final Map<Integer, SlotMethod> slotMethods = new ConcurrentHashMap<Integer, SlotMethod>();
+
+	/**
+	 * Runnable which collects the slots.
+	 */
+	private final Runnable collectRunnable = new Runnable() {
+		public void run() {
+			collect();
+		}
+	};
+
+	/**
+	 * ScheduledFuture representing the pending collection task.
+	 */
+	private ScheduledFuture<?> scheduledTask;
+
+	/**
+	 * Assigns the inlined timer slot to the given instrumentation point. Methods keep their slot,
+	 * thus the slot assigned to the method on the first call is assigned on all following calls.
+	 *
+	 * @param sensorInstrumentationPoint
+	 *            {@link SensorInstrumentationPoint} requesting the inlined timer.
+	 */
+	public synchronized void assignSlot(SensorInstrumentationPoint sensorInstrumentationPoint) {
+		long[] sensorIds = sensorInstrumentationPoint.getSensorIds();
+		if (sensorIds.length != 1) {
+			// the inlined timer will not be used
+			return;
+		}
+
+		Long methodId = Long.valueOf(sensorInstrumentationPoint.getId());
+		Integer slot = methodSlots.get(methodId);
+		if (null == slot) {
+			slot = Integer.valueOf(InlinedTimer.allocateSlot());
+			slotMethods.put(slot, new SlotMethod(methodId.longValue(), sensorIds[0]));
+			methodSlots.put(methodId, slot);
+		}
+		sensorInstrumentationPoint.setInlinedTimerSlot(slot.intValue());
+	}
+
+	/**
+	 * Collects the values aggregated in all slots since the last collection and adds them as
+	 * {@link TimerData} to the core service.
+	 */
+	void collect() {
+		if (slotMethods.isEmpty()) {
+			return;
+		}
+
+		long platformId;
+		try {
+			platformId = platformManager.getPlatformId();
+		} catch (IdNotAvailableException e) {
+			// keep the values in the slots until the platform id is available
+			if (log.isDebugEnabled()) {
+				log.debug("Inlined timer data could not be collected. No platform id available.", e);
+			}
+			return;
+		}
+
+		Timestamp timestamp = new Timestamp(System.currentTimeMillis());
+		long[] values = new long[4];
+		for (Entry<Integer, SlotMethod> entry : slotMethods.entrySet()) {
+			if (!InlinedTimer.drain(entry.getKey().intValue(), values)) {
+				continue;
+			}
+
+			SlotMethod slotMethod = entry.getValue();
+			TimerData timerData = new TimerData(timestamp, platformId, slotMethod.sensorTypeId, slotMethod.methodId);
+			long count = values[0];
+			double duration = values[1] / NANOS_IN_MILLI;
+			timerData.setCount(count);
+			timerData.setDuration(duration);
+			if (values[2] <= values[3]) {
+				timerData.calculateMin(values[2] / NANOS_IN_MILLI);
+				timerData.calculateMax(values[3] / NANOS_IN_MILLI);
+			} else {
+				// minimum and maximum not set yet by the invocation recorded during the drain
+				timerData.calculateMin(duration / count);
+				timerData.calculateMax(duration / count);
+			}
+
+			Object update = coreService.beginUpdate();
+			try {
+				MethodSensorData existing = coreService.getMethodSensorData(slotMethod.sensorTypeId, slotMethod.methodId, null);
+				if (existing instanceof TimerData) {
+					((TimerData) existing).aggregateTimerData(timerData);
+				} else {
+					coreService.addMethodSensorData(slotMethod.sensorTypeId, slotMethod.methodId, null, timerData);
+				}
+			} finally {
+				coreService.endUpdate(update);
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Starts the collection of the slots.
+	 */
+	public void afterPropertiesSet() throws Exception {
+		if (null == scheduledTask) {
+			scheduledTask = coreService.getExecutorService().scheduleAtFixedRate(collectRunnable, COLLECT_PERIOD, COLLECT_PERIOD, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Stops the collection and collects the values for the last time.
+	 */
+	public void destroy() throws Exception {
+		if (null != scheduledTask) {
+			scheduledTask.cancel(false);
+		}
+		collect();
+	}
+
+	/**
+	 * Method the slot is assigned to.
+	 */
+	private static final class SlotMethod {
+
+		/**
+		 * Method id.
+		 */
+		private final long methodId;
+
+		/**
+		 * Timer sensor type id.
+		 */
+		private final long sensorTypeId;
+
+		/**
+		 * Default constructor.
+		 *
+		 * @param methodId
+		 *            Method id.
+		 * @param sensorTypeId
+		 *            Timer sensor type id.
+		 */
+		SlotMethod(long methodId, long sensorTypeId) {
+			this.methodId = methodId;
+			this.sensorTypeId = sensorTypeId;
+		}
+
+	}
+
+}
@@ -13,17 +13,18 @@ import rocks.inspectit.agent.java.config.impl.RegisteredSensorConfig;
 import rocks.inspectit.agent.java.core.ICoreService;
 import rocks.inspectit.agent.java.core.IPlatformManager;
 import rocks.inspectit.agent.java.core.IdNotAvailableException;
-import rocks.inspectit.agent.java.hooking.IConstructorHook;
-import rocks.inspectit.agent.java.hooking.IMethodHook;
+import rocks.inspectit.agent.java.hooking.IThreadContextConstructorHook;
+import rocks.inspectit.agent.java.hooking.IThreadContextMethodHook;
 import rocks.inspectit.agent.java.sensor.method.averagetimer.AverageTimerHook;
 import rocks.inspectit.agent.java.util.StringConstraint;
-import rocks.inspectit.agent.java.util.ThreadLocalStack;
+import rocks.inspectit.agent.java.util.ThreadContext;
 import rocks.inspectit.agent.java.util.Timer;
+import rocks.inspectit.agent.java.util.TimingStack;
 import rocks.inspectit.shared.all.communication.data.ParameterContentData;
 
 /**
- * The hook implementation for the timer sensor. It uses the {@link ThreadLocalStack} class to save
- * the time when the method was called.
+ * The hook implementation for the timer sensor. It uses the {@link TimingStack} of the
+ * {@link ThreadContext} to save the time when the method was called.
  * <p>
  * The difference to the {@link AverageTimerHook} is that it's using {@link ITimerStorage} objects
  * to save the values. The {@link ITimerStorage} is responsible for the actual data saving, so
@@ -32,7 +33,7 @@ import rocks.inspectit.shared.all.communication.data.ParameterContentData;
  * @author Patrice Bouillet
  *
  */
-public class TimerHook implements IMethodHook, IConstructorHook {
+public class TimerHook implements IThreadContextMethodHook, IThreadContextConstructorHook {
 
 	/**
 	 * The logger of this class. Initialized manually.
@@ -40,9 +41,9 @@ public class TimerHook implements IMethodHook, IConstructorHook {
 	private static final Logger LOG = LoggerFactory.getLogger(TimerHook.class);
 
 	/**
-	 * The stack containing the start time values.
+	 * Slot of this hook in the {@link ThreadContext} holding the start and end time values.
 	 */
-	private final ThreadLocalStack<Double> timeStack = new ThreadLocalStack<Double>();
+	private final int timingSlot = ThreadContext.allocateSlot();
 
 	/**
 	 * The timer used for accurate measuring.
@@ -85,11 +86,6 @@ public class TimerHook implements IMethodHook, IConstructorHook {
 	 */
 	private boolean enabled = false;
 
-	/**
-	 * The stack containing the start time values.
-	 */
-	private final ThreadLocalStack<Long> threadCpuTimeStack = new ThreadLocalStack<Long>();
-
 	/**
 	 * The only constructor which needs the used {@link ICoreService} implementation and the used
 	 * {@link Timer}.
@@ -135,13 +131,28 @@ public class TimerHook implements IMethodHook, IConstructorHook {
 		this.strConstraint = new StringConstraint(param);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	public void release() {
+		ThreadContext.releaseSlot(timingSlot);
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
 	public void beforeBody(long methodId, long sensorTypeId, Object object, Object[] parameters, RegisteredSensorConfig rsc) {
-		timeStack.push(new Double(timer.getCurrentTime()));
+		beforeBody(ThreadContext.current(), methodId, sensorTypeId, object, parameters, rsc);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void beforeBody(ThreadContext threadContext, long methodId, long sensorTypeId, Object object, Object[] parameters, RegisteredSensorConfig rsc) {
+		TimingStack timingStack = threadContext.getTimingStack(timingSlot);
+		timingStack.pushTime(timer.getCurrentTime());
 		if (enabled) {
-			threadCpuTimeStack.push(Long.valueOf(threadMXBean.getCurrentThreadCpuTime()));
+			timingStack.pushCpuTime(threadMXBean.getCurrentThreadCpuTime());
 		}
 	}
 
@@ -149,9 +160,17 @@ public class TimerHook implements IMethodHook, IConstructorHook {
 	 * {@inheritDoc}
 	 */
 	public void firstAfterBody(long methodId, long sensorTypeId, Object object, Object[] parameters, Object result, RegisteredSensorConfig rsc) {
-		timeStack.push(new Double(timer.getCurrentTime()));
+		firstAfterBody(ThreadContext.current(), methodId, sensorTypeId, object, parameters, result, rsc);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void firstAfterBody(ThreadContext threadContext, long methodId, long sensorTypeId, Object object, Object[] parameters, Object result, RegisteredSensorConfig rsc) {
+		TimingStack timingStack = threadContext.getTimingStack(timingSlot);
+		timingStack.pushTime(timer.getCurrentTime());
 		if (enabled) {
-			threadCpuTimeStack.push(Long.valueOf(threadMXBean.getCurrentThreadCpuTime()));
+			timingStack.pushCpuTime(threadMXBean.getCurrentThreadCpuTime());
 		}
 	}
 
@@ -159,15 +178,24 @@ public class TimerHook implements IMethodHook, IConstructorHook {
 	 * {@inheritDoc}
 	 */
 	public void secondAfterBody(ICoreService coreService, long methodId, long sensorTypeId, Object object, Object[] parameters, Object result, RegisteredSensorConfig rsc) {
-		double endTime = timeStack.pop().doubleValue();
-		double startTime = timeStack.pop().doubleValue();
+		secondAfterBody(ThreadContext.current(), coreService, methodId, sensorTypeId, object, parameters, result, rsc);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void secondAfterBody(ThreadContext threadContext, ICoreService coreService, long methodId, long sensorTypeId, Object object, Object[] parameters, Object result,
+			RegisteredSensorConfig rsc) {
+		TimingStack timingStack = threadContext.getTimingStack(timingSlot);
+		double endTime = timingStack.popTime();
+		double startTime = timingStack.popTime();
 		double duration = endTime - startTime;
 
 		// default setting to a negative number
 		double cpuDuration = -1.0d;
 		if (enabled) {
-			long cpuEndTime = threadCpuTimeStack.pop().longValue();
-			long cpuStartTime = threadCpuTimeStack.pop().longValue();
+			long cpuEndTime = timingStack.popCpuTime();
+			long cpuStartTime = timingStack.popCpuTime();
 			cpuDuration = (cpuEndTime - cpuStartTime) / 1000000.0d;
 		}
 
@@ -184,27 +212,32 @@ public class TimerHook implements IMethodHook, IConstructorHook {
 			}
 		}
 
-		ITimerStorage storage = (ITimerStorage) coreService.getObjectStorage(sensorTypeId, methodId, prefix);
+		Object update = coreService.beginUpdate();
+		try {
+			ITimerStorage storage = (ITimerStorage) coreService.getObjectStorage(sensorTypeId, methodId, prefix);
 
-		if (null == storage) {
-			try {
-				long platformId = platformManager.getPlatformId();
+			if (null == storage) {
+				try {
+					long platformId = platformManager.getPlatformId();
 
-				Timestamp timestamp = new Timestamp(System.currentTimeMillis() - Math.round(duration));
+					Timestamp timestamp = new Timestamp(System.currentTimeMillis() - Math.round(duration));
 
-				boolean charting = "true".equals(rsc.getSettings().get("charting"));
+					boolean charting = "true".equals(rsc.getSettings().get("charting"));
 
-				storage = timerStorageFactory.newStorage(timestamp, platformId, sensorTypeId, methodId, parameterContentData, charting);
-				storage.addData(duration, cpuDuration);
+					storage = timerStorageFactory.newStorage(timestamp, platformId, sensorTypeId, methodId, parameterContentData, charting);
+					storage.addData(duration, cpuDuration);
 
-				coreService.addObjectStorage(sensorTypeId, methodId, prefix, storage);
-			} catch (IdNotAvailableException e) {
-				if (LOG.isDebugEnabled()) {
-					LOG.debug("Could not save the timer data because of an unavailable id. " + e.getMessage());
+					coreService.addObjectStorage(sensorTypeId, methodId, prefix, storage);
+				} catch (IdNotAvailableException e) {
+					if (LOG.isDebugEnabled()) {
+						LOG.debug("Could not save the timer data because of an unavailable id. " + e.getMessage());
+					}
 				}
+			} else {
+				storage.addData(duration, cpuDuration);
 			}
-		} else {
-			storage.addData(duration, cpuDuration);
+		} finally {
+			coreService.endUpdate(update);
 		}
 	}
 
@@ -212,9 +245,17 @@ public class TimerHook implements IMethodHook, IConstructorHook {
 	 * {@inheritDoc}
 	 */
 	public void beforeConstructor(long methodId, long sensorTypeId, Object[] parameters, RegisteredSensorConfig rsc) {
-		timeStack.push(new Double(timer.getCurrentTime()));
+		beforeConstructor(ThreadContext.current(), methodId, sensorTypeId, parameters, rsc);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void beforeConstructor(ThreadContext threadContext, long methodId, long sensorTypeId, Object[] parameters, RegisteredSensorConfig rsc) {
+		TimingStack timingStack = threadContext.getTimingStack(timingSlot);
+		timingStack.pushTime(timer.getCurrentTime());
 		if (enabled) {
-			threadCpuTimeStack.push(Long.valueOf(threadMXBean.getCurrentThreadCpuTime()));
+			timingStack.pushCpuTime(threadMXBean.getCurrentThreadCpuTime());
 		}
 	}
 
@@ -222,12 +263,20 @@ public class TimerHook implements IMethodHook, IConstructorHook {
 	 * {@inheritDoc}
 	 */
 	public void afterConstructor(ICoreService coreService, long methodId, long sensorTypeId, Object object, Object[] parameters, RegisteredSensorConfig rsc) {
-		timeStack.push(new Double(timer.getCurrentTime()));
+		afterConstructor(ThreadContext.current(), coreService, methodId, sensorTypeId, object, parameters, rsc);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void afterConstructor(ThreadContext threadContext, ICoreService coreService, long methodId, long sensorTypeId, Object object, Object[] parameters, RegisteredSensorConfig rsc) {
+		TimingStack timingStack = threadContext.getTimingStack(timingSlot);
+		timingStack.pushTime(timer.getCurrentTime());
 		if (enabled) {
-			threadCpuTimeStack.push(Long.valueOf(threadMXBean.getCurrentThreadCpuTime()));
+			timingStack.pushCpuTime(threadMXBean.getCurrentThreadCpuTime());
 		}
 		// just call the second after body method directly
-		secondAfterBody(coreService, methodId, sensorTypeId, object, parameters, null, rsc);
+		secondAfterBody(threadContext, coreService, methodId, sensorTypeId, object, parameters, null, rsc);
 	}
 
 }
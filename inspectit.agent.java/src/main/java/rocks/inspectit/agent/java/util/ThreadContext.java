@@ -0,0 +1,244 @@
+package rocks.inspectit.agent.java.util;
+
+import java.util.BitSet;
+
+import rocks.inspectit.agent.java.hooking.IHook;
+
+/**
+ * Per thread context shared by the hook dispatcher and all hooks executed in the thread. The
+ * context is resolved with a single {@link ThreadLocal} lookup and holds all per thread state of the
+ * dispatching as primitive fields, so that no boxing is needed on the method entry and exit path.
+ * <p>
+ * Every hook that needs to store timing values or other per thread state allocates its own slot
+ * with {@link #allocateSlot()} once when it is created and then uses the {@link TimingStack} or
+ * the hook state of that slot. Hooks must not share slots, as the hooks of one method are executed
+ * in different orders before and after the method body. A hook that is replaced releases its slot
+ * with {@link #releaseSlot(int)}, so that redefined sensor configurations do not let the per thread
+ * arrays grow.
+ */
+public final class ThreadContext {
+
+	/**
+	 * Initial amount of the slots in one context.
+	 */
+	private static final int INITIAL_SLOTS = 8;
+
+	/**
+	 * The context of the threads.
+	 */
+	private static final ThreadLocal<ThreadContext> CONTEXT = new ThreadLocal<ThreadContext>() {
+		@Override
+		protected ThreadContext initialValue() {
+			return new ThreadContext();
+		}
+	};
+
+	/**
+	 * Slots currently allocated. Released slots are handed out again before new ones, thus the
+	 * slots never exceed the amount of hooks alive at the same time.
+	 */
+	private static final BitSet ALLOCATED_SLOTS = new BitSet();
+
+	/**
+	 * If an execution of the dispatching is in progress in this thread.
+	 */
+	private boolean executionActive;
+
+	/**
+	 * Count of the started invocation sequences in this thread.
+	 */
+	private long invocationSequenceCount;
+
+	/**
+	 * Hook of the currently started invocation sequence or <code>null</code> if no invocation
+	 * sequence is started.
+	 */
+	private IHook invocationSequenceHook;
+
+	/**
+	 * Timing stacks indexed by the slot, created on first use.
+	 */
+	private TimingStack[] timingStacks = new TimingStack[INITIAL_SLOTS];
+
+	/**
+	 * States of the hooks indexed by the slot.
+	 */
+	private Object[] hookStates = new Object[INITIAL_SLOTS];
+
+	/**
+	 * Only {@link #current()} creates contexts.
+	 */
+	private ThreadContext() {
+	}
+
+	/**
+	 * Returns the context of the current thread.
+	 *
+	 * @return Returns the context of the current thread.
+	 */
+	public static ThreadContext current() {
+		return CONTEXT.get();
+	}
+
+	/**
+	 * Allocates a slot. Should be called once per hook instance.
+	 *
+	 * @return Slot to be passed to {@link #getTimingStack(int)} and {@link #getHookState(int)}.
+	 */
+	public static int allocateSlot() {
+		synchronized (ALLOCATED_SLOTS) {
+			int slot = ALLOCATED_SLOTS.nextClearBit(0);
+			ALLOCATED_SLOTS.set(slot);
+			return slot;
+		}
+	}
+
+	/**
+	 * Releases the slot, so that it can be allocated by the next hook. Must only be called when the
+	 * hook owning the slot is not executed anymore. Values left in the slot by threads that were
+	 * executing the hook at that time are not cleared.
+	 *
+	 * @param slot
+	 *            Slot allocated with {@link #allocateSlot()}.
+	 */
+	public static void releaseSlot(int slot) {
+		synchronized (ALLOCATED_SLOTS) {
+			ALLOCATED_SLOTS.clear(slot);
+		}
+	}
+
+	/**
+	 * Returns the timing stack of the given slot.
+	 *
+	 * @param slot
+	 *            Slot allocated with {@link #allocateSlot()}.
+	 * @return Timing stack of this thread for the slot.
+	 */
+	public TimingStack getTimingStack(int slot) {
+		if (slot >= timingStacks.length) {
+			TimingStack[] grown = new TimingStack[grownLength(timingStacks.length, slot)];
+			System.arraycopy(timingStacks, 0, grown, 0, timingStacks.length);
+			timingStacks = grown;
+		}
+
+		TimingStack timingStack = timingStacks[slot];
+		if (null == timingStack) {
+			timingStack = new TimingStack();
+			timingStacks[slot] = timingStack;
+		}
+		return timingStack;
+	}
+
+	/**
+	 * Returns the state the hook owning the slot stored in this thread.
+	 *
+	 * @param slot
+	 *            Slot allocated with {@link #allocateSlot()}.
+	 * @return Hook state or <code>null</code> if none was set.
+	 */
+	public Object getHookState(int slot) {
+		if (slot >= hookStates.length) {
+			return null;
+		}
+		return hookStates[slot];
+	}
+
+	/**
+	 * Sets the state of the hook owning the slot in this thread.
+	 *
+	 * @param slot
+	 *            Slot allocated with {@link #allocateSlot()}.
+	 * @param hookState
+	 *            Hook state.
+	 */
+	public void setHookState(int slot, Object hookState) {
+		if (slot >= hookStates.length) {
+			Object[] grown = new Object[grownLength(hookStates.length, slot)];
+			System.arraycopy(hookStates, 0, grown, 0, hookStates.length);
+			hookStates = grown;
+		}
+		hookStates[slot] = hookState;
+	}
+
+	/**
+	 * Returns the doubled length of a slot array so that it holds the given slot.
+	 *
+	 * @param length
+	 *            Current length.
+	 * @param slot
+	 *            Slot that must fit.
+	 * @return New length.
+	 */
+	private static int grownLength(int length, int slot) {
+		int grownLength = length;
+		while (slot >= grownLength) {
+			grownLength <<= 1;
+		}
+		return grownLength;
+	}
+
+	/**
+	 * Defines if our own execution is active, and thus we have to skip the whole processing
+	 * (because it could happen, that we'll never end then).
+	 *
+	 * @return if own execution is active.
+	 */
+	public boolean isExecutionActive() {
+		return executionActive;
+	}
+
+	/**
+	 * Marks the execution as active or not active.
+	 *
+	 * @param executionActive
+	 *            If execution is active.
+	 */
+	public void setExecutionActive(boolean executionActive) {
+		this.executionActive = executionActive;
+	}
+
+	/**
+	 * Increments the count of the started invocation sequences.
+	 */
+	public void incrementInvocationSequenceCount() {
+		invocationSequenceCount++;
+	}
+
+	/**
+	 * Decrements the count of the started invocation sequences.
+	 *
+	 * @return The count after the decrement.
+	 */
+	public long decrementInvocationSequenceCount() {
+		return --invocationSequenceCount;
+	}
+
+	/**
+	 * Gets {@link #invocationSequenceCount}.
+	 *
+	 * @return {@link #invocationSequenceCount}
+	 */
+	public long getInvocationSequenceCount() {
+		return invocationSequenceCount;
+	}
+
+	/**
+	 * Gets {@link #invocationSequenceHook}.
+	 *
+	 * @return {@link #invocationSequenceHook}
+	 */
+	public IHook getInvocationSequenceHook() {
+		return invocationSequenceHook;
+	}
+
+	/**
+	 * Sets {@link #invocationSequenceHook}.
+	 *
+	 * @param invocationSequenceHook
+	 *            New value for {@link #invocationSequenceHook}
+	 */
+	public void setInvocationSequenceHook(IHook invocationSequenceHook) {
+		this.invocationSequenceHook = invocationSequenceHook;
+	}
+
+}
@@ -0,0 +1,115 @@
+package rocks.inspectit.agent.java.util;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Stack of primitive time and CPU time values used by the hooks to store the start and end times of
+ * a method invocation. Both stacks are backed by arrays with a depth index, thus pushing and
+ * popping does not create any objects unless the arrays need to grow.
+ * <p>
+ * The class is not thread-safe, every thread holds its own instances in the {@link ThreadContext}.
+ */
+public class TimingStack {
+
+	/**
+	 * Initial capacity of the stacks.
+	 */
+	private static final int INITIAL_CAPACITY = 16;
+
+	/**
+	 * Time values.
+	 */
+	private double[] times = new double[INITIAL_CAPACITY];
+
+	/**
+	 * Amount of values on the time stack.
+	 */
+	private int timeDepth;
+
+	/**
+	 * CPU time values.
+	 */
+	private long[] cpuTimes = new long[INITIAL_CAPACITY];
+
+	/**
+	 * Amount of values on the CPU time stack.
+	 */
+	private int cpuTimeDepth;
+
+	/**
+	 * Pushes the time value onto the stack.
+	 *
+	 * @param time
+	 *            Time value.
+	 */
+	public void pushTime(double time) {
+		if (timeDepth == times.length) {
+			double[] grown = new double[times.length << 1];
+			System.arraycopy(times, 0, grown, 0, timeDepth);
+			times = grown;
+		}
+		times[timeDepth++] = time;
+	}
+
+	/**
+	 * Returns and removes the last pushed time value.
+	 *
+	 * @return The last pushed time value.
+	 * @throws NoSuchElementException
+	 *             If the time stack is empty.
+	 */
+	public double popTime() throws NoSuchElementException {
+		if (0 == timeDepth) {
+			throw new NoSuchElementException("Time stack is empty.");
+		}
+		return times[--timeDepth];
+	}
+
+	/**
+	 * Pushes the CPU time value onto the stack.
+	 *
+	 * @param cpuTime
+	 *            CPU time value.
+	 */
+	public void pushCpuTime(long cpuTime) {
+		if (cpuTimeDepth == cpuTimes.length) {
+			long[] grown = new long[cpuTimes.length << 1];
+			System.arraycopy(cpuTimes, 0, grown, 0, cpuTimeDepth);
+			cpuTimes = grown;
+		}
+		cpuTimes[cpuTimeDepth++] = cpuTime;
+	}
+
+	/**
+	 * Returns and removes the last pushed CPU time value.
+	 *
+	 * @return The last pushed CPU time value.
+	 * @throws NoSuchElementException
+	 *             If the CPU time stack is empty.
+	 */
+	public long popCpuTime() throws NoSuchElementException {
+		if (0 == cpuTimeDepth) {
+			throw new NoSuchElementException("CPU time stack is empty.");
+		}
+		return cpuTimes[--cpuTimeDepth];
+	}
+
+	/**
+	 * Returns the amount of values on the time stack.
+	 *
+	 * @return Returns the amount of values on the time stack.
+	 */
+	public int getTimeDepth() {
+		return timeDepth;
+	}
+
+	/**
+	 * Returns the amount of values on the CPU time stack.
+	 *
+	 * @return Returns the amount of values on the CPU time stack.
+	 */
+	public int getCpuTimeDepth() {
+		return cpuTimeDepth;
+	}
+
+}
@@ -1,6 +1,7 @@
 package rocks.inspectit.agent.java.analyzer.impl;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasEntry;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasSize;
@@ -9,10 +10,14 @@ import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -24,13 +29,16 @@ import info.novatec.inspectit.org.objectweb.asm.ClassWriter;
 import info.novatec.inspectit.org.objectweb.asm.MethodVisitor;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ScheduledExecutorService;
 
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Matchers;
 import org.mockito.Mock;
@@ -52,7 +60,9 @@ import rocks.inspectit.agent.java.core.IPlatformManager;
 import rocks.inspectit.agent.java.core.IdNotAvailableException;
 import rocks.inspectit.agent.java.hooking.IHookDispatcherMapper;
 import rocks.inspectit.agent.java.sensor.method.IMethodSensor;
-import rocks.inspectit.shared.all.instrumentation.classcache.ClassType;
+import rocks.inspectit.agent.java.sensor.method.jdbc.PreparedStatementSensor;
+import rocks.inspectit.agent.java.sensor.method.timer.InlinedTimerCollector;
+import rocks.inspectit.shared.all.instrumentation.classcache.Type;
 import rocks.inspectit.shared.all.instrumentation.config.IMethodInstrumentationPoint;
 import rocks.inspectit.shared.all.instrumentation.config.SpecialInstrumentationType;
 import rocks.inspectit.shared.all.instrumentation.config.impl.InstrumentationDefinition;
@@ -114,6 +124,9 @@ public class ByteCodeAnalyzerTest extends TestBase {
 	@Mock
 	List<IMethodSensor> methodSensors;
 
+	@Mock
+	InlinedTimerCollector inlinedTimerCollector;
+
 	final Long platformId = 10L;
 
 	@BeforeMethod
@@ -144,6 +157,21 @@ public class ByteCodeAnalyzerTest extends TestBase {
 		return writer.toByteArray();
 	}
 
+	/**
+	 * Answers the analyze call with the given instrumentation definition for all sent types.
+	 */
+	protected Answer<Map<String, InstrumentationDefinition>> resultForAll(final InstrumentationDefinition instrumentationDefinition) {
+		return new Answer<Map<String, InstrumentationDefinition>>() {
+			public Map<String, InstrumentationDefinition> answer(InvocationOnMock invocation) throws Throwable {
+				Map<String, InstrumentationDefinition> result = new HashMap<String, InstrumentationDefinition>();
+				for (Object hash : ((Map<?, ?>) invocation.getArguments()[1]).keySet()) {
+					result.put((String) hash, instrumentationDefinition);
+				}
+				return result;
+			}
+		};
+	}
+
 	public class AnalyzeAndInstrument extends ByteCodeAnalyzerTest {
 
 		@Test
@@ -163,11 +191,11 @@ public class ByteCodeAnalyzerTest extends TestBase {
 
 			ArgumentCaptor<String> fqnCaptor = ArgumentCaptor.forClass(String.class);
 			ArgumentCaptor<String> hashCaptor = ArgumentCaptor.forClass(String.class);
-			ArgumentCaptor<ClassType> classCaptor = ArgumentCaptor.forClass(ClassType.class);
+			ArgumentCaptor<Map> typesCaptor = ArgumentCaptor.forClass(Map.class);
 			when(classHashHelper.isSent(fqnCaptor.capture(), hashCaptor.capture())).thenReturn(false);
 			when(classHashHelper.isAnalyzed(anyString())).thenReturn(true);
 			when(connection.isConnected()).thenReturn(true);
-			when(connection.analyze(eq(platformId.longValue()), anyString(), classCaptor.capture())).thenReturn(instrumentationResult);
+			when(connection.analyzeAll(eq(platformId.longValue()), typesCaptor.capture())).thenAnswer(resultForAll(instrumentationResult));
 			when(instrumentationResult.getMethodInstrumentationConfigs()).thenReturn(Collections.singleton(methodInstrumentationConfig));
 			long rscId = 13L;
 			long[] sensorIds = { 17L };
@@ -185,7 +213,8 @@ public class ByteCodeAnalyzerTest extends TestBase {
 			assertThat(instrumentedByteCode, is(not(nullValue())));
 
 			verify(connection, times(2)).isConnected();
-			verify(connection, times(1)).analyze(platformId.longValue(), hashCaptor.getValue(), classCaptor.getValue());
+			verify(connection, times(1)).analyzeAll(platformId.longValue(), typesCaptor.getValue());
+			assertThat(((Map<String, Type>) typesCaptor.getValue()).keySet(), contains(hashCaptor.getValue()));
 			ArgumentCaptor<Map> captor = ArgumentCaptor.forClass(Map.class);
 			verify(connection, times(1)).instrumentationApplied(captor.capture());
 			assertThat(captor.getValue().size(), is(1));
@@ -196,6 +225,7 @@ public class ByteCodeAnalyzerTest extends TestBase {
 			verify(classHashHelper, times(1)).registerSent(fqnCaptor.getValue(), hashCaptor.getValue());
 			verify(classHashHelper, times(1)).registerInstrumentationDefinition(fqnCaptor.getValue(), instrumentationResult);
 			ArgumentCaptor<RegisteredSensorConfig> rscCaptor = ArgumentCaptor.forClass(RegisteredSensorConfig.class);
+			verify(hookDispatcherMapper, times(1)).getDispatchIndex(rscId);
 			verify(hookDispatcherMapper, times(1)).addMapping(eq(rscId), rscCaptor.capture());
 			assertThat(rscCaptor.getValue().getId(), is(rscId));
 			assertThat(rscCaptor.getValue().getMethodSensors(), hasSize(1));
@@ -210,6 +240,109 @@ public class ByteCodeAnalyzerTest extends TestBase {
 			verifyNoMoreInteractions(hookDispatcherMapper, connection, classHashHelper, coreService);
 		}
 
+		@Test
+		public void sensorKindsAndMinDuration() throws Exception {
+			String className = TestClass.class.getName();
+			ClassLoader classLoader = TestClass.class.getClassLoader();
+			byte[] byteCode = getByteCode(className);
+
+			when(methodInstrumentationConfig.getTargetClassFqn()).thenReturn(className);
+			when(methodInstrumentationConfig.getTargetMethodName()).thenReturn("<init>");
+			when(methodInstrumentationConfig.getReturnType()).thenReturn("void");
+			when(methodInstrumentationConfig.getParameterTypes()).thenReturn(Collections.<String> emptyList());
+			when(methodInstrumentationConfig.getSensorInstrumentationPoint()).thenReturn(sensorInstrumentationPoint);
+			when(methodInstrumentationConfig.getAllInstrumentationPoints()).thenReturn(Collections.<IMethodInstrumentationPoint> singleton(sensorInstrumentationPoint));
+			when(sensorInstrumentationPoint.getMethodVisitor(Matchers.<MethodVisitor> any(), anyInt(), anyString(), anyString(), anyBoolean())).thenReturn(methodVisitor);
+			long[] sensorIds = { 17L };
+			when(sensorInstrumentationPoint.getSensorIds()).thenReturn(sensorIds);
+			when(sensorInstrumentationPoint.getSettings()).thenReturn(Collections.<String, Object> singletonMap("minduration", Long.valueOf(150L)));
+			when(sensorInstrumentationPoint.getPropertyAccessorList()).thenReturn(Collections.<PropertyPathStart> emptyList());
+			when(methodSensorTypeConfig.getId()).thenReturn(sensorIds[0]);
+			when(methodSensorTypeConfig.getClassName()).thenReturn(PreparedStatementSensor.class.getCanonicalName());
+			when(classHashHelper.isSent(anyString(), anyString())).thenReturn(false);
+			when(classHashHelper.isAnalyzed(anyString())).thenReturn(true);
+			when(connection.isConnected()).thenReturn(true);
+			when(connection.analyzeAll(eq(platformId.longValue()), Matchers.<Map<String, Type>> any())).thenAnswer(resultForAll(instrumentationResult));
+			when(instrumentationResult.getMethodInstrumentationConfigs()).thenReturn(Collections.singleton(methodInstrumentationConfig));
+
+			byteCodeAnalyzer.afterPropertiesSet();
+			byteCodeAnalyzer.analyzeAndInstrument(byteCode, className, classLoader);
+
+			ArgumentCaptor<RegisteredSensorConfig> rscCaptor = ArgumentCaptor.forClass(RegisteredSensorConfig.class);
+			verify(hookDispatcherMapper, times(1)).addMapping(anyLong(), rscCaptor.capture());
+			assertThat(rscCaptor.getValue().getSensorKinds(), is(RegisteredSensorConfig.PREPARED_STATEMENT_SENSOR));
+			assertThat(rscCaptor.getValue().getMinDuration(), is(150d));
+		}
+
+		@Test
+		public void inlinedTimerSlotAssigned() throws Exception {
+			String className = TestClass.class.getName();
+			ClassLoader classLoader = TestClass.class.getClassLoader();
+			byte[] byteCode = getByteCode(className);
+
+			when(methodInstrumentationConfig.getTargetClassFqn()).thenReturn(className);
+			when(methodInstrumentationConfig.getTargetMethodName()).thenReturn("<init>");
+			when(methodInstrumentationConfig.getReturnType()).thenReturn("void");
+			when(methodInstrumentationConfig.getParameterTypes()).thenReturn(Collections.<String> emptyList());
+			when(methodInstrumentationConfig.getSensorInstrumentationPoint()).thenReturn(sensorInstrumentationPoint);
+			when(methodInstrumentationConfig.getAllInstrumentationPoints()).thenReturn(Collections.<IMethodInstrumentationPoint> singleton(sensorInstrumentationPoint));
+			when(sensorInstrumentationPoint.getMethodVisitor(Matchers.<MethodVisitor> any(), anyInt(), anyString(), anyString(), anyBoolean())).thenReturn(methodVisitor);
+			when(sensorInstrumentationPoint.isInlinedTimer()).thenReturn(true);
+			when(sensorInstrumentationPoint.getSensorIds()).thenReturn(new long[] { 17L });
+			when(sensorInstrumentationPoint.getPropertyAccessorList()).thenReturn(Collections.<PropertyPathStart> emptyList());
+			when(classHashHelper.isSent(anyString(), anyString())).thenReturn(false);
+			when(classHashHelper.isAnalyzed(anyString())).thenReturn(true);
+			when(connection.isConnected()).thenReturn(true);
+			when(connection.analyzeAll(eq(platformId.longValue()), Matchers.<Map<String, Type>> any())).thenAnswer(resultForAll(instrumentationResult));
+			when(instrumentationResult.getMethodInstrumentationConfigs()).thenReturn(Collections.singleton(methodInstrumentationConfig));
+
+			byteCodeAnalyzer.afterPropertiesSet();
+			byteCodeAnalyzer.analyzeAndInstrument(byteCode, className, classLoader);
+
+			// slot must be assigned before the method visitor is created
+			InOrder inOrder = inOrder(inlinedTimerCollector, sensorInstrumentationPoint);
+			inOrder.verify(inlinedTimerCollector, times(1)).assignSlot(sensorInstrumentationPoint);
+			inOrder.verify(sensorInstrumentationPoint, atLeastOnce()).getMethodVisitor(Matchers.<MethodVisitor> any(), anyInt(), anyString(), anyString(), anyBoolean());
+			verifyNoMoreInteractions(inlinedTimerCollector);
+		}
+
+		@Test
+		public void dispatchIndexAssigned() throws Exception {
+			String className = TestClass.class.getName();
+			ClassLoader classLoader = TestClass.class.getClassLoader();
+			byte[] byteCode = getByteCode(className);
+
+			when(methodInstrumentationConfig.getTargetClassFqn()).thenReturn(className);
+			when(methodInstrumentationConfig.getTargetMethodName()).thenReturn("<init>");
+			when(methodInstrumentationConfig.getReturnType()).thenReturn("void");
+			when(methodInstrumentationConfig.getParameterTypes()).thenReturn(Collections.<String> emptyList());
+			when(methodInstrumentationConfig.getSensorInstrumentationPoint()).thenReturn(sensorInstrumentationPoint);
+			when(methodInstrumentationConfig.getAllInstrumentationPoints()).thenReturn(Collections.<IMethodInstrumentationPoint> singleton(sensorInstrumentationPoint));
+			when(sensorInstrumentationPoint.getMethodVisitor(Matchers.<MethodVisitor> any(), anyInt(), anyString(), anyString(), anyBoolean())).thenReturn(methodVisitor);
+			long rscId = 13L;
+			int dispatchIndex = 5;
+			when(sensorInstrumentationPoint.getId()).thenReturn(rscId);
+			when(sensorInstrumentationPoint.getSensorIds()).thenReturn(new long[] { 17L });
+			when(sensorInstrumentationPoint.getPropertyAccessorList()).thenReturn(Collections.<PropertyPathStart> emptyList());
+			when(hookDispatcherMapper.getDispatchIndex(rscId)).thenReturn(dispatchIndex);
+			when(classHashHelper.isSent(anyString(), anyString())).thenReturn(false);
+			when(classHashHelper.isAnalyzed(anyString())).thenReturn(true);
+			when(connection.isConnected()).thenReturn(true);
+			when(connection.analyzeAll(eq(platformId.longValue()), Matchers.<Map<String, Type>> any())).thenAnswer(resultForAll(instrumentationResult));
+			when(instrumentationResult.getMethodInstrumentationConfigs()).thenReturn(Collections.singleton(methodInstrumentationConfig));
+
+			byteCodeAnalyzer.afterPropertiesSet();
+			byteCodeAnalyzer.analyzeAndInstrument(byteCode, className, classLoader);
+
+			// index must be assigned before the method visitor is created
+			InOrder inOrder = inOrder(hookDispatcherMapper, sensorInstrumentationPoint);
+			inOrder.verify(hookDispatcherMapper, times(1)).getDispatchIndex(rscId);
+			inOrder.verify(sensorInstrumentationPoint, times(1)).setDispatchIndex(dispatchIndex);
+			inOrder.verify(sensorInstrumentationPoint, atLeastOnce()).getMethodVisitor(Matchers.<MethodVisitor> any(), anyInt(), anyString(), anyString(), anyBoolean());
+			inOrder.verify(hookDispatcherMapper, times(1)).addMapping(eq(rscId), Matchers.<RegisteredSensorConfig> any());
+			verifyNoMoreInteractions(hookDispatcherMapper);
+		}
+
 		@Test
 		public void nullByteCodeAndClassLoaderInstrumentation() throws Exception {
 			String className = String.class.getName();
@@ -225,11 +358,11 @@ public class ByteCodeAnalyzerTest extends TestBase {
 
 			ArgumentCaptor<String> fqnCaptor = ArgumentCaptor.forClass(String.class);
 			ArgumentCaptor<String> hashCaptor = ArgumentCaptor.forClass(String.class);
-			ArgumentCaptor<ClassType> classCaptor = ArgumentCaptor.forClass(ClassType.class);
+			ArgumentCaptor<Map> typesCaptor = ArgumentCaptor.forClass(Map.class);
 			when(classHashHelper.isSent(fqnCaptor.capture(), hashCaptor.capture())).thenReturn(false);
 			when(classHashHelper.isAnalyzed(anyString())).thenReturn(true);
 			when(connection.isConnected()).thenReturn(true);
-			when(connection.analyze(eq(platformId.longValue()), anyString(), classCaptor.capture())).thenReturn(instrumentationResult);
+			when(connection.analyzeAll(eq(platformId.longValue()), typesCaptor.capture())).thenAnswer(resultForAll(instrumentationResult));
 			when(instrumentationResult.getMethodInstrumentationConfigs()).thenReturn(Collections.singleton(methodInstrumentationConfig));
 			long rscId = 13L;
 			long[] sensorIds = { 17L };
@@ -247,7 +380,8 @@ public class ByteCodeAnalyzerTest extends TestBase {
 			assertThat(instrumentedByteCode, is(not(nullValue())));
 
 			verify(connection, times(2)).isConnected();
-			verify(connection, times(1)).analyze(platformId.longValue(), hashCaptor.getValue(), classCaptor.getValue());
+			verify(connection, times(1)).analyzeAll(platformId.longValue(), typesCaptor.getValue());
+			assertThat(((Map<String, Type>) typesCaptor.getValue()).keySet(), contains(hashCaptor.getValue()));
 			ArgumentCaptor<Map> captor = ArgumentCaptor.forClass(Map.class);
 			verify(connection, times(1)).instrumentationApplied(captor.capture());
 			assertThat(captor.getValue().size(), is(1));
@@ -258,6 +392,7 @@ public class ByteCodeAnalyzerTest extends TestBase {
 			verify(classHashHelper, times(1)).registerSent(fqnCaptor.getValue(), hashCaptor.getValue());
 			verify(classHashHelper, times(1)).registerInstrumentationDefinition(fqnCaptor.getValue(), instrumentationResult);
 			ArgumentCaptor<RegisteredSensorConfig> rscCaptor = ArgumentCaptor.forClass(RegisteredSensorConfig.class);
+			verify(hookDispatcherMapper, times(1)).getDispatchIndex(rscId);
 			verify(hookDispatcherMapper, times(1)).addMapping(eq(rscId), rscCaptor.capture());
 			assertThat(rscCaptor.getValue().getId(), is(rscId));
 			assertThat(rscCaptor.getValue().getMethodSensors(), hasSize(1));
@@ -286,11 +421,11 @@ public class ByteCodeAnalyzerTest extends TestBase {
 
 			ArgumentCaptor<String> fqnCaptor = ArgumentCaptor.forClass(String.class);
 			ArgumentCaptor<String> hashCaptor = ArgumentCaptor.forClass(String.class);
-			ArgumentCaptor<ClassType> classCaptor = ArgumentCaptor.forClass(ClassType.class);
+			ArgumentCaptor<Map> typesCaptor = ArgumentCaptor.forClass(Map.class);
 			when(classHashHelper.isSent(fqnCaptor.capture(), hashCaptor.capture())).thenReturn(false);
 			when(classHashHelper.isAnalyzed(anyString())).thenReturn(true);
 			when(connection.isConnected()).thenReturn(true);
-			when(connection.analyze(eq(platformId.longValue()), anyString(), classCaptor.capture())).thenReturn(instrumentationResult);
+			when(connection.analyzeAll(eq(platformId.longValue()), typesCaptor.capture())).thenAnswer(resultForAll(instrumentationResult));
 			when(instrumentationResult.getMethodInstrumentationConfigs()).thenReturn(Collections.singleton(methodInstrumentationConfig));
 
 			byte[] instrumentedByteCode = byteCodeAnalyzer.analyzeAndInstrument(byteCode, className, classLoader);
@@ -299,7 +434,8 @@ public class ByteCodeAnalyzerTest extends TestBase {
 			assertThat(instrumentedByteCode, is(not(nullValue())));
 
 			verify(connection, times(1)).isConnected();
-			verify(connection, times(1)).analyze(platformId.longValue(), hashCaptor.getValue(), classCaptor.getValue());
+			verify(connection, times(1)).analyzeAll(platformId.longValue(), typesCaptor.getValue());
+			assertThat(((Map<String, Type>) typesCaptor.getValue()).keySet(), contains(hashCaptor.getValue()));
 			verify(classHashHelper, atLeastOnce()).isAnalyzed(anyString());
 			verify(classHashHelper, times(1)).isSent(fqnCaptor.getValue(), hashCaptor.getValue());
 			verify(classHashHelper, times(1)).registerAnalyzed(fqnCaptor.getValue());
@@ -373,6 +509,7 @@ public class ByteCodeAnalyzerTest extends TestBase {
 			// but we asked for the instrumentation result and instrumented
 			verify(classHashHelper, times(1)).getInstrumentationDefinition(fqnCaptor.getValue());
 			ArgumentCaptor<RegisteredSensorConfig> rscCaptor = ArgumentCaptor.forClass(RegisteredSensorConfig.class);
+			verify(hookDispatcherMapper, times(1)).getDispatchIndex(rscId);
 			verify(hookDispatcherMapper, times(1)).addMapping(eq(rscId), rscCaptor.capture());
 			assertThat(rscCaptor.getValue().getId(), is(rscId));
 			assertThat(rscCaptor.getValue().getMethodSensors(), hasSize(1));
@@ -400,11 +537,11 @@ public class ByteCodeAnalyzerTest extends TestBase {
 
 			ArgumentCaptor<String> fqnCaptor = ArgumentCaptor.forClass(String.class);
 			ArgumentCaptor<String> hashCaptor = ArgumentCaptor.forClass(String.class);
-			ArgumentCaptor<ClassType> classCaptor = ArgumentCaptor.forClass(ClassType.class);
+			ArgumentCaptor<Map> typesCaptor = ArgumentCaptor.forClass(Map.class);
 			when(classHashHelper.isSent(fqnCaptor.capture(), hashCaptor.capture())).thenReturn(false);
 			when(classHashHelper.isAnalyzed(anyString())).thenReturn(true);
 			when(connection.isConnected()).thenReturn(true);
-			when(connection.analyze(eq(platformId.longValue()), anyString(), classCaptor.capture())).thenReturn(null);
+			when(connection.analyzeAll(eq(platformId.longValue()), typesCaptor.capture())).thenAnswer(resultForAll(null));
 
 			byte[] instrumentedByteCode = byteCodeAnalyzer.analyzeAndInstrument(byteCode, className, classLoader);
 
@@ -412,7 +549,8 @@ public class ByteCodeAnalyzerTest extends TestBase {
 			assertThat(instrumentedByteCode, is(nullValue()));
 
 			verify(connection, times(1)).isConnected();
-			verify(connection, times(1)).analyze(platformId.longValue(), hashCaptor.getValue(), classCaptor.getValue());
+			verify(connection, times(1)).analyzeAll(platformId.longValue(), typesCaptor.getValue());
+			assertThat(((Map<String, Type>) typesCaptor.getValue()).keySet(), contains(hashCaptor.getValue()));
 			verify(classHashHelper, atLeastOnce()).isAnalyzed(anyString());
 			verify(classHashHelper, times(1)).isSent(fqnCaptor.getValue(), hashCaptor.getValue());
 			verify(classHashHelper, times(1)).registerAnalyzed(fqnCaptor.getValue());
@@ -460,11 +598,11 @@ public class ByteCodeAnalyzerTest extends TestBase {
 
 			ArgumentCaptor<String> fqnCaptor = ArgumentCaptor.forClass(String.class);
 			ArgumentCaptor<String> hashCaptor = ArgumentCaptor.forClass(String.class);
-			ArgumentCaptor<ClassType> classCaptor = ArgumentCaptor.forClass(ClassType.class);
+			ArgumentCaptor<Map> typesCaptor = ArgumentCaptor.forClass(Map.class);
 			when(classHashHelper.isSent(fqnCaptor.capture(), hashCaptor.capture())).thenReturn(false);
 			when(classHashHelper.isAnalyzed(anyString())).thenReturn(true);
 			when(connection.isConnected()).thenReturn(true);
-			when(connection.analyze(eq(platformId.longValue()), anyString(), classCaptor.capture())).thenReturn(instrumentationResult);
+			when(connection.analyzeAll(eq(platformId.longValue()), typesCaptor.capture())).thenAnswer(resultForAll(instrumentationResult));
 			when(instrumentationResult.getMethodInstrumentationConfigs()).thenReturn(Collections.singleton(methodInstrumentationConfig));
 			long rscId = 13L;
 			when(sensorInstrumentationPoint.getId()).thenReturn(rscId);
@@ -475,14 +613,17 @@ public class ByteCodeAnalyzerTest extends TestBase {
 			assertThat(instrumentedByteCode, is(nullValue()));
 
 			verify(connection, times(1)).isConnected();
-			verify(connection, times(1)).analyze(platformId.longValue(), hashCaptor.getValue(), classCaptor.getValue());
+			verify(connection, times(1)).analyzeAll(platformId.longValue(), typesCaptor.getValue());
+			assertThat(((Map<String, Type>) typesCaptor.getValue()).keySet(), contains(hashCaptor.getValue()));
 			verify(classHashHelper, atLeastOnce()).isAnalyzed(anyString());
 			verify(classHashHelper, times(1)).isSent(fqnCaptor.getValue(), hashCaptor.getValue());
 			verify(classHashHelper, times(1)).registerAnalyzed(fqnCaptor.getValue());
 			verify(classHashHelper, times(1)).registerSent(fqnCaptor.getValue(), hashCaptor.getValue());
 			verify(classHashHelper, times(1)).registerInstrumentationDefinition(fqnCaptor.getValue(), instrumentationResult);
-			verifyNoMoreInteractions(connection, classHashHelper);
-			verifyZeroInteractions(hookDispatcherMapper, coreService);
+			// index is reserved before it is known if the method exists
+			verify(hookDispatcherMapper, times(1)).getDispatchIndex(rscId);
+			verifyNoMoreInteractions(hookDispatcherMapper, connection, classHashHelper);
+			verifyZeroInteractions(coreService);
 		}
 
 		@Test
@@ -511,12 +652,12 @@ public class ByteCodeAnalyzerTest extends TestBase {
 			when(methodInstrumentationConfig.getAllInstrumentationPoints()).thenReturn(Collections.<IMethodInstrumentationPoint> singleton(sensorInstrumentationPoint));
 			when(sensorInstrumentationPoint.getMethodVisitor(Matchers.<MethodVisitor> any(), anyInt(), anyString(), anyString(), anyBoolean())).thenReturn(methodVisitor);
 
-			ArgumentCaptor<ClassType> classCaptor = ArgumentCaptor.forClass(ClassType.class);
+			ArgumentCaptor<Map> typesCaptor = ArgumentCaptor.forClass(Map.class);
 			when(classHashHelper.isSent(anyString(), anyString())).thenReturn(false);
 			when(classHashHelper.isAnalyzed(anyString())).thenReturn(true);
 			when(classHashHelper.isAnalyzed(AbstractSubTest.class.getName())).thenReturn(false);
 			when(connection.isConnected()).thenReturn(true);
-			when(connection.analyze(eq(platformId.longValue()), anyString(), classCaptor.capture())).thenReturn(instrumentationResult);
+			when(connection.analyzeAll(eq(platformId.longValue()), typesCaptor.capture())).thenAnswer(resultForAll(instrumentationResult));
 			when(instrumentationResult.getMethodInstrumentationConfigs()).thenReturn(Collections.singleton(methodInstrumentationConfig));
 			long rscId = 13L;
 			long[] sensorIds = { 17L };
@@ -533,17 +674,18 @@ public class ByteCodeAnalyzerTest extends TestBase {
 			// as instrumentation happened, we get a not null object
 			assertThat(instrumentedByteCode, is(not(nullValue())));
 
-			verify(connection, times(3)).isConnected();
-			verify(connection, times(1)).analyze(eq(platformId.longValue()), anyString(), eq(classCaptor.getAllValues().get(0)));
-			verify(connection, times(1)).analyze(eq(platformId.longValue()), anyString(), eq(classCaptor.getAllValues().get(1)));
+			verify(connection, times(2)).isConnected();
+			verify(connection, times(1)).analyzeAll(platformId.longValue(), typesCaptor.getValue());
 			ArgumentCaptor<Map> captor = ArgumentCaptor.forClass(Map.class);
 			verify(connection, times(1)).instrumentationApplied(captor.capture());
 			assertThat(captor.getValue().size(), is(1));
 			assertThat((Map<Long, long[]>) captor.getValue(), hasEntry(rscId, sensorIds));
 
 			// assert sent classes order
-			assertThat(classCaptor.getAllValues().get(0).getFQN(), is(AbstractSubTest.class.getName()));
-			assertThat(classCaptor.getAllValues().get(1).getFQN(), is(TestClass.class.getName()));
+			List<Type> sentTypes = new ArrayList<Type>(((Map<String, Type>) typesCaptor.getValue()).values());
+			assertThat(sentTypes, hasSize(2));
+			assertThat(sentTypes.get(0).getFQN(), is(AbstractSubTest.class.getName()));
+			assertThat(sentTypes.get(1).getFQN(), is(TestClass.class.getName()));
 
 			// class hash verfications
 			verify(classHashHelper, atLeastOnce()).isAnalyzed(anyString());
@@ -557,6 +699,7 @@ public class ByteCodeAnalyzerTest extends TestBase {
 			verify(classHashHelper, times(1)).registerInstrumentationDefinition(AbstractSubTest.class.getName(), instrumentationResult);
 
 			ArgumentCaptor<RegisteredSensorConfig> rscCaptor = ArgumentCaptor.forClass(RegisteredSensorConfig.class);
+			verify(hookDispatcherMapper, times(1)).getDispatchIndex(rscId);
 			verify(hookDispatcherMapper, times(1)).addMapping(eq(rscId), rscCaptor.capture());
 			assertThat(rscCaptor.getValue().getId(), is(rscId));
 			assertThat(rscCaptor.getValue().getMethodSensors(), hasSize(1));
@@ -571,5 +714,27 @@ public class ByteCodeAnalyzerTest extends TestBase {
 			verifyNoMoreInteractions(hookDispatcherMapper, connection, classHashHelper, coreService);
 		}
 
+		@Test
+		public void dependingClassNotAnalyzedWhenSendingFails() throws Exception {
+			String className = TestClass.class.getName();
+			ClassLoader classLoader = TestClass.class.getClassLoader();
+			byte[] byteCode = getByteCode(className);
+
+			when(classHashHelper.isSent(anyString(), anyString())).thenReturn(false);
+			when(classHashHelper.isAnalyzed(anyString())).thenReturn(true);
+			when(classHashHelper.isAnalyzed(AbstractSubTest.class.getName())).thenReturn(false);
+			when(connection.isConnected()).thenReturn(true);
+			doThrow(new ServerUnavailableException()).when(connection).analyzeAll(eq(platformId.longValue()), Matchers.<Map<String, Type>> any());
+
+			byte[] instrumentedByteCode = byteCodeAnalyzer.analyzeAndInstrument(byteCode, className, classLoader);
+
+			assertThat(instrumentedByteCode, is(nullValue()));
+			verify(classHashHelper, times(1)).registerAnalyzed(TestClass.class.getName());
+			verify(classHashHelper, never()).registerAnalyzed(AbstractSubTest.class.getName());
+			verify(classHashHelper, never()).registerSent(anyString(), anyString());
+			verify(classHashHelper, never()).registerInstrumentationDefinition(anyString(), Matchers.<InstrumentationDefinition> any());
+			verifyZeroInteractions(hookDispatcherMapper, coreService);
+		}
+
 	}
 }
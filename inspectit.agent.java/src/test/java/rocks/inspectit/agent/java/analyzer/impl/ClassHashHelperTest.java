@@ -4,6 +4,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -14,6 +15,7 @@ import static org.mockito.Mockito.when;
 import java.io.File;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -29,7 +31,10 @@ import org.testng.annotations.Test;
 import com.esotericsoftware.kryo.io.Input;
 
 import rocks.inspectit.agent.java.config.IConfigurationStorage;
+import rocks.inspectit.agent.java.connection.IConnection;
+import rocks.inspectit.agent.java.connection.ServerUnavailableException;
 import rocks.inspectit.agent.java.core.ICoreService;
+import rocks.inspectit.agent.java.core.IPlatformManager;
 import rocks.inspectit.agent.java.io.FileResolver;
 import rocks.inspectit.agent.java.spring.PrototypesProvider;
 import rocks.inspectit.shared.all.instrumentation.config.impl.InstrumentationDefinition;
@@ -66,6 +71,12 @@ public class ClassHashHelperTest extends TestBase {
 	@Mock
 	FileResolver fileResolver;
 
+	@Mock
+	IConnection connection;
+
+	@Mock
+	IPlatformManager platformManager;
+
 	@BeforeMethod
 	public void setup() {
 		doReturn(new File(TEST_CACHE_FILE)).when(fileResolver).getClassHashCacheFile();
@@ -128,15 +139,59 @@ public class ClassHashHelperTest extends TestBase {
 		public void cacheFileExistsCacheOnCmrNot() throws Exception {
 			when(configurationStorage.isClassCacheExistsOnCmr()).thenReturn(false);
 			new File(TEST_CACHE_FILE).createNewFile();
-			Object hashes = Collections.singleton("hash");
+			Object hashes = Collections.singletonMap("fqn", Collections.singleton("hash"));
 			when(serializationManager.deserialize(Matchers.<Input> any())).thenReturn(hashes);
+			when(platformManager.getPlatformId()).thenReturn(10L);
+			when(connection.analyzeKnown(eq(10L), Matchers.<Collection<String>> any())).thenReturn(Collections.<String, InstrumentationDefinition> emptyMap());
+
+			helper.afterPropertiesSet();
+
+			verify(executorService, times(1)).scheduleAtFixedRate(Matchers.<Runnable> any(), anyLong(), anyLong(), Matchers.<TimeUnit> any());
+			verify(connection, times(1)).analyzeKnown(10L, Collections.singleton("hash"));
+			assertThat(helper.isEmpty(), is(true));
+			assertThat(new File(TEST_CACHE_FILE).exists(), is(false));
+		}
+
+		@Test
+		public void cacheFileExistsCacheOnCmrNotPrewarm() throws Exception {
+			when(configurationStorage.isClassCacheExistsOnCmr()).thenReturn(false);
+			new File(TEST_CACHE_FILE).createNewFile();
+			Map<String, Collection<String>> hashes = new HashMap<String, Collection<String>>();
+			hashes.put("fqn", Collections.singleton("hash"));
+			hashes.put("otherFqn", Collections.singleton("otherHash"));
+			hashes.put("unknownFqn", Collections.singleton("unknownHash"));
+			when(serializationManager.deserialize(Matchers.<Input> any())).thenReturn(hashes);
+			InstrumentationDefinition instrumentationResult = mock(InstrumentationDefinition.class);
+			Map<String, InstrumentationDefinition> known = new HashMap<String, InstrumentationDefinition>();
+			known.put("hash", instrumentationResult);
+			known.put("otherHash", null);
+			when(platformManager.getPlatformId()).thenReturn(10L);
+			when(connection.analyzeKnown(eq(10L), Matchers.<Collection<String>> any())).thenReturn(known);
+
+			helper.afterPropertiesSet();
+
+			assertThat(helper.isSent("fqn", "hash"), is(true));
+			assertThat(helper.getInstrumentationDefinition("fqn"), is(instrumentationResult));
+			assertThat(helper.isSent("otherFqn", "otherHash"), is(true));
+			assertThat(helper.getInstrumentationDefinition("otherFqn"), is(nullValue()));
+			assertThat(helper.isAnalyzed("unknownFqn"), is(false));
+			assertThat(new File(TEST_CACHE_FILE).exists(), is(false));
+		}
+
+		@Test
+		public void cacheFileExistsCacheOnCmrNotServerUnavailable() throws Exception {
+			when(configurationStorage.isClassCacheExistsOnCmr()).thenReturn(false);
+			new File(TEST_CACHE_FILE).createNewFile();
+			Object hashes = Collections.singletonMap("fqn", Collections.singleton("hash"));
+			when(serializationManager.deserialize(Matchers.<Input> any())).thenReturn(hashes);
+			when(platformManager.getPlatformId()).thenReturn(10L);
+			when(connection.analyzeKnown(eq(10L), Matchers.<Collection<String>> any())).thenThrow(new ServerUnavailableException());
 
 			helper.afterPropertiesSet();
 
 			verify(executorService, times(1)).scheduleAtFixedRate(Matchers.<Runnable> any(), anyLong(), anyLong(), Matchers.<TimeUnit> any());
 			assertThat(helper.isEmpty(), is(true));
 			assertThat(new File(TEST_CACHE_FILE).exists(), is(false));
-			verifyZeroInteractions(serializationManager);
 		}
 
 		@Test
@@ -1,7 +1,9 @@
 package rocks.inspectit.agent.java.buffer.impl;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 
@@ -14,6 +16,7 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import rocks.inspectit.shared.all.communication.MethodSensorData;
+import rocks.inspectit.shared.all.communication.data.TimerData;
 
 @SuppressWarnings("PMD")
 public class SimpleBufferStrategyTest {
@@ -60,6 +63,84 @@ public class SimpleBufferStrategyTest {
 		bufferStrategy.next();
 	}
 
+	@Test
+	public void mergeNotSent() {
+		List<MethodSensorData> first = Collections.<MethodSensorData> singletonList(new TimerData());
+		List<MethodSensorData> second = Collections.<MethodSensorData> singletonList(new TimerData());
+
+		bufferStrategy.addMeasurements(first);
+		bufferStrategy.addMeasurements(second);
+
+		assertThat(bufferStrategy.hasNext(), is(true));
+		List<MethodSensorData> list = bufferStrategy.next();
+		assertThat(list, hasSize(2));
+		assertThat(list, contains(first.get(0), second.get(0)));
+		assertThat(bufferStrategy.hasNext(), is(false));
+		assertThat(bufferStrategy.getDroppedCount(), is(0L));
+	}
+
+	@Test
+	public void dropOverMaxElements() {
+		bufferStrategy.init(Collections.singletonMap("maxElements", "1"));
+		List<MethodSensorData> first = Collections.<MethodSensorData> singletonList(new TimerData());
+		List<MethodSensorData> second = Collections.<MethodSensorData> singletonList(new TimerData());
+
+		bufferStrategy.addMeasurements(first);
+		bufferStrategy.addMeasurements(second);
+
+		assertThat(bufferStrategy.next(), is(second));
+		assertThat(bufferStrategy.hasNext(), is(false));
+		assertThat(bufferStrategy.getDroppedCount(), is(1L));
+	}
+
+	@Test
+	public void requeueBeforeNewer() {
+		List<MethodSensorData> older = Collections.<MethodSensorData> singletonList(new TimerData());
+		List<MethodSensorData> newer = Collections.<MethodSensorData> singletonList(new TimerData());
+
+		bufferStrategy.addMeasurements(older);
+		bufferStrategy.next();
+		bufferStrategy.addMeasurements(newer);
+		bufferStrategy.requeueMeasurements(older);
+
+		List<MethodSensorData> list = bufferStrategy.next();
+		assertThat(list, contains(older.get(0), newer.get(0)));
+		assertThat(bufferStrategy.hasNext(), is(false));
+	}
+
+	@Test
+	public void requeueEmpty() {
+		List<MethodSensorData> older = Collections.<MethodSensorData> singletonList(new TimerData());
+
+		bufferStrategy.addMeasurements(older);
+		bufferStrategy.next();
+		bufferStrategy.requeueMeasurements(older);
+
+		assertThat(bufferStrategy.next(), is(older));
+		assertThat(bufferStrategy.hasNext(), is(false));
+	}
+
+	@Test
+	public void requeueDroppedOverMaxElements() {
+		bufferStrategy.init(Collections.singletonMap("maxElements", "1"));
+		List<MethodSensorData> older = Collections.<MethodSensorData> singletonList(new TimerData());
+		List<MethodSensorData> newer = Collections.<MethodSensorData> singletonList(new TimerData());
+
+		bufferStrategy.addMeasurements(older);
+		bufferStrategy.next();
+		bufferStrategy.addMeasurements(newer);
+		bufferStrategy.requeueMeasurements(older);
+
+		assertThat(bufferStrategy.next(), is(newer));
+		assertThat(bufferStrategy.hasNext(), is(false));
+		assertThat(bufferStrategy.getDroppedCount(), is(1L));
+	}
+
+	@Test(expectedExceptions = { IllegalArgumentException.class })
+	public void requeueNullMeasurement() {
+		bufferStrategy.requeueMeasurements(null);
+	}
+
 	@Test
 	public void callInit() {
 		bufferStrategy.init(Collections.<String, String> emptyMap());
@@ -4,6 +4,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.sameInstance;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -17,6 +18,7 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import rocks.inspectit.shared.all.communication.MethodSensorData;
+import rocks.inspectit.shared.all.communication.data.TimerData;
 
 @SuppressWarnings("PMD")
 public class SizeBufferStrategyTest {
@@ -95,4 +97,30 @@ public class SizeBufferStrategyTest {
 		assertThat(bufferStrategy.hasNext(), is(false));
 	}
 
+	@Test
+	public void requeueFullStack() {
+		Map<String, String> settings = new HashMap<String, String>();
+		settings.put("size", "2");
+		bufferStrategy.init(settings);
+
+		List<MethodSensorData> listOne = new ArrayList<MethodSensorData>(Collections.<MethodSensorData> singletonList(new TimerData()));
+		List<MethodSensorData> listTwo = new ArrayList<MethodSensorData>(Collections.<MethodSensorData> singletonList(new TimerData()));
+		List<MethodSensorData> listThree = new ArrayList<MethodSensorData>(Collections.<MethodSensorData> singletonList(new TimerData()));
+
+		bufferStrategy.addMeasurements(listOne);
+		bufferStrategy.addMeasurements(listTwo);
+		List<MethodSensorData> notSent = bufferStrategy.next();
+		bufferStrategy.addMeasurements(listThree);
+		bufferStrategy.requeueMeasurements(notSent);
+
+		assertThat(bufferStrategy.next(), is(sameInstance(listTwo)));
+		assertThat(bufferStrategy.next(), is(sameInstance(listThree)));
+		assertThat(bufferStrategy.hasNext(), is(false));
+	}
+
+	@Test(expectedExceptions = { IllegalArgumentException.class })
+	public void requeueNullMeasurement() {
+		bufferStrategy.requeueMeasurements(null);
+	}
+
 }
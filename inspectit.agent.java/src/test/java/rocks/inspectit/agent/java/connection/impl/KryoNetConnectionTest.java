@@ -1,13 +1,18 @@
 package rocks.inspectit.agent.java.connection.impl;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -15,15 +20,29 @@ import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Matchers;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.slf4j.Logger;
 import org.testng.annotations.Test;
 
+import com.esotericsoftware.kryonet.KryoNetException;
 import com.esotericsoftware.kryonet.rmi.TimeoutException;
 
 import rocks.inspectit.agent.java.connection.RetryStrategy;
@@ -38,9 +57,11 @@ import rocks.inspectit.shared.all.instrumentation.classcache.Type;
 import rocks.inspectit.shared.all.instrumentation.config.impl.AgentConfig;
 import rocks.inspectit.shared.all.instrumentation.config.impl.InstrumentationDefinition;
 import rocks.inspectit.shared.all.kryonet.Client;
+import rocks.inspectit.shared.all.kryonet.rmi.IAsyncRemoteObject;
+import rocks.inspectit.shared.all.kryonet.rmi.ResponseFuture;
 import rocks.inspectit.shared.all.testbase.TestBase;
 
-@SuppressWarnings({ "PMD", "unchecked" })
+@SuppressWarnings({ "PMD", "unchecked", "rawtypes" })
 public class KryoNetConnectionTest extends TestBase {
 
 	@InjectMocks
@@ -58,6 +79,12 @@ public class KryoNetConnectionTest extends TestBase {
 	@Mock
 	IAgentService agentService;
 
+	@Mock
+	IAgentService oneWayAgentService;
+
+	@Mock
+	AsyncAgentService asyncAgentService;
+
 	@Mock
 	IKeepAliveService keepAliveService;
 
@@ -132,9 +159,25 @@ public class KryoNetConnectionTest extends TestBase {
 			when(client.isConnected()).thenReturn(true);
 			List<DefaultData> measurements = new ArrayList<DefaultData>();
 			measurements.add(new TimerData());
+			when(agentStorageService.addDataObjects(measurements)).thenReturn(5);
+
+			int capacity = connection.sendDataObjects(measurements);
+
+			assertThat(capacity, is(5));
+			verify(agentStorageService, times(1)).addDataObjects(measurements);
+			verifyNoMoreInteractions(agentStorageService);
+		}
+
+		@Test
+		public void sendDataRejected() throws Exception {
+			when(client.isConnected()).thenReturn(true);
+			List<DefaultData> measurements = new ArrayList<DefaultData>();
+			measurements.add(new TimerData());
+			when(agentStorageService.addDataObjects(measurements)).thenReturn(IAgentStorageService.REJECTED);
 
-			connection.sendDataObjects(measurements);
+			int capacity = connection.sendDataObjects(measurements);
 
+			assertThat(capacity, is(IAgentStorageService.REJECTED));
 			verify(agentStorageService, times(1)).addDataObjects(measurements);
 			verifyNoMoreInteractions(agentStorageService);
 		}
@@ -208,6 +251,19 @@ public class KryoNetConnectionTest extends TestBase {
 
 			verify(agentService, times(1)).register(Matchers.<List<String>> any(), eq(agentName), eq(version));
 			verifyNoMoreInteractions(agentService);
+			verify(client, times(1)).setCompression(false);
+		}
+
+		@Test
+		public void dataCompression() throws Exception {
+			AgentConfig agentConfiguration = mock(AgentConfig.class);
+			when(agentConfiguration.isDataCompression()).thenReturn(true);
+			when(client.isConnected()).thenReturn(true);
+			doReturn(agentConfiguration).when(agentService).register(Matchers.<List<String>> any(), anyString(), anyString());
+
+			connection.register("agentName", "version");
+
+			verify(client, times(1)).setCompression(true);
 		}
 
 		@Test(expectedExceptions = { ServerUnavailableException.class })
@@ -448,6 +504,280 @@ public class KryoNetConnectionTest extends TestBase {
 		}
 	}
 
+	public static class AnalyzeAll extends KryoNetConnectionTest {
+
+		@Test
+		public void analyzeAll() throws Exception {
+			Map<String, InstrumentationDefinition> instrumentationResults = Collections.singletonMap("hash", mock(InstrumentationDefinition.class));
+			when(client.isConnected()).thenReturn(true);
+			doReturn(completedFuture(instrumentationResults)).when(asyncAgentService).getLastResponseFuture();
+			long id = 7;
+			Map<String, Type> hashAndTypes = Collections.singletonMap("hash", mock(Type.class));
+
+			Map<String, InstrumentationDefinition> receivedResults = connection.analyzeAll(id, hashAndTypes);
+			assertThat(receivedResults, is(instrumentationResults));
+
+			verify(asyncAgentService, times(1)).analyzeAll(id, hashAndTypes);
+			verify(asyncAgentService, times(1)).getLastResponseFuture();
+			verifyNoMoreInteractions(asyncAgentService);
+			verifyZeroInteractions(agentService);
+		}
+
+		@Test
+		public void pipelined() throws Exception {
+			when(client.isConnected()).thenReturn(true);
+			ResponseFuture<Map<String, InstrumentationDefinition>> firstResponse = new ResponseFuture<Map<String, InstrumentationDefinition>>();
+			Map<String, InstrumentationDefinition> secondResults = Collections.singletonMap("second", mock(InstrumentationDefinition.class));
+			doReturn(firstResponse).doReturn(completedFuture(secondResults)).when(asyncAgentService).getLastResponseFuture();
+			final long id = 7;
+			final Map<String, Type> first = Collections.singletonMap("first", mock(Type.class));
+			Map<String, Type> second = Collections.singletonMap("second", mock(Type.class));
+
+			ExecutorService executorService = Executors.newSingleThreadExecutor();
+			try {
+				Future<Map<String, InstrumentationDefinition>> firstFuture = executorService.submit(new AnalyzeAllCallable(id, first));
+				verify(asyncAgentService, timeout(1000)).getLastResponseFuture();
+
+				// the second call does not wait for the response of the first one
+				Map<String, InstrumentationDefinition> receivedResults = connection.analyzeAll(id, second);
+				assertThat(receivedResults, is(secondResults));
+				assertThat(firstFuture.isDone(), is(false));
+
+				Map<String, InstrumentationDefinition> firstResults = Collections.singletonMap("first", mock(InstrumentationDefinition.class));
+				firstResponse.complete(firstResults);
+				assertThat(firstFuture.get(5, TimeUnit.SECONDS), is(firstResults));
+			} finally {
+				executorService.shutdownNow();
+			}
+
+			verify(asyncAgentService, times(1)).analyzeAll(id, first);
+			verify(asyncAgentService, times(1)).analyzeAll(id, second);
+		}
+
+		@Test
+		public void concurrentCallsCombined() throws Exception {
+			final CountDownLatch firstCallStarted = new CountDownLatch(1);
+			final CountDownLatch releaseFirstCall = new CountDownLatch(1);
+			when(client.isConnected()).thenReturn(true);
+			doAnswer(new Answer<Map<String, InstrumentationDefinition>>() {
+				public Map<String, InstrumentationDefinition> answer(InvocationOnMock invocation) throws Throwable {
+					firstCallStarted.countDown();
+					releaseFirstCall.await();
+					return null;
+				}
+			}).doReturn(null).when(asyncAgentService).analyzeAll(anyLong(), Matchers.<Map<String, Type>> any());
+			doAnswer(new CompletedFutureAnswer()).when(asyncAgentService).getLastResponseFuture();
+			final long id = 7;
+			final Map<String, Type> first = Collections.singletonMap("first", mock(Type.class));
+			final Map<String, Type> second = Collections.singletonMap("second", mock(Type.class));
+			final Map<String, Type> third = Collections.singletonMap("third", mock(Type.class));
+
+			ExecutorService executorService = Executors.newFixedThreadPool(3);
+			try {
+				Future<?> firstFuture = executorService.submit(new AnalyzeAllCallable(id, first));
+				firstCallStarted.await();
+				Future<?> secondFuture = executorService.submit(new AnalyzeAllCallable(id, second));
+				Future<?> thirdFuture = executorService.submit(new AnalyzeAllCallable(id, third));
+				// give the threads time to queue the requests
+				Thread.sleep(100L);
+				releaseFirstCall.countDown();
+				firstFuture.get();
+				secondFuture.get();
+				thirdFuture.get();
+			} finally {
+				executorService.shutdownNow();
+			}
+
+			ArgumentCaptor<Map> captor = ArgumentCaptor.forClass(Map.class);
+			verify(asyncAgentService, times(2)).analyzeAll(eq(id), captor.capture());
+			assertThat(captor.getAllValues().get(0).keySet(), contains((Object) "first"));
+			assertThat(captor.getAllValues().get(1).keySet(), containsInAnyOrder((Object) "second", "third"));
+			verify(asyncAgentService, times(2)).getLastResponseFuture();
+			verifyNoMoreInteractions(asyncAgentService);
+		}
+
+		@Test
+		public void errorCompletesCombinedCalls() throws Exception {
+			final CountDownLatch firstCallStarted = new CountDownLatch(1);
+			final CountDownLatch releaseFirstCall = new CountDownLatch(1);
+			when(client.isConnected()).thenReturn(true);
+			doAnswer(new Answer<Map<String, InstrumentationDefinition>>() {
+				public Map<String, InstrumentationDefinition> answer(InvocationOnMock invocation) throws Throwable {
+					firstCallStarted.countDown();
+					releaseFirstCall.await();
+					return null;
+				}
+			}).doThrow(NoClassDefFoundError.class).when(asyncAgentService).analyzeAll(anyLong(), Matchers.<Map<String, Type>> any());
+			doAnswer(new CompletedFutureAnswer()).when(asyncAgentService).getLastResponseFuture();
+			final long id = 7;
+			final Map<String, Type> first = Collections.singletonMap("first", mock(Type.class));
+			final Map<String, Type> second = Collections.singletonMap("second", mock(Type.class));
+			final Map<String, Type> third = Collections.singletonMap("third", mock(Type.class));
+
+			ExecutorService executorService = Executors.newFixedThreadPool(3);
+			try {
+				Future<?> firstFuture = executorService.submit(new AnalyzeAllCallable(id, first));
+				firstCallStarted.await();
+				Future<?> secondFuture = executorService.submit(new AnalyzeAllCallable(id, second));
+				Future<?> thirdFuture = executorService.submit(new AnalyzeAllCallable(id, third));
+				// give the threads time to queue the requests
+				Thread.sleep(100L);
+				releaseFirstCall.countDown();
+				firstFuture.get(5, TimeUnit.SECONDS);
+				for (Future<?> future : Arrays.asList(secondFuture, thirdFuture)) {
+					Throwable cause = null;
+					try {
+						future.get(5, TimeUnit.SECONDS);
+					} catch (ExecutionException e) {
+						cause = e.getCause();
+					}
+					assertThat(cause, is(instanceOf(NoClassDefFoundError.class)));
+				}
+			} finally {
+				executorService.shutdownNow();
+			}
+
+			verify(asyncAgentService, times(2)).analyzeAll(eq(id), Matchers.<Map<String, Type>> any());
+			verify(asyncAgentService, times(1)).getLastResponseFuture();
+			verifyNoMoreInteractions(asyncAgentService);
+		}
+
+		@Test(expectedExceptions = { BusinessException.class })
+		public void businessException() throws Exception {
+			when(client.isConnected()).thenReturn(true);
+			ResponseFuture<Map<String, InstrumentationDefinition>> response = new ResponseFuture<Map<String, InstrumentationDefinition>>();
+			response.fail(mock(BusinessException.class));
+			doReturn(response).when(asyncAgentService).getLastResponseFuture();
+			long id = 7;
+			Map<String, Type> hashAndTypes = Collections.singletonMap("hash", mock(Type.class));
+
+			try {
+				connection.analyzeAll(id, hashAndTypes);
+			} finally {
+				verify(asyncAgentService, times(1)).analyzeAll(id, hashAndTypes);
+			}
+		}
+
+		@Test(expectedExceptions = { ServerUnavailableException.class })
+		public void remoteException() throws Exception {
+			when(client.isConnected()).thenReturn(true);
+			ResponseFuture<Map<String, InstrumentationDefinition>> response = new ResponseFuture<Map<String, InstrumentationDefinition>>();
+			response.fail(new KryoNetException());
+			doReturn(response).when(asyncAgentService).getLastResponseFuture();
+			long id = 7;
+			Map<String, Type> hashAndTypes = Collections.singletonMap("hash", mock(Type.class));
+
+			try {
+				connection.analyzeAll(id, hashAndTypes);
+			} catch (ServerUnavailableException e) {
+				assertThat(e.isServerTimeout(), is(false));
+				throw e;
+			} finally {
+				verify(asyncAgentService, times(1)).analyzeAll(id, hashAndTypes);
+			}
+		}
+
+		@Test
+		public void responseTimeout() throws Exception {
+			when(client.isConnected()).thenReturn(true);
+			ResponseFuture<Map<String, InstrumentationDefinition>> response = new ResponseFuture<Map<String, InstrumentationDefinition>>();
+			doReturn(response).when(asyncAgentService).getLastResponseFuture();
+			long id = 7;
+			Map<String, Type> hashAndTypes = Collections.singletonMap("hash", mock(Type.class));
+
+			ServerUnavailableException exception = null;
+			try {
+				connection.analyzeAll(id, hashAndTypes);
+			} catch (ServerUnavailableException e) {
+				exception = e;
+			}
+
+			assertThat(exception.isServerTimeout(), is(true));
+			assertThat(response.isCancelled(), is(true));
+			verify(asyncAgentService, times(1)).analyzeAll(id, hashAndTypes);
+		}
+
+		@Test(expectedExceptions = { ServerUnavailableException.class })
+		public void notConnected() throws Exception {
+			when(client.isConnected()).thenReturn(false);
+			long id = 7;
+			Map<String, Type> hashAndTypes = Collections.singletonMap("hash", mock(Type.class));
+
+			try {
+				connection.analyzeAll(id, hashAndTypes);
+			} finally {
+				verifyZeroInteractions(asyncAgentService);
+			}
+		}
+
+		/**
+		 * Creates a {@link ResponseFuture} completed with the given result.
+		 */
+		private ResponseFuture<Map<String, InstrumentationDefinition>> completedFuture(Map<String, InstrumentationDefinition> result) {
+			ResponseFuture<Map<String, InstrumentationDefinition>> future = new ResponseFuture<Map<String, InstrumentationDefinition>>();
+			future.complete(result);
+			return future;
+		}
+
+		/**
+		 * Answers with a new {@link ResponseFuture} completed with an empty result.
+		 */
+		private class CompletedFutureAnswer implements Answer<ResponseFuture<Map<String, InstrumentationDefinition>>> {
+
+			public ResponseFuture<Map<String, InstrumentationDefinition>> answer(InvocationOnMock invocation) throws Throwable {
+				return completedFuture(Collections.<String, InstrumentationDefinition> emptyMap());
+			}
+		}
+
+		/**
+		 * Calls {@link KryoNetConnection#analyzeAll(long, Map)}.
+		 */
+		private class AnalyzeAllCallable implements Callable<Map<String, InstrumentationDefinition>> {
+
+			private final long id;
+
+			private final Map<String, Type> hashAndTypes;
+
+			AnalyzeAllCallable(long id, Map<String, Type> hashAndTypes) {
+				this.id = id;
+				this.hashAndTypes = hashAndTypes;
+			}
+
+			public Map<String, InstrumentationDefinition> call() throws Exception {
+				return connection.analyzeAll(id, hashAndTypes);
+			}
+		}
+	}
+
+	public static class AnalyzeKnown extends KryoNetConnectionTest {
+
+		@Test
+		public void analyzeKnown() throws Exception {
+			Map<String, InstrumentationDefinition> instrumentationResults = Collections.singletonMap("hash", mock(InstrumentationDefinition.class));
+			when(client.isConnected()).thenReturn(true);
+			doReturn(instrumentationResults).when(agentService).analyzeKnown(anyLong(), Matchers.<Collection<String>> any());
+			long id = 7;
+			Collection<String> hashes = Collections.singleton("hash");
+
+			Map<String, InstrumentationDefinition> receivedResults = connection.analyzeKnown(id, hashes);
+			assertThat(receivedResults, is(instrumentationResults));
+
+			verify(agentService, times(1)).analyzeKnown(id, hashes);
+			verifyNoMoreInteractions(agentService);
+		}
+
+		@Test(expectedExceptions = { ServerUnavailableException.class })
+		public void notConnected() throws Exception {
+			when(client.isConnected()).thenReturn(false);
+
+			try {
+				connection.analyzeKnown(7, Collections.singleton("hash"));
+			} finally {
+				verifyZeroInteractions(agentService);
+			}
+		}
+	}
+
 	public static class InstrumentationApplied extends KryoNetConnectionTest {
 
 		@Test
@@ -458,14 +788,14 @@ public class KryoNetConnectionTest extends TestBase {
 
 			connection.instrumentationApplied(methodToSensorMap);
 
-			verify(agentService, times(1)).instrumentationApplied(methodToSensorMap);
-			verifyNoMoreInteractions(agentService);
+			verify(oneWayAgentService, times(1)).instrumentationApplied(methodToSensorMap);
+			verifyNoMoreInteractions(oneWayAgentService);
 		}
 
 		@Test(expectedExceptions = { ServerUnavailableException.class })
 		public void timeout() throws Exception {
 			when(client.isConnected()).thenReturn(true);
-			doThrow(TimeoutException.class).when(agentService).instrumentationApplied(Matchers.<Map<Long, long[]>> any());
+			doThrow(TimeoutException.class).when(oneWayAgentService).instrumentationApplied(Matchers.<Map<Long, long[]>> any());
 			Map<Long, long[]> methodToSensorMap = mock(Map.class);
 			when(methodToSensorMap.isEmpty()).thenReturn(false);
 
@@ -475,15 +805,15 @@ public class KryoNetConnectionTest extends TestBase {
 				assertThat(e.isServerTimeout(), is(true));
 				throw e;
 			} finally {
-				verify(agentService, times(1)).instrumentationApplied(methodToSensorMap);
-				verifyNoMoreInteractions(agentService);
+				verify(oneWayAgentService, times(1)).instrumentationApplied(methodToSensorMap);
+				verifyNoMoreInteractions(oneWayAgentService);
 			}
 		}
 
 		@Test(expectedExceptions = { ServerUnavailableException.class })
 		public void remoteException() throws Exception {
 			when(client.isConnected()).thenReturn(true);
-			doThrow(RuntimeException.class).when(agentService).instrumentationApplied(Matchers.<Map<Long, long[]>> any());
+			doThrow(RuntimeException.class).when(oneWayAgentService).instrumentationApplied(Matchers.<Map<Long, long[]>> any());
 			Map<Long, long[]> methodToSensorMap = mock(Map.class);
 			when(methodToSensorMap.isEmpty()).thenReturn(false);
 
@@ -494,8 +824,8 @@ public class KryoNetConnectionTest extends TestBase {
 				throw e;
 			} finally {
 				// call depends on the retry strategy
-				verify(agentService, times(RetryStrategy.DEFAULT_NUMBER_OF_RETRIES)).instrumentationApplied(methodToSensorMap);
-				verifyNoMoreInteractions(agentService);
+				verify(oneWayAgentService, times(RetryStrategy.DEFAULT_NUMBER_OF_RETRIES)).instrumentationApplied(methodToSensorMap);
+				verifyNoMoreInteractions(oneWayAgentService);
 			}
 		}
 
@@ -510,8 +840,14 @@ public class KryoNetConnectionTest extends TestBase {
 				assertThat(e.isServerTimeout(), is(false));
 				throw e;
 			} finally {
-				verifyZeroInteractions(agentService);
+				verifyZeroInteractions(oneWayAgentService);
 			}
 		}
 	}
+
+	/**
+	 * Type of the asynchronous remote object of the {@link IAgentService}.
+	 */
+	interface AsyncAgentService extends IAgentService, IAsyncRemoteObject {
+	}
 }
@@ -3,6 +3,8 @@ package rocks.inspectit.agent.java.core.impl;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -228,15 +230,13 @@ public class CoreServiceTest extends TestBase {
 
 	@Test
 	public void verifyListListenerMethodData() {
-		ListListener<TimerData> listener = mock(ListListener.class);
+		ListListener listener = mock(ListListener.class);
 		TimerData timerData = new TimerData();
-		List<TimerData> dataList = new ArrayList<TimerData>();
-		dataList.add(timerData);
 
 		coreService.addListListener(listener);
 		coreService.addMethodSensorData(0, 0, null, timerData);
 
-		verify(listener, times(1)).contentChanged(dataList);
+		verify(listener, times(1)).contentChanged(eq(1), anyLong());
 
 		coreService.removeListListener(listener);
 
@@ -246,15 +246,13 @@ public class CoreServiceTest extends TestBase {
 
 	@Test
 	public void verifyListListenerPlatformData() {
-		ListListener<SystemSensorData> listener = mock(ListListener.class);
+		ListListener listener = mock(ListListener.class);
 		CpuInformationData cpuInformationData = new CpuInformationData();
-		List<SystemSensorData> dataList = new ArrayList<SystemSensorData>();
-		dataList.add(cpuInformationData);
 
 		coreService.addListListener(listener);
 		coreService.addPlatformSensorData(0, cpuInformationData);
 
-		verify(listener, times(1)).contentChanged(dataList);
+		verify(listener, times(1)).contentChanged(eq(1), anyLong());
 
 		coreService.removeListListener(listener);
 
@@ -264,18 +262,16 @@ public class CoreServiceTest extends TestBase {
 
 	@Test
 	public void verifyListListenerExceptionData() {
-		ListListener<ExceptionSensorData> listener = mock(ListListener.class);
+		ListListener listener = mock(ListListener.class);
 		ExceptionSensorData exceptionSensorData = new ExceptionSensorData();
 		exceptionSensorData.setThrowableType("MyException");
 		exceptionSensorData.setThrowableIdentityHashCode(1234);
 		exceptionSensorData.setExceptionEvent(ExceptionEvent.CREATED);
-		List<ExceptionSensorData> dataList = new ArrayList<ExceptionSensorData>();
-		dataList.add(exceptionSensorData);
 
 		coreService.addListListener(listener);
 		coreService.addExceptionSensorData(0, exceptionSensorData.getThrowableIdentityHashCode(), exceptionSensorData);
 
-		verify(listener, times(1)).contentChanged(dataList);
+		verify(listener, times(1)).contentChanged(eq(1), anyLong());
 
 		coreService.removeListListener(listener);
 
@@ -285,15 +281,13 @@ public class CoreServiceTest extends TestBase {
 
 	@Test
 	public void verifyListListenerObjectStorageData() {
-		ListListener<IObjectStorage> listener = mock(ListListener.class);
+		ListListener listener = mock(ListListener.class);
 		PlainTimerStorage timerStorage = new PlainTimerStorage(null, 0, 0, 0, Collections.<ParameterContentData> emptyList(), false);
-		List<IObjectStorage> storageList = new ArrayList<IObjectStorage>();
-		storageList.add(timerStorage);
 
 		coreService.addListListener(listener);
 		coreService.addObjectStorage(0, 0, null, timerStorage);
 
-		verify(listener, times(1)).contentChanged(storageList);
+		verify(listener, times(1)).contentChanged(eq(1), anyLong());
 
 		coreService.removeListListener(listener);
 
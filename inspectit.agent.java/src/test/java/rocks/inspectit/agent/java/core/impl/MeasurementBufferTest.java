@@ -0,0 +1,102 @@
+package rocks.inspectit.agent.java.core.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import rocks.inspectit.agent.java.core.IObjectStorage;
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.communication.data.CpuInformationData;
+import rocks.inspectit.shared.all.communication.data.TimerData;
+
+@SuppressWarnings("PMD")
+public class MeasurementBufferTest {
+
+	private MeasurementBuffer buffer;
+
+	@BeforeMethod
+	public void initTestClass() {
+		buffer = new MeasurementBuffer();
+	}
+
+	@Test
+	public void harvest() {
+		CpuInformationData cpuInformationData = new CpuInformationData();
+		TimerData timerData = new TimerData();
+		TimerData finalizedData = new TimerData();
+		IObjectStorage objectStorage = mock(IObjectStorage.class);
+		when(objectStorage.finalizeDataObject()).thenReturn(finalizedData);
+		buffer.getSensorDataObjects().put("1", cpuInformationData);
+		buffer.getMethodSensorDataObjects().put(1L, 2L, null, timerData);
+		buffer.getObjectStorages().put(1L, 3L, null, objectStorage);
+
+		List<DefaultData> list = new ArrayList<DefaultData>();
+		buffer.harvest(list);
+
+		assertThat(list, containsInAnyOrder((DefaultData) cpuInformationData, timerData, finalizedData));
+		assertThat(buffer.isEmpty(), is(true));
+	}
+
+	@Test
+	public void counters() {
+		buffer.elementAdded(null, null);
+		buffer.elementAdded(null, "prefix");
+		buffer.elementAdded(new Object(), "prefix");
+
+		assertThat(buffer.getElementCount(), is(2));
+		assertThat(buffer.getApproximateSize() > 0, is(true));
+
+		buffer.harvest(new ArrayList<DefaultData>());
+
+		assertThat(buffer.getElementCount(), is(0));
+		assertThat(buffer.getApproximateSize(), is(0L));
+	}
+
+	@Test
+	public void awaitWritersNoWriters() {
+		int stripe = MeasurementBuffer.stripe();
+		buffer.enter(stripe);
+		buffer.exit(stripe);
+
+		// must return immediately
+		buffer.awaitWriters();
+	}
+
+	@Test
+	public void awaitWriters() throws InterruptedException {
+		final int stripe = MeasurementBuffer.stripe();
+		buffer.enter(stripe);
+
+		final CountDownLatch awaited = new CountDownLatch(1);
+		Thread preparing = new Thread() {
+			@Override
+			public void run() {
+				buffer.awaitWriters();
+				awaited.countDown();
+			}
+		};
+		preparing.start();
+
+		assertThat(awaited.await(100, TimeUnit.MILLISECONDS), is(false));
+		TimerData timerData = new TimerData();
+		buffer.getMethodSensorDataObjects().put(1L, 1L, null, timerData);
+		buffer.exit(stripe);
+		assertThat(awaited.await(5, TimeUnit.SECONDS), is(true));
+
+		List<DefaultData> list = new ArrayList<DefaultData>();
+		buffer.harvest(list);
+		assertThat(list, contains((DefaultData) timerData));
+	}
+
+}
@@ -0,0 +1,125 @@
+package rocks.inspectit.agent.java.core.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("PMD")
+public class MeasurementStorageTest {
+
+	private MeasurementStorage<Object> storage;
+
+	@BeforeMethod
+	public void initTestClass() {
+		storage = new MeasurementStorage<Object>();
+	}
+
+	@Test
+	public void putAndGet() {
+		Object element = new Object();
+
+		Object previous = storage.put(1L, 2L, null, element);
+
+		assertThat(previous, is(nullValue()));
+		assertThat(storage.get(1L, 2L, null), is(element));
+		assertThat(storage.get(2L, 1L, null), is(nullValue()));
+		assertThat(storage.get(1L, 2L, "prefix"), is(nullValue()));
+	}
+
+	@Test
+	public void putAndGetWithPrefix() {
+		Object element = new Object();
+		Object other = new Object();
+
+		storage.put(1L, 2L, "prefix", element);
+		storage.put(1L, 2L, "other", other);
+
+		assertThat(storage.get(1L, 2L, "prefix"), is(element));
+		assertThat(storage.get(1L, 2L, new String("prefix")), is(element));
+		assertThat(storage.get(1L, 2L, "other"), is(other));
+		assertThat(storage.get(1L, 2L, null), is(nullValue()));
+	}
+
+	@Test
+	public void replace() {
+		Object element = new Object();
+		Object other = new Object();
+
+		storage.put(1L, 2L, null, element);
+		Object previous = storage.put(1L, 2L, null, other);
+
+		assertThat(previous, is(element));
+		assertThat(storage.get(1L, 2L, null), is(other));
+	}
+
+	@Test
+	public void sensorTypesDoNotClash() {
+		Object element = new Object();
+		Object other = new Object();
+
+		storage.put(1L, Long.MAX_VALUE, null, element);
+		storage.put(1L, Integer.MAX_VALUE + 1L, null, other);
+
+		assertThat(storage.get(1L, Long.MAX_VALUE, null), is(element));
+		assertThat(storage.get(1L, Integer.MAX_VALUE + 1L, null), is(other));
+	}
+
+	@Test
+	public void addAllTo() {
+		Object element = new Object();
+		Object other = new Object();
+		storage.put(1L, 2L, null, element);
+		storage.put(3L, 2L, "prefix", other);
+
+		List<Object> list = new ArrayList<Object>();
+		storage.addAllTo(list);
+
+		assertThat(list, containsInAnyOrder(element, other));
+	}
+
+	@Test
+	public void clear() {
+		storage.put(1L, 2L, "prefix", new Object());
+
+		storage.clear();
+
+		List<Object> list = new ArrayList<Object>();
+		storage.addAllTo(list);
+		assertThat(list, is(empty()));
+		assertThat(storage.isEmpty(), is(true));
+		assertThat(storage.get(1L, 2L, "prefix"), is(nullValue()));
+	}
+
+	@Test
+	public void putAfterClear() {
+		Object element = new Object();
+		storage.put(1L, 2L, null, new Object());
+		storage.clear();
+
+		Object previous = storage.put(1L, 2L, null, element);
+
+		assertThat(previous, is(nullValue()));
+		assertThat(storage.isEmpty(), is(false));
+		assertThat(storage.get(1L, 2L, null), is(element));
+	}
+
+	@Test
+	public void clearTwice() {
+		storage.put(1L, 2L, null, new Object());
+
+		storage.clear();
+		storage.clear();
+
+		assertThat(storage.isEmpty(), is(true));
+		assertThat(storage.get(1L, 2L, null), is(nullValue()));
+	}
+
+}
@@ -0,0 +1,45 @@
+package rocks.inspectit.agent.java.hooking;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import org.testng.annotations.Test;
+
+@SuppressWarnings("PMD")
+public class InlinedTimerTest {
+
+	@Test
+	public void slotsAllocatedInOrder() {
+		int first = InlinedTimer.allocateSlot();
+		int second = InlinedTimer.allocateSlot();
+
+		assertThat(second, is(first + 1));
+		assertThat(InlinedTimer.getSlotCount(), is(second + 1));
+	}
+
+	@Test
+	public void slotsKeptOnGrowth() {
+		int slot = InlinedTimer.allocateSlot();
+		InlinedTimer.recordDuration(slot, System.nanoTime());
+
+		int last = slot;
+		for (int i = 0; i < 200; i++) {
+			last = InlinedTimer.allocateSlot();
+		}
+		InlinedTimer.recordDuration(last, System.nanoTime());
+
+		long[] result = new long[4];
+		assertThat(InlinedTimer.drain(slot, result), is(true));
+		assertThat(result[0], is(1L));
+		assertThat(InlinedTimer.drain(last, result), is(true));
+		assertThat(result[0], is(1L));
+		assertThat(InlinedTimer.getSlotCount(), is(last + 1));
+	}
+
+	@Test
+	public void nothingToDrain() {
+		int slot = InlinedTimer.allocateSlot();
+
+		assertThat(InlinedTimer.drain(slot, new long[4]), is(false));
+	}
+}
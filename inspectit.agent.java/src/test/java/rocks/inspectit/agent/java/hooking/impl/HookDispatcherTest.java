@@ -1,5 +1,8 @@
 package rocks.inspectit.agent.java.hooking.impl;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.inOrder;
@@ -26,11 +29,14 @@ import rocks.inspectit.agent.java.config.impl.RegisteredSensorConfig;
 import rocks.inspectit.agent.java.core.ICoreService;
 import rocks.inspectit.agent.java.hooking.IConstructorHook;
 import rocks.inspectit.agent.java.hooking.IMethodHook;
+import rocks.inspectit.agent.java.hooking.IThreadContextConstructorHook;
+import rocks.inspectit.agent.java.hooking.IThreadContextMethodHook;
 import rocks.inspectit.agent.java.sensor.exception.ExceptionSensor;
 import rocks.inspectit.agent.java.sensor.exception.ExceptionSensorHook;
 import rocks.inspectit.agent.java.sensor.method.IMethodSensor;
 import rocks.inspectit.agent.java.sensor.method.invocationsequence.InvocationSequenceHook;
 import rocks.inspectit.agent.java.sensor.method.invocationsequence.InvocationSequenceSensor;
+import rocks.inspectit.agent.java.util.ThreadContext;
 import rocks.inspectit.shared.all.instrumentation.config.impl.MethodSensorTypeConfig;
 import rocks.inspectit.shared.all.testbase.TestBase;
 
@@ -69,15 +75,16 @@ public class HookDispatcherTest extends TestBase {
 			when(registeredSensorConfig.getMethodSensorsReverse()).thenReturn(Collections.<IMethodSensor> emptyList());
 
 			hookDispatcher.addMapping(methodId, registeredSensorConfig);
+			int methodIndex = hookDispatcher.getDispatchIndex(methodId);
 
-			hookDispatcher.dispatchMethodBeforeBody(methodId, object, parameters);
+			hookDispatcher.dispatchMethodBeforeBody(methodIndex, object, parameters);
 			verify(registeredSensorConfig, times(1)).isStartsInvocation();
 			verify(registeredSensorConfig, times(1)).getMethodSensorsReverse();
 
-			hookDispatcher.dispatchFirstMethodAfterBody(methodId, object, parameters, returnValue);
+			hookDispatcher.dispatchFirstMethodAfterBody(methodIndex, object, parameters, returnValue);
 			verify(registeredSensorConfig, times(1)).getMethodSensors();
 
-			hookDispatcher.dispatchSecondMethodAfterBody(methodId, object, parameters, returnValue);
+			hookDispatcher.dispatchSecondMethodAfterBody(methodIndex, object, parameters, returnValue);
 			verify(registeredSensorConfig, times(2)).isStartsInvocation();
 			verify(registeredSensorConfig, times(2)).getMethodSensors();
 
@@ -105,17 +112,18 @@ public class HookDispatcherTest extends TestBase {
 			Object returnValue = mock(Object.class);
 
 			hookDispatcher.addMapping(methodId, registeredSensorConfig);
+			int methodIndex = hookDispatcher.getDispatchIndex(methodId);
 
-			hookDispatcher.dispatchMethodBeforeBody(methodId, object, parameters);
+			hookDispatcher.dispatchMethodBeforeBody(methodIndex, object, parameters);
 			verify(registeredSensorConfig, times(1)).isStartsInvocation();
 			verify(registeredSensorConfig, times(1)).getMethodSensorsReverse();
 			verify(methodHook, times(1)).beforeBody(methodId, sensorTypeId, object, parameters, registeredSensorConfig);
 
-			hookDispatcher.dispatchFirstMethodAfterBody(methodId, object, parameters, returnValue);
+			hookDispatcher.dispatchFirstMethodAfterBody(methodIndex, object, parameters, returnValue);
 			verify(registeredSensorConfig, times(1)).getMethodSensors();
 			verify(methodHook, times(1)).firstAfterBody(methodId, sensorTypeId, object, parameters, returnValue, registeredSensorConfig);
 
-			hookDispatcher.dispatchSecondMethodAfterBody(methodId, object, parameters, returnValue);
+			hookDispatcher.dispatchSecondMethodAfterBody(methodIndex, object, parameters, returnValue);
 			verify(registeredSensorConfig, times(2)).isStartsInvocation();
 			verify(registeredSensorConfig, times(2)).getMethodSensors();
 			verify(methodHook, times(1)).secondAfterBody(coreService, methodId, sensorTypeId, object, parameters, returnValue, registeredSensorConfig);
@@ -124,6 +132,42 @@ public class HookDispatcherTest extends TestBase {
 			verifyNoMoreInteractions(registeredSensorConfig, methodHook);
 		}
 
+		@Test
+		public void dispatchThreadContextMethodHook() {
+			long sensorTypeId = 7L;
+			IMethodSensor methodSensor = mock(IMethodSensor.class);
+			IThreadContextMethodHook methodHook = mock(IThreadContextMethodHook.class);
+			MethodSensorTypeConfig methodSensorConfig = mock(MethodSensorTypeConfig.class);
+			when(methodSensor.getHook()).thenReturn(methodHook);
+			when(methodSensor.getSensorTypeConfig()).thenReturn(methodSensorConfig);
+			when(methodSensorConfig.getId()).thenReturn(sensorTypeId);
+
+			RegisteredSensorConfig registeredSensorConfig = mock(RegisteredSensorConfig.class);
+			when(registeredSensorConfig.getMethodSensors()).thenReturn(Collections.singletonList(methodSensor));
+			when(registeredSensorConfig.getMethodSensorsReverse()).thenReturn(Collections.singletonList(methodSensor));
+
+			int methodId = 3;
+			Object object = mock(Object.class);
+			Object[] parameters = new Object[0];
+			Object returnValue = mock(Object.class);
+			ThreadContext threadContext = ThreadContext.current();
+
+			hookDispatcher.addMapping(methodId, registeredSensorConfig);
+			int methodIndex = hookDispatcher.getDispatchIndex(methodId);
+
+			hookDispatcher.dispatchMethodBeforeBody(methodIndex, object, parameters);
+			verify(methodHook, times(1)).beforeBody(threadContext, methodId, sensorTypeId, object, parameters, registeredSensorConfig);
+
+			hookDispatcher.dispatchFirstMethodAfterBody(methodIndex, object, parameters, returnValue);
+			verify(methodHook, times(1)).firstAfterBody(threadContext, methodId, sensorTypeId, object, parameters, returnValue, registeredSensorConfig);
+
+			hookDispatcher.dispatchSecondMethodAfterBody(methodIndex, object, parameters, returnValue);
+			verify(methodHook, times(1)).secondAfterBody(threadContext, coreService, methodId, sensorTypeId, object, parameters, returnValue, registeredSensorConfig);
+
+			verifyZeroInteractions(object, coreService, returnValue);
+			verifyNoMoreInteractions(methodHook);
+		}
+
 		@Test
 		public void dispatchManyMethodHooksWithoutInvocationTrace() {
 			IMethodHook methodHookOne = mock(IMethodHook.class);
@@ -160,8 +204,9 @@ public class HookDispatcherTest extends TestBase {
 			Object returnValue = mock(Object.class);
 
 			hookDispatcher.addMapping(methodId, registeredSensorConfig);
+			int methodIndex = hookDispatcher.getDispatchIndex(methodId);
 
-			hookDispatcher.dispatchMethodBeforeBody(methodId, object, parameters);
+			hookDispatcher.dispatchMethodBeforeBody(methodIndex, object, parameters);
 			verify(registeredSensorConfig, times(1)).isStartsInvocation();
 			verify(registeredSensorConfig, times(1)).getMethodSensorsReverse();
 			InOrder inOrder = inOrder(methodHookOne, methodHookTwo, methodHookThree);
@@ -169,14 +214,14 @@ public class HookDispatcherTest extends TestBase {
 			inOrder.verify(methodHookTwo, times(1)).beforeBody(methodId, sensorTypeIdTwo, object, parameters, registeredSensorConfig);
 			inOrder.verify(methodHookOne, times(1)).beforeBody(methodId, sensorTypeIdOne, object, parameters, registeredSensorConfig);
 
-			hookDispatcher.dispatchFirstMethodAfterBody(methodId, object, parameters, returnValue);
+			hookDispatcher.dispatchFirstMethodAfterBody(methodIndex, object, parameters, returnValue);
 			verify(registeredSensorConfig, times(1)).getMethodSensors();
 			inOrder = inOrder(methodHookOne, methodHookTwo, methodHookThree);
 			inOrder.verify(methodHookOne, times(1)).firstAfterBody(methodId, sensorTypeIdOne, object, parameters, returnValue, registeredSensorConfig);
 			inOrder.verify(methodHookTwo, times(1)).firstAfterBody(methodId, sensorTypeIdTwo, object, parameters, returnValue, registeredSensorConfig);
 			inOrder.verify(methodHookThree, times(1)).firstAfterBody(methodId, sensorTypeIdThree, object, parameters, returnValue, registeredSensorConfig);
 
-			hookDispatcher.dispatchSecondMethodAfterBody(methodId, object, parameters, returnValue);
+			hookDispatcher.dispatchSecondMethodAfterBody(methodIndex, object, parameters, returnValue);
 			verify(registeredSensorConfig, times(2)).isStartsInvocation();
 			verify(registeredSensorConfig, times(2)).getMethodSensors();
 			inOrder = inOrder(methodHookOne, methodHookTwo, methodHookThree);
@@ -202,6 +247,7 @@ public class HookDispatcherTest extends TestBase {
 			long invocSensorTypeId = 13L;
 			MethodSensorTypeConfig invocSensorType = mock(MethodSensorTypeConfig.class);
 			InvocationSequenceHook invocHook = mock(InvocationSequenceHook.class);
+			ThreadContext threadContext = ThreadContext.current();
 			when(invocationSequenceSensor.getSensorTypeConfig()).thenReturn(invocSensorType);
 			when(invocationSequenceSensor.getHook()).thenReturn(invocHook);
 			when(invocSensorType.getId()).thenReturn(invocSensorTypeId);
@@ -222,6 +268,7 @@ public class HookDispatcherTest extends TestBase {
 
 			// map the first method
 			hookDispatcher.addMapping(methodId, registeredSensorConfig);
+			int methodIndex = hookDispatcher.getDispatchIndex(methodId);
 
 			RegisteredSensorConfig registeredSensorConfigTwo = mock(RegisteredSensorConfig.class);
 			List<IMethodSensor> sensorsTwo = Arrays.<IMethodSensor> asList(methodSensor);
@@ -231,60 +278,61 @@ public class HookDispatcherTest extends TestBase {
 			long methodIdTwo = 15L;
 			// map the second method
 			hookDispatcher.addMapping(methodIdTwo, registeredSensorConfigTwo);
+			int methodIndexTwo = hookDispatcher.getDispatchIndex(methodIdTwo);
 
 			// ////////////////////////////////////////////////////////
 			// FIRST METHOD DISPATCHER
 
 			// dispatch the first method - before body
-			hookDispatcher.dispatchMethodBeforeBody(methodId, object, parameters);
+			hookDispatcher.dispatchMethodBeforeBody(methodIndex, object, parameters);
 			verify(registeredSensorConfig, times(1)).isStartsInvocation();
 			verify(registeredSensorConfig, times(1)).getMethodSensorsReverse();
 			verify(methodSensor, times(1)).getHook();
 			verify(methodHook, times(1)).beforeBody(methodId, methodSensorTypeId, object, parameters, registeredSensorConfig);
-			verify(invocHook, times(1)).beforeBody(methodId, invocSensorTypeId, object, parameters, registeredSensorConfig);
+			verify(invocHook, times(1)).beforeBody(threadContext, methodId, invocSensorTypeId, object, parameters, registeredSensorConfig);
 
 			// ////////////////////////////////////////////////////////
 			// SECOND METHOD DISPATCHER
 
 			// dispatch the second method - before body
-			hookDispatcher.dispatchMethodBeforeBody(methodIdTwo, object, parameters);
+			hookDispatcher.dispatchMethodBeforeBody(methodIndexTwo, object, parameters);
 			verify(registeredSensorConfigTwo, times(1)).isStartsInvocation();
 			verify(registeredSensorConfigTwo, times(1)).getMethodSensorsReverse();
 			verify(methodSensor, times(2)).getHook();
 			verify(methodHook, times(1)).beforeBody(methodIdTwo, methodSensorTypeId, object, parameters, registeredSensorConfigTwo);
-			verify(invocHook, times(1)).beforeBody(eq(methodIdTwo), anyLong(), eq(object), eq(parameters), eq(registeredSensorConfigTwo));
+			verify(invocHook, times(1)).beforeBody(eq(threadContext), eq(methodIdTwo), anyLong(), eq(object), eq(parameters), eq(registeredSensorConfigTwo));
 
 			// dispatch the second method - first after body
-			hookDispatcher.dispatchFirstMethodAfterBody(methodIdTwo, object, parameters, returnValue);
+			hookDispatcher.dispatchFirstMethodAfterBody(methodIndexTwo, object, parameters, returnValue);
 			verify(registeredSensorConfigTwo, times(1)).getMethodSensors();
 			verify(methodSensor, times(3)).getHook();
 			verify(methodHook, times(1)).firstAfterBody(methodIdTwo, methodSensorTypeId, object, parameters, returnValue, registeredSensorConfigTwo);
 
 			// dispatch the second method - second after body
-			hookDispatcher.dispatchSecondMethodAfterBody(methodIdTwo, object, parameters, returnValue);
+			hookDispatcher.dispatchSecondMethodAfterBody(methodIndexTwo, object, parameters, returnValue);
 			verify(registeredSensorConfigTwo, times(2)).isStartsInvocation();
 			verify(registeredSensorConfigTwo, times(2)).getMethodSensors();
 			verify(methodSensor, times(4)).getHook();
 			verify(methodHook, times(1)).secondAfterBody(invocHook, methodIdTwo, methodSensorTypeId, object, parameters, returnValue, registeredSensorConfigTwo);
-			verify(invocHook, times(1)).secondAfterBody(eq(coreService), eq(methodIdTwo), anyLong(), eq(object), eq(parameters), eq(returnValue), eq(registeredSensorConfigTwo));
+			verify(invocHook, times(1)).secondAfterBody(eq(threadContext), eq(coreService), eq(methodIdTwo), anyLong(), eq(object), eq(parameters), eq(returnValue), eq(registeredSensorConfigTwo));
 
 			// END SECOND METHOD DISPATCHER
 			// ////////////////////////////////////////////////////////
 
 			// dispatch the first method - first after body
-			hookDispatcher.dispatchFirstMethodAfterBody(methodId, object, parameters, returnValue);
+			hookDispatcher.dispatchFirstMethodAfterBody(methodIndex, object, parameters, returnValue);
 			verify(registeredSensorConfig, times(1)).getMethodSensors();
 			verify(methodSensor, times(5)).getHook();
 			verify(methodHook, times(1)).firstAfterBody(methodId, methodSensorTypeId, object, parameters, returnValue, registeredSensorConfig);
-			verify(invocHook, times(1)).firstAfterBody(methodId, invocSensorTypeId, object, parameters, returnValue, registeredSensorConfig);
+			verify(invocHook, times(1)).firstAfterBody(threadContext, methodId, invocSensorTypeId, object, parameters, returnValue, registeredSensorConfig);
 
 			// dispatch the first method - second after body
-			hookDispatcher.dispatchSecondMethodAfterBody(methodId, object, parameters, returnValue);
+			hookDispatcher.dispatchSecondMethodAfterBody(methodIndex, object, parameters, returnValue);
 			verify(registeredSensorConfig, times(2)).isStartsInvocation();
 			verify(registeredSensorConfig, times(2)).getMethodSensors();
 			verify(methodSensor, times(6)).getHook();
 			verify(methodHook, times(1)).secondAfterBody(invocHook, methodId, methodSensorTypeId, object, parameters, returnValue, registeredSensorConfig);
-			verify(invocHook, times(1)).secondAfterBody(coreService, methodId, invocSensorTypeId, object, parameters, returnValue, registeredSensorConfig);
+			verify(invocHook, times(1)).secondAfterBody(threadContext, coreService, methodId, invocSensorTypeId, object, parameters, returnValue, registeredSensorConfig);
 
 			// END FIRST METHOD DISPATCHER
 			// ////////////////////////////////////////////////////////
@@ -308,11 +356,12 @@ public class HookDispatcherTest extends TestBase {
 			when(registeredSensorConfig.getMethodSensorsReverse()).thenReturn(Collections.<IMethodSensor> emptyList());
 
 			hookDispatcher.addMapping(methodId, registeredSensorConfig);
+			int methodIndex = hookDispatcher.getDispatchIndex(methodId);
 
-			hookDispatcher.dispatchConstructorBeforeBody(methodId, parameters);
+			hookDispatcher.dispatchConstructorBeforeBody(methodIndex, parameters);
 			verify(registeredSensorConfig, times(1)).isStartsInvocation();
 			verify(registeredSensorConfig, times(1)).getMethodSensorsReverse();
-			hookDispatcher.dispatchConstructorAfterBody(methodId, object, parameters);
+			hookDispatcher.dispatchConstructorAfterBody(methodIndex, object, parameters);
 			verify(registeredSensorConfig, times(2)).isStartsInvocation();
 			verify(registeredSensorConfig, times(1)).getMethodSensors();
 
@@ -339,13 +388,14 @@ public class HookDispatcherTest extends TestBase {
 			Object[] parameters = new Object[0];
 
 			hookDispatcher.addMapping(methodId, registeredSensorConfig);
+			int methodIndex = hookDispatcher.getDispatchIndex(methodId);
 
-			hookDispatcher.dispatchConstructorBeforeBody(methodId, parameters);
+			hookDispatcher.dispatchConstructorBeforeBody(methodIndex, parameters);
 			verify(registeredSensorConfig, times(1)).isStartsInvocation();
 			verify(registeredSensorConfig, times(1)).getMethodSensorsReverse();
 			verify(constructorHook, times(1)).beforeConstructor(methodId, sensorTypeId, parameters, registeredSensorConfig);
 
-			hookDispatcher.dispatchConstructorAfterBody(methodId, object, parameters);
+			hookDispatcher.dispatchConstructorAfterBody(methodIndex, object, parameters);
 			verify(registeredSensorConfig, times(2)).isStartsInvocation();
 			verify(registeredSensorConfig, times(1)).getMethodSensors();
 			verify(constructorHook, times(1)).afterConstructor(coreService, methodId, sensorTypeId, object, parameters, registeredSensorConfig);
@@ -354,6 +404,38 @@ public class HookDispatcherTest extends TestBase {
 			verifyNoMoreInteractions(registeredSensorConfig, constructorHook);
 		}
 
+		@Test
+		public void dispatchThreadContextConstructorHook() {
+			long sensorTypeId = 7L;
+			IThreadContextConstructorHook constructorHook = mock(IThreadContextConstructorHook.class);
+			IMethodSensor methodSensor = mock(IMethodSensor.class);
+			MethodSensorTypeConfig methodSensorConfig = mock(MethodSensorTypeConfig.class);
+			when(methodSensor.getHook()).thenReturn(constructorHook);
+			when(methodSensor.getSensorTypeConfig()).thenReturn(methodSensorConfig);
+			when(methodSensorConfig.getId()).thenReturn(sensorTypeId);
+
+			RegisteredSensorConfig registeredSensorConfig = mock(RegisteredSensorConfig.class);
+			when(registeredSensorConfig.getMethodSensors()).thenReturn(Collections.singletonList(methodSensor));
+			when(registeredSensorConfig.getMethodSensorsReverse()).thenReturn(Collections.singletonList(methodSensor));
+
+			int methodId = 3;
+			Object object = mock(Object.class);
+			Object[] parameters = new Object[0];
+			ThreadContext threadContext = ThreadContext.current();
+
+			hookDispatcher.addMapping(methodId, registeredSensorConfig);
+			int methodIndex = hookDispatcher.getDispatchIndex(methodId);
+
+			hookDispatcher.dispatchConstructorBeforeBody(methodIndex, parameters);
+			verify(constructorHook, times(1)).beforeConstructor(threadContext, methodId, sensorTypeId, parameters, registeredSensorConfig);
+
+			hookDispatcher.dispatchConstructorAfterBody(methodIndex, object, parameters);
+			verify(constructorHook, times(1)).afterConstructor(threadContext, coreService, methodId, sensorTypeId, object, parameters, registeredSensorConfig);
+
+			verifyZeroInteractions(object, coreService);
+			verifyNoMoreInteractions(constructorHook);
+		}
+
 		@Test
 		public void dispatchManyConstructorHooksWithoutInvocationTrace() {
 			IConstructorHook constructorHookOne = mock(IConstructorHook.class);
@@ -389,8 +471,9 @@ public class HookDispatcherTest extends TestBase {
 			Object[] parameters = new Object[0];
 
 			hookDispatcher.addMapping(methodId, registeredSensorConfig);
+			int methodIndex = hookDispatcher.getDispatchIndex(methodId);
 
-			hookDispatcher.dispatchConstructorBeforeBody(methodId, parameters);
+			hookDispatcher.dispatchConstructorBeforeBody(methodIndex, parameters);
 			verify(registeredSensorConfig, times(1)).isStartsInvocation();
 			verify(registeredSensorConfig, times(1)).getMethodSensorsReverse();
 			InOrder inOrder = inOrder(constructorHookOne, constructorHookTwo, constructorHookThree);
@@ -398,7 +481,7 @@ public class HookDispatcherTest extends TestBase {
 			inOrder.verify(constructorHookTwo, times(1)).beforeConstructor(methodId, sensorTypeIdTwo, parameters, registeredSensorConfig);
 			inOrder.verify(constructorHookOne, times(1)).beforeConstructor(methodId, sensorTypeIdOne, parameters, registeredSensorConfig);
 
-			hookDispatcher.dispatchConstructorAfterBody(methodId, object, parameters);
+			hookDispatcher.dispatchConstructorAfterBody(methodIndex, object, parameters);
 			verify(registeredSensorConfig, times(2)).isStartsInvocation();
 			verify(registeredSensorConfig, times(1)).getMethodSensors();
 			inOrder = inOrder(constructorHookOne, constructorHookTwo, constructorHookThree);
@@ -415,6 +498,7 @@ public class HookDispatcherTest extends TestBase {
 		public void dispatchOneConstructorHookWithInvocationTrace() {
 			long invocSensorTypeId = 13L;
 			InvocationSequenceHook invocHook = mock(InvocationSequenceHook.class);
+			ThreadContext threadContext = ThreadContext.current();
 			MethodSensorTypeConfig invocationSensorConfig = mock(MethodSensorTypeConfig.class);
 			when(invocationSequenceSensor.getSensorTypeConfig()).thenReturn(invocationSensorConfig);
 			when(invocationSequenceSensor.getHook()).thenReturn(invocHook);
@@ -448,49 +532,51 @@ public class HookDispatcherTest extends TestBase {
 
 			// map the methods
 			hookDispatcher.addMapping(methodId, registeredSensorConfig);
+			int methodIndex = hookDispatcher.getDispatchIndex(methodId);
 			hookDispatcher.addMapping(methodIdTwo, registeredSensorConfigTwo);
+			int methodIndexTwo = hookDispatcher.getDispatchIndex(methodIdTwo);
 
 			// ////////////////////////////////////////////////////////
 			// METHOD DISPATCHER
 
 			// dispatch the first method - before body
-			hookDispatcher.dispatchMethodBeforeBody(methodId, object, parameters);
+			hookDispatcher.dispatchMethodBeforeBody(methodIndex, object, parameters);
 			verify(registeredSensorConfig, times(1)).isStartsInvocation();
 			verify(registeredSensorConfig, times(1)).getMethodSensorsReverse();
-			verify(invocHook, times(1)).beforeBody(methodId, invocSensorTypeId, object, parameters, registeredSensorConfig);
+			verify(invocHook, times(1)).beforeBody(threadContext, methodId, invocSensorTypeId, object, parameters, registeredSensorConfig);
 
 			// ////////////////////////////////////////////////////////
 			// CONSTRUCTOR DISPATCHER
 
 			// dispatch the constructor - before constructor
-			hookDispatcher.dispatchConstructorBeforeBody(methodIdTwo, parameters);
+			hookDispatcher.dispatchConstructorBeforeBody(methodIndexTwo, parameters);
 			verify(registeredSensorConfigTwo, times(1)).isStartsInvocation();
 			verify(registeredSensorConfigTwo, times(1)).getMethodSensorsReverse();
 			verify(methodSensor, times(1)).getHook();
 			verify(constructorHook, times(1)).beforeConstructor(methodIdTwo, methodSensorTypeId, parameters, registeredSensorConfigTwo);
-			verify((IConstructorHook) invocHook, times(1)).beforeConstructor(eq(methodIdTwo), anyLong(), eq(parameters), eq(registeredSensorConfigTwo));
+			verify((IThreadContextConstructorHook) invocHook, times(1)).beforeConstructor(eq(threadContext), eq(methodIdTwo), anyLong(), eq(parameters), eq(registeredSensorConfigTwo));
 
 			// dispatch the constructor - after constructor
-			hookDispatcher.dispatchConstructorAfterBody(methodIdTwo, object, parameters);
+			hookDispatcher.dispatchConstructorAfterBody(methodIndexTwo, object, parameters);
 			verify(registeredSensorConfigTwo, times(2)).isStartsInvocation();
 			verify(registeredSensorConfigTwo, times(1)).getMethodSensors();
 			verify(methodSensor, times(2)).getHook();
 			verify(constructorHook, times(1)).afterConstructor(invocHook, methodIdTwo, methodSensorTypeId, object, parameters, registeredSensorConfigTwo);
-			verify((IConstructorHook) invocHook, times(1)).afterConstructor(eq(coreService), eq(methodIdTwo), anyLong(), eq(object), eq(parameters), eq(registeredSensorConfigTwo));
+			verify((IThreadContextConstructorHook) invocHook, times(1)).afterConstructor(eq(threadContext), eq(coreService), eq(methodIdTwo), anyLong(), eq(object), eq(parameters), eq(registeredSensorConfigTwo));
 
 			// END CONSTRUCTOR DISPATCHER
 			// ////////////////////////////////////////////////////////
 
 			// dispatch the method - first after body
-			hookDispatcher.dispatchFirstMethodAfterBody(methodId, object, parameters, returnValue);
+			hookDispatcher.dispatchFirstMethodAfterBody(methodIndex, object, parameters, returnValue);
 			verify(registeredSensorConfig, times(1)).getMethodSensors();
-			verify(invocHook, times(1)).firstAfterBody(methodId, invocSensorTypeId, object, parameters, returnValue, registeredSensorConfig);
+			verify(invocHook, times(1)).firstAfterBody(threadContext, methodId, invocSensorTypeId, object, parameters, returnValue, registeredSensorConfig);
 
 			// dispatch the method - second after body
-			hookDispatcher.dispatchSecondMethodAfterBody(methodId, object, parameters, returnValue);
+			hookDispatcher.dispatchSecondMethodAfterBody(methodIndex, object, parameters, returnValue);
 			verify(registeredSensorConfig, times(2)).isStartsInvocation();
 			verify(registeredSensorConfig, times(2)).getMethodSensors();
-			verify(invocHook, times(1)).secondAfterBody(coreService, methodId, invocSensorTypeId, object, parameters, returnValue, registeredSensorConfig);
+			verify(invocHook, times(1)).secondAfterBody(threadContext, coreService, methodId, invocSensorTypeId, object, parameters, returnValue, registeredSensorConfig);
 
 			// END METHOD DISPATCHER
 			// ////////////////////////////////////////////////////////
@@ -542,39 +628,41 @@ public class HookDispatcherTest extends TestBase {
 			Object exceptionObject = mock(MyTestException.class);
 
 			hookDispatcher.addMapping(methodId, registeredSensorConfig);
+			int methodIndex = hookDispatcher.getDispatchIndex(methodId);
 			hookDispatcher.addMapping(constructorId, registeredConstructorSensorConfig);
+			int constructorIndex = hookDispatcher.getDispatchIndex(constructorId);
 
-			hookDispatcher.dispatchMethodBeforeBody(methodId, object, parameters);
+			hookDispatcher.dispatchMethodBeforeBody(methodIndex, object, parameters);
 			verify(registeredSensorConfig, times(1)).isStartsInvocation();
 			verify(registeredSensorConfig, times(1)).getMethodSensorsReverse();
 			verify(methodHook, times(1)).beforeBody(methodId, sensorTypeId, object, parameters, registeredSensorConfig);
 
-			hookDispatcher.dispatchConstructorBeforeBody(constructorId, parameters);
+			hookDispatcher.dispatchConstructorBeforeBody(constructorIndex, parameters);
 			verify(registeredConstructorSensorConfig, times(1)).isStartsInvocation();
 			verify(registeredConstructorSensorConfig, times(1)).getMethodSensorsReverse();
 			verify(exceptionHook, times(1)).beforeConstructor(constructorId, exceptionSensorTypeId, parameters, registeredConstructorSensorConfig);
 
 			// first method of exception sensor
-			hookDispatcher.dispatchConstructorAfterBody(constructorId, exceptionObject, parameters);
+			hookDispatcher.dispatchConstructorAfterBody(constructorIndex, exceptionObject, parameters);
 			verify(registeredConstructorSensorConfig, times(2)).isStartsInvocation();
 			verify(registeredConstructorSensorConfig, times(1)).getMethodSensors();
 			verify(exceptionHook, times(1)).afterConstructor(coreService, constructorId, exceptionSensorTypeId, exceptionObject, parameters, registeredConstructorSensorConfig);
 
 			// second method of exception sensor
-			hookDispatcher.dispatchOnThrowInBody(methodId, object, parameters, exceptionObject);
+			hookDispatcher.dispatchOnThrowInBody(methodIndex, object, parameters, exceptionObject);
 			verify(exceptionHook, times(1)).dispatchOnThrowInBody(coreService, methodId, exceptionSensorTypeId, object, exceptionObject, parameters, registeredSensorConfig);
 
-			hookDispatcher.dispatchFirstMethodAfterBody(methodId, object, parameters, returnValue);
+			hookDispatcher.dispatchFirstMethodAfterBody(methodIndex, object, parameters, returnValue);
 			verify(registeredSensorConfig, times(1)).getMethodSensors();
 			verify(methodHook, times(1)).firstAfterBody(methodId, sensorTypeId, object, parameters, returnValue, registeredSensorConfig);
 
-			hookDispatcher.dispatchSecondMethodAfterBody(methodId, object, parameters, returnValue);
+			hookDispatcher.dispatchSecondMethodAfterBody(methodIndex, object, parameters, returnValue);
 			verify(registeredSensorConfig, times(2)).isStartsInvocation();
 			verify(registeredSensorConfig, times(2)).getMethodSensors();
 			verify(methodHook, times(1)).secondAfterBody(coreService, methodId, sensorTypeId, object, parameters, returnValue, registeredSensorConfig);
 
 			// third method of exception sensor
-			hookDispatcher.dispatchBeforeCatch(methodId, exceptionObject);
+			hookDispatcher.dispatchBeforeCatch(methodIndex, exceptionObject);
 			verify(exceptionHook, times(1)).dispatchBeforeCatchBody(coreService, methodId, exceptionSensorTypeId, exceptionObject, registeredSensorConfig);
 
 			verifyZeroInteractions(object, coreService, returnValue);
@@ -634,9 +722,11 @@ public class HookDispatcherTest extends TestBase {
 			Object exceptionObject = mock(MyTestException.class);
 
 			hookDispatcher.addMapping(methodId, registeredSensorConfig);
+			int methodIndex = hookDispatcher.getDispatchIndex(methodId);
 			hookDispatcher.addMapping(constructorId, registeredConstructorSensorConfig);
+			int constructorIndex = hookDispatcher.getDispatchIndex(constructorId);
 
-			hookDispatcher.dispatchMethodBeforeBody(methodId, object, parameters);
+			hookDispatcher.dispatchMethodBeforeBody(methodIndex, object, parameters);
 			verify(registeredSensorConfig, times(1)).isStartsInvocation();
 			verify(registeredSensorConfig, times(1)).getMethodSensorsReverse();
 			InOrder inOrder = inOrder(methodHookOne, methodHookTwo, methodHookThree);
@@ -644,29 +734,29 @@ public class HookDispatcherTest extends TestBase {
 			inOrder.verify(methodHookTwo, times(1)).beforeBody(methodId, sensorTypeIdTwo, object, parameters, registeredSensorConfig);
 			inOrder.verify(methodHookOne, times(1)).beforeBody(methodId, sensorTypeIdOne, object, parameters, registeredSensorConfig);
 
-			hookDispatcher.dispatchConstructorBeforeBody(constructorId, parameters);
+			hookDispatcher.dispatchConstructorBeforeBody(constructorIndex, parameters);
 			verify(registeredConstructorSensorConfig, times(1)).isStartsInvocation();
 			verify(registeredConstructorSensorConfig, times(1)).getMethodSensorsReverse();
 			verify(exceptionHook, times(1)).beforeConstructor(constructorId, exceptionSensorTypeId, parameters, registeredConstructorSensorConfig);
 
 			// first method of exception sensor
-			hookDispatcher.dispatchConstructorAfterBody(constructorId, exceptionObject, parameters);
+			hookDispatcher.dispatchConstructorAfterBody(constructorIndex, exceptionObject, parameters);
 			verify(registeredConstructorSensorConfig, times(2)).isStartsInvocation();
 			verify(registeredConstructorSensorConfig, times(1)).getMethodSensors();
 			verify(exceptionHook, times(1)).afterConstructor(coreService, constructorId, exceptionSensorTypeId, exceptionObject, parameters, registeredConstructorSensorConfig);
 
 			// second method of exception sensor
-			hookDispatcher.dispatchOnThrowInBody(methodId, object, parameters, exceptionObject);
+			hookDispatcher.dispatchOnThrowInBody(methodIndex, object, parameters, exceptionObject);
 			verify(exceptionHook, times(1)).dispatchOnThrowInBody(coreService, methodId, exceptionSensorTypeId, object, exceptionObject, parameters, registeredSensorConfig);
 
-			hookDispatcher.dispatchFirstMethodAfterBody(methodId, object, parameters, returnValue);
+			hookDispatcher.dispatchFirstMethodAfterBody(methodIndex, object, parameters, returnValue);
 			verify(registeredSensorConfig, times(1)).getMethodSensors();
 			inOrder = inOrder(methodHookOne, methodHookTwo, methodHookThree);
 			inOrder.verify(methodHookOne, times(1)).firstAfterBody(methodId, sensorTypeIdOne, object, parameters, returnValue, registeredSensorConfig);
 			inOrder.verify(methodHookTwo, times(1)).firstAfterBody(methodId, sensorTypeIdTwo, object, parameters, returnValue, registeredSensorConfig);
 			inOrder.verify(methodHookThree, times(1)).firstAfterBody(methodId, sensorTypeIdThree, object, parameters, returnValue, registeredSensorConfig);
 
-			hookDispatcher.dispatchSecondMethodAfterBody(methodId, object, parameters, returnValue);
+			hookDispatcher.dispatchSecondMethodAfterBody(methodIndex, object, parameters, returnValue);
 			verify(registeredSensorConfig, times(2)).isStartsInvocation();
 			verify(registeredSensorConfig, times(2)).getMethodSensors();
 			inOrder = inOrder(methodHookOne, methodHookTwo, methodHookThree);
@@ -675,7 +765,7 @@ public class HookDispatcherTest extends TestBase {
 			inOrder.verify(methodHookThree, times(1)).secondAfterBody(coreService, methodId, sensorTypeIdThree, object, parameters, returnValue, registeredSensorConfig);
 
 			// third method of exception sensor
-			hookDispatcher.dispatchBeforeCatch(methodId, exceptionObject);
+			hookDispatcher.dispatchBeforeCatch(methodIndex, exceptionObject);
 			verify(exceptionHook, times(1)).dispatchBeforeCatchBody(coreService, methodId, exceptionSensorTypeId, exceptionObject, registeredSensorConfig);
 
 			verifyZeroInteractions(object, coreService, returnValue);
@@ -706,6 +796,7 @@ public class HookDispatcherTest extends TestBase {
 			MethodSensorTypeConfig invocSensorType = mock(MethodSensorTypeConfig.class);
 			when(invocSensorType.getId()).thenReturn(invocSensorTypeId);
 			InvocationSequenceHook invocHook = mock(InvocationSequenceHook.class);
+			ThreadContext threadContext = ThreadContext.current();
 			when(invocationSequenceSensor.getSensorTypeConfig()).thenReturn(invocSensorType);
 			when(invocationSequenceSensor.getHook()).thenReturn(invocHook);
 
@@ -739,81 +830,84 @@ public class HookDispatcherTest extends TestBase {
 			Object exceptionObject = mock(MyTestException.class);
 
 			hookDispatcher.addMapping(methodId, registeredSensorConfig);
+			int methodIndex = hookDispatcher.getDispatchIndex(methodId);
 			hookDispatcher.addMapping(methodIdTwo, registeredSensorConfigTwo);
+			int methodIndexTwo = hookDispatcher.getDispatchIndex(methodIdTwo);
 			hookDispatcher.addMapping(constructorId, registeredConstructorSensorConfig);
+			int constructorIndex = hookDispatcher.getDispatchIndex(constructorId);
 
 			// ////////////////////////////////////////////////////////
 			// FIRST METHOD DISPATCHER
 
 			// dispatch the first method - before body
-			hookDispatcher.dispatchMethodBeforeBody(methodId, object, parameters);
+			hookDispatcher.dispatchMethodBeforeBody(methodIndex, object, parameters);
 			verify(registeredSensorConfig, times(1)).isStartsInvocation();
 			verify(registeredSensorConfig, times(1)).getMethodSensorsReverse();
 			verify(methodHook, times(1)).beforeBody(methodId, methodSensorTypeId, object, parameters, registeredSensorConfig);
-			verify(invocHook, times(1)).beforeBody(methodId, invocSensorTypeId, object, parameters, registeredSensorConfig);
+			verify(invocHook, times(1)).beforeBody(threadContext, methodId, invocSensorTypeId, object, parameters, registeredSensorConfig);
 
 			// ////////////////////////////////////////////////////////
 			// SECOND METHOD DISPATCHER
 
 			// dispatch the second method - before body
-			hookDispatcher.dispatchMethodBeforeBody(methodIdTwo, object, parameters);
+			hookDispatcher.dispatchMethodBeforeBody(methodIndexTwo, object, parameters);
 			verify(registeredSensorConfigTwo, times(1)).isStartsInvocation();
 			verify(registeredSensorConfigTwo, times(1)).getMethodSensorsReverse();
 			verify(methodHook, times(1)).beforeBody(methodIdTwo, methodSensorTypeId, object, parameters, registeredSensorConfigTwo);
-			verify(invocHook, times(1)).beforeBody(eq(methodIdTwo), anyLong(), eq(object), eq(parameters), eq(registeredSensorConfigTwo));
+			verify(invocHook, times(1)).beforeBody(eq(threadContext), eq(methodIdTwo), anyLong(), eq(object), eq(parameters), eq(registeredSensorConfigTwo));
 
-			hookDispatcher.dispatchConstructorBeforeBody(constructorId, parameters);
+			hookDispatcher.dispatchConstructorBeforeBody(constructorIndex, parameters);
 			verify(registeredConstructorSensorConfig, times(1)).isStartsInvocation();
 			verify(registeredConstructorSensorConfig, times(1)).getMethodSensorsReverse();
 			verify(exceptionHook, times(1)).beforeConstructor(constructorId, exceptionSensorTypeId, parameters, registeredConstructorSensorConfig);
-			verify(invocHook, times(1)).beforeConstructor(eq(constructorId), anyLong(), eq(parameters), eq(registeredConstructorSensorConfig));
+			verify(invocHook, times(1)).beforeConstructor(eq(threadContext), eq(constructorId), anyLong(), eq(parameters), eq(registeredConstructorSensorConfig));
 
 			// /////////////////////////////////////////////////////////
 			// ///////////// EXCEPTION SENSOR STARTS HERE
 
 			// first method of exception sensor
-			hookDispatcher.dispatchConstructorAfterBody(constructorId, exceptionObject, parameters);
+			hookDispatcher.dispatchConstructorAfterBody(constructorIndex, exceptionObject, parameters);
 			verify(registeredConstructorSensorConfig, times(2)).isStartsInvocation();
 			verify(registeredConstructorSensorConfig, times(1)).getMethodSensors();
 			verify(exceptionHook, times(1)).afterConstructor(invocHook, constructorId, exceptionSensorTypeId, exceptionObject, parameters, registeredConstructorSensorConfig);
-			verify(invocHook, times(1)).afterConstructor(eq(coreService), eq(constructorId), anyLong(), eq(exceptionObject), eq(parameters), eq(registeredConstructorSensorConfig));
+			verify(invocHook, times(1)).afterConstructor(eq(threadContext), eq(coreService), eq(constructorId), anyLong(), eq(exceptionObject), eq(parameters), eq(registeredConstructorSensorConfig));
 
 			// second method of exception sensor
-			hookDispatcher.dispatchOnThrowInBody(methodId, object, parameters, exceptionObject);
+			hookDispatcher.dispatchOnThrowInBody(methodIndex, object, parameters, exceptionObject);
 			verify(exceptionHook, times(1)).dispatchOnThrowInBody(invocHook, methodId, exceptionSensorTypeId, object, exceptionObject, parameters, registeredSensorConfig);
 			// ///////////// EXCEPTION SENSOR SECOND METHOD ENDS HERE
 			// /////////////////////////////////////////////////////////
 
 			// dispatch the second method - first after body
-			hookDispatcher.dispatchFirstMethodAfterBody(methodIdTwo, object, parameters, returnValue);
+			hookDispatcher.dispatchFirstMethodAfterBody(methodIndexTwo, object, parameters, returnValue);
 			verify(registeredSensorConfigTwo, times(1)).getMethodSensors();
 			verify(methodHook, times(1)).firstAfterBody(methodIdTwo, methodSensorTypeId, object, parameters, returnValue, registeredSensorConfigTwo);
 
 			// dispatch the second method - second after body
-			hookDispatcher.dispatchSecondMethodAfterBody(methodIdTwo, object, parameters, returnValue);
+			hookDispatcher.dispatchSecondMethodAfterBody(methodIndexTwo, object, parameters, returnValue);
 			verify(registeredSensorConfigTwo, times(2)).isStartsInvocation();
 			verify(registeredSensorConfigTwo, times(2)).getMethodSensors();
 			verify(methodHook, times(1)).secondAfterBody(invocHook, methodIdTwo, methodSensorTypeId, object, parameters, returnValue, registeredSensorConfigTwo);
-			verify(invocHook, times(1)).secondAfterBody(eq(coreService), eq(methodIdTwo), anyLong(), eq(object), eq(parameters), eq(returnValue), eq(registeredSensorConfigTwo));
+			verify(invocHook, times(1)).secondAfterBody(eq(threadContext), eq(coreService), eq(methodIdTwo), anyLong(), eq(object), eq(parameters), eq(returnValue), eq(registeredSensorConfigTwo));
 			// END SECOND METHOD DISPATCHER
 			// ////////////////////////////////////////////////////////
 
 			// third method of exception sensor
-			hookDispatcher.dispatchBeforeCatch(methodId, exceptionObject);
+			hookDispatcher.dispatchBeforeCatch(methodIndex, exceptionObject);
 			verify(exceptionHook, times(1)).dispatchBeforeCatchBody(invocHook, methodId, exceptionSensorTypeId, exceptionObject, registeredSensorConfig);
 
 			// dispatch the first method - first after body
-			hookDispatcher.dispatchFirstMethodAfterBody(methodId, object, parameters, returnValue);
+			hookDispatcher.dispatchFirstMethodAfterBody(methodIndex, object, parameters, returnValue);
 			verify(registeredSensorConfig, times(1)).getMethodSensors();
 			verify(methodHook, times(1)).firstAfterBody(methodId, methodSensorTypeId, object, parameters, returnValue, registeredSensorConfig);
-			verify(invocHook, times(1)).firstAfterBody(methodId, invocSensorTypeId, object, parameters, returnValue, registeredSensorConfig);
+			verify(invocHook, times(1)).firstAfterBody(threadContext, methodId, invocSensorTypeId, object, parameters, returnValue, registeredSensorConfig);
 
 			// dispatch the first method - second after body
-			hookDispatcher.dispatchSecondMethodAfterBody(methodId, object, parameters, returnValue);
+			hookDispatcher.dispatchSecondMethodAfterBody(methodIndex, object, parameters, returnValue);
 			verify(registeredSensorConfig, times(2)).isStartsInvocation();
 			verify(registeredSensorConfig, times(2)).getMethodSensors();
 			verify(methodHook, times(1)).secondAfterBody(invocHook, methodId, methodSensorTypeId, object, parameters, returnValue, registeredSensorConfig);
-			verify(invocHook, times(1)).secondAfterBody(coreService, methodId, invocSensorTypeId, object, parameters, returnValue, registeredSensorConfig);
+			verify(invocHook, times(1)).secondAfterBody(threadContext, coreService, methodId, invocSensorTypeId, object, parameters, returnValue, registeredSensorConfig);
 
 			// END FIRST METHOD DISPATCHER
 			// ////////////////////////////////////////////////////////
@@ -824,4 +918,70 @@ public class HookDispatcherTest extends TestBase {
 		}
 	}
 
+	public class DispatchIndex extends HookDispatcherTest {
+
+		@Test
+		public void sameIdSameIndex() {
+			int index = hookDispatcher.getDispatchIndex(3L);
+
+			assertThat(hookDispatcher.getDispatchIndex(3L), is(index));
+		}
+
+		@Test
+		public void differentIdsDifferentIndexes() {
+			int index = hookDispatcher.getDispatchIndex(3L);
+
+			assertThat(hookDispatcher.getDispatchIndex(4L), is(not(index)));
+		}
+
+		@Test
+		public void mappingAfterGrowth() {
+			long sensorTypeId = 7L;
+			IMethodSensor methodSensor = mock(IMethodSensor.class);
+			IMethodHook methodHook = mock(IMethodHook.class);
+			MethodSensorTypeConfig methodSensorConfig = mock(MethodSensorTypeConfig.class);
+			when(methodSensor.getHook()).thenReturn(methodHook);
+			when(methodSensor.getSensorTypeConfig()).thenReturn(methodSensorConfig);
+			when(methodSensorConfig.getId()).thenReturn(sensorTypeId);
+			RegisteredSensorConfig registeredSensorConfig = mock(RegisteredSensorConfig.class);
+			when(registeredSensorConfig.getMethodSensorsReverse()).thenReturn(Collections.singletonList(methodSensor));
+
+			long methodId = 5000L;
+			for (long id = 0; id < methodId; id++) {
+				hookDispatcher.getDispatchIndex(id);
+			}
+			hookDispatcher.addMapping(methodId, registeredSensorConfig);
+			int methodIndex = hookDispatcher.getDispatchIndex(methodId);
+			hookDispatcher.dispatchMethodBeforeBody(methodIndex, null, null);
+
+			assertThat(methodIndex, is((int) methodId));
+			verify(methodHook, times(1)).beforeBody(methodId, sensorTypeId, null, null, registeredSensorConfig);
+		}
+
+		@Test
+		public void mappingReplaced() {
+			long methodId = 3L;
+			RegisteredSensorConfig registeredSensorConfig = mock(RegisteredSensorConfig.class);
+			RegisteredSensorConfig registeredSensorConfigTwo = mock(RegisteredSensorConfig.class);
+			when(registeredSensorConfigTwo.getMethodSensorsReverse()).thenReturn(Collections.<IMethodSensor> emptyList());
+
+			hookDispatcher.addMapping(methodId, registeredSensorConfig);
+			hookDispatcher.addMapping(methodId, registeredSensorConfigTwo);
+			hookDispatcher.dispatchMethodBeforeBody(hookDispatcher.getDispatchIndex(methodId), null, null);
+
+			verifyZeroInteractions(registeredSensorConfig);
+			verify(registeredSensorConfigTwo, times(1)).isStartsInvocation();
+			verify(registeredSensorConfigTwo, times(1)).getMethodSensorsReverse();
+		}
+
+		@Test
+		public void unknownIndex() {
+			hookDispatcher.dispatchMethodBeforeBody(-1L, null, null);
+			hookDispatcher.dispatchOnThrowInBody(Integer.MAX_VALUE, null, null, null);
+			hookDispatcher.dispatchBeforeCatch(3L, null);
+
+			verifyZeroInteractions(exceptionSensor, coreService);
+		}
+	}
+
 }
@@ -3,6 +3,7 @@ package rocks.inspectit.agent.java.instrumentation.asm;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyObject;
@@ -41,8 +42,10 @@ import org.testng.annotations.Test;
 
 import rocks.inspectit.agent.java.IAgent;
 import rocks.inspectit.agent.java.hooking.IHookDispatcher;
+import rocks.inspectit.agent.java.hooking.InlinedTimer;
 import rocks.inspectit.shared.all.instrumentation.asm.ClassLoaderDelegationMethodInstrumenter;
 import rocks.inspectit.shared.all.instrumentation.asm.ConstructorInstrumenter;
+import rocks.inspectit.shared.all.instrumentation.asm.InlinedTimerMethodInstrumenter;
 import rocks.inspectit.shared.all.instrumentation.asm.MethodInstrumenter;
 import rocks.inspectit.shared.all.instrumentation.config.IMethodInstrumentationPoint;
 import rocks.inspectit.shared.all.instrumentation.config.impl.MethodInstrumentationConfig;
@@ -82,6 +85,33 @@ public class ClassInstrumenterTest extends AbstractInstrumentationTest {
 		}
 	};
 
+	protected static final Answer<MethodVisitor> LEAN_METHOD_INSTRUMENTER_ANSWER = new Answer<MethodVisitor>() {
+
+		public MethodVisitor answer(InvocationOnMock invocation) throws Throwable {
+			Object[] arguments = invocation.getArguments();
+			SensorInstrumentationPoint sip = (SensorInstrumentationPoint) invocation.getMock();
+			return getMethodInstrumenter((MethodVisitor) arguments[0], (Integer) arguments[1], (String) arguments[2], (String) arguments[3], sip.getId(), (Boolean) arguments[4], true);
+		}
+	};
+
+	protected static final Answer<MethodVisitor> LEAN_CONSTRUCTOR_INSTRUMENTER_ANSWER = new Answer<MethodVisitor>() {
+
+		public MethodVisitor answer(InvocationOnMock invocation) throws Throwable {
+			Object[] arguments = invocation.getArguments();
+			SensorInstrumentationPoint sip = (SensorInstrumentationPoint) invocation.getMock();
+			return getConstructorInstrumenter((MethodVisitor) arguments[0], (Integer) arguments[1], (String) arguments[2], (String) arguments[3], sip.getId(), (Boolean) arguments[4], true);
+		}
+	};
+
+	protected static final Answer<MethodVisitor> INLINED_TIMER_INSTRUMENTER_ANSWER = new Answer<MethodVisitor>() {
+
+		public MethodVisitor answer(InvocationOnMock invocation) throws Throwable {
+			Object[] arguments = invocation.getArguments();
+			SensorInstrumentationPoint sip = (SensorInstrumentationPoint) invocation.getMock();
+			return new InlinedTimerMethodInstrumenter((MethodVisitor) arguments[0], (Integer) arguments[1], (String) arguments[2], (String) arguments[3], sip.getId(), sip.getInlinedTimerSlot());
+		}
+	};
+
 	protected static final Answer<MethodVisitor> CLASS_LOADING_DELEGATION_INSTRUMENTER_ANSWER = new Answer<MethodVisitor>() {
 
 		public MethodVisitor answer(InvocationOnMock invocation) throws Throwable {
@@ -1163,6 +1193,236 @@ public class ClassInstrumenterTest extends AbstractInstrumentationTest {
 			verifyNoMoreInteractions(hookDispatcher);
 		}
 
+		// lean dispatch
+
+		@Test
+		public void leanDispatchObjectResult() throws Exception {
+			String methodName = "stringNullParameter";
+			long methodId = 9L;
+
+			when(sip.getId()).thenReturn(methodId);
+			prepareConfigurationMockMethod(config, InstrumentationTestClass.class, methodName);
+			doAnswer(LEAN_METHOD_INSTRUMENTER_ANSWER).when(sip).getMethodVisitor(Matchers.<MethodVisitor> any(), anyInt(), anyString(), anyString(), anyBoolean());
+			when(config.getAllInstrumentationPoints()).thenReturn(Collections.<IMethodInstrumentationPoint> singleton(sip));
+
+			ClassReader cr = new ClassReader(TEST_CLASS_FQN);
+			prepareWriter(cr, null, false, config);
+			cr.accept(classInstrumenter, ClassReader.SKIP_FRAMES | ClassReader.SKIP_DEBUG);
+			assertThat(classInstrumenter.isByteCodeAdded(), is(true));
+			byte b[] = classWriter.toByteArray();
+
+			// now call this method
+			Object testClass = this.createInstance(TEST_CLASS_FQN, b);
+			Object result = this.callMethod(testClass, methodName, null);
+
+			assertThat(result, is((Object) "stringNullParameter"));
+			verify(hookDispatcher).dispatchMethodBeforeBody(methodId);
+			verify(hookDispatcher).dispatchFirstMethodAfterBody(methodId);
+			verify(hookDispatcher).dispatchSecondMethodAfterBody(methodId);
+			verifyNoMoreInteractions(hookDispatcher);
+		}
+
+		@Test
+		public void leanDispatchPrimitiveResult() throws Exception {
+			String methodName = "doubleNullParameter";
+			long methodId = 9L;
+
+			when(sip.getId()).thenReturn(methodId);
+			prepareConfigurationMockMethod(config, InstrumentationTestClass.class, methodName);
+			doAnswer(LEAN_METHOD_INSTRUMENTER_ANSWER).when(sip).getMethodVisitor(Matchers.<MethodVisitor> any(), anyInt(), anyString(), anyString(), anyBoolean());
+			when(config.getAllInstrumentationPoints()).thenReturn(Collections.<IMethodInstrumentationPoint> singleton(sip));
+
+			ClassReader cr = new ClassReader(TEST_CLASS_FQN);
+			prepareWriter(cr, null, false, config);
+			cr.accept(classInstrumenter, ClassReader.SKIP_FRAMES | ClassReader.SKIP_DEBUG);
+			assertThat(classInstrumenter.isByteCodeAdded(), is(true));
+			byte b[] = classWriter.toByteArray();
+
+			// now call this method
+			Object testClass = this.createInstance(TEST_CLASS_FQN, b);
+			Object result = this.callMethod(testClass, methodName, null);
+
+			assertThat(result, is((Object) 5.3D));
+			verify(hookDispatcher).dispatchMethodBeforeBody(methodId);
+			verify(hookDispatcher).dispatchFirstMethodAfterBody(methodId);
+			verify(hookDispatcher).dispatchSecondMethodAfterBody(methodId);
+			verifyNoMoreInteractions(hookDispatcher);
+		}
+
+		@Test
+		public void leanDispatchUnexpectedExceptionTrowing() throws Exception {
+			String methodName = "unexpectedExceptionThrowing";
+			long methodId = 9L;
+
+			when(sip.getId()).thenReturn(methodId);
+			prepareConfigurationMockMethod(config, InstrumentationTestClass.class, methodName);
+			doAnswer(LEAN_METHOD_INSTRUMENTER_ANSWER).when(sip).getMethodVisitor(Matchers.<MethodVisitor> any(), anyInt(), anyString(), anyString(), anyBoolean());
+			when(config.getAllInstrumentationPoints()).thenReturn(Collections.<IMethodInstrumentationPoint> singleton(sip));
+
+			ClassReader cr = new ClassReader(TEST_CLASS_FQN);
+			prepareWriter(cr, null, false, config);
+			cr.accept(classInstrumenter, ClassReader.SKIP_FRAMES | ClassReader.SKIP_DEBUG);
+			assertThat(classInstrumenter.isByteCodeAdded(), is(true));
+			byte b[] = classWriter.toByteArray();
+
+			// now call this method
+			Object testClass = this.createInstance(TEST_CLASS_FQN, b);
+			try {
+				this.callMethod(testClass, methodName, null);
+			} catch (Throwable t) {
+			}
+
+			verify(hookDispatcher).dispatchMethodBeforeBody(methodId);
+			verify(hookDispatcher).dispatchFirstMethodAfterBody(methodId);
+			verify(hookDispatcher).dispatchSecondMethodAfterBody(methodId);
+			verifyNoMoreInteractions(hookDispatcher);
+		}
+
+		@Test
+		public void leanDispatchExceptionEnhanced() throws Exception {
+			String methodName = "throwsAnException";
+			long methodId = 9L;
+
+			when(sip.getId()).thenReturn(methodId);
+			prepareConfigurationMockMethod(config, InstrumentationExceptionTestClass.class, methodName);
+			doAnswer(LEAN_METHOD_INSTRUMENTER_ANSWER).when(sip).getMethodVisitor(Matchers.<MethodVisitor> any(), anyInt(), anyString(), anyString(), anyBoolean());
+			when(config.getAllInstrumentationPoints()).thenReturn(Collections.<IMethodInstrumentationPoint> singleton(sip));
+
+			ClassReader cr = new ClassReader(EXCEPTION_TEST_CLASS_FQN);
+			prepareWriter(cr, null, true, config);
+			cr.accept(classInstrumenter, ClassReader.SKIP_FRAMES | ClassReader.SKIP_DEBUG);
+			assertThat(classInstrumenter.isByteCodeAdded(), is(true));
+			byte b[] = classWriter.toByteArray();
+
+			// now call this method
+			Object testClass = this.createInstance(EXCEPTION_TEST_CLASS_FQN, b);
+			try {
+				this.callMethod(testClass, methodName, null);
+			} catch (Throwable t) {
+			}
+
+			verify(hookDispatcher).dispatchMethodBeforeBody(methodId);
+			verify(hookDispatcher).dispatchFirstMethodAfterBody(methodId);
+			verify(hookDispatcher).dispatchSecondMethodAfterBody(methodId);
+
+			ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+			verify(hookDispatcher).dispatchOnThrowInBody(eq(methodId), eq(testClass), eq(new Object[0]), captor.capture());
+			assertThat(captor.getValue().getClass().getName(), is(equalTo(MyTestException.class.getName())));
+			verifyNoMoreInteractions(hookDispatcher);
+		}
+
+		@Test
+		public void leanDispatchConstructor() throws Exception {
+			Object[] parameters = { "java.lang.String" };
+			long methodId = 9L;
+
+			when(sip.getId()).thenReturn(methodId);
+			prepareConfigurationMockConstructor(config, InstrumentationTestClass.class, false, String.class);
+			doAnswer(LEAN_CONSTRUCTOR_INSTRUMENTER_ANSWER).when(sip).getMethodVisitor(Matchers.<MethodVisitor> any(), anyInt(), anyString(), anyString(), anyBoolean());
+			when(config.getAllInstrumentationPoints()).thenReturn(Collections.<IMethodInstrumentationPoint> singleton(sip));
+
+			ClassReader cr = new ClassReader(TEST_CLASS_FQN);
+			prepareWriter(cr, null, false, config);
+			cr.accept(classInstrumenter, ClassReader.SKIP_FRAMES | ClassReader.SKIP_DEBUG);
+			assertThat(classInstrumenter.isByteCodeAdded(), is(true));
+			byte b[] = classWriter.toByteArray();
+
+			Class<?> clazz = createClass(TEST_CLASS_FQN, b);
+			Constructor<?> constructor = clazz.getConstructor(new Class[] { String.class });
+			Object instance = constructor.newInstance(parameters);
+
+			verify(hookDispatcher).dispatchConstructorBeforeBody(methodId);
+			verify(hookDispatcher).dispatchConstructorAfterBody(methodId, instance);
+			verifyNoMoreInteractions(hookDispatcher);
+		}
+
+		// inlined timer
+
+		@Test
+		public void inlinedTimerObjectResult() throws Exception {
+			String methodName = "stringNullParameter";
+			int slot = InlinedTimer.allocateSlot();
+
+			when(sip.getInlinedTimerSlot()).thenReturn(slot);
+			prepareConfigurationMockMethod(config, InstrumentationTestClass.class, methodName);
+			doAnswer(INLINED_TIMER_INSTRUMENTER_ANSWER).when(sip).getMethodVisitor(Matchers.<MethodVisitor> any(), anyInt(), anyString(), anyString(), anyBoolean());
+			when(config.getAllInstrumentationPoints()).thenReturn(Collections.<IMethodInstrumentationPoint> singleton(sip));
+
+			ClassReader cr = new ClassReader(TEST_CLASS_FQN);
+			prepareWriter(cr, null, false, config);
+			cr.accept(classInstrumenter, ClassReader.SKIP_FRAMES | ClassReader.SKIP_DEBUG);
+			assertThat(classInstrumenter.isByteCodeAdded(), is(true));
+			byte b[] = classWriter.toByteArray();
+
+			// now call this method
+			Object testClass = this.createInstance(TEST_CLASS_FQN, b);
+			Object result = this.callMethod(testClass, methodName, null);
+			this.callMethod(testClass, methodName, null);
+
+			assertThat(result, is((Object) "stringNullParameter"));
+			long[] values = new long[4];
+			assertThat(InlinedTimer.drain(slot, values), is(true));
+			assertThat(values[0], is(2L));
+			assertThat(values[2], is(lessThanOrEqualTo(values[3])));
+			verifyZeroInteractions(hookDispatcher);
+		}
+
+		@Test
+		public void inlinedTimerPrimitiveResult() throws Exception {
+			String methodName = "doubleNullParameter";
+			int slot = InlinedTimer.allocateSlot();
+
+			when(sip.getInlinedTimerSlot()).thenReturn(slot);
+			prepareConfigurationMockMethod(config, InstrumentationTestClass.class, methodName);
+			doAnswer(INLINED_TIMER_INSTRUMENTER_ANSWER).when(sip).getMethodVisitor(Matchers.<MethodVisitor> any(), anyInt(), anyString(), anyString(), anyBoolean());
+			when(config.getAllInstrumentationPoints()).thenReturn(Collections.<IMethodInstrumentationPoint> singleton(sip));
+
+			ClassReader cr = new ClassReader(TEST_CLASS_FQN);
+			prepareWriter(cr, null, false, config);
+			cr.accept(classInstrumenter, ClassReader.SKIP_FRAMES | ClassReader.SKIP_DEBUG);
+			assertThat(classInstrumenter.isByteCodeAdded(), is(true));
+			byte b[] = classWriter.toByteArray();
+
+			// now call this method
+			Object testClass = this.createInstance(TEST_CLASS_FQN, b);
+			Object result = this.callMethod(testClass, methodName, null);
+
+			assertThat(result, is((Object) 5.3D));
+			long[] values = new long[4];
+			assertThat(InlinedTimer.drain(slot, values), is(true));
+			assertThat(values[0], is(1L));
+			verifyZeroInteractions(hookDispatcher);
+		}
+
+		@Test
+		public void inlinedTimerUnexpectedExceptionTrowing() throws Exception {
+			String methodName = "unexpectedExceptionThrowing";
+			int slot = InlinedTimer.allocateSlot();
+
+			when(sip.getInlinedTimerSlot()).thenReturn(slot);
+			prepareConfigurationMockMethod(config, InstrumentationTestClass.class, methodName);
+			doAnswer(INLINED_TIMER_INSTRUMENTER_ANSWER).when(sip).getMethodVisitor(Matchers.<MethodVisitor> any(), anyInt(), anyString(), anyString(), anyBoolean());
+			when(config.getAllInstrumentationPoints()).thenReturn(Collections.<IMethodInstrumentationPoint> singleton(sip));
+
+			ClassReader cr = new ClassReader(TEST_CLASS_FQN);
+			prepareWriter(cr, null, false, config);
+			cr.accept(classInstrumenter, ClassReader.SKIP_FRAMES | ClassReader.SKIP_DEBUG);
+			assertThat(classInstrumenter.isByteCodeAdded(), is(true));
+			byte b[] = classWriter.toByteArray();
+
+			// now call this method
+			Object testClass = this.createInstance(TEST_CLASS_FQN, b);
+			try {
+				this.callMethod(testClass, methodName, null);
+			} catch (Throwable t) {
+			}
+
+			long[] values = new long[4];
+			assertThat(InlinedTimer.drain(slot, values), is(true));
+			assertThat(values[0], is(1L));
+			verifyZeroInteractions(hookDispatcher);
+		}
+
 		// class loader delegation
 
 		@Test
@@ -1245,6 +1505,15 @@ public class ClassInstrumenterTest extends AbstractInstrumentationTest {
 		};
 	}
 
+	protected static MethodInstrumenter getMethodInstrumenter(MethodVisitor superMethodVisitor, int access, String name, String desc, long id, boolean enhancedExceptionSensor, boolean leanDispatch) {
+		return new MethodInstrumenter(superMethodVisitor, access, name, desc, id, enhancedExceptionSensor, leanDispatch) {
+			@Override
+			protected void loadHookDispatcher() {
+				mv.visitFieldInsn(Opcodes.GETSTATIC, Type.getInternalName(ClassInstrumenterTest.class), "dispatcher", Type.getDescriptor(IHookDispatcher.class));
+			}
+		};
+	}
+
 	protected static ConstructorInstrumenter getConstructorInstrumenter(MethodVisitor superMethodVisitor, int access, String name, String desc, long id, boolean enhancedExceptionSensor) {
 		return new ConstructorInstrumenter(superMethodVisitor, access, name, desc, id, enhancedExceptionSensor) {
 			@Override
@@ -1254,6 +1523,16 @@ public class ClassInstrumenterTest extends AbstractInstrumentationTest {
 		};
 	}
 
+	protected static ConstructorInstrumenter getConstructorInstrumenter(MethodVisitor superMethodVisitor, int access, String name, String desc, long id, boolean enhancedExceptionSensor,
+			boolean leanDispatch) {
+		return new ConstructorInstrumenter(superMethodVisitor, access, name, desc, id, enhancedExceptionSensor, leanDispatch) {
+			@Override
+			protected void loadHookDispatcher() {
+				mv.visitFieldInsn(Opcodes.GETSTATIC, Type.getInternalName(ClassInstrumenterTest.class), "dispatcher", Type.getDescriptor(IHookDispatcher.class));
+			}
+		};
+	}
+
 	protected static ClassLoaderDelegationMethodInstrumenter getClassLoaderDelegationMethodInstrumenter(MethodVisitor superMethodVisitor, int access, String name, String desc) {
 		return new ClassLoaderDelegationMethodInstrumenter(superMethodVisitor, access, name, desc) {
 			@Override
@@ -1,12 +1,9 @@
 package rocks.inspectit.agent.java.sending.impl;
 
-import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
-import static org.mockito.Mockito.when;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 import org.mockito.InjectMocks;
@@ -14,7 +11,6 @@ import org.mockito.Mock;
 import org.testng.annotations.Test;
 
 import rocks.inspectit.agent.java.core.ICoreService;
-import rocks.inspectit.shared.all.communication.DefaultData;
 import rocks.inspectit.shared.all.testbase.TestBase;
 
 @SuppressWarnings("PMD")
@@ -37,42 +33,33 @@ public class ListSizeStrategyTest extends TestBase {
 		verifyNoMoreInteractions(coreService);
 	}
 
-	@SuppressWarnings("unchecked")
 	@Test
 	public void contentChanged() {
 		sendingStrategy.start(coreService);
-		List<List<DefaultData>> list = mock(List.class);
-
-		sendingStrategy.contentChanged(list);
+		verify(coreService).addListListener(sendingStrategy);
 
-		verify(list).size();
+		sendingStrategy.contentChanged(10, Long.MAX_VALUE);
 
-		verifyNoMoreInteractions(list);
+		verifyNoMoreInteractions(coreService);
 	}
 
-	@SuppressWarnings("unchecked")
 	@Test
 	public void fireSending() {
 		sendingStrategy.start(coreService);
-		List<List<DefaultData>> list = mock(List.class);
-		when(list.size()).thenReturn(11);
 
-		sendingStrategy.contentChanged(list);
+		sendingStrategy.contentChanged(11, 0L);
 
 		verify(coreService).sendData();
 	}
 
-	@SuppressWarnings("unchecked")
 	@Test
 	public void fireSendingModifiedListSize() {
 		Map<String, String> settings = new HashMap<String, String>();
 		settings.put("size", "3");
 		sendingStrategy.init(settings);
 		sendingStrategy.start(coreService);
-		List<List<DefaultData>> list = mock(List.class);
-		when(list.size()).thenReturn(5);
 
-		sendingStrategy.contentChanged(list);
+		sendingStrategy.contentChanged(5, 0L);
 
 		verify(coreService).sendData();
 	}
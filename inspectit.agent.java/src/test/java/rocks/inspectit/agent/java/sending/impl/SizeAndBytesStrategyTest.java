@@ -0,0 +1,80 @@
+package rocks.inspectit.agent.java.sending.impl;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.testng.annotations.Test;
+
+import rocks.inspectit.agent.java.core.ICoreService;
+import rocks.inspectit.shared.all.testbase.TestBase;
+
+@SuppressWarnings("PMD")
+public class SizeAndBytesStrategyTest extends TestBase {
+
+	@Mock
+	private ICoreService coreService;
+
+	@InjectMocks
+	private SizeAndBytesStrategy sendingStrategy;
+
+	@Test
+	public void startStop() {
+		sendingStrategy.start(coreService);
+		verify(coreService).addListListener(sendingStrategy);
+
+		sendingStrategy.stop();
+		verify(coreService).removeListListener(sendingStrategy);
+
+		verifyNoMoreInteractions(coreService);
+	}
+
+	@Test
+	public void noThresholdReached() {
+		sendingStrategy.start(coreService);
+		verify(coreService).addListListener(sendingStrategy);
+
+		sendingStrategy.contentChanged(1000, 1048576L);
+
+		verifyNoMoreInteractions(coreService);
+	}
+
+	@Test
+	public void fireSendingSize() {
+		sendingStrategy.start(coreService);
+
+		sendingStrategy.contentChanged(1001, 0L);
+
+		verify(coreService).sendData();
+	}
+
+	@Test
+	public void fireSendingBytes() {
+		sendingStrategy.start(coreService);
+
+		sendingStrategy.contentChanged(1, 1048577L);
+
+		verify(coreService).sendData();
+	}
+
+	@Test
+	public void fireSendingModifiedSettings() {
+		Map<String, String> settings = new HashMap<String, String>();
+		settings.put("size", "0");
+		settings.put("bytes", "100");
+		sendingStrategy.init(settings);
+		sendingStrategy.start(coreService);
+		verify(coreService).addListListener(sendingStrategy);
+
+		sendingStrategy.contentChanged(Integer.MAX_VALUE, 100L);
+		verifyNoMoreInteractions(coreService);
+
+		sendingStrategy.contentChanged(1, 101L);
+		verify(coreService).sendData();
+	}
+
+}
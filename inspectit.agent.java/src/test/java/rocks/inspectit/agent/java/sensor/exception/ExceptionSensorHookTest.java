@@ -3,6 +3,7 @@ package rocks.inspectit.agent.java.sensor.exception;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.argThat;
@@ -246,6 +247,32 @@ public class ExceptionSensorHookTest extends AbstractLogSupport {
 		verifyNoMoreInteractions(platformManager);
 	}
 
+	@Test
+	public void rateLimited() throws IdNotAvailableException {
+		long constructorId = 5L;
+		long methodId = 6L;
+		long sensorTypeId = 3L;
+		long platformId = 1L;
+
+		parameter.put("maxExceptionsPerSecond", "1");
+		exceptionHook = new ExceptionSensorHook(platformManager, parameter);
+
+		Object[] parameters = new Object[0];
+		Object object = mock(Object.class);
+		MyTestException firstExceptionObject = new MyTestException();
+		MyTestException secondExceptionObject = new MyTestException();
+		when(platformManager.getPlatformId()).thenReturn(platformId);
+		when(registeredSensorConfig.getTargetClassFqn()).thenReturn(MyTestException.class.getName());
+
+		exceptionHook.afterConstructor(coreService, constructorId, sensorTypeId, firstExceptionObject, parameters, registeredSensorConfig);
+		exceptionHook.afterConstructor(coreService, constructorId, sensorTypeId, secondExceptionObject, parameters, registeredSensorConfig);
+		exceptionHook.dispatchOnThrowInBody(coreService, methodId, sensorTypeId, object, secondExceptionObject, parameters, registeredSensorConfig);
+		exceptionHook.dispatchBeforeCatchBody(coreService, methodId, sensorTypeId, secondExceptionObject, registeredSensorConfig);
+
+		verify(coreService, times(1)).addExceptionSensorData(eq(sensorTypeId), eq((long) System.identityHashCode(firstExceptionObject)), any(ExceptionSensorData.class));
+		verifyNoMoreInteractions(coreService);
+	}
+
 	@Test
 	public void platformIdNotAvailable() throws IdNotAvailableException {
 		// set up data
@@ -0,0 +1,61 @@
+package rocks.inspectit.agent.java.sensor.exception;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("PMD")
+public class StackTraceFormatterTest {
+
+	private StackTraceFormatter formatter;
+
+	@BeforeMethod
+	public void init() {
+		formatter = new StackTraceFormatter();
+	}
+
+	public class Format extends StackTraceFormatterTest {
+
+		@Test
+		public void sameAsPrintStackTrace() {
+			Throwable throwable = new IllegalStateException("message");
+
+			String result = formatter.format(throwable);
+
+			assertThat(result, is(equalTo(printStackTrace(throwable))));
+		}
+
+		@Test
+		public void withCause() {
+			Throwable cause = new IllegalArgumentException("cause");
+			Throwable throwable = new RuntimeException("message", cause);
+
+			String result = formatter.format(throwable);
+
+			assertThat(result, is(equalTo(printStackTrace(throwable))));
+		}
+
+		@Test
+		public void sameFramesCached() {
+			for (int i = 0; i < 2; i++) {
+				Throwable throwable = new IllegalStateException(String.valueOf(i));
+
+				String result = formatter.format(throwable);
+
+				assertThat(result, is(equalTo(printStackTrace(throwable))));
+			}
+		}
+
+		private String printStackTrace(Throwable throwable) {
+			StringWriter stringWriter = new StringWriter();
+			throwable.printStackTrace(new PrintWriter(stringWriter));
+			return stringWriter.toString();
+		}
+	}
+}
@@ -100,6 +100,8 @@ public class AverageTimerHookTest extends AbstractLogSupport {
 		timerData.calculateMin(secondTimerValue - firstTimerValue);
 		verify(coreService).addMethodSensorData(eq(sensorTypeId), eq(methodId), (String) eq(null), argThat(new TimerDataVerifier(timerData)));
 
+		verify(coreService).beginUpdate();
+		verify(coreService).endUpdate(null);
 		verifyNoMoreInteractions(timer, platformManager, coreService, registeredSensorConfig);
 		verifyZeroInteractions(propertyAccessor, object, result);
 	}
@@ -210,6 +212,8 @@ public class AverageTimerHookTest extends AbstractLogSupport {
 		assertThat(timerData.getMax(), is(equalTo(fourthTimerValue - thirdTimerValue)));
 		assertThat(timerData.getMin(), is(equalTo(secondTimerValue - firstTimerValue)));
 
+		verify(coreService, times(2)).beginUpdate();
+		verify(coreService, times(2)).endUpdate(null);
 		verifyNoMoreInteractions(timer, platformManager, coreService, registeredSensorConfig);
 		verifyZeroInteractions(propertyAccessor, object, result);
 	}
@@ -274,6 +278,8 @@ public class AverageTimerHookTest extends AbstractLogSupport {
 		assertThat(timerData.getMax(), is(equalTo(secondTimerValue - firstTimerValue)));
 		assertThat(timerData.getMin(), is(equalTo(fourthTimerValue - thirdTimerValue)));
 
+		verify(coreService, times(2)).beginUpdate();
+		verify(coreService, times(2)).endUpdate(null);
 		verifyNoMoreInteractions(timer, platformManager, coreService, registeredSensorConfig);
 		verifyZeroInteractions(propertyAccessor, object, result);
 	}
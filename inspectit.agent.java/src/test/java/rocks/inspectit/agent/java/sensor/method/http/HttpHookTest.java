@@ -3,6 +3,7 @@ package rocks.inspectit.agent.java.sensor.method.http;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.Mockito.when;
 
 import java.lang.management.ThreadMXBean;
@@ -397,6 +398,14 @@ public class HttpHookTest extends AbstractLogSupport {
 		Mockito.verifyZeroInteractions(result);
 	}
 
+	@Test
+	public void capturedNames() {
+		assertThat(HttpHook.getNames(null, "capturedHeaders"), is(nullValue()));
+		assertThat(HttpHook.getNames(Collections.<String, Object> emptyMap(), "capturedHeaders"), is(nullValue()));
+		assertThat(HttpHook.getNames(Collections.<String, Object> singletonMap("capturedHeaders", " accept, ,user-agent "), "capturedHeaders"), is(new String[] { "accept", "user-agent" }));
+		assertThat(HttpHook.getNames(Collections.<String, Object> singletonMap("capturedHeaders", ""), "capturedHeaders"), is(new String[0]));
+	}
+
 	/**
 	 * Inner class used to verify the contents of PlainTimerData objects.
 	 */
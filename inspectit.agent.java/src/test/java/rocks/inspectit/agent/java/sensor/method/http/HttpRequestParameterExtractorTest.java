@@ -6,6 +6,8 @@ import static org.hamcrest.Matchers.hasKey;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.Collections;
@@ -302,4 +304,49 @@ public class HttpRequestParameterExtractorTest extends AbstractLogSupport {
 
 		assertThat(result, is(equalTo(expected)));
 	}
+
+	@Test
+	public void readCapturedHeaders() {
+		extractor = new HttpRequestParameterExtractor(new StringConstraint(Collections.<String, Object> singletonMap("stringLength", "20")), new String[] { "h1", "h3" }, null);
+		when(httpServletRequest.getHeader("h1")).thenReturn("hValue1");
+		when(httpServletRequest.getHeader("h2")).thenReturn("hValue2");
+
+		Map<String, String> result = extractor.getHeaders(httpServletRequest.getClass(), httpServletRequest);
+
+		assertThat(result, is(equalTo(Collections.singletonMap("h1", "hValue1"))));
+		verify(httpServletRequest, never()).getHeaderNames();
+		verify(httpServletRequest, never()).getHeader("h2");
+	}
+
+	@Test
+	public void readCapturedHeadersNoneFound() {
+		extractor = new HttpRequestParameterExtractor(new StringConstraint(Collections.<String, Object> emptyMap()), new String[] { "h1" }, null);
+
+		Map<String, String> result = extractor.getHeaders(httpServletRequest.getClass(), httpServletRequest);
+
+		assertThat(result, is(nullValue()));
+	}
+
+	@Test
+	public void readCapturedAttributes() {
+		extractor = new HttpRequestParameterExtractor(new StringConstraint(Collections.<String, Object> singletonMap("stringLength", "20")), null, new String[] { "a2" });
+		when(httpServletRequest.getAttribute("a1")).thenReturn("aValue1");
+		when(httpServletRequest.getAttribute("a2")).thenReturn(new int[] { 1, 2 });
+
+		Map<String, String> result = extractor.getAttributes(httpServletRequest.getClass(), httpServletRequest);
+
+		assertThat(result, is(equalTo(Collections.singletonMap("a2", "[1, 2]"))));
+		verify(httpServletRequest, never()).getAttributeNames();
+		verify(httpServletRequest, never()).getAttribute("a1");
+	}
+
+	@Test
+	public void readNothingCaptured() {
+		extractor = new HttpRequestParameterExtractor(new StringConstraint(Collections.<String, Object> emptyMap()), new String[0], new String[0]);
+
+		assertThat(extractor.getHeaders(httpServletRequest.getClass(), httpServletRequest), is(nullValue()));
+		assertThat(extractor.getAttributes(httpServletRequest.getClass(), httpServletRequest), is(nullValue()));
+		verify(httpServletRequest, never()).getHeaderNames();
+		verify(httpServletRequest, never()).getAttributeNames();
+	}
 }
@@ -4,6 +4,9 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -13,9 +16,7 @@ import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import org.mockito.ArgumentCaptor;
 import org.mockito.Matchers;
@@ -30,13 +31,7 @@ import rocks.inspectit.agent.java.config.impl.RegisteredSensorConfig;
 import rocks.inspectit.agent.java.core.ICoreService;
 import rocks.inspectit.agent.java.core.IPlatformManager;
 import rocks.inspectit.agent.java.core.IdNotAvailableException;
-import rocks.inspectit.agent.java.sensor.ISensor;
-import rocks.inspectit.agent.java.sensor.exception.ExceptionSensor;
 import rocks.inspectit.agent.java.sensor.method.IMethodSensor;
-import rocks.inspectit.agent.java.sensor.method.jdbc.ConnectionSensor;
-import rocks.inspectit.agent.java.sensor.method.jdbc.PreparedStatementParameterSensor;
-import rocks.inspectit.agent.java.sensor.method.jdbc.PreparedStatementSensor;
-import rocks.inspectit.agent.java.sensor.method.logging.Log4JLoggingSensor;
 import rocks.inspectit.agent.java.util.Timer;
 import rocks.inspectit.shared.all.communication.data.ExceptionSensorData;
 import rocks.inspectit.shared.all.communication.data.InvocationSequenceData;
@@ -262,11 +257,9 @@ public class InvocationSequenceHookTest extends TestBase {
 
 		double firstTimerValue = 1000.0d;
 		double secondTimerValue = 1200.0d;
-		String minDuration = "201";
+		double minDuration = 201.0d;
 		when(timer.getCurrentTime()).thenReturn(firstTimerValue, secondTimerValue);
-		Map<String, Object> map = new HashMap<String, Object>();
-		map.put("minduration", minDuration);
-		when(rsc.getSettings()).thenReturn(map);
+		when(rsc.getMinDuration()).thenReturn(minDuration);
 		when(rsc.getMethodSensors()).thenReturn(Collections.singletonList(methodSensor));
 		when(methodSensor.getSensorTypeConfig()).thenReturn(methodSensorTypeConfig);
 
@@ -336,12 +329,10 @@ public class InvocationSequenceHookTest extends TestBase {
 		when(timer.getCurrentTime()).thenReturn(firstTimerValue, secondTimerValue, thirdTimerValue, fourthTimerValue, fifthTimerValue);
 
 		RegisteredSensorConfig removingRsc = mock(RegisteredSensorConfig.class);
-		MethodSensorTypeConfig exceptionSensorConfig = mock(MethodSensorTypeConfig.class);
-		when(exceptionSensorConfig.getClassName()).thenReturn(ExceptionSensor.class.getCanonicalName());
+		when(removingRsc.getSensorKinds()).thenReturn(RegisteredSensorConfig.EXCEPTION_SENSOR);
 
 		when(rsc.getMethodSensors()).thenReturn(Collections.<IMethodSensor> emptyList());
 		when(removingRsc.getMethodSensors()).thenReturn(Collections.singletonList(methodSensor));
-		when(methodSensor.getSensorTypeConfig()).thenReturn(exceptionSensorConfig);
 
 		invocationSequenceHook.beforeBody(methodId1, sensorTypeId, object, parameters, rsc);
 		invocationSequenceHook.beforeBody(methodId2, sensorTypeId, object, parameters, removingRsc);
@@ -395,12 +386,10 @@ public class InvocationSequenceHookTest extends TestBase {
 		when(timer.getCurrentTime()).thenReturn(firstTimerValue, secondTimerValue, thirdTimerValue);
 
 		RegisteredSensorConfig removingRsc = mock(RegisteredSensorConfig.class);
-		MethodSensorTypeConfig exceptionSensorConfig = mock(MethodSensorTypeConfig.class);
-		when(exceptionSensorConfig.getClassName()).thenReturn(ExceptionSensor.class.getCanonicalName());
+		when(removingRsc.getSensorKinds()).thenReturn(RegisteredSensorConfig.EXCEPTION_SENSOR);
 
 		when(rsc.getMethodSensors()).thenReturn(Collections.<IMethodSensor> emptyList());
 		when(removingRsc.getMethodSensors()).thenReturn(Collections.singletonList(methodSensor));
-		when(methodSensor.getSensorTypeConfig()).thenReturn(exceptionSensorConfig);
 
 		invocationSequenceHook.beforeBody(methodId1, sensorTypeId, object, parameters, rsc);
 		invocationSequenceHook.beforeBody(methodId2, sensorTypeId, object, parameters, removingRsc);
@@ -444,12 +433,10 @@ public class InvocationSequenceHookTest extends TestBase {
 		when(timer.getCurrentTime()).thenReturn(firstTimerValue, secondTimerValue, thirdTimerValue, fourthTimerValue);
 
 		RegisteredSensorConfig removingRsc = mock(RegisteredSensorConfig.class);
-		MethodSensorTypeConfig exceptionSensorConfig = mock(MethodSensorTypeConfig.class);
-		when(exceptionSensorConfig.getClassName()).thenReturn(ExceptionSensor.class.getCanonicalName());
+		when(removingRsc.getSensorKinds()).thenReturn(RegisteredSensorConfig.EXCEPTION_SENSOR);
 
 		when(rsc.getMethodSensors()).thenReturn(Collections.<IMethodSensor> emptyList());
 		when(removingRsc.getMethodSensors()).thenReturn(Collections.singletonList(methodSensor));
-		when(methodSensor.getSensorTypeConfig()).thenReturn(exceptionSensorConfig);
 
 		invocationSequenceHook.beforeBody(methodId1, sensorTypeId, object, parameters, rsc);
 		invocationSequenceHook.beforeBody(methodId2, sensorTypeId, object, parameters, removingRsc);
@@ -505,12 +492,10 @@ public class InvocationSequenceHookTest extends TestBase {
 		when(timer.getCurrentTime()).thenReturn(firstTimerValue, secondTimerValue, thirdTimerValue);
 
 		RegisteredSensorConfig removingRsc = mock(RegisteredSensorConfig.class);
-		MethodSensorTypeConfig sqlSensorConfig = mock(MethodSensorTypeConfig.class);
-		when(sqlSensorConfig.getClassName()).thenReturn(PreparedStatementSensor.class.getCanonicalName());
+		when(removingRsc.getSensorKinds()).thenReturn(RegisteredSensorConfig.PREPARED_STATEMENT_SENSOR);
 
 		when(rsc.getMethodSensors()).thenReturn(Collections.<IMethodSensor> emptyList());
 		when(removingRsc.getMethodSensors()).thenReturn(Collections.singletonList(methodSensor));
-		when(methodSensor.getSensorTypeConfig()).thenReturn(sqlSensorConfig);
 
 		invocationSequenceHook.beforeBody(methodId1, sensorTypeId, object, parameters, rsc);
 		invocationSequenceHook.beforeBody(methodId2, sensorTypeId, object, parameters, removingRsc);
@@ -554,12 +539,10 @@ public class InvocationSequenceHookTest extends TestBase {
 		when(timer.getCurrentTime()).thenReturn(firstTimerValue, secondTimerValue, thirdTimerValue, fourthTimerValue);
 
 		RegisteredSensorConfig removingRsc = mock(RegisteredSensorConfig.class);
-		MethodSensorTypeConfig sqlSensorConfig = mock(MethodSensorTypeConfig.class);
-		when(sqlSensorConfig.getClassName()).thenReturn(PreparedStatementSensor.class.getCanonicalName());
+		when(removingRsc.getSensorKinds()).thenReturn(RegisteredSensorConfig.PREPARED_STATEMENT_SENSOR);
 
 		when(rsc.getMethodSensors()).thenReturn(Collections.<IMethodSensor> emptyList());
 		when(removingRsc.getMethodSensors()).thenReturn(Collections.singletonList(methodSensor));
-		when(methodSensor.getSensorTypeConfig()).thenReturn(sqlSensorConfig);
 
 		invocationSequenceHook.beforeBody(methodId1, sensorTypeId, object, parameters, rsc);
 		invocationSequenceHook.beforeBody(methodId2, sensorTypeId, object, parameters, removingRsc);
@@ -616,12 +599,10 @@ public class InvocationSequenceHookTest extends TestBase {
 		when(timer.getCurrentTime()).thenReturn(firstTimerValue, secondTimerValue, thirdTimerValue);
 
 		RegisteredSensorConfig removingRsc = mock(RegisteredSensorConfig.class);
-		MethodSensorTypeConfig logSensorConfig = mock(MethodSensorTypeConfig.class);
-		when(logSensorConfig.getClassName()).thenReturn(Log4JLoggingSensor.class.getCanonicalName());
+		when(removingRsc.getSensorKinds()).thenReturn(RegisteredSensorConfig.LOG4J_LOGGING_SENSOR);
 
 		when(rsc.getMethodSensors()).thenReturn(Collections.<IMethodSensor> emptyList());
 		when(removingRsc.getMethodSensors()).thenReturn(Collections.singletonList(methodSensor));
-		when(methodSensor.getSensorTypeConfig()).thenReturn(logSensorConfig);
 
 		invocationSequenceHook.beforeBody(methodId1, sensorTypeId, object, parameters, rsc);
 		invocationSequenceHook.beforeBody(methodId2, sensorTypeId, object, parameters, removingRsc);
@@ -665,12 +646,10 @@ public class InvocationSequenceHookTest extends TestBase {
 		when(timer.getCurrentTime()).thenReturn(firstTimerValue, secondTimerValue, thirdTimerValue, fourthTimerValue);
 
 		RegisteredSensorConfig removingRsc = mock(RegisteredSensorConfig.class);
-		MethodSensorTypeConfig logSensorConfig = mock(MethodSensorTypeConfig.class);
-		when(logSensorConfig.getClassName()).thenReturn(Log4JLoggingSensor.class.getCanonicalName());
+		when(removingRsc.getSensorKinds()).thenReturn(RegisteredSensorConfig.LOG4J_LOGGING_SENSOR);
 
 		when(rsc.getMethodSensors()).thenReturn(Collections.<IMethodSensor> emptyList());
 		when(removingRsc.getMethodSensors()).thenReturn(Collections.singletonList(methodSensor));
-		when(methodSensor.getSensorTypeConfig()).thenReturn(logSensorConfig);
 
 		invocationSequenceHook.beforeBody(methodId1, sensorTypeId, object, parameters, rsc);
 		invocationSequenceHook.beforeBody(methodId2, sensorTypeId, object, parameters, removingRsc);
@@ -705,6 +684,161 @@ public class InvocationSequenceHookTest extends TestBase {
 		assertThat(child.getLoggingData(), is(loggingData));
 	}
 
+	/**
+	 * Tests that calls over the max children limit are summarized in one overflow element and that
+	 * data of not recorded calls is not kept.
+	 */
+	@Test
+	public void maxElementsOverflow() throws IdNotAvailableException {
+		invocationSequenceHook = new InvocationSequenceHook(timer, platformManager, propertyAccessor, Collections.<String, Object> singletonMap("maxElements", "2"), false);
+
+		long platformId = 1L;
+		long sensorTypeId = 11L;
+		long methodId1 = 3L;
+		long methodId2 = 23L;
+		long methodId3 = 31L;
+		long methodId4 = 37L;
+		Object object = mock(Object.class);
+		Object[] parameters = new Object[0];
+		Object result = mock(Object.class);
+
+		when(platformManager.getPlatformId()).thenReturn(platformId);
+		when(timer.getCurrentTime()).thenReturn(1000.0d, 1100.0d, 1200.0d, 1300.0d, 1500.0d, 2000.0d);
+		when(rsc.getMethodSensors()).thenReturn(Collections.<IMethodSensor> emptyList());
+
+		invocationSequenceHook.beforeBody(methodId1, sensorTypeId, object, parameters, rsc);
+		invocationSequenceHook.beforeBody(methodId2, sensorTypeId, object, parameters, rsc);
+		invocationSequenceHook.firstAfterBody(methodId2, sensorTypeId, object, parameters, result, rsc);
+		invocationSequenceHook.secondAfterBody(coreService, methodId2, sensorTypeId, object, parameters, result, rsc);
+		invocationSequenceHook.beforeBody(methodId3, sensorTypeId, object, parameters, rsc);
+		invocationSequenceHook.beforeBody(methodId4, sensorTypeId, object, parameters, rsc);
+		invocationSequenceHook.addMethodSensorData(0, 0, "", new TimerData());
+		invocationSequenceHook.firstAfterBody(methodId4, sensorTypeId, object, parameters, result, rsc);
+		invocationSequenceHook.secondAfterBody(coreService, methodId4, sensorTypeId, object, parameters, result, rsc);
+		invocationSequenceHook.firstAfterBody(methodId3, sensorTypeId, object, parameters, result, rsc);
+		invocationSequenceHook.secondAfterBody(coreService, methodId3, sensorTypeId, object, parameters, result, rsc);
+		invocationSequenceHook.firstAfterBody(methodId1, sensorTypeId, object, parameters, result, rsc);
+		invocationSequenceHook.secondAfterBody(coreService, methodId1, sensorTypeId, object, parameters, result, rsc);
+
+		verify(timer, times(6)).getCurrentTime();
+		ArgumentCaptor<InvocationSequenceData> captor = ArgumentCaptor.forClass(InvocationSequenceData.class);
+		verify(coreService, times(1)).addMethodSensorData(eq(sensorTypeId), eq(methodId1), Matchers.<String> anyObject(), captor.capture());
+
+		InvocationSequenceData invocation = captor.getValue();
+		assertThat(invocation.getDuration(), is(1000.0d));
+		assertThat(invocation.getNestedSequences(), hasSize(2));
+		assertThat(invocation.getChildCount(), is(3L));
+		InvocationSequenceData child = invocation.getNestedSequences().get(0);
+		assertThat(child.getMethodIdent(), is(methodId2));
+		InvocationSequenceData overflow = invocation.getNestedSequences().get(1);
+		assertThat(overflow.getMethodIdent(), is(methodId3));
+		assertThat(overflow.getParentSequence(), is(invocation));
+		assertThat(overflow.getChildCount(), is(1L));
+		assertThat(overflow.getNestedSequences(), is(empty()));
+		assertThat(overflow.getDuration(), is(200.0d));
+		assertThat(overflow.getTimerData(), is(nullValue()));
+	}
+
+	/**
+	 * Tests that calls deeper than the max depth are not recorded.
+	 */
+	@Test
+	public void maxDepthOverflow() throws IdNotAvailableException {
+		invocationSequenceHook = new InvocationSequenceHook(timer, platformManager, propertyAccessor, Collections.<String, Object> singletonMap("maxDepth", "1"), false);
+
+		long platformId = 1L;
+		long sensorTypeId = 11L;
+		long methodId1 = 3L;
+		long methodId2 = 23L;
+		long methodId3 = 31L;
+		Object object = mock(Object.class);
+		Object[] parameters = new Object[0];
+		Object result = mock(Object.class);
+
+		when(platformManager.getPlatformId()).thenReturn(platformId);
+		when(timer.getCurrentTime()).thenReturn(1000.0d, 1100.0d, 1200.0d, 1300.0d, 1400.0d, 2000.0d);
+		when(rsc.getMethodSensors()).thenReturn(Collections.<IMethodSensor> emptyList());
+
+		invocationSequenceHook.beforeBody(methodId1, sensorTypeId, object, parameters, rsc);
+		invocationSequenceHook.beforeBody(methodId2, sensorTypeId, object, parameters, rsc);
+		invocationSequenceHook.beforeBody(methodId3, sensorTypeId, object, parameters, rsc);
+		invocationSequenceHook.firstAfterBody(methodId3, sensorTypeId, object, parameters, result, rsc);
+		invocationSequenceHook.secondAfterBody(coreService, methodId3, sensorTypeId, object, parameters, result, rsc);
+		invocationSequenceHook.firstAfterBody(methodId2, sensorTypeId, object, parameters, result, rsc);
+		invocationSequenceHook.secondAfterBody(coreService, methodId2, sensorTypeId, object, parameters, result, rsc);
+		invocationSequenceHook.firstAfterBody(methodId1, sensorTypeId, object, parameters, result, rsc);
+		invocationSequenceHook.secondAfterBody(coreService, methodId1, sensorTypeId, object, parameters, result, rsc);
+
+		ArgumentCaptor<InvocationSequenceData> captor = ArgumentCaptor.forClass(InvocationSequenceData.class);
+		verify(coreService, times(1)).addMethodSensorData(eq(sensorTypeId), eq(methodId1), Matchers.<String> anyObject(), captor.capture());
+
+		InvocationSequenceData invocation = captor.getValue();
+		assertThat(invocation.getNestedSequences(), hasSize(1));
+		assertThat(invocation.getChildCount(), is(2L));
+		InvocationSequenceData child = invocation.getNestedSequences().get(0);
+		assertThat(child.getMethodIdent(), is(methodId2));
+		assertThat(child.getDuration(), is(300.0d));
+		assertThat(child.getNestedSequences(), hasSize(1));
+		InvocationSequenceData overflow = child.getNestedSequences().get(0);
+		assertThat(overflow.getMethodIdent(), is(methodId3));
+		assertThat(overflow.getChildCount(), is(0L));
+		assertThat(overflow.getDuration(), is(100.0d));
+	}
+
+	/**
+	 * Tests that the completed child of the root is sent on its own when the stream threshold is
+	 * reached and replaced with the placeholder in the root.
+	 */
+	@Test
+	public void streamCompletedChild() throws IdNotAvailableException {
+		invocationSequenceHook = new InvocationSequenceHook(timer, platformManager, propertyAccessor, Collections.<String, Object> singletonMap("streamThreshold", "3"), false);
+
+		long platformId = 1L;
+		long sensorTypeId = 11L;
+		long methodId1 = 3L;
+		long methodId2 = 23L;
+		long methodId3 = 31L;
+		Object object = mock(Object.class);
+		Object[] parameters = new Object[0];
+		Object result = mock(Object.class);
+
+		when(platformManager.getPlatformId()).thenReturn(platformId);
+		when(timer.getCurrentTime()).thenReturn(1000.0d, 1100.0d, 1200.0d, 1300.0d, 1400.0d, 2000.0d);
+		when(rsc.getMethodSensors()).thenReturn(Collections.<IMethodSensor> emptyList());
+
+		invocationSequenceHook.beforeBody(methodId1, sensorTypeId, object, parameters, rsc);
+		invocationSequenceHook.beforeBody(methodId2, sensorTypeId, object, parameters, rsc);
+		invocationSequenceHook.beforeBody(methodId3, sensorTypeId, object, parameters, rsc);
+		invocationSequenceHook.firstAfterBody(methodId3, sensorTypeId, object, parameters, result, rsc);
+		invocationSequenceHook.secondAfterBody(coreService, methodId3, sensorTypeId, object, parameters, result, rsc);
+		invocationSequenceHook.firstAfterBody(methodId2, sensorTypeId, object, parameters, result, rsc);
+		invocationSequenceHook.secondAfterBody(coreService, methodId2, sensorTypeId, object, parameters, result, rsc);
+
+		ArgumentCaptor<InvocationSequenceData> streamedCaptor = ArgumentCaptor.forClass(InvocationSequenceData.class);
+		verify(coreService, times(1)).addMethodSensorData(eq(sensorTypeId), eq(methodId2), Matchers.<String> anyObject(), streamedCaptor.capture());
+		InvocationSequenceData streamed = streamedCaptor.getValue();
+		assertThat(streamed.getParentSequence(), is(nullValue()));
+		assertThat(streamed.getDuration(), is(300.0d));
+		assertThat(streamed.getNestedSequences(), hasSize(1));
+		assertThat(streamed.getNestedSequences().get(0).getMethodIdent(), is(methodId3));
+
+		invocationSequenceHook.firstAfterBody(methodId1, sensorTypeId, object, parameters, result, rsc);
+		invocationSequenceHook.secondAfterBody(coreService, methodId1, sensorTypeId, object, parameters, result, rsc);
+
+		ArgumentCaptor<InvocationSequenceData> captor = ArgumentCaptor.forClass(InvocationSequenceData.class);
+		verify(coreService, times(1)).addMethodSensorData(eq(sensorTypeId), eq(methodId1), Matchers.<String> anyObject(), captor.capture());
+		InvocationSequenceData invocation = captor.getValue();
+		assertThat(invocation.getChildCount(), is(2L));
+		assertThat(invocation.getNestedSequences(), hasSize(1));
+		InvocationSequenceData placeholder = invocation.getNestedSequences().get(0);
+		assertThat(placeholder, is(not(sameInstance(streamed))));
+		assertThat(placeholder.getMethodIdent(), is(methodId2));
+		assertThat(placeholder.getDuration(), is(300.0d));
+		assertThat(placeholder.getChildCount(), is(1L));
+		assertThat(placeholder.getNestedSequences(), is(empty()));
+		assertThat(placeholder.getParentSequence(), is(invocation));
+	}
+
 	/**
 	 * Tests that skip is activated when certain sensor is only defined in the
 	 * {@link RegisteredSensorConfig}.
@@ -712,17 +846,15 @@ public class InvocationSequenceHookTest extends TestBase {
 	 * @see #skippingSensors()
 	 */
 	@Test(dataProvider = "skippingSensors")
-	public void skipSingleSensor(Class<? extends ISensor> sensorClass) throws IdNotAvailableException {
+	public void skipSingleSensor(int sensorKind) throws IdNotAvailableException {
 		long methodId = 3L;
 		long sensorTypeId = 11L;
 		Object object = mock(Object.class);
 		Object[] parameters = new Object[0];
 		Object result = mock(Object.class);
 
-		MethodSensorTypeConfig sensorConfig = mock(MethodSensorTypeConfig.class);
-		when(sensorConfig.getClassName()).thenReturn(sensorClass.getCanonicalName());
+		when(rsc.getSensorKinds()).thenReturn(sensorKind);
 		when(rsc.getMethodSensors()).thenReturn(Collections.singletonList(methodSensor));
-		when(methodSensor.getSensorTypeConfig()).thenReturn(sensorConfig);
 
 		invocationSequenceHook.beforeBody(methodId, sensorTypeId, object, parameters, rsc);
 		invocationSequenceHook.firstAfterBody(methodId, sensorTypeId, object, parameters, result, rsc);
@@ -738,7 +870,7 @@ public class InvocationSequenceHookTest extends TestBase {
 	 * @see #skippingSensors()
 	 */
 	@Test(dataProvider = "skippingSensors")
-	public void skipSensorWithEnchancedExceptionSensor(Class<? extends ISensor> sensorClass) throws IdNotAvailableException {
+	public void skipSensorWithEnchancedExceptionSensor(int sensorKind) throws IdNotAvailableException {
 		invocationSequenceHook = new InvocationSequenceHook(timer, platformManager, propertyAccessor, Collections.<String, Object> emptyMap(), true);
 
 		long methodId = 3L;
@@ -747,21 +879,12 @@ public class InvocationSequenceHookTest extends TestBase {
 		Object[] parameters = new Object[0];
 		Object result = mock(Object.class);
 
-		MethodSensorTypeConfig sensorConfig = mock(MethodSensorTypeConfig.class);
-		MethodSensorTypeConfig exceptionSensorConfig = mock(MethodSensorTypeConfig.class);
-		when(sensorConfig.getClassName()).thenReturn(sensorClass.getCanonicalName());
-		when(exceptionSensorConfig.getClassName()).thenReturn(ExceptionSensor.class.getCanonicalName());
-
-		List<MethodSensorTypeConfig> configs = new ArrayList<MethodSensorTypeConfig>();
-		configs.add(exceptionSensorConfig);
-		configs.add(sensorConfig);
 		IMethodSensor exceptionSensor = mock(IMethodSensor.class);
 		List<IMethodSensor> sensors = new ArrayList<IMethodSensor>();
 		sensors.add(exceptionSensor);
 		sensors.add(methodSensor);
 		when(rsc.getMethodSensors()).thenReturn(sensors);
-		when(exceptionSensor.getSensorTypeConfig()).thenReturn(exceptionSensorConfig);
-		when(methodSensor.getSensorTypeConfig()).thenReturn(sensorConfig);
+		when(rsc.getSensorKinds()).thenReturn(RegisteredSensorConfig.EXCEPTION_SENSOR | sensorKind);
 
 		invocationSequenceHook.beforeBody(methodId, sensorTypeId, object, parameters, rsc);
 		invocationSequenceHook.firstAfterBody(methodId, sensorTypeId, object, parameters, result, rsc);
@@ -772,6 +895,6 @@ public class InvocationSequenceHookTest extends TestBase {
 
 	@DataProvider(name = "skippingSensors")
 	public Object[][] skippingSensors() {
-		return new Object[][] { { ConnectionSensor.class }, { PreparedStatementParameterSensor.class } };
+		return new Object[][] { { RegisteredSensorConfig.CONNECTION_SENSOR }, { RegisteredSensorConfig.PREPARED_STATEMENT_PARAMETER_SENSOR } };
 	}
 }
@@ -0,0 +1,71 @@
+package rocks.inspectit.agent.java.sensor.method.jdbc;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("PMD")
+public class SqlNormalizerTest {
+
+	public class Normalize extends SqlNormalizerTest {
+
+		@DataProvider
+		public Object[][] statements() {
+			return new Object[][] { { "SELECT * FROM TEST", "SELECT * FROM TEST" }, { "SELECT * FROM TEST WHERE ID = 15", "SELECT * FROM TEST WHERE ID = ?" },
+					{ "SELECT * FROM TEST WHERE NAME = 'it''s' AND ID=3", "SELECT * FROM TEST WHERE NAME = ? AND ID=?" },
+					{ "  SELECT *\n\tFROM TEST   WHERE ID IN (1, 2.5, 1e-3, 0xFF)  ", "SELECT * FROM TEST WHERE ID IN (?, ?, ?, ?)" },
+					{ "SELECT T1.COL2 FROM TABLE1 T1 WHERE \"COL3\" = ?", "SELECT T1.COL2 FROM TABLE1 T1 WHERE \"COL3\" = ?" },
+					{ "SELECT * FROM TEST WHERE A = :p1 -- id 5\nAND B = 'x'", "SELECT * FROM TEST WHERE A = :p1 -- id 5 AND B = ?" },
+					{ "SELECT /* hint 1 */ * FROM TEST WHERE A = 'unclosed", "SELECT /* hint 1 */ * FROM TEST WHERE A = ?" } };
+		}
+
+		@Test(dataProvider = "statements")
+		public void normalized(String sql, String expected) {
+			String result = SqlNormalizer.normalize(sql, null);
+
+			assertThat(result, is(expected));
+		}
+
+		@Test
+		public void literals() {
+			List<String> literals = new ArrayList<String>();
+
+			SqlNormalizer.normalize("UPDATE TEST SET NAME = 'name', VALUE = 12.5 WHERE ID = 7", literals);
+
+			assertThat(literals, contains("'name'", "12.5", "7"));
+		}
+	}
+
+	public class Fingerprint extends SqlNormalizerTest {
+
+		@Test
+		public void sameForDifferentLiterals() {
+			long fingerprint1 = SqlNormalizer.fingerprint(SqlNormalizer.normalize("SELECT * FROM TEST WHERE ID = 1", null));
+			long fingerprint2 = SqlNormalizer.fingerprint(SqlNormalizer.normalize("SELECT * FROM TEST  WHERE ID = 2", null));
+
+			assertThat(fingerprint1, is(fingerprint2));
+		}
+
+		@Test
+		public void differentForDifferentStatements() {
+			long fingerprint1 = SqlNormalizer.fingerprint("SELECT * FROM TEST WHERE ID = ?");
+			long fingerprint2 = SqlNormalizer.fingerprint("SELECT * FROM TEST WHERE NAME = ?");
+
+			assertThat(fingerprint1, is(not(fingerprint2)));
+		}
+
+		@Test
+		public void stable() {
+			// FNV-1a must not depend on the JVM
+			assertThat(SqlNormalizer.fingerprint(""), is(0xcbf29ce484222325L));
+			assertThat(SqlNormalizer.fingerprint("a"), is(SqlNormalizer.fingerprint("a")));
+		}
+	}
+}
@@ -1,5 +1,9 @@
 package rocks.inspectit.agent.java.sensor.method.jdbc;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
@@ -15,9 +19,11 @@ import static org.mockito.Mockito.when;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.mockito.ArgumentCaptor;
 import org.mockito.Matchers;
 import org.mockito.Mock;
 import org.testng.annotations.BeforeMethod;
@@ -28,6 +34,7 @@ import rocks.inspectit.agent.java.config.impl.RegisteredSensorConfig;
 import rocks.inspectit.agent.java.core.ICoreService;
 import rocks.inspectit.agent.java.core.IObjectStorage;
 import rocks.inspectit.agent.java.core.IdNotAvailableException;
+import rocks.inspectit.agent.java.core.impl.CoreService;
 import rocks.inspectit.agent.java.core.impl.PlatformManager;
 import rocks.inspectit.agent.java.util.Timer;
 import rocks.inspectit.shared.all.communication.MethodSensorData;
@@ -103,6 +110,8 @@ public class StatementHookTest extends AbstractLogSupport {
 
 		verify(coreService).addMethodSensorData(eq(sensorTypeId), eq(methodId), (String) Matchers.anyObject(), (MethodSensorData) Matchers.anyObject());
 		verify(coreService).getMethodSensorData(eq(sensorTypeId), eq(methodId), (String) Matchers.anyObject());
+		verify(coreService).beginUpdate();
+		verify(coreService).endUpdate(null);
 		verifyNoMoreInteractions(timer, platformManager, coreService, registeredSensorConfig);
 	}
 
@@ -145,6 +154,8 @@ public class StatementHookTest extends AbstractLogSupport {
 
 		verify(coreService, times(2)).addMethodSensorData(eq(sensorTypeId), eq(methodId), (String) Matchers.anyObject(), (MethodSensorData) Matchers.anyObject());
 		verify(coreService, times(2)).getMethodSensorData(eq(sensorTypeId), eq(methodId), (String) Matchers.anyObject());
+		verify(coreService, times(2)).beginUpdate();
+		verify(coreService, times(2)).endUpdate(null);
 		verifyNoMoreInteractions(timer, platformManager, coreService, registeredSensorConfig);
 	}
 
@@ -171,4 +182,69 @@ public class StatementHookTest extends AbstractLogSupport {
 		verify(coreService, never()).addObjectStorage(anyLong(), anyLong(), anyString(), (IObjectStorage) isNull());
 	}
 
+	@Test
+	public void normalizedStatement() throws IdNotAvailableException {
+		long platformId = 1L;
+		long methodId = 3L;
+		long sensorTypeId = 11L;
+		Object object = mock(Object.class);
+		Object[] parameters = new Object[] { "SELECT * FROM TEST WHERE ID = 15 AND NAME = 'name'" };
+		Object result = mock(Object.class);
+		Map<String, Object> map = new HashMap<String, Object>();
+		map.put("normalizeSql", "true");
+		map.put("sampleLiterals", "true");
+		statementHook = new StatementHook(timer, platformManager, connectionMetaDataStorage, statementReflectionCache, map);
+
+		when(timer.getCurrentTime()).thenReturn(1000d).thenReturn(1100d);
+		when(platformManager.getPlatformId()).thenReturn(platformId);
+
+		statementHook.beforeBody(methodId, sensorTypeId, object, parameters, registeredSensorConfig);
+		statementHook.firstAfterBody(methodId, sensorTypeId, object, parameters, result, registeredSensorConfig);
+		statementHook.secondAfterBody(coreService, methodId, sensorTypeId, object, parameters, result, registeredSensorConfig);
+
+		String normalized = "SELECT * FROM TEST WHERE ID = ? AND NAME = ?";
+		String key = String.valueOf(SqlNormalizer.fingerprint(normalized));
+		ArgumentCaptor<SqlStatementData> captor = ArgumentCaptor.forClass(SqlStatementData.class);
+		verify(coreService).getMethodSensorData(sensorTypeId, methodId, key);
+		verify(coreService).addMethodSensorData(eq(sensorTypeId), eq(methodId), eq(key), captor.capture());
+		SqlStatementData sqlData = captor.getValue();
+		assertThat(sqlData.getSql(), is(normalized));
+		assertThat(sqlData.getSqlFingerprint(), is(SqlNormalizer.fingerprint(normalized)));
+		assertThat(sqlData.getParameterValues(), contains("15", "'name'"));
+		assertThat(sqlData.getSqlWithParameterValues(), is("SELECT * FROM TEST WHERE ID = 15 AND NAME = 'name'"));
+	}
+
+	@Test
+	public void normalizedStatementSqlTextOnce() throws IdNotAvailableException {
+		long platformId = 1L;
+		long methodId = 3L;
+		long sensorTypeId = 11L;
+		Object object = mock(Object.class);
+		Object[] parameters = new Object[] { "SELECT * FROM TEST WHERE ID = 15" };
+		Object result = mock(Object.class);
+		Map<String, Object> map = new HashMap<String, Object>();
+		map.put("normalizeSql", "true");
+		map.put("sqlTextOnce", "true");
+		statementHook = new StatementHook(timer, platformManager, connectionMetaDataStorage, statementReflectionCache, map);
+		CoreService realCoreService = mock(CoreService.class);
+
+		when(timer.getCurrentTime()).thenReturn(1000d, 1100d, 1200d, 1300d);
+		when(platformManager.getPlatformId()).thenReturn(platformId);
+
+		statementHook.beforeBody(methodId, sensorTypeId, object, parameters, registeredSensorConfig);
+		statementHook.firstAfterBody(methodId, sensorTypeId, object, parameters, result, registeredSensorConfig);
+		statementHook.secondAfterBody(realCoreService, methodId, sensorTypeId, object, parameters, result, registeredSensorConfig);
+		parameters[0] = "SELECT * FROM TEST WHERE ID = 16";
+		statementHook.beforeBody(methodId, sensorTypeId, object, parameters, registeredSensorConfig);
+		statementHook.firstAfterBody(methodId, sensorTypeId, object, parameters, result, registeredSensorConfig);
+		statementHook.secondAfterBody(realCoreService, methodId, sensorTypeId, object, parameters, result, registeredSensorConfig);
+
+		ArgumentCaptor<SqlStatementData> captor = ArgumentCaptor.forClass(SqlStatementData.class);
+		verify(realCoreService, times(2)).addMethodSensorData(eq(sensorTypeId), eq(methodId), anyString(), captor.capture());
+		assertThat(captor.getAllValues().get(0).getSql(), is("SELECT * FROM TEST WHERE ID = ?"));
+		assertThat(captor.getAllValues().get(1).getSql(), is(nullValue()));
+		assertThat(captor.getAllValues().get(1).getSqlFingerprint(), is(captor.getAllValues().get(0).getSqlFingerprint()));
+		assertThat(captor.getAllValues().get(1).getParameterValues(), is(nullValue()));
+	}
+
 }
@@ -0,0 +1,174 @@
+package rocks.inspectit.agent.java.sensor.method.timer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Matchers;
+import org.mockito.Mock;
+import org.slf4j.Logger;
+import org.testng.annotations.Test;
+
+import rocks.inspectit.agent.java.core.ICoreService;
+import rocks.inspectit.agent.java.core.IPlatformManager;
+import rocks.inspectit.agent.java.core.IdNotAvailableException;
+import rocks.inspectit.agent.java.hooking.InlinedTimer;
+import rocks.inspectit.shared.all.communication.MethodSensorData;
+import rocks.inspectit.shared.all.communication.data.TimerData;
+import rocks.inspectit.shared.all.instrumentation.config.impl.SensorInstrumentationPoint;
+import rocks.inspectit.shared.all.testbase.TestBase;
+
+@SuppressWarnings("PMD")
+public class InlinedTimerCollectorTest extends TestBase {
+
+	@InjectMocks
+	InlinedTimerCollector collector;
+
+	@Mock
+	Logger log;
+
+	@Mock
+	ICoreService coreService;
+
+	@Mock
+	IPlatformManager platformManager;
+
+	protected SensorInstrumentationPoint instrumentationPoint(long methodId, long... sensorIds) {
+		SensorInstrumentationPoint sip = mock(SensorInstrumentationPoint.class);
+		when(sip.getId()).thenReturn(methodId);
+		when(sip.getSensorIds()).thenReturn(sensorIds);
+		return sip;
+	}
+
+	public class AssignSlot extends InlinedTimerCollectorTest {
+
+		@Test
+		public void sameMethodSameSlot() {
+			SensorInstrumentationPoint sip = instrumentationPoint(1L, 10L);
+			ArgumentCaptor<Integer> captor = ArgumentCaptor.forClass(Integer.class);
+
+			collector.assignSlot(sip);
+			collector.assignSlot(sip);
+
+			verify(sip, times(2)).setInlinedTimerSlot(captor.capture());
+			assertThat(captor.getAllValues().get(0), is(captor.getAllValues().get(1)));
+			assertThat(captor.getValue(), is(greaterThanOrEqualTo(0)));
+			assertThat(captor.getValue(), is(lessThanOrEqualTo(InlinedTimer.getSlotCount() - 1)));
+		}
+
+		@Test
+		public void differentMethodsDifferentSlots() {
+			SensorInstrumentationPoint sip1 = instrumentationPoint(1L, 10L);
+			SensorInstrumentationPoint sip2 = instrumentationPoint(2L, 10L);
+			ArgumentCaptor<Integer> captor1 = ArgumentCaptor.forClass(Integer.class);
+			ArgumentCaptor<Integer> captor2 = ArgumentCaptor.forClass(Integer.class);
+
+			collector.assignSlot(sip1);
+			collector.assignSlot(sip2);
+
+			verify(sip1).setInlinedTimerSlot(captor1.capture());
+			verify(sip2).setInlinedTimerSlot(captor2.capture());
+			assertThat(captor1.getValue(), is(not(captor2.getValue())));
+		}
+
+		@Test
+		public void moreSensors() {
+			SensorInstrumentationPoint sip = instrumentationPoint(1L, 10L, 11L);
+
+			collector.assignSlot(sip);
+
+			verify(sip, never()).setInlinedTimerSlot(anyInt());
+		}
+	}
+
+	public class Collect extends InlinedTimerCollectorTest {
+
+		@Test
+		public void recordedDurations() throws IdNotAvailableException {
+			long platformId = 5L;
+			long methodId = 1L;
+			long sensorTypeId = 10L;
+			when(platformManager.getPlatformId()).thenReturn(platformId);
+			SensorInstrumentationPoint sip = instrumentationPoint(methodId, sensorTypeId);
+			ArgumentCaptor<Integer> slotCaptor = ArgumentCaptor.forClass(Integer.class);
+			collector.assignSlot(sip);
+			verify(sip).setInlinedTimerSlot(slotCaptor.capture());
+			int slot = slotCaptor.getValue();
+
+			InlinedTimer.recordDuration(slot, System.nanoTime() - 1000000L);
+			InlinedTimer.recordDuration(slot, System.nanoTime() - 3000000L);
+			collector.collect();
+
+			ArgumentCaptor<MethodSensorData> dataCaptor = ArgumentCaptor.forClass(MethodSensorData.class);
+			verify(coreService).addMethodSensorData(eq(sensorTypeId), eq(methodId), (String) isNull(), dataCaptor.capture());
+			TimerData timerData = (TimerData) dataCaptor.getValue();
+			assertThat(timerData.getPlatformIdent(), is(platformId));
+			assertThat(timerData.getCount(), is(2L));
+			assertThat(timerData.getDuration(), is(greaterThanOrEqualTo(4d)));
+			assertThat(timerData.getMin(), is(greaterThanOrEqualTo(1d)));
+			assertThat(timerData.getMin(), is(lessThanOrEqualTo(timerData.getMax())));
+			assertThat(timerData.getMax(), is(greaterThanOrEqualTo(3d)));
+		}
+
+		@Test
+		public void aggregateToExisting() throws IdNotAvailableException {
+			long methodId = 1L;
+			long sensorTypeId = 10L;
+			when(platformManager.getPlatformId()).thenReturn(5L);
+			TimerData existing = new TimerData();
+			existing.setCount(1L);
+			when(coreService.getMethodSensorData(sensorTypeId, methodId, null)).thenReturn(existing);
+			SensorInstrumentationPoint sip = instrumentationPoint(methodId, sensorTypeId);
+			ArgumentCaptor<Integer> slotCaptor = ArgumentCaptor.forClass(Integer.class);
+			collector.assignSlot(sip);
+			verify(sip).setInlinedTimerSlot(slotCaptor.capture());
+
+			InlinedTimer.recordDuration(slotCaptor.getValue(), System.nanoTime());
+			collector.collect();
+
+			assertThat(existing.getCount(), is(2L));
+			verify(coreService, never()).addMethodSensorData(anyLong(), anyLong(), Matchers.<String> any(), Matchers.<MethodSensorData> any());
+		}
+
+		@Test
+		public void noInvocations() throws IdNotAvailableException {
+			when(platformManager.getPlatformId()).thenReturn(5L);
+			collector.assignSlot(instrumentationPoint(1L, 10L));
+
+			collector.collect();
+
+			verify(coreService, never()).addMethodSensorData(anyLong(), anyLong(), Matchers.<String> any(), Matchers.<MethodSensorData> any());
+		}
+
+		@Test
+		public void platformIdNotAvailable() throws IdNotAvailableException {
+			when(platformManager.getPlatformId()).thenThrow(new IdNotAvailableException("test"));
+			SensorInstrumentationPoint sip = instrumentationPoint(1L, 10L);
+			ArgumentCaptor<Integer> slotCaptor = ArgumentCaptor.forClass(Integer.class);
+			collector.assignSlot(sip);
+			verify(sip).setInlinedTimerSlot(slotCaptor.capture());
+
+			InlinedTimer.recordDuration(slotCaptor.getValue(), System.nanoTime());
+			collector.collect();
+
+			verify(coreService, never()).addMethodSensorData(anyLong(), anyLong(), Matchers.<String> any(), Matchers.<MethodSensorData> any());
+			// values stay in the slot
+			long[] values = new long[4];
+			assertThat(InlinedTimer.drain(slotCaptor.getValue(), values), is(true));
+			assertThat(values[0], is(1L));
+		}
+	}
+}
@@ -3,12 +3,14 @@ package rocks.inspectit.agent.java.sensor.method.timer;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.anyDouble;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.argThat;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.isNull;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -25,6 +27,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import org.mockito.ArgumentMatcher;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
@@ -128,6 +131,8 @@ public class TimerHookTest extends AbstractLogSupport {
 		assertThat(timerRawVO.getData().get(0).getData()[0], is(equalTo(secondTimerValue - firstTimerValue)));
 		assertThat(timerRawVO.getData().get(0).getData()[1], is(equalTo(fourthTimerValue - thirdTimerValue)));
 
+		verify(coreService, times(2)).beginUpdate();
+		verify(coreService, times(2)).endUpdate(null);
 		verifyNoMoreInteractions(timer, platformManager, coreService, registeredSensorConfig);
 		verifyZeroInteractions(propertyAccessor, object, result);
 	}
@@ -166,6 +171,32 @@ public class TimerHookTest extends AbstractLogSupport {
 		}
 	}
 
+	@Test
+	public void storageUpdatedWithinCoreServiceUpdate() throws IdNotAvailableException {
+		// set up data
+		long methodId = 3L;
+		long sensorTypeId = 11L;
+		Object object = mock(Object.class);
+		Object[] parameters = new Object[0];
+		Object result = mock(Object.class);
+		Object update = new Object();
+		ITimerStorage storage = mock(ITimerStorage.class);
+
+		when(timer.getCurrentTime()).thenReturn(1000.0d).thenReturn(1323.0d);
+		when(coreService.beginUpdate()).thenReturn(update);
+		when(coreService.getObjectStorage(sensorTypeId, methodId, null)).thenReturn(storage);
+
+		timerHook.beforeBody(methodId, sensorTypeId, object, parameters, registeredSensorConfig);
+		timerHook.firstAfterBody(methodId, sensorTypeId, object, parameters, result, registeredSensorConfig);
+		timerHook.secondAfterBody(coreService, methodId, sensorTypeId, object, parameters, result, registeredSensorConfig);
+
+		InOrder inOrder = inOrder(coreService, storage);
+		inOrder.verify(coreService).beginUpdate();
+		inOrder.verify(coreService).getObjectStorage(sensorTypeId, methodId, null);
+		inOrder.verify(storage).addData(anyDouble(), anyDouble());
+		inOrder.verify(coreService).endUpdate(update);
+	}
+
 	@Test
 	public void platformIdNotAvailable() throws IdNotAvailableException {
 		// set up data
@@ -251,6 +282,8 @@ public class TimerHookTest extends AbstractLogSupport {
 		aggregateTimerStorage.addData(secondTimerValue - firstTimerValue, -1.0d);
 		verify(coreService).addObjectStorage(eq(sensorTypeId), eq(methodId), (String) eq(null), argThat(new AggregateTimerStorageVerifier(aggregateTimerStorage)));
 
+		verify(coreService).beginUpdate();
+		verify(coreService).endUpdate(null);
 		verifyNoMoreInteractions(timer, platformManager, coreService, registeredSensorConfig);
 		verifyZeroInteractions(propertyAccessor, object, result);
 	}
@@ -333,6 +366,8 @@ public class TimerHookTest extends AbstractLogSupport {
 		optimizedTimerStorage.addData(secondTimerValue - firstTimerValue, -1.0d);
 		verify(coreService).addObjectStorage(eq(sensorTypeId), eq(methodId), (String) eq(null), argThat(new OptimizedTimerStorageVerifier(optimizedTimerStorage)));
 
+		verify(coreService).beginUpdate();
+		verify(coreService).endUpdate(null);
 		verifyNoMoreInteractions(timer, platformManager, coreService, registeredSensorConfig);
 		verifyZeroInteractions(propertyAccessor, object, result);
 	}
@@ -417,6 +452,8 @@ public class TimerHookTest extends AbstractLogSupport {
 		plainTimerStorage.addData(secondTimerValue - firstTimerValue, (secondCpuTimerValue - firstCpuTimerValue) / 1000000.0d);
 		verify(coreService).addObjectStorage(eq(sensorTypeId), eq(methodId), (String) eq(null), argThat(new PlainTimerStorageVerifier(plainTimerStorage)));
 
+		verify(coreService).beginUpdate();
+		verify(coreService).endUpdate(null);
 		verifyNoMoreInteractions(timer, platformManager, coreService, registeredSensorConfig);
 		verifyZeroInteractions(propertyAccessor, object, result);
 	}
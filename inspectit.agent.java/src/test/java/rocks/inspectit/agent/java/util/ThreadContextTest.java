@@ -0,0 +1,100 @@
+package rocks.inspectit.agent.java.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.testng.annotations.Test;
+
+@SuppressWarnings("PMD")
+public class ThreadContextTest {
+
+	@Test
+	public void sameContextInThread() {
+		assertThat(ThreadContext.current(), is(sameInstance(ThreadContext.current())));
+	}
+
+	@Test
+	public void differentContextInOtherThread() throws Exception {
+		ExecutorService executorService = Executors.newSingleThreadExecutor();
+		try {
+			ThreadContext other = executorService.submit(new Callable<ThreadContext>() {
+				public ThreadContext call() throws Exception {
+					return ThreadContext.current();
+				}
+			}).get();
+
+			assertThat(other, is(notNullValue()));
+			assertThat(other, is(not(sameInstance(ThreadContext.current()))));
+		} finally {
+			executorService.shutdownNow();
+		}
+	}
+
+	@Test
+	public void timingStackPerSlot() {
+		int slot = ThreadContext.allocateSlot();
+		int otherSlot = ThreadContext.allocateSlot();
+		ThreadContext threadContext = ThreadContext.current();
+
+		TimingStack timingStack = threadContext.getTimingStack(slot);
+
+		assertThat(timingStack, is(notNullValue()));
+		assertThat(threadContext.getTimingStack(slot), is(sameInstance(timingStack)));
+		assertThat(threadContext.getTimingStack(otherSlot), is(not(sameInstance(timingStack))));
+	}
+
+	@Test
+	public void timingStackHighSlot() {
+		ThreadContext threadContext = ThreadContext.current();
+
+		TimingStack timingStack = threadContext.getTimingStack(1000);
+
+		assertThat(timingStack, is(notNullValue()));
+		assertThat(threadContext.getTimingStack(1000), is(sameInstance(timingStack)));
+	}
+
+	@Test
+	public void releasedSlotReused() {
+		int slot = ThreadContext.allocateSlot();
+
+		ThreadContext.releaseSlot(slot);
+
+		assertThat(ThreadContext.allocateSlot(), is(slot));
+	}
+
+	@Test
+	public void hookStatePerSlot() {
+		int slot = ThreadContext.allocateSlot();
+		int otherSlot = ThreadContext.allocateSlot();
+		ThreadContext threadContext = ThreadContext.current();
+		Object hookState = new Object();
+
+		threadContext.setHookState(slot, hookState);
+
+		assertThat(threadContext.getHookState(slot), is(sameInstance(hookState)));
+		assertThat(threadContext.getHookState(otherSlot), is(nullValue()));
+		assertThat(threadContext.getHookState(1000), is(nullValue()));
+	}
+
+	@Test
+	public void invocationSequenceCount() {
+		ThreadContext threadContext = ThreadContext.current();
+		long count = threadContext.getInvocationSequenceCount();
+
+		threadContext.incrementInvocationSequenceCount();
+		threadContext.incrementInvocationSequenceCount();
+
+		assertThat(threadContext.getInvocationSequenceCount(), is(count + 2));
+		assertThat(threadContext.decrementInvocationSequenceCount(), is(count + 1));
+		assertThat(threadContext.decrementInvocationSequenceCount(), is(count));
+	}
+
+}
@@ -0,0 +1,69 @@
+package rocks.inspectit.agent.java.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.util.NoSuchElementException;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("PMD")
+public class TimingStackTest {
+
+	private TimingStack timingStack;
+
+	@BeforeMethod
+	public void initTestClass() {
+		timingStack = new TimingStack();
+	}
+
+	@Test
+	public void times() {
+		timingStack.pushTime(1.0d);
+		timingStack.pushTime(2.0d);
+
+		assertThat(timingStack.getTimeDepth(), is(2));
+		assertThat(timingStack.popTime(), is(2.0d));
+		assertThat(timingStack.popTime(), is(1.0d));
+		assertThat(timingStack.getTimeDepth(), is(0));
+	}
+
+	@Test
+	public void cpuTimes() {
+		timingStack.pushCpuTime(1L);
+		timingStack.pushCpuTime(2L);
+
+		assertThat(timingStack.getCpuTimeDepth(), is(2));
+		assertThat(timingStack.getTimeDepth(), is(0));
+		assertThat(timingStack.popCpuTime(), is(2L));
+		assertThat(timingStack.popCpuTime(), is(1L));
+		assertThat(timingStack.getCpuTimeDepth(), is(0));
+	}
+
+	@Test
+	public void grow() {
+		for (int i = 0; i < 100; i++) {
+			timingStack.pushTime(i);
+			timingStack.pushCpuTime(i);
+		}
+
+		for (int i = 99; i >= 0; i--) {
+			assertThat(timingStack.popTime(), is((double) i));
+			assertThat(timingStack.popCpuTime(), is((long) i));
+		}
+	}
+
+	@Test(expectedExceptions = { NoSuchElementException.class })
+	public void noSuchTime() {
+		timingStack.popTime();
+	}
+
+	@Test(expectedExceptions = { NoSuchElementException.class })
+	public void noSuchCpuTime() {
+		timingStack.pushTime(1.0d);
+
+		timingStack.popCpuTime();
+	}
+
+}
@@ -0,0 +1,105 @@
+package rocks.inspectit.server.indexing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rocks.inspectit.shared.all.communication.data.HttpTimerData;
+import rocks.inspectit.shared.all.indexing.restriction.IIndexQueryRestriction;
+import rocks.inspectit.shared.cs.indexing.restriction.ICompiledIndexQueryRestrictions;
+import rocks.inspectit.shared.cs.indexing.restriction.impl.CachingIndexQueryRestrictionProcessor;
+import rocks.inspectit.shared.cs.indexing.restriction.impl.IndexQueryRestrictionFactory;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 5)
+@Fork(2)
+@State(Scope.Thread)
+public class IndexQueryRestrictionPerfTest {
+
+	/**
+	 * Number of elements to check the restrictions against.
+	 */
+	@Param({ "1000", "100000" })
+	private int elements;
+
+	/**
+	 * Processor under test.
+	 */
+	private CachingIndexQueryRestrictionProcessor restrictionProcessor;
+
+	/**
+	 * Restrictions to check.
+	 */
+	private List<IIndexQueryRestriction> restrictions;
+
+	/**
+	 * Elements to check.
+	 */
+	private List<HttpTimerData> data;
+
+	/**
+	 * Set up, prepare elements and restrictions.
+	 */
+	@Setup(Level.Trial)
+	public void init() {
+		restrictionProcessor = new CachingIndexQueryRestrictionProcessor();
+		restrictions = Arrays.asList(IndexQueryRestrictionFactory.greaterEqual("id", 0L), IndexQueryRestrictionFactory.equal("httpInfo.requestMethod", "GET"),
+				IndexQueryRestrictionFactory.isNotNull("httpInfo.uri"));
+
+		data = new ArrayList<>(elements);
+		for (int i = 0; i < elements; i++) {
+			HttpTimerData httpTimerData = new HttpTimerData();
+			httpTimerData.setId(i);
+			httpTimerData.getHttpInfo().setRequestMethod(((i % 2) == 0) ? "GET" : "POST");
+			httpTimerData.getHttpInfo().setUri("/uri/" + (i % 100));
+			data.add(httpTimerData);
+		}
+	}
+
+	/**
+	 * Checks restrictions for every element as the processor is called per element.
+	 */
+	@Benchmark
+	public int perElement() {
+		int fulfilled = 0;
+		for (HttpTimerData httpTimerData : data) {
+			if (restrictionProcessor.areAllRestrictionsFulfilled(httpTimerData, restrictions)) {
+				fulfilled++;
+			}
+		}
+		return fulfilled;
+	}
+
+	/**
+	 * Checks restrictions for every element with restrictions compiled once, as done by the index
+	 * query.
+	 */
+	@Benchmark
+	public int compiled() {
+		ICompiledIndexQueryRestrictions compiledRestrictions = restrictionProcessor.compile(restrictions);
+		int fulfilled = 0;
+		for (HttpTimerData httpTimerData : data) {
+			if (compiledRestrictions.areAllRestrictionsFulfilled(httpTimerData)) {
+				fulfilled++;
+			}
+		}
+		return fulfilled;
+	}
+
+}
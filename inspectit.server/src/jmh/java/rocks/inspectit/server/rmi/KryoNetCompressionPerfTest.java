@@ -0,0 +1,190 @@
+package rocks.inspectit.server.rmi;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.communication.data.SqlStatementData;
+import rocks.inspectit.shared.all.communication.data.TimerData;
+import rocks.inspectit.shared.all.kryonet.ExtendedSerializationImpl;
+import rocks.inspectit.shared.all.kryonet.IExtendedSerialization;
+import rocks.inspectit.shared.all.storage.serializer.impl.SerializationManager;
+import rocks.inspectit.shared.all.storage.serializer.provider.SerializationManagerProvider;
+import rocks.inspectit.shared.all.storage.serializer.schema.ClassSchemaManager;
+import rocks.inspectit.shared.all.util.KryoNetNetwork;
+import rocks.inspectit.shared.cs.storage.serializer.SerializationManagerPostProcessor;
+
+/**
+ * Measures the cost of compressing the agent batches the same way the KryoNet connection does it
+ * when the data compression is active.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class KryoNetCompressionPerfTest {
+
+	/**
+	 * SQL statements the batch is created with.
+	 */
+	private static final String[] SQLS = new String[] { "SELECT o.id, o.customer_id, o.created, o.state FROM orders o WHERE o.customer_id = ? AND o.state = ?",
+			"SELECT i.id, i.order_id, i.product_id, i.quantity, i.price FROM order_items i WHERE i.order_id = ?", "UPDATE orders SET state = ?, modified = ? WHERE id = ?",
+			"INSERT INTO audit_log (id, entity, entity_id, action, created) VALUES (?, ?, ?, ?, ?)", "SELECT p.id, p.name, p.price, p.stock FROM products p WHERE p.category_id = ? ORDER BY p.name" };
+
+	/**
+	 * Number of data objects in one batch.
+	 */
+	@Param({ "100", "500", "2000" })
+	private int batchSize;
+
+	/**
+	 * If the batch is compressed.
+	 */
+	@Param({ "false", "true" })
+	private boolean compression;
+
+	/**
+	 * Serialization used by the KryoNet connections.
+	 */
+	private IExtendedSerialization serialization;
+
+	/**
+	 * Batch to write.
+	 */
+	private List<DefaultData> batch;
+
+	/**
+	 * Bytes of the written batch to read.
+	 */
+	private byte[] bytes;
+
+	/**
+	 * Stream to write to, reset on every write.
+	 */
+	private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream(1024 * 1024);
+
+	/**
+	 * Deflater, reused as in the connection.
+	 */
+	private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+	/**
+	 * Inflater, reused as in the connection.
+	 */
+	private final Inflater inflater = new Inflater();
+
+	/**
+	 * Set up.
+	 */
+	@Setup(Level.Trial)
+	public void init() throws Exception {
+		final ClassSchemaManager schemaManager = new ClassSchemaManager();
+		schemaManager.setLog(LoggerFactory.getLogger(ClassSchemaManager.class));
+		schemaManager.setSchemaListFile(new ClassPathResource(ClassSchemaManager.SCHEMA_DIR + "/" + ClassSchemaManager.SCHEMA_LIST_FILE, schemaManager.getClass().getClassLoader()));
+		schemaManager.loadSchemasFromLocations();
+		final SerializationManagerPostProcessor postProcessor = new SerializationManagerPostProcessor();
+		SerializationManagerProvider serializationManagerProvider = new SerializationManagerProvider() {
+			@Override
+			public SerializationManager createSerializer() {
+				SerializationManager serializationManager = new SerializationManager();
+				serializationManager.setSchemaManager(schemaManager);
+				serializationManager.setKryoNetNetwork(new KryoNetNetwork());
+				serializationManager.initKryo();
+				postProcessor.postProcessAfterInitialization(serializationManager, "serializationManager");
+				return serializationManager;
+			}
+		};
+		serialization = new ExtendedSerializationImpl(serializationManagerProvider);
+
+		batch = getBatch();
+		write();
+		bytes = outputStream.toByteArray();
+	}
+
+	@Benchmark
+	public int write() throws IOException {
+		outputStream.reset();
+		if (compression) {
+			deflater.reset();
+			DeflaterOutputStream deflaterOutputStream = new DeflaterOutputStream(outputStream, deflater, 8192);
+			serialization.write(null, deflaterOutputStream, batch);
+			deflaterOutputStream.finish();
+		} else {
+			serialization.write(null, (OutputStream) outputStream, batch);
+		}
+		return outputStream.size();
+	}
+
+	@Benchmark
+	public Object read() {
+		InputStream inputStream = new ByteArrayInputStream(bytes);
+		if (compression) {
+			inflater.reset();
+			inputStream = new InflaterInputStream(inputStream, inflater, 8192);
+		}
+		return serialization.read(null, inputStream);
+	}
+
+	/**
+	 * Creates the batch of timer and SQL data as the agent would send it, the idents are repeating
+	 * over the batch and the SQL strings are from a small set of statements.
+	 *
+	 * @return Batch.
+	 */
+	private List<DefaultData> getBatch() {
+		Random random = new Random(batchSize);
+		List<DefaultData> batch = new ArrayList<>(batchSize);
+		Timestamp timestamp = new Timestamp(System.currentTimeMillis());
+		for (int i = 0; i < batchSize; i++) {
+			long methodIdent = random.nextInt(50);
+			double duration = random.nextDouble() * 100;
+			if ((i % 3) == 0) {
+				SqlStatementData sqlData = new SqlStatementData(timestamp, 1L, 2L, methodIdent, SQLS[random.nextInt(SQLS.length)], "jdbc:postgresql://db:5432/shop", "9.4.5", "PostgreSQL");
+				sqlData.setPreparedStatement(true);
+				sqlData.setCount(1);
+				sqlData.setDuration(duration);
+				sqlData.setExclusiveCount(1);
+				sqlData.setExclusiveDuration(duration);
+				batch.add(sqlData);
+			} else {
+				TimerData timerData = new TimerData(timestamp, 1L, 1L, methodIdent);
+				timerData.setCount(1);
+				timerData.setDuration(duration);
+				timerData.setCpuDuration(duration / 2);
+				timerData.setExclusiveCount(1);
+				timerData.setExclusiveDuration(duration / 3);
+				batch.add(timerData);
+			}
+		}
+		return batch;
+	}
+}
@@ -0,0 +1,244 @@
+package rocks.inspectit.server.rmi;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.communication.data.TimerData;
+import rocks.inspectit.shared.all.kryonet.Client;
+import rocks.inspectit.shared.all.kryonet.Connection;
+import rocks.inspectit.shared.all.kryonet.ExtendedSerializationImpl;
+import rocks.inspectit.shared.all.kryonet.IExtendedSerialization;
+import rocks.inspectit.shared.all.kryonet.Listener;
+import rocks.inspectit.shared.all.kryonet.Server;
+import rocks.inspectit.shared.all.storage.nio.ByteBufferProvider;
+import rocks.inspectit.shared.all.storage.nio.stream.ExtendedByteBufferOutputStream;
+import rocks.inspectit.shared.all.storage.nio.stream.SocketExtendedByteBufferInputStream;
+import rocks.inspectit.shared.all.storage.nio.stream.StreamProvider;
+import rocks.inspectit.shared.all.storage.serializer.impl.SerializationManager;
+import rocks.inspectit.shared.all.storage.serializer.provider.SerializationManagerProvider;
+import rocks.inspectit.shared.all.storage.serializer.schema.ClassSchemaManager;
+import rocks.inspectit.shared.all.util.KryoNetNetwork;
+import rocks.inspectit.shared.cs.storage.serializer.SerializationManagerPostProcessor;
+
+/**
+ * Measures how many agent batches the KryoNet server can receive per second. Every invocation
+ * sends one batch of synthetic timer data from each of the agents over the loopback connections
+ * and waits until all batches are passed to the server listener.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KryoNetServerPerfTest {
+
+	/**
+	 * Port to run the server on.
+	 */
+	private static final int PORT = 8766;
+
+	/**
+	 * Number of the server reactors, zero to select all connections in the server thread.
+	 */
+	@Param({ "0", "2", "4" })
+	private int reactors;
+
+	/**
+	 * Number of the decode threads, zero to decode in the selecting thread.
+	 */
+	@Param({ "0", "4" })
+	private int decodeThreads;
+
+	/**
+	 * Number of agents connected to the server.
+	 */
+	@Param({ "16" })
+	private int agents;
+
+	/**
+	 * Number of data objects in one batch.
+	 */
+	@Param({ "500" })
+	private int batchSize;
+
+	/**
+	 * Server under test.
+	 */
+	private Server server;
+
+	/**
+	 * Clients simulating the agents.
+	 */
+	private List<Client> clients;
+
+	/**
+	 * Batches to send.
+	 */
+	private List<List<DefaultData>> batches;
+
+	/**
+	 * Released for every batch received by the server.
+	 */
+	private final Semaphore received = new Semaphore(0);
+
+	/**
+	 * Executor sending the batches of the agents in parallel.
+	 */
+	private ExecutorService sendExecutorService;
+
+	/**
+	 * Executor deserializing the objects on the server.
+	 */
+	private ExecutorService decodeExecutorService;
+
+	/**
+	 * Executor reading the sockets.
+	 */
+	private ExecutorService socketReadExecutorService;
+
+	/**
+	 * Set up, start the server and connect the agents.
+	 */
+	@Setup(Level.Trial)
+	public void init() throws Exception {
+		final ByteBufferProvider byteBufferProvider = new ByteBufferProvider();
+		byteBufferProvider.setMaxActive(-1);
+		byteBufferProvider.setMaxIdle(-1);
+
+		socketReadExecutorService = Executors.newFixedThreadPool(agents);
+		StreamProvider streamProvider = new StreamProvider() {
+			@Override
+			protected ExtendedByteBufferOutputStream createExtendedByteBufferOutputStream() {
+				ExtendedByteBufferOutputStream outputStream = new ExtendedByteBufferOutputStream();
+				outputStream.setByteBufferProvider(byteBufferProvider);
+				return outputStream;
+			}
+
+			@Override
+			protected SocketExtendedByteBufferInputStream createSocketExtendedByteBufferInputStream() {
+				SocketExtendedByteBufferInputStream inputStream = new SocketExtendedByteBufferInputStream();
+				inputStream.setByteBufferProvider(byteBufferProvider);
+				inputStream.setExecutorService(socketReadExecutorService);
+				return inputStream;
+			}
+		};
+
+		final ClassSchemaManager schemaManager = new ClassSchemaManager();
+		schemaManager.setLog(LoggerFactory.getLogger(ClassSchemaManager.class));
+		schemaManager.setSchemaListFile(new ClassPathResource(ClassSchemaManager.SCHEMA_DIR + "/" + ClassSchemaManager.SCHEMA_LIST_FILE, schemaManager.getClass().getClassLoader()));
+		schemaManager.loadSchemasFromLocations();
+		final SerializationManagerPostProcessor postProcessor = new SerializationManagerPostProcessor();
+		SerializationManagerProvider serializationManagerProvider = new SerializationManagerProvider() {
+			@Override
+			public SerializationManager createSerializer() {
+				SerializationManager serializationManager = new SerializationManager();
+				serializationManager.setSchemaManager(schemaManager);
+				serializationManager.setKryoNetNetwork(new KryoNetNetwork());
+				serializationManager.initKryo();
+				postProcessor.postProcessAfterInitialization(serializationManager, "serializationManager");
+				return serializationManager;
+			}
+		};
+		IExtendedSerialization serialization = new ExtendedSerializationImpl(serializationManagerProvider);
+
+		if (decodeThreads > 0) {
+			decodeExecutorService = Executors.newFixedThreadPool(decodeThreads);
+		}
+		server = new Server(serialization, streamProvider, reactors, decodeExecutorService);
+		server.start();
+		server.bind(PORT);
+		server.addListener(new Listener() {
+			@Override
+			public void received(Connection connection, Object object) {
+				if (object instanceof List) {
+					received.release();
+				}
+			}
+		});
+
+		clients = new ArrayList<>(agents);
+		batches = new ArrayList<>(agents);
+		for (int i = 0; i < agents; i++) {
+			Client client = new Client(serialization, streamProvider);
+			client.start();
+			client.connect(5000, "localhost", PORT);
+			clients.add(client);
+			batches.add(getBatch(i + 1));
+		}
+		sendExecutorService = Executors.newFixedThreadPool(agents);
+	}
+
+	/**
+	 * Tear down, disconnect the agents and stop the server.
+	 */
+	@TearDown(Level.Trial)
+	public void shutdown() throws IOException {
+		for (Client client : clients) {
+			client.stop();
+		}
+		server.stop();
+		sendExecutorService.shutdownNow();
+		socketReadExecutorService.shutdownNow();
+		if (null != decodeExecutorService) {
+			decodeExecutorService.shutdownNow();
+		}
+	}
+
+	@Benchmark
+	public void receiveBatches() throws InterruptedException {
+		for (int i = 0; i < agents; i++) {
+			final Client client = clients.get(i);
+			final List<DefaultData> batch = batches.get(i);
+			sendExecutorService.execute(new Runnable() {
+				@Override
+				public void run() {
+					client.sendTCP(batch);
+				}
+			});
+		}
+		received.acquire(agents);
+	}
+
+	/**
+	 * Creates the synthetic batch of the agent.
+	 *
+	 * @param platformIdent
+	 *            Platform ident of the agent.
+	 * @return Batch of timer data.
+	 */
+	private List<DefaultData> getBatch(long platformIdent) {
+		List<DefaultData> batch = new ArrayList<>(batchSize);
+		Timestamp timestamp = new Timestamp(System.currentTimeMillis());
+		for (int i = 0; i < batchSize; i++) {
+			TimerData timerData = new TimerData(timestamp, platformIdent, 1L, i % 100);
+			timerData.setCount(1);
+			timerData.setDuration(i);
+			batch.add(timerData);
+		}
+		return batch;
+	}
+}
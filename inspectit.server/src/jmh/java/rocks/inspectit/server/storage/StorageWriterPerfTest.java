@@ -0,0 +1,194 @@
+package rocks.inspectit.server.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+
+import com.esotericsoftware.kryo.io.Output;
+
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.communication.data.TimerData;
+import rocks.inspectit.shared.all.storage.nio.ByteBufferProvider;
+import rocks.inspectit.shared.all.storage.nio.stream.ExtendedByteBufferOutputStream;
+import rocks.inspectit.shared.all.storage.serializer.impl.SerializationManager;
+import rocks.inspectit.shared.all.storage.serializer.schema.ClassSchemaManager;
+import rocks.inspectit.shared.all.util.KryoNetNetwork;
+import rocks.inspectit.shared.cs.storage.nio.WriteReadCompletionRunnable;
+import rocks.inspectit.shared.cs.storage.nio.write.WritingChannelManager;
+import rocks.inspectit.shared.cs.storage.serializer.SerializationManagerPostProcessor;
+
+/**
+ * Measures the storage write throughput when the data is written to the channel in batches the way
+ * the storage writer does it. Every invocation serializes the same amount of synthetic timer data
+ * and writes it to one channel, either with a single write for every object (batch size of one)
+ * or with one write per batch, and waits until all writes are completed.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StorageWriterPerfTest {
+
+	/**
+	 * Number of data objects written in one invocation.
+	 */
+	private static final int OBJECTS = 5000;
+
+	/**
+	 * Number of data objects written with one write.
+	 */
+	@Param({ "1", "50", "500" })
+	private int batchSize;
+
+	/**
+	 * Folder the channel is written to.
+	 */
+	private Path folder;
+
+	/**
+	 * Channel to write to.
+	 */
+	private Path channelPath;
+
+	/**
+	 * Channel manager under test.
+	 */
+	private WritingChannelManager writingChannelManager;
+
+	/**
+	 * Executor performing the IO operations.
+	 */
+	private ExecutorService ioExecutorService;
+
+	/**
+	 * Buffer provider of the streams.
+	 */
+	private ByteBufferProvider byteBufferProvider;
+
+	/**
+	 * Serializer.
+	 */
+	private SerializationManager serializationManager;
+
+	/**
+	 * Data to write.
+	 */
+	private List<DefaultData> data;
+
+	/**
+	 * Released for every completed write.
+	 */
+	private final Semaphore written = new Semaphore(0);
+
+	/**
+	 * Set up.
+	 */
+	@Setup(Level.Trial)
+	public void init() throws Exception {
+		byteBufferProvider = new ByteBufferProvider();
+		byteBufferProvider.setMaxActive(-1);
+		byteBufferProvider.setMaxIdle(-1);
+
+		ioExecutorService = Executors.newFixedThreadPool(4);
+		writingChannelManager = new WritingChannelManager();
+		writingChannelManager.setExecutorService(ioExecutorService);
+
+		ClassSchemaManager schemaManager = new ClassSchemaManager();
+		schemaManager.setLog(LoggerFactory.getLogger(ClassSchemaManager.class));
+		schemaManager.setSchemaListFile(new ClassPathResource(ClassSchemaManager.SCHEMA_DIR + "/" + ClassSchemaManager.SCHEMA_LIST_FILE, schemaManager.getClass().getClassLoader()));
+		schemaManager.loadSchemasFromLocations();
+		serializationManager = new SerializationManager();
+		serializationManager.setSchemaManager(schemaManager);
+		serializationManager.setKryoNetNetwork(new KryoNetNetwork());
+		serializationManager.initKryo();
+		new SerializationManagerPostProcessor().postProcessAfterInitialization(serializationManager, "serializationManager");
+
+		folder = Files.createTempDirectory("storageWriterPerfTest");
+		channelPath = folder.resolve("1.itdata");
+
+		Timestamp timestamp = new Timestamp(System.currentTimeMillis());
+		data = new ArrayList<>(OBJECTS);
+		for (int i = 0; i < OBJECTS; i++) {
+			TimerData timerData = new TimerData(timestamp, 1L, 1L, i % 100);
+			timerData.setCount(1);
+			timerData.setDuration(i);
+			timerData.setExclusiveCount(1);
+			timerData.setExclusiveDuration(i / 2d);
+			data.add(timerData);
+		}
+	}
+
+	/**
+	 * Tear down, close the channel and delete the written data.
+	 */
+	@TearDown(Level.Trial)
+	public void shutdown() throws IOException {
+		writingChannelManager.finalizeAllChannels();
+		ioExecutorService.shutdownNow();
+		Files.deleteIfExists(channelPath);
+		Files.deleteIfExists(folder);
+	}
+
+	@Benchmark
+	public void write() throws Exception {
+		int writes = 0;
+		for (int i = 0; i < OBJECTS; i += batchSize) {
+			write(data.subList(i, Math.min(i + batchSize, OBJECTS)));
+			writes++;
+		}
+		written.acquire(writes);
+	}
+
+	/**
+	 * Serializes the batch into one stream and writes it to the channel.
+	 *
+	 * @param batch
+	 *            Data to write.
+	 */
+	private void write(List<DefaultData> batch) throws Exception {
+		final ExtendedByteBufferOutputStream outputStream = new ExtendedByteBufferOutputStream();
+		outputStream.setByteBufferProvider(byteBufferProvider);
+		outputStream.prepare();
+		Output output = new Output(outputStream);
+		for (DefaultData defaultData : batch) {
+			serializationManager.serialize(defaultData, output, Collections.emptyMap());
+			output.flush();
+		}
+		outputStream.flush(false);
+
+		WriteReadCompletionRunnable completionRunnable = new WriteReadCompletionRunnable(outputStream.getBuffersCount()) {
+			@Override
+			public void run() {
+				outputStream.close();
+				written.release();
+			}
+		};
+		writingChannelManager.write(outputStream, channelPath, completionRunnable);
+	}
+}
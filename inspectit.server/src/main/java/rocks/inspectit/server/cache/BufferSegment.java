@@ -0,0 +1,163 @@
+package rocks.inspectit.server.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Segment of the buffer. Each element put into the buffer belongs to one segment, segment holds
+ * the consecutive elements starting from its first element until the first element of the next
+ * segment. The segment is closed when its analyzed size reaches the eviction fragment size, so
+ * that the following elements are put into a new segment. The buffer evicts whole segments.
+ *
+ * @param <E>
+ *            Type of object that buffer elements are holding.
+ */
+public class BufferSegment<E> {
+
+	/**
+	 * Id of the segment. Segment ids are increasing in the order segments are created.
+	 */
+	private final long id;
+
+	/**
+	 * First element in the segment.
+	 */
+	private final IBufferElement<E> firstElement;
+
+	/**
+	 * Number of analyzed elements in the segment.
+	 */
+	private final AtomicLong elements = new AtomicLong();
+
+	/**
+	 * Analyzed size of the elements in the segment.
+	 */
+	private final AtomicLong size = new AtomicLong();
+
+	/**
+	 * Number of elements evicted from the segment before the whole segment was evicted.
+	 */
+	private final AtomicLong evictedElements = new AtomicLong();
+
+	/**
+	 * Size of the elements evicted from the segment before the whole segment was evicted.
+	 */
+	private final AtomicLong evictedSize = new AtomicLong();
+
+	/**
+	 * If segment is closed and no new elements should be added to it.
+	 */
+	private volatile boolean closed;
+
+	/**
+	 * If the whole segment has been evicted.
+	 */
+	private volatile boolean evicted;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param id
+	 *            Id of the segment.
+	 * @param firstElement
+	 *            First element in the segment.
+	 */
+	public BufferSegment(long id, IBufferElement<E> firstElement) {
+		this.id = id;
+		this.firstElement = firstElement;
+	}
+
+	/**
+	 * Adds the analyzed element size to the segment.
+	 *
+	 * @param elementSize
+	 *            Size of the analyzed element.
+	 * @return Analyzed size of the segment.
+	 */
+	public long elementAnalyzed(long elementSize) {
+		elements.incrementAndGet();
+		return size.addAndGet(elementSize);
+	}
+
+	/**
+	 * Registers the elements that were evicted one by one before the whole segment is evicted.
+	 *
+	 * @param elementCount
+	 *            Number of evicted elements.
+	 * @param elementsSize
+	 *            Size of evicted elements.
+	 */
+	public void elementsEvicted(long elementCount, long elementsSize) {
+		evictedElements.addAndGet(elementCount);
+		evictedSize.addAndGet(elementsSize);
+	}
+
+	/**
+	 * Returns the number of analyzed elements in the segment that were not yet evicted.
+	 *
+	 * @return Number of analyzed elements in the segment that were not yet evicted.
+	 */
+	public long getRemainingElements() {
+		return elements.get() - evictedElements.get();
+	}
+
+	/**
+	 * Returns the size of analyzed elements in the segment that were not yet evicted.
+	 *
+	 * @return Size of analyzed elements in the segment that were not yet evicted.
+	 */
+	public long getRemainingSize() {
+		return size.get() - evictedSize.get();
+	}
+
+	/**
+	 * Closes the segment.
+	 */
+	public void close() {
+		closed = true;
+	}
+
+	/**
+	 * Marks the segment as evicted.
+	 */
+	public void evict() {
+		closed = true;
+		evicted = true;
+	}
+
+	/**
+	 * Gets {@link #id}.
+	 *
+	 * @return {@link #id}
+	 */
+	public long getId() {
+		return id;
+	}
+
+	/**
+	 * Gets {@link #firstElement}.
+	 *
+	 * @return {@link #firstElement}
+	 */
+	public IBufferElement<E> getFirstElement() {
+		return firstElement;
+	}
+
+	/**
+	 * Gets {@link #closed}.
+	 *
+	 * @return {@link #closed}
+	 */
+	public boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * Gets {@link #evicted}.
+	 *
+	 * @return {@link #evicted}
+	 */
+	public boolean isEvicted() {
+		return evicted;
+	}
+
+}
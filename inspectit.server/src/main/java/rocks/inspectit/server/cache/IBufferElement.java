@@ -58,6 +58,21 @@ public interface IBufferElement<E> {
 	 */
 	void setNextElement(IBufferElement<E> element);
 
+	/**
+	 * Returns the buffer segment this element belongs to.
+	 *
+	 * @return Buffer segment or <code>null</code> if element is not in the buffer.
+	 */
+	BufferSegment<E> getBufferSegment();
+
+	/**
+	 * Sets the buffer segment this element belongs to.
+	 *
+	 * @param bufferSegment
+	 *            Buffer segment.
+	 */
+	void setBufferSegment(BufferSegment<E> bufferSegment);
+
 	/**
 	 * Returns if the element has been analyzed.
 	 *
@@ -66,7 +81,8 @@ public interface IBufferElement<E> {
 	boolean isAnalyzed();
 
 	/**
-	 * Returns if the element has been evicted.
+	 * Returns if the element has been evicted, either alone or with the whole buffer segment it
+	 * belongs to.
 	 *
 	 * @return True if evicted, otherwise no.
 	 */
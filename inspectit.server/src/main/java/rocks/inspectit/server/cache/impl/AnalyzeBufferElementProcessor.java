@@ -4,12 +4,14 @@ import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 
+import rocks.inspectit.server.cache.BufferSegment;
 import rocks.inspectit.server.cache.IBufferElement;
 import rocks.inspectit.server.cache.IBufferElement.BufferElementState;
 import rocks.inspectit.shared.all.communication.DefaultData;
 
 /**
- * Analyze processor. Performs analyzing of element sizes in the buffer.
+ * Analyze processor. Performs analyzing of element sizes in the buffer and closes the buffer
+ * segments that reached the eviction fragment size.
  *
  * @param <E>
  *            Type of data to process.
@@ -45,6 +47,13 @@ class AnalyzeBufferElementProcessor<E extends DefaultData> extends AbstractBuffe
 			// perform analysis
 			elementToProcess.calculateAndSetBufferElementSize(atomicBuffer.objectSizes);
 			elementToProcess.setBufferElementState(BufferElementState.ANALYZED);
+
+			// close the segment when it reaches the eviction fragment size
+			BufferSegment<E> segment = elementToProcess.getBufferSegment();
+			if (segment.elementAnalyzed(elementToProcess.getBufferElementSize()) >= atomicBuffer.getEvictionFragmentMaxSize()) {
+				segment.close();
+			}
+
 			atomicBuffer.addToCurrentSize(elementToProcess.getBufferElementSize(), true);
 			atomicBuffer.elementsAnalyzed.incrementAndGet();
 			return true;
@@ -1,6 +1,9 @@
 package rocks.inspectit.server.cache.impl;
 
 import java.text.NumberFormat;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -16,8 +19,8 @@ import javax.annotation.PostConstruct;
 
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.stereotype.Component;
 
+import rocks.inspectit.server.cache.BufferSegment;
 import rocks.inspectit.server.cache.IBuffer;
 import rocks.inspectit.server.cache.IBufferElement;
 import rocks.inspectit.server.cache.IBufferElement.BufferElementState;
@@ -31,13 +34,19 @@ import rocks.inspectit.shared.cs.indexing.buffer.IBufferTreeComponent;
  * Buffer uses atomic variables and references to handle the synchronization. Thus, non of its
  * methods is synchronized, nor synchronized block were used. However, the whole buffer is thread
  * safe.
+ * <p>
+ * Elements are organized in {@link BufferSegment}s. A segment is closed when its size reaches the
+ * eviction fragment size, thus eviction removes the oldest segments as a whole without visiting
+ * their elements. The indexing tree leafs are partitioned by the same segment ids, so that the
+ * evicted elements are removed from the tree by dropping the partition of the segment.
+ * <p>
+ * The buffer is created by the {@link BufferFactory}.
  *
  * @author Ivan Senic
  *
  * @param <E>
  *            Parameterized type of elements buffer can hold.
  */
-@Component
 public class AtomicBuffer<E extends DefaultData> implements IBuffer<E> {
 
 	/** The logger of this class. */
@@ -62,6 +71,17 @@ public class AtomicBuffer<E extends DefaultData> implements IBuffer<E> {
 	@Autowired
 	IBufferTreeComponent<E> indexingTree;
 
+	/**
+	 * Tracker of the buffer segments.
+	 */
+	@Autowired
+	BufferSegmentTracker<E> segmentTracker;
+
+	/**
+	 * Segments of the buffer sorted by the segment id, thus from the oldest to the newest one.
+	 */
+	private ConcurrentNavigableMap<Long, BufferSegment<E>> segments = new ConcurrentSkipListMap<>();
+
 	/**
 	 * Atomic reference to the first object.
 	 */
@@ -230,12 +250,26 @@ public class AtomicBuffer<E extends DefaultData> implements IBuffer<E> {
 			// retrieving currently first element
 			IBufferElement<E> currentlyFirst = first.get();
 
+			// the element joins the segment of the currently first element, unless that one is
+			// closed; segment has to be set before the element is visible to other threads
+			BufferSegment<E> segment = currentlyFirst.getBufferSegment();
+			boolean newSegment = (null == segment) || segment.isClosed();
+			if (newSegment) {
+				segment = new BufferSegment<>(segmentTracker.nextSegmentId(), element);
+			}
+			element.setBufferSegment(segment);
+
 			// only thread that successfully execute compare and set will be able to perform changes
 			if (first.compareAndSet(currentlyFirst, element)) {
 
 				// increment number of added elements
 				elementsAdded.incrementAndGet();
 
+				// new segment must be known before the element can be reached for eviction
+				if (newSegment) {
+					segments.put(Long.valueOf(segment.getId()), segment);
+				}
+
 				// if currently first is not pointing to marker, it means that we already have
 				// elements in the buffer, so connect elements
 				if (!emptyBufferElement.equals(currentlyFirst)) {
@@ -280,8 +314,10 @@ public class AtomicBuffer<E extends DefaultData> implements IBuffer<E> {
 	 * {@inheritDoc}
 	 * <p>
 	 * The executing thread will wait until the current occupancy percentage of the buffer is
-	 * smaller than eviction occupancy percentage. This method also sets the cleaning flag after
-	 * every {@value #elementsCountForMaintenance}th element evicted.
+	 * smaller than eviction occupancy percentage. The oldest segments are evicted as a whole until
+	 * the eviction fragment size is reached. Only if the oldest segment is the one elements are
+	 * currently added to, the segment is closed and the elements of the fragment are evicted one
+	 * by one.
 	 * <p>
 	 * This method is designed for multiply thread access.
 	 */
@@ -300,7 +336,9 @@ public class AtomicBuffer<E extends DefaultData> implements IBuffer<E> {
 			}
 		}
 
-		while (true) {
+		long evictionFragmentMaxSize = getEvictionFragmentMaxSize();
+		long fragmentSize = 0;
+		while (fragmentSize < evictionFragmentMaxSize) {
 			clearReadLock.lock();
 			try {
 				// get the currently last element
@@ -312,50 +350,92 @@ public class AtomicBuffer<E extends DefaultData> implements IBuffer<E> {
 					break;
 				}
 
-				// set up the values for evicting the fragment of elements
-				IBufferElement<E> newLastElement = currentLastElement;
-				long evictionFragmentMaxSize = (long) (this.getMaxSize() * bufferProperties.getEvictionFragmentSizePercentage());
-				long fragmentSize = 0;
-				int elementsInFragment = 0;
-
-				// iterate until size of the eviction fragment is reached
-				while (fragmentSize < evictionFragmentMaxSize) {
-					fragmentSize += newLastElement.getBufferElementSize();
-					newLastElement.setBufferElementState(BufferElementState.EVICTED);
-					elementsInFragment++;
-					newLastElement = newLastElement.getNextElement();
-
-					// break if we reach the end of queue
-					if (emptyBufferElement.equals(newLastElement)) {
-						break;
-					}
+				// segment of the last element is the oldest one
+				BufferSegment<E> segment = currentLastElement.getBufferSegment();
+				Entry<Long, BufferSegment<E>> next = segments.higherEntry(Long.valueOf(segment.getId()));
+				if (null == next) {
+					// elements are still added to the oldest segment, close it so that the new
+					// elements start the new segment
+					segment.close();
+					fragmentSize += evictElements(currentLastElement, segment, evictionFragmentMaxSize - fragmentSize);
+					break;
 				}
 
-				// change the last element to the right one
 				// only thread that execute compare and set successfully can perform changes
-				if (last.compareAndSet(currentLastElement, newLastElement)) {
-					// subtract the fragment size
-					substractFromCurrentSize(fragmentSize);
-
-					// add evicted elements to the total count
-					elementsEvicted.addAndGet(elementsInFragment);
-
-					// if the last is now pointing to the empty buffer element, it means that we
-					// have
-					// evicted all elements, so first should also point to empty buffer element
-					// this can only happen in theory
-					if (emptyBufferElement == last.get()) {
-						first.set(emptyBufferElement);
-					}
-
-					// break from while
-					break;
+				if (last.compareAndSet(currentLastElement, next.getValue().getFirstElement())) {
+					segments.remove(Long.valueOf(segment.getId()));
+					segment.evict();
+					segmentTracker.segmentEvicted(segment.getId());
+
+					long segmentSize = segment.getRemainingSize();
+					substractFromCurrentSize(segmentSize);
+					elementsEvicted.addAndGet(segment.getRemainingElements());
+					fragmentSize += segmentSize;
 				}
 			} finally {
 				clearReadLock.unlock();
 			}
 		}
+	}
+
+	/**
+	 * Evicts the elements of the segment one by one starting from the given last element of the
+	 * buffer until the given fragment size is reached or all elements of the segment are evicted.
+	 *
+	 * @param currentLastElement
+	 *            Currently last element in the buffer.
+	 * @param segment
+	 *            Segment the last element belongs to.
+	 * @param evictionFragmentMaxSize
+	 *            Size to evict.
+	 * @return Evicted size or <code>0</code> if other thread changed the last element in the
+	 *         meantime.
+	 */
+	private long evictElements(IBufferElement<E> currentLastElement, BufferSegment<E> segment, long evictionFragmentMaxSize) {
+		// set up the values for evicting the fragment of elements
+		IBufferElement<E> newLastElement = currentLastElement;
+		long fragmentSize = 0;
+		int elementsInFragment = 0;
+
+		// iterate until size of the eviction fragment is reached
+		while (fragmentSize < evictionFragmentMaxSize) {
+			fragmentSize += newLastElement.getBufferElementSize();
+			newLastElement.setBufferElementState(BufferElementState.EVICTED);
+			elementsInFragment++;
+			newLastElement = newLastElement.getNextElement();
+
+			// break if we reach the end of queue or the segment
+			if (emptyBufferElement.equals(newLastElement) || (segment != newLastElement.getBufferSegment())) { // NOPMD
+				break;
+			}
+		}
+
+		// change the last element to the right one
+		// only thread that execute compare and set successfully can perform changes
+		if (!last.compareAndSet(currentLastElement, newLastElement)) {
+			return 0;
+		}
+
+		// subtract the fragment size and add evicted elements to the total count
+		substractFromCurrentSize(fragmentSize);
+		elementsEvicted.addAndGet(elementsInFragment);
+
+		if (segment == newLastElement.getBufferSegment()) { // NOPMD
+			segment.elementsEvicted(elementsInFragment, fragmentSize);
+		} else {
+			// all elements of the segment are evicted
+			segments.remove(Long.valueOf(segment.getId()));
+			segment.evict();
+			segmentTracker.segmentEvicted(segment.getId());
+		}
 
+		// if the last is now pointing to the empty buffer element, it means that we have
+		// evicted all elements, so first should also point to empty buffer element
+		// this can only happen in theory
+		if (emptyBufferElement == last.get()) {
+			first.set(emptyBufferElement);
+		}
+		return fragmentSize;
 	}
 
 	/**
@@ -507,6 +587,8 @@ public class AtomicBuffer<E extends DefaultData> implements IBuffer<E> {
 			elementsAnalyzed.set(0);
 			elementsIndexed.set(0);
 			elementsEvicted.set(0);
+			segments.clear();
+			segmentTracker.allSegmentsEvicted();
 			indexingTree.clearAll();
 			indexingTreeSize.set(0);
 			dataAddedInBytes.set(0);
@@ -607,6 +689,16 @@ public class AtomicBuffer<E extends DefaultData> implements IBuffer<E> {
 		}
 	}
 
+	/**
+	 * Returns the size of the fragment evicted at once, which is also the size a segment is closed
+	 * at.
+	 *
+	 * @return Eviction fragment size in bytes.
+	 */
+	long getEvictionFragmentMaxSize() {
+		return (long) (this.getMaxSize() * bufferProperties.getEvictionFragmentSizePercentage());
+	}
+
 	/**
 	 * Updates value of the {@link #evictionOccupancyPercentage}.
 	 */
@@ -718,6 +810,15 @@ public class AtomicBuffer<E extends DefaultData> implements IBuffer<E> {
 		public void setNextElement(IBufferElement<E> element) {
 		}
 
+		@Override
+		public BufferSegment<E> getBufferSegment() {
+			return null;
+		}
+
+		@Override
+		public void setBufferSegment(BufferSegment<E> bufferSegment) {
+		}
+
 		@Override
 		public boolean isAnalyzed() {
 			return false;
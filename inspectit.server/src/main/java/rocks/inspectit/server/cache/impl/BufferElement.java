@@ -1,5 +1,6 @@
 package rocks.inspectit.server.cache.impl;
 
+import rocks.inspectit.server.cache.BufferSegment;
 import rocks.inspectit.server.cache.IBufferElement;
 import rocks.inspectit.shared.all.cmr.cache.IObjectSizes;
 import rocks.inspectit.shared.all.communication.DefaultData;
@@ -33,6 +34,11 @@ public class BufferElement<E extends DefaultData> implements IBufferElement<E> {
 	 */
 	private BufferElementState bufferElementState;
 
+	/**
+	 * Buffer segment this element belongs to.
+	 */
+	private BufferSegment<E> bufferSegment;
+
 	/**
 	 * Default constructor.
 	 *
@@ -90,7 +96,7 @@ public class BufferElement<E extends DefaultData> implements IBufferElement<E> {
 	 */
 	@Override
 	public void calculateAndSetBufferElementSize(IObjectSizes objectSizes) {
-		long size = objectSizes.getSizeOfObjectHeader() + objectSizes.getPrimitiveTypesSize(2, 0, 0, 0, 1, 0);
+		long size = objectSizes.getSizeOfObjectHeader() + objectSizes.getPrimitiveTypesSize(3, 0, 0, 0, 1, 0);
 		if (null != object) {
 			size += object.getObjectSize(objectSizes);
 		}
@@ -98,6 +104,22 @@ public class BufferElement<E extends DefaultData> implements IBufferElement<E> {
 		bufferElementSize = size;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public BufferSegment<E> getBufferSegment() {
+		return bufferSegment;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setBufferSegment(BufferSegment<E> bufferSegment) {
+		this.bufferSegment = bufferSegment;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -111,7 +133,7 @@ public class BufferElement<E extends DefaultData> implements IBufferElement<E> {
 	 */
 	@Override
 	public boolean isEvicted() {
-		return bufferElementState.compareTo(BufferElementState.EVICTED) >= 0;
+		return (bufferElementState.compareTo(BufferElementState.EVICTED) >= 0) || ((null != bufferSegment) && bufferSegment.isEvicted());
 	}
 
 	/**
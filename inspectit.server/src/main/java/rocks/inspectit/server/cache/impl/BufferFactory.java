@@ -0,0 +1,48 @@
+package rocks.inspectit.server.cache.impl;
+
+import rocks.inspectit.server.cache.IBuffer;
+import rocks.inspectit.shared.all.communication.DefaultData;
+
+/**
+ * Factory for creating the correct {@link IBuffer} implementation for Spring initialization. The
+ * buffer is created via the factory method, so that Spring performs the dependency injection and
+ * initialization of the created buffer.
+ */
+public final class BufferFactory {
+
+	/**
+	 * Private constructor.
+	 */
+	private BufferFactory() {
+	}
+
+	/**
+	 * Creates the buffer.
+	 *
+	 * @param <E>
+	 *            Type of elements in buffer.
+	 * @param offHeap
+	 *            If the {@link OffHeapBuffer} should be used. Otherwise the {@link AtomicBuffer}
+	 *            holding the elements on heap is created.
+	 * @return {@link IBuffer}
+	 */
+	public static <E extends DefaultData> IBuffer<E> createBuffer(boolean offHeap) {
+		if (offHeap) {
+			return new OffHeapBuffer<>();
+		} else {
+			return new AtomicBuffer<>();
+		}
+	}
+
+	/**
+	 * Creates the store of the {@link OffHeapBuffer}. The store allocates no memory until the
+	 * first element is written, thus it is cheap when the heap buffer is used.
+	 *
+	 * @param <E>
+	 *            Type of elements in the store.
+	 * @return {@link OffHeapElementStore}
+	 */
+	public static <E extends DefaultData> OffHeapElementStore<E> createElementStore() {
+		return new OffHeapElementStore<>();
+	}
+}
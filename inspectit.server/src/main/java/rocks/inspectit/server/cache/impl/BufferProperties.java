@@ -131,6 +131,18 @@ public class BufferProperties {
 	@Value(value = "${buffer.maxOldSpaceOccupancy}")
 	float maxOldSpaceOccupancy;
 
+	/**
+	 * Maximum size of the off-heap buffer in bytes.
+	 */
+	@Value(value = "${buffer.offHeapSize}")
+	long offHeapSize;
+
+	/**
+	 * Size of one off-heap buffer segment in bytes.
+	 */
+	@Value(value = "${buffer.offHeapSegmentSize}")
+	long offHeapSegmentSize;
+
 	/**
 	 * Returns buffer eviction occupancy percentage.
 	 *
@@ -237,6 +249,24 @@ public class BufferProperties {
 		return indexingWaitTime;
 	}
 
+	/**
+	 * Returns the maximum size of the off-heap buffer.
+	 *
+	 * @return Maximum size of the off-heap buffer in bytes.
+	 */
+	public long getOffHeapSize() {
+		return offHeapSize;
+	}
+
+	/**
+	 * Returns the size of one off-heap buffer segment.
+	 *
+	 * @return Size of one off-heap buffer segment in bytes.
+	 */
+	public long getOffHeapSegmentSize() {
+		return offHeapSegmentSize;
+	}
+
 	/**
 	 * @return the minOldSpaceOccupancyActiveTillOldGenSize
 	 */
@@ -0,0 +1,135 @@
+package rocks.inspectit.server.cache.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+import rocks.inspectit.server.cache.BufferSegment;
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.cs.indexing.buffer.IBufferSegmentTracker;
+
+/**
+ * Tracker of the {@link BufferSegment}s of the {@link AtomicBuffer}. Generates the segment ids and
+ * keeps the id of the oldest segment still in the buffer, so that the indexing tree can check the
+ * segment availability without any map lookup.
+ * <p>
+ * The segment of the element being indexed is kept per indexing thread, as the indexing tree
+ * locates the segment in the same thread the buffer indexes the element in.
+ *
+ * @param <E>
+ *            Type of the elements in the buffer.
+ */
+@Component
+public class BufferSegmentTracker<E extends DefaultData> implements IBufferSegmentTracker<E> {
+
+	/**
+	 * Id of the last created segment.
+	 */
+	private final AtomicLong lastSegmentId = new AtomicLong();
+
+	/**
+	 * Id of the oldest segment that has not been evicted.
+	 */
+	private final AtomicLong oldestSegmentId = new AtomicLong();
+
+	/**
+	 * Element being indexed by the current thread.
+	 */
+	private final ThreadLocal<IndexingElement> indexingElement = new ThreadLocal<IndexingElement>() {
+		@Override
+		protected IndexingElement initialValue() {
+			return new IndexingElement();
+		}
+	};
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getSegmentId(E element) {
+		IndexingElement current = indexingElement.get();
+		if (current.element == element) { // NOPMD
+			return current.segmentId;
+		}
+		return NO_SEGMENT;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isAvailable(long segmentId) {
+		return segmentId >= oldestSegmentId.get();
+	}
+
+	/**
+	 * Returns the id for the new segment.
+	 *
+	 * @return Segment id.
+	 */
+	long nextSegmentId() {
+		return lastSegmentId.incrementAndGet();
+	}
+
+	/**
+	 * Marks the start of the indexing of the element, so that the indexing tree can locate its
+	 * segment.
+	 *
+	 * @param element
+	 *            Element being indexed.
+	 * @param segmentId
+	 *            Id of the segment element belongs to.
+	 */
+	void startIndexing(E element, long segmentId) {
+		IndexingElement current = indexingElement.get();
+		current.element = element;
+		current.segmentId = segmentId;
+	}
+
+	/**
+	 * Marks the end of the indexing of the element in the current thread.
+	 */
+	void finishIndexing() {
+		indexingElement.get().element = null;
+	}
+
+	/**
+	 * Marks the segment with the given id and all older segments as evicted.
+	 *
+	 * @param segmentId
+	 *            Id of the evicted segment.
+	 */
+	void segmentEvicted(long segmentId) {
+		while (true) {
+			long oldest = oldestSegmentId.get();
+			if ((oldest > segmentId) || oldestSegmentId.compareAndSet(oldest, segmentId + 1)) {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Marks all created segments as evicted.
+	 */
+	void allSegmentsEvicted() {
+		segmentEvicted(lastSegmentId.get());
+	}
+
+	/**
+	 * Holder of the element being indexed and its segment id.
+	 */
+	private static final class IndexingElement {
+
+		/**
+		 * Element being indexed.
+		 */
+		private Object element;
+
+		/**
+		 * Segment id of the element.
+		 */
+		private long segmentId;
+
+	}
+
+}
@@ -98,8 +98,14 @@ class IndexBufferElementProcessor<E extends DefaultData> extends AbstractBufferE
 		// only thread that execute compare and set successfully can perform changes
 		if (lastProcessed.compareAndSet(lastProcessedElement, elementToProcess)) {
 			try {
-				// index element
-				atomicBuffer.indexingTree.put(elementToProcess.getObject());
+				// index element in the partition of its segment
+				E object = elementToProcess.getObject();
+				atomicBuffer.segmentTracker.startIndexing(object, elementToProcess.getBufferSegment().getId());
+				try {
+					atomicBuffer.indexingTree.put(object);
+				} finally {
+					atomicBuffer.segmentTracker.finishIndexing();
+				}
 				elementToProcess.setBufferElementState(BufferElementState.INDEXED);
 
 				// increase number of indexed elements, and perform calculation of the
@@ -0,0 +1,519 @@
+package rocks.inspectit.server.cache.impl;
+
+import java.text.NumberFormat;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import rocks.inspectit.server.cache.IBuffer;
+import rocks.inspectit.server.cache.IBufferElement;
+import rocks.inspectit.shared.all.cmr.property.spring.PropertyUpdate;
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.spring.logger.Log;
+import rocks.inspectit.shared.all.storage.serializer.SerializationException;
+import rocks.inspectit.shared.cs.indexing.buffer.IBufferTreeComponent;
+import rocks.inspectit.shared.cs.indexing.impl.IndexingException;
+
+/**
+ * Buffer that keeps the elements serialized in the off-heap segments of the
+ * {@link OffHeapElementStore}. Elements are only kept on the heap from the moment they are put to
+ * the buffer until they are serialized and indexed. The indexing tree holds only the locations of
+ * the elements, which are deserialized when queried.
+ * <p>
+ * The analyzing of an element is its serialization, thus the size of the buffer is the exact
+ * amount of the serialized data in the off-heap segments. Eviction removes the oldest segment as a
+ * whole.
+ * <p>
+ * Elements are serialized asynchronously, thus they must not be changed after being put to the
+ * buffer. The buffer inserter processor is therefore placed after all processors changing the
+ * data. The queues of the elements waiting to be serialized and indexed are bounded, so putting
+ * blocks when the analyzing or indexing can not keep up, instead of growing the heap.
+ *
+ * @param <E>
+ *            Parameterized type of elements buffer can hold.
+ */
+public class OffHeapBuffer<E extends DefaultData> implements IBuffer<E> {
+
+	/**
+	 * Max amount of elements waiting to be analyzed and to be indexed.
+	 */
+	private static final int QUEUE_CAPACITY = 10000;
+
+	/** The logger of this class. */
+	@Log
+	Logger log;
+
+	/**
+	 * Buffer properties.
+	 */
+	@Autowired
+	BufferProperties bufferProperties;
+
+	/**
+	 * Indexing tree where the elements will be indexed.
+	 */
+	@Autowired
+	IBufferTreeComponent<E> indexingTree;
+
+	/**
+	 * Store holding the serialized elements.
+	 */
+	@Autowired
+	OffHeapElementStore<E> elementStore;
+
+	/**
+	 * Elements waiting to be serialized.
+	 */
+	private final BlockingQueue<E> analyzeQueue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+
+	/**
+	 * Serialized elements waiting to be indexed.
+	 */
+	private final BlockingQueue<StoredElement<E>> indexQueue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+
+	/**
+	 * Last element put to the buffer.
+	 */
+	private final AtomicReference<E> newestElement = new AtomicReference<>();
+
+	/**
+	 * Max size of the buffer in atomic long.
+	 */
+	private AtomicLong maxSize;
+
+	/**
+	 * Eviction occupancy percentage. Although it is a float value, atomic integer is used via
+	 * {@link Float#intBitsToFloat(int)} and {@link Float#floatToIntBits(float)} methods.
+	 */
+	private AtomicInteger evictionOccupancyPercentage;
+
+	/**
+	 * Number of elements added to the buffer.
+	 */
+	private final AtomicLong elementsAdded = new AtomicLong();
+
+	/**
+	 * Number of elements that were serialized.
+	 */
+	private final AtomicLong elementsAnalyzed = new AtomicLong();
+
+	/**
+	 * Number of elements that were indexed into indexing tree.
+	 */
+	private final AtomicLong elementsIndexed = new AtomicLong();
+
+	/**
+	 * Number of elements evicted from the buffer.
+	 */
+	private final AtomicLong elementsEvicted = new AtomicLong();
+
+	/**
+	 * Eviction lock.
+	 */
+	private final ReentrantLock evictLock = new ReentrantLock();
+
+	/**
+	 * Condition that states that there is nothing to evict currently.
+	 */
+	private final Condition nothingToEvict = evictLock.newCondition();
+
+	/**
+	 * Read lock that has to be acquired when the buffer content is changed.
+	 */
+	private final Lock clearReadLock;
+
+	/**
+	 * Write lock that has to be acquired when buffer is cleared.
+	 */
+	private final Lock clearWriteLock;
+
+	/**
+	 * Executor service for cleaning the indexing tree.
+	 */
+	ExecutorService indexingTreeCleaningExecutorService;
+
+	/**
+	 * Default constructor.
+	 */
+	public OffHeapBuffer() {
+		ReadWriteLock readWriteCleanLock = new ReentrantReadWriteLock();
+		clearReadLock = readWriteCleanLock.readLock();
+		clearWriteLock = readWriteCleanLock.writeLock();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Blocks while the queue of the elements waiting to be analyzed is full.
+	 * <p>
+	 * This method is designed for multiply thread access.
+	 */
+	@Override
+	public void put(IBufferElement<E> element) {
+		E object = element.getObject();
+		try {
+			analyzeQueue.put(object);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			log.warn("Element " + object + " not put to the off-heap buffer as the thread was interrupted.");
+			return;
+		}
+		newestElement.set(object);
+		elementsAdded.incrementAndGet();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The executing thread will wait until the current occupancy percentage of the buffer is
+	 * greater than eviction occupancy percentage. One call evicts the oldest segment of the store.
+	 * <p>
+	 * This method is designed for multiply thread access.
+	 */
+	@Override
+	public void evict() throws InterruptedException {
+		// wait until there is need for eviction
+		while (!shouldEvict()) {
+			evictLock.lock();
+			try {
+				// check again for avoiding deadlocks
+				if (!shouldEvict()) {
+					nothingToEvict.await();
+				}
+			} finally {
+				evictLock.unlock();
+			}
+		}
+
+		clearReadLock.lock();
+		try {
+			int evicted = elementStore.evictOldestSegment();
+			if (evicted > 0) {
+				elementsEvicted.addAndGet(evicted);
+				indexingTree.cleanWithRunnable(indexingTreeCleaningExecutorService);
+			}
+		} finally {
+			clearReadLock.unlock();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Analyzing serializes the next element into the store.
+	 * <p>
+	 * This method is designed for multiply thread access.
+	 */
+	@Override
+	public void analyzeNext() throws InterruptedException {
+		E element = analyzeQueue.take();
+
+		StoredElement<E> storedElement = null;
+		clearReadLock.lock();
+		try {
+			long location = elementStore.write(element);
+			elementsAnalyzed.incrementAndGet();
+			storedElement = new StoredElement<>(element, location);
+		} catch (SerializationException e) {
+			log.warn("Element " + element + " could not be serialized to the off-heap buffer.", e);
+		} finally {
+			clearReadLock.unlock();
+		}
+
+		notifyEvictionIfNeeded();
+
+		// put outside of the clear lock, waiting for the indexing must not block the clearing
+		if (null != storedElement) {
+			indexQueue.put(storedElement);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This method is designed for multiply thread access.
+	 */
+	@Override
+	public void indexNext() throws InterruptedException {
+		StoredElement<E> storedElement = indexQueue.take();
+
+		clearReadLock.lock();
+		try {
+			// element could be evicted or buffer cleared before indexing
+			if (!elementStore.isAvailable(storedElement.location)) {
+				return;
+			}
+
+			elementStore.startIndexing(storedElement.element, storedElement.location);
+			try {
+				indexingTree.put(storedElement.element);
+				elementsIndexed.incrementAndGet();
+			} catch (IndexingException e) {
+				// indexing exception should not happen
+				log.error(e.getMessage(), e);
+			} finally {
+				elementStore.finishIndexing(storedElement.element);
+			}
+		} finally {
+			clearReadLock.unlock();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void clearAll() {
+		clearWriteLock.lock();
+		try {
+			analyzeQueue.clear();
+			indexQueue.clear();
+			elementStore.clearAll();
+			indexingTree.clearAll();
+			newestElement.set(null);
+			elementsAdded.set(0);
+			elementsAnalyzed.set(0);
+			elementsIndexed.set(0);
+			elementsEvicted.set(0);
+		} finally {
+			clearWriteLock.unlock();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getMaxSize() {
+		return maxSize.get();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Using this method does not provide any check for the supplied new maximum size. Thus, it is
+	 * responsibility of the user to assure that the given value is correct.
+	 */
+	@Override
+	public void setMaxSize(long maxSize) {
+		this.maxSize.set(maxSize);
+		notifyEvictionIfNeeded();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Current size is the amount of the serialized data in the store segments. The newest segment
+	 * is only counted as far as it is written.
+	 */
+	@Override
+	public long getCurrentSize() {
+		return elementStore.getUsedBytes();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public float getEvictionOccupancyPercentage() {
+		return Float.intBitsToFloat(evictionOccupancyPercentage.get());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setEvictionOccupancyPercentage(float evictionOccupancyPercentage) {
+		this.evictionOccupancyPercentage.set(Float.floatToIntBits(evictionOccupancyPercentage));
+		notifyEvictionIfNeeded();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public float getOccupancyPercentage() {
+		return ((float) getCurrentSize()) / maxSize.get();
+	}
+
+	/**
+	 * Returns if the eviction should be performed.
+	 *
+	 * @return True if the occupancy percentage is greater than the eviction occupancy percentage.
+	 */
+	public boolean shouldEvict() {
+		return getOccupancyPercentage() > Float.intBitsToFloat(evictionOccupancyPercentage.get());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The oldest element is deserialized from the store.
+	 */
+	@Override
+	public E getOldestElement() {
+		return elementStore.readOldest();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public E getNewestElement() {
+		return newestElement.get();
+	}
+
+	/**
+	 * Returns the number of inserted elements since the buffer has been created.
+	 *
+	 * @return Number of inserted elements.
+	 */
+	public long getInsertedElemenets() {
+		return elementsAdded.get();
+	}
+
+	/**
+	 * Returns the number of evicted elements since the buffer has been created.
+	 *
+	 * @return Number of evicted elements.
+	 */
+	public long getEvictedElemenets() {
+		return elementsEvicted.get();
+	}
+
+	/**
+	 * Returns the number of indexed elements since the buffer has been created.
+	 *
+	 * @return Number of indexed elements.
+	 */
+	public long getIndexedElements() {
+		return elementsIndexed.get();
+	}
+
+	/**
+	 * Returns the number of analyzed (serialized) elements since the buffer has been created.
+	 *
+	 * @return Number of analyzed elements.
+	 */
+	public long getAnalyzedElements() {
+		return elementsAnalyzed.get();
+	}
+
+	/**
+	 * Is executed after dependency injection is done to perform any initialization.
+	 *
+	 * @throws Exception
+	 *             if an error occurs during {@link PostConstruct}
+	 */
+	@PostConstruct
+	public void postConstruct() throws Exception {
+		this.maxSize = new AtomicLong(bufferProperties.getOffHeapSize());
+		this.evictionOccupancyPercentage = new AtomicInteger(Float.floatToIntBits(bufferProperties.getEvictionOccupancyPercentage()));
+		this.indexingTreeCleaningExecutorService = Executors.newFixedThreadPool(bufferProperties.getIndexingTreeCleaningThreads());
+
+		if (log.isInfoEnabled()) {
+			log.info("|-Using off-heap buffer with maximum size " + NumberFormat.getInstance().format(maxSize) + " bytes...");
+			log.info("|-Using off-heap segments of " + NumberFormat.getInstance().format(bufferProperties.getOffHeapSegmentSize()) + " bytes...");
+		}
+	}
+
+	/**
+	 * Updates value of the {@link #evictionOccupancyPercentage}.
+	 */
+	@PropertyUpdate(properties = { "buffer.evictionOccupancyPercentage" })
+	protected void updateEvictionOccupancyPercentage() {
+		this.evictionOccupancyPercentage.set(Float.floatToIntBits(bufferProperties.getEvictionOccupancyPercentage()));
+		notifyEvictionIfNeeded();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		StringBuffer msg = new StringBuffer(256);
+		msg.append("The off-heap buffer occupancy status: ");
+		msg.append(NumberFormat.getInstance().format(getCurrentSize()));
+		msg.append(" bytes occupied from total ");
+		msg.append(NumberFormat.getInstance().format(maxSize.get()));
+		msg.append(" bytes available (");
+		msg.append(NumberFormat.getInstance().format(getOccupancyPercentage() * 100));
+		msg.append("%) in ");
+		msg.append(elementStore.getSegmentCount());
+		msg.append(" segments of ");
+		msg.append(NumberFormat.getInstance().format(elementStore.getOccupiedBytes()));
+		msg.append(" bytes.\nElements processed in the buffer since last clear buffer:\n-Elements added: ");
+		msg.append(NumberFormat.getInstance().format(elementsAdded.get()));
+
+		msg.append("\n-Elements analyzed: ");
+		msg.append(NumberFormat.getInstance().format(elementsAnalyzed.get()));
+
+		msg.append("\n-Elements indexed: ");
+		msg.append(NumberFormat.getInstance().format(elementsIndexed.get()));
+
+		msg.append("\n-Elements evicted: ");
+		msg.append(NumberFormat.getInstance().format(elementsEvicted.get()));
+		msg.append('\n');
+		return msg.toString();
+	}
+
+	/**
+	 * Checks if the eviction should start, and if it does notifies the right thread.
+	 */
+	private void notifyEvictionIfNeeded() {
+		if (shouldEvict()) {
+			evictLock.lock();
+			try {
+				nothingToEvict.signal();
+			} finally {
+				evictLock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Element that is serialized to the store and waits to be indexed.
+	 *
+	 * @param <E>
+	 *            Type of element.
+	 */
+	private static final class StoredElement<E> {
+
+		/**
+		 * Element.
+		 */
+		private final E element;
+
+		/**
+		 * Location of the element in the store.
+		 */
+		private final long location;
+
+		/**
+		 * Default constructor.
+		 *
+		 * @param element
+		 *            Element.
+		 * @param location
+		 *            Location of the element in the store.
+		 */
+		StoredElement(E element, long location) {
+			this.element = element;
+			this.location = location;
+		}
+	}
+}
@@ -0,0 +1,495 @@
+package rocks.inspectit.server.cache.impl;
+
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.spring.logger.Log;
+import rocks.inspectit.shared.all.storage.serializer.ISerializer;
+import rocks.inspectit.shared.all.storage.serializer.SerializationException;
+import rocks.inspectit.shared.all.storage.serializer.provider.SerializationManagerProvider;
+import rocks.inspectit.shared.cs.indexing.buffer.ISerializedElementStore;
+
+/**
+ * Store that keeps the elements of the {@link OffHeapBuffer} as serialized records in the off-heap
+ * segments. Records are appended to the newest segment and a new segment is started when the
+ * newest one is full. Eviction always removes the oldest segment as a whole.
+ * <p>
+ * The location of a record is the segment id in the upper and the record offset in the lower 32
+ * bits. Each record starts with its length followed by the serialized element.
+ * <p>
+ * Segments are allocated only when the first element is written, thus the store does not occupy
+ * any memory if the off-heap buffer is not used. The memory of a removed segment is freed
+ * explicitly as soon as no reader uses it any more. If the JVM does not allow freeing direct
+ * memory explicitly, the memory is released when the segment is garbage collected, so the off-heap
+ * memory in use can temporarily be higher than {@link #getOccupiedBytes()}.
+ *
+ * @param <E>
+ *            Type of the elements in the store.
+ */
+public class OffHeapElementStore<E extends DefaultData> implements ISerializedElementStore<E> {
+
+	/**
+	 * Size of the record header holding the record length.
+	 */
+	private static final int RECORD_HEADER_SIZE = 4;
+
+	/**
+	 * Initial size of the serialization output.
+	 */
+	private static final int OUTPUT_BUFFER_SIZE = 4096;
+
+	/**
+	 * Max size of the serialization output buffer kept for the next write. Outputs that grew bigger
+	 * when serializing a big element are not kept, so big buffers are not held by every writing
+	 * thread.
+	 */
+	private static final int MAX_RETAINED_OUTPUT_SIZE = 1024 * 1024;
+
+	/** The logger of this class. */
+	@Log
+	Logger log;
+
+	/**
+	 * Buffer properties.
+	 */
+	@Autowired
+	BufferProperties bufferProperties;
+
+	/**
+	 * Serialization manager provider.
+	 */
+	@Autowired
+	SerializationManagerProvider serializationManagerProvider;
+
+	/**
+	 * Segments sorted by the id, thus from the oldest to the newest.
+	 */
+	private final ConcurrentNavigableMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+
+	/**
+	 * Locations of the elements currently being indexed.
+	 */
+	private final ConcurrentMap<Long, Long> indexingLocations = new ConcurrentHashMap<>();
+
+	/**
+	 * Serializers available for use.
+	 */
+	private final Queue<ISerializer> serializerQueue = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * Serialization output of the writing thread, reused for all writes of the thread.
+	 */
+	private final ThreadLocal<Output> threadOutput = new ThreadLocal<Output>() {
+		@Override
+		protected Output initialValue() {
+			return new Output(OUTPUT_BUFFER_SIZE, -1);
+		}
+	};
+
+	/**
+	 * Lock for appending records and adding or removing segments.
+	 */
+	private final ReentrantLock writeLock = new ReentrantLock();
+
+	/**
+	 * Bytes occupied by all segments.
+	 */
+	private final AtomicLong occupiedBytes = new AtomicLong();
+
+	/**
+	 * Bytes of the records written to all segments.
+	 */
+	private final AtomicLong usedBytes = new AtomicLong();
+
+	/**
+	 * Segment records are currently appended to. Guarded by {@link #writeLock}.
+	 */
+	private Segment currentSegment;
+
+	/**
+	 * Id for the next segment. Guarded by {@link #writeLock}.
+	 */
+	private int nextSegmentId;
+
+	/**
+	 * Serializes the element and appends it to the store.
+	 *
+	 * @param element
+	 *            Element to write.
+	 * @return Location of the element in the store.
+	 * @throws SerializationException
+	 *             If serialization of the element fails.
+	 */
+	public long write(E element) throws SerializationException {
+		Output output = threadOutput.get();
+		output.clear();
+		ISerializer serializer = takeSerializer();
+		try {
+			serializer.serialize(element, output);
+		} finally {
+			serializerQueue.offer(serializer);
+		}
+
+		int length = output.position();
+		int recordSize = RECORD_HEADER_SIZE + length;
+
+		try {
+			writeLock.lock();
+			try {
+				if ((null == currentSegment) || (currentSegment.buffer.remaining() < recordSize)) {
+					int capacity = (int) Math.max(bufferProperties.getOffHeapSegmentSize(), recordSize);
+					currentSegment = new Segment(nextSegmentId++, ByteBuffer.allocateDirect(capacity));
+					segments.put(Integer.valueOf(currentSegment.id), currentSegment);
+					occupiedBytes.addAndGet(capacity);
+				}
+
+				int offset = currentSegment.buffer.position();
+				currentSegment.buffer.putInt(length);
+				currentSegment.buffer.put(output.getBuffer(), 0, length);
+				currentSegment.recordCount++;
+				usedBytes.addAndGet(recordSize);
+				return toLocation(currentSegment.id, offset);
+			} finally {
+				writeLock.unlock();
+			}
+		} finally {
+			if (output.getBuffer().length > MAX_RETAINED_OUTPUT_SIZE) {
+				threadOutput.remove();
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public E read(long location) {
+		Segment segment = segments.get(Integer.valueOf(getSegmentId(location)));
+		if (null == segment) {
+			return null;
+		}
+		return read(segment, getOffset(location));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isAvailable(long location) {
+		return segments.containsKey(Integer.valueOf(getSegmentId(location)));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getLocation(E element) {
+		Long location = indexingLocations.get(Long.valueOf(element.getId()));
+		if (null == location) {
+			return NO_LOCATION;
+		}
+		return location.longValue();
+	}
+
+	/**
+	 * Marks the start of the indexing of the element, so that the indexing tree can locate it in
+	 * the store.
+	 *
+	 * @param element
+	 *            Element being indexed.
+	 * @param location
+	 *            Location of the element in the store.
+	 */
+	void startIndexing(E element, long location) {
+		indexingLocations.put(Long.valueOf(element.getId()), Long.valueOf(location));
+	}
+
+	/**
+	 * Marks the end of the indexing of the element.
+	 *
+	 * @param element
+	 *            Indexed element.
+	 */
+	void finishIndexing(E element) {
+		indexingLocations.remove(Long.valueOf(element.getId()));
+	}
+
+	/**
+	 * Removes the oldest segment from the store. The locations of the removed records become not
+	 * available at once, and the segment memory is freed when no reader is using it any more.
+	 *
+	 * @return Number of records in the removed segment or <code>-1</code> if the store is empty.
+	 */
+	public int evictOldestSegment() {
+		writeLock.lock();
+		try {
+			Entry<Integer, Segment> oldest = segments.pollFirstEntry();
+			if (null == oldest) {
+				return -1;
+			}
+
+			Segment segment = oldest.getValue();
+			if (segment == currentSegment) {
+				currentSegment = null;
+			}
+			occupiedBytes.addAndGet(-segment.buffer.capacity());
+			usedBytes.addAndGet(-segment.buffer.position());
+			segment.release();
+			return segment.recordCount;
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Reads the oldest element in the store.
+	 *
+	 * @return Oldest element or <code>null</code> if store is empty.
+	 */
+	public E readOldest() {
+		Entry<Integer, Segment> oldest = segments.firstEntry();
+		if ((null == oldest) || (0 == oldest.getValue().recordCount)) {
+			return null;
+		}
+		return read(oldest.getValue(), 0);
+	}
+
+	/**
+	 * Removes all segments from the store.
+	 */
+	public void clearAll() {
+		writeLock.lock();
+		try {
+			for (Segment segment : segments.values()) {
+				segment.release();
+			}
+			segments.clear();
+			currentSegment = null;
+			occupiedBytes.set(0);
+			usedBytes.set(0);
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the amount of off-heap bytes occupied by the segments, including the not yet written
+	 * part of the newest segment.
+	 *
+	 * @return Occupied bytes.
+	 */
+	public long getOccupiedBytes() {
+		return occupiedBytes.get();
+	}
+
+	/**
+	 * Returns the amount of bytes of the records written to the segments.
+	 *
+	 * @return Used bytes.
+	 */
+	public long getUsedBytes() {
+		return usedBytes.get();
+	}
+
+	/**
+	 * Returns the number of segments in the store.
+	 *
+	 * @return Number of segments.
+	 */
+	public int getSegmentCount() {
+		return segments.size();
+	}
+
+	/**
+	 * Reads the record at the offset in the segment.
+	 *
+	 * @param segment
+	 *            Segment to read from.
+	 * @param offset
+	 *            Record offset.
+	 * @return Deserialized element or <code>null</code> if record can not be deserialized.
+	 */
+	@SuppressWarnings("unchecked")
+	private E read(Segment segment, int offset) {
+		// segment memory must not be freed while reading
+		if (!segment.retain()) {
+			return null;
+		}
+
+		byte[] bytes;
+		try {
+			// the duplicate shares the content and has its own position, so reads do not
+			// interfere with the writer
+			ByteBuffer buffer = segment.buffer.duplicate();
+			buffer.position(offset);
+			bytes = new byte[buffer.getInt()];
+			buffer.get(bytes);
+		} finally {
+			segment.release();
+		}
+
+		ISerializer serializer = takeSerializer();
+		try {
+			return (E) serializer.deserialize(new Input(bytes));
+		} catch (SerializationException e) {
+			log.warn("Element on the offset " + offset + " in the off-heap segment " + segment.id + " can not be deserialized.", e);
+			return null;
+		} finally {
+			serializerQueue.offer(serializer);
+		}
+	}
+
+	/**
+	 * Takes the serializer from the queue or creates a new one if none is available.
+	 *
+	 * @return {@link ISerializer}
+	 */
+	private ISerializer takeSerializer() {
+		ISerializer serializer = serializerQueue.poll();
+		if (null == serializer) {
+			serializer = serializationManagerProvider.createSerializer();
+		}
+		return serializer;
+	}
+
+	/**
+	 * Creates the location from the segment id and offset.
+	 *
+	 * @param segmentId
+	 *            Segment id.
+	 * @param offset
+	 *            Offset in the segment.
+	 * @return Location.
+	 */
+	static long toLocation(int segmentId, int offset) {
+		return ((long) segmentId << 32) | (offset & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Returns the segment id of the location.
+	 *
+	 * @param location
+	 *            Location.
+	 * @return Segment id.
+	 */
+	static int getSegmentId(long location) {
+		return (int) (location >>> 32);
+	}
+
+	/**
+	 * Returns the offset of the location.
+	 *
+	 * @param location
+	 *            Location.
+	 * @return Offset in the segment.
+	 */
+	static int getOffset(long location) {
+		return (int) location;
+	}
+
+	/**
+	 * One off-heap segment.
+	 */
+	private static final class Segment {
+
+		/**
+		 * Id of the segment.
+		 */
+		private final int id;
+
+		/**
+		 * Direct buffer holding the records. The position marks the end of the written records.
+		 */
+		private final ByteBuffer buffer;
+
+		/**
+		 * Number of records in the segment. Only changed under the store write lock.
+		 */
+		private volatile int recordCount;
+
+		/**
+		 * References to the segment memory. The store holds one reference as long as the segment
+		 * is in the store and each reader holds one while reading.
+		 */
+		private final AtomicInteger references = new AtomicInteger(1);
+
+		/**
+		 * Default constructor.
+		 *
+		 * @param id
+		 *            Id of the segment.
+		 * @param buffer
+		 *            Direct buffer holding the records.
+		 */
+		Segment(int id, ByteBuffer buffer) {
+			this.id = id;
+			this.buffer = buffer;
+		}
+
+		/**
+		 * Acquires the reference to the segment memory.
+		 *
+		 * @return <code>false</code> if the memory is already freed.
+		 */
+		boolean retain() {
+			while (true) {
+				int current = references.get();
+				if (0 == current) {
+					return false;
+				}
+				if (references.compareAndSet(current, current + 1)) {
+					return true;
+				}
+			}
+		}
+
+		/**
+		 * Releases the reference to the segment memory. The memory is freed when the last
+		 * reference is released.
+		 */
+		void release() {
+			if (0 == references.decrementAndGet()) {
+				free(buffer);
+			}
+		}
+
+		/**
+		 * Frees the memory of the direct buffer using its cleaner. If the cleaner is not
+		 * accessible, the memory is released when the buffer is garbage collected.
+		 *
+		 * @param buffer
+		 *            Direct buffer.
+		 */
+		private static void free(ByteBuffer buffer) {
+			try {
+				Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+				cleanerMethod.setAccessible(true);
+				Object cleaner = cleanerMethod.invoke(buffer);
+				if (null != cleaner) {
+					Method cleanMethod = cleaner.getClass().getMethod("clean");
+					cleanMethod.setAccessible(true);
+					cleanMethod.invoke(cleaner);
+				}
+			} catch (Exception e) { // NOPMD //NOCHK
+				// not possible on this JVM, garbage collection releases the memory
+			}
+		}
+	}
+}
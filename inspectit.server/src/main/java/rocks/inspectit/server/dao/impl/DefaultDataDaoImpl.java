@@ -1,12 +1,14 @@
 package rocks.inspectit.server.dao.impl;
 
 import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.Resource;
 import javax.persistence.EntityManager;
@@ -22,10 +24,10 @@ import org.apache.commons.collections.CollectionUtils;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
-import org.springframework.transaction.annotation.Transactional;
 
 import rocks.inspectit.server.dao.DefaultDataDao;
 import rocks.inspectit.server.processor.AbstractCmrDataProcessor;
+import rocks.inspectit.server.processor.CmrDataPersistingStage;
 import rocks.inspectit.shared.all.communication.DefaultData;
 import rocks.inspectit.shared.all.communication.MethodSensorData;
 import rocks.inspectit.shared.all.communication.data.HttpInfo;
@@ -57,6 +59,12 @@ public class DefaultDataDaoImpl implements DefaultDataDao {
 	// resource must be specified, otherwise all processor all plugged here
 	private List<AbstractCmrDataProcessor> cmrDataProcessors;
 
+	/**
+	 * Processors that can process the data of the class, in the order of the
+	 * {@link #cmrDataProcessors}.
+	 */
+	private final ConcurrentHashMap<Class<?>, List<AbstractCmrDataProcessor>> processorRoutes = new ConcurrentHashMap<>();
+
 	/**
 	 * Entity manager.
 	 */
@@ -66,20 +74,46 @@ public class DefaultDataDaoImpl implements DefaultDataDao {
 	/**
 	 * {@inheritDoc}
 	 * <p>
-	 * We must mark this as transactional cause it's running outside our services.
+	 * Every object is passed only to the processors that can process its class. The processing runs
+	 * without a transaction, the processors needing one delegate to the
+	 * {@link CmrDataPersistingStage}.
 	 */
 	@Override
-	@Transactional
 	public void saveAll(List<? extends DefaultData> defaultDataCollection) {
 		try {
-			for (AbstractCmrDataProcessor processor : cmrDataProcessors) {
-				processor.process(defaultDataCollection, entityManager);
+			for (DefaultData defaultData : defaultDataCollection) {
+				if (null != defaultData) {
+					for (AbstractCmrDataProcessor processor : getProcessors(defaultData.getClass())) {
+						processor.process(defaultData, entityManager);
+					}
+				}
 			}
 		} catch (Exception e) {
 			log.error("Error occurred trying to process the CMR data processors on the incoming data.", e);
 		}
 	}
 
+	/**
+	 * Returns the processors that can process the data of the given class.
+	 *
+	 * @param dataClass
+	 *            Concrete class of the data.
+	 * @return Processors in the order of the {@link #cmrDataProcessors}.
+	 */
+	private List<AbstractCmrDataProcessor> getProcessors(Class<? extends DefaultData> dataClass) {
+		List<AbstractCmrDataProcessor> processors = processorRoutes.get(dataClass);
+		if (null == processors) {
+			processors = new ArrayList<>();
+			for (AbstractCmrDataProcessor processor : cmrDataProcessors) {
+				if (processor.canProcessType(dataClass)) {
+					processors.add(processor);
+				}
+			}
+			processorRoutes.putIfAbsent(dataClass, processors);
+		}
+		return processors;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
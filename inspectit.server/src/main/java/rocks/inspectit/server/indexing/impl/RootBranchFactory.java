@@ -4,8 +4,12 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 
 import org.springframework.beans.factory.FactoryBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import rocks.inspectit.server.cache.impl.BufferSegmentTracker;
+import rocks.inspectit.server.cache.impl.OffHeapElementStore;
 import rocks.inspectit.server.indexing.impl.RootBranchFactory.RootBranch;
 import rocks.inspectit.shared.all.communication.DefaultData;
 import rocks.inspectit.shared.cs.indexing.buffer.IBufferBranchIndexer;
@@ -27,12 +31,37 @@ import rocks.inspectit.shared.cs.indexing.indexer.impl.TimestampIndexer;
 @Component
 public class RootBranchFactory implements FactoryBean<RootBranch<DefaultData>> {
 
+	/**
+	 * If off-heap buffer is used. In that case leafs keep only the locations of the elements in the
+	 * {@link #elementStore}.
+	 */
+	@Value("${buffer.offHeap}")
+	boolean offHeap;
+
+	/**
+	 * Store of the off-heap buffer.
+	 */
+	@Autowired
+	OffHeapElementStore<DefaultData> elementStore;
+
+	/**
+	 * Tracker of the heap buffer segments. Used to partition the leafs by the buffer segment if
+	 * off-heap buffer is not used.
+	 */
+	@Autowired
+	BufferSegmentTracker<DefaultData> segmentTracker;
+
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
 	public RootBranch<DefaultData> getObject() throws Exception {
-		BufferBranchIndexer<DefaultData> timestampIndexer = new BufferBranchIndexer<>(new TimestampIndexer<>());
+		BufferBranchIndexer<DefaultData> timestampIndexer;
+		if (offHeap) {
+			timestampIndexer = new BufferBranchIndexer<>(new TimestampIndexer<>(), null, elementStore);
+		} else {
+			timestampIndexer = new BufferBranchIndexer<>(new TimestampIndexer<>(), null, segmentTracker);
+		}
 		BufferBranchIndexer<DefaultData> objectTypeIndexer = new BufferBranchIndexer<>(new ObjectTypeIndexer<>(), timestampIndexer);
 		BufferBranchIndexer<DefaultData> platformIndexer = new BufferBranchIndexer<>(new PlatformIdentIndexer<>(), objectTypeIndexer);
 		return new RootBranch<>(platformIndexer);
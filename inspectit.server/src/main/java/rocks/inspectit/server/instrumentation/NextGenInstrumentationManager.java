@@ -2,6 +2,7 @@ package rocks.inspectit.server.instrumentation;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -9,16 +10,22 @@ import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 
+import javax.annotation.PreDestroy;
+
 import org.slf4j.Logger;
 import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.ApplicationListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import rocks.inspectit.server.event.AgentDeletedEvent;
 import rocks.inspectit.server.instrumentation.classcache.ClassCache;
 import rocks.inspectit.server.instrumentation.classcache.ClassCacheModificationException;
+import rocks.inspectit.server.instrumentation.classcache.ClassCacheSnapshot;
+import rocks.inspectit.server.instrumentation.classcache.ClassCacheSnapshotManager;
+import rocks.inspectit.server.instrumentation.classcache.SharedTypeStore;
 import rocks.inspectit.server.instrumentation.config.AgentCacheEntry;
 import rocks.inspectit.server.instrumentation.config.ConfigurationHolder;
 import rocks.inspectit.server.instrumentation.config.ConfigurationResolver;
@@ -44,6 +51,11 @@ import rocks.inspectit.shared.cs.cmr.service.IRegistrationService;
 @Component
 public class NextGenInstrumentationManager implements ApplicationListener<AgentDeletedEvent> {
 
+	/**
+	 * Delay in milliseconds between writing the class cache snapshots.
+	 */
+	private static final long SNAPSHOT_DELAY = 300000L;
+
 	/**
 	 * Logger for the class.
 	 */
@@ -74,6 +86,18 @@ public class NextGenInstrumentationManager implements ApplicationListener<AgentD
 	@Autowired
 	private ConfigurationResolver configurationResolver;
 
+	/**
+	 * Store of the types shared by all agents.
+	 */
+	@Autowired
+	private SharedTypeStore sharedTypeStore;
+
+	/**
+	 * Manager for the class cache snapshots.
+	 */
+	@Autowired
+	private ClassCacheSnapshotManager classCacheSnapshotManager;
+
 	/**
 	 * Executor for dealing with configuration updates.
 	 */
@@ -116,10 +140,64 @@ public class NextGenInstrumentationManager implements ApplicationListener<AgentD
 		// else kick the configuration creator update
 		configurationHolder.update(environment, id);
 
+		// if the class cache is empty (after CMR restart) try to restore it from the snapshot
+		if (restoreClassCache(id, environment, classCache, configurationHolder)) {
+			AgentConfig agentConfiguration = configurationHolder.getAgentConfiguration();
+			Map<Collection<String>, InstrumentationDefinition> initial = classCache.getInstrumentationService().getInstrumentationResultsWithHashes();
+			agentConfiguration.setInitialInstrumentationResults(initial);
+			agentConfiguration.setClassCacheExistsOnCmr(true);
+			return agentConfiguration;
+		}
+
 		// return configuration
 		return configurationHolder.getAgentConfiguration();
 	}
 
+	/**
+	 * Restores the empty class cache of the agent from the snapshot if the snapshot was created
+	 * with the same environment revision the agent is registering with. The instrumentation points
+	 * are newly added to the restored types using the current configuration.
+	 *
+	 * @param platformIdent
+	 *            Id of the agent.
+	 * @param environment
+	 *            Environment the agent is registering with.
+	 * @param classCache
+	 *            Class cache of the agent.
+	 * @param configurationHolder
+	 *            Updated configuration holder of the agent.
+	 * @return <code>true</code> if class cache was restored, <code>false</code> otherwise.
+	 */
+	private boolean restoreClassCache(long platformIdent, Environment environment, ClassCache classCache, ConfigurationHolder configurationHolder) {
+		if (null == environment) {
+			return false;
+		}
+
+		ClassCacheSnapshot snapshot = classCacheSnapshotManager.read(platformIdent);
+		if ((null == snapshot) || !Objects.equals(snapshot.getEnvironmentId(), environment.getId()) || (snapshot.getEnvironmentRevision() != environment.getRevision())) {
+			return false;
+		}
+
+		if (!classCache.getLookupService().findAll().isEmpty()) {
+			return false;
+		}
+
+		for (Type type : snapshot.getTypes()) {
+			try {
+				sharedTypeStore.add(type);
+				classCache.getModificationService().merge(type);
+			} catch (ClassCacheModificationException e) {
+				log.warn("Type " + type.getFQN() + " from the class cache snapshot can not be restored.", e);
+			}
+		}
+		classCache.getInstrumentationService().addInstrumentationPoints(configurationHolder.getAgentConfiguration(), configurationHolder.getInstrumentationAppliers());
+
+		if (log.isInfoEnabled()) {
+			log.info("Class cache of the agent with id " + platformIdent + " restored from the snapshot with " + snapshot.getTypes().size() + " types.");
+		}
+		return true;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -141,6 +219,8 @@ public class NextGenInstrumentationManager implements ApplicationListener<AgentD
 		// if does not exists, parse, merge & configure instrumentation points
 		if (null == type) {
 			try {
+				// share the content with the types sent by other agents
+				sharedTypeStore.add(sentType);
 				classCache.getModificationService().merge(sentType);
 
 				// get real object after merging
@@ -151,6 +231,22 @@ public class NextGenInstrumentationManager implements ApplicationListener<AgentD
 			}
 		}
 
+		return getInstrumentationResult(agentCacheEntry, type);
+	}
+
+	/**
+	 * Returns the instrumentation result for the type that is already in the class cache of the
+	 * agent.
+	 *
+	 * @param agentCacheEntry
+	 *            Agent cache entry.
+	 * @param type
+	 *            Type from the class cache of the agent.
+	 * @return Instrumentation definition or <code>null</code> if nothing should be instrumented.
+	 */
+	private InstrumentationDefinition getInstrumentationResult(AgentCacheEntry agentCacheEntry, ImmutableType type) {
+		ClassCache classCache = agentCacheEntry.getClassCache();
+
 		// no need to do anything with types that are not classes
 		// just return
 		if (!type.isClass()) {
@@ -169,6 +265,75 @@ public class NextGenInstrumentationManager implements ApplicationListener<AgentD
 		return classCache.getInstrumentationService().addAndGetInstrumentationResult(classType, configurationHolder.getAgentConfiguration(), configurationHolder.getInstrumentationAppliers());
 	}
 
+	/**
+	 * Analyzes all given types, so that the agent needs only one round trip for a class and all of
+	 * its depending types, or for the classes of many concurrently loading threads. Types are
+	 * analyzed in the iteration order of the given map.
+	 *
+	 * @param platformIdent
+	 *            Id of the agent.
+	 * @param hashAndTypes
+	 *            Map of class hash codes to the sent types.
+	 * @return Map of class hash codes to the instrumentation definitions. Types that should not be
+	 *         instrumented are not contained in the map.
+	 * @throws BusinessException
+	 *             If agent with specified id does not exist.
+	 * @see #analyze(long, String, Type)
+	 */
+	public Map<String, InstrumentationDefinition> analyzeAll(long platformIdent, Map<String, Type> hashAndTypes) throws BusinessException {
+		Map<String, InstrumentationDefinition> instrumentationDefinitions = new HashMap<>();
+		for (Entry<String, Type> entry : hashAndTypes.entrySet()) {
+			InstrumentationDefinition instrumentationDefinition = analyze(platformIdent, entry.getKey(), entry.getValue());
+			if (null != instrumentationDefinition) {
+				instrumentationDefinitions.put(entry.getKey(), instrumentationDefinition);
+			}
+		}
+		return instrumentationDefinitions;
+	}
+
+	/**
+	 * Returns the instrumentation results for the types already known to the CMR, without the need
+	 * for the agent to send the types. Types not yet in the class cache of the agent, but sent by
+	 * any other agent, are merged from the {@link SharedTypeStore}.
+	 *
+	 * @param platformIdent
+	 *            Id of the agent.
+	 * @param hashes
+	 *            Class hash codes known to the agent.
+	 * @return Map of the known class hash codes to the instrumentation definitions. Known types
+	 *         that should not be instrumented are mapped to <code>null</code>.
+	 * @throws BusinessException
+	 *             If agent with specified id does not exist.
+	 */
+	public Map<String, InstrumentationDefinition> analyzeKnown(long platformIdent, Collection<String> hashes) throws BusinessException {
+		AgentCacheEntry agentCacheEntry = agentCacheMap.get(Long.valueOf(platformIdent));
+		if (null == agentCacheEntry) {
+			throw new BusinessException("Analyzing known classes for the agent with id=" + platformIdent, AgentManagementErrorCodeEnum.AGENT_DOES_NOT_EXIST);
+		}
+
+		ClassCache classCache = agentCacheEntry.getClassCache();
+		Map<String, InstrumentationDefinition> instrumentationDefinitions = new HashMap<>();
+		for (String hash : hashes) {
+			ImmutableType type = classCache.getLookupService().findByHash(hash);
+			if (null == type) {
+				Type sharedType = sharedTypeStore.get(hash);
+				if (null != sharedType) {
+					try {
+						classCache.getModificationService().merge(sharedType);
+						type = classCache.getLookupService().findByHash(hash);
+					} catch (ClassCacheModificationException e) {
+						log.warn("Type with hash '" + hash + "' from the shared type store can not be merged.", e);
+					}
+				}
+			}
+
+			if (null != type) {
+				instrumentationDefinitions.put(hash, getInstrumentationResult(agentCacheEntry, type));
+			}
+		}
+		return instrumentationDefinitions;
+	}
+
 	/**
 	 * Generates {@link RefreshInstrumentationTimestampsJob} for the given method IDs.
 	 *
@@ -192,6 +357,21 @@ public class NextGenInstrumentationManager implements ApplicationListener<AgentD
 		});
 	}
 
+	/**
+	 * Writes the snapshots of the class caches that changed since the last snapshot. Snapshots are
+	 * also written on shutdown.
+	 */
+	@Scheduled(fixedDelay = SNAPSHOT_DELAY)
+	@PreDestroy
+	public void writeClassCacheSnapshots() {
+		for (AgentCacheEntry agentCacheEntry : agentCacheMap.values()) {
+			Environment environment = agentCacheEntry.getConfigurationHolder().getEnvironment();
+			if (null != environment) {
+				classCacheSnapshotManager.writeIfChanged(agentCacheEntry.getId(), environment, agentCacheEntry.getClassCache());
+			}
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -199,6 +379,7 @@ public class NextGenInstrumentationManager implements ApplicationListener<AgentD
 	public void onApplicationEvent(AgentDeletedEvent event) {
 		PlatformIdent platformIdent = event.getPlatformIdent();
 		agentCacheMap.remove(platformIdent.getId());
+		classCacheSnapshotManager.delete(platformIdent.getId());
 	}
 
 	/**
@@ -217,6 +398,8 @@ public class NextGenInstrumentationManager implements ApplicationListener<AgentD
 			AgentCacheEntry existing = agentCacheMap.putIfAbsent(Long.valueOf(platformIdent), agentCacheEntry);
 			if (null != existing) {
 				agentCacheEntry = existing;
+			} else {
+				classCacheSnapshotManager.watch(platformIdent, classCache);
 			}
 		}
 		return agentCacheEntry;
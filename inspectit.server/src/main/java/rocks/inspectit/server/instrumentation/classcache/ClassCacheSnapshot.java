@@ -0,0 +1,96 @@
+package rocks.inspectit.server.instrumentation.classcache;
+
+import java.util.List;
+
+import rocks.inspectit.shared.all.instrumentation.classcache.Type;
+
+/**
+ * Snapshot of the {@link ClassCache} of one agent that is persisted to disk, so that the class
+ * cache can be restored after the CMR restart. The types in the snapshot are in the same form as
+ * the agent sends them: only forward references are set and referenced types are not initialized.
+ * Thus they can be merged to the empty class cache as if they were sent by the agent.
+ */
+public class ClassCacheSnapshot {
+
+	/**
+	 * Id of the agent.
+	 */
+	private long platformIdent;
+
+	/**
+	 * Id of the environment the class cache was instrumented with.
+	 */
+	private String environmentId;
+
+	/**
+	 * Revision of the environment the class cache was instrumented with.
+	 */
+	private int environmentRevision;
+
+	/**
+	 * Types in the class cache.
+	 */
+	private List<Type> types;
+
+	/**
+	 * No-arg constructor for serialization.
+	 */
+	public ClassCacheSnapshot() {
+	}
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param platformIdent
+	 *            Id of the agent.
+	 * @param environmentId
+	 *            Id of the environment the class cache was instrumented with.
+	 * @param environmentRevision
+	 *            Revision of the environment the class cache was instrumented with.
+	 * @param types
+	 *            Types in the class cache.
+	 */
+	public ClassCacheSnapshot(long platformIdent, String environmentId, int environmentRevision, List<Type> types) {
+		this.platformIdent = platformIdent;
+		this.environmentId = environmentId;
+		this.environmentRevision = environmentRevision;
+		this.types = types;
+	}
+
+	/**
+	 * Gets {@link #platformIdent}.
+	 *
+	 * @return {@link #platformIdent}
+	 */
+	public long getPlatformIdent() {
+		return platformIdent;
+	}
+
+	/**
+	 * Gets {@link #environmentId}.
+	 *
+	 * @return {@link #environmentId}
+	 */
+	public String getEnvironmentId() {
+		return environmentId;
+	}
+
+	/**
+	 * Gets {@link #environmentRevision}.
+	 *
+	 * @return {@link #environmentRevision}
+	 */
+	public int getEnvironmentRevision() {
+		return environmentRevision;
+	}
+
+	/**
+	 * Gets {@link #types}.
+	 *
+	 * @return {@link #types}
+	 */
+	public List<Type> getTypes() {
+		return types;
+	}
+
+}
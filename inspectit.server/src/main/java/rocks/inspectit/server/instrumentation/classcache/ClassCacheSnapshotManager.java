@@ -0,0 +1,336 @@
+package rocks.inspectit.server.instrumentation.classcache;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+import rocks.inspectit.server.instrumentation.classcache.events.INodeChangeListener;
+import rocks.inspectit.server.instrumentation.classcache.events.NodeEvent;
+import rocks.inspectit.server.instrumentation.classcache.events.ReferenceEvent;
+import rocks.inspectit.shared.all.instrumentation.classcache.AbstractInterfaceType;
+import rocks.inspectit.shared.all.instrumentation.classcache.AnnotationType;
+import rocks.inspectit.shared.all.instrumentation.classcache.ClassType;
+import rocks.inspectit.shared.all.instrumentation.classcache.ImmutableType;
+import rocks.inspectit.shared.all.instrumentation.classcache.InterfaceType;
+import rocks.inspectit.shared.all.instrumentation.classcache.MethodType;
+import rocks.inspectit.shared.all.instrumentation.classcache.Type;
+import rocks.inspectit.shared.all.instrumentation.classcache.TypeWithMethods;
+import rocks.inspectit.shared.all.spring.logger.Log;
+import rocks.inspectit.shared.all.storage.serializer.ISerializer;
+import rocks.inspectit.shared.all.storage.serializer.SerializationException;
+import rocks.inspectit.shared.all.storage.serializer.provider.SerializationManagerProvider;
+import rocks.inspectit.shared.cs.ci.Environment;
+
+/**
+ * Writes and reads the {@link ClassCacheSnapshot}s of the agents. Snapshots are kept as compressed
+ * binary files in the snapshot folder, one file per agent. A snapshot is only written if the class
+ * cache changed since the last snapshot.
+ */
+@Component
+public class ClassCacheSnapshotManager {
+
+	/**
+	 * Extension of the snapshot files.
+	 */
+	private static final String SNAPSHOT_FILE_EXTENSION = ".snapshot";
+
+	/**
+	 * Log for the class.
+	 */
+	@Log
+	Logger log;
+
+	/**
+	 * Serialization manager provider.
+	 */
+	@Autowired
+	SerializationManagerProvider serializationManagerProvider;
+
+	/**
+	 * Folder where snapshots are saved.
+	 */
+	@Value("${cmr.classCacheSnapshotFolder}")
+	String snapshotFolder;
+
+	/**
+	 * Change counters of the watched class caches.
+	 */
+	private final ConcurrentHashMap<Long, ChangeCounter> changeCounters = new ConcurrentHashMap<>();
+
+	/**
+	 * Starts watching the class cache of the agent for changes. Only class caches being watched
+	 * are written to the snapshots.
+	 *
+	 * @param platformIdent
+	 *            Id of the agent.
+	 * @param classCache
+	 *            Class cache of the agent.
+	 */
+	public void watch(long platformIdent, ClassCache classCache) {
+		ChangeCounter changeCounter = new ChangeCounter();
+		if (null == changeCounters.putIfAbsent(platformIdent, changeCounter)) {
+			classCache.registerNodeChangeListener(changeCounter);
+		}
+	}
+
+	/**
+	 * Writes the snapshot of the class cache if the class cache changed since the last written
+	 * snapshot.
+	 *
+	 * @param platformIdent
+	 *            Id of the agent.
+	 * @param environment
+	 *            Environment the class cache is instrumented with.
+	 * @param classCache
+	 *            Class cache of the agent.
+	 */
+	public void writeIfChanged(long platformIdent, Environment environment, final ClassCache classCache) {
+		ChangeCounter changeCounter = changeCounters.get(platformIdent);
+		if (null == changeCounter) {
+			return;
+		}
+
+		long changes = changeCounter.changes.get();
+		if (changes == changeCounter.writtenChanges) {
+			return;
+		}
+
+		try {
+			List<Type> types = classCache.executeWithReadLock(new Callable<List<Type>>() {
+				@Override
+				public List<Type> call() throws Exception {
+					List<Type> types = new ArrayList<>();
+					for (ImmutableType immutableType : classCache.getLookupService().findAll()) {
+						Type type = (Type) immutableType;
+						if (type.isInitialized()) {
+							types.add(toSentForm(type));
+						}
+					}
+					return types;
+				}
+			});
+
+			write(new ClassCacheSnapshot(platformIdent, environment.getId(), environment.getRevision(), types));
+			changeCounter.writtenChanges = changes;
+		} catch (Exception e) {
+			log.warn("Class cache snapshot of the agent with id " + platformIdent + " could not be written.", e);
+		}
+	}
+
+	/**
+	 * Reads the snapshot of the agent.
+	 *
+	 * @param platformIdent
+	 *            Id of the agent.
+	 * @return {@link ClassCacheSnapshot} or <code>null</code> if snapshot does not exist or can not
+	 *         be read.
+	 */
+	public ClassCacheSnapshot read(long platformIdent) {
+		Path path = getSnapshotPath(platformIdent);
+		if (Files.notExists(path)) {
+			return null;
+		}
+
+		ISerializer serializer = serializationManagerProvider.createSerializer();
+		try (Input input = new Input(new GZIPInputStream(Files.newInputStream(path, StandardOpenOption.READ)))) {
+			Object deserialized = serializer.deserialize(input);
+			if (deserialized instanceof ClassCacheSnapshot) {
+				return (ClassCacheSnapshot) deserialized;
+			}
+		} catch (IOException | SerializationException e) {
+			log.warn("Class cache snapshot of the agent with id " + platformIdent + " could not be read.", e);
+		}
+		return null;
+	}
+
+	/**
+	 * Deletes the snapshot of the agent and stops watching its class cache.
+	 *
+	 * @param platformIdent
+	 *            Id of the agent.
+	 */
+	public void delete(long platformIdent) {
+		changeCounters.remove(platformIdent);
+		try {
+			Files.deleteIfExists(getSnapshotPath(platformIdent));
+		} catch (IOException e) {
+			log.warn("Class cache snapshot of the agent with id " + platformIdent + " could not be deleted.", e);
+		}
+	}
+
+	/**
+	 * Writes the snapshot to the temporary file and then moves it to the snapshot file, so that an
+	 * existing snapshot is never left half written.
+	 *
+	 * @param snapshot
+	 *            Snapshot to write.
+	 * @throws IOException
+	 *             If {@link IOException} occurs.
+	 * @throws SerializationException
+	 *             If serialization fails.
+	 */
+	private void write(ClassCacheSnapshot snapshot) throws IOException, SerializationException {
+		Path path = getSnapshotPath(snapshot.getPlatformIdent());
+		Path tmpPath = path.resolveSibling(path.getFileName() + ".tmp");
+		Files.createDirectories(path.getParent());
+
+		ISerializer serializer = serializationManagerProvider.createSerializer();
+		try (Output output = new Output(new GZIPOutputStream(Files.newOutputStream(tmpPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)))) {
+			serializer.serialize(snapshot, output);
+		}
+		Files.move(tmpPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Returns the path of the snapshot file of the agent.
+	 *
+	 * @param platformIdent
+	 *            Id of the agent.
+	 * @return Path of the snapshot file.
+	 */
+	private Path getSnapshotPath(long platformIdent) {
+		return Paths.get(snapshotFolder, platformIdent + SNAPSHOT_FILE_EXTENSION).toAbsolutePath();
+	}
+
+	/**
+	 * Creates the copy of the type in the form the agent sends it. Referenced types are replaced by
+	 * the not initialized types with the same FQN, back references and instrumentation points are
+	 * not copied.
+	 *
+	 * @param type
+	 *            Initialized type from the class cache or as sent by the agent.
+	 * @return Copy of the type.
+	 */
+	static Type toSentForm(Type type) {
+		Iterator<String> hashes = type.getHashes().iterator();
+		String hash = hashes.next();
+
+		Type sentType;
+		if (type instanceof ClassType) {
+			ClassType classType = (ClassType) type;
+			ClassType sentClassType = new ClassType(type.getFQN(), hash, type.getModifiers());
+			for (ClassType superClass : classType.getSuperClasses()) {
+				sentClassType.addSuperClass(new ClassType(superClass.getFQN()));
+			}
+			for (AbstractInterfaceType realizedInterface : classType.getRealizedInterfaces()) {
+				sentClassType.addInterface(toReference(realizedInterface));
+			}
+			sentType = sentClassType;
+		} else if (type instanceof InterfaceType) {
+			InterfaceType interfaceType = (InterfaceType) type;
+			InterfaceType sentInterfaceType = new InterfaceType(type.getFQN(), hash, type.getModifiers());
+			for (InterfaceType superInterface : interfaceType.getSuperInterfaces()) {
+				sentInterfaceType.addSuperInterface(new InterfaceType(superInterface.getFQN()));
+			}
+			sentType = sentInterfaceType;
+		} else {
+			sentType = new AnnotationType(type.getFQN(), hash, type.getModifiers());
+		}
+
+		while (hashes.hasNext()) {
+			sentType.addHash(hashes.next());
+		}
+
+		for (AnnotationType annotation : type.getAnnotations()) {
+			sentType.addAnnotation(new AnnotationType(annotation.getFQN()));
+		}
+
+		if (type instanceof TypeWithMethods) {
+			for (MethodType method : ((TypeWithMethods) type).getMethods()) {
+				((TypeWithMethods) sentType).addMethod(toSentForm(method));
+			}
+		}
+
+		return sentType;
+	}
+
+	/**
+	 * Creates the copy of the method in the form the agent sends it.
+	 *
+	 * @param method
+	 *            Method in the class cache.
+	 * @return Copy of the method.
+	 */
+	private static MethodType toSentForm(MethodType method) {
+		MethodType sentMethod = new MethodType();
+		sentMethod.setName(method.getName());
+		sentMethod.setModifiers(method.getModifiers());
+		sentMethod.setReturnType(method.getReturnType());
+		if (!method.getParameters().isEmpty()) {
+			sentMethod.setParameters(new ArrayList<>(method.getParameters()));
+		}
+		for (ClassType exception : method.getExceptions()) {
+			sentMethod.addException(new ClassType(exception.getFQN()));
+		}
+		for (AnnotationType annotation : method.getAnnotations()) {
+			sentMethod.addAnnotation(new AnnotationType(annotation.getFQN()));
+		}
+		return sentMethod;
+	}
+
+	/**
+	 * Creates the not initialized reference to the interface or annotation.
+	 *
+	 * @param type
+	 *            Referenced type.
+	 * @return Not initialized type of the same kind and FQN.
+	 */
+	private static AbstractInterfaceType toReference(AbstractInterfaceType type) {
+		if (type instanceof AnnotationType) {
+			return new AnnotationType(type.getFQN());
+		} else {
+			return new InterfaceType(type.getFQN());
+		}
+	}
+
+	/**
+	 * Counts the changes of one class cache.
+	 */
+	private static class ChangeCounter implements INodeChangeListener {
+
+		/**
+		 * Amount of changes.
+		 */
+		private final AtomicLong changes = new AtomicLong();
+
+		/**
+		 * Amount of changes when the last snapshot was written.
+		 */
+		private volatile long writtenChanges;
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void informNodeChange(NodeEvent event) {
+			changes.incrementAndGet();
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void informReferenceChange(ReferenceEvent event) {
+			changes.incrementAndGet();
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package rocks.inspectit.server.instrumentation.classcache;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import rocks.inspectit.shared.all.instrumentation.classcache.Type;
+
+/**
+ * CMR wide store of the types sent by all agents, keyed by the class hash. A hash identifies the
+ * byte code of a class, thus the type content for a hash is the same for every agent and is kept
+ * here only once, in the form the agent sends it and with the content shared through the
+ * {@link TypeContentPool}.
+ * <p>
+ * The class cache of each agent is the overlay on top of this store. It holds the agent's own type
+ * graph with the agent specific instrumentation points, as these can not be shared. A hash known
+ * to this store does not have to be sent by the agent again: the type for the overlay is created
+ * from the stored one (see {@link #get(String)}), so the agent does not need to parse and send it
+ * and the CMR does not need to receive and pool it.
+ * <p>
+ * Stored types are never merged to any class cache, thus they are never changed after being
+ * stored. The store grows with the distinct class hashes, not with the amount of agents.
+ * <p>
+ * This class is thread safe.
+ */
+@Component
+public class SharedTypeStore {
+
+	/**
+	 * Pool for the type content.
+	 */
+	@Autowired
+	TypeContentPool typeContentPool;
+
+	/**
+	 * Stored types, keyed by the class hash.
+	 */
+	private final ConcurrentHashMap<String, Type> types = new ConcurrentHashMap<>();
+
+	/**
+	 * Pools the content of the given type and stores a copy of it for all its hashes that are not
+	 * yet known. Must be called before the given type is merged to the class cache of an agent.
+	 *
+	 * @param sentType
+	 *            Type as sent by the agent.
+	 */
+	public void add(Type sentType) {
+		typeContentPool.pool(sentType);
+
+		Type storedType = null;
+		for (String hash : sentType.getHashes()) {
+			if (!types.containsKey(hash)) {
+				if (null == storedType) {
+					storedType = ClassCacheSnapshotManager.toSentForm(sentType);
+					typeContentPool.pool(storedType);
+				}
+				types.putIfAbsent(hash, storedType);
+			}
+		}
+	}
+
+	/**
+	 * Returns if the type with the given hash is stored.
+	 *
+	 * @param hash
+	 *            Class hash.
+	 * @return Returns if the type with the given hash is stored.
+	 */
+	public boolean contains(String hash) {
+		return types.containsKey(hash);
+	}
+
+	/**
+	 * Returns the new copy of the stored type with the given hash, ready to be merged to the class
+	 * cache of an agent.
+	 *
+	 * @param hash
+	 *            Class hash.
+	 * @return Copy of the stored type in the sent form with the pooled content or
+	 *         <code>null</code> if no type with the given hash is stored.
+	 */
+	public Type get(String hash) {
+		Type storedType = types.get(hash);
+		if (null == storedType) {
+			return null;
+		}
+
+		Type type = ClassCacheSnapshotManager.toSentForm(storedType);
+		typeContentPool.pool(type);
+		return type;
+	}
+
+	/**
+	 * Returns amount of stored hashes.
+	 *
+	 * @return Returns amount of stored hashes.
+	 */
+	public int getHashCount() {
+		return types.size();
+	}
+}
@@ -0,0 +1,127 @@
+package rocks.inspectit.server.instrumentation.classcache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Component;
+
+import rocks.inspectit.shared.all.instrumentation.classcache.MethodType;
+import rocks.inspectit.shared.all.instrumentation.classcache.Type;
+import rocks.inspectit.shared.all.instrumentation.classcache.TypeWithMethods;
+
+/**
+ * Pool of the type content shared by the class caches of all agents. Every agent sends its own
+ * copy of the types it loads, thus agents running the same application would each hold the same
+ * method names, return types and parameter lists. Types are passed through the pool before they
+ * are merged to the class cache of an agent, so that equal content is kept only once and memory
+ * grows with the distinct code and not with the amount of agents.
+ * <p>
+ * The type objects merged to the class cache are owned by the class cache of each agent, as the
+ * instrumentation points that are bound to them are agent specific. The types in the sent form are
+ * shared by the {@link SharedTypeStore}.
+ * <p>
+ * This class is thread safe.
+ */
+@Component
+public class TypeContentPool {
+
+	/**
+	 * Pooled strings.
+	 */
+	private final ConcurrentHashMap<String, String> strings = new ConcurrentHashMap<>();
+
+	/**
+	 * Pooled parameter lists.
+	 */
+	private final ConcurrentHashMap<List<String>, List<String>> parameterLists = new ConcurrentHashMap<>();
+
+	/**
+	 * Replaces the content of the methods of the given type with the pooled one. Must be called
+	 * before the type is merged to the class cache, as types in the class cache can be read by
+	 * multiple threads.
+	 *
+	 * @param type
+	 *            Type as sent by the agent.
+	 */
+	public void pool(Type type) {
+		if (!(type instanceof TypeWithMethods)) {
+			return;
+		}
+
+		for (MethodType methodType : ((TypeWithMethods) type).getMethods()) {
+			methodType.setName(pool(methodType.getName()));
+			methodType.setReturnType(pool(methodType.getReturnType()));
+			List<String> parameters = methodType.getParameters();
+			if (!parameters.isEmpty()) {
+				methodType.setParameters(pool(parameters));
+			}
+		}
+	}
+
+	/**
+	 * Returns the pooled instance of the given string.
+	 *
+	 * @param string
+	 *            String to pool, can be <code>null</code>.
+	 * @return Pooled string equal to the given one or <code>null</code> if given string is
+	 *         <code>null</code>.
+	 */
+	String pool(String string) {
+		if (null == string) {
+			return null;
+		}
+
+		String existing = strings.putIfAbsent(string, string);
+		if (null != existing) {
+			return existing;
+		}
+		return string;
+	}
+
+	/**
+	 * Returns the pooled instance of the given parameter list. The pooled list is not modifiable
+	 * and contains pooled strings.
+	 *
+	 * @param parameters
+	 *            Parameter list to pool.
+	 * @return Pooled list equal to the given one.
+	 */
+	List<String> pool(List<String> parameters) {
+		List<String> existing = parameterLists.get(parameters);
+		if (null != existing) {
+			return existing;
+		}
+
+		List<String> pooled = new ArrayList<>(parameters.size());
+		for (String parameter : parameters) {
+			pooled.add(pool(parameter));
+		}
+		pooled = Collections.unmodifiableList(pooled);
+
+		existing = parameterLists.putIfAbsent(pooled, pooled);
+		if (null != existing) {
+			return existing;
+		}
+		return pooled;
+	}
+
+	/**
+	 * Returns amount of pooled strings.
+	 *
+	 * @return Returns amount of pooled strings.
+	 */
+	public int getStringCount() {
+		return strings.size();
+	}
+
+	/**
+	 * Returns amount of pooled parameter lists.
+	 *
+	 * @return Returns amount of pooled parameter lists.
+	 */
+	public int getParameterListCount() {
+		return parameterLists.size();
+	}
+}
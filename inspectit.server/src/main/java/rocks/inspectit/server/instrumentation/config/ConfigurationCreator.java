@@ -107,6 +107,9 @@ public class ConfigurationCreator {
 			agentConfiguration.setExcludeClassesPatterns(Collections.<IMatchPattern> emptyList());
 		}
 
+		// data compression
+		agentConfiguration.setDataCompression(environment.isDataCompression());
+
 		// set configuration info
 		agentConfiguration.setConfigurationInfo(configurationResolver.getConfigurationInfo(environment));
 
@@ -222,6 +222,7 @@ public class ConfigurationResolver {
 		// some options
 		stringBuilder.append("Options:\n"); // NOPMD
 		stringBuilder.append("|-class loading delegation: " + environment.isClassLoadingDelegation() + "\n"); // NOPMD
+		stringBuilder.append("|-data compression: " + environment.isDataCompression() + "\n"); // NOPMD
 		stringBuilder.append("|-enhanced exception sensor: " + environment.getExceptionSensorConfig().isEnhanced()); // NOPMD
 
 		return stringBuilder.toString();
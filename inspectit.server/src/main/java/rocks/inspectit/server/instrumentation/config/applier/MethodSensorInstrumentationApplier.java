@@ -1,5 +1,9 @@
 package rocks.inspectit.server.instrumentation.config.applier;
 
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
 import rocks.inspectit.shared.all.instrumentation.classcache.ClassType;
 import rocks.inspectit.shared.all.instrumentation.classcache.MethodType;
 import rocks.inspectit.shared.all.instrumentation.config.impl.AgentConfig;
@@ -9,6 +13,8 @@ import rocks.inspectit.shared.cs.ci.Environment;
 import rocks.inspectit.shared.cs.ci.assignment.AbstractClassSensorAssignment;
 import rocks.inspectit.shared.cs.ci.assignment.impl.MethodSensorAssignment;
 import rocks.inspectit.shared.cs.ci.sensor.method.IMethodSensorConfig;
+import rocks.inspectit.shared.cs.ci.sensor.method.impl.InvocationSequenceSensorConfig;
+import rocks.inspectit.shared.cs.ci.sensor.method.impl.TimerSensorConfig;
 import rocks.inspectit.shared.cs.cmr.service.IRegistrationService;
 
 /**
@@ -19,6 +25,12 @@ import rocks.inspectit.shared.cs.cmr.service.IRegistrationService;
  */
 public class MethodSensorInstrumentationApplier extends AbstractSensorInstrumentationApplier {
 
+	/**
+	 * Sensor configurations which sensors need only the method id to be dispatched, thus not the
+	 * parameters, the object or the return value.
+	 */
+	private static final Set<Class<? extends IMethodSensorConfig>> LEAN_DISPATCH_SENSORS = new HashSet<>(Arrays.asList(TimerSensorConfig.class, InvocationSequenceSensorConfig.class));
+
 	/**
 	 * Method sensor assignment to work with.
 	 */
@@ -69,30 +81,20 @@ public class MethodSensorInstrumentationApplier extends AbstractSensorInstrument
 	@Override
 	protected void applyAssignment(AgentConfig agentConfiguration, SensorInstrumentationPoint registeredSensorConfig) {
 		// first deal with sensor id
-		MethodSensorTypeConfig methodSensorTypeConfig = getSensorTypeConfigFromConfiguration(agentConfiguration, environment, methodSensorAssignment);
+		IMethodSensorConfig methodSensorConfig = environment.getMethodSensorTypeConfig(methodSensorAssignment.getSensorConfigClass());
+		MethodSensorTypeConfig methodSensorTypeConfig = agentConfiguration.getMethodSensorTypeConfig(methodSensorConfig.getClassName());
 		long sensorId = methodSensorTypeConfig.getId();
 
 		// set to rsc
 		registeredSensorConfig.addSensorId(sensorId, methodSensorTypeConfig.getPriority());
 
+		// only timer and invocation sensor can work without the method arguments
+		if (!LEAN_DISPATCH_SENSORS.contains(methodSensorConfig.getClass())) {
+			registeredSensorConfig.setArgumentsNeeded(true);
+		}
+
 		// add all settings
 		registeredSensorConfig.addSettings(methodSensorAssignment.getSettings());
 	}
 
-	/**
-	 * Finds the proper sensor id from the agent configuration and the environment used for the
-	 * {@link MethodSensorAssignment}.
-	 *
-	 * @param agentConfiguration
-	 *            {@link AgentConfig}
-	 * @param environment
-	 *            {@link Environment}
-	 * @param assignment
-	 *            {@link MethodSensorAssignment}
-	 * @return {@link MethodSensorTypeConfig} for the given assignment.
-	 */
-	private MethodSensorTypeConfig getSensorTypeConfigFromConfiguration(AgentConfig agentConfiguration, Environment environment, MethodSensorAssignment assignment) {
-		IMethodSensorConfig methodSensorConfig = environment.getMethodSensorTypeConfig(assignment.getSensorConfigClass());
-		return agentConfiguration.getMethodSensorTypeConfig(methodSensorConfig.getClassName());
-	}
 }
@@ -65,5 +65,10 @@ public class TimerMethodSensorInstrumentationApplier extends MethodSensorInstrum
 				registeredSensorConfig.addPropertyAccessor(contextCapture.getPropertyPathStart());
 			}
 		}
+
+		// inlined timer does not support charting, the rest is checked by the instrumentation point
+		if (timerAssignment.isInlined() && !timerAssignment.isCharting()) {
+			registeredSensorConfig.setInlinedTimer(true);
+		}
 	}
 }
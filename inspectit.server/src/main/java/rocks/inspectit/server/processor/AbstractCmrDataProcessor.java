@@ -4,6 +4,8 @@ import java.util.Collection;
 
 import javax.persistence.EntityManager;
 
+import org.springframework.beans.factory.annotation.Autowired;
+
 import rocks.inspectit.shared.all.communication.DefaultData;
 import rocks.inspectit.shared.cs.storage.processor.AbstractDataProcessor;
 
@@ -15,6 +17,13 @@ import rocks.inspectit.shared.cs.storage.processor.AbstractDataProcessor;
  */
 public abstract class AbstractCmrDataProcessor {
 
+	/**
+	 * Stage that processes the data needing a transaction. If not set, such data is processed
+	 * directly with the given {@link EntityManager}.
+	 */
+	@Autowired(required = false)
+	private CmrDataPersistingStage persistingStage;
+
 	/**
 	 * Processes many {@link DefaultData} objects.
 	 *
@@ -32,7 +41,8 @@ public abstract class AbstractCmrDataProcessor {
 	/**
 	 * Processes one {@link DefaultData} object. This method will check is
 	 * {@link #canBeProcessed(DefaultData)} is true, and then delegate the processing to the
-	 * {@link #processData(DefaultData)} method.
+	 * {@link #processData(DefaultData)} method. If the processing of the data needs a transaction,
+	 * it is delegated to the {@link CmrDataPersistingStage} instead.
 	 *
 	 * @param defaultData
 	 *            Default data object.
@@ -41,7 +51,11 @@ public abstract class AbstractCmrDataProcessor {
 	 */
 	public void process(DefaultData defaultData, EntityManager entityManager) {
 		if (canBeProcessed(defaultData)) {
-			processData(defaultData, entityManager);
+			if ((null != persistingStage) && isTransactional(defaultData)) {
+				persistingStage.submit(this, defaultData);
+			} else {
+				processData(defaultData, entityManager);
+			}
 		}
 	}
 
@@ -64,4 +78,42 @@ public abstract class AbstractCmrDataProcessor {
 	 * @return True if data can be processed, false otherwise.
 	 */
 	public abstract boolean canBeProcessed(DefaultData defaultData);
+
+	/**
+	 * Returns if the objects of the given class can be processed by this processor at all. Used for
+	 * routing the data to the processors once per class, thus the sub-classes that process only
+	 * certain data types should override this method. Note that
+	 * {@link #canBeProcessed(DefaultData)} is still checked for every object.
+	 *
+	 * @param dataClass
+	 *            Concrete class of the data.
+	 * @return True if objects of the class can be processed, false otherwise.
+	 */
+	public boolean canProcessType(Class<? extends DefaultData> dataClass) {
+		return true;
+	}
+
+	/**
+	 * Returns if processing of the given {@link DefaultData} object needs a transaction or must
+	 * follow the processing of such data. Such data is processed in the
+	 * {@link CmrDataPersistingStage} in the order of submitting, all other data is processed
+	 * directly without transaction. Default implementation returns <code>false</code>.
+	 *
+	 * @param defaultData
+	 *            Default data object.
+	 * @return True if the processing needs a transaction.
+	 */
+	protected boolean isTransactional(DefaultData defaultData) {
+		return false;
+	}
+
+	/**
+	 * Sets {@link #persistingStage}.
+	 *
+	 * @param persistingStage
+	 *            New value for {@link #persistingStage}
+	 */
+	public void setPersistingStage(CmrDataPersistingStage persistingStage) {
+		this.persistingStage = persistingStage;
+	}
 }
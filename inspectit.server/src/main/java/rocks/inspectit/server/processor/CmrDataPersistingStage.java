@@ -0,0 +1,226 @@
+package rocks.inspectit.server.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.spring.logger.Log;
+
+/**
+ * Stage of the CMR data processing that processes the data needing a transaction. The data is
+ * submitted by the {@link AbstractCmrDataProcessor}s and processed on the own executor in batches,
+ * each batch in a short transaction. Thus the threads processing the incoming agent data are never
+ * holding a transaction and are not bound by the database.
+ * <p>
+ * If too much data is pending, the submitting thread processes one batch itself, so that the
+ * incoming data is slowed down to the pace of the database. Batches are processed one at a time in
+ * the order of submitting, thus data submitted after the data of another processor is also
+ * processed after it.
+ */
+@Component
+public class CmrDataPersistingStage {
+
+	/**
+	 * Max amount of data processed in one transaction.
+	 */
+	private static final int BATCH_SIZE = 500;
+
+	/**
+	 * Max amount of pending data before the submitting thread starts processing batches itself.
+	 */
+	private static final int MAX_PENDING = 50000;
+
+	/** The logger of this class. */
+	@Log
+	Logger log;
+
+	/**
+	 * Entity manager.
+	 */
+	@PersistenceContext
+	EntityManager entityManager;
+
+	/**
+	 * Executor service processing the batches.
+	 */
+	@Autowired
+	@Qualifier("cmrDataPersistingExecutorService")
+	ExecutorService executorService;
+
+	/**
+	 * Transaction template to execute the batches in.
+	 */
+	private final TransactionTemplate transactionTemplate;
+
+	/**
+	 * Pending data.
+	 */
+	private final ConcurrentLinkedQueue<PendingData> queue = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * Amount of pending data.
+	 */
+	private final AtomicInteger pendingCount = new AtomicInteger();
+
+	/**
+	 * If the draining of the queue is scheduled on the executor.
+	 */
+	private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+	/**
+	 * Runnable draining the queue.
+	 */
+	private final Runnable drainRunnable = new Runnable() {
+		@Override
+		public void run() {
+			try {
+				while (processBatch()) { // NOPMD
+				}
+			} finally {
+				drainScheduled.set(false);
+			}
+			if (!queue.isEmpty()) {
+				scheduleDrain();
+			}
+		}
+	};
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param transactionManager
+	 *            {@link PlatformTransactionManager}. Autowired by Spring.
+	 */
+	@Autowired
+	public CmrDataPersistingStage(PlatformTransactionManager transactionManager) {
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+	}
+
+	/**
+	 * Submits the data to be processed by the given processor in a transaction.
+	 *
+	 * @param processor
+	 *            Processor to process data with.
+	 * @param defaultData
+	 *            Data to process.
+	 */
+	public void submit(AbstractCmrDataProcessor processor, DefaultData defaultData) {
+		queue.add(new PendingData(processor, defaultData));
+		if (pendingCount.incrementAndGet() > MAX_PENDING) {
+			processBatch();
+		} else {
+			scheduleDrain();
+		}
+	}
+
+	/**
+	 * Returns the amount of data waiting to be processed.
+	 *
+	 * @return Amount of data waiting to be processed.
+	 */
+	public int getPendingCount() {
+		return pendingCount.get();
+	}
+
+	/**
+	 * Processes all pending data. Called on shutdown, so that no submitted data is lost.
+	 */
+	@PreDestroy
+	public void flush() {
+		while (processBatch()) { // NOPMD
+		}
+	}
+
+	/**
+	 * Schedules the draining of the queue if not already scheduled.
+	 */
+	private void scheduleDrain() {
+		if (drainScheduled.compareAndSet(false, true)) {
+			executorService.execute(drainRunnable);
+		}
+	}
+
+	/**
+	 * Processes one batch of the pending data in a transaction. Synchronized so that the batches
+	 * are processed in the order of polling.
+	 *
+	 * @return <code>false</code> if there was no data to process, <code>true</code> otherwise.
+	 */
+	synchronized boolean processBatch() {
+		final List<PendingData> batch = new ArrayList<>(BATCH_SIZE);
+		PendingData pendingData = queue.poll();
+		while (null != pendingData) {
+			batch.add(pendingData);
+			if (batch.size() == BATCH_SIZE) {
+				break;
+			}
+			pendingData = queue.poll();
+		}
+
+		if (batch.isEmpty()) {
+			return false;
+		}
+		pendingCount.addAndGet(-batch.size());
+
+		try {
+			transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+				@Override
+				protected void doInTransactionWithoutResult(TransactionStatus status) {
+					for (PendingData data : batch) {
+						data.processor.processData(data.defaultData, entityManager);
+					}
+				}
+			});
+		} catch (Exception e) {
+			log.error("Error occurred trying to process the CMR data in the persisting stage.", e);
+		}
+		return true;
+	}
+
+	/**
+	 * Data waiting to be processed by the processor.
+	 */
+	private static final class PendingData {
+
+		/**
+		 * Processor.
+		 */
+		private final AbstractCmrDataProcessor processor;
+
+		/**
+		 * Data.
+		 */
+		private final DefaultData defaultData;
+
+		/**
+		 * Default constructor.
+		 *
+		 * @param processor
+		 *            Processor.
+		 * @param defaultData
+		 *            Data.
+		 */
+		PendingData(AbstractCmrDataProcessor processor, DefaultData defaultData) {
+			this.processor = processor;
+			this.defaultData = defaultData;
+		}
+	}
+
+}
@@ -44,4 +44,12 @@ public class ExceptionMessageCmrProcessor extends AbstractCmrDataProcessor {
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean canProcessType(Class<? extends DefaultData> dataClass) {
+		return ExceptionSensorData.class.isAssignableFrom(dataClass);
+	}
+
 }
@@ -67,4 +67,12 @@ public class IndexerCmrProcessor extends AbstractCmrDataProcessor {
 		this.indexingTree = indexingTree;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean canProcessType(Class<? extends DefaultData> dataClass) {
+		return InvocationAwareData.class.isAssignableFrom(dataClass);
+	}
+
 }
@@ -189,4 +189,12 @@ public class InvocationModifierCmrProcessor extends AbstractChainedCmrDataProces
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean canProcessType(Class<? extends DefaultData> dataClass) {
+		return InvocationSequenceData.class.isAssignableFrom(dataClass);
+	}
+
 }
@@ -1,7 +1,9 @@
 package rocks.inspectit.server.processor.impl;
 
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import javax.persistence.EntityManager;
 
@@ -17,9 +19,9 @@ import rocks.inspectit.shared.all.communication.DefaultData;
 public class PersistingCmrProcessor extends AbstractCmrDataProcessor {
 
 	/**
-	 * List of classes that should be saved by this simple saver.
+	 * Set of classes that should be saved by this simple saver.
 	 */
-	private List<Class<? extends DefaultData>> classes;
+	private Set<Class<? extends DefaultData>> classes;
 
 	/**
 	 * Default constructor.
@@ -28,9 +30,10 @@ public class PersistingCmrProcessor extends AbstractCmrDataProcessor {
 	 *            List of classes that should be saved by this simple saver.
 	 */
 	public PersistingCmrProcessor(List<Class<? extends DefaultData>> classes) {
-		this.classes = classes;
-		if (null == this.classes) {
-			this.classes = Collections.emptyList();
+		if (null != classes) {
+			this.classes = new HashSet<>(classes);
+		} else {
+			this.classes = Collections.emptySet();
 		}
 	}
 
@@ -54,4 +57,20 @@ public class PersistingCmrProcessor extends AbstractCmrDataProcessor {
 		return false;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean canProcessType(Class<? extends DefaultData> dataClass) {
+		return classes.contains(dataClass);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected boolean isTransactional(DefaultData defaultData) {
+		return true;
+	}
+
 }
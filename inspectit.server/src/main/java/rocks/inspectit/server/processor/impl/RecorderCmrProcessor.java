@@ -5,13 +5,15 @@ import javax.persistence.EntityManager;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import rocks.inspectit.server.processor.AbstractCmrDataProcessor;
+import rocks.inspectit.server.processor.CmrDataPersistingStage;
 import rocks.inspectit.server.storage.CmrStorageManager;
 import rocks.inspectit.shared.all.communication.DefaultData;
 import rocks.inspectit.shared.cs.storage.recording.RecordingState;
 
 /**
  * Simple {@link AbstractCmrDataProcessor} that passes data to be recorded if recording is "ON" on
- * the CMR.
+ * the CMR. The data is recorded in the {@link CmrDataPersistingStage}, thus after it has been
+ * persisted there and has its id set.
  *
  * @author Ivan Senic
  *
@@ -42,4 +44,15 @@ public class RecorderCmrProcessor extends AbstractCmrDataProcessor {
 		return null != defaultData;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Recorded data is processed in the {@link CmrDataPersistingStage}, so that it is recorded
+	 * only after the persisting of the same data.
+	 */
+	@Override
+	protected boolean isTransactional(DefaultData defaultData) {
+		return storageManager.getRecordingState() == RecordingState.ON;
+	}
+
 }
@@ -35,4 +35,12 @@ public class SqlExclusiveTimeCmrProcessor extends AbstractCmrDataProcessor {
 		return defaultData instanceof SqlStatementData;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean canProcessType(Class<? extends DefaultData> dataClass) {
+		return SqlStatementData.class.isAssignableFrom(dataClass);
+	}
+
 }
@@ -0,0 +1,59 @@
+package rocks.inspectit.server.processor.impl;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.persistence.EntityManager;
+
+import rocks.inspectit.server.processor.AbstractCmrDataProcessor;
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.communication.data.SqlStatementData;
+
+/**
+ * Processor that keeps the dictionary of the SQL-Strings by their fingerprint. The agent sends the
+ * SQL-String of a fingerprinted statement only from time to time, thus the processor sets the
+ * SQL-String from the dictionary for the {@link SqlStatementData} that arrive without one. The
+ * {@link SqlStatementData} arriving with the SQL-String get the instance from the dictionary, so
+ * that every distinct statement is kept in memory only once.
+ */
+public class SqlTextDictionaryCmrProcessor extends AbstractCmrDataProcessor {
+
+	/**
+	 * SQL-Strings by the fingerprint.
+	 */
+	private final ConcurrentHashMap<Long, String> dictionary = new ConcurrentHashMap<>();
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void processData(DefaultData defaultData, EntityManager entityManager) {
+		SqlStatementData sqlStatementData = (SqlStatementData) defaultData;
+		Long fingerprint = sqlStatementData.getSqlFingerprint();
+		String sql = sqlStatementData.getSql();
+		if (null == sql) {
+			sqlStatementData.setSql(dictionary.get(fingerprint));
+		} else {
+			String existing = dictionary.putIfAbsent(fingerprint, sql);
+			if ((null != existing) && existing.equals(sql)) {
+				sqlStatementData.setSql(existing);
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean canBeProcessed(DefaultData defaultData) {
+		return (defaultData instanceof SqlStatementData) && (0L != ((SqlStatementData) defaultData).getSqlFingerprint());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean canProcessType(Class<? extends DefaultData> dataClass) {
+		return SqlStatementData.class.isAssignableFrom(dataClass);
+	}
+
+}
@@ -152,4 +152,22 @@ public class TimerDataChartingCmrProcessor extends AbstractCmrDataProcessor {
 		serializationManager = serializationManagerProvider.createSerializer();
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean canProcessType(Class<? extends DefaultData> dataClass) {
+		return TimerData.class.isAssignableFrom(dataClass);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Only the {@link HttpTimerData} is persisted directly and needs the transaction.
+	 */
+	@Override
+	protected boolean isTransactional(DefaultData defaultData) {
+		return defaultData instanceof HttpTimerData;
+	}
+
 }
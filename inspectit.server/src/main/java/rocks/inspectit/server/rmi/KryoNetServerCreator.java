@@ -45,6 +45,12 @@ public class KryoNetServerCreator {
 	@Value("${cmr.port}")
 	private int port;
 
+	/**
+	 * Number of reactors selecting the agent connections.
+	 */
+	@Value("${cmr.kryonetReactorThreads}")
+	private int reactorThreads;
+
 	/**
 	 * Serialization manager to provide {@link Kryo} instance.
 	 */
@@ -65,6 +71,14 @@ public class KryoNetServerCreator {
 	@Qualifier("kryoNetObjectSpaceExecutorService")
 	private ExecutorService executorService;
 
+	/**
+	 * Executor service for deserializing the objects received from the agents. This will enable
+	 * that data of different agents is deserialized in parallel.
+	 */
+	@Autowired
+	@Qualifier("kryoNetDecodeExecutorService")
+	private ExecutorService decodeExecutorService;
+
 	/**
 	 * Start the kryonet server and binds it to the specified port.
 	 *
@@ -74,12 +88,12 @@ public class KryoNetServerCreator {
 	public Server createServer() {
 		IExtendedSerialization serialization = new ExtendedSerializationImpl(serializationManagerProvider);
 
-		Server server = new Server(serialization, streamProvider);
+		Server server = new Server(serialization, streamProvider, reactorThreads, decodeExecutorService);
 		server.start();
 
 		try {
 			server.bind(port);
-			log.info("|-Kryonet server successfully started and running on port " + port);
+			log.info("|-Kryonet server successfully started and running on port " + port + " with " + reactorThreads + " reactor thread(s)");
 		} catch (IOException e) {
 			throw new BeanInitializationException("Could not bind the kryonet server to the specified ports.", e);
 		}
@@ -1,5 +1,6 @@
 package rocks.inspectit.server.service;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -66,6 +67,24 @@ public class AgentService implements IAgentService {
 		return nextGenInstrumentationManager.analyze(platformIdent, hash, sentType);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@MethodLog
+	public Map<String, InstrumentationDefinition> analyzeAll(long platformIdent, Map<String, Type> hashAndTypes) throws BusinessException {
+		return nextGenInstrumentationManager.analyzeAll(platformIdent, hashAndTypes);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@MethodLog
+	public Map<String, InstrumentationDefinition> analyzeKnown(long platformIdent, Collection<String> hashes) throws BusinessException {
+		return nextGenInstrumentationManager.analyzeKnown(platformIdent, hashes);
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -43,9 +43,9 @@ public class AgentStorageService implements IAgentStorageService {
 	private static final int QUEUE_CAPACITY = 50;
 
 	/**
-	 * Amount of milliseconds after which the data is thrown away if queue is full.
+	 * Amount of milliseconds after which the data is rejected if queue is full.
 	 */
-	private static final long DATA_THROW_TIMEOUT_MILLIS = 10;
+	private static final long DATA_REJECT_TIMEOUT_MILLIS = 10;
 
 	/**
 	 * The default data DAO.
@@ -99,25 +99,31 @@ public class AgentStorageService implements IAgentStorageService {
 
 	/**
 	 * {@inheritDoc}
+	 * <p>
+	 * If the queue is full, the data is rejected and the agent is responsible to send it again. The
+	 * remaining capacity of the queue is advertised to the agent otherwise.
 	 */
 	@Override
 	@MethodLog
-	public void addDataObjects(final List<? extends DefaultData> dataObjects) {
+	public int addDataObjects(final List<? extends DefaultData> dataObjects) {
 		SoftReference<List<? extends DefaultData>> softReference = new SoftReference<List<? extends DefaultData>>(dataObjects);
 		if (!dataObjects.isEmpty()) {
 			platformIdentDateSaver.registerDataSent(dataObjects.get(0).getPlatformIdent());
 		}
 		try {
-			boolean added = dataObjectsBlockingQueue.offer(softReference, DATA_THROW_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+			boolean added = dataObjectsBlockingQueue.offer(softReference, DATA_REJECT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
 			if (!added) {
-				int droppedSize = dataObjects.size();
+				int rejectedSize = dataObjects.size();
 				if (log.isTraceEnabled()) {
-					log.trace("Data dropped on the CMR due to the high volume of incoming data from Agent(s). Dropped data objects count: " + droppedSize);
+					log.trace("Data rejected on the CMR due to the high volume of incoming data from Agent(s). Rejected data objects count: " + rejectedSize);
 				}
-				cmrManagementService.addDroppedDataCount(droppedSize);
+				cmrManagementService.addRejectedDataCount(rejectedSize);
+				return REJECTED;
 			}
+			return dataObjectsBlockingQueue.remainingCapacity();
 		} catch (InterruptedException e) {
-			return;
+			Thread.currentThread().interrupt();
+			return REJECTED;
 		}
 	}
 
@@ -9,6 +9,7 @@ import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Collection;
 import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.annotation.PostConstruct;
 
@@ -70,6 +71,11 @@ public class CmrManagementService implements ICmrManagementService {
 	 */
 	private int droppedDataCount = 0;
 
+	/**
+	 * Count of rejected data due to high volume of incoming data objects.
+	 */
+	private final AtomicLong rejectedDataCount = new AtomicLong();
+
 	/**
 	 * {@link ShutdownService}.
 	 */
@@ -152,6 +158,22 @@ public class CmrManagementService implements ICmrManagementService {
 		return droppedDataCount;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void addRejectedDataCount(int count) {
+		rejectedDataCount.addAndGet(count);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getRejectedDataCount() {
+		return rejectedDataCount.get();
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
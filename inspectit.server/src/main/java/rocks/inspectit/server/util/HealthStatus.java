@@ -16,6 +16,7 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import rocks.inspectit.server.cache.IBuffer;
+import rocks.inspectit.server.processor.CmrDataPersistingStage;
 import rocks.inspectit.server.service.AgentStorageService;
 import rocks.inspectit.server.storage.CmrStorageManager;
 import rocks.inspectit.shared.all.spring.logger.Log;
@@ -92,6 +93,12 @@ public class HealthStatus {
 	@Autowired
 	private ICmrManagementService cmrManagementService;
 
+	/**
+	 * {@link CmrDataPersistingStage} for reporting the amount of data waiting to be persisted.
+	 */
+	@Autowired
+	private CmrDataPersistingStage persistingStage;
+
 	/**
 	 * {@link WritingChannelManager} for status of IO tasks.
 	 */
@@ -440,10 +447,13 @@ public class HealthStatus {
 	}
 
 	/**
-	 * Logs the amount of dropped data on CMR.
+	 * Logs the amount of dropped and rejected data on CMR and the amount of data waiting to be
+	 * persisted.
 	 */
 	private void logDroppedData() {
 		log.info("Dropped elements due to the high load on the CMR (total count): " + cmrManagementService.getDroppedDataCount());
+		log.info("Rejected elements due to the high load on the CMR, kept by the agents (total count): " + cmrManagementService.getRejectedDataCount());
+		log.info("Elements waiting to be persisted: " + persistingStage.getPendingCount());
 	}
 
 	/**
@@ -2,7 +2,10 @@ package rocks.inspectit.server.cache.impl;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.mock;
@@ -10,6 +13,8 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 import java.util.concurrent.ExecutorService;
 
@@ -20,6 +25,7 @@ import org.slf4j.LoggerFactory;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import rocks.inspectit.server.cache.BufferSegment;
 import rocks.inspectit.server.cache.IBufferElement;
 import rocks.inspectit.server.test.AbstractTestNGLogSupport;
 import rocks.inspectit.shared.all.cmr.cache.IObjectSizes;
@@ -61,6 +67,7 @@ public class AtomicBufferTest extends AbstractTestNGLogSupport {
 		buffer.bufferProperties = bufferProperties;
 		buffer.objectSizes = objectSizes;
 		buffer.indexingTree = indexingTree;
+		buffer.segmentTracker = new BufferSegmentTracker<>();
 		buffer.log = LoggerFactory.getLogger(AtomicBuffer.class);
 		when(bufferProperties.getIndexingTreeCleaningThreads()).thenReturn(1);
 		buffer.postConstruct();
@@ -82,6 +89,95 @@ public class AtomicBufferTest extends AbstractTestNGLogSupport {
 		assertThat(element1.getNextElement(), is(equalTo(element2)));
 	}
 
+	/**
+	 * Test that elements are put into new segment once the segment is closed.
+	 */
+	@Test
+	public void insertElementsSegments() {
+		DefaultData defaultData = mock(DefaultData.class);
+		IBufferElement<DefaultData> element1 = new BufferElement<>(defaultData);
+		IBufferElement<DefaultData> element2 = new BufferElement<>(defaultData);
+		IBufferElement<DefaultData> element3 = new BufferElement<>(defaultData);
+
+		buffer.put(element1);
+		buffer.put(element2);
+		element2.getBufferSegment().close();
+		buffer.put(element3);
+
+		assertThat(element2.getBufferSegment(), is(element1.getBufferSegment()));
+		assertThat(element3.getBufferSegment(), is(not(element1.getBufferSegment())));
+		assertThat(element3.getBufferSegment().getId(), is(greaterThan(element1.getBufferSegment().getId())));
+		assertThat(element3.getBufferSegment().getFirstElement(), is(element3));
+	}
+
+	/**
+	 * Tests that eviction removes the oldest segment as a whole and marks it as not available.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void evictionOfSegment() throws Exception {
+		when(bufferProperties.getInitialBufferSize()).thenReturn(10L);
+		when(bufferProperties.getEvictionOccupancyPercentage()).thenReturn(0.1f);
+		when(bufferProperties.getEvictionFragmentSizePercentage()).thenReturn(0.3f);
+		buffer.postConstruct();
+
+		DefaultData defaultData = mock(DefaultData.class);
+		when(defaultData.getObjectSize(objectSizes)).thenReturn(1L);
+
+		// segments are closed when reaching the fragment size of 3 elements
+		List<IBufferElement<DefaultData>> elements = new ArrayList<>();
+		for (int i = 0; i < 7; i++) {
+			IBufferElement<DefaultData> bufferElement = new BufferElement<>(defaultData);
+			elements.add(bufferElement);
+			buffer.put(bufferElement);
+			buffer.analyzeNext();
+		}
+		long firstSegmentId = elements.get(0).getBufferSegment().getId();
+
+		buffer.evict();
+
+		assertThat(buffer.getEvictedElemenets(), is(3L));
+		assertThat(buffer.getCurrentSize(), is(4L));
+		assertThat(buffer.getOldestElement(), is(elements.get(3).getObject()));
+		assertThat(elements.get(2).isEvicted(), is(true));
+		assertThat(elements.get(3).isEvicted(), is(false));
+		assertThat(buffer.segmentTracker.isAvailable(firstSegmentId), is(false));
+		assertThat(buffer.segmentTracker.isAvailable(elements.get(3).getBufferSegment().getId()), is(true));
+	}
+
+	/**
+	 * Tests that the segment elements are still added to is evicted element by element.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void evictionOfCurrentSegment() throws Exception {
+		when(bufferProperties.getInitialBufferSize()).thenReturn(10L);
+		when(bufferProperties.getEvictionOccupancyPercentage()).thenReturn(0.1f);
+		when(bufferProperties.getEvictionFragmentSizePercentage()).thenReturn(0.5f);
+		buffer.postConstruct();
+
+		DefaultData defaultData = mock(DefaultData.class);
+		when(defaultData.getObjectSize(objectSizes)).thenReturn(1L);
+
+		List<IBufferElement<DefaultData>> elements = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			IBufferElement<DefaultData> bufferElement = new BufferElement<>(defaultData);
+			elements.add(bufferElement);
+			buffer.put(bufferElement);
+			buffer.analyzeNext();
+		}
+		BufferSegment<DefaultData> segment = elements.get(0).getBufferSegment();
+
+		buffer.evict();
+
+		assertThat(buffer.getEvictedElemenets(), is(4L));
+		assertThat(buffer.getCurrentSize(), is(0L));
+		assertThat(segment.isClosed(), is(true));
+		assertThat(buffer.segmentTracker.isAvailable(segment.getId()), is(false));
+	}
+
 	/**
 	 * Tests that eviction will remove right amount of elements.
 	 *
@@ -126,9 +222,10 @@ public class AtomicBufferTest extends AbstractTestNGLogSupport {
 			bufferAnalyzer.interrupt();
 		}
 
-		assertThat(buffer.getCurrentSize(), is(elements / 2));
+		// whole segment is evicted, so at least the half is evicted
+		assertThat(buffer.getEvictedElemenets(), is(greaterThanOrEqualTo(elements / 2)));
+		assertThat(buffer.getCurrentSize(), is(elements - buffer.getEvictedElemenets()));
 		assertThat(buffer.getInsertedElemenets(), is(elements));
-		assertThat(buffer.getEvictedElemenets(), is(elements / 2));
 	}
 
 	/**
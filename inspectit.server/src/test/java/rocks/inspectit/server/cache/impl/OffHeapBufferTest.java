@@ -0,0 +1,188 @@
+package rocks.inspectit.server.cache.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.ExecutorService;
+
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.slf4j.Logger;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.storage.serializer.SerializationException;
+import rocks.inspectit.shared.all.testbase.TestBase;
+import rocks.inspectit.shared.cs.indexing.buffer.IBufferTreeComponent;
+
+/**
+ * Test for the {@link OffHeapBuffer}.
+ */
+@SuppressWarnings("PMD")
+public class OffHeapBufferTest extends TestBase {
+
+	@InjectMocks
+	OffHeapBuffer<DefaultData> buffer;
+
+	@Mock
+	Logger log;
+
+	@Mock
+	BufferProperties bufferProperties;
+
+	@Mock
+	IBufferTreeComponent<DefaultData> indexingTree;
+
+	@Mock
+	OffHeapElementStore<DefaultData> elementStore;
+
+	@Mock
+	DefaultData data;
+
+	@BeforeMethod
+	public void init() throws Exception {
+		when(bufferProperties.getOffHeapSize()).thenReturn(100L);
+		when(bufferProperties.getEvictionOccupancyPercentage()).thenReturn(0.9f);
+		when(bufferProperties.getIndexingTreeCleaningThreads()).thenReturn(1);
+		buffer.postConstruct();
+	}
+
+	public class AnalyzeAndIndex extends OffHeapBufferTest {
+
+		@Test
+		public void serializedThenIndexed() throws Exception {
+			when(elementStore.write(data)).thenReturn(5L);
+			when(elementStore.isAvailable(5L)).thenReturn(true);
+
+			buffer.put(new BufferElement<>(data));
+			buffer.analyzeNext();
+			buffer.indexNext();
+
+			InOrder inOrder = inOrder(elementStore, indexingTree);
+			inOrder.verify(elementStore).write(data);
+			inOrder.verify(elementStore).startIndexing(data, 5L);
+			inOrder.verify(indexingTree).put(data);
+			inOrder.verify(elementStore).finishIndexing(data);
+			assertThat(buffer.getInsertedElemenets(), is(1L));
+			assertThat(buffer.getAnalyzedElements(), is(1L));
+			assertThat(buffer.getIndexedElements(), is(1L));
+			assertThat(buffer.getNewestElement(), is(data));
+		}
+
+		@Test
+		public void evictedBeforeIndexing() throws Exception {
+			when(elementStore.write(data)).thenReturn(5L);
+			when(elementStore.isAvailable(5L)).thenReturn(false);
+
+			buffer.put(new BufferElement<>(data));
+			buffer.analyzeNext();
+			buffer.indexNext();
+
+			verifyZeroInteractions(indexingTree);
+			assertThat(buffer.getIndexedElements(), is(0L));
+		}
+
+		@Test
+		public void serializationFailed() throws Exception {
+			doThrow(new SerializationException()).when(elementStore).write(data);
+			buffer.put(new BufferElement<>(data));
+
+			buffer.analyzeNext();
+
+			assertThat(buffer.getAnalyzedElements(), is(0L));
+		}
+	}
+
+	public class GetCurrentSize extends OffHeapBufferTest {
+
+		@Test
+		public void onlyWrittenPartOfSegmentCounted() throws Exception {
+			when(elementStore.getOccupiedBytes()).thenReturn(64L);
+			when(elementStore.getUsedBytes()).thenReturn(12L);
+
+			assertThat(buffer.getCurrentSize(), is(12L));
+			assertThat(buffer.shouldEvict(), is(false));
+		}
+	}
+
+	public class Evict extends OffHeapBufferTest {
+
+		@Test
+		public void oldestSegment() throws Exception {
+			when(elementStore.getUsedBytes()).thenReturn(95L);
+			doAnswer(new Answer<Integer>() {
+				@Override
+				public Integer answer(InvocationOnMock invocation) throws Throwable {
+					when(elementStore.getUsedBytes()).thenReturn(45L);
+					return 10;
+				}
+			}).when(elementStore).evictOldestSegment();
+
+			buffer.evict();
+
+			verify(elementStore).evictOldestSegment();
+			verify(indexingTree).cleanWithRunnable(any(ExecutorService.class));
+			assertThat(buffer.getEvictedElemenets(), is(10L));
+			assertThat(buffer.getCurrentSize(), is(45L));
+		}
+
+		@Test
+		public void emptyStore() throws Exception {
+			when(elementStore.getUsedBytes()).thenReturn(95L);
+			when(elementStore.evictOldestSegment()).thenReturn(-1);
+
+			buffer.evict();
+
+			verify(indexingTree, never()).cleanWithRunnable(any(ExecutorService.class));
+			assertThat(buffer.getEvictedElemenets(), is(0L));
+		}
+	}
+
+	public class ClearAll extends OffHeapBufferTest {
+
+		@Test
+		public void clear() throws Exception {
+			when(elementStore.write(data)).thenReturn(5L);
+			buffer.put(new BufferElement<>(data));
+			buffer.analyzeNext();
+
+			buffer.clearAll();
+
+			verify(elementStore).clearAll();
+			verify(indexingTree).clearAll();
+			verify(elementStore, never()).startIndexing(any(DefaultData.class), anyLong());
+			assertThat(buffer.getInsertedElemenets(), is(0L));
+			assertThat(buffer.getNewestElement(), is((DefaultData) null));
+		}
+	}
+
+	public class Put extends OffHeapBufferTest {
+
+		@Test
+		public void blocksWhenAnalyzeQueueFull() throws Exception {
+			for (int i = 0; i < 10000; i++) {
+				buffer.put(new BufferElement<>(data));
+			}
+
+			Thread.currentThread().interrupt();
+			buffer.put(new BufferElement<>(data));
+
+			// interrupted while waiting for the space in the queue
+			assertThat(Thread.interrupted(), is(true));
+			assertThat(buffer.getInsertedElemenets(), is(10000L));
+		}
+	}
+}
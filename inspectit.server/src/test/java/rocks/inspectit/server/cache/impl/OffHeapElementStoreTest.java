@@ -0,0 +1,234 @@
+package rocks.inspectit.server.cache.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.slf4j.Logger;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.communication.data.TimerData;
+import rocks.inspectit.shared.all.storage.serializer.ISerializer;
+import rocks.inspectit.shared.all.storage.serializer.provider.SerializationManagerProvider;
+import rocks.inspectit.shared.all.testbase.TestBase;
+import rocks.inspectit.shared.cs.indexing.buffer.ISerializedElementStore;
+
+/**
+ * Test for the {@link OffHeapElementStore}.
+ */
+@SuppressWarnings("PMD")
+public class OffHeapElementStoreTest extends TestBase {
+
+	/**
+	 * Size of the record with the element serialized by the test serializer.
+	 */
+	private static final int RECORD_SIZE = 12;
+
+	@InjectMocks
+	OffHeapElementStore<DefaultData> store;
+
+	@Mock
+	Logger log;
+
+	@Mock
+	BufferProperties bufferProperties;
+
+	@Mock
+	SerializationManagerProvider serializationManagerProvider;
+
+	@Mock
+	ISerializer serializer;
+
+	/**
+	 * Serializer writes only the id of the element, padding can be written with the platform
+	 * ident.
+	 */
+	@BeforeMethod
+	public void init() throws Exception {
+		when(serializationManagerProvider.createSerializer()).thenReturn(serializer);
+		when(bufferProperties.getOffHeapSegmentSize()).thenReturn(3L * RECORD_SIZE);
+		doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(InvocationOnMock invocation) throws Throwable {
+				DefaultData data = (DefaultData) invocation.getArguments()[0];
+				Output output = (Output) invocation.getArguments()[1];
+				output.writeLong(data.getId());
+				for (int i = 0; i < data.getPlatformIdent(); i++) {
+					output.writeByte(0);
+				}
+				return null;
+			}
+		}).when(serializer).serialize(any(), any(Output.class));
+		when(serializer.deserialize(any(Input.class))).thenAnswer(new Answer<Object>() {
+			@Override
+			public Object answer(InvocationOnMock invocation) throws Throwable {
+				Input input = (Input) invocation.getArguments()[0];
+				TimerData timerData = new TimerData();
+				timerData.setId(input.readLong());
+				return timerData;
+			}
+		});
+	}
+
+	public class Write extends OffHeapElementStoreTest {
+
+		@Test
+		public void writeAndRead() throws Exception {
+			long location1 = store.write(createData(1L, 0));
+			long location2 = store.write(createData(2L, 0));
+
+			assertThat(store.read(location1).getId(), is(1L));
+			assertThat(store.read(location2).getId(), is(2L));
+			assertThat(OffHeapElementStore.getSegmentId(location2), is(0));
+			assertThat(OffHeapElementStore.getOffset(location2), is(RECORD_SIZE));
+			assertThat(store.getSegmentCount(), is(1));
+			assertThat(store.getOccupiedBytes(), is(3L * RECORD_SIZE));
+			assertThat(store.getUsedBytes(), is(2L * RECORD_SIZE));
+		}
+
+		@Test
+		public void outputReused() throws Exception {
+			store.write(createData(1L, RECORD_SIZE));
+
+			long location = store.write(createData(2L, 0));
+
+			// second record must not contain any bytes of the first one
+			assertThat(OffHeapElementStore.getOffset(location), is(2 * RECORD_SIZE));
+			assertThat(store.read(location).getId(), is(2L));
+			assertThat(store.getUsedBytes(), is(3L * RECORD_SIZE));
+		}
+
+		@Test
+		public void newSegmentWhenFull() throws Exception {
+			for (int i = 0; i < 4; i++) {
+				store.write(createData(i, 0));
+			}
+
+			long location = store.write(createData(4L, 0));
+
+			assertThat(OffHeapElementStore.getSegmentId(location), is(1));
+			assertThat(OffHeapElementStore.getOffset(location), is(RECORD_SIZE));
+			assertThat(store.getSegmentCount(), is(2));
+			assertThat(store.getOccupiedBytes(), is(6L * RECORD_SIZE));
+			assertThat(store.getUsedBytes(), is(5L * RECORD_SIZE));
+			assertThat(store.read(location).getId(), is(4L));
+		}
+
+		@Test
+		public void elementBiggerThanSegment() throws Exception {
+			store.write(createData(1L, 0));
+
+			long location = store.write(createData(2L, 10 * RECORD_SIZE));
+
+			assertThat(OffHeapElementStore.getSegmentId(location), is(1));
+			assertThat(store.getOccupiedBytes(), is(3L * RECORD_SIZE + 11L * RECORD_SIZE));
+			assertThat(store.read(location).getId(), is(2L));
+		}
+	}
+
+	public class EvictOldestSegment extends OffHeapElementStoreTest {
+
+		@Test
+		public void evict() throws Exception {
+			long evictedLocation = store.write(createData(1L, 0));
+			store.write(createData(2L, 0));
+			store.write(createData(3L, 0));
+			long location = store.write(createData(4L, 0));
+
+			int evicted = store.evictOldestSegment();
+
+			assertThat(evicted, is(3));
+			assertThat(store.isAvailable(evictedLocation), is(false));
+			assertThat(store.read(evictedLocation), is(nullValue()));
+			assertThat(store.isAvailable(location), is(true));
+			assertThat(store.readOldest().getId(), is(4L));
+			assertThat(store.getOccupiedBytes(), is(3L * RECORD_SIZE));
+			assertThat(store.getUsedBytes(), is(1L * RECORD_SIZE));
+		}
+
+		@Test
+		public void evictCurrentSegment() throws Exception {
+			store.write(createData(1L, 0));
+
+			assertThat(store.evictOldestSegment(), is(1));
+
+			long location = store.write(createData(2L, 0));
+			assertThat(OffHeapElementStore.getSegmentId(location), is(1));
+			assertThat(OffHeapElementStore.getOffset(location), is(0));
+		}
+
+		@Test
+		public void empty() {
+			assertThat(store.evictOldestSegment(), is(-1));
+			assertThat(store.readOldest(), is(nullValue()));
+		}
+	}
+
+	public class GetLocation extends OffHeapElementStoreTest {
+
+		@Test
+		public void onlyWhileIndexing() throws Exception {
+			DefaultData data = createData(1L, 0);
+			long location = store.write(data);
+
+			assertThat(store.getLocation(data), is(ISerializedElementStore.NO_LOCATION));
+			store.startIndexing(data, location);
+			assertThat(store.getLocation(data), is(location));
+			store.finishIndexing(data);
+			assertThat(store.getLocation(data), is(ISerializedElementStore.NO_LOCATION));
+		}
+
+		@Test
+		public void locationOfSegmentAboveOffsetRange() {
+			long location = OffHeapElementStore.toLocation(Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+			assertThat(location, is(not(ISerializedElementStore.NO_LOCATION)));
+			assertThat(OffHeapElementStore.getSegmentId(location), is(Integer.MAX_VALUE));
+			assertThat(OffHeapElementStore.getOffset(location), is(Integer.MAX_VALUE));
+		}
+	}
+
+	public class ClearAll extends OffHeapElementStoreTest {
+
+		@Test
+		public void clear() throws Exception {
+			long location = store.write(createData(1L, 0));
+
+			store.clearAll();
+
+			assertThat(store.isAvailable(location), is(false));
+			assertThat(store.getOccupiedBytes(), is(0L));
+			assertThat(store.getUsedBytes(), is(0L));
+			assertThat(store.getSegmentCount(), is(0));
+		}
+	}
+
+	/**
+	 * Creates the data to write.
+	 *
+	 * @param id
+	 *            Id of the data.
+	 * @param padding
+	 *            Bytes written in addition to the id.
+	 * @return Data.
+	 */
+	private DefaultData createData(long id, int padding) {
+		TimerData timerData = new TimerData();
+		timerData.setId(id);
+		timerData.setPlatformIdent(padding);
+		return timerData;
+	}
+}
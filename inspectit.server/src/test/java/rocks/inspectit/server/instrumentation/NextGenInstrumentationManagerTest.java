@@ -1,16 +1,22 @@
 package rocks.inspectit.server.instrumentation;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasEntry;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
@@ -24,14 +30,19 @@ import org.springframework.beans.factory.ObjectFactory;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import rocks.inspectit.server.event.AgentDeletedEvent;
 import rocks.inspectit.server.instrumentation.classcache.ClassCache;
 import rocks.inspectit.server.instrumentation.classcache.ClassCacheInstrumentation;
 import rocks.inspectit.server.instrumentation.classcache.ClassCacheLookup;
 import rocks.inspectit.server.instrumentation.classcache.ClassCacheModification;
 import rocks.inspectit.server.instrumentation.classcache.ClassCacheModificationException;
+import rocks.inspectit.server.instrumentation.classcache.ClassCacheSnapshot;
+import rocks.inspectit.server.instrumentation.classcache.ClassCacheSnapshotManager;
+import rocks.inspectit.server.instrumentation.classcache.SharedTypeStore;
 import rocks.inspectit.server.instrumentation.config.ConfigurationHolder;
 import rocks.inspectit.server.instrumentation.config.ConfigurationResolver;
 import rocks.inspectit.server.instrumentation.config.applier.IInstrumentationApplier;
+import rocks.inspectit.shared.all.cmr.model.PlatformIdent;
 import rocks.inspectit.shared.all.exception.BusinessException;
 import rocks.inspectit.shared.all.instrumentation.classcache.ClassType;
 import rocks.inspectit.shared.all.instrumentation.classcache.ImmutableType;
@@ -85,6 +96,12 @@ public class NextGenInstrumentationManagerTest extends TestBase {
 	@Mock
 	ClassCacheModification modificationService;
 
+	@Mock
+	SharedTypeStore sharedTypeStore;
+
+	@Mock
+	ClassCacheSnapshotManager classCacheSnapshotManager;
+
 	@BeforeMethod
 	public void setup() {
 		when(classCacheFactory.getObject()).thenReturn(classCache);
@@ -238,6 +255,110 @@ public class NextGenInstrumentationManagerTest extends TestBase {
 			verifyNoMoreInteractions(configurationResolver, registrationService, configurationHolder);
 			verifyZeroInteractions(classCache);
 		}
+		@Test
+		public void restoredFromSnapshot() throws Exception {
+			long id = 10;
+			List<String> definedIPs = mock(List.class);
+			String agentName = "agentName";
+			String version = "v1";
+			final AgentConfig configuration = mock(AgentConfig.class);
+			final Collection<IInstrumentationApplier> appliers = mock(Collection.class);
+			Environment environment = mock(Environment.class);
+			when(environment.getId()).thenReturn("env");
+			when(environment.getRevision()).thenReturn(2);
+			when(configurationResolver.getEnvironmentForAgent(definedIPs, agentName)).thenReturn(environment);
+			when(registrationService.registerPlatformIdent(definedIPs, agentName, version)).thenReturn(id);
+			doAnswer(new Answer<Void>() {
+				@Override
+				public Void answer(InvocationOnMock invocation) throws Throwable {
+					when(configurationHolder.getAgentConfiguration()).thenReturn(configuration);
+					when(configurationHolder.getInstrumentationAppliers()).thenReturn(appliers);
+					return null;
+				}
+			}).when(configurationHolder).update(environment, id);
+			Type type = mock(Type.class);
+			ClassCacheSnapshot snapshot = new ClassCacheSnapshot(id, "env", 2, Collections.singletonList(type));
+			when(classCacheSnapshotManager.read(id)).thenReturn(snapshot);
+			doReturn(Collections.emptyList()).when(lookupService).findAll();
+			Map<Collection<String>, InstrumentationDefinition> initialInstrumentations = mock(Map.class);
+			when(instrumentationService.getInstrumentationResultsWithHashes()).thenReturn(initialInstrumentations);
+
+			AgentConfig result = manager.register(definedIPs, agentName, version);
+
+			assertThat(result, is(configuration));
+
+			verify(classCacheSnapshotManager).watch(id, classCache);
+			verify(classCacheSnapshotManager).read(id);
+			verify(sharedTypeStore).add(type);
+			verify(modificationService).merge(type);
+			verify(instrumentationService).addInstrumentationPoints(configuration, appliers);
+			verify(instrumentationService).getInstrumentationResultsWithHashes();
+			verify(configuration).setInitialInstrumentationResults(initialInstrumentations);
+			verify(configuration).setClassCacheExistsOnCmr(true);
+			verifyNoMoreInteractions(classCacheSnapshotManager, modificationService, instrumentationService);
+		}
+
+		@Test
+		public void snapshotWithDifferentRevision() throws Exception {
+			long id = 10;
+			List<String> definedIPs = mock(List.class);
+			String agentName = "agentName";
+			String version = "v1";
+			final AgentConfig configuration = mock(AgentConfig.class);
+			Environment environment = mock(Environment.class);
+			when(environment.getId()).thenReturn("env");
+			when(environment.getRevision()).thenReturn(3);
+			when(configurationResolver.getEnvironmentForAgent(definedIPs, agentName)).thenReturn(environment);
+			when(registrationService.registerPlatformIdent(definedIPs, agentName, version)).thenReturn(id);
+			doAnswer(new Answer<Void>() {
+				@Override
+				public Void answer(InvocationOnMock invocation) throws Throwable {
+					when(configurationHolder.getAgentConfiguration()).thenReturn(configuration);
+					return null;
+				}
+			}).when(configurationHolder).update(environment, id);
+			ClassCacheSnapshot snapshot = new ClassCacheSnapshot(id, "env", 2, Collections.singletonList(mock(Type.class)));
+			when(classCacheSnapshotManager.read(id)).thenReturn(snapshot);
+
+			AgentConfig result = manager.register(definedIPs, agentName, version);
+
+			assertThat(result, is(configuration));
+
+			verify(configuration, never()).setClassCacheExistsOnCmr(true);
+			verifyZeroInteractions(classCache, sharedTypeStore);
+		}
+	}
+
+	public class WriteClassCacheSnapshots extends NextGenInstrumentationManagerTest {
+
+		@Test
+		public void onlyWithEnvironment() throws BusinessException {
+			long id = 10;
+			List<String> definedIPs = mock(List.class);
+			String agentName = "agentName";
+			String version = "v1";
+			Environment environment = mock(Environment.class);
+			when(registrationService.registerPlatformIdent(definedIPs, agentName, version)).thenReturn(id);
+			manager.register(definedIPs, agentName, version);
+
+			manager.writeClassCacheSnapshots();
+			when(configurationHolder.getEnvironment()).thenReturn(environment);
+			manager.writeClassCacheSnapshots();
+
+			verify(classCacheSnapshotManager).watch(id, classCache);
+			verify(classCacheSnapshotManager).writeIfChanged(id, environment, classCache);
+			verifyNoMoreInteractions(classCacheSnapshotManager);
+		}
+
+		@Test
+		public void agentDeleted() {
+			PlatformIdent platformIdent = new PlatformIdent();
+			platformIdent.setId(10L);
+
+			manager.onApplicationEvent(new AgentDeletedEvent(this, platformIdent));
+
+			verify(classCacheSnapshotManager).delete(10L);
+		}
 	}
 
 	public class Unregister extends NextGenInstrumentationManagerTest {
@@ -283,8 +404,9 @@ public class NextGenInstrumentationManagerTest extends TestBase {
 
 			assertThat(result, is(nullValue()));
 
+			verify(sharedTypeStore).add(type);
 			verify(modificationService).merge(type);
-			verifyNoMoreInteractions(modificationService);
+			verifyNoMoreInteractions(modificationService, sharedTypeStore);
 			verifyZeroInteractions(instrumentationService);
 		}
 
@@ -362,4 +484,150 @@ public class NextGenInstrumentationManagerTest extends TestBase {
 
 	}
 
+	public class AnalyzeAll extends NextGenInstrumentationManagerTest {
+
+		@Mock
+		private Type type;
+
+		@Mock
+		private Type otherType;
+
+		private final static String HASH = "hash";
+
+		private final static String OTHER_HASH = "otherHash";
+
+		private final static long ID = 10;
+
+		@Test(expectedExceptions = BusinessException.class)
+		public void agentNotRegistered() throws BusinessException {
+			Map<String, Type> hashAndTypes = new LinkedHashMap<>();
+			hashAndTypes.put(HASH, type);
+
+			manager.analyzeAll(ID, hashAndTypes);
+		}
+
+		@Test
+		public void onlyInstrumentedContained() throws BusinessException, ClassCacheModificationException {
+			List<String> definedIPs = mock(List.class);
+			String agentName = "agentName";
+			String version = "v1";
+			when(registrationService.registerPlatformIdent(definedIPs, agentName, version)).thenReturn(ID);
+
+			manager.register(definedIPs, agentName, version);
+
+			ImmutableType nonClassType = mock(ImmutableType.class);
+			when(nonClassType.isClass()).thenReturn(false);
+			when(lookupService.findByHash(OTHER_HASH)).thenReturn(null, nonClassType);
+			ClassType classType = mock(ClassType.class);
+			when(classType.isClass()).thenReturn(true);
+			when(classType.castToClass()).thenReturn(classType);
+			when(lookupService.findByHash(HASH)).thenReturn(classType);
+			when(configurationHolder.isInitialized()).thenReturn(true);
+			AgentConfig configuration = mock(AgentConfig.class);
+			Collection<IInstrumentationApplier> appliers = mock(Collection.class);
+			InstrumentationDefinition instrumentationResult = mock(InstrumentationDefinition.class);
+			when(configurationHolder.getAgentConfiguration()).thenReturn(configuration);
+			when(configurationHolder.getInstrumentationAppliers()).thenReturn(appliers);
+			when(instrumentationService.addAndGetInstrumentationResult(classType, configuration, appliers)).thenReturn(instrumentationResult);
+			Map<String, Type> hashAndTypes = new LinkedHashMap<>();
+			hashAndTypes.put(OTHER_HASH, otherType);
+			hashAndTypes.put(HASH, type);
+
+			Map<String, InstrumentationDefinition> result = manager.analyzeAll(ID, hashAndTypes);
+
+			assertThat(result.size(), is(1));
+			assertThat(result, hasEntry(HASH, instrumentationResult));
+			verify(modificationService).merge(otherType);
+			verify(instrumentationService).addAndGetInstrumentationResult(classType, configuration, appliers);
+			verifyNoMoreInteractions(modificationService, instrumentationService);
+		}
+
+	}
+
+	public class AnalyzeKnown extends NextGenInstrumentationManagerTest {
+
+		private final static String HASH = "hash";
+
+		private final static String OTHER_HASH = "otherHash";
+
+		private final static String UNKNOWN_HASH = "unknownHash";
+
+		private final static long ID = 10;
+
+		@Test(expectedExceptions = BusinessException.class)
+		public void agentNotRegistered() throws BusinessException {
+			manager.analyzeKnown(ID, Collections.singleton(HASH));
+		}
+
+		@Test
+		public void onlyKnownContained() throws BusinessException {
+			List<String> definedIPs = mock(List.class);
+			String agentName = "agentName";
+			String version = "v1";
+			when(registrationService.registerPlatformIdent(definedIPs, agentName, version)).thenReturn(ID);
+
+			manager.register(definedIPs, agentName, version);
+
+			ImmutableType nonClassType = mock(ImmutableType.class);
+			when(nonClassType.isClass()).thenReturn(false);
+			when(lookupService.findByHash(OTHER_HASH)).thenReturn(nonClassType);
+			ClassType classType = mock(ClassType.class);
+			when(classType.isClass()).thenReturn(true);
+			when(classType.castToClass()).thenReturn(classType);
+			when(lookupService.findByHash(HASH)).thenReturn(classType);
+			when(configurationHolder.isInitialized()).thenReturn(true);
+			AgentConfig configuration = mock(AgentConfig.class);
+			Collection<IInstrumentationApplier> appliers = mock(Collection.class);
+			InstrumentationDefinition instrumentationResult = mock(InstrumentationDefinition.class);
+			when(configurationHolder.getAgentConfiguration()).thenReturn(configuration);
+			when(configurationHolder.getInstrumentationAppliers()).thenReturn(appliers);
+			when(instrumentationService.addAndGetInstrumentationResult(classType, configuration, appliers)).thenReturn(instrumentationResult);
+
+			Map<String, InstrumentationDefinition> result = manager.analyzeKnown(ID, Arrays.asList(HASH, OTHER_HASH, UNKNOWN_HASH));
+
+			assertThat(result.size(), is(2));
+			assertThat(result, hasEntry(HASH, instrumentationResult));
+			assertThat(result.containsKey(OTHER_HASH), is(true));
+			assertThat(result.get(OTHER_HASH), is(nullValue()));
+			verify(instrumentationService).addAndGetInstrumentationResult(classType, configuration, appliers);
+			verify(sharedTypeStore).get(UNKNOWN_HASH);
+			verifyNoMoreInteractions(instrumentationService, sharedTypeStore);
+			verifyZeroInteractions(modificationService);
+		}
+
+		@Test
+		public void sharedTypeMerged() throws BusinessException, ClassCacheModificationException {
+			List<String> definedIPs = mock(List.class);
+			String agentName = "agentName";
+			String version = "v1";
+			when(registrationService.registerPlatformIdent(definedIPs, agentName, version)).thenReturn(ID);
+
+			manager.register(definedIPs, agentName, version);
+
+			Type sharedType = mock(Type.class);
+			when(sharedTypeStore.get(HASH)).thenReturn(sharedType);
+			ClassType classType = mock(ClassType.class);
+			when(classType.isClass()).thenReturn(true);
+			when(classType.castToClass()).thenReturn(classType);
+			when(lookupService.findByHash(HASH)).thenReturn(null, classType);
+			when(configurationHolder.isInitialized()).thenReturn(true);
+			AgentConfig configuration = mock(AgentConfig.class);
+			Collection<IInstrumentationApplier> appliers = mock(Collection.class);
+			InstrumentationDefinition instrumentationResult = mock(InstrumentationDefinition.class);
+			when(configurationHolder.getAgentConfiguration()).thenReturn(configuration);
+			when(configurationHolder.getInstrumentationAppliers()).thenReturn(appliers);
+			when(instrumentationService.addAndGetInstrumentationResult(classType, configuration, appliers)).thenReturn(instrumentationResult);
+
+			Map<String, InstrumentationDefinition> result = manager.analyzeKnown(ID, Collections.singleton(HASH));
+
+			assertThat(result.size(), is(1));
+			assertThat(result, hasEntry(HASH, instrumentationResult));
+			verify(sharedTypeStore).get(HASH);
+			verify(modificationService).merge(sharedType);
+			verify(instrumentationService).addAndGetInstrumentationResult(classType, configuration, appliers);
+			verifyNoMoreInteractions(modificationService, instrumentationService, sharedTypeStore);
+		}
+
+	}
+
 }
@@ -0,0 +1,157 @@
+package rocks.inspectit.server.instrumentation.classcache;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+import java.util.Arrays;
+
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.slf4j.Logger;
+import org.testng.annotations.Test;
+
+import rocks.inspectit.shared.all.instrumentation.classcache.AbstractInterfaceType;
+import rocks.inspectit.shared.all.instrumentation.classcache.AnnotationType;
+import rocks.inspectit.shared.all.instrumentation.classcache.ClassType;
+import rocks.inspectit.shared.all.instrumentation.classcache.InterfaceType;
+import rocks.inspectit.shared.all.instrumentation.classcache.MethodType;
+import rocks.inspectit.shared.all.instrumentation.classcache.Type;
+import rocks.inspectit.shared.all.storage.serializer.provider.SerializationManagerProvider;
+import rocks.inspectit.shared.all.testbase.TestBase;
+import rocks.inspectit.shared.cs.ci.Environment;
+
+/**
+ * Test for the {@link ClassCacheSnapshotManager}.
+ */
+@SuppressWarnings("PMD")
+public class ClassCacheSnapshotManagerTest extends TestBase {
+
+	@InjectMocks
+	ClassCacheSnapshotManager snapshotManager;
+
+	@Mock
+	Logger log;
+
+	@Mock
+	SerializationManagerProvider serializationManagerProvider;
+
+	@Mock
+	ClassCache classCache;
+
+	@Mock
+	Environment environment;
+
+	public class ToSentForm extends ClassCacheSnapshotManagerTest {
+
+		@Test
+		public void classType() {
+			ClassType type = new ClassType("fqn", "hash1", 1);
+			type.addHash("hash2");
+			ClassType superClass = new ClassType("super", "superHash", 0);
+			type.addSuperClass(superClass);
+			type.addInterface(new InterfaceType("interface", "interfaceHash", 0));
+			type.addInterface(new AnnotationType("annotationAsInterface"));
+			type.addAnnotation(new AnnotationType("annotation"));
+			MethodType method = new MethodType();
+			method.setName("method");
+			method.setModifiers(2);
+			method.setReturnType("void");
+			method.setParameters(Arrays.asList("int", "long"));
+			method.addException(new ClassType("exception"));
+			method.addAnnotation(new AnnotationType("methodAnnotation"));
+			type.addMethod(method);
+
+			Type sent = ClassCacheSnapshotManager.toSentForm(type);
+
+			assertThat(sent, is(instanceOf(ClassType.class)));
+			assertThat(sent, is(not(sameInstance((Type) type))));
+			assertThat(sent.getFQN(), is("fqn"));
+			assertThat(sent.getModifiers(), is(1));
+			assertThat(sent.isInitialized(), is(true));
+			assertThat(sent.getHashes(), containsInAnyOrder("hash1", "hash2"));
+			ClassType sentClass = (ClassType) sent;
+			assertThat(sentClass.getSuperClasses(), hasSize(1));
+			ClassType sentSuperClass = sentClass.getSuperClasses().iterator().next();
+			assertThat(sentSuperClass.getFQN(), is("super"));
+			assertThat(sentSuperClass.isInitialized(), is(false));
+			assertThat(sentSuperClass.getSubClasses(), contains(sentClass));
+			assertThat(sentClass.getRealizedInterfaces(), hasSize(2));
+			for (AbstractInterfaceType realizedInterface : sentClass.getRealizedInterfaces()) {
+				assertThat(realizedInterface.isInitialized(), is(false));
+				if ("interface".equals(realizedInterface.getFQN())) {
+					assertThat(realizedInterface, is(instanceOf(InterfaceType.class)));
+				} else {
+					assertThat(realizedInterface, is(instanceOf(AnnotationType.class)));
+				}
+			}
+			assertThat(sentClass.getAnnotations(), hasSize(1));
+			assertThat(sentClass.getAnnotations().iterator().next().getFQN(), is("annotation"));
+			assertThat(sentClass.getMethods(), hasSize(1));
+			MethodType sentMethod = sentClass.getMethods().iterator().next();
+			assertThat(sentMethod, is(not(sameInstance(method))));
+			assertThat(sentMethod.getName(), is("method"));
+			assertThat(sentMethod.getModifiers(), is(2));
+			assertThat(sentMethod.getReturnType(), is("void"));
+			assertThat(sentMethod.getParameters(), contains("int", "long"));
+			assertThat(sentMethod.getExceptions(), hasSize(1));
+			assertThat(sentMethod.getExceptions().iterator().next().getFQN(), is("exception"));
+			assertThat(sentMethod.getAnnotations(), hasSize(1));
+			assertThat(sentMethod.getAnnotations().iterator().next().getFQN(), is("methodAnnotation"));
+			assertThat(sentMethod.getMethodInstrumentationConfig(), is(nullValue()));
+		}
+
+		@Test
+		public void interfaceType() {
+			InterfaceType type = new InterfaceType("fqn", "hash", 1);
+			type.addSuperInterface(new InterfaceType("super", "superHash", 0));
+
+			Type sent = ClassCacheSnapshotManager.toSentForm(type);
+
+			assertThat(sent, is(instanceOf(InterfaceType.class)));
+			InterfaceType sentInterface = (InterfaceType) sent;
+			assertThat(sentInterface.getSuperInterfaces(), hasSize(1));
+			assertThat(sentInterface.getSuperInterfaces().iterator().next().getFQN(), is("super"));
+			assertThat(sentInterface.getSuperInterfaces().iterator().next().isInitialized(), is(false));
+			assertThat(sentInterface.getMethods(), is(empty()));
+		}
+
+		@Test
+		public void annotationType() {
+			AnnotationType type = new AnnotationType("fqn", "hash", 1);
+
+			Type sent = ClassCacheSnapshotManager.toSentForm(type);
+
+			assertThat(sent, is(instanceOf(AnnotationType.class)));
+			assertThat(sent.getFQN(), is("fqn"));
+			assertThat(sent.getHashes(), contains("hash"));
+		}
+	}
+
+	public class WriteIfChanged extends ClassCacheSnapshotManagerTest {
+
+		@Test
+		public void notWatched() {
+			snapshotManager.writeIfChanged(10L, environment, classCache);
+
+			verifyZeroInteractions(classCache, serializationManagerProvider);
+		}
+
+		@Test
+		public void watchedNotChanged() {
+			snapshotManager.watch(10L, classCache);
+
+			snapshotManager.writeIfChanged(10L, environment, classCache);
+
+			verifyZeroInteractions(serializationManagerProvider);
+		}
+	}
+}
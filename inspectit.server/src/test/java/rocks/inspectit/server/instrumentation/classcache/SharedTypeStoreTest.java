@@ -0,0 +1,123 @@
+package rocks.inspectit.server.instrumentation.classcache;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import rocks.inspectit.shared.all.instrumentation.classcache.ClassType;
+import rocks.inspectit.shared.all.instrumentation.classcache.MethodType;
+import rocks.inspectit.shared.all.instrumentation.classcache.Type;
+import rocks.inspectit.shared.all.testbase.TestBase;
+
+/**
+ * Test for the {@link SharedTypeStore}.
+ */
+@SuppressWarnings("PMD")
+public class SharedTypeStoreTest extends TestBase {
+
+	SharedTypeStore store;
+
+	@BeforeMethod
+	public void init() {
+		store = new SharedTypeStore();
+		store.typeContentPool = new TypeContentPool();
+	}
+
+	public class Add extends SharedTypeStoreTest {
+
+		@Test
+		public void stored() {
+			ClassType type = createType("hash");
+
+			store.add(type);
+
+			assertThat(store.contains("hash"), is(true));
+			assertThat(store.getHashCount(), is(1));
+		}
+
+		@Test
+		public void sameHashOfTwoAgentsStoredOnce() {
+			store.add(createType("hash"));
+			store.add(createType("hash"));
+
+			assertThat(store.getHashCount(), is(1));
+		}
+
+		@Test
+		public void contentPooled() {
+			ClassType first = createType("hash");
+			ClassType second = createType("otherHash");
+
+			store.add(first);
+			store.add(second);
+
+			MethodType firstMethod = first.getMethods().iterator().next();
+			MethodType secondMethod = second.getMethods().iterator().next();
+			assertThat(secondMethod.getName(), is(sameInstance(firstMethod.getName())));
+			assertThat(secondMethod.getParameters(), is(sameInstance(firstMethod.getParameters())));
+		}
+
+		@Test
+		public void storedTypeNotChangedByAgentType() {
+			ClassType type = createType("hash");
+
+			store.add(type);
+			type.addMethod(new MethodType());
+
+			assertThat(((ClassType) store.get("hash")).getMethods(), hasSize(1));
+		}
+	}
+
+	public class Get extends SharedTypeStoreTest {
+
+		@Test
+		public void unknown() {
+			assertThat(store.get("hash"), is(nullValue()));
+		}
+
+		@Test
+		public void newCopyWithPooledContent() {
+			ClassType type = createType("hash");
+			store.add(type);
+
+			Type first = store.get("hash");
+			Type second = store.get("hash");
+
+			assertThat(first, is(instanceOf(ClassType.class)));
+			assertThat(first, is(not(sameInstance((Type) type))));
+			assertThat(second, is(not(sameInstance(first))));
+			assertThat(first.getFQN(), is("fqn"));
+			assertThat(first.getHashes(), contains("hash"));
+			assertThat(first.isInitialized(), is(true));
+			MethodType firstMethod = ((ClassType) first).getMethods().iterator().next();
+			MethodType secondMethod = ((ClassType) second).getMethods().iterator().next();
+			MethodType sentMethod = type.getMethods().iterator().next();
+			assertThat(firstMethod, is(not(sameInstance(secondMethod))));
+			assertThat(firstMethod.getName(), is(sameInstance(sentMethod.getName())));
+			assertThat(firstMethod.getParameters(), is(sameInstance(sentMethod.getParameters())));
+			assertThat(secondMethod.getParameters(), is(sameInstance(sentMethod.getParameters())));
+		}
+	}
+
+	private ClassType createType(String hash) {
+		ClassType type = new ClassType("fqn", hash, 0);
+		// new strings, as sent by different agents
+		MethodType method = new MethodType();
+		method.setName(new String("method"));
+		method.setReturnType(new String("void"));
+		method.setParameters(new ArrayList<>(Arrays.asList(new String("java.lang.String"), new String("int"))));
+		type.addMethod(method);
+		return type;
+	}
+}
@@ -0,0 +1,112 @@
+package rocks.inspectit.server.instrumentation.classcache;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import rocks.inspectit.shared.all.instrumentation.classcache.AnnotationType;
+import rocks.inspectit.shared.all.instrumentation.classcache.ClassType;
+import rocks.inspectit.shared.all.instrumentation.classcache.MethodType;
+import rocks.inspectit.shared.all.testbase.TestBase;
+
+/**
+ * Test for the {@link TypeContentPool}.
+ */
+@SuppressWarnings("PMD")
+public class TypeContentPoolTest extends TestBase {
+
+	TypeContentPool pool;
+
+	@BeforeMethod
+	public void init() {
+		pool = new TypeContentPool();
+	}
+
+	public class Pool extends TypeContentPoolTest {
+
+		@Test
+		public void sameMethodsOfTwoAgents() {
+			ClassType first = createType();
+			ClassType second = createType();
+
+			pool.pool(first);
+			pool.pool(second);
+
+			MethodType firstMethod = first.getMethods().iterator().next();
+			MethodType secondMethod = second.getMethods().iterator().next();
+			assertThat(secondMethod.getName(), is(sameInstance(firstMethod.getName())));
+			assertThat(secondMethod.getReturnType(), is(sameInstance(firstMethod.getReturnType())));
+			assertThat(secondMethod.getParameters(), is(sameInstance(firstMethod.getParameters())));
+			assertThat(secondMethod.getParameters(), contains("java.lang.String", "int"));
+			assertThat(pool.getParameterListCount(), is(1));
+		}
+
+		@Test
+		public void methodStaysInSet() {
+			ClassType type = createType();
+			MethodType method = createMethod();
+
+			pool.pool(type);
+
+			assertThat(type.getMethods().contains(method), is(true));
+		}
+
+		@Test
+		public void noParameters() {
+			ClassType type = new ClassType("fqn", "hash", 0);
+			MethodType method = new MethodType();
+			method.setName(new String("method"));
+			method.setReturnType(new String("void"));
+			type.addMethod(method);
+
+			pool.pool(type);
+
+			assertThat(method.getParameters(), is(Collections.<String> emptyList()));
+			assertThat(pool.getParameterListCount(), is(0));
+		}
+
+		@Test
+		public void typeWithoutMethods() {
+			pool.pool(new AnnotationType("fqn", "hash", 0));
+
+			assertThat(pool.getStringCount(), is(0));
+		}
+
+		@Test
+		public void nullString() {
+			assertThat(pool.pool((String) null), is(nullValue()));
+		}
+
+		@Test(expectedExceptions = UnsupportedOperationException.class)
+		public void pooledListNotModifiable() {
+			List<String> pooled = pool.pool(new ArrayList<>(Arrays.asList("int")));
+
+			pooled.add("long");
+		}
+
+		private ClassType createType() {
+			ClassType type = new ClassType("fqn", "hash", 0);
+			type.addMethod(createMethod());
+			return type;
+		}
+
+		private MethodType createMethod() {
+			// new strings, as sent by different agents
+			MethodType method = new MethodType();
+			method.setName(new String("method"));
+			method.setReturnType(new String("void"));
+			method.setParameters(new ArrayList<>(Arrays.asList(new String("java.lang.String"), new String("int"))));
+			return method;
+		}
+	}
+}
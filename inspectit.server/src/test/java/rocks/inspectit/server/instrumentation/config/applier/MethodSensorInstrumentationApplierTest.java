@@ -40,6 +40,7 @@ import rocks.inspectit.shared.cs.ci.Environment;
 import rocks.inspectit.shared.cs.ci.assignment.AbstractClassSensorAssignment;
 import rocks.inspectit.shared.cs.ci.assignment.impl.MethodSensorAssignment;
 import rocks.inspectit.shared.cs.ci.sensor.method.IMethodSensorConfig;
+import rocks.inspectit.shared.cs.ci.sensor.method.impl.TimerSensorConfig;
 import rocks.inspectit.shared.cs.cmr.service.IRegistrationService;
 
 /**
@@ -153,6 +154,42 @@ public class MethodSensorInstrumentationApplierTest extends TestBase {
 			assertThat(rsc.getSensorIds().length, is(1));
 			assertThat(rsc.getSensorIds()[0], is(sensorId));
 			assertThat(rsc.getSettings(), is(settings));
+			assertThat(rsc.isArgumentsNeeded(), is(true));
+		}
+
+		@Test
+		public void addTimerSensorNoArgumentsNeeded() throws Exception {
+			long agentId = 13L;
+			long sensorId = 15L;
+			long methodId = 17L;
+			when(registrationService.registerMethodIdent(eq(agentId), anyString(), anyString(), anyString(), Matchers.<List<String>> any(), anyString(), anyInt())).thenReturn(methodId);
+
+			MethodSensorTypeConfig methodSensorTypeConfig = mock(MethodSensorTypeConfig.class);
+			when(methodSensorTypeConfig.getId()).thenReturn(sensorId);
+			when(methodSensorTypeConfig.getPriority()).thenReturn(PriorityEnum.MAX);
+
+			AgentConfig agentConfiguration = mock(AgentConfig.class);
+			when(agentConfiguration.getPlatformId()).thenReturn(agentId);
+			when(agentConfiguration.getMethodSensorTypeConfig(TimerSensorConfig.CLASS_NAME)).thenReturn(methodSensorTypeConfig);
+			when(assignment.getSettings()).thenReturn(Collections.<String, Object> emptyMap());
+			when(environment.getMethodSensorTypeConfig(Matchers.<Class<? extends IMethodSensorConfig>> any())).thenReturn(new TimerSensorConfig());
+
+			when(classType.getFQN()).thenReturn("my.favorite.package.ClassName");
+			when(methodType.getClassOrInterfaceType()).thenReturn(classType);
+			when(methodType.getName()).thenReturn("methodName");
+			when(methodType.getParameters()).thenReturn(Collections.<String> emptyList());
+			when(methodType.getReturnType()).thenReturn("void");
+			when(methodType.getMethodCharacter()).thenReturn(Character.METHOD);
+
+			boolean changed = applier.addInstrumentationPoints(agentConfiguration, classType);
+
+			assertThat(changed, is(true));
+			ArgumentCaptor<MethodInstrumentationConfig> captor = ArgumentCaptor.forClass(MethodInstrumentationConfig.class);
+			verify(methodType, times(1)).setMethodInstrumentationConfig(captor.capture());
+			SensorInstrumentationPoint rsc = captor.getValue().getSensorInstrumentationPoint();
+			assertThat(rsc.getSensorIds()[0], is(sensorId));
+			assertThat(rsc.isArgumentsNeeded(), is(false));
+			assertThat(rsc.isLeanDispatch(), is(true));
 		}
 
 		@Test
@@ -170,5 +170,62 @@ public class TimerMethodSensorInstrumentationApplierTest extends TestBase {
 			assertThat(rsc.isPropertyAccess(), is(true));
 			assertThat(rsc.getPropertyAccessorList(), hasItem(propertyPathStart));
 		}
+
+		@Test
+		public void inlined() throws Exception {
+			when(assignment.isInlined()).thenReturn(true);
+
+			SensorInstrumentationPoint sip = addTimerInstrumentationPoint();
+
+			assertThat(sip.isInlinedTimer(), is(true));
+		}
+
+		@Test
+		public void inlinedCharting() throws Exception {
+			when(assignment.isInlined()).thenReturn(true);
+			when(assignment.isCharting()).thenReturn(true);
+
+			SensorInstrumentationPoint sip = addTimerInstrumentationPoint();
+
+			assertThat(sip.isInlinedTimer(), is(false));
+		}
+
+		@Test
+		public void notInlined() throws Exception {
+			SensorInstrumentationPoint sip = addTimerInstrumentationPoint();
+
+			assertThat(sip.isInlinedTimer(), is(false));
+		}
+
+		private SensorInstrumentationPoint addTimerInstrumentationPoint() throws Exception {
+			long agentId = 13L;
+			String sensorClassName = "sensorClassName";
+			when(registrationService.registerMethodIdent(eq(agentId), anyString(), anyString(), anyString(), Matchers.<List<String>> any(), anyString(), anyInt())).thenReturn(17L);
+
+			MethodSensorTypeConfig methodSensorTypeConfig = mock(MethodSensorTypeConfig.class);
+			when(methodSensorTypeConfig.getId()).thenReturn(15L);
+			when(methodSensorTypeConfig.getPriority()).thenReturn(PriorityEnum.NORMAL);
+
+			AgentConfig agentConfiguration = mock(AgentConfig.class);
+			when(agentConfiguration.getPlatformId()).thenReturn(agentId);
+			when(agentConfiguration.getMethodSensorTypeConfig(sensorClassName)).thenReturn(methodSensorTypeConfig);
+
+			IMethodSensorConfig methodSensorConfig = mock(IMethodSensorConfig.class);
+			when(methodSensorConfig.getClassName()).thenReturn(sensorClassName);
+			when(environment.getMethodSensorTypeConfig(Matchers.<Class<? extends IMethodSensorConfig>> any())).thenReturn(methodSensorConfig);
+
+			when(classType.getFQN()).thenReturn("my.favorite.package.ClassName");
+			when(methodType.getClassOrInterfaceType()).thenReturn(classType);
+			when(methodType.getName()).thenReturn("methodName");
+			when(methodType.getParameters()).thenReturn(Collections.<String> emptyList());
+			when(methodType.getReturnType()).thenReturn("returnType");
+			when(methodType.getMethodCharacter()).thenReturn(Character.METHOD);
+
+			applier.addInstrumentationPoints(agentConfiguration, classType);
+
+			ArgumentCaptor<MethodInstrumentationConfig> captor = ArgumentCaptor.forClass(MethodInstrumentationConfig.class);
+			verify(methodType, times(1)).setMethodInstrumentationConfig(captor.capture());
+			return captor.getValue().getSensorInstrumentationPoint();
+		}
 	}
 }
@@ -0,0 +1,179 @@
+package rocks.inspectit.server.processor;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+import java.util.concurrent.ExecutorService;
+
+import javax.persistence.EntityManager;
+
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.slf4j.Logger;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.communication.data.TimerData;
+
+/**
+ * Tests the {@link CmrDataPersistingStage}.
+ */
+@SuppressWarnings("PMD")
+public class CmrDataPersistingStageTest {
+
+	private CmrDataPersistingStage persistingStage;
+
+	@Mock
+	Logger log;
+
+	@Mock
+	PlatformTransactionManager transactionManager;
+
+	@Mock
+	EntityManager entityManager;
+
+	@Mock
+	ExecutorService executorService;
+
+	@Mock
+	AbstractCmrDataProcessor processor;
+
+	@BeforeMethod
+	public void init() {
+		MockitoAnnotations.initMocks(this);
+		persistingStage = new CmrDataPersistingStage(transactionManager);
+		persistingStage.log = log;
+		persistingStage.entityManager = entityManager;
+		persistingStage.executorService = executorService;
+	}
+
+	public class Submit extends CmrDataPersistingStageTest {
+
+		@Test
+		public void processedInTransaction() {
+			runOnExecutor();
+			DefaultData defaultData = new TimerData();
+
+			persistingStage.submit(processor, defaultData);
+
+			verify(transactionManager, times(1)).getTransaction(any(TransactionDefinition.class));
+			verify(processor, times(1)).processData(defaultData, entityManager);
+			verify(transactionManager, times(1)).commit(null);
+			assertThat(persistingStage.getPendingCount(), is(0));
+		}
+
+		@Test
+		public void drainScheduledOnce() {
+			DefaultData first = new TimerData();
+			DefaultData second = new TimerData();
+
+			persistingStage.submit(processor, first);
+			persistingStage.submit(processor, second);
+
+			verify(executorService, times(1)).execute(any(Runnable.class));
+			verifyZeroInteractions(processor, transactionManager);
+			assertThat(persistingStage.getPendingCount(), is(2));
+		}
+
+		@Test
+		public void processingFails() {
+			runOnExecutor();
+			DefaultData defaultData = new TimerData();
+			doThrow(new RuntimeException()).when(processor).processData(defaultData, entityManager);
+
+			persistingStage.submit(processor, defaultData);
+
+			verify(log, times(1)).error(anyString(), any(Throwable.class));
+			assertThat(persistingStage.getPendingCount(), is(0));
+		}
+
+		private void runOnExecutor() {
+			doAnswer(new Answer<Void>() {
+				@Override
+				public Void answer(InvocationOnMock invocation) throws Throwable {
+					((Runnable) invocation.getArguments()[0]).run();
+					return null;
+				}
+			}).when(executorService).execute(any(Runnable.class));
+		}
+	}
+
+	public class ProcessBatch extends CmrDataPersistingStageTest {
+
+		@Test
+		public void batchProcessed() {
+			DefaultData first = new TimerData();
+			DefaultData second = new TimerData();
+			persistingStage.submit(processor, first);
+			persistingStage.submit(processor, second);
+
+			boolean processed = persistingStage.processBatch();
+
+			assertThat(processed, is(true));
+			verify(transactionManager, times(1)).getTransaction(any(TransactionDefinition.class));
+			verify(processor, times(1)).processData(first, entityManager);
+			verify(processor, times(1)).processData(second, entityManager);
+			assertThat(persistingStage.getPendingCount(), is(0));
+		}
+
+		@Test
+		public void processedInSubmitOrder() {
+			AbstractCmrDataProcessor recorder = mock(AbstractCmrDataProcessor.class);
+			DefaultData defaultData = new TimerData();
+			persistingStage.submit(processor, defaultData);
+			persistingStage.submit(recorder, defaultData);
+
+			persistingStage.processBatch();
+
+			InOrder inOrder = inOrder(processor, recorder);
+			inOrder.verify(processor, times(1)).processData(defaultData, entityManager);
+			inOrder.verify(recorder, times(1)).processData(defaultData, entityManager);
+		}
+
+		@Test
+		public void nothingToProcess() {
+			boolean processed = persistingStage.processBatch();
+
+			assertThat(processed, is(false));
+			verifyZeroInteractions(transactionManager, processor);
+		}
+	}
+
+	public class Flush extends CmrDataPersistingStageTest {
+
+		@Test
+		public void allPendingProcessed() {
+			for (int i = 0; i < 1200; i++) {
+				persistingStage.submit(processor, new TimerData());
+			}
+
+			persistingStage.flush();
+
+			verify(transactionManager, times(3)).getTransaction(any(TransactionDefinition.class));
+			verify(processor, times(1200)).processData(any(DefaultData.class), any(EntityManager.class));
+			assertThat(persistingStage.getPendingCount(), is(0));
+		}
+
+		@Test
+		public void nothingPending() {
+			persistingStage.flush();
+
+			verifyZeroInteractions(transactionManager, processor);
+		}
+	}
+}
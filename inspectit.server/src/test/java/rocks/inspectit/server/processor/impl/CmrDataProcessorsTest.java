@@ -7,6 +7,7 @@ import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.mockito.Mockito.RETURNS_SMART_NULLS;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -35,6 +36,7 @@ import rocks.inspectit.server.cache.IBuffer;
 import rocks.inspectit.server.cache.IBufferElement;
 import rocks.inspectit.server.dao.impl.TimerDataAggregator;
 import rocks.inspectit.server.processor.AbstractCmrDataProcessor;
+import rocks.inspectit.server.processor.CmrDataPersistingStage;
 import rocks.inspectit.server.storage.CmrStorageManager;
 import rocks.inspectit.server.util.CacheIdGenerator;
 import rocks.inspectit.shared.all.communication.DefaultData;
@@ -90,6 +92,9 @@ public class CmrDataProcessorsTest {
 	@Mock
 	private EntityManager entityManager;
 
+	@Mock
+	private CmrDataPersistingStage persistingStage;
+
 	@BeforeMethod
 	public void init() {
 		MockitoAnnotations.initMocks(this);
@@ -251,6 +256,27 @@ public class CmrDataProcessorsTest {
 		verifyZeroInteractions(entityManager);
 	}
 
+	/**
+	 * Tests that the {@link RecorderCmrProcessor} delegates to the persisting stage only when
+	 * recording, so that the data is recorded after it has been persisted.
+	 */
+	@Test
+	public void recordProcessorPersistingStage() {
+		RecorderCmrProcessor processor = new RecorderCmrProcessor();
+		processor.storageManager = storageManager;
+		processor.setPersistingStage(persistingStage);
+		DefaultData defaultData = mock(DefaultData.class);
+
+		when(storageManager.getRecordingState()).thenReturn(RecordingState.OFF);
+		processor.process(defaultData, entityManager);
+		verifyZeroInteractions(persistingStage);
+
+		when(storageManager.getRecordingState()).thenReturn(RecordingState.ON);
+		processor.process(defaultData, entityManager);
+		verify(persistingStage, times(1)).submit(processor, defaultData);
+		verify(storageManager, times(0)).record(defaultData);
+	}
+
 	/**
 	 * Tests the {@link PersistingCmrProcessor}.
 	 */
@@ -274,6 +300,64 @@ public class CmrDataProcessorsTest {
 		verify(entityManager, times(1)).persist(timerData);
 	}
 
+	/**
+	 * Tests that the {@link PersistingCmrProcessor} delegates to the persisting stage and routes only
+	 * the configured class.
+	 */
+	@Test
+	public void entityManagerInserterProcessorPersistingStage() {
+		PersistingCmrProcessor processor = new PersistingCmrProcessor(Collections.<Class<? extends DefaultData>> singletonList(TimerData.class));
+		processor.setPersistingStage(persistingStage);
+
+		assertThat(processor.canProcessType(TimerData.class), is(true));
+		assertThat(processor.canProcessType(HttpTimerData.class), is(false));
+
+		TimerData timerData = new TimerData();
+		processor.process(timerData, entityManager);
+		verify(persistingStage, times(1)).submit(processor, timerData);
+		verifyZeroInteractions(entityManager);
+	}
+
+	/**
+	 * Tests the {@link SqlTextDictionaryCmrProcessor}.
+	 */
+	@Test
+	public void sqlTextDictionaryProcessor() {
+		SqlTextDictionaryCmrProcessor processor = new SqlTextDictionaryCmrProcessor();
+
+		// don't fail on null
+		processor.process((DefaultData) null, entityManager);
+
+		// only sqls with fingerprint
+		assertThat(processor.canBeProcessed(new TimerData()), is(false));
+		assertThat(processor.canBeProcessed(new SqlStatementData()), is(false));
+
+		// unknown fingerprint stays without sql
+		SqlStatementData unknown = new SqlStatementData();
+		unknown.setSqlFingerprint(5L);
+		processor.process(unknown, entityManager);
+		assertThat(unknown.getSql(), is(nullValue()));
+
+		// sql is resolved from the fingerprint
+		SqlStatementData withSql = new SqlStatementData();
+		withSql.setSqlFingerprint(10L);
+		withSql.setSql("SELECT * FROM TEST WHERE ID = ?");
+		processor.process(withSql, entityManager);
+		SqlStatementData withoutSql = new SqlStatementData();
+		withoutSql.setSqlFingerprint(10L);
+		processor.process(withoutSql, entityManager);
+		assertThat(withoutSql.getSql(), is(sameInstance(withSql.getSql())));
+
+		// same sql is set as the same instance
+		SqlStatementData sameSql = new SqlStatementData();
+		sameSql.setSqlFingerprint(10L);
+		sameSql.setSql(new String("SELECT * FROM TEST WHERE ID = ?"));
+		processor.process(sameSql, entityManager);
+		assertThat(sameSql.getSql(), is(sameInstance(withSql.getSql())));
+
+		verifyZeroInteractions(entityManager);
+	}
+
 	/**
 	 * Tests the {@link SqlExclusiveTimeCmrProcessor}.
 	 */
@@ -355,6 +439,14 @@ public class CmrDataProcessorsTest {
 		// correct ID set on the clone
 		verify(clone, times(1)).setId(0);
 		verify(httpTimerData, times(0)).setId(0);
+
+		// with the persisting stage only the http data is delegated
+		processor.setPersistingStage(persistingStage);
+		processor.process(timerData, entityManager);
+		processor.process(httpTimerData, entityManager);
+		verify(timerDataAggregator, times(2)).processTimerData(timerData);
+		verify(persistingStage, times(1)).submit(processor, httpTimerData);
+		verifyNoMoreInteractions(persistingStage);
 	}
 
 	/**
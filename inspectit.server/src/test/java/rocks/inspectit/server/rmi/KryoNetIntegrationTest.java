@@ -2,9 +2,14 @@ package rocks.inspectit.server.rmi;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 
@@ -18,13 +23,20 @@ import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BrokenBarrierException;
 import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
+import javax.persistence.EntityManager;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Matchers;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.test.context.ContextConfiguration;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
@@ -33,14 +45,18 @@ import org.testng.annotations.Test;
 
 import com.esotericsoftware.kryonet.rmi.RemoteObject;
 
+import rocks.inspectit.server.processor.impl.SqlTextDictionaryCmrProcessor;
 import rocks.inspectit.server.test.AbstractTransactionalTestNGLogSupport;
+import rocks.inspectit.shared.all.communication.data.SqlStatementData;
 import rocks.inspectit.shared.all.kryonet.Client;
 import rocks.inspectit.shared.all.kryonet.Connection;
 import rocks.inspectit.shared.all.kryonet.ExtendedSerializationImpl;
 import rocks.inspectit.shared.all.kryonet.IExtendedSerialization;
 import rocks.inspectit.shared.all.kryonet.Listener;
 import rocks.inspectit.shared.all.kryonet.Server;
+import rocks.inspectit.shared.all.kryonet.rmi.IAsyncRemoteObject;
 import rocks.inspectit.shared.all.kryonet.rmi.ObjectSpace;
+import rocks.inspectit.shared.all.kryonet.rmi.ResponseFuture;
 import rocks.inspectit.shared.all.storage.nio.stream.StreamProvider;
 import rocks.inspectit.shared.all.storage.serializer.IKryoProvider;
 import rocks.inspectit.shared.all.storage.serializer.provider.SerializationManagerProvider;
@@ -62,6 +78,10 @@ public class KryoNetIntegrationTest extends AbstractTransactionalTestNGLogSuppor
 	@Autowired
 	protected StreamProvider streamProvider;
 
+	@Autowired
+	@Qualifier("kryoNetDecodeExecutorService")
+	protected ExecutorService decodeExecutorService;
+
 	protected Server server;
 
 	protected Client client;
@@ -87,7 +107,7 @@ public class KryoNetIntegrationTest extends AbstractTransactionalTestNGLogSuppor
 			}
 		};
 
-		server = new Server(serialization, streamProvider);
+		server = new Server(serialization, streamProvider, 2, decodeExecutorService);
 		server.start();
 		server.bind(port);
 
@@ -171,6 +191,80 @@ public class KryoNetIntegrationTest extends AbstractTransactionalTestNGLogSuppor
 				verify(service).returnSame(toSend);
 			}
 		}
+
+		@Test
+		public void asynchronous() throws Exception {
+			Service clientService = ObjectSpace.getAsyncRemoteObject(client, 1, Service.class);
+
+			String toSend = "toSend";
+			Object returned = clientService.returnSame(toSend);
+			ResponseFuture<Object> future = ((IAsyncRemoteObject) clientService).getLastResponseFuture();
+
+			assertThat(returned, is(nullValue()));
+			assertThat(future.get(10, TimeUnit.SECONDS), is((Object) toSend));
+			verify(service).returnSame(toSend);
+			verifyNoMoreInteractions(service);
+		}
+
+		@Test
+		public void asynchronousDoesNotAffectBlocking() throws Exception {
+			Service asyncClientService = ObjectSpace.getAsyncRemoteObject(client, 1, Service.class);
+			Service clientService = getServiceForClient();
+
+			asyncClientService.returnSame("async");
+			String toSend = "toSend";
+
+			assertThat(clientService.returnSame(toSend), is((Object) toSend));
+			assertThat(((IAsyncRemoteObject) asyncClientService).getLastResponseFuture().get(10, TimeUnit.SECONDS), is((Object) "async"));
+		}
+
+		@Test
+		public void waitForResponse() throws Exception {
+			Service clientService = getServiceForClient();
+			((RemoteObject) clientService).setNonBlocking(true);
+
+			clientService.returnSame("first");
+			byte firstResponseID = ((RemoteObject) clientService).getLastResponseID();
+			clientService.returnSame("second");
+			byte secondResponseID = ((RemoteObject) clientService).getLastResponseID();
+
+			assertThat(((RemoteObject) clientService).waitForResponse(secondResponseID), is((Object) "second"));
+			assertThat(((RemoteObject) clientService).waitForResponse(firstResponseID), is((Object) "first"));
+		}
+
+		@Test
+		public void manyInFlight() throws Exception {
+			Service clientService = ObjectSpace.getAsyncRemoteObject(client, 1, Service.class);
+
+			// more than the 63 responses the byte response IDs could hold
+			int numCalls = 1024;
+			List<ResponseFuture<Object>> futures = new ArrayList<>(numCalls);
+			for (int i = 0; i < numCalls; i++) {
+				clientService.returnSame(Integer.valueOf(i));
+				futures.add(((IAsyncRemoteObject) clientService).<Object> getLastResponseFuture());
+			}
+
+			for (int i = 0; i < numCalls; i++) {
+				assertThat(futures.get(i).get(10, TimeUnit.SECONDS), is((Object) Integer.valueOf(i)));
+			}
+		}
+
+		@Test
+		public void oneWay() throws Exception {
+			Service clientService = getServiceForClient();
+			((RemoteObject) clientService).setNonBlocking(true);
+			((RemoteObject) clientService).setTransmitReturnValue(false);
+			((RemoteObject) clientService).setTransmitExceptions(false);
+
+			String toSend = "toSend";
+			clientService.returnSame(toSend);
+
+			// sleep as the invocation is done in another thread
+			Thread.sleep(100);
+
+			assertThat(((IAsyncRemoteObject) clientService).getLastResponseFuture(), is(nullValue()));
+			verify(service).returnSame(toSend);
+		}
 	}
 
 	public class Send extends KryoNetIntegrationTest {
@@ -216,6 +310,102 @@ public class KryoNetIntegrationTest extends AbstractTransactionalTestNGLogSuppor
 				verify(listener).received(Matchers.<Connection> anyObject(), eq(toSend));
 			}
 		}
+
+		@Test
+		public void compressed() throws InterruptedException {
+			Set<Object> sendingObjectsSet = getObjectToSend(16);
+
+			client.setCompression(true);
+			try {
+				for (Object toSend : sendingObjectsSet) {
+					client.sendTCP(toSend);
+				}
+			} finally {
+				client.setCompression(false);
+			}
+
+			// sleep as the receiving is done in another thread
+			Thread.sleep(100);
+
+			for (Object toSend : sendingObjectsSet) {
+				verify(listener).received(Matchers.<Connection> anyObject(), eq(toSend));
+			}
+		}
+
+		@Test
+		public void compressedAndPlainInterleaved() throws InterruptedException {
+			int numObjects = 256;
+
+			for (int i = 0; i < numObjects; i++) {
+				client.setCompression((i % 2) == 0);
+				client.sendTCP(Integer.valueOf(i));
+			}
+			client.setCompression(false);
+
+			// sleep as the receiving is done in another thread
+			Thread.sleep(500);
+
+			InOrder inOrder = inOrder(listener);
+			for (int i = 0; i < numObjects; i++) {
+				inOrder.verify(listener).received(Matchers.<Connection> anyObject(), eq(Integer.valueOf(i)));
+			}
+		}
+
+		@Test
+		public void orderPreserved() throws InterruptedException {
+			int numObjects = 1024;
+
+			for (int i = 0; i < numObjects; i++) {
+				client.sendTCP(Integer.valueOf(i));
+			}
+
+			// sleep as the receiving is done in another thread
+			Thread.sleep(500);
+
+			InOrder inOrder = inOrder(listener);
+			for (int i = 0; i < numObjects; i++) {
+				inOrder.verify(listener).received(Matchers.<Connection> anyObject(), eq(Integer.valueOf(i)));
+			}
+		}
+
+		@Test
+		public void sqlTextOnce() throws InterruptedException {
+			long fingerprint = 123456789L;
+			String sql = "SELECT * FROM TEST WHERE ID = ?";
+
+			// as the statement sensor sends it with the sql text once option
+			SqlStatementData withSql = new SqlStatementData();
+			withSql.setSqlFingerprint(fingerprint);
+			withSql.setSql(sql);
+			SqlStatementData withoutSql = new SqlStatementData();
+			withoutSql.setSqlFingerprint(fingerprint);
+
+			client.sendTCP(withSql);
+			client.sendTCP(withoutSql);
+
+			// sleep as the receiving is done in another thread
+			Thread.sleep(100);
+
+			ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+			verify(listener, atLeast(2)).received(Matchers.<Connection> anyObject(), captor.capture());
+			List<SqlStatementData> received = new ArrayList<>();
+			for (Object object : captor.getAllValues()) {
+				if (object instanceof SqlStatementData) {
+					received.add((SqlStatementData) object);
+				}
+			}
+			assertThat(received, hasSize(2));
+			assertThat(received.get(0).getSqlFingerprint(), is(fingerprint));
+			assertThat(received.get(1).getSqlFingerprint(), is(fingerprint));
+			assertThat(received.get(1).getSql(), is(nullValue()));
+
+			SqlTextDictionaryCmrProcessor processor = new SqlTextDictionaryCmrProcessor();
+			EntityManager entityManager = mock(EntityManager.class);
+			processor.process(received.get(0), entityManager);
+			processor.process(received.get(1), entityManager);
+
+			assertThat(received.get(1).getSql(), is(sql));
+		}
 	}
 
 	protected Set<Object> getObjectToSend(int numObjects) {
@@ -1,5 +1,8 @@
 package rocks.inspectit.server.service;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
 import java.lang.ref.SoftReference;
 import java.util.ArrayList;
 import java.util.List;
@@ -14,6 +17,7 @@ import org.testng.annotations.Test;
 
 import rocks.inspectit.server.test.AbstractTestNGLogSupport;
 import rocks.inspectit.server.util.AgentStatusDataProvider;
+import rocks.inspectit.shared.all.cmr.service.IAgentStorageService;
 import rocks.inspectit.shared.all.communication.DefaultData;
 import rocks.inspectit.shared.all.communication.data.TimerData;
 import rocks.inspectit.shared.cs.cmr.service.ICmrManagementService;
@@ -54,21 +58,24 @@ public class AgentStorageServiceTest extends AbstractTestNGLogSupport {
 	}
 
 	/**
-	 * Proves that the data will be dropped after the timeout if there is no place in the queue and
-	 * amount of dropped data be remembered.
+	 * Proves that the data will be rejected after the timeout if there is no place in the queue and
+	 * amount of rejected data be remembered.
 	 */
 	@Test
-	public void dropDataAfterTimeout() {
+	public void rejectDataAfterTimeout() {
 		List<DefaultData> dataList = new ArrayList<>();
 		TimerData timerData = new TimerData();
 		timerData.setPlatformIdent(1L);
 		dataList.add(timerData);
 
-		agentStorageService.addDataObjects(dataList);
-		agentStorageService.addDataObjects(dataList);
+		int firstCapacity = agentStorageService.addDataObjects(dataList);
+		int secondCapacity = agentStorageService.addDataObjects(dataList);
 
+		assertThat(firstCapacity, is(0));
+		assertThat(secondCapacity, is(IAgentStorageService.REJECTED));
 		Mockito.verify(agentStatusDataProvider, Mockito.times(2)).registerDataSent(1L);
-		Mockito.verify(cmrManagementService, Mockito.times(1)).addDroppedDataCount(dataList.size());
+		Mockito.verify(cmrManagementService, Mockito.times(1)).addRejectedDataCount(dataList.size());
+		Mockito.verifyNoMoreInteractions(cmrManagementService);
 	}
 
 	/**
@@ -81,8 +88,9 @@ public class AgentStorageServiceTest extends AbstractTestNGLogSupport {
 		timerData.setPlatformIdent(1L);
 		dataList.add(timerData);
 
-		agentStorageService.addDataObjects(dataList);
+		int capacity = agentStorageService.addDataObjects(dataList);
 
+		assertThat(capacity, is(0));
 		Mockito.verify(agentStatusDataProvider, Mockito.times(1)).registerDataSent(1L);
 		Mockito.verifyZeroInteractions(cmrManagementService);
 	}
@@ -12,7 +12,6 @@ import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
 
-import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FilenameFilter;
 import java.io.IOException;
@@ -44,6 +43,7 @@ import rocks.inspectit.shared.all.storage.serializer.SerializationException;
 import rocks.inspectit.shared.all.storage.serializer.util.KryoUtil;
 import rocks.inspectit.shared.cs.indexing.storage.IStorageDescriptor;
 import rocks.inspectit.shared.cs.indexing.storage.IStorageTreeComponent;
+import rocks.inspectit.shared.cs.indexing.storage.impl.MappedStorageIndex;
 import rocks.inspectit.shared.cs.indexing.storage.impl.StorageIndexQuery;
 import rocks.inspectit.shared.cs.storage.StorageData;
 import rocks.inspectit.shared.cs.storage.StorageFileType;
@@ -238,12 +238,9 @@ public class StorageIntegrationTest extends AbstractTransactionalTestNGLogSuppor
 		assertThat(indexFiles.length, is(equalTo(1)));
 
 		String indexFilePath = indexFiles[0].getPath();
-		byte[] indexTreeBytes = Files.readAllBytes(Paths.get(indexFilePath));
-		assertThat(indexTreeBytes.length, is(greaterThan(0)));
+		assertThat(Files.size(Paths.get(indexFilePath)), is(greaterThan(0L)));
 
-		ByteArrayInputStream bais = new ByteArrayInputStream(indexTreeBytes);
-		Input input = new Input(bais);
-		Object indexingTree = serializer.deserialize(input);
+		Object indexingTree = MappedStorageIndex.read(Paths.get(indexFilePath), serializer);
 		assertThat(indexingTree, is(instanceOf(IStorageTreeComponent.class)));
 
 		storageIndexingTree = (IStorageTreeComponent<?>) indexingTree;
@@ -1,5 +1,6 @@
 package rocks.inspectit.shared.all.cmr.service;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -61,6 +62,40 @@ public interface IAgentService {
 	 */
 	InstrumentationDefinition analyze(long platformIdent, String hash, Type type) throws BusinessException;
 
+	/**
+	 * Analyzes all given types in one call and adds instrumentation points if necessary. Types are
+	 * analyzed in the iteration order of the given map, thus types should come after the types
+	 * they depend on.
+	 *
+	 * @param platformIdent
+	 *            Id of the agent.
+	 * @param hashAndTypes
+	 *            Map of class hash codes to the parsed {@link Type}s representing classes being
+	 *            loaded on the agent.
+	 * @return Map of class hash codes to the instrumentation definitions. Contains only the hashes
+	 *         of the types that should be instrumented.
+	 * @throws BusinessException
+	 *             If agent with specified id does not exist.
+	 */
+	Map<String, InstrumentationDefinition> analyzeAll(long platformIdent, Map<String, Type> hashAndTypes) throws BusinessException;
+
+	/**
+	 * Returns the instrumentation results for the classes the CMR already knows by the hash, so
+	 * that the agent does not need to parse and send them again. Used by the agent on startup to
+	 * pre-warm its class cache when the CMR could not provide the initial instrumentation results.
+	 *
+	 * @param platformIdent
+	 *            Id of the agent.
+	 * @param hashes
+	 *            Class hash codes known to the agent.
+	 * @return Map of the known class hash codes to the instrumentation definitions. Hashes of the
+	 *         known types that should not be instrumented are mapped to <code>null</code>, unknown
+	 *         hashes are not contained in the map.
+	 * @throws BusinessException
+	 *             If agent with specified id does not exist.
+	 */
+	Map<String, InstrumentationDefinition> analyzeKnown(long platformIdent, Collection<String> hashes) throws BusinessException;
+
 	/**
 	 * Informs the CMR that the methods have been instrumented on the agent.
 	 *
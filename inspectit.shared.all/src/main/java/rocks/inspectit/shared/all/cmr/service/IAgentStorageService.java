@@ -15,13 +15,25 @@ import rocks.inspectit.shared.all.communication.DefaultData;
 @ServiceInterface(exporter = ServiceExporterType.RMI, serviceId = 2)
 public interface IAgentStorageService extends Remote {
 
+	/**
+	 * Returned by the {@link #addDataObjects(List)} when the data objects were not accepted because
+	 * the CMR is over its ingest capacity. The agent keeps such data and sends it later.
+	 */
+	int REJECTED = -1;
+
 	/**
 	 * Data Objects are used for all transmissions between the Agent(s), the CMR and the user
 	 * interface.
+	 * <p>
+	 * The returned value is the ingest capacity advertised by the CMR, that is the amount of the
+	 * further data object lists the CMR can accept at the moment. The agent uses it as the credit
+	 * for sending and holds back the data when no credit is left.
 	 *
 	 * @param dataObjects
 	 *            The list containing all the data objects.
+	 * @return Amount of the data object lists the CMR can additionally accept or {@link #REJECTED}
+	 *         if the given list was not accepted.
 	 */
-	void addDataObjects(List<? extends DefaultData> dataObjects);
+	int addDataObjects(List<? extends DefaultData> dataObjects);
 
 }
@@ -25,6 +25,13 @@ public class SqlStatementData extends TimerData {
 	 */
 	private String sql;
 
+	/**
+	 * Fingerprint of the {@link #sql}. Zero means that the fingerprint is not set. If the
+	 * fingerprint is set the {@link #sql} can be <code>null</code> in which case the SQL-String is
+	 * resolved by the CMR from the fingerprint.
+	 */
+	private long sqlFingerprint;
+
 	/**
 	 * The URL that the connection uses.
 	 */
@@ -215,6 +222,25 @@ public class SqlStatementData extends TimerData {
 		}
 	}
 
+	/**
+	 * Gets {@link #sqlFingerprint}.
+	 *
+	 * @return {@link #sqlFingerprint}
+	 */
+	public long getSqlFingerprint() {
+		return sqlFingerprint;
+	}
+
+	/**
+	 * Sets {@link #sqlFingerprint}.
+	 *
+	 * @param sqlFingerprint
+	 *            New value for {@link #sqlFingerprint}
+	 */
+	public void setSqlFingerprint(long sqlFingerprint) {
+		this.sqlFingerprint = sqlFingerprint;
+	}
+
 	/**
 	 * Gets {@link #databaseUrl}.
 	 *
@@ -282,6 +308,7 @@ public class SqlStatementData extends TimerData {
 		result = (prime * result) + ((parameterValues == null) ? 0 : parameterValues.hashCode());
 		result = (prime * result) + (preparedStatement ? 1231 : 1237);
 		result = (prime * result) + ((sql == null) ? 0 : sql.hashCode());
+		result = (prime * result) + (int) (sqlFingerprint ^ (sqlFingerprint >>> 32));
 		result = (prime * result) + ((databaseUrl == null) ? 0 : databaseUrl.hashCode());
 		return result;
 	}
@@ -318,6 +345,9 @@ public class SqlStatementData extends TimerData {
 		} else if (!sql.equals(other.sql)) {
 			return false;
 		}
+		if (sqlFingerprint != other.sqlFingerprint) {
+			return false;
+		}
 		if (databaseUrl == null) {
 			if (other.databaseUrl != null) {
 				return false;
@@ -334,7 +364,7 @@ public class SqlStatementData extends TimerData {
 	@Override
 	public long getObjectSize(IObjectSizes objectSizes, boolean doAlign) {
 		long size = super.getObjectSize(objectSizes, doAlign);
-		size += objectSizes.getPrimitiveTypesSize(6, 1, 0, 0, 0, 0);
+		size += objectSizes.getPrimitiveTypesSize(6, 1, 0, 0, 1, 0);
 		size += objectSizes.getSizeOf(sql);
 		size += objectSizes.getSizeOf(databaseProductName);
 		size += objectSizes.getSizeOf(databaseProductVersion);
@@ -22,7 +22,8 @@ public abstract class AbstractMethodInstrumenter extends AdviceAdapter {
 	protected boolean isStatic;
 
 	/**
-	 * Id of the method. This id will be passed to the dispatcher.
+	 * Id of the method. This id will be passed to the dispatcher, thus it is the dispatch index
+	 * of the method when the dispatcher is called.
 	 */
 	protected long methodId;
 
@@ -31,6 +32,13 @@ public abstract class AbstractMethodInstrumenter extends AdviceAdapter {
 	 */
 	protected boolean enhancedExceptionSensor;
 
+	/**
+	 * If only the method id (and the created object for constructors) should be passed to the
+	 * dispatcher. Used when none of the sensors needs the parameters, the object or the return
+	 * value, so that no argument array is created and no primitive is boxed.
+	 */
+	protected boolean leanDispatch;
+
 	/**
 	 * The label for the start of the try/finally or try/catch/finally block that we are adding.
 	 */
@@ -69,9 +77,33 @@ public abstract class AbstractMethodInstrumenter extends AdviceAdapter {
 	 *            Marker declaring if enhanced exception sensor is active.
 	 */
 	protected AbstractMethodInstrumenter(MethodVisitor mv, int access, String name, String desc, long methodId, boolean enhancedExceptionSensor) {
+		this(mv, access, name, desc, methodId, enhancedExceptionSensor, false);
+	}
+
+	/**
+	 * Constructor for the method instrumenter that defines if the lean dispatch should be used.
+	 *
+	 * @param mv
+	 *            Super method visitor.
+	 * @param access
+	 *            Method access code.
+	 * @param name
+	 *            Method name.
+	 * @param desc
+	 *            Method description.
+	 * @param methodId
+	 *            Method id that will be passed to {@link IHookDispatcher}.
+	 * @param enhancedExceptionSensor
+	 *            Marker declaring if enhanced exception sensor is active.
+	 * @param leanDispatch
+	 *            If only the method id (and the created object for constructors) should be
+	 *            passed to the dispatcher.
+	 */
+	protected AbstractMethodInstrumenter(MethodVisitor mv, int access, String name, String desc, long methodId, boolean enhancedExceptionSensor, boolean leanDispatch) {
 		super(Opcodes.ASM5, mv, access, name, desc);
 		this.methodId = methodId;
 		this.enhancedExceptionSensor = enhancedExceptionSensor;
+		this.leanDispatch = leanDispatch;
 		this.isStatic = (access & Opcodes.ACC_STATIC) != 0;
 	}
 
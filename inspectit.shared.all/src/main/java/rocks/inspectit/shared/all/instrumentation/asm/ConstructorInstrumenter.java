@@ -35,6 +35,31 @@ public class ConstructorInstrumenter extends AbstractMethodInstrumenter {
 		super(mv, access, name, desc, methodId, enhancedExceptionSensor);
 	}
 
+	/**
+	 * Constructor that additionally defines if the lean dispatch should be used.
+	 *
+	 * @param mv
+	 *            Super method visitor.
+	 * @param access
+	 *            Method access code.
+	 * @param name
+	 *            Method name.
+	 * @param desc
+	 *            Method description.
+	 * @param methodId
+	 *            Method id that will be passed to {@link IHookDispatcher}.
+	 * @param enhancedExceptionSensor
+	 *            Marker declaring if enhanced exception sensor is active.
+	 * @param leanDispatch
+	 *            If only the method id and the created object should be passed to the
+	 *            {@link IHookDispatcher} before and after the body.
+	 * @see AbstractMethodInstrumenter#AbstractMethodInstrumenter(MethodVisitor, int, String,
+	 *      String, long, boolean, boolean)
+	 */
+	public ConstructorInstrumenter(MethodVisitor mv, int access, String name, String desc, long methodId, boolean enhancedExceptionSensor, boolean leanDispatch) {
+		super(mv, access, name, desc, methodId, enhancedExceptionSensor, leanDispatch);
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -112,7 +137,8 @@ public class ConstructorInstrumenter extends AbstractMethodInstrumenter {
 
 	/**
 	 * Generates code for calling
-	 * {@link IHookDispatcher#dispatchConstructorBeforeBody(long, Object[])}.
+	 * {@link IHookDispatcher#dispatchConstructorBeforeBody(long, Object[])} or
+	 * {@link IHookDispatcher#dispatchConstructorBeforeBody(long)} with lean dispatch.
 	 */
 	private void generateBeforeBodyCall() {
 		// load hook dispatcher
@@ -121,6 +147,12 @@ public class ConstructorInstrumenter extends AbstractMethodInstrumenter {
 		// first push method id
 		push(methodId);
 
+		if (leanDispatch) {
+			mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, IInstrumenterConstant.IHOOK_DISPATCHER_INTERNAL_NAME, "dispatchConstructorBeforeBody", IInstrumenterConstant.DISPATCH_LEAN_DESCRIPTOR,
+					true);
+			return;
+		}
+
 		// then parameters
 		loadArgArray();
 
@@ -130,8 +162,9 @@ public class ConstructorInstrumenter extends AbstractMethodInstrumenter {
 
 	/**
 	 * Generates code for calling
-	 * {@link IHookDispatcher#dispatchConstructorAfterBody(long, Object, Object[])}. This method
-	 * expect that created instance is on the stack and can be consumed.
+	 * {@link IHookDispatcher#dispatchConstructorAfterBody(long, Object, Object[])} or
+	 * {@link IHookDispatcher#dispatchConstructorAfterBody(long, Object)} with lean dispatch. This
+	 * method expect that created instance is on the stack and can be consumed.
 	 */
 	private void generateAfterBodyCall() {
 		// prepare for calls
@@ -149,6 +182,12 @@ public class ConstructorInstrumenter extends AbstractMethodInstrumenter {
 		pop2();
 		// l-l2-r :)
 
+		if (leanDispatch) {
+			mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, IInstrumenterConstant.IHOOK_DISPATCHER_INTERNAL_NAME, "dispatchConstructorAfterBody",
+					IInstrumenterConstant.DISPATCH_CONSTRUCTOR_AFTER_BODY_LEAN_DESCRIPTOR, true);
+			return;
+		}
+
 		// then parameters, no need to swap
 		loadArgArray();
 
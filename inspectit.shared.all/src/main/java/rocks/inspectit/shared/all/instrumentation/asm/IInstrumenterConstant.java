@@ -25,6 +25,16 @@ public interface IInstrumenterConstant {
 	 */
 	String IHOOK_DISPATCHER_INTERNAL_NAME = "rocks/inspectit/agent/java/hooking/IHookDispatcher";
 
+	/**
+	 * Internal name of our InlinedTimer.
+	 */
+	String INLINED_TIMER_INTERNAL_NAME = "rocks/inspectit/agent/java/hooking/InlinedTimer";
+
+	/**
+	 * {@link System} internal name.
+	 */
+	String SYSTEM_INTERNAL_NAME = Type.getInternalName(System.class);
+
 	/**
 	 * {@link Throwable} internal name.
 	 */
@@ -45,6 +55,16 @@ public interface IInstrumenterConstant {
 	 */
 	String IAGENT_LOAD_CLASS_METHOD_DESCRIPTOR = Type.getMethodDescriptor(Type.getType(Class.class), Type.getType(Object[].class));
 
+	/**
+	 * {@link System#nanoTime()} descriptor.
+	 */
+	String NANO_TIME_DESCRIPTOR = Type.getMethodDescriptor(Type.LONG_TYPE);
+
+	/**
+	 * {@link InlinedTimer#recordDuration(int, long)} descriptor.
+	 */
+	String RECORD_DURATION_DESCRIPTOR = Type.getMethodDescriptor(Type.VOID_TYPE, Type.INT_TYPE, Type.LONG_TYPE);
+
 	/**
 	 * {@link IHookDispatcher#dispatchMethodBeforeBody(long, Object, Object[])} descriptor.
 	 */
@@ -57,6 +77,14 @@ public interface IInstrumenterConstant {
 	 */
 	String DISPATCH_METHOD_AFTER_BODY_DESCRIPTOR = Type.getMethodDescriptor(Type.VOID_TYPE, Type.LONG_TYPE, Type.getType(Object.class), Type.getType(Object[].class), Type.getType(Object.class));
 
+	/**
+	 * {@link IHookDispatcher#dispatchMethodBeforeBody(long)},
+	 * {@link IHookDispatcher#dispatchFirstMethodAfterBody(long)},
+	 * {@link IHookDispatcher#dispatchSecondMethodAfterBody(long)} and
+	 * {@link IHookDispatcher#dispatchConstructorBeforeBody(long)} descriptor.
+	 */
+	String DISPATCH_LEAN_DESCRIPTOR = Type.getMethodDescriptor(Type.VOID_TYPE, Type.LONG_TYPE);
+
 	/**
 	 * {@link IHookDispatcher#dispatchBeforeCatch(long, Object)} descriptor.
 	 */
@@ -72,6 +100,11 @@ public interface IInstrumenterConstant {
 	 */
 	String DISPATCH_CONSTRUCTOR_AFTER_BODY_DESCRIPTOR = Type.getMethodDescriptor(Type.VOID_TYPE, Type.LONG_TYPE, Type.getType(Object.class), Type.getType(Object[].class));
 
+	/**
+	 * {@link IHookDispatcher#dispatchConstructorAfterBody(long, Object)} descriptor.
+	 */
+	String DISPATCH_CONSTRUCTOR_AFTER_BODY_LEAN_DESCRIPTOR = Type.getMethodDescriptor(Type.VOID_TYPE, Type.LONG_TYPE, Type.getType(Object.class));
+
 	/**
 	 * {@link IHookDispatcher#dispatchConstructorBeforeCatch(long, Object)} descriptor.
 	 */
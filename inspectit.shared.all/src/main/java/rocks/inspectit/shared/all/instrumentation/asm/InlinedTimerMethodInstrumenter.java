@@ -0,0 +1,117 @@
+package rocks.inspectit.shared.all.instrumentation.asm;
+
+import info.novatec.inspectit.org.objectweb.asm.Label;
+import info.novatec.inspectit.org.objectweb.asm.MethodVisitor;
+import info.novatec.inspectit.org.objectweb.asm.Opcodes;
+import info.novatec.inspectit.org.objectweb.asm.Type;
+
+/**
+ * Instruments methods with the inlined timer. The start time is kept in a new local variable of
+ * the instrumented method and on every exit the duration is recorded directly with the static
+ * {@link InlinedTimer#recordDuration(int, long)} call to the preallocated slot of the method. The
+ * {@link IHookDispatcher} is not involved at all.
+ * <p>
+ * Can only be used for the methods that are not constructors and when the enhanced exception
+ * sensor is not active.
+ */
+public class InlinedTimerMethodInstrumenter extends AbstractMethodInstrumenter {
+
+	/**
+	 * Slot of the method in the inlined timer.
+	 */
+	private final int slot;
+
+	/**
+	 * Index of the local variable holding the start time.
+	 */
+	private int startTimeLocal;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param mv
+	 *            Super method visitor.
+	 * @param access
+	 *            Method access code.
+	 * @param name
+	 *            Method name.
+	 * @param desc
+	 *            Method description.
+	 * @param methodId
+	 *            Method id.
+	 * @param slot
+	 *            Slot of the method in the inlined timer.
+	 */
+	public InlinedTimerMethodInstrumenter(MethodVisitor mv, int access, String name, String desc, long methodId, int slot) {
+		super(mv, access, name, desc, methodId, false);
+		this.slot = slot;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void onMethodEnter() {
+		startTimeLocal = newLocal(Type.LONG_TYPE);
+		mv.visitMethodInsn(Opcodes.INVOKESTATIC, IInstrumenterConstant.SYSTEM_INTERNAL_NAME, "nanoTime", IInstrumenterConstant.NANO_TIME_DESCRIPTOR, false);
+		mv.visitVarInsn(Opcodes.LSTORE, startTimeLocal);
+
+		// start our try block
+		visitLabel(tryBlockStart);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void onMethodExit(int opcode) {
+		// if exception is thrown the duration is recorded in the finally block we are adding
+		if (opcode == ATHROW) {
+			return;
+		}
+
+		generateRecordDurationCall();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void visitMaxs(int maxStack, int maxLocals) {
+		// the definition of the end of the try block
+		Label tryBlockEnd = new Label();
+		visitLabel(tryBlockEnd);
+
+		// setup for the finally block
+		super.visitTryCatchBlock(tryBlockStart, tryBlockEnd, finallyHandler, null);
+		visitLabel(finallyHandler);
+
+		generateRecordDurationCall();
+
+		mv.visitInsn(ATHROW);
+
+		// update the max stack stuff
+		super.visitMaxs(maxStack, maxLocals);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Never called as the inlined timer is not used with the enhanced exception sensor.
+	 */
+	@Override
+	protected void generateBeforeCatchCall() {
+		// nothing to do
+	}
+
+	/**
+	 * Generates the {@link InlinedTimer#recordDuration(int, long)} call. Nothing is expected or
+	 * left on the stack.
+	 */
+	private void generateRecordDurationCall() {
+		push(slot);
+		mv.visitVarInsn(Opcodes.LLOAD, startTimeLocal);
+		mv.visitMethodInsn(Opcodes.INVOKESTATIC, IInstrumenterConstant.INLINED_TIMER_INTERNAL_NAME, "recordDuration", IInstrumenterConstant.RECORD_DURATION_DESCRIPTOR, false);
+	}
+
+}
@@ -36,6 +36,31 @@ public class MethodInstrumenter extends AbstractMethodInstrumenter {
 		super(mv, access, name, desc, methodId, enhancedExceptionSensor);
 	}
 
+	/**
+	 * Constructor that additionally defines if the lean dispatch should be used.
+	 *
+	 * @param mv
+	 *            Super method visitor.
+	 * @param access
+	 *            Method access code.
+	 * @param name
+	 *            Method name.
+	 * @param desc
+	 *            Method description.
+	 * @param methodId
+	 *            Method id that will be passed to {@link IHookDispatcher}.
+	 * @param enhancedExceptionSensor
+	 *            Marker declaring if enhanced exception sensor is active.
+	 * @param leanDispatch
+	 *            If only the method id should be passed to the {@link IHookDispatcher} before and
+	 *            after the body.
+	 * @see AbstractMethodInstrumenter#AbstractMethodInstrumenter(MethodVisitor, int, String,
+	 *      String, long, boolean, boolean)
+	 */
+	public MethodInstrumenter(MethodVisitor mv, int access, String name, String desc, long methodId, boolean enhancedExceptionSensor, boolean leanDispatch) {
+		super(mv, access, name, desc, methodId, enhancedExceptionSensor, leanDispatch);
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -59,6 +84,13 @@ public class MethodInstrumenter extends AbstractMethodInstrumenter {
 			return;
 		}
 
+		// lean dispatch does not need the result, nothing is duplicated
+		if (leanDispatch) {
+			generateLeanCall("dispatchFirstMethodAfterBody");
+			generateLeanCall("dispatchSecondMethodAfterBody");
+			return;
+		}
+
 		// just ensure that result is duplicated on the stack
 		// since we are calling two methods, make 2 copies of result on stack
 		// in case of void return or push null since we don't have result
@@ -111,11 +143,16 @@ public class MethodInstrumenter extends AbstractMethodInstrumenter {
 		visitLabel(finallyHandler);
 
 		// generate code for calling first and second
-		// push nulls as we don't have a result
-		pushNull();
-		pushNull();
-		generateAfterBodyCall("dispatchFirstMethodAfterBody");
-		generateAfterBodyCall("dispatchSecondMethodAfterBody");
+		if (leanDispatch) {
+			generateLeanCall("dispatchFirstMethodAfterBody");
+			generateLeanCall("dispatchSecondMethodAfterBody");
+		} else {
+			// push nulls as we don't have a result
+			pushNull();
+			pushNull();
+			generateAfterBodyCall("dispatchFirstMethodAfterBody");
+			generateAfterBodyCall("dispatchSecondMethodAfterBody");
+		}
 
 		mv.visitInsn(ATHROW);
 
@@ -127,6 +164,11 @@ public class MethodInstrumenter extends AbstractMethodInstrumenter {
 	 * Generates before body call.
 	 */
 	private void generateBeforeBodyCall() {
+		if (leanDispatch) {
+			generateLeanCall("dispatchMethodBeforeBody");
+			return;
+		}
+
 		// load hook dispatcher
 		loadHookDispatcher();
 
@@ -147,6 +189,21 @@ public class MethodInstrumenter extends AbstractMethodInstrumenter {
 				true);
 	}
 
+	/**
+	 * Generates the lean dispatcher call that passes only the method id. Nothing is expected or
+	 * left on the stack.
+	 *
+	 * @param method
+	 *            method to be called can be only {@link IHookDispatcher#dispatchMethodBeforeBody(long)},
+	 *            {@link IHookDispatcher#dispatchFirstMethodAfterBody(long)} or
+	 *            {@link IHookDispatcher#dispatchSecondMethodAfterBody(long)}
+	 */
+	private void generateLeanCall(String method) {
+		loadHookDispatcher();
+		push(methodId);
+		mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, IInstrumenterConstant.IHOOK_DISPATCHER_INTERNAL_NAME, method, IInstrumenterConstant.DISPATCH_LEAN_DESCRIPTOR, true);
+	}
+
 	/**
 	 * Generates code for the after body call. This method expects the result of the method call on
 	 * the stack that can be consumed.
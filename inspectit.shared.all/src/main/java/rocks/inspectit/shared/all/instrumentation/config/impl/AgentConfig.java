@@ -27,6 +27,11 @@ public class AgentConfig {
 	 */
 	private boolean classCacheExistsOnCmr;
 
+	/**
+	 * If the agent should compress the data it sends to the CMR.
+	 */
+	private boolean dataCompression;
+
 	/**
 	 * Collection of the platform sensor types that should be active.
 	 */
@@ -108,6 +113,25 @@ public class AgentConfig {
 		this.classCacheExistsOnCmr = classCacheExistsOnCmr;
 	}
 
+	/**
+	 * Gets {@link #dataCompression}.
+	 *
+	 * @return {@link #dataCompression}
+	 */
+	public boolean isDataCompression() {
+		return dataCompression;
+	}
+
+	/**
+	 * Sets {@link #dataCompression}.
+	 *
+	 * @param dataCompression
+	 *            New value for {@link #dataCompression}
+	 */
+	public void setDataCompression(boolean dataCompression) {
+		this.dataCompression = dataCompression;
+	}
+
 	/**
 	 * Gets {@link #platformSensorTypeConfigs}.
 	 *
@@ -290,6 +314,7 @@ public class AgentConfig {
 		result = (prime * result) + ((bufferStrategyConfig == null) ? 0 : bufferStrategyConfig.hashCode());
 		result = (prime * result) + (classCacheExistsOnCmr ? 1231 : 1237);
 		result = (prime * result) + ((configurationInfo == null) ? 0 : configurationInfo.hashCode());
+		result = (prime * result) + (dataCompression ? 1231 : 1237);
 		result = (prime * result) + ((exceptionSensorTypeConfig == null) ? 0 : exceptionSensorTypeConfig.hashCode());
 		result = (prime * result) + ((excludeClassesPatterns == null) ? 0 : excludeClassesPatterns.hashCode());
 		result = (prime * result) + ((initialInstrumentationResults == null) ? 0 : initialInstrumentationResults.hashCode());
@@ -325,6 +350,9 @@ public class AgentConfig {
 		if (classCacheExistsOnCmr != other.classCacheExistsOnCmr) {
 			return false;
 		}
+		if (dataCompression != other.dataCompression) {
+			return false;
+		}
 		if (configurationInfo == null) {
 			if (other.configurationInfo != null) {
 				return false;
@@ -12,6 +12,7 @@ import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.ArrayUtils;
 
 import rocks.inspectit.shared.all.instrumentation.asm.ConstructorInstrumenter;
+import rocks.inspectit.shared.all.instrumentation.asm.InlinedTimerMethodInstrumenter;
 import rocks.inspectit.shared.all.instrumentation.asm.MethodInstrumenter;
 import rocks.inspectit.shared.all.instrumentation.config.IMethodInstrumentationPoint;
 import rocks.inspectit.shared.all.instrumentation.config.PriorityEnum;
@@ -52,6 +53,31 @@ public class SensorInstrumentationPoint implements IMethodInstrumentationPoint {
 	 */
 	private boolean startsInvocation;
 
+	/**
+	 * If any of the sensors needs the parameters, the object or the return value of the method.
+	 * If not, only the method id is passed to the dispatcher (and the created object for the
+	 * constructors).
+	 */
+	private boolean argumentsNeeded;
+
+	/**
+	 * If the timer should be inlined in the instrumented method. Only respected if the timer is the
+	 * only sensor, see {@link #isInlinedTimerApplicable(boolean)}.
+	 */
+	private boolean inlinedTimer;
+
+	/**
+	 * Slot of the method in the agent inlined timer. Assigned by the agent before the
+	 * instrumentation, negative if not assigned.
+	 */
+	private transient int inlinedTimerSlot = -1;
+
+	/**
+	 * Index passed by the instrumented method to the agent hook dispatcher instead of the id.
+	 * Assigned by the agent before the instrumentation.
+	 */
+	private transient int dispatchIndex = -1;
+
 	/**
 	 * Additional settings are stored in this map.
 	 */
@@ -67,13 +93,43 @@ public class SensorInstrumentationPoint implements IMethodInstrumentationPoint {
 	 * {@inheritDoc}
 	 */
 	public MethodVisitor getMethodVisitor(MethodVisitor superMethodVisitor, int access, String name, String desc, boolean enhancedExceptionSensor) {
+		if (isInlinedTimerApplicable(enhancedExceptionSensor)) {
+			return new InlinedTimerMethodInstrumenter(superMethodVisitor, access, name, desc, id, inlinedTimerSlot);
+		}
+
+		boolean leanDispatch = isLeanDispatch();
 		if (constructor) {
-			return new ConstructorInstrumenter(superMethodVisitor, access, name, desc, id, enhancedExceptionSensor);
+			return new ConstructorInstrumenter(superMethodVisitor, access, name, desc, dispatchIndex, enhancedExceptionSensor, leanDispatch);
 		} else {
-			return new MethodInstrumenter(superMethodVisitor, access, name, desc, id, enhancedExceptionSensor);
+			return new MethodInstrumenter(superMethodVisitor, access, name, desc, dispatchIndex, enhancedExceptionSensor, leanDispatch);
 		}
 	}
 
+	/**
+	 * Defines if the lean dispatch can be used for this instrumentation point. This is possible if
+	 * no sensor needs the arguments and no property accessors are defined.
+	 *
+	 * @return <code>true</code> if only the method id (and the created object for the
+	 *         constructors) needs to be passed to the dispatcher.
+	 */
+	public boolean isLeanDispatch() {
+		return !argumentsNeeded && !isPropertyAccess();
+	}
+
+	/**
+	 * Defines if the inlined timer can be used for this instrumentation point. This is possible if
+	 * the inlined timer is requested and the slot is assigned, the timer is the only sensor, no
+	 * invocation is started and the lean dispatch could be used. Constructors and the enhanced
+	 * exception sensor are not supported.
+	 *
+	 * @param enhancedExceptionSensor
+	 *            Marker declaring if enhanced exception sensor is active.
+	 * @return <code>true</code> if the method can be instrumented with the inlined timer.
+	 */
+	public boolean isInlinedTimerApplicable(boolean enhancedExceptionSensor) {
+		return inlinedTimer && (inlinedTimerSlot >= 0) && !constructor && !startsInvocation && (1 == sensorIds.length) && isLeanDispatch() && !enhancedExceptionSensor;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -187,6 +243,82 @@ public class SensorInstrumentationPoint implements IMethodInstrumentationPoint {
 		this.constructor = constructor;
 	}
 
+	/**
+	 * Gets {@link #argumentsNeeded}.
+	 *
+	 * @return {@link #argumentsNeeded}
+	 */
+	public boolean isArgumentsNeeded() {
+		return argumentsNeeded;
+	}
+
+	/**
+	 * Sets {@link #argumentsNeeded}.
+	 *
+	 * @param argumentsNeeded
+	 *            New value for {@link #argumentsNeeded}
+	 */
+	public void setArgumentsNeeded(boolean argumentsNeeded) {
+		this.argumentsNeeded = argumentsNeeded;
+	}
+
+	/**
+	 * Gets {@link #inlinedTimer}.
+	 *
+	 * @return {@link #inlinedTimer}
+	 */
+	public boolean isInlinedTimer() {
+		return inlinedTimer;
+	}
+
+	/**
+	 * Sets {@link #inlinedTimer}.
+	 *
+	 * @param inlinedTimer
+	 *            New value for {@link #inlinedTimer}
+	 */
+	public void setInlinedTimer(boolean inlinedTimer) {
+		this.inlinedTimer = inlinedTimer;
+	}
+
+	/**
+	 * Gets {@link #inlinedTimerSlot}.
+	 *
+	 * @return {@link #inlinedTimerSlot}
+	 */
+	public int getInlinedTimerSlot() {
+		return inlinedTimerSlot;
+	}
+
+	/**
+	 * Sets {@link #inlinedTimerSlot}.
+	 *
+	 * @param inlinedTimerSlot
+	 *            New value for {@link #inlinedTimerSlot}
+	 */
+	public void setInlinedTimerSlot(int inlinedTimerSlot) {
+		this.inlinedTimerSlot = inlinedTimerSlot;
+	}
+
+	/**
+	 * Gets {@link #dispatchIndex}.
+	 *
+	 * @return {@link #dispatchIndex}
+	 */
+	public int getDispatchIndex() {
+		return dispatchIndex;
+	}
+
+	/**
+	 * Sets {@link #dispatchIndex}.
+	 *
+	 * @param dispatchIndex
+	 *            New value for {@link #dispatchIndex}
+	 */
+	public void setDispatchIndex(int dispatchIndex) {
+		this.dispatchIndex = dispatchIndex;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -232,6 +232,16 @@ public class Connection {
 		tcp.timeoutMillis = timeoutMillis;
 	}
 
+	/**
+	 * Sets if the objects sent over TCP are compressed. The remote end recognizes the compressed
+	 * objects by the length header, thus it does not have to be configured. Worth enabling when the
+	 * bandwidth is more limited than the CPU. Defaults to false.
+	 */
+	// Added by ISE
+	public void setCompression(boolean compression) {
+		tcp.compression = compression;
+	}
+
 	/** If the listener already exists, it is not added again. */
 	public void addListener(Listener listener) {
 		if (listener == null)
@@ -23,6 +23,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryo.util.IntMap;
@@ -38,6 +40,12 @@ import com.esotericsoftware.kryonet.KryoNetException;
 /**
  * Manages TCP and optionally UDP connections from many {@link Client Clients}.
  * <p>
+ * The server can be created with a number of reactors and a decode executor (added by ISE). The
+ * accepted TCP connections are then assigned to the reactors in round-robin, each reactor
+ * selecting its connections in an own thread. The objects are deserialized and passed to the
+ * listeners in the decode executor, at most one object of a connection at a time, thus the order
+ * of the objects received from one connection is preserved.
+ * <p>
  * <b>IMPORTANT:</b> The class code is copied/taken/based from <a
  * href="https://github.com/EsotericSoftware/kryonet">kryonet</a>. Original author is Nathan Sweet.
  * License info can be found <a
@@ -70,6 +78,23 @@ public class Server implements EndPoint {
 	private Thread updateThread;
 	private ByteBuffer emptyBuffer = ByteBuffer.allocate(0);
 
+	/**
+	 * Reactors selecting the TCP connections. If empty, the connections are selected in the
+	 * update thread.
+	 */
+	private final Reactor[] reactors; // Added by ISE
+
+	/**
+	 * Index of the reactor to assign the next accepted connection to.
+	 */
+	private int nextReactor; // Added by ISE
+
+	/**
+	 * Executor to deserialize objects and notify listeners in. If <code>null</code> the objects are
+	 * deserialized in the selecting thread.
+	 */
+	private final Executor decodeExecutor; // Added by ISE
+
 	private Listener dispatchListener = new Listener() {
 		public void connected(Connection connection) {
 			Listener[] listeners = Server.this.listeners;
@@ -106,9 +131,31 @@ public class Server implements EndPoint {
 
 	// Changed by ISE: added StreamProvider, changed to IExtendedSerialization
 	public Server(int writeBufferSize, int objectBufferSize, IExtendedSerialization serialization, StreamProvider streamProvider) {
+		this(writeBufferSize, objectBufferSize, serialization, streamProvider, 0, null);
+	}
+
+	/**
+	 * @param reactorCount
+	 *            Number of reactors selecting the TCP connections, each running in an own thread
+	 *            started by {@link #run()}. May be zero to select the connections in the update
+	 *            thread.
+	 * @param decodeExecutor
+	 *            Executor to deserialize the received objects and notify listeners in. May be null
+	 *            to deserialize in the selecting thread.
+	 */
+	// Added by ISE
+	public Server(IExtendedSerialization serialization, StreamProvider streamProvider, int reactorCount, Executor decodeExecutor) {
+		this(0, serialization.getLengthLength(), serialization, streamProvider, reactorCount, decodeExecutor);
+	}
+
+	// Added by ISE
+	public Server(int writeBufferSize, int objectBufferSize, IExtendedSerialization serialization, StreamProvider streamProvider, int reactorCount, Executor decodeExecutor) {
+		if (reactorCount < 0)
+			throw new IllegalArgumentException("reactorCount cannot be negative.");
 		this.writeBufferSize = writeBufferSize;
 		this.objectBufferSize = objectBufferSize;
 		this.streamProvider = streamProvider; // Added by ISE.
+		this.decodeExecutor = decodeExecutor; // Added by ISE.
 
 		this.serialization = serialization;
 
@@ -117,6 +164,11 @@ public class Server implements EndPoint {
 		} catch (IOException ex) {
 			throw new RuntimeException("Error opening selector.", ex);
 		}
+
+		// Added by ISE
+		reactors = new Reactor[reactorCount];
+		for (int i = 0; i < reactorCount; i++)
+			reactors[i] = new Reactor(i + 1);
 	}
 
 	public Serialization getSerialization() {
@@ -223,51 +275,7 @@ public class Server implements EndPoint {
 						int ops = selectionKey.readyOps();
 
 						if (fromConnection != null) { // Must be a TCP read or write operation.
-							if (udp != null && fromConnection.udpRemoteAddress == null) {
-								fromConnection.close();
-								continue;
-							}
-							if ((ops & SelectionKey.OP_READ) == SelectionKey.OP_READ) {
-								try {
-									while (true) {
-										Object object = fromConnection.tcp.readObject(fromConnection);
-										if (object == null)
-											break;
-										if (DEBUG) {
-											String objectString = object == null ? "null" : object.getClass().getSimpleName();
-											if (!(object instanceof FrameworkMessage)) {
-												debug("kryonet", fromConnection + " received TCP: " + objectString);
-											} else if (TRACE) {
-												trace("kryonet", fromConnection + " received TCP: " + objectString);
-											}
-										}
-										fromConnection.notifyReceived(object);
-									}
-								} catch (IOException ex) {
-									if (TRACE) {
-										trace("kryonet", "Unable to read TCP from: " + fromConnection, ex);
-									} else if (DEBUG) {
-										debug("kryonet", fromConnection + " update: " + ex.getMessage());
-									}
-									fromConnection.close();
-								} catch (KryoNetException ex) {
-									if (ERROR)
-										error("kryonet", "Error reading TCP from connection: " + fromConnection, ex);
-									fromConnection.close();
-								}
-							}
-							if ((ops & SelectionKey.OP_WRITE) == SelectionKey.OP_WRITE) {
-								try {
-									fromConnection.tcp.writeOperation();
-								} catch (IOException ex) {
-									if (TRACE) {
-										trace("kryonet", "Unable to write TCP to connection: " + fromConnection, ex);
-									} else if (DEBUG) {
-										debug("kryonet", fromConnection + " update: " + ex.getMessage());
-									}
-									fromConnection.close();
-								}
-							}
+							tcpOperation(fromConnection, ops); // Changed by ISE: extracted for the reactors
 							continue;
 						}
 
@@ -399,10 +407,129 @@ public class Server implements EndPoint {
 		}
 	}
 
+	/**
+	 * Reads or writes pending data of the TCP connection.
+	 */
+	// Added by ISE: extracted from update(int) so that the reactors can use it
+	private void tcpOperation(Connection fromConnection, int ops) {
+		if (udp != null && fromConnection.udpRemoteAddress == null) {
+			fromConnection.close();
+			return;
+		}
+		if ((ops & SelectionKey.OP_READ) == SelectionKey.OP_READ) {
+			try {
+				if (decodeExecutor != null) {
+					decodeOperation(fromConnection);
+				} else {
+					while (true) {
+						Object object = fromConnection.tcp.readObject(fromConnection);
+						if (object == null)
+							break;
+						logReceived(fromConnection, object);
+						fromConnection.notifyReceived(object);
+					}
+				}
+			} catch (IOException ex) {
+				if (TRACE) {
+					trace("kryonet", "Unable to read TCP from: " + fromConnection, ex);
+				} else if (DEBUG) {
+					debug("kryonet", fromConnection + " update: " + ex.getMessage());
+				}
+				fromConnection.close();
+			} catch (KryoNetException ex) {
+				if (ERROR)
+					error("kryonet", "Error reading TCP from connection: " + fromConnection, ex);
+				fromConnection.close();
+			}
+		}
+		if ((ops & SelectionKey.OP_WRITE) == SelectionKey.OP_WRITE) {
+			try {
+				fromConnection.tcp.writeOperation();
+			} catch (IOException ex) {
+				if (TRACE) {
+					trace("kryonet", "Unable to write TCP to connection: " + fromConnection, ex);
+				} else if (DEBUG) {
+					debug("kryonet", fromConnection + " update: " + ex.getMessage());
+				}
+				fromConnection.close();
+			}
+		}
+	}
+
+	/**
+	 * Reads the length of the next object and passes the reading of the object to the decode
+	 * executor. The read operations of the connection are suspended until the object is passed to
+	 * the listeners, so the objects of one connection are never decoded concurrently.
+	 */
+	// Added by ISE
+	private void decodeOperation(final Connection fromConnection) throws IOException {
+		final int length = fromConnection.tcp.readObjectLength();
+		if (length == 0)
+			return;
+		fromConnection.tcp.suspendRead();
+		try {
+			decodeExecutor.execute(new Runnable() {
+				public void run() {
+					decode(fromConnection, length);
+				}
+			});
+		} catch (RejectedExecutionException ex) {
+			decode(fromConnection, length);
+		}
+	}
+
+	/**
+	 * Reads the object of the given length, notifies the listeners and resumes the reading of the
+	 * connection.
+	 */
+	// Added by ISE
+	private void decode(Connection fromConnection, int length) {
+		Object object;
+		try {
+			object = fromConnection.tcp.readObject(fromConnection, length);
+		} catch (IOException ex) {
+			if (TRACE) {
+				trace("kryonet", "Unable to read TCP from: " + fromConnection, ex);
+			} else if (DEBUG) {
+				debug("kryonet", fromConnection + " update: " + ex.getMessage());
+			}
+			fromConnection.close();
+			return;
+		} catch (KryoNetException ex) {
+			if (ERROR)
+				error("kryonet", "Error reading TCP from connection: " + fromConnection, ex);
+			fromConnection.close();
+			return;
+		}
+
+		try {
+			logReceived(fromConnection, object);
+			fromConnection.notifyReceived(object);
+		} catch (RuntimeException ex) {
+			if (ERROR)
+				error("kryonet", "Error notifying listeners of object received from connection: " + fromConnection, ex);
+		} finally {
+			fromConnection.tcp.resumeRead();
+		}
+	}
+
+	// Added by ISE: extracted from update(int)
+	private void logReceived(Connection fromConnection, Object object) {
+		if (DEBUG) {
+			String objectString = object == null ? "null" : object.getClass().getSimpleName();
+			if (!(object instanceof FrameworkMessage)) {
+				debug("kryonet", fromConnection + " received TCP: " + objectString);
+			} else if (TRACE) {
+				trace("kryonet", fromConnection + " received TCP: " + objectString);
+			}
+		}
+	}
+
 	public void run() {
 		if (TRACE)
 			trace("kryonet", "Server thread started.");
 		shutdown = false;
+		startReactors(); // Added by ISE
 		while (!shutdown) {
 			try {
 				update(250);
@@ -429,7 +556,30 @@ public class Server implements EndPoint {
 		shutdown = true;
 	}
 
+	// Added by ISE
+	private void startReactors() {
+		for (int i = 0, n = reactors.length; i < n; i++)
+			reactors[i].start();
+	}
+
 	private void acceptOperation(SocketChannel socketChannel) {
+		// Changed by ISE: assign the connection to the next reactor
+		Reactor[] reactors = this.reactors;
+		if (reactors.length == 0) {
+			acceptOperation(socketChannel, selector);
+			return;
+		}
+		Reactor reactor = reactors[nextReactor];
+		nextReactor = (nextReactor + 1) % reactors.length;
+		// Blocks the reactor from selecting until the connection is fully set up.
+		synchronized (reactor.registerLock) {
+			reactor.selector.wakeup();
+			acceptOperation(socketChannel, reactor.selector);
+		}
+	}
+
+	// Changed by ISE: added the selector to register the connection with
+	private void acceptOperation(SocketChannel socketChannel, Selector selector) {
 		Connection connection = newConnection();
 		connection.initialize(serialization, writeBufferSize, objectBufferSize);
 		connection.endPoint = this;
@@ -474,14 +624,16 @@ public class Server implements EndPoint {
 		return new Connection(streamProvider);
 	}
 
-	private void addConnection(Connection connection) {
+	// Changed by ISE: synchronized as connections are closed from the reactor and decode threads
+	private synchronized void addConnection(Connection connection) {
 		Connection[] newConnections = new Connection[connections.length + 1];
 		newConnections[0] = connection;
 		System.arraycopy(connections, 0, newConnections, 1, connections.length);
 		connections = newConnections;
 	}
 
-	void removeConnection(Connection connection) {
+	// Changed by ISE: synchronized as connections are closed from the reactor and decode threads
+	synchronized void removeConnection(Connection connection) {
 		ArrayList<Connection> temp = new ArrayList(Arrays.asList(connections));
 		temp.remove(connection);
 		connections = temp.toArray(new Connection[temp.size()]);
@@ -622,6 +774,9 @@ public class Server implements EndPoint {
 			selector.selectNow();
 		} catch (IOException ignored) {
 		}
+		// Added by ISE: reactors complete closing the sockets in the next select
+		for (int i = 0, n = reactors.length; i < n; i++)
+			reactors[i].selector.wakeup();
 	}
 
 	public Thread getUpdateThread() {
@@ -632,4 +787,90 @@ public class Server implements EndPoint {
 	public Connection[] getConnections() {
 		return connections;
 	}
+
+	/**
+	 * Selects the TCP connections assigned to it in an own thread.
+	 */
+	// Added by ISE
+	private class Reactor implements Runnable {
+
+		private final int number;
+		private final Selector selector;
+		private final Object registerLock = new Object();
+		private int emptySelects;
+		private Thread thread;
+
+		Reactor(int number) {
+			this.number = number;
+			try {
+				selector = Selector.open();
+			} catch (IOException ex) {
+				throw new RuntimeException("Error opening selector.", ex);
+			}
+		}
+
+		void start() {
+			if (thread != null && thread.isAlive())
+				return;
+			thread = new Thread(this, "Server Reactor " + number);
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		public void run() {
+			if (TRACE)
+				trace("kryonet", "Server reactor " + number + " started.");
+			while (!shutdown) {
+				try {
+					select(250);
+				} catch (IOException ex) {
+					if (ERROR)
+						error("kryonet", "Error selecting server connections in reactor " + number + ".", ex);
+					close();
+				}
+			}
+			if (TRACE)
+				trace("kryonet", "Server reactor " + number + " stopped.");
+		}
+
+		private void select(int timeout) throws IOException {
+			synchronized (registerLock) { // Blocks to avoid a select while a connection is registered.
+			}
+			long startTime = System.currentTimeMillis();
+			int select = selector.select(timeout);
+			if (select == 0) {
+				emptySelects++;
+				if (emptySelects == 100) {
+					emptySelects = 0;
+					// NIO freaks and returns immediately with 0 sometimes, so try to keep from hogging
+					// the CPU.
+					long elapsedTime = System.currentTimeMillis() - startTime;
+					try {
+						if (elapsedTime < 25)
+							Thread.sleep(25 - elapsedTime);
+					} catch (InterruptedException ex) {
+					}
+				}
+				return;
+			}
+			emptySelects = 0;
+			Set<SelectionKey> keys = selector.selectedKeys();
+			for (Iterator<SelectionKey> iter = keys.iterator(); iter.hasNext();) {
+				SelectionKey selectionKey = iter.next();
+				iter.remove();
+				Connection fromConnection = (Connection) selectionKey.attachment();
+				try {
+					if (fromConnection != null)
+						tcpOperation(fromConnection, selectionKey.readyOps());
+					else
+						selectionKey.channel().close();
+				} catch (CancelledKeyException ex) {
+					if (fromConnection != null)
+						fromConnection.close();
+					else
+						selectionKey.channel().close();
+				}
+			}
+		}
+	}
 }
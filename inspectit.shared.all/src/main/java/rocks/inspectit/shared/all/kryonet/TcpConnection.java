@@ -4,10 +4,12 @@ import static com.esotericsoftware.minlog.Log.DEBUG;
 import static com.esotericsoftware.minlog.Log.debug;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.Socket;
 import java.net.SocketAddress;
 import java.net.SocketException;
 import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
@@ -15,7 +17,12 @@ import java.util.List;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
+import com.esotericsoftware.kryonet.FrameworkMessage;
 import com.esotericsoftware.kryonet.KryoNetException;
 
 import rocks.inspectit.shared.all.storage.nio.stream.ExtendedByteBufferOutputStream;
@@ -35,6 +42,18 @@ import rocks.inspectit.shared.all.storage.nio.stream.StreamProvider;
 class TcpConnection {
 	static private final int IPTOS_LOWDELAY = 0x10;
 
+	/**
+	 * Bit of the object length marking that the object bytes are compressed.
+	 */
+	// Added by ISE
+	static final int COMPRESSED_FLAG = 0x80000000;
+
+	/**
+	 * Size of the buffers of the compressing and decompressing streams.
+	 */
+	// Added by ISE
+	static private final int COMPRESSION_BUFFER_SIZE = 8192;
+
 	/**
 	 * {@link StreamProvider} for creating streams.
 	 */
@@ -59,6 +78,33 @@ class TcpConnection {
 	// Added by ISE
 	private SocketExtendedByteBufferInputStream socketInputStream;
 
+	/**
+	 * If the read operations are not reported by the selector as an object is being read outside
+	 * of the selector thread.
+	 */
+	// Added by ISE
+	private volatile boolean readSuspended;
+
+	/**
+	 * If the sent objects are compressed.
+	 */
+	// Added by ISE
+	volatile boolean compression;
+
+	/**
+	 * Deflater for the sent objects, used only with the write lock held. Created on the first
+	 * compressed send.
+	 */
+	// Added by ISE
+	private Deflater deflater;
+
+	/**
+	 * Inflater for the received objects, used only by the single read in progress. Created on the
+	 * first compressed object received.
+	 */
+	// Added by ISE
+	private Inflater inflater;
+
 	SocketChannel socketChannel;
 	int keepAliveMillis = 8000;
 	final ByteBuffer readBuffer, writeBuffer;
@@ -86,6 +132,7 @@ class TcpConnection {
 		readBuffer.clear();
 		readBuffer.flip();
 		currentObjectLength = 0;
+		readSuspended = false; // Added by ISE
 		try {
 			this.socketChannel = socketChannel;
 			socketChannel.configureBlocking(false);
@@ -116,6 +163,7 @@ class TcpConnection {
 		readBuffer.clear();
 		readBuffer.flip();
 		currentObjectLength = 0;
+		readSuspended = false; // Added by ISE
 		try {
 			SocketChannel socketChannel = selector.provider().openSocketChannel();
 			Socket socket = socketChannel.socket();
@@ -145,12 +193,24 @@ class TcpConnection {
 	}
 
 	public Object readObject(Connection connection) throws IOException {
+		// Changed by ISE: split to reading of the length and the object
+		int length = readObjectLength();
+		if (length == 0)
+			return null;
+		return readObject(connection, length);
+	}
+
+	/**
+	 * Reads the length of the next object from the socket.
+	 * 
+	 * @return Length of the next object or <code>0</code> if the length is not yet available.
+	 */
+	// Added by ISE
+	public int readObjectLength() throws IOException {
 		SocketChannel socketChannel = this.socketChannel;
 		if (socketChannel == null)
 			throw new SocketException("Connection is closed.");
 
-		// Change by ISE from here to end of method
-
 		// we use the read buffer to read the size of the length
 		if (currentObjectLength == 0) {
 			// Read the length of the next object from the socket.
@@ -165,41 +225,113 @@ class TcpConnection {
 				lastReadTime = System.currentTimeMillis();
 
 				if (readBuffer.remaining() < lengthLength) {
-					return null;
+					return 0;
 				}
 			}
 			currentObjectLength = serialization.readLength(readBuffer);
 
-			if (currentObjectLength <= 0) {
+			// Changed by ISE: the highest bit marks compressed objects
+			if ((currentObjectLength & ~COMPRESSED_FLAG) == 0) {
 				throw new KryoNetException("Invalid object length: " + currentObjectLength);
 			}
 		}
 
 		int length = currentObjectLength;
+		currentObjectLength = 0;
+		return length;
+	}
+
+	/**
+	 * Reads the object of the given length from the socket. The length must be read before with
+	 * {@link #readObjectLength()}. Can be called from any thread as long as no other read on this
+	 * connection is in progress.
+	 * 
+	 * @param length
+	 *            Length of the object, including the {@link #COMPRESSED_FLAG}.
+	 * @return Read object.
+	 */
+	// Added by ISE
+	public Object readObject(Connection connection, int length) throws IOException {
+		if (socketChannel == null)
+			throw new SocketException("Connection is closed.");
+
 		// reset stream
-		socketInputStream.reset(length);
+		socketInputStream.reset(length & ~COMPRESSED_FLAG);
 
 		lastReadTime = System.currentTimeMillis();
-		currentObjectLength = 0;
+
+		InputStream inputStream = socketInputStream;
+		if ((length & COMPRESSED_FLAG) != 0) {
+			if (inflater == null) {
+				inflater = new Inflater();
+			} else {
+				inflater.reset();
+			}
+			inputStream = new InflaterInputStream(socketInputStream, inflater, COMPRESSION_BUFFER_SIZE);
+		}
 
 		// read object
 		Object object;
 		try {
-			object = serialization.read(connection, socketInputStream);
+			object = serialization.read(connection, inputStream);
 		} catch (Exception ex) {
 			throw new KryoNetException("Error during deserialization.", ex);
 		}
 
+		if (inputStream != socketInputStream) {
+			// read the compressed stream to its end, so that no byte of the frame is left in the
+			// socket stream when the next length is read from the socket
+			inputStream.skip(Long.MAX_VALUE);
+			if (!inflater.finished() || socketInputStream.hasRemaining()) {
+				throw new KryoNetException("Compressed object did not match the frame length of " + (length & ~COMPRESSED_FLAG) + " bytes.");
+			}
+		}
+
 		return object;
 	}
 
+	/**
+	 * Stops the selector from reporting the read operations of this connection until
+	 * {@link #resumeRead()} is called. Used while the object is read outside of the selector thread.
+	 */
+	// Added by ISE
+	public void suspendRead() {
+		writeReentrantLock.lock();
+		try {
+			readSuspended = true;
+			selectionKey.interestOps(selectionKey.interestOps() & ~SelectionKey.OP_READ);
+		} finally {
+			writeReentrantLock.unlock();
+		}
+	}
+
+	/**
+	 * Lets the selector report the read operations of this connection again.
+	 */
+	// Added by ISE
+	public void resumeRead() {
+		writeReentrantLock.lock();
+		try {
+			readSuspended = false;
+			SelectionKey selectionKey = this.selectionKey;
+			if (socketChannel != null && selectionKey.isValid()) {
+				selectionKey.interestOps(selectionKey.interestOps() | SelectionKey.OP_READ);
+				selectionKey.selector().wakeup();
+			}
+		} catch (CancelledKeyException ex) { // NOPMD
+			// connection closed in the meantime
+		} finally {
+			writeReentrantLock.unlock();
+		}
+	}
+
 	// Changed completely by ISE
 	public void writeOperation() throws IOException {
 		writeReentrantLock.lock();
 		try {
 			if (writeToSocket()) {
 				// Write successful, clear OP_WRITE.
-				selectionKey.interestOps(SelectionKey.OP_READ);
+				selectionKey.interestOps(getReadInterestOps());
 			}
 			lastWriteTime = System.currentTimeMillis();
 		} finally {
@@ -263,8 +395,22 @@ class TcpConnection {
 			outputStream.write(new byte[lengthLength]);
 
 			// Write data and flush when done
+			// framework messages are tiny, compressing them would only add the deflate overhead
+			boolean compress = compression && !(object instanceof FrameworkMessage);
 			try {
-				serialization.write(connection, outputStream, object);
+				if (compress) {
+					if (deflater == null) {
+						deflater = new Deflater(Deflater.BEST_SPEED);
+					} else {
+						deflater.reset();
+					}
+					DeflaterOutputStream deflaterOutputStream = new DeflaterOutputStream(outputStream, deflater, COMPRESSION_BUFFER_SIZE);
+					serialization.write(connection, deflaterOutputStream, object);
+					// finish only, closing would close the output stream
+					deflaterOutputStream.finish();
+				} else {
+					serialization.write(connection, outputStream, object);
+				}
 			} catch (KryoNetException ex) { // NOPMD
 				outputStream.close();
 				throw new KryoNetException("Error serializing object of type: " + object.getClass().getName(), ex);
@@ -276,7 +422,7 @@ class TcpConnection {
 			ByteBuffer buffer = outputStream.getAllByteBuffers().iterator().next();
 			int position = buffer.position();
 			buffer.position(0);
-			serialization.writeLength(buffer, (int) writeSize);
+			serialization.writeLength(buffer, compress ? (int) writeSize | COMPRESSED_FLAG : (int) writeSize);
 			buffer.position(position);
 
 			// Write to socket if no data was queued.
@@ -284,7 +430,7 @@ class TcpConnection {
 			writeQueue.add(outputStream);
 			if (!hasQueuedData && !writeToSocket()) {
 				// A partial write, set OP_WRITE to be notified when more writing can occur.
-				selectionKey.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+				selectionKey.interestOps(getReadInterestOps() | SelectionKey.OP_WRITE);
 			} else {
 				// Full write, wake up selector so idle event will be fired.
 				selectionKey.selector().wakeup();
@@ -297,6 +443,14 @@ class TcpConnection {
 		}
 	}
 
+	/**
+	 * @return Returns the read interest operations, <code>0</code> if the read is suspended.
+	 */
+	// Added by ISE
+	private int getReadInterestOps() {
+		return readSuspended ? 0 : SelectionKey.OP_READ;
+	}
+
 	/**
 	 * @return Returns if any data is queued for writing.
 	 */
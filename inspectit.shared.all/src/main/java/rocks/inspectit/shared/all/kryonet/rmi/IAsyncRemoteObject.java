@@ -0,0 +1,25 @@
+package rocks.inspectit.shared.all.kryonet.rmi;
+
+/**
+ * Implemented by all proxies returned by the {@link ObjectSpace} in addition to the
+ * {@link com.esotericsoftware.kryonet.rmi.RemoteObject}. Gives access to the
+ * {@link ResponseFuture} of the invocations that did not block the calling thread, so that many
+ * invocations can be in flight over one connection.
+ * <p>
+ * The proxies returned by {@link ObjectSpace#getAsyncRemoteObject(rocks.inspectit.shared.all.kryonet.Connection, int, Class)}
+ * never block the calling thread. All other proxies do not block only if set to
+ * {@link com.esotericsoftware.kryonet.rmi.RemoteObject#setNonBlocking(boolean) non-blocking}.
+ */
+public interface IAsyncRemoteObject {
+
+	/**
+	 * Returns the {@link ResponseFuture} of the last non-blocking invocation made by the calling
+	 * thread on this proxy. Invocations of other threads do not change the returned future.
+	 *
+	 * @param <T>
+	 *            Return type of the invoked method.
+	 * @return {@link ResponseFuture} or <code>null</code> if the last invocation did not expect a
+	 *         response.
+	 */
+	<T> ResponseFuture<T> getLastResponseFuture();
+}
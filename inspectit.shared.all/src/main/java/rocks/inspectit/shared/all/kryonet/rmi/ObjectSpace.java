@@ -17,12 +17,14 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.PriorityQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryo.KryoException;
@@ -33,6 +35,7 @@ import com.esotericsoftware.kryo.io.Output;
 import com.esotericsoftware.kryo.serializers.FieldSerializer;
 import com.esotericsoftware.kryo.util.IntMap;
 import com.esotericsoftware.kryonet.FrameworkMessage;
+import com.esotericsoftware.kryonet.KryoNetException;
 import com.esotericsoftware.kryonet.rmi.RemoteObject;
 import com.esotericsoftware.kryonet.rmi.TimeoutException;
 
@@ -46,10 +49,16 @@ import rocks.inspectit.shared.all.kryonet.Listener;
  * been {@link #addConnection(Connection) added} are allowed to
  * {@link #getRemoteObject(Connection, int, Class) access} registered objects.
  * <p>
- * It costs at least 2 bytes more to use remote method invocation than just sending the parameters.
+ * It costs at least 3 bytes more to use remote method invocation than just sending the parameters.
  * If the method has a return value which is not {@link RemoteObject#setNonBlocking(boolean)
- * ignored}, an extra byte is written. If the type of a parameter is not final (note primitives are
- * final) then an extra byte is written for that parameter.
+ * ignored}, the response ID is written with up to 5 bytes. If the type of a parameter is not final
+ * (note primitives are final) then an extra byte is written for that parameter.
+ * <p>
+ * Changed by ISE: Response IDs are not limited to 6 bits any more and every invocation waits for
+ * its own {@link ResponseFuture}, thus any number of invocations can be in flight over one
+ * connection. The proxies also implement {@link IAsyncRemoteObject} to get the future of the
+ * invocations that do not block the calling thread, see
+ * {@link #getAsyncRemoteObject(Connection, int, Class)}.
  * <p>
  * <b>IMPORTANT:</b> The class code is copied/taken/based from <a
  * href="https://github.com/EsotericSoftware/kryonet">kryonet</a>. Original author is Nathan Sweet.
@@ -260,9 +269,11 @@ public class ObjectSpace {
 			debug("kryonet", connection + " received: " + target.getClass().getSimpleName() + "#" + invokeMethod.method.getName() + "(" + argString + ")");
 		}
 
-		byte responseID = invokeMethod.responseID;
-		boolean transmitReturnVal = (responseID & kReturnValMask) == kReturnValMask;
-		boolean transmitExceptions = (responseID & kReturnExMask) == kReturnExMask;
+		// Changed by ISE: flags are separated from the response ID
+		int responseID = invokeMethod.responseID;
+		byte responseFlags = invokeMethod.responseFlags;
+		boolean transmitReturnVal = (responseFlags & kReturnValMask) == kReturnValMask;
+		boolean transmitExceptions = (responseFlags & kReturnExMask) == kReturnExMask;
 
 		Object result = null;
 		Method method = invokeMethod.method;
@@ -332,10 +343,34 @@ public class ObjectSpace {
 			throw new IllegalArgumentException("connection cannot be null.");
 		if (ifaces == null)
 			throw new IllegalArgumentException("ifaces cannot be null.");
-		Class[] temp = new Class[ifaces.length + 1];
+		// Changed by ISE: added IAsyncRemoteObject
+		Class[] temp = new Class[ifaces.length + 2];
 		temp[0] = RemoteObject.class;
-		System.arraycopy(ifaces, 0, temp, 1, ifaces.length);
-		return (RemoteObject) Proxy.newProxyInstance(ObjectSpace.class.getClassLoader(), temp, new RemoteInvocationHandler(connection, objectID));
+		temp[1] = IAsyncRemoteObject.class;
+		System.arraycopy(ifaces, 0, temp, 2, ifaces.length);
+		return (RemoteObject) Proxy.newProxyInstance(ObjectSpace.class.getClassLoader(), temp, new RemoteInvocationHandler(connection, objectID, false));
+	}
+
+	/**
+	 * Returns a proxy object like {@link #getRemoteObject(Connection, int, Class)}, but all method
+	 * invocations on the returned proxy are asynchronous regardless of the
+	 * {@link RemoteObject#setNonBlocking(boolean) non-blocking} setting. An invocation returns
+	 * immediately with <code>null</code> or the default primitive value. If a response is expected
+	 * (return value or exceptions are transmitted), the {@link ResponseFuture} of the invocation is
+	 * available via {@link IAsyncRemoteObject#getLastResponseFuture()} in the invoking thread. The
+	 * {@link RemoteObject#setResponseTimeout(int) response timeout} does not apply, the caller
+	 * decides how long to wait on the future.
+	 * <p>
+	 * Added by ISE: a separate proxy, so that the blocking proxies for the same object are not
+	 * affected by the asynchronous invocations.
+	 */
+	static public <T> T getAsyncRemoteObject(Connection connection, int objectID, Class<T> iface) {
+		if (connection == null)
+			throw new IllegalArgumentException("connection cannot be null.");
+		if (iface == null)
+			throw new IllegalArgumentException("iface cannot be null.");
+		Class[] temp = new Class[] { RemoteObject.class, IAsyncRemoteObject.class, iface };
+		return (T) Proxy.newProxyInstance(ObjectSpace.class.getClassLoader(), temp, new RemoteInvocationHandler(connection, objectID, true));
 	}
 
 	/** Handles network communication when methods are invoked on a proxy. */
@@ -346,18 +381,25 @@ public class ObjectSpace {
 		private boolean nonBlocking = false;
 		private boolean transmitReturnValue = true;
 		private boolean transmitExceptions = true;
-		private Byte lastResponseID;
-		private byte nextResponseNum = 1;
 		private Listener responseListener;
 
-		final ReentrantLock lock = new ReentrantLock();
-		final Condition responseCondition = lock.newCondition();
-		final ConcurrentHashMap<Byte, InvokeMethodResult> responseTable = new ConcurrentHashMap();
+		// Changed by ISE: response futures by the response ID instead of the result table and
+		// condition shared by all waiting threads
+		private final boolean asynchronous;
+		private final AtomicInteger nextResponseID = new AtomicInteger();
+		private final ThreadLocal<ResponseFuture> lastResponseFuture = new ThreadLocal();
+		final ConcurrentHashMap<Integer, ResponseFuture> pendingResponses = new ConcurrentHashMap();
+
+		// Added by ISE: the byte response IDs of the RemoteObject API are the lowest 8 bits of the
+		// response ID, the futures of the last 256 non-blocking invocations can be waited for
+		private final ThreadLocal<Byte> lastResponseID = new ThreadLocal();
+		private final AtomicReferenceArray<ResponseFuture> byteIDResponses = new AtomicReferenceArray(256);
 
-		public RemoteInvocationHandler(Connection connection, final int objectID) {
+		public RemoteInvocationHandler(Connection connection, final int objectID, boolean asynchronous) {
 			super();
 			this.connection = connection;
 			this.objectID = objectID;
+			this.asynchronous = asynchronous;
 
 			responseListener = new Listener() {
 				public void received(Connection connection, Object object) {
@@ -367,18 +409,19 @@ public class ObjectSpace {
 					if (invokeMethodResult.objectID != objectID)
 						return;
 
-					responseTable.put(invokeMethodResult.responseID, invokeMethodResult);
-
-					lock.lock();
-					try {
-						responseCondition.signalAll();
-					} finally {
-						lock.unlock();
-					}
+					ResponseFuture future = pendingResponses.remove(invokeMethodResult.responseID);
+					if (future == null)
+						return;
+					Object result = invokeMethodResult.result;
+					if (result instanceof Exception)
+						future.fail((Exception) result);
+					else
+						future.complete(result);
 				}
 
 				public void disconnected(Connection connection) {
 					close();
+					failPendingResponses();
 				}
 			};
 			connection.addListener(responseListener);
@@ -403,23 +446,31 @@ public class ObjectSpace {
 					transmitExceptions = (Boolean) args[0];
 					return null;
 				} else if (name.equals("waitForLastResponse")) {
-					if (lastResponseID == null)
+					ResponseFuture future = lastResponseFuture.get();
+					if (future == null)
 						throw new IllegalStateException("There is no last response to wait for.");
-					return waitForResponse(lastResponseID);
+					lastResponseFuture.remove();
+					return waitForResponseResult(future);
 				} else if (name.equals("getLastResponseID")) {
-					if (lastResponseID == null)
+					Byte responseID = lastResponseID.get();
+					if (responseID == null)
 						throw new IllegalStateException("There is no last response ID.");
-					return lastResponseID;
+					return responseID;
 				} else if (name.equals("waitForResponse")) {
-					if (!transmitReturnValue && !transmitExceptions && nonBlocking)
-						throw new IllegalStateException("This RemoteObject is currently set to ignore all responses.");
-					return waitForResponse((Byte) args[0]);
+					byte responseID = (Byte) args[0];
+					ResponseFuture future = byteIDResponses.getAndSet(responseID & 0xFF, null);
+					if (future == null)
+						throw new IllegalStateException("There is no response to wait for with the ID: " + responseID);
+					return waitForResponseResult(future);
 				} else if (name.equals("getConnection")) {
 					return connection;
 				} else {
 					// Should never happen, for debugging purposes only
 					throw new RuntimeException("Invocation handler could not find RemoteObject method. Check ObjectSpace.java");
 				}
+			} else if (method.getDeclaringClass() == IAsyncRemoteObject.class) {
+				// Added by ISE
+				return lastResponseFuture.get();
 			} else if (method.getDeclaringClass() == Object.class) {
 				if (method.getName().equals("toString"))
 					return "<proxy>";
@@ -437,23 +488,31 @@ public class ObjectSpace {
 
 			// The only time a invocation doesn't need a response is if it's async
 			// and no return values or exceptions are wanted back.
-			boolean needsResponse = transmitReturnValue || transmitExceptions || !nonBlocking;
+			boolean needsResponse = transmitReturnValue || transmitExceptions || !(nonBlocking || asynchronous);
+			ResponseFuture future = null;
 			if (needsResponse) {
-				byte responseID;
-				synchronized (this) {
-					// Increment the response counter and put it into the first six bits of the
-					// responseID byte
-					responseID = nextResponseNum++;
-					if (nextResponseNum == 64)
-						nextResponseNum = 1; // Keep number under 2^6, avoid 0 (see else statement
-												// below)
-				}
-				// Pack return value and exception info into the top two bits
+				// Changed by ISE: the response ID uses all positive integers, 0 is reserved (see
+				// else statement below)
+				int nextID;
+				do {
+					nextID = nextResponseID.incrementAndGet() & Integer.MAX_VALUE;
+				} while (nextID == 0);
+				final int responseID = nextID;
+				invokeMethod.responseID = responseID;
 				if (transmitReturnValue)
-					responseID |= kReturnValMask;
+					invokeMethod.responseFlags |= kReturnValMask;
 				if (transmitExceptions)
-					responseID |= kReturnExMask;
-				invokeMethod.responseID = responseID;
+					invokeMethod.responseFlags |= kReturnExMask;
+
+				// register before sending, the response can arrive before sendTCP returns
+				future = new ResponseFuture() {
+					public boolean cancel(boolean mayInterruptIfRunning) {
+						// no one waits for the response any more
+						pendingResponses.remove(responseID);
+						return super.cancel(mayInterruptIfRunning);
+					}
+				};
+				pendingResponses.put(responseID, future);
 			} else {
 				invokeMethod.responseID = 0; // A response info of 0 means to not respond
 			}
@@ -467,68 +526,89 @@ public class ObjectSpace {
 				debug("kryonet", connection + " sent: " + method.getDeclaringClass().getSimpleName() + "#" + method.getName() + "(" + argString + ") (" + length + ")");
 			}
 
-			if (invokeMethod.responseID != 0)
-				lastResponseID = invokeMethod.responseID;
+			if (asynchronous) {
+				lastResponseFuture.set(future);
+				return defaultReturnValue(method);
+			}
 			if (nonBlocking) {
-				Class returnType = method.getReturnType();
-				if (returnType.isPrimitive()) {
-					if (returnType == int.class)
-						return 0;
-					if (returnType == boolean.class)
-						return Boolean.FALSE;
-					if (returnType == float.class)
-						return 0f;
-					if (returnType == char.class)
-						return (char) 0;
-					if (returnType == long.class)
-						return 0l;
-					if (returnType == short.class)
-						return (short) 0;
-					if (returnType == byte.class)
-						return (byte) 0;
-					if (returnType == double.class)
-						return 0d;
+				lastResponseFuture.set(future);
+				if (future != null) {
+					byteIDResponses.set(invokeMethod.responseID & 0xFF, future);
+					lastResponseID.set((byte) invokeMethod.responseID);
+				} else {
+					lastResponseID.remove();
 				}
-				return null;
+				return defaultReturnValue(method);
 			}
 			try {
-				Object result = waitForResponse(invokeMethod.responseID);
-				if (result != null && result instanceof Exception)
-					throw (Exception) result;
-				else
-					return result;
+				return waitForResponse(future);
+			} catch (ExecutionException ex) {
+				Throwable cause = ex.getCause();
+				if (cause instanceof Exception)
+					throw (Exception) cause;
+				if (cause instanceof Error)
+					throw (Error) cause;
+				throw new RuntimeException(cause);
 			} catch (TimeoutException ex) {
 				throw new TimeoutException("Response timed out: " + method.getDeclaringClass().getName() + "." + method.getName());
 			}
 		}
 
-		private Object waitForResponse(byte responseID) {
+		// Added by ISE: value returned by the invocations that do not wait for the response
+		private Object defaultReturnValue(Method method) {
+			Class returnType = method.getReturnType();
+			if (returnType.isPrimitive()) {
+				if (returnType == int.class)
+					return 0;
+				if (returnType == boolean.class)
+					return Boolean.FALSE;
+				if (returnType == float.class)
+					return 0f;
+				if (returnType == char.class)
+					return (char) 0;
+				if (returnType == long.class)
+					return 0l;
+				if (returnType == short.class)
+					return (short) 0;
+				if (returnType == byte.class)
+					return (byte) 0;
+				if (returnType == double.class)
+					return 0d;
+			}
+			return null;
+		}
+
+		// Added by ISE: waits for the response of a non-blocking invocation, exceptions are returned
+		private Object waitForResponseResult(ResponseFuture future) {
+			try {
+				return waitForResponse(future);
+			} catch (ExecutionException ex) {
+				return ex.getCause();
+			}
+		}
+
+		// Changed by ISE: waits on the future of the invocation
+		private Object waitForResponse(ResponseFuture future) throws ExecutionException {
 			if (connection.getEndPoint().getUpdateThread() == Thread.currentThread())
 				throw new IllegalStateException("Cannot wait for an RMI response on the connection's update thread.");
 
-			long endTime = System.currentTimeMillis() + timeoutMillis;
+			try {
+				return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+			} catch (java.util.concurrent.TimeoutException ex) {
+				pendingResponses.values().remove(future);
+				throw new TimeoutException("Response timed out.");
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e);
+			}
+		}
 
-			while (true) {
-				long remaining = endTime - System.currentTimeMillis();
-				if (responseTable.containsKey(responseID)) {
-					InvokeMethodResult invokeMethodResult = responseTable.get(responseID);
-					responseTable.remove(responseID);
-					lastResponseID = null;
-					return invokeMethodResult.result;
-				} else {
-					if (remaining <= 0)
-						throw new TimeoutException("Response timed out.");
-
-					lock.lock();
-					try {
-						responseCondition.await(remaining, TimeUnit.MILLISECONDS);
-					} catch (InterruptedException e) {
-						Thread.currentThread().interrupt();
-						throw new RuntimeException(e);
-					} finally {
-						lock.unlock();
-					}
-				}
+		// Added by ISE
+		private void failPendingResponses() {
+			for (Iterator<ResponseFuture> it = pendingResponses.values().iterator(); it.hasNext();) {
+				ResponseFuture future = it.next();
+				it.remove();
+				future.fail(new KryoNetException("Connection closed before the response was received."));
 			}
 		}
 
@@ -542,12 +622,11 @@ public class ObjectSpace {
 		public int objectID;
 		public Method method;
 		public Object[] args;
-		// The top two bytes of the ID indicate if the remote invocation should respond with return
-		// values and exceptions,
-		// respectively. The rest is a six bit counter. This means up to 63 responses can be stored
-		// before undefined behavior
-		// occurs due to possible duplicate IDs.
-		public byte responseID;
+		// Changed by ISE: The ID is a counter over all positive integers, 0 meaning no response.
+		// The top two bits of the flags indicate if the remote invocation should respond with
+		// return values and exceptions, respectively.
+		public int responseID;
+		public byte responseFlags;
 
 		public void write(Kryo kryo, Output output) {
 			output.writeInt(objectID, true);
@@ -573,7 +652,8 @@ public class ObjectSpace {
 					kryo.writeClassAndObject(output, args[i]);
 			}
 
-			output.writeByte(responseID);
+			output.writeByte(responseFlags); // Changed by ISE
+			output.writeInt(responseID, true);
 		}
 
 		public void read(Kryo kryo, Input input) {
@@ -599,14 +679,15 @@ public class ObjectSpace {
 					args[i] = kryo.readClassAndObject(input);
 			}
 
-			responseID = input.readByte();
+			responseFlags = input.readByte(); // Changed by ISE
+			responseID = input.readInt(true);
 		}
 	}
 
 	/** Internal message to return the result of a remotely invoked method. */
 	static public class InvokeMethodResult implements FrameworkMessage {
 		public int objectID;
-		public byte responseID;
+		public int responseID; // Changed by ISE
 		public Object result;
 	}
 
@@ -705,7 +786,7 @@ public class ObjectSpace {
 		kryo.register(InvokeMethod.class);
 
 		FieldSerializer serializer = (FieldSerializer) kryo.register(InvokeMethodResult.class).getSerializer();
-		serializer.getField("objectID").setClass(int.class, new Serializer<Integer>() {
+		Serializer<Integer> varIntSerializer = new Serializer<Integer>() {
 			public void write(Kryo kryo, Output output, Integer object) {
 				output.writeInt(object, true);
 			}
@@ -713,7 +794,9 @@ public class ObjectSpace {
 			public Integer read(Kryo kryo, Input input, Class<Integer> type) {
 				return input.readInt(true);
 			}
-		});
+		};
+		serializer.getField("objectID").setClass(int.class, varIntSerializer);
+		serializer.getField("responseID").setClass(int.class, varIntSerializer); // Added by ISE
 
 		kryo.register(InvocationHandler.class, new Serializer() {
 			public void write(Kryo kryo, Output output, Object object) {
@@ -0,0 +1,225 @@
+package rocks.inspectit.shared.all.kryonet.rmi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * {@link Future} of the response of a remote method invocation. Completed by the connection's
+ * thread that receives the response, or failed when the connection is closed before.
+ * <p>
+ * Canceling only stops waiting for the response, the remote invocation is not affected. A response
+ * received after canceling is ignored.
+ *
+ * @param <T>
+ *            Type of the result.
+ */
+public class ResponseFuture<T> implements Future<T> {
+
+	/**
+	 * Released when the future is done. Publishes the result and the failure.
+	 */
+	private final CountDownLatch done = new CountDownLatch(1);
+
+	/**
+	 * Callbacks to notify on completion. Set to <code>null</code> once completed.
+	 */
+	private List<Callback<T>> callbacks = new ArrayList<Callback<T>>(1);
+
+	/**
+	 * Result of the invocation.
+	 */
+	private T result;
+
+	/**
+	 * Exception thrown by the invocation or the failure of the connection.
+	 */
+	private Throwable failure;
+
+	/**
+	 * If the future was canceled.
+	 */
+	private boolean canceled;
+
+	/**
+	 * Completes the future with the given result.
+	 *
+	 * @param result
+	 *            Result of the invocation.
+	 * @return <code>true</code> if completed, <code>false</code> if the future was already done.
+	 */
+	public boolean complete(T result) {
+		return finish(result, null, false);
+	}
+
+	/**
+	 * Completes the future with the given failure.
+	 *
+	 * @param failure
+	 *            Exception thrown by the invocation or the failure of the connection.
+	 * @return <code>true</code> if completed, <code>false</code> if the future was already done.
+	 */
+	public boolean fail(Throwable failure) {
+		return finish(null, failure, false);
+	}
+
+	/**
+	 * Adds the callback to be notified when the future is done. If the future is already done, the
+	 * callback is notified in the calling thread, otherwise in the thread completing the future.
+	 * Callbacks must not block.
+	 *
+	 * @param callback
+	 *            Callback to add.
+	 */
+	public void addCallback(Callback<T> callback) {
+		synchronized (this) {
+			if (null != callbacks) {
+				callbacks.add(callback);
+				return;
+			}
+		}
+		notifyCallback(callback);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		return finish(null, null, true);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public synchronized boolean isCancelled() {
+		return canceled;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public boolean isDone() {
+		return 0 == done.getCount();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public T get() throws InterruptedException, ExecutionException {
+		done.await();
+		return getResult();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+		if (!done.await(timeout, unit)) {
+			throw new TimeoutException("Response timed out.");
+		}
+		return getResult();
+	}
+
+	/**
+	 * Finishes the future.
+	 *
+	 * @param result
+	 *            Result.
+	 * @param failure
+	 *            Failure.
+	 * @param cancel
+	 *            If the future is canceled.
+	 * @return <code>true</code> if finished, <code>false</code> if the future was already done.
+	 */
+	private boolean finish(T result, Throwable failure, boolean cancel) {
+		List<Callback<T>> toNotify;
+		synchronized (this) {
+			if (null == callbacks) {
+				return false;
+			}
+			this.result = result;
+			this.failure = failure;
+			this.canceled = cancel;
+			toNotify = callbacks;
+			callbacks = null; // NOPMD
+		}
+		done.countDown();
+		for (Callback<T> callback : toNotify) {
+			notifyCallback(callback);
+		}
+		return true;
+	}
+
+	/**
+	 * Notifies the callback of the finished future.
+	 *
+	 * @param callback
+	 *            Callback.
+	 */
+	private void notifyCallback(Callback<T> callback) {
+		T result;
+		Throwable failure;
+		boolean canceled;
+		synchronized (this) {
+			result = this.result;
+			failure = this.failure;
+			canceled = this.canceled;
+		}
+		if (canceled) {
+			return;
+		}
+		if (null != failure) {
+			callback.failed(failure);
+		} else {
+			callback.completed(result);
+		}
+	}
+
+	/**
+	 * Returns the result or throws the failure. Must only be called when done.
+	 *
+	 * @return Result.
+	 * @throws ExecutionException
+	 *             If the invocation failed.
+	 */
+	private synchronized T getResult() throws ExecutionException {
+		if (canceled) {
+			throw new CancellationException();
+		}
+		if (null != failure) {
+			throw new ExecutionException(failure);
+		}
+		return result;
+	}
+
+	/**
+	 * Callback notified when the {@link ResponseFuture} is done. Not notified when the future is
+	 * canceled.
+	 *
+	 * @param <T>
+	 *            Type of the result.
+	 */
+	public interface Callback<T> {
+
+		/**
+		 * Invoked with the result of the invocation.
+		 *
+		 * @param result
+		 *            Result, <code>null</code> if the return value is not transmitted.
+		 */
+		void completed(T result);
+
+		/**
+		 * Invoked with the exception thrown by the invocation or the failure of the connection.
+		 *
+		 * @param failure
+		 *            Failure.
+		 */
+		void failed(Throwable failure);
+	}
+}
@@ -4,6 +4,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 
 import org.mockito.InjectMocks;
+import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import rocks.inspectit.shared.all.instrumentation.config.PriorityEnum;
@@ -75,4 +76,92 @@ public class SensorInstrumentationPointTest extends TestBase {
 			assertThat(sensorIds[1], is(1L));
 		}
 	}
+
+	public class IsLeanDispatch extends SensorInstrumentationPointTest {
+
+		@Test
+		public void noArgumentsNeeded() {
+			registeredSensorConfig.addSensorId(1, PriorityEnum.MAX);
+
+			assertThat(registeredSensorConfig.isLeanDispatch(), is(true));
+		}
+
+		@Test
+		public void argumentsNeeded() {
+			registeredSensorConfig.addSensorId(1, PriorityEnum.MAX);
+			registeredSensorConfig.setArgumentsNeeded(true);
+
+			assertThat(registeredSensorConfig.isLeanDispatch(), is(false));
+		}
+
+		@Test
+		public void propertyAccess() {
+			registeredSensorConfig.addSensorId(1, PriorityEnum.MAX);
+			registeredSensorConfig.addPropertyAccessor(new PropertyPathStart());
+
+			assertThat(registeredSensorConfig.isLeanDispatch(), is(false));
+		}
+	}
+
+	public class IsInlinedTimerApplicable extends SensorInstrumentationPointTest {
+
+		@BeforeMethod
+		public void inlinedTimer() {
+			registeredSensorConfig.addSensorId(1, PriorityEnum.MAX);
+			registeredSensorConfig.setInlinedTimer(true);
+			registeredSensorConfig.setInlinedTimerSlot(0);
+		}
+
+		@Test
+		public void applicable() {
+			assertThat(registeredSensorConfig.isInlinedTimerApplicable(false), is(true));
+		}
+
+		@Test
+		public void notRequested() {
+			registeredSensorConfig.setInlinedTimer(false);
+
+			assertThat(registeredSensorConfig.isInlinedTimerApplicable(false), is(false));
+		}
+
+		@Test
+		public void slotNotAssigned() {
+			registeredSensorConfig.setInlinedTimerSlot(-1);
+
+			assertThat(registeredSensorConfig.isInlinedTimerApplicable(false), is(false));
+		}
+
+		@Test
+		public void moreSensors() {
+			registeredSensorConfig.addSensorId(2, PriorityEnum.MIN);
+
+			assertThat(registeredSensorConfig.isInlinedTimerApplicable(false), is(false));
+		}
+
+		@Test
+		public void constructor() {
+			registeredSensorConfig.setConstructor(true);
+
+			assertThat(registeredSensorConfig.isInlinedTimerApplicable(false), is(false));
+		}
+
+		@Test
+		public void startsInvocation() {
+			registeredSensorConfig.setStartsInvocation(true);
+
+			assertThat(registeredSensorConfig.isInlinedTimerApplicable(false), is(false));
+		}
+
+		@Test
+		public void argumentsNeeded() {
+			registeredSensorConfig.setArgumentsNeeded(true);
+
+			assertThat(registeredSensorConfig.isInlinedTimerApplicable(false), is(false));
+		}
+
+		@Test
+		public void enhancedExceptionSensor() {
+			assertThat(registeredSensorConfig.isInlinedTimerApplicable(true), is(false));
+		}
+	}
 }
@@ -36,6 +36,7 @@ import rocks.inspectit.shared.cs.ci.sensor.platform.impl.ThreadSensorConfig;
 import rocks.inspectit.shared.cs.ci.strategy.IStrategyConfig;
 import rocks.inspectit.shared.cs.ci.strategy.impl.ListSendingStrategyConfig;
 import rocks.inspectit.shared.cs.ci.strategy.impl.SimpleBufferStrategyConfig;
+import rocks.inspectit.shared.cs.ci.strategy.impl.SizeAndBytesSendingStrategyConfig;
 import rocks.inspectit.shared.cs.ci.strategy.impl.SizeBufferStrategyConfig;
 import rocks.inspectit.shared.cs.ci.strategy.impl.TimeSendingStrategyConfig;
 
@@ -79,7 +80,8 @@ public class Environment {
 	 * <p>
 	 * Default is {@link TimeSendingStrategyConfig}.
 	 */
-	@XmlElementRefs({ @XmlElementRef(type = TimeSendingStrategyConfig.class), @XmlElementRef(type = ListSendingStrategyConfig.class) })
+	@XmlElementRefs({ @XmlElementRef(type = TimeSendingStrategyConfig.class), @XmlElementRef(type = ListSendingStrategyConfig.class),
+			@XmlElementRef(type = SizeAndBytesSendingStrategyConfig.class) })
 	private IStrategyConfig sendingStrategyConfig = ConfigurationDefaultsFactory.getDefaultSendingStrategy();
 
 	/**
@@ -127,6 +129,12 @@ public class Environment {
 	@XmlElement(name = "classLoadingDelegation")
 	private boolean classLoadingDelegation = true;
 
+	/**
+	 * If the agents compress the data they send to the CMR.
+	 */
+	@XmlElement(name = "dataCompression")
+	private boolean dataCompression;
+
 	/**
 	 * Returns the {@link IMethodSensorConfig} for the given {@link IMethodSensorConfig} class.
 	 *
@@ -323,6 +331,25 @@ public class Environment {
 		this.classLoadingDelegation = classLoadingDelegation;
 	}
 
+	/**
+	 * Gets {@link #dataCompression}.
+	 *
+	 * @return {@link #dataCompression}
+	 */
+	public boolean isDataCompression() {
+		return dataCompression;
+	}
+
+	/**
+	 * Sets {@link #dataCompression}.
+	 *
+	 * @param dataCompression
+	 *            New value for {@link #dataCompression}
+	 */
+	public void setDataCompression(boolean dataCompression) {
+		this.dataCompression = dataCompression;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -332,6 +359,7 @@ public class Environment {
 		int result = 1;
 		result = (prime * result) + ((bufferStrategyConfig == null) ? 0 : bufferStrategyConfig.hashCode());
 		result = (prime * result) + (classLoadingDelegation ? 1231 : 1237);
+		result = (prime * result) + (dataCompression ? 1231 : 1237);
 		result = (prime * result) + ((description == null) ? 0 : description.hashCode());
 		result = (prime * result) + ((exceptionSensorConfig == null) ? 0 : exceptionSensorConfig.hashCode());
 		result = (prime * result) + ((id == null) ? 0 : id.hashCode());
@@ -369,6 +397,9 @@ public class Environment {
 		if (classLoadingDelegation != other.classLoadingDelegation) {
 			return false;
 		}
+		if (dataCompression != other.dataCompression) {
+			return false;
+		}
 		if (description == null) {
 			if (other.description != null) {
 				return false;
@@ -42,6 +42,15 @@ public class TimerMethodSensorAssignment extends ChartingMethodSensorAssignment
 	@XmlAttribute(name = "min-invocation-duration")
 	private long minInvocationDuration;
 
+	/**
+	 * If the timer should be inlined in the instrumented method. Inlined timer has much lower
+	 * overhead, but the measured methods are not included in the invocation sequences. Only
+	 * respected for the methods that are not constructors and have no other sensor assigned, and
+	 * when charting, invocation start and context captures are not defined.
+	 */
+	@XmlAttribute(name = "inlined")
+	private boolean inlined;
+
 	/**
 	 * List of context captures.
 	 */
@@ -112,6 +121,25 @@ public class TimerMethodSensorAssignment extends ChartingMethodSensorAssignment
 		this.minInvocationDuration = minInvocationDuration;
 	}
 
+	/**
+	 * Gets {@link #inlined}.
+	 *
+	 * @return {@link #inlined}
+	 */
+	public boolean isInlined() {
+		return inlined;
+	}
+
+	/**
+	 * Sets {@link #inlined}.
+	 *
+	 * @param inlined
+	 *            New value for {@link #inlined}
+	 */
+	public void setInlined(boolean inlined) {
+		this.inlined = inlined;
+	}
+
 	/**
 	 * Gets {@link #contextCaptures}.
 	 *
@@ -139,6 +167,7 @@ public class TimerMethodSensorAssignment extends ChartingMethodSensorAssignment
 		final int prime = 31;
 		int result = super.hashCode();
 		result = (prime * result) + ((contextCaptures == null) ? 0 : contextCaptures.hashCode());
+		result = (prime * result) + (inlined ? 1231 : 1237);
 		result = (prime * result) + (int) (minInvocationDuration ^ (minInvocationDuration >>> 32));
 		result = (prime * result) + (startsInvocation ? 1231 : 1237);
 		return result;
@@ -166,6 +195,9 @@ public class TimerMethodSensorAssignment extends ChartingMethodSensorAssignment
 		} else if (!contextCaptures.equals(other.contextCaptures)) {
 			return false;
 		}
+		if (inlined != other.inlined) {
+			return false;
+		}
 		if (minInvocationDuration != other.minInvocationDuration) {
 			return false;
 		}
@@ -1,5 +1,7 @@
 package rocks.inspectit.shared.cs.ci.sensor.exception.impl;
 
+import java.util.Map;
+
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -37,6 +39,15 @@ public class ExceptionSensorConfig extends StringConstraintSensorConfig implemen
 	@XmlAttribute(name = "enhanced", required = true)
 	private boolean enhanced = false;
 
+	/**
+	 * Maximum amount of recorded exceptions of one type per second. Exceptions exceeding the limit
+	 * are not recorded.
+	 * <p>
+	 * Negative or zero values means unlimited.
+	 */
+	@XmlAttribute(name = "max-exceptions-per-second")
+	private int maxExceptionsPerSecond;
+
 	/**
 	 * No-args constructor.
 	 */
@@ -44,6 +55,18 @@ public class ExceptionSensorConfig extends StringConstraintSensorConfig implemen
 		super(500);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Map<String, Object> getParameters() {
+		Map<String, Object> params = super.getParameters();
+		if (maxExceptionsPerSecond > 0) {
+			params.put("maxExceptionsPerSecond", String.valueOf(maxExceptionsPerSecond));
+		}
+		return params;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -94,6 +117,25 @@ public class ExceptionSensorConfig extends StringConstraintSensorConfig implemen
 		this.enhanced = enhanced;
 	}
 
+	/**
+	 * Gets {@link #maxExceptionsPerSecond}.
+	 *
+	 * @return {@link #maxExceptionsPerSecond}
+	 */
+	public int getMaxExceptionsPerSecond() {
+		return maxExceptionsPerSecond;
+	}
+
+	/**
+	 * Sets {@link #maxExceptionsPerSecond}.
+	 *
+	 * @param maxExceptionsPerSecond
+	 *            New value for {@link #maxExceptionsPerSecond}
+	 */
+	public void setMaxExceptionsPerSecond(int maxExceptionsPerSecond) {
+		this.maxExceptionsPerSecond = maxExceptionsPerSecond;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -102,6 +144,7 @@ public class ExceptionSensorConfig extends StringConstraintSensorConfig implemen
 		final int prime = 31;
 		int result = super.hashCode();
 		result = (prime * result) + (enhanced ? 1231 : 1237);
+		result = (prime * result) + maxExceptionsPerSecond;
 		return result;
 	}
 
@@ -123,6 +166,9 @@ public class ExceptionSensorConfig extends StringConstraintSensorConfig implemen
 		if (enhanced != other.enhanced) {
 			return false;
 		}
+		if (maxExceptionsPerSecond != other.maxExceptionsPerSecond) {
+			return false;
+		}
 		return true;
 	}
 
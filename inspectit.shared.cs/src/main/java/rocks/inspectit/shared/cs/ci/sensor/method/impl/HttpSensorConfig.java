@@ -34,6 +34,20 @@ public class HttpSensorConfig extends StringConstraintSensorConfig implements IM
 	@XmlAttribute(name = "sessionCapture")
 	private boolean sessionCapture;
 
+	/**
+	 * Comma separated names of the request headers to capture. If not set all headers are
+	 * captured, empty value means that no headers are captured.
+	 */
+	@XmlAttribute(name = "capturedHeaders")
+	private String capturedHeaders;
+
+	/**
+	 * Comma separated names of the request attributes to capture. If not set all attributes are
+	 * captured, empty value means that no attributes are captured.
+	 */
+	@XmlAttribute(name = "capturedAttributes")
+	private String capturedAttributes;
+
 	/**
 	 * No-args constructor.
 	 */
@@ -83,6 +97,12 @@ public class HttpSensorConfig extends StringConstraintSensorConfig implements IM
 		if (sessionCapture) {
 			parameters.put("sessioncapture", "true");
 		}
+		if (null != capturedHeaders) {
+			parameters.put("capturedHeaders", capturedHeaders);
+		}
+		if (null != capturedAttributes) {
+			parameters.put("capturedAttributes", capturedAttributes);
+		}
 
 		return parameters;
 	}
@@ -106,4 +126,42 @@ public class HttpSensorConfig extends StringConstraintSensorConfig implements IM
 		this.sessionCapture = sessionCapture;
 	}
 
+	/**
+	 * Gets {@link #capturedHeaders}.
+	 *
+	 * @return {@link #capturedHeaders}
+	 */
+	public String getCapturedHeaders() {
+		return capturedHeaders;
+	}
+
+	/**
+	 * Sets {@link #capturedHeaders}.
+	 *
+	 * @param capturedHeaders
+	 *            New value for {@link #capturedHeaders}
+	 */
+	public void setCapturedHeaders(String capturedHeaders) {
+		this.capturedHeaders = capturedHeaders;
+	}
+
+	/**
+	 * Gets {@link #capturedAttributes}.
+	 *
+	 * @return {@link #capturedAttributes}
+	 */
+	public String getCapturedAttributes() {
+		return capturedAttributes;
+	}
+
+	/**
+	 * Sets {@link #capturedAttributes}.
+	 *
+	 * @param capturedAttributes
+	 *            New value for {@link #capturedAttributes}
+	 */
+	public void setCapturedAttributes(String capturedAttributes) {
+		this.capturedAttributes = capturedAttributes;
+	}
+
 }
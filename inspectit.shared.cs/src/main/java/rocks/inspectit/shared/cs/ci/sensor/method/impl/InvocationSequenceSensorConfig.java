@@ -1,5 +1,8 @@
 package rocks.inspectit.shared.cs.ci.sensor.method.impl;
 
+import java.util.Map;
+
+import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlRootElement;
 
 import rocks.inspectit.shared.all.instrumentation.config.PriorityEnum;
@@ -25,6 +28,40 @@ public class InvocationSequenceSensorConfig extends StringConstraintSensorConfig
 	 */
 	public static final String CLASS_NAME = "rocks.inspectit.agent.java.sensor.method.invocationsequence.InvocationSequenceSensor";
 
+	/**
+	 * Maximum total amount of elements in one invocation sequence, counted over all levels and not
+	 * per parent. Calls exceeding the limit are summarized in overflow elements.
+	 * <p>
+	 * Negative or zero values means unlimited.
+	 */
+	@XmlAttribute(name = "max-elements")
+	private long maxElements;
+
+	/**
+	 * Maximum depth of the elements in one invocation sequence.
+	 * <p>
+	 * Negative or zero values means unlimited.
+	 */
+	@XmlAttribute(name = "max-depth")
+	private int maxDepth;
+
+	/**
+	 * Maximum estimated size in bytes of one invocation sequence.
+	 * <p>
+	 * Negative or zero values means unlimited.
+	 */
+	@XmlAttribute(name = "max-bytes")
+	private long maxBytes;
+
+	/**
+	 * Amount of elements in the invocation sequence after which the completed sub-trees of the
+	 * root are sent to the CMR before the invocation completes.
+	 * <p>
+	 * Negative or zero values means no streaming.
+	 */
+	@XmlAttribute(name = "stream-threshold")
+	private long streamThreshold;
+
 	/**
 	 * No-args constructor.
 	 */
@@ -32,6 +69,27 @@ public class InvocationSequenceSensorConfig extends StringConstraintSensorConfig
 		super(100);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Map<String, Object> getParameters() {
+		Map<String, Object> params = super.getParameters();
+		if (maxElements > 0) {
+			params.put("maxElements", String.valueOf(maxElements));
+		}
+		if (maxDepth > 0) {
+			params.put("maxDepth", String.valueOf(maxDepth));
+		}
+		if (maxBytes > 0) {
+			params.put("maxBytes", String.valueOf(maxBytes));
+		}
+		if (streamThreshold > 0) {
+			params.put("streamThreshold", String.valueOf(streamThreshold));
+		}
+		return params;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -64,4 +122,124 @@ public class InvocationSequenceSensorConfig extends StringConstraintSensorConfig
 		return true;
 	}
 
+	/**
+	 * Gets {@link #maxElements}.
+	 *
+	 * @return {@link #maxElements}
+	 */
+	public long getMaxElements() {
+		return maxElements;
+	}
+
+	/**
+	 * Sets {@link #maxElements}.
+	 *
+	 * @param maxElements
+	 *            New value for {@link #maxElements}
+	 */
+	public void setMaxElements(long maxElements) {
+		this.maxElements = maxElements;
+	}
+
+	/**
+	 * Gets {@link #maxDepth}.
+	 *
+	 * @return {@link #maxDepth}
+	 */
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	/**
+	 * Sets {@link #maxDepth}.
+	 *
+	 * @param maxDepth
+	 *            New value for {@link #maxDepth}
+	 */
+	public void setMaxDepth(int maxDepth) {
+		this.maxDepth = maxDepth;
+	}
+
+	/**
+	 * Gets {@link #maxBytes}.
+	 *
+	 * @return {@link #maxBytes}
+	 */
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	/**
+	 * Sets {@link #maxBytes}.
+	 *
+	 * @param maxBytes
+	 *            New value for {@link #maxBytes}
+	 */
+	public void setMaxBytes(long maxBytes) {
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Gets {@link #streamThreshold}.
+	 *
+	 * @return {@link #streamThreshold}
+	 */
+	public long getStreamThreshold() {
+		return streamThreshold;
+	}
+
+	/**
+	 * Sets {@link #streamThreshold}.
+	 *
+	 * @param streamThreshold
+	 *            New value for {@link #streamThreshold}
+	 */
+	public void setStreamThreshold(long streamThreshold) {
+		this.streamThreshold = streamThreshold;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = super.hashCode();
+		result = (prime * result) + (int) (maxElements ^ (maxElements >>> 32));
+		result = (prime * result) + maxDepth;
+		result = (prime * result) + (int) (maxBytes ^ (maxBytes >>> 32));
+		result = (prime * result) + (int) (streamThreshold ^ (streamThreshold >>> 32));
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!super.equals(obj)) {
+			return false;
+		}
+		if (getClass() != obj.getClass()) {
+			return false;
+		}
+		InvocationSequenceSensorConfig other = (InvocationSequenceSensorConfig) obj;
+		if (maxElements != other.maxElements) {
+			return false;
+		}
+		if (maxDepth != other.maxDepth) {
+			return false;
+		}
+		if (maxBytes != other.maxBytes) {
+			return false;
+		}
+		if (streamThreshold != other.streamThreshold) {
+			return false;
+		}
+		return true;
+	}
+
 }
@@ -1,5 +1,8 @@
 package rocks.inspectit.shared.cs.ci.sensor.method.impl;
 
+import java.util.Map;
+
+import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlRootElement;
 
 import rocks.inspectit.shared.all.instrumentation.config.PriorityEnum;
@@ -25,6 +28,27 @@ public class StatementSensorConfig extends StringConstraintSensorConfig implemen
 	 */
 	public static final String CLASS_NAME = "rocks.inspectit.agent.java.sensor.method.jdbc.StatementSensor";
 
+	/**
+	 * If the literals in the SQL should be replaced with placeholders, so that the statements
+	 * differing only in inlined values are aggregated together.
+	 */
+	@XmlAttribute(name = "normalizeSql")
+	private boolean normalizeSql;
+
+	/**
+	 * If the replaced literals of one call should be kept as the sample parameter values. Only
+	 * used when {@link #normalizeSql} is active.
+	 */
+	@XmlAttribute(name = "sampleLiterals")
+	private boolean sampleLiterals;
+
+	/**
+	 * If the normalized SQL should be sent only from time to time and resolved by the CMR from the
+	 * fingerprint in between. Only used when {@link #normalizeSql} is active.
+	 */
+	@XmlAttribute(name = "sqlTextOnce")
+	private boolean sqlTextOnce;
+
 	/**
 	 * No-args constructor.
 	 */
@@ -32,6 +56,26 @@ public class StatementSensorConfig extends StringConstraintSensorConfig implemen
 		super(1000);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Map<String, Object> getParameters() {
+		Map<String, Object> parameters = super.getParameters();
+
+		if (normalizeSql) {
+			parameters.put("normalizeSql", "true");
+			if (sampleLiterals) {
+				parameters.put("sampleLiterals", "true");
+			}
+			if (sqlTextOnce) {
+				parameters.put("sqlTextOnce", "true");
+			}
+		}
+
+		return parameters;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -64,4 +108,61 @@ public class StatementSensorConfig extends StringConstraintSensorConfig implemen
 		return true;
 	}
 
+	/**
+	 * Gets {@link #normalizeSql}.
+	 *
+	 * @return {@link #normalizeSql}
+	 */
+	public boolean isNormalizeSql() {
+		return normalizeSql;
+	}
+
+	/**
+	 * Sets {@link #normalizeSql}.
+	 *
+	 * @param normalizeSql
+	 *            New value for {@link #normalizeSql}
+	 */
+	public void setNormalizeSql(boolean normalizeSql) {
+		this.normalizeSql = normalizeSql;
+	}
+
+	/**
+	 * Gets {@link #sampleLiterals}.
+	 *
+	 * @return {@link #sampleLiterals}
+	 */
+	public boolean isSampleLiterals() {
+		return sampleLiterals;
+	}
+
+	/**
+	 * Sets {@link #sampleLiterals}.
+	 *
+	 * @param sampleLiterals
+	 *            New value for {@link #sampleLiterals}
+	 */
+	public void setSampleLiterals(boolean sampleLiterals) {
+		this.sampleLiterals = sampleLiterals;
+	}
+
+	/**
+	 * Gets {@link #sqlTextOnce}.
+	 *
+	 * @return {@link #sqlTextOnce}
+	 */
+	public boolean isSqlTextOnce() {
+		return sqlTextOnce;
+	}
+
+	/**
+	 * Sets {@link #sqlTextOnce}.
+	 *
+	 * @param sqlTextOnce
+	 *            New value for {@link #sqlTextOnce}
+	 */
+	public void setSqlTextOnce(boolean sqlTextOnce) {
+		this.sqlTextOnce = sqlTextOnce;
+	}
+
 }
@@ -0,0 +1,145 @@
+package rocks.inspectit.shared.cs.ci.strategy.impl;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import rocks.inspectit.shared.cs.ci.strategy.IStrategyConfig;
+
+/**
+ * Configuration for the size and bytes sending strategy. Sending is executed when either the number
+ * of elements or their approximate size in bytes exceeds the configured threshold.
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlRootElement(name = "size-and-bytes-sending-strategy-config")
+public class SizeAndBytesSendingStrategyConfig implements IStrategyConfig {
+
+	/**
+	 * Implementing class name.
+	 */
+	private static final String CLASS_NAME = "rocks.inspectit.agent.java.sending.impl.SizeAndBytesStrategy";
+
+	/**
+	 * Default number of elements before send is executed.
+	 */
+	private static final int DEFAULT_SIZE = 1000;
+
+	/**
+	 * Default approximate size of elements in bytes before send is executed.
+	 */
+	private static final long DEFAULT_BYTES = 1048576L;
+
+	/**
+	 * Number of elements before send is executed.
+	 * <p>
+	 * Default size is {@link #DEFAULT_SIZE}.
+	 */
+	@XmlAttribute(name = "size", required = true)
+	private int size = DEFAULT_SIZE;
+
+	/**
+	 * Approximate size of elements in bytes before send is executed.
+	 * <p>
+	 * Default size is {@link #DEFAULT_BYTES}.
+	 */
+	@XmlAttribute(name = "bytes", required = true)
+	private long bytes = DEFAULT_BYTES;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getClassName() {
+		return CLASS_NAME;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Map<String, String> getSettings() {
+		Map<String, String> settings = new HashMap<>(2);
+		settings.put("size", String.valueOf(size));
+		settings.put("bytes", String.valueOf(bytes));
+		return settings;
+	}
+
+	/**
+	 * Gets {@link #size}.
+	 *
+	 * @return {@link #size}
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Sets {@link #size}.
+	 *
+	 * @param size
+	 *            New value for {@link #size}
+	 */
+	public void setSize(int size) {
+		this.size = size;
+	}
+
+	/**
+	 * Gets {@link #bytes}.
+	 *
+	 * @return {@link #bytes}
+	 */
+	public long getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * Sets {@link #bytes}.
+	 *
+	 * @param bytes
+	 *            New value for {@link #bytes}
+	 */
+	public void setBytes(long bytes) {
+		this.bytes = bytes;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = (prime * result) + size;
+		result = (prime * result) + (int) (bytes ^ (bytes >>> 32));
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null) {
+			return false;
+		}
+		if (getClass() != obj.getClass()) {
+			return false;
+		}
+		SizeAndBytesSendingStrategyConfig other = (SizeAndBytesSendingStrategyConfig) obj;
+		if (size != other.size) {
+			return false;
+		}
+		if (bytes != other.bytes) {
+			return false;
+		}
+		return true;
+	}
+
+}
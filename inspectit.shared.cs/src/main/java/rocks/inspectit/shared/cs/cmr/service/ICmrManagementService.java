@@ -56,6 +56,24 @@ public interface ICmrManagementService {
 	 */
 	int getDroppedDataCount();
 
+	/**
+	 * Reports that an amount of data has been rejected. Rejected data is kept by the agent and sent
+	 * again later.
+	 *
+	 * @param count
+	 *            Rejected amount.
+	 */
+	void addRejectedDataCount(int count);
+
+	/**
+	 * Returns the number of data objects that have been rejected on the CMR, due to the high
+	 * incoming load.
+	 *
+	 * @return Returns the number of data objects that have been rejected on the CMR, due to the
+	 *         high incoming load.
+	 */
+	long getRejectedDataCount();
+
 	/**
 	 * Returns the currently existing {@link PropertySection} in the CMR configuration.
 	 *
@@ -60,6 +60,7 @@ public class SqlStatementDataAggregator implements IAggregator<SqlStatementData>
 		clone.setSensorTypeIdent(sqlStatementData.getSensorTypeIdent());
 		clone.setPreparedStatement(sqlStatementData.isPreparedStatement());
 		clone.setSql(sqlStatementData.getSql());
+		clone.setSqlFingerprint(sqlStatementData.getSqlFingerprint());
 		clone.setDatabaseProductName(sqlStatementData.getDatabaseProductName());
 		clone.setDatabaseProductVersion(sqlStatementData.getDatabaseProductVersion());
 		clone.setDatabaseUrl(sqlStatementData.getDatabaseUrl());
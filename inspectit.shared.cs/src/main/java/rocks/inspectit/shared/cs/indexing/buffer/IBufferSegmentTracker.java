@@ -0,0 +1,44 @@
+package rocks.inspectit.shared.cs.indexing.buffer;
+
+import rocks.inspectit.shared.all.communication.DefaultData;
+
+/**
+ * Tracker of the buffer segments. The buffer assigns each element to a segment and always evicts
+ * the oldest segments as a whole. The indexing tree working with the tracker partitions the leafs
+ * by the segment id, so that the evicted elements are removed from the tree by dropping the
+ * partition of the evicted segment.
+ * <p>
+ * Segment ids are increasing, thus a segment is available as long as its id is not smaller than
+ * the id of the oldest segment in the buffer.
+ *
+ * @param <E>
+ *            Type of the elements in the buffer.
+ */
+public interface IBufferSegmentTracker<E extends DefaultData> {
+
+	/**
+	 * Segment id returned for the elements that are not in the buffer.
+	 */
+	long NO_SEGMENT = -1L;
+
+	/**
+	 * Returns the id of the buffer segment the given element belongs to. Only elements that are
+	 * currently being indexed by the buffer can be located.
+	 *
+	 * @param element
+	 *            Element being indexed.
+	 * @return Segment id or {@link #NO_SEGMENT} if the element is not indexed by the buffer.
+	 */
+	long getSegmentId(E element);
+
+	/**
+	 * Returns if the segment with the given id is still in the buffer.
+	 *
+	 * @param segmentId
+	 *            Segment id.
+	 * @return <code>true</code> if segment is available, <code>false</code> if it has been
+	 *         evicted.
+	 */
+	boolean isAvailable(long segmentId);
+
+}
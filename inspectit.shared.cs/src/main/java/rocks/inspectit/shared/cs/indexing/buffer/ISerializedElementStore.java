@@ -0,0 +1,49 @@
+package rocks.inspectit.shared.cs.indexing.buffer;
+
+import rocks.inspectit.shared.all.communication.DefaultData;
+
+/**
+ * Store that keeps the buffered elements in the serialized form. The indexing tree working with
+ * the store keeps only the locations of the elements and reads the elements from the store when
+ * they are queried.
+ *
+ * @param <E>
+ *            Type of the elements in the store.
+ */
+public interface ISerializedElementStore<E extends DefaultData> {
+
+	/**
+	 * Location returned for the elements that are not in the store.
+	 */
+	long NO_LOCATION = -1L;
+
+	/**
+	 * Returns the location of the given element in the store. Only elements that are currently
+	 * being indexed by the store owner can be located.
+	 *
+	 * @param element
+	 *            Element being indexed.
+	 * @return Location of the element or {@link #NO_LOCATION} if the element is not in the store.
+	 */
+	long getLocation(E element);
+
+	/**
+	 * Reads the element stored on the given location.
+	 *
+	 * @param location
+	 *            Location of the element.
+	 * @return Deserialized element or <code>null</code> if the element is not available in the
+	 *         store any more.
+	 */
+	E read(long location);
+
+	/**
+	 * Returns if the element stored on the given location is still available in the store.
+	 *
+	 * @param location
+	 *            Location of the element.
+	 * @return <code>true</code> if element can be read, <code>false</code> if it has been evicted.
+	 */
+	boolean isAvailable(long location);
+
+}
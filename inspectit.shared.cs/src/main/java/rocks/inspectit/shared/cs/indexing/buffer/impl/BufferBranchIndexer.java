@@ -5,7 +5,9 @@ import org.apache.commons.lang.builder.ToStringBuilder;
 import rocks.inspectit.shared.all.communication.DefaultData;
 import rocks.inspectit.shared.all.indexing.IIndexQuery;
 import rocks.inspectit.shared.cs.indexing.buffer.IBufferBranchIndexer;
+import rocks.inspectit.shared.cs.indexing.buffer.IBufferSegmentTracker;
 import rocks.inspectit.shared.cs.indexing.buffer.IBufferTreeComponent;
+import rocks.inspectit.shared.cs.indexing.buffer.ISerializedElementStore;
 import rocks.inspectit.shared.cs.indexing.indexer.IBranchIndexer;
 
 /**
@@ -29,6 +31,18 @@ public class BufferBranchIndexer<E extends DefaultData> implements IBufferBranch
 	 */
 	private BufferBranchIndexer<E> childBufferIndexer;
 
+	/**
+	 * Store the indexed elements are kept in. If set the leafs created by this indexer keep only
+	 * the locations of the elements in this store.
+	 */
+	private ISerializedElementStore<E> elementStore;
+
+	/**
+	 * Tracker of the buffer segments. If set the leafs created by this indexer partition the
+	 * elements by the buffer segment.
+	 */
+	private IBufferSegmentTracker<E> segmentTracker;
+
 	/**
 	 * Default constructor.
 	 *
@@ -48,8 +62,56 @@ public class BufferBranchIndexer<E extends DefaultData> implements IBufferBranch
 	 *            Indexer to be used in the child branch.
 	 */
 	public BufferBranchIndexer(IBranchIndexer<E> delegateIndexer, BufferBranchIndexer<E> childBufferIndexer) {
+		this(delegateIndexer, childBufferIndexer, null, null);
+	}
+
+	/**
+	 * Constructor that defines the store the indexed elements are kept in.
+	 *
+	 * @param delegateIndexer
+	 *            Type of the delegate indexer that will actually generate keys for objects.
+	 * @param childBufferIndexer
+	 *            Indexer to be used in the child branch.
+	 * @param elementStore
+	 *            Store the indexed elements are kept in. Only used when there is no child indexer,
+	 *            can be <code>null</code> to keep elements referenced in the leafs.
+	 */
+	public BufferBranchIndexer(IBranchIndexer<E> delegateIndexer, BufferBranchIndexer<E> childBufferIndexer, ISerializedElementStore<E> elementStore) {
+		this(delegateIndexer, childBufferIndexer, elementStore, null);
+	}
+
+	/**
+	 * Constructor that defines the tracker of the buffer segments the indexed elements belong to.
+	 *
+	 * @param delegateIndexer
+	 *            Type of the delegate indexer that will actually generate keys for objects.
+	 * @param childBufferIndexer
+	 *            Indexer to be used in the child branch.
+	 * @param segmentTracker
+	 *            Tracker of the buffer segments. Only used when there is no child indexer, can be
+	 *            <code>null</code> to keep elements weakly referenced in the leafs.
+	 */
+	public BufferBranchIndexer(IBranchIndexer<E> delegateIndexer, BufferBranchIndexer<E> childBufferIndexer, IBufferSegmentTracker<E> segmentTracker) {
+		this(delegateIndexer, childBufferIndexer, null, segmentTracker);
+	}
+
+	/**
+	 * Constructor used by all other constructors.
+	 *
+	 * @param delegateIndexer
+	 *            Type of the delegate indexer that will actually generate keys for objects.
+	 * @param childBufferIndexer
+	 *            Indexer to be used in the child branch.
+	 * @param elementStore
+	 *            Store the indexed elements are kept in or <code>null</code>.
+	 * @param segmentTracker
+	 *            Tracker of the buffer segments or <code>null</code>.
+	 */
+	private BufferBranchIndexer(IBranchIndexer<E> delegateIndexer, BufferBranchIndexer<E> childBufferIndexer, ISerializedElementStore<E> elementStore, IBufferSegmentTracker<E> segmentTracker) {
 		this.delegateIndexer = delegateIndexer;
 		this.childBufferIndexer = childBufferIndexer;
+		this.elementStore = elementStore;
+		this.segmentTracker = segmentTracker;
 	}
 
 	/**
@@ -90,7 +152,7 @@ public class BufferBranchIndexer<E extends DefaultData> implements IBufferBranch
 	@Override
 	public IBufferBranchIndexer<E> getNewInstance() {
 		if (!sharedInstance()) {
-			BufferBranchIndexer<E> bufferBranchIndexer = new BufferBranchIndexer<>(delegateIndexer.getNewInstance(), childBufferIndexer);
+			BufferBranchIndexer<E> bufferBranchIndexer = new BufferBranchIndexer<>(delegateIndexer.getNewInstance(), childBufferIndexer, elementStore, segmentTracker);
 			return bufferBranchIndexer;
 		} else {
 			throw new UnsupportedOperationException("Method getNewInstance() called on the Indexer that has a shared instance.");
@@ -108,6 +170,10 @@ public class BufferBranchIndexer<E extends DefaultData> implements IBufferBranch
 			} else {
 				return new Branch<>(childBufferIndexer.getNewInstance());
 			}
+		} else if (null != elementStore) {
+			return new SerializedLeaf<>(elementStore);
+		} else if (null != segmentTracker) {
+			return new SegmentedLeaf<>(segmentTracker);
 		} else {
 			return new Leaf<>();
 		}
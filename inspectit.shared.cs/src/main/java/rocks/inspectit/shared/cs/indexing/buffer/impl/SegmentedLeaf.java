@@ -0,0 +1,256 @@
+package rocks.inspectit.shared.cs.indexing.buffer.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
+
+import org.apache.commons.lang.builder.ToStringBuilder;
+import org.cliffc.high_scale_lib.NonBlockingHashMapLong;
+
+import rocks.inspectit.shared.all.cmr.cache.IObjectSizes;
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.indexing.IIndexQuery;
+import rocks.inspectit.shared.cs.indexing.LeafTask;
+import rocks.inspectit.shared.cs.indexing.buffer.IBufferSegmentTracker;
+import rocks.inspectit.shared.cs.indexing.buffer.IBufferTreeComponent;
+
+/**
+ * Leaf that partitions the elements by the buffer segment they belong to. The elements are
+ * referenced directly, as they are removed together with their partition once the buffer evicts
+ * the segment. Thus, no weak references and no reference queue draining is needed for the elements
+ * of the buffer. Elements that are not in the buffer (like the ones indexed directly and not via
+ * buffer) are handled by the delegate {@link Leaf} with weak references.
+ *
+ * @param <E>
+ *            Element type that the leaf can index (and hold).
+ */
+public class SegmentedLeaf<E extends DefaultData> implements IBufferTreeComponent<E> {
+
+	/**
+	 * Tracker of the buffer segments.
+	 */
+	private IBufferSegmentTracker<E> segmentTracker;
+
+	/**
+	 * Map of segment id to the elements of the segment.
+	 */
+	private NonBlockingHashMapLong<NonBlockingHashMapLong<E>> segmentMap;
+
+	/**
+	 * Leaf for the elements not belonging to any segment.
+	 */
+	private Leaf<E> heapLeaf;
+
+	/**
+	 * Clear runnable for this Leaf.
+	 */
+	private Runnable clearRunnable = new Runnable() {
+		@Override
+		public void run() {
+			SegmentedLeaf.this.clean();
+		}
+	};
+
+	/**
+	 * Future that holds state of clear runnable.
+	 */
+	private Future<?> clearFuture;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param segmentTracker
+	 *            Tracker of the buffer segments.
+	 */
+	public SegmentedLeaf(IBufferSegmentTracker<E> segmentTracker) {
+		this.segmentTracker = segmentTracker;
+		this.segmentMap = new NonBlockingHashMapLong<>();
+		this.heapLeaf = new Leaf<>();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public E put(E element) {
+		long segmentId = segmentTracker.getSegmentId(element);
+		if (IBufferSegmentTracker.NO_SEGMENT == segmentId) {
+			return heapLeaf.put(element);
+		}
+
+		NonBlockingHashMapLong<E> partition = segmentMap.get(segmentId);
+		if (null == partition) {
+			partition = new NonBlockingHashMapLong<>();
+			NonBlockingHashMapLong<E> existing = segmentMap.putIfAbsent(segmentId, partition);
+			if (null != existing) {
+				partition = existing;
+			}
+		}
+		partition.put(element.getId(), element);
+		return element;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public E get(E template) {
+		long id = template.getId();
+		for (Entry<Long, NonBlockingHashMapLong<E>> entry : segmentMap.entrySet()) {
+			if (segmentTracker.isAvailable(entry.getKey().longValue())) {
+				E element = entry.getValue().get(id);
+				if (null != element) {
+					return element;
+				}
+			}
+		}
+		return heapLeaf.get(template);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public E getAndRemove(E template) {
+		long id = template.getId();
+		for (Entry<Long, NonBlockingHashMapLong<E>> entry : segmentMap.entrySet()) {
+			E element = entry.getValue().remove(id);
+			if (null != element) {
+				if (segmentTracker.isAvailable(entry.getKey().longValue())) {
+					return element;
+				}
+				return null;
+			}
+		}
+		return heapLeaf.getAndRemove(template);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Elements of the evicted segments are not included in the results.
+	 */
+	@Override
+	public List<E> query(IIndexQuery query) {
+		List<E> results = heapLeaf.query(query);
+		for (Entry<Long, NonBlockingHashMapLong<E>> entry : segmentMap.entrySet()) {
+			if (segmentTracker.isAvailable(entry.getKey().longValue())) {
+				for (E element : entry.getValue().values()) {
+					if (element.isQueryComplied(query)) {
+						results.add(element);
+					}
+				}
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<E> query(IIndexQuery query, ForkJoinPool forkJoinPool) {
+		return forkJoinPool.invoke(getTaskForForkJoinQuery(query));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getComponentSize(IObjectSizes objectSizes) {
+		long size = objectSizes.getSizeOfObjectHeader();
+		size += objectSizes.getPrimitiveTypesSize(5, 0, 0, 0, 0, 0);
+		size = objectSizes.alignTo8Bytes(size);
+
+		// map of partitions and each partition
+		size += objectSizes.getSizeOfNonBlockingHashMapLong(segmentMap.size());
+		for (NonBlockingHashMapLong<E> partition : segmentMap.values()) {
+			size += objectSizes.getSizeOfNonBlockingHashMapLong(partition.size());
+		}
+
+		size += heapLeaf.getComponentSize(objectSizes);
+		return size;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Removes the partitions of the segments that were evicted from the buffer.
+	 */
+	@Override
+	public boolean clean() {
+		List<Long> evicted = new ArrayList<>();
+		for (Long segmentId : segmentMap.keySet()) {
+			if (!segmentTracker.isAvailable(segmentId.longValue())) {
+				evicted.add(segmentId);
+			}
+		}
+		for (Long segmentId : evicted) {
+			segmentMap.remove(segmentId);
+		}
+		boolean heapLeafEmpty = heapLeaf.clean();
+		return heapLeafEmpty && segmentMap.isEmpty();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getNumberOfElements() {
+		long elements = heapLeaf.getNumberOfElements();
+		for (NonBlockingHashMapLong<E> partition : segmentMap.values()) {
+			elements += partition.size();
+		}
+		return elements;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void clearAll() {
+		segmentMap.clear();
+		heapLeaf.clearAll();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void cleanWithRunnable(ExecutorService executorService) {
+		if ((clearFuture == null) || clearFuture.isDone()) {
+			clearFuture = executorService.submit(clearRunnable);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean clearEmptyComponents() {
+		return segmentMap.isEmpty() && heapLeaf.clearEmptyComponents();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public RecursiveTask<List<E>> getTaskForForkJoinQuery(IIndexQuery query) {
+		return new LeafTask<>(this, query);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		ToStringBuilder toStringBuilder = new ToStringBuilder(this);
+		toStringBuilder.append("segmentMap", segmentMap);
+		toStringBuilder.append("heapLeaf", heapLeaf);
+		return toStringBuilder.toString();
+	}
+}
@@ -0,0 +1,238 @@
+package rocks.inspectit.shared.cs.indexing.buffer.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
+
+import org.apache.commons.lang.builder.ToStringBuilder;
+import org.cliffc.high_scale_lib.NonBlockingHashMapLong;
+
+import rocks.inspectit.shared.all.cmr.cache.IObjectSizes;
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.indexing.IIndexQuery;
+import rocks.inspectit.shared.cs.indexing.LeafTask;
+import rocks.inspectit.shared.cs.indexing.buffer.IBufferTreeComponent;
+import rocks.inspectit.shared.cs.indexing.buffer.ISerializedElementStore;
+
+/**
+ * Leaf that holds only the locations of the elements kept in the {@link ISerializedElementStore}.
+ * Elements are read from the store when the leaf is queried, thus the leaf does not keep any
+ * element on the heap. Elements that are not in the store (like the ones indexed directly and not
+ * via buffer) are handled by the delegate {@link Leaf} with weak references.
+ *
+ * @param <E>
+ *            Element type that the leaf can index.
+ */
+public class SerializedLeaf<E extends DefaultData> implements IBufferTreeComponent<E> {
+
+	/**
+	 * Store elements are located in.
+	 */
+	private ISerializedElementStore<E> elementStore;
+
+	/**
+	 * Map of element id to the element location in store.
+	 */
+	private NonBlockingHashMapLong<Long> locationMap;
+
+	/**
+	 * Leaf for the elements not located in the store.
+	 */
+	private Leaf<E> heapLeaf;
+
+	/**
+	 * Clear runnable for this Leaf.
+	 */
+	private Runnable clearRunnable = new Runnable() {
+		@Override
+		public void run() {
+			SerializedLeaf.this.clean();
+		}
+	};
+
+	/**
+	 * Future that holds state of clear runnable.
+	 */
+	private Future<?> clearFuture;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param elementStore
+	 *            Store elements are located in.
+	 */
+	public SerializedLeaf(ISerializedElementStore<E> elementStore) {
+		this.elementStore = elementStore;
+		this.locationMap = new NonBlockingHashMapLong<>();
+		this.heapLeaf = new Leaf<>();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public E put(E element) {
+		long location = elementStore.getLocation(element);
+		if (ISerializedElementStore.NO_LOCATION == location) {
+			return heapLeaf.put(element);
+		}
+		locationMap.put(element.getId(), Long.valueOf(location));
+		return element;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public E get(E template) {
+		long id = template.getId();
+		Long location = locationMap.get(id);
+		if (null == location) {
+			return heapLeaf.get(template);
+		}
+
+		E element = elementStore.read(location.longValue());
+		if (null == element) {
+			locationMap.remove(id);
+		}
+		return element;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public E getAndRemove(E template) {
+		long id = template.getId();
+		Long location = locationMap.remove(id);
+		if (null == location) {
+			return heapLeaf.getAndRemove(template);
+		}
+		return elementStore.read(location.longValue());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<E> query(IIndexQuery query) {
+		List<E> results = heapLeaf.query(query);
+		List<Long> evicted = new ArrayList<>();
+		for (Entry<Long, Long> entry : locationMap.entrySet()) {
+			E element = elementStore.read(entry.getValue().longValue());
+			if (null == element) {
+				evicted.add(entry.getKey());
+			} else if (element.isQueryComplied(query)) {
+				results.add(element);
+			}
+		}
+		for (Long id : evicted) {
+			locationMap.remove(id);
+		}
+		return results;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<E> query(IIndexQuery query, ForkJoinPool forkJoinPool) {
+		return forkJoinPool.invoke(getTaskForForkJoinQuery(query));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getComponentSize(IObjectSizes objectSizes) {
+		int mapSize = locationMap.size();
+		long size = objectSizes.getSizeOfObjectHeader();
+		size += objectSizes.getPrimitiveTypesSize(5, 0, 0, 0, 0, 0);
+		size = objectSizes.alignTo8Bytes(size);
+
+		// map with the Long location for each element
+		size += objectSizes.getSizeOfNonBlockingHashMapLong(mapSize);
+		size += mapSize * objectSizes.getSizeOfLongObject();
+
+		size += heapLeaf.getComponentSize(objectSizes);
+		return size;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Removes the locations of the elements that were evicted from the store.
+	 */
+	@Override
+	public boolean clean() {
+		List<Long> evicted = new ArrayList<>();
+		for (Entry<Long, Long> entry : locationMap.entrySet()) {
+			if (!elementStore.isAvailable(entry.getValue().longValue())) {
+				evicted.add(entry.getKey());
+			}
+		}
+		for (Long id : evicted) {
+			locationMap.remove(id);
+		}
+		boolean heapLeafEmpty = heapLeaf.clean();
+		return heapLeafEmpty && locationMap.isEmpty();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getNumberOfElements() {
+		return locationMap.size() + heapLeaf.getNumberOfElements();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void clearAll() {
+		locationMap.clear();
+		heapLeaf.clearAll();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void cleanWithRunnable(ExecutorService executorService) {
+		if ((clearFuture == null) || clearFuture.isDone()) {
+			clearFuture = executorService.submit(clearRunnable);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean clearEmptyComponents() {
+		return locationMap.isEmpty() && heapLeaf.clearEmptyComponents();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public RecursiveTask<List<E>> getTaskForForkJoinQuery(IIndexQuery query) {
+		return new LeafTask<>(this, query);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		ToStringBuilder toStringBuilder = new ToStringBuilder(this);
+		toStringBuilder.append("locationMap", locationMap);
+		toStringBuilder.append("heapLeaf", heapLeaf);
+		return toStringBuilder.toString();
+	}
+}
@@ -15,6 +15,7 @@ import org.springframework.stereotype.Component;
 import rocks.inspectit.shared.all.communication.DefaultData;
 import rocks.inspectit.shared.all.indexing.IIndexQuery;
 import rocks.inspectit.shared.all.indexing.restriction.IIndexQueryRestriction;
+import rocks.inspectit.shared.cs.indexing.restriction.ICompiledIndexQueryRestrictions;
 import rocks.inspectit.shared.cs.indexing.restriction.IIndexQueryRestrictionProcessor;
 
 /**
@@ -75,6 +76,12 @@ public class IndexQuery implements IIndexQuery {
 	 */
 	private List<IIndexQueryRestriction> indexingRestrictionList = new ArrayList<>();
 
+	/**
+	 * Restrictions compiled by the {@link #restrictionProcessor}. Compiled on the first check and
+	 * reset when restrictions change.
+	 */
+	private volatile ICompiledIndexQueryRestrictions compiledRestrictions;
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -194,6 +201,7 @@ public class IndexQuery implements IIndexQuery {
 	@Override
 	public void addIndexingRestriction(IIndexQueryRestriction indexingRestriction) {
 		indexingRestrictionList.add(indexingRestriction);
+		compiledRestrictions = null;
 	}
 
 	/**
@@ -247,7 +255,12 @@ public class IndexQuery implements IIndexQuery {
 	 */
 	@Override
 	public boolean areAllRestrictionsFulfilled(DefaultData defaultData) {
-		return restrictionProcessor.areAllRestrictionsFulfilled(defaultData, indexingRestrictionList);
+		ICompiledIndexQueryRestrictions compiled = compiledRestrictions;
+		if (null == compiled) {
+			compiled = restrictionProcessor.compile(indexingRestrictionList);
+			compiledRestrictions = compiled;
+		}
+		return compiled.areAllRestrictionsFulfilled(defaultData);
 	}
 
 	/**
@@ -256,6 +269,7 @@ public class IndexQuery implements IIndexQuery {
 	 */
 	public void setRestrictionProcessor(IIndexQueryRestrictionProcessor restrictionProcessor) {
 		this.restrictionProcessor = restrictionProcessor;
+		this.compiledRestrictions = null;
 	}
 
 	/**
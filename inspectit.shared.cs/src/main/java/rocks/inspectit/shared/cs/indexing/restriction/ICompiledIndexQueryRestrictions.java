@@ -0,0 +1,21 @@
+package rocks.inspectit.shared.cs.indexing.restriction;
+
+import rocks.inspectit.shared.all.indexing.restriction.IIndexQueryRestriction;
+
+/**
+ * Restrictions of one query compiled by the {@link IIndexQueryRestrictionProcessor}. Compiled
+ * restrictions hold the accessors of the getter methods for the classes of the checked objects.
+ * Implementations must be thread safe, as one query can be executed by several threads.
+ */
+public interface ICompiledIndexQueryRestrictions {
+
+	/**
+	 * If all compiled {@link IIndexQueryRestriction}s are fulfilled for supplied object.
+	 *
+	 * @param object
+	 *            Object that restrictions should be checked against.
+	 * @return True if all restrictions are fulfilled, otherwise false.
+	 */
+	boolean areAllRestrictionsFulfilled(Object object);
+
+}
@@ -24,4 +24,15 @@ public interface IIndexQueryRestrictionProcessor {
 	 */
 	boolean areAllRestrictionsFulfilled(Object object, List<IIndexQueryRestriction> restrictions);
 
+	/**
+	 * Compiles the given restrictions, so that they can be checked against many objects without
+	 * resolving the getter methods for every object. Queries should compile their restrictions
+	 * once and use the returned {@link ICompiledIndexQueryRestrictions} for all queried objects.
+	 *
+	 * @param restrictions
+	 *            List of restrictions.
+	 * @return Compiled restrictions.
+	 */
+	ICompiledIndexQueryRestrictions compile(List<IIndexQueryRestriction> restrictions);
+
 }
@@ -1,21 +1,29 @@
 package rocks.inspectit.shared.cs.indexing.restriction.impl;
 
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.springframework.stereotype.Component;
 
+import com.esotericsoftware.reflectasm.MethodAccess;
+
 import rocks.inspectit.shared.all.indexing.restriction.IIndexQueryRestriction;
 import rocks.inspectit.shared.all.spring.logger.Log;
+import rocks.inspectit.shared.cs.indexing.restriction.ICompiledIndexQueryRestrictions;
 import rocks.inspectit.shared.cs.indexing.restriction.IIndexQueryRestrictionProcessor;
 
 /**
- * This restriction processor caches the methods of each class that needs to be invoke. It also
- * marks in the cache all method that do not exist for specific class and an attempt to find them
+ * This restriction processor caches the getters of each class that needs to be invoked. It also
+ * marks in the cache all getters that do not exist for specific class and an attempt to find them
  * was made.
+ * <p>
+ * Getters of public classes are invoked via the generated {@link MethodAccess} bytecode, thus
+ * without reflection. The compiled restrictions additionally remember the getters resolved for
+ * the class of the last checked object, so that checking many objects of the same class (like
+ * the ones in one indexing tree leaf) needs no cache lookup at all.
  *
  * @author Ivan Senic
  *
@@ -23,6 +31,11 @@ import rocks.inspectit.shared.cs.indexing.restriction.IIndexQueryRestrictionProc
 @Component
 public class CachingIndexQueryRestrictionProcessor implements IIndexQueryRestrictionProcessor {
 
+	/**
+	 * Empty arguments for the getter invocation.
+	 */
+	private static final Object[] NO_ARGUMENTS = new Object[0];
+
 	/**
 	 * The logger.
 	 */
@@ -30,122 +43,356 @@ public class CachingIndexQueryRestrictionProcessor implements IIndexQueryRestric
 	Logger log;
 
 	/**
-	 * Map for caching methods.
+	 * Map for caching getters per class and method name.
 	 */
-	private final ConcurrentHashMap<Integer, Method> cacheMap;
+	private final ConcurrentHashMap<Class<?>, ConcurrentHashMap<String, Getter>> getterCache = new ConcurrentHashMap<>();
 
 	/**
-	 * Marker method.
+	 * Map for caching the generated method accesses per class.
 	 */
-	private Method markerMethod;
+	private final ConcurrentHashMap<Class<?>, MethodAccess> methodAccessCache = new ConcurrentHashMap<>();
 
 	/**
-	 * Default constructor. Sets {@link #markerMethod} to refer to {@link Object#toString()}.
+	 * {@inheritDoc}
 	 */
-	public CachingIndexQueryRestrictionProcessor() {
-		cacheMap = new ConcurrentHashMap<>();
-		try {
-			// setting marker method to point to Object.toString()
-			markerMethod = Object.class.getMethod("toString", new Class[0]);
-		} catch (Exception e) {
-			throw new IllegalStateException("Method toString() can not be found", e);
-		}
+	@Override
+	public boolean areAllRestrictionsFulfilled(Object object, List<IIndexQueryRestriction> restrictions) {
+		return compile(restrictions).areAllRestrictionsFulfilled(object);
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public boolean areAllRestrictionsFulfilled(Object object, List<IIndexQueryRestriction> restrictions) {
-		for (IIndexQueryRestriction indexingRestriction : restrictions) {
-			if (!isRestrictionFulfilled(object, indexingRestriction)) {
-				return false;
+	public ICompiledIndexQueryRestrictions compile(List<IIndexQueryRestriction> restrictions) {
+		return new CompiledRestrictions(restrictions);
+	}
+
+	/**
+	 * Returns the {@link Getter} for the given class with the given method name.
+	 *
+	 * @param clazz
+	 *            Class to find method in.
+	 * @param methodName
+	 *            Name of the method.
+	 * @return Getter, never <code>null</code>. If method can not be found the returned getter is
+	 *         not available.
+	 */
+	Getter getGetter(Class<?> clazz, String methodName) {
+		ConcurrentHashMap<String, Getter> classGetters = getterCache.get(clazz);
+		if (null == classGetters) {
+			classGetters = new ConcurrentHashMap<>();
+			ConcurrentHashMap<String, Getter> existing = getterCache.putIfAbsent(clazz, classGetters);
+			if (null != existing) {
+				classGetters = existing;
 			}
 		}
-		return true;
+
+		Getter getter = classGetters.get(methodName);
+		if (null == getter) {
+			getter = resolveGetter(clazz, methodName);
+			Getter existing = classGetters.putIfAbsent(methodName, getter);
+			if (null != existing) {
+				getter = existing;
+			}
+		}
+		return getter;
 	}
 
 	/**
-	 * Checks if one {@link IIndexQueryRestriction} is fulfilled.
+	 * Resolves the getter for the given class. {@link MethodAccess} is used for the public
+	 * classes, reflection only if the access can not be generated.
 	 *
-	 * @param object
-	 *            to start from
-	 * @param indexingRestriction
-	 *            {@link IIndexQueryRestriction} to check.
-	 *
-	 * @return <code>true</code> if the indexing restriction is fulfilled.
+	 * @param clazz
+	 *            Class to find method in.
+	 * @param methodName
+	 *            Name of the method.
+	 * @return Getter.
 	 */
-	private boolean isRestrictionFulfilled(Object object, IIndexQueryRestriction indexingRestriction) {
-		List<String> methodNames = indexingRestriction.getQualifiedMethodNames();
-
+	private Getter resolveGetter(Class<?> clazz, String methodName) {
+		Method method;
 		try {
-			Object executeOn = object;
-			for (String methodName : methodNames) {
-				Method method = getMethod(executeOn, methodName);
-				if (null == method) {
-					return false;
+			method = clazz.getMethod(methodName, new Class<?>[0]);
+		} catch (NoSuchMethodException e) {
+			// not found, getter marked as not available
+			return new Getter(clazz);
+		} catch (SecurityException e) {
+			log.error("Error retrieve the method " + methodName + " for the object of class " + clazz, e);
+			return new Getter(clazz);
+		}
+
+		if (Modifier.isPublic(clazz.getModifiers()) && !clazz.isInterface()) {
+			try {
+				MethodAccess methodAccess = getMethodAccess(clazz);
+				int index = methodAccess.getIndex(methodName, method.getParameterTypes());
+				return new MethodAccessGetter(clazz, methodAccess, index);
+			} catch (RuntimeException e) { // NOPMD
+				// access can not be generated for the class, use reflection
+				if (log.isDebugEnabled()) {
+					log.debug("Method access can not be created for the class " + clazz + ", reflection will be used.", e);
 				}
-				executeOn = method.invoke(executeOn, new Object[0]);
 			}
+		}
+		return new ReflectionGetter(clazz, method);
+	}
 
-			return indexingRestriction.isFulfilled(executeOn);
-		} catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-			log.error("Error in find object to execute indexing restricton check.", e);
-			return false;
+	/**
+	 * Returns the {@link MethodAccess} for the class, generating it if needed.
+	 *
+	 * @param clazz
+	 *            Class.
+	 * @return Method access.
+	 */
+	private MethodAccess getMethodAccess(Class<?> clazz) {
+		MethodAccess methodAccess = methodAccessCache.get(clazz);
+		if (null == methodAccess) {
+			methodAccess = MethodAccess.get(clazz);
+			MethodAccess existing = methodAccessCache.putIfAbsent(clazz, methodAccess);
+			if (null != existing) {
+				methodAccess = existing;
+			}
 		}
+		return methodAccess;
 	}
 
 	/**
-	 * Returns the {@link Method} for the given {@link Object} with the given method name.
+	 * Restrictions compiled to the arrays of method names and getters. For each restriction and
+	 * navigation level the getter resolved for the last checked class is kept. Getters are
+	 * immutable, thus threads checking objects of different classes at most replace each others
+	 * getters.
+	 *
+	 * @author Ivan Senic
 	 *
-	 * @param object
-	 *            Object to find method on.
-	 * @param methodName
-	 *            Name of the method.
-	 * @return Method if one can be found.
 	 */
-	private Method getMethod(Object object, String methodName) {
-		int cacheKey = getMethodCacheKey(object.getClass(), methodName);
-		Method method = cacheMap.get(cacheKey);
+	private final class CompiledRestrictions implements ICompiledIndexQueryRestrictions {
+
+		/**
+		 * Restrictions.
+		 */
+		private final IIndexQueryRestriction[] restrictions;
+
+		/**
+		 * Getter method names for each restriction.
+		 */
+		private final String[][] methodNames;
+
+		/**
+		 * Last resolved getters for each restriction.
+		 */
+		private final Getter[][] getters;
+
+		/**
+		 * Default constructor.
+		 *
+		 * @param restrictionList
+		 *            Restrictions to compile.
+		 */
+		CompiledRestrictions(List<IIndexQueryRestriction> restrictionList) {
+			int size = restrictionList.size();
+			restrictions = restrictionList.toArray(new IIndexQueryRestriction[size]);
+			methodNames = new String[size][];
+			getters = new Getter[size][];
+			for (int i = 0; i < size; i++) {
+				List<String> qualifiedMethodNames = restrictions[i].getQualifiedMethodNames();
+				methodNames[i] = qualifiedMethodNames.toArray(new String[qualifiedMethodNames.size()]);
+				getters[i] = new Getter[methodNames[i].length];
+			}
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean areAllRestrictionsFulfilled(Object object) {
+			for (int i = 0; i < restrictions.length; i++) {
+				if (!isRestrictionFulfilled(object, i)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Checks if one {@link IIndexQueryRestriction} is fulfilled.
+		 *
+		 * @param object
+		 *            to start from
+		 * @param restrictionIndex
+		 *            Index of the {@link IIndexQueryRestriction} to check.
+		 *
+		 * @return <code>true</code> if the indexing restriction is fulfilled.
+		 */
+		private boolean isRestrictionFulfilled(Object object, int restrictionIndex) {
+			String[] names = methodNames[restrictionIndex];
+			Getter[] restrictionGetters = getters[restrictionIndex];
 
-		if (method == null) { // method is not yet in cache
 			try {
-				Method methodFromClass = object.getClass().getMethod(methodName, new Class<?>[0]);
-				Method existing = cacheMap.putIfAbsent(cacheKey, methodFromClass);
-				if (null != existing) {
-					methodFromClass = existing;
+				Object executeOn = object;
+				for (int i = 0; i < names.length; i++) {
+					if (null == executeOn) {
+						return false;
+					}
+
+					Getter getter = restrictionGetters[i];
+					if ((null == getter) || (getter.type != executeOn.getClass())) { // NOPMD
+						getter = getGetter(executeOn.getClass(), names[i]);
+						restrictionGetters[i] = getter;
+					}
+					if (!getter.isAvailable()) {
+						return false;
+					}
+					executeOn = getter.invoke(executeOn);
 				}
-				return methodFromClass;
-			} catch (NoSuchMethodException e) {
-				// not found, put marker method at this place in map
-				cacheMap.putIfAbsent(cacheKey, markerMethod);
-				return null;
-			} catch (SecurityException | IllegalArgumentException e) {
-				log.error("Error retrieve the method " + methodName + " for the object of class " + object.getClass(), e);
-				return null;
+
+				return restrictions[restrictionIndex].isFulfilled(executeOn);
+			} catch (Exception e) { // NOPMD
+				log.error("Error in find object to execute indexing restricton check.", e);
+				return false;
 			}
-		} else if (markerMethod.equals(method)) {
-			return null;
-		} else {
-			return method;
 		}
 	}
 
 	/**
-	 * Returns key for the hash map based on the supplied class and method name.
+	 * Getter of one class. The base class is the marker for the not existing getter.
+	 *
+	 * @author Ivan Senic
 	 *
-	 * @param clazz
-	 *            class
-	 * @param methodName
-	 *            method name
-	 * @return int key
 	 */
-	private int getMethodCacheKey(Class<?> clazz, String methodName) {
-		final int prime = 31;
-		int result = 0;
-		result = (prime * result) + ((clazz == null) ? 0 : clazz.hashCode());
-		result = (prime * result) + ((methodName == null) ? 0 : methodName.hashCode());
-		return result;
+	static class Getter {
+
+		/**
+		 * Class getter was resolved for.
+		 */
+		final Class<?> type;
+
+		/**
+		 * Default constructor.
+		 *
+		 * @param type
+		 *            Class getter was resolved for.
+		 */
+		Getter(Class<?> type) {
+			this.type = type;
+		}
+
+		/**
+		 * If getter exists in the class.
+		 *
+		 * @return If getter exists in the class.
+		 */
+		boolean isAvailable() {
+			return false;
+		}
+
+		/**
+		 * Invokes the getter.
+		 *
+		 * @param target
+		 *            Object to invoke getter on.
+		 * @return Result of invocation.
+		 * @throws Exception
+		 *             If invocation fails.
+		 */
+		Object invoke(Object target) throws Exception {
+			throw new UnsupportedOperationException("Getter does not exist in " + type);
+		}
+
+	}
+
+	/**
+	 * Getter invoked via generated {@link MethodAccess}.
+	 *
+	 * @author Ivan Senic
+	 *
+	 */
+	static final class MethodAccessGetter extends Getter {
+
+		/**
+		 * Method access of the class.
+		 */
+		private final MethodAccess methodAccess;
+
+		/**
+		 * Index of the getter in method access.
+		 */
+		private final int index;
+
+		/**
+		 * Default constructor.
+		 *
+		 * @param type
+		 *            Class getter was resolved for.
+		 * @param methodAccess
+		 *            Method access of the class.
+		 * @param index
+		 *            Index of the getter in method access.
+		 */
+		MethodAccessGetter(Class<?> type, MethodAccess methodAccess, int index) {
+			super(type);
+			this.methodAccess = methodAccess;
+			this.index = index;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		boolean isAvailable() {
+			return true;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		Object invoke(Object target) {
+			return methodAccess.invoke(target, index, NO_ARGUMENTS);
+		}
+
+	}
+
+	/**
+	 * Getter invoked via reflection.
+	 *
+	 * @author Ivan Senic
+	 *
+	 */
+	static final class ReflectionGetter extends Getter {
+
+		/**
+		 * Getter method.
+		 */
+		private final Method method;
+
+		/**
+		 * Default constructor.
+		 *
+		 * @param type
+		 *            Class getter was resolved for.
+		 * @param method
+		 *            Getter method.
+		 */
+		ReflectionGetter(Class<?> type, Method method) {
+			super(type);
+			this.method = method;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		boolean isAvailable() {
+			return true;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		Object invoke(Object target) throws Exception {
+			return method.invoke(target, NO_ARGUMENTS);
+		}
+
 	}
 
 }
@@ -0,0 +1,303 @@
+package rocks.inspectit.shared.cs.indexing.storage.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.storage.serializer.ISerializer;
+import rocks.inspectit.shared.all.storage.serializer.SerializationException;
+import rocks.inspectit.shared.cs.indexing.ITreeComponent;
+import rocks.inspectit.shared.cs.indexing.storage.IStorageDescriptor;
+import rocks.inspectit.shared.cs.indexing.storage.IStorageTreeComponent;
+
+/**
+ * Page structured storage index file. Every leaf of the indexing tree is serialized into its own
+ * page, and the branches of the tree with their indexers and keys are saved as the skeleton, in
+ * which the leaves are replaced by the {@link MappedStorageLeaf}s pointing to their pages. When
+ * reading, the file is memory-mapped and only the skeleton is de-serialized, the leaves are loaded
+ * on demand when they are queried. Thus, opening a storage costs time and memory depending on the
+ * amount of branches only, and querying depending on the amount of leaves the query touches.
+ * <p>
+ * The file starts with the header holding the magic number, the format version and the position
+ * and size of the skeleton, followed by the leaf pages and the skeleton. The first byte of the
+ * magic number is zero, which never starts an object written by the {@link ISerializer}, so that
+ * the index files holding the complete serialized tree are recognized and still read.
+ */
+public final class MappedStorageIndex {
+
+	/**
+	 * Magic number starting the file.
+	 */
+	static final int MAGIC = 0x00495458;
+
+	/**
+	 * Version of the file format.
+	 */
+	static final int VERSION = 1;
+
+	/**
+	 * Size of the header in bytes.
+	 */
+	static final int HEADER_SIZE = 20;
+
+	/**
+	 * Suffix of the file the index is written to before it is moved to its path.
+	 */
+	static final String TEMP_SUFFIX = ".tmp";
+
+	/**
+	 * Initial size of the buffer the pages are serialized to.
+	 */
+	private static final int BUFFER_SIZE = 8192;
+
+	/**
+	 * Mapped content of the file.
+	 */
+	private final ByteBuffer mappedBuffer;
+
+	/**
+	 * Serializer to load the pages with.
+	 */
+	private final ISerializer serializer;
+
+	/**
+	 * Private constructor, use {@link #read(Path, ISerializer)}.
+	 *
+	 * @param mappedBuffer
+	 *            Mapped content of the file.
+	 * @param serializer
+	 *            Serializer to load the pages with.
+	 */
+	private MappedStorageIndex(ByteBuffer mappedBuffer, ISerializer serializer) {
+		this.mappedBuffer = mappedBuffer;
+		this.serializer = serializer;
+	}
+
+	/**
+	 * Writes the indexing tree to the file with the given path. The tree is first written to a
+	 * temporary file next to it, which replaces the file only when it is complete. Thus, a failed
+	 * write never leaves an incomplete index file.
+	 *
+	 * @param <E>
+	 *            Type of the elements indexed.
+	 * @param indexingTree
+	 *            Indexing tree to write.
+	 * @param path
+	 *            Path of the file. An existing file is replaced.
+	 * @param serializer
+	 *            Serializer to use.
+	 * @throws IOException
+	 *             If {@link IOException} occurs.
+	 * @throws SerializationException
+	 *             If the tree can not be serialized.
+	 */
+	public static <E extends DefaultData> void write(IStorageTreeComponent<E> indexingTree, Path path, ISerializer serializer) throws IOException, SerializationException {
+		Path tempPath = path.resolveSibling(path.getFileName() + TEMP_SUFFIX);
+		try {
+			try (FileChannel fileChannel = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+				Output output = new Output(BUFFER_SIZE, -1);
+				fileChannel.position(HEADER_SIZE);
+				IStorageTreeComponent<E> skeleton = writePages(indexingTree, fileChannel, output, serializer);
+				long skeletonPosition = fileChannel.position();
+				int skeletonSize = writeObject(skeleton, fileChannel, output, serializer);
+
+				ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+				header.putInt(MAGIC).putInt(VERSION).putLong(skeletonPosition).putInt(skeletonSize);
+				header.flip();
+				fileChannel.position(0);
+				writeFully(header, fileChannel);
+				fileChannel.force(true);
+			}
+			Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (Throwable throwable) { // NOPMD
+			// don't leave the incomplete file
+			try {
+				Files.deleteIfExists(tempPath);
+			} catch (IOException e) {
+				throwable.addSuppressed(e);
+			}
+			throw throwable;
+		}
+	}
+
+	/**
+	 * Reads the indexing tree from the file with the given path. If the file is a page structured
+	 * index, only the skeleton is read and the leaves are loaded when needed with the given
+	 * serializer, which must not be used elsewhere afterwards. Otherwise the complete tree is
+	 * de-serialized.
+	 *
+	 * @param <E>
+	 *            Type of the elements indexed.
+	 * @param path
+	 *            Path of the file.
+	 * @param serializer
+	 *            Serializer to use.
+	 * @return Indexing tree.
+	 * @throws IOException
+	 *             If {@link IOException} occurs or the file format version is not supported.
+	 * @throws SerializationException
+	 *             If the tree can not be de-serialized.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <E extends DefaultData> IStorageTreeComponent<E> read(Path path, ISerializer serializer) throws IOException, SerializationException {
+		try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			while (header.hasRemaining() && (fileChannel.read(header) >= 0)) { // NOPMD
+			}
+			header.flip();
+
+			if ((header.remaining() < HEADER_SIZE) || (MAGIC != header.getInt())) {
+				// complete tree serialized
+				fileChannel.position(0);
+				Input input = new Input(Channels.newInputStream(fileChannel));
+				return (IStorageTreeComponent<E>) serializer.deserialize(input);
+			}
+
+			int version = header.getInt();
+			if (version > VERSION) {
+				throw new IOException("Storage index file " + path + " has the unsupported format version " + version + ".");
+			}
+			long skeletonPosition = header.getLong();
+			int skeletonSize = header.getInt();
+
+			long fileSize = fileChannel.size();
+			if (fileSize > Integer.MAX_VALUE) {
+				throw new IOException("Storage index file " + path + " is too big to be mapped.");
+			}
+			MappedStorageIndex storageIndex = new MappedStorageIndex(fileChannel.map(MapMode.READ_ONLY, 0, fileSize), serializer);
+			IStorageTreeComponent<E> skeleton = storageIndex.readPage(skeletonPosition, skeletonSize);
+			attach(skeleton, storageIndex);
+			return skeleton;
+		}
+	}
+
+	/**
+	 * Reads the tree component from the page.
+	 *
+	 * @param <E>
+	 *            Type of the elements indexed.
+	 * @param position
+	 *            Position of the page.
+	 * @param size
+	 *            Size of the page.
+	 * @return Tree component.
+	 * @throws SerializationException
+	 *             If the tree component can not be de-serialized.
+	 */
+	@SuppressWarnings("unchecked")
+	synchronized <E extends DefaultData> IStorageTreeComponent<E> readPage(long position, int size) throws SerializationException {
+		byte[] bytes = new byte[size];
+		ByteBuffer page = mappedBuffer.duplicate();
+		page.position((int) position);
+		page.get(bytes);
+		return (IStorageTreeComponent<E>) serializer.deserialize(new Input(bytes));
+	}
+
+	/**
+	 * Writes the pages of all leaves of the given tree component and returns its skeleton.
+	 *
+	 * @param <E>
+	 *            Type of the elements indexed.
+	 * @param treeComponent
+	 *            Tree component to write.
+	 * @param fileChannel
+	 *            Channel to write to.
+	 * @param output
+	 *            Output to serialize with.
+	 * @param serializer
+	 *            Serializer to use.
+	 * @return Skeleton of the tree component.
+	 * @throws IOException
+	 *             If {@link IOException} occurs.
+	 * @throws SerializationException
+	 *             If a leaf can not be serialized.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <E extends DefaultData> IStorageTreeComponent<E> writePages(IStorageTreeComponent<E> treeComponent, FileChannel fileChannel, Output output, ISerializer serializer)
+			throws IOException, SerializationException {
+		if (treeComponent instanceof StorageBranch) {
+			StorageBranch<E> branch = (StorageBranch<E>) treeComponent;
+			StorageBranch<E> skeleton = new StorageBranch<>(branch.getStorageBranchIndexer());
+			for (Map.Entry<Object, ITreeComponent<IStorageDescriptor, E>> entry : branch.getComponentMap().entrySet()) {
+				skeleton.getComponentMap().put(entry.getKey(), writePages((IStorageTreeComponent<E>) entry.getValue(), fileChannel, output, serializer));
+			}
+			return skeleton;
+		} else if (treeComponent instanceof MappedStorageLeaf) {
+			return writePages(((MappedStorageLeaf<E>) treeComponent).getLeaf(), fileChannel, output, serializer);
+		} else {
+			long position = fileChannel.position();
+			int size = writeObject(treeComponent, fileChannel, output, serializer);
+			return new MappedStorageLeaf<>(position, size);
+		}
+	}
+
+	/**
+	 * Attaches all {@link MappedStorageLeaf}s of the skeleton to the index.
+	 *
+	 * @param treeComponent
+	 *            Tree component of the skeleton.
+	 * @param storageIndex
+	 *            Index to attach to.
+	 */
+	private static void attach(ITreeComponent<IStorageDescriptor, ?> treeComponent, MappedStorageIndex storageIndex) {
+		if (treeComponent instanceof MappedStorageLeaf) {
+			((MappedStorageLeaf<?>) treeComponent).attach(storageIndex);
+		} else if (treeComponent instanceof StorageBranch) {
+			for (ITreeComponent<IStorageDescriptor, ?> child : ((StorageBranch<?>) treeComponent).getComponentMap().values()) {
+				attach(child, storageIndex);
+			}
+		}
+	}
+
+	/**
+	 * Serializes the object and writes it to the current position of the channel.
+	 *
+	 * @param object
+	 *            Object to write.
+	 * @param fileChannel
+	 *            Channel to write to.
+	 * @param output
+	 *            Output to serialize with.
+	 * @param serializer
+	 *            Serializer to use.
+	 * @return Amount of bytes written.
+	 * @throws IOException
+	 *             If {@link IOException} occurs.
+	 * @throws SerializationException
+	 *             If the object can not be serialized.
+	 */
+	private static int writeObject(Object object, FileChannel fileChannel, Output output, ISerializer serializer) throws IOException, SerializationException {
+		output.clear();
+		serializer.serialize(object, output);
+		int size = output.position();
+		writeFully(ByteBuffer.wrap(output.getBuffer(), 0, size), fileChannel);
+		return size;
+	}
+
+	/**
+	 * Writes the complete buffer to the current position of the channel.
+	 *
+	 * @param buffer
+	 *            Buffer to write.
+	 * @param fileChannel
+	 *            Channel to write to.
+	 * @throws IOException
+	 *             If {@link IOException} occurs.
+	 */
+	private static void writeFully(ByteBuffer buffer, FileChannel fileChannel) throws IOException {
+		while (buffer.hasRemaining()) {
+			fileChannel.write(buffer);
+		}
+	}
+}
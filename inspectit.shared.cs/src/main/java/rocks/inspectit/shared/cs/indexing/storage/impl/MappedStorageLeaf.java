@@ -0,0 +1,262 @@
+package rocks.inspectit.shared.cs.indexing.storage.impl;
+
+import java.lang.ref.SoftReference;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import org.apache.commons.lang.builder.ToStringBuilder;
+
+import rocks.inspectit.shared.all.cmr.cache.IObjectSizes;
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.indexing.IIndexQuery;
+import rocks.inspectit.shared.all.storage.serializer.SerializationException;
+import rocks.inspectit.shared.cs.indexing.LeafTask;
+import rocks.inspectit.shared.cs.indexing.impl.IndexingException;
+import rocks.inspectit.shared.cs.indexing.storage.IStorageDescriptor;
+import rocks.inspectit.shared.cs.indexing.storage.IStorageTreeComponent;
+
+/**
+ * Placeholder for a leaf that is saved in its own page of the {@link MappedStorageIndex} file.
+ * Only the position and size of the page are kept in the index header, the leaf is loaded from
+ * the mapped file the first time it is queried and is kept softly reachable afterwards.
+ * <p>
+ * The leaf is read-only, elements can not be indexed or removed.
+ * <P>
+ * <b>Important:</b><br>
+ * Changing this class can cause the break of the backward/forward compatibility of the storage in
+ * the way that we will not be able to read any data from the storage. Thus, please be careful with
+ * performing any changes until there is a proper mechanism to protect against this problem.
+ *
+ * @param <E>
+ *            Type of the elements indexed.
+ */
+public class MappedStorageLeaf<E extends DefaultData> implements IStorageTreeComponent<E> {
+
+	/**
+	 * Position of the leaf page in the index file.
+	 */
+	private long pagePosition;
+
+	/**
+	 * Size of the leaf page in bytes.
+	 */
+	private int pageSize;
+
+	/**
+	 * Index file the page is loaded from.
+	 */
+	private transient MappedStorageIndex storageIndex;
+
+	/**
+	 * Reference to the loaded leaf.
+	 */
+	private transient volatile SoftReference<IStorageTreeComponent<E>> leafReference;
+
+	/**
+	 * No-arg constructor for serialization.
+	 */
+	public MappedStorageLeaf() {
+	}
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param pagePosition
+	 *            Position of the leaf page in the index file.
+	 * @param pageSize
+	 *            Size of the leaf page in bytes.
+	 */
+	MappedStorageLeaf(long pagePosition, int pageSize) {
+		this.pagePosition = pagePosition;
+		this.pageSize = pageSize;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Call to this method throws the {@link UnsupportedOperationException} because the mapped leaf
+	 * is read-only.
+	 */
+	@Override
+	public IStorageDescriptor put(E element) throws IndexingException {
+		throw new UnsupportedOperationException("Mapped storage leaf provides only read-only operations.");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IStorageDescriptor get(E template) {
+		return getLeaf().get(template);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Call to this method throws the {@link UnsupportedOperationException} because the mapped leaf
+	 * is read-only.
+	 */
+	@Override
+	public IStorageDescriptor getAndRemove(E template) {
+		throw new UnsupportedOperationException("Mapped storage leaf provides only read-only operations.");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<IStorageDescriptor> query(IIndexQuery query) {
+		return getLeaf().query(query);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<IStorageDescriptor> query(IIndexQuery query, ForkJoinPool forkJoinPool) {
+		return forkJoinPool.invoke(getTaskForForkJoinQuery(query));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public RecursiveTask<List<IStorageDescriptor>> getTaskForForkJoinQuery(IIndexQuery query) {
+		return new LeafTask<>(this, query);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void preWriteFinalization() {
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Size of the loaded leaf is included if the leaf is currently loaded.
+	 */
+	@Override
+	public long getComponentSize(IObjectSizes objectSizes) {
+		long size = objectSizes.getSizeOfObjectHeader();
+		size += objectSizes.getPrimitiveTypesSize(2, 0, 1, 0, 1, 0);
+		size = objectSizes.alignTo8Bytes(size);
+		IStorageTreeComponent<E> leaf = getLoadedLeaf();
+		if (null != leaf) {
+			size += leaf.getComponentSize(objectSizes);
+		}
+		return size;
+	}
+
+	/**
+	 * Returns the leaf, loading it from the index file if it is not loaded.
+	 *
+	 * @return Leaf.
+	 */
+	IStorageTreeComponent<E> getLeaf() {
+		IStorageTreeComponent<E> leaf = getLoadedLeaf();
+		if (null == leaf) {
+			if (null == storageIndex) {
+				throw new IllegalStateException("Mapped storage leaf is not attached to the index file.");
+			}
+			try {
+				leaf = storageIndex.readPage(pagePosition, pageSize);
+			} catch (SerializationException e) {
+				throw new IllegalStateException("Index page at position " + pagePosition + " of the storage index file can not be de-serialized.", e);
+			}
+			leafReference = new SoftReference<>(leaf);
+		}
+		return leaf;
+	}
+
+	/**
+	 * Returns the leaf if it is currently loaded.
+	 *
+	 * @return Loaded leaf or <code>null</code>.
+	 */
+	IStorageTreeComponent<E> getLoadedLeaf() {
+		SoftReference<IStorageTreeComponent<E>> reference = leafReference;
+		if (null != reference) {
+			return reference.get();
+		}
+		return null;
+	}
+
+	/**
+	 * Attaches the leaf to the index file its page is in.
+	 *
+	 * @param storageIndex
+	 *            Index file.
+	 */
+	void attach(MappedStorageIndex storageIndex) {
+		this.storageIndex = storageIndex;
+	}
+
+	/**
+	 * Gets {@link #pagePosition}.
+	 *
+	 * @return {@link #pagePosition}
+	 */
+	long getPagePosition() {
+		return pagePosition;
+	}
+
+	/**
+	 * Gets {@link #pageSize}.
+	 *
+	 * @return {@link #pageSize}
+	 */
+	int getPageSize() {
+		return pageSize;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = (prime * result) + (int) (pagePosition ^ (pagePosition >>> 32));
+		result = (prime * result) + pageSize;
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null) {
+			return false;
+		}
+		if (getClass() != obj.getClass()) {
+			return false;
+		}
+		MappedStorageLeaf<E> other = (MappedStorageLeaf<E>) obj;
+		if (pagePosition != other.pagePosition) {
+			return false;
+		}
+		if (pageSize != other.pageSize) {
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		ToStringBuilder toStringBuilder = new ToStringBuilder(this);
+		toStringBuilder.append("pagePosition", pagePosition);
+		toStringBuilder.append("pageSize", pageSize);
+		return toStringBuilder.toString();
+	}
+}
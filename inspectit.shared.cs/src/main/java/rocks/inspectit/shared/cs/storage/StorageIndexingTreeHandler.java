@@ -4,6 +4,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
@@ -44,8 +45,8 @@ import rocks.inspectit.shared.cs.storage.util.StorageIndexTreeProvider;
  * The class will cache the data that is currently in write with the information to which indexing
  * tree it is going and which descriptor was assigned to the data in write. Because of this for each
  * write there is a put and remove from a {@link HashMap} as an overhead, but since the size of the
- * map is constant (data currently in write can not be greater than the number of threads writing
- * the data, there should not be any serious performance problems.
+ * map is bounded (data currently in write can not be greater than the number of threads writing
+ * the data times the batch size), there should not be any serious performance problems.
  *
  * @author Ivan Senic
  *
@@ -203,6 +204,28 @@ public class StorageIndexingTreeHandler {
 		writeTasksInProcess.remove(writeTask);
 	}
 
+	/**
+	 * Signals to the {@link StorageIndexingTreeHandler} that the batch write has been successful.
+	 * The data of the write tasks was written one after another starting at the given position.
+	 * <p>
+	 * Internally this method will update the {@link IStorageDescriptor}s of the complete batch and
+	 * remove the tasks from the set of tasks being currently processed.
+	 *
+	 * @param writeTasks
+	 *            Write tasks of the batch.
+	 * @param position
+	 *            Write position of the batch.
+	 * @param offsets
+	 *            Offsets of the data of each write task in the batch.
+	 * @param sizes
+	 *            Sizes of the data of each write task.
+	 */
+	public void writeSuccessful(List<WriteTask> writeTasks, long position, long[] offsets, long[] sizes) {
+		for (int i = 0; i < writeTasks.size(); i++) {
+			writeSuccessful(writeTasks.get(i), position + offsets[i], sizes[i]);
+		}
+	}
+
 	/**
 	 * Signals to the {@link StorageIndexingTreeHandler} that the write has failed.
 	 * <p>
@@ -271,7 +294,7 @@ public class StorageIndexingTreeHandler {
 				}
 			}
 			currentIndexingTree.preWriteFinalization();
-			boolean written = storageWriter.writeNonDefaultDataObject(currentIndexingTree, getRandomFileName() + StorageFileType.INDEX_FILE.getExtension());
+			boolean written = storageWriter.writeIndexingTree(currentIndexingTree, getRandomFileName() + StorageFileType.INDEX_FILE.getExtension());
 			if (!written) {
 				log.error("Indexing tree saving failed. Indexing tree might be lost.");
 			}
@@ -335,7 +358,7 @@ public class StorageIndexingTreeHandler {
 										boolean safeToSave = Collections.disjoint(writeTasksToWait, writeTasksInProcess.keySet());
 										if (safeToSave) {
 											currentIndexingTree.preWriteFinalization();
-											boolean written = storageWriter.writeNonDefaultDataObject(currentIndexingTree, getRandomFileName() + StorageFileType.INDEX_FILE.getExtension());
+											boolean written = storageWriter.writeIndexingTree(currentIndexingTree, getRandomFileName() + StorageFileType.INDEX_FILE.getExtension());
 											if (!written) {
 												log.error("Indexing tree saving failed. Indexing tree might be lost.");
 											}
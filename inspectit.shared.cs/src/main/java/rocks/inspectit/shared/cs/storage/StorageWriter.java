@@ -11,11 +11,13 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
@@ -24,6 +26,8 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
@@ -43,6 +47,8 @@ import rocks.inspectit.shared.all.storage.serializer.SerializationException;
 import rocks.inspectit.shared.all.storage.serializer.provider.SerializationManagerProvider;
 import rocks.inspectit.shared.cs.communication.data.cmr.WritingStatus;
 import rocks.inspectit.shared.cs.indexing.impl.IndexingException;
+import rocks.inspectit.shared.cs.indexing.storage.IStorageTreeComponent;
+import rocks.inspectit.shared.cs.indexing.storage.impl.MappedStorageIndex;
 import rocks.inspectit.shared.cs.storage.nio.WriteReadCompletionRunnable;
 import rocks.inspectit.shared.cs.storage.nio.write.WritingChannelManager;
 import rocks.inspectit.shared.cs.storage.processor.AbstractDataProcessor;
@@ -52,6 +58,10 @@ import rocks.inspectit.shared.cs.storage.processor.write.AbstractWriteDataProces
  * {@link StorageWriter} is class that contains shared functionality for writing data on one
  * storage. It can be overwritten, with special additional functionality, but care needs to be taken
  * that methods of this class are correctly called in super classes.
+ * <p>
+ * The data to write is queued and written in batches by the writing executor service. All data of
+ * a batch going to the same channel is serialized into one stream and written to the channel with
+ * a single write, after which the indexing tree is updated for the complete batch at once.
  *
  * @author Ivan Senic
  *
@@ -70,15 +80,63 @@ public class StorageWriter implements IWriter {
 	private static final int FINALIZATION_TASKS_SLEEP_TIME = 500;
 
 	/**
-	 * Total amount of tasks submitted to {@link #writingExecutorService}.
+	 * Max amount of data written in one batch.
+	 */
+	private static final int BATCH_SIZE = 500;
+
+	/**
+	 * Total amount of writes at the last writing status check.
 	 */
 	private long totalTasks = 0;
 
 	/**
-	 * Total amount of finished tasks by {@link #writingExecutorService}.
+	 * Total amount of finished writes at the last writing status check.
 	 */
 	private long finishedTasks = 0;
 
+	/**
+	 * Total amount of writes submitted.
+	 */
+	private final AtomicLong submittedWrites = new AtomicLong();
+
+	/**
+	 * Total amount of writes finished.
+	 */
+	private final AtomicLong finishedWrites = new AtomicLong();
+
+	/**
+	 * Writes waiting to be batched.
+	 */
+	private final ConcurrentLinkedQueue<WriteFutureTask> pendingWrites = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * Amount of writes waiting to be batched.
+	 */
+	private final AtomicInteger pendingWritesCount = new AtomicInteger();
+
+	/**
+	 * Amount of batch writing runnables scheduled on the {@link #writingExecutorService}.
+	 */
+	private final AtomicInteger scheduledBatches = new AtomicInteger();
+
+	/**
+	 * Runnable writing the batches until no data is pending.
+	 */
+	private final Runnable batchWritingRunnable = new Runnable() {
+		@Override
+		public void run() {
+			try {
+				while (writeNextBatch()) { // NOPMD
+				}
+			} finally {
+				scheduledBatches.decrementAndGet();
+			}
+			if (!pendingWrites.isEmpty()) {
+				scheduleBatchWriting();
+			}
+		}
+	};
+
 	/**
 	 * {@link StorageManager}.
 	 */
@@ -257,7 +315,8 @@ public class StorageWriter implements IWriter {
 	/**
 	 * {@inheritDoc}
 	 * <p>
-	 * This method is only submitting a new writing task, thus it is thread safe and very fast.
+	 * This method is only queuing the data for the batched write, thus it is thread safe and very
+	 * fast.
 	 */
 	@Override
 	public Future<Void> write(DefaultData defaultData) {
@@ -267,7 +326,8 @@ public class StorageWriter implements IWriter {
 	/**
 	 * {@inheritDoc}
 	 * <p>
-	 * This method is only submitting a new writing task, thus it is thread safe and very fast.
+	 * This method is only queuing the data for the batched write, thus it is thread safe and very
+	 * fast.
 	 */
 	@Override
 	public Future<Void> write(DefaultData defaultData, Map<?, ?> kryoPreferences) {
@@ -283,7 +343,10 @@ public class StorageWriter implements IWriter {
 			WriteTask writeTask = new WriteTask(defaultData, kryoPreferences);
 			WriteFutureTask writeFutureTask = new WriteFutureTask(writeTask);
 			activeWritingTasks.add(writeFutureTask);
-			writingExecutorService.submit(writeFutureTask);
+			submittedWrites.incrementAndGet();
+			pendingWrites.add(writeFutureTask);
+			pendingWritesCount.incrementAndGet();
+			scheduleBatchWriting();
 			return writeFutureTask;
 		} else {
 			return null;
@@ -540,28 +603,286 @@ public class StorageWriter implements IWriter {
 		}
 	}
 
+	/**
+	 * Writes the indexing tree to the page structured index file with given file name. Note that
+	 * this will be a synchronous write.
+	 *
+	 * @param indexingTree
+	 *            Indexing tree to write.
+	 * @param fileName
+	 *            Name of the file to save the tree to.
+	 * @return True if the tree was written successfully, otherwise false.
+	 * @see MappedStorageIndex
+	 */
+	public boolean writeIndexingTree(IStorageTreeComponent<DefaultData> indexingTree, String fileName) {
+		try {
+			// prepare path
+			Path path = writingFolderPath.resolve(fileName);
+
+			ISerializer serializer = null;
+			try {
+				serializer = serializerQueue.take();
+			} catch (InterruptedException e1) {
+				Thread.interrupted();
+			}
+			if (null == serializer) {
+				log.error("Serializer instance could not be obtained.");
+				return false;
+			}
+
+			try {
+				MappedStorageIndex.write(indexingTree, path, serializer);
+			} catch (SerializationException e) {
+				log.error("Serialization for the indexing tree " + indexingTree + " failed. Indexing tree will be skipped.", e);
+				return false;
+			} finally {
+				serializerQueue.add(serializer);
+			}
+
+			return true;
+		} catch (Throwable throwable) { // NOPMD
+			log.error("Exception occurred while attempting to write indexing tree to disk", throwable);
+			return false;
+		}
+	}
+
 	/**
 	 * Updates the write status.
 	 */
 	private void checkWritingStatus() {
-		if (null != writingExecutorService) {
-			long completedTasks = writingExecutorService.getCompletedTaskCount();
-			long queuedTasks = writingExecutorService.getTaskCount() - completedTasks;
+		long submitted = submittedWrites.get();
+		long finished = finishedWrites.get();
 
-			long arrivedTasksForPeriod = (queuedTasks + completedTasks) - totalTasks;
-			long finishedTasksForPeriod = completedTasks - finishedTasks;
+		long arrivedTasksForPeriod = submitted - totalTasks;
+		long finishedTasksForPeriod = finished - finishedTasks;
 
-			writingStatus = WritingStatus.getWritingStatus(arrivedTasksForPeriod, finishedTasksForPeriod);
+		writingStatus = WritingStatus.getWritingStatus(arrivedTasksForPeriod, finishedTasksForPeriod);
 
-			finishedTasks = completedTasks;
-			totalTasks = completedTasks + queuedTasks;
-		} else {
-			writingStatus = WritingStatus.GOOD;
+		finishedTasks = finished;
+		totalTasks = submitted;
+	}
+
+	/**
+	 * Schedules the batch writing runnable if there is not enough of them scheduled. One runnable
+	 * is enough as long as less than {@value #BATCH_SIZE} writes are pending, for more pending
+	 * writes the runnables are added up to the number of the writing threads.
+	 */
+	private void scheduleBatchWriting() {
+		while (true) {
+			int scheduled = scheduledBatches.get();
+			if ((scheduled >= writingExecutorService.getCorePoolSize()) || ((scheduled > 0) && (pendingWritesCount.get() <= (scheduled * BATCH_SIZE)))) {
+				return;
+			}
+			if (scheduledBatches.compareAndSet(scheduled, scheduled + 1)) {
+				writingExecutorService.execute(batchWritingRunnable);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Writes the next batch of the pending writes. The futures of the writes are done once the
+	 * batch write is executed.
+	 *
+	 * @return <code>false</code> if there was no pending write, <code>true</code> otherwise.
+	 */
+	boolean writeNextBatch() {
+		List<WriteFutureTask> batch = new ArrayList<>(Math.min(BATCH_SIZE, pendingWritesCount.get()));
+		WriteFutureTask writeFutureTask = pendingWrites.poll();
+		while (null != writeFutureTask) {
+			batch.add(writeFutureTask);
+			if (batch.size() == BATCH_SIZE) {
+				break;
+			}
+			writeFutureTask = pendingWrites.poll();
+		}
+
+		if (batch.isEmpty()) {
+			return false;
+		}
+		pendingWritesCount.addAndGet(-batch.size());
+
+		List<WriteTask> writeTasks = new ArrayList<>(batch.size());
+		for (WriteFutureTask futureTask : batch) {
+			writeTasks.add(futureTask.getWriteTask());
+		}
+		try {
+			writeBatch(writeTasks);
+		} finally {
+			for (WriteFutureTask futureTask : batch) {
+				futureTask.writeExecuted();
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Writes the batch of the data. The data is grouped by the channel it is indexed to, and all
+	 * data of one channel is written with a single write.
+	 *
+	 * @param writeTasks
+	 *            Write tasks holding the data to write.
+	 */
+	void writeBatch(List<WriteTask> writeTasks) {
+		if (!storageManager.canWriteMore()) {
+			if (log.isWarnEnabled()) {
+				log.warn("Writing of data canceled because of limited hard disk space left for the storage.");
+			}
+			return;
+		}
+
+		// index the data and group it by channel
+		Map<Integer, List<WriteTask>> channelWriteTasks = new LinkedHashMap<>();
+		for (WriteTask writeTask : writeTasks) {
+			if (null == writeTask.getData()) {
+				log.warn("Failed to write data to storage. The data to be written was already garbage collected due to the high amount of writing tasks.");
+				continue;
+			}
+
+			int channelId = 0;
+			try {
+				channelId = indexingTreeHandler.startWrite(writeTask);
+			} catch (IndexingException e) {
+				indexingTreeHandler.writeFailed(writeTask);
+				if (log.isDebugEnabled()) {
+					log.debug("Indexing exception occurred while attempting to write data to disk.", e);
+				}
+				continue;
+			}
+
+			if (0 == channelId) {
+				indexingTreeHandler.writeFailed(writeTask);
+				log.error("Channel ID could not be obtained during attempt to write data to disk. Data will be skipped.");
+				continue;
+			}
+
+			List<WriteTask> tasks = channelWriteTasks.get(channelId);
+			if (null == tasks) {
+				tasks = new ArrayList<>();
+				channelWriteTasks.put(channelId, tasks);
+			}
+			tasks.add(writeTask);
+		}
+
+		if (channelWriteTasks.isEmpty()) {
+			return;
+		}
+
+		ISerializer serializer = null;
+		try {
+			serializer = serializerQueue.take();
+		} catch (InterruptedException e1) {
+			Thread.interrupted();
+		}
+		if (null == serializer) {
+			for (List<WriteTask> tasks : channelWriteTasks.values()) {
+				for (WriteTask writeTask : tasks) {
+					indexingTreeHandler.writeFailed(writeTask);
+				}
+			}
+			log.error("Serializer instance could not be obtained.");
+			return;
+		}
+
+		try {
+			for (Map.Entry<Integer, List<WriteTask>> entry : channelWriteTasks.entrySet()) {
+				writeToChannel(entry.getKey().intValue(), entry.getValue(), serializer);
+			}
+		} finally {
+			serializerQueue.add(serializer);
 		}
 	}
 
 	/**
-	 * Task for writing one {@link DefaultData} object to the disk.
+	 * Serializes the data of the write tasks into one stream and writes it to the channel.
+	 *
+	 * @param channelId
+	 *            Channel to write to.
+	 * @param writeTasks
+	 *            Write tasks holding the data to write, the data is already indexed to the channel.
+	 * @param serializer
+	 *            Serializer to use.
+	 */
+	private void writeToChannel(int channelId, List<WriteTask> writeTasks, ISerializer serializer) {
+		final List<WriteTask> serializedTasks = new ArrayList<>(writeTasks.size());
+		final long[] offsets = new long[writeTasks.size()];
+		final long[] sizes = new long[writeTasks.size()];
+		ExtendedByteBufferOutputStream extendedByteBufferOutputStream = null;
+		try {
+			extendedByteBufferOutputStream = streamProvider.getExtendedByteBufferOutputStream();
+			Output output = new Output(extendedByteBufferOutputStream);
+			for (WriteTask writeTask : writeTasks) {
+				DefaultData data = writeTask.getData();
+				long offset = extendedByteBufferOutputStream.getTotalWriteSize();
+				try {
+					serializer.serialize(data, output, writeTask.kryoPreferences);
+					output.flush();
+				} catch (SerializationException e) {
+					// bytes of the failed object stay in the stream, they are never referenced
+					output.clear();
+					indexingTreeHandler.writeFailed(writeTask);
+					if (log.isWarnEnabled()) {
+						log.warn("Serialization for the object " + data + " failed. Data will be skipped.", e);
+					}
+					continue;
+				}
+				offsets[serializedTasks.size()] = offset;
+				sizes[serializedTasks.size()] = extendedByteBufferOutputStream.getTotalWriteSize() - offset;
+				serializedTasks.add(writeTask);
+			}
+
+			if (serializedTasks.isEmpty()) {
+				extendedByteBufferOutputStream.close();
+				return;
+			}
+			extendedByteBufferOutputStream.flush(false);
+
+			// final reference needed because of the runnable
+			int buffersToWrite = extendedByteBufferOutputStream.getBuffersCount();
+			final ExtendedByteBufferOutputStream finalOutputStream = extendedByteBufferOutputStream;
+			WriteReadCompletionRunnable completionRunnable = new WriteReadCompletionRunnable(buffersToWrite) {
+				@Override
+				public void run() {
+					finalOutputStream.close();
+					if (isCompleted()) {
+						indexingTreeHandler.writeSuccessful(serializedTasks, getAttemptedWriteReadPosition(), offsets, sizes);
+					} else {
+						for (WriteTask writeTask : serializedTasks) {
+							indexingTreeHandler.writeFailed(writeTask);
+						}
+					}
+				}
+			};
+
+			// write to disk
+			Path channelPath = storageManager.getChannelPath(storageData, channelId);
+			openedChannelPaths.add(channelPath);
+			try {
+				// position will be set in the completion runnable
+				writingChannelManager.write(extendedByteBufferOutputStream, channelPath, completionRunnable);
+			} catch (IOException e) {
+				// remove from indexing tree if exception occurs
+				extendedByteBufferOutputStream.close();
+				for (WriteTask writeTask : serializedTasks) {
+					indexingTreeHandler.writeFailed(writeTask);
+				}
+				log.error("Exception occurred while attempting to write data to disk", e);
+			}
+		} catch (Throwable t) { // NOPMD
+			// catch any exception
+			if (null != extendedByteBufferOutputStream) {
+				extendedByteBufferOutputStream.close();
+			}
+			for (WriteTask writeTask : writeTasks) {
+				indexingTreeHandler.writeFailed(writeTask);
+			}
+			log.error("Unknown exception occurred during data write", t);
+		}
+	}
+
+	/**
+	 * Task for writing one {@link DefaultData} object to the disk. The tasks are written in batches,
+	 * running a single task writes it as a batch of its own.
 	 *
 	 * @author Ivan Senic
 	 *
@@ -596,105 +917,7 @@ public class StorageWriter implements IWriter {
 		 */
 		@Override
 		public void run() {
-			ExtendedByteBufferOutputStream extendedByteBufferOutputStream = null;
-			try {
-				if (!storageManager.canWriteMore()) {
-					if (log.isWarnEnabled()) {
-						log.warn("Writing of data canceled because of limited hard disk space left for the storage.");
-					}
-					return;
-				}
-
-				// get object from soft reference
-				final DefaultData data = referenceToWriteData.get();
-				if (null == data) {
-					log.warn("Failed to write data to storage. The data to be written was already garbage collected due to the high amount of writing tasks.");
-					return;
-				}
-
-				int channelId = 0;
-				// get channel id
-				try {
-					channelId = indexingTreeHandler.startWrite(this);
-				} catch (IndexingException e) {
-					indexingTreeHandler.writeFailed(this);
-					if (log.isDebugEnabled()) {
-						log.debug("Indexing exception occurred while attempting to write data to disk.", e);
-					}
-					return;
-				}
-
-				if (0 == channelId) {
-					indexingTreeHandler.writeFailed(this);
-					log.error("Channel ID could not be obtained during attempt to write data to disk. Data will be skipped.");
-					return;
-				}
-
-				ISerializer serializer = null;
-				try {
-					serializer = serializerQueue.take();
-				} catch (InterruptedException e1) {
-					Thread.interrupted();
-				}
-				if (null == serializer) {
-					indexingTreeHandler.writeFailed(this);
-					log.error("Serializer instance could not be obtained.");
-					return;
-				}
-
-				extendedByteBufferOutputStream = streamProvider.getExtendedByteBufferOutputStream();
-				try {
-					Output output = new Output(extendedByteBufferOutputStream);
-					serializer.serialize(data, output, kryoPreferences);
-					extendedByteBufferOutputStream.flush(false);
-				} catch (SerializationException e) {
-					extendedByteBufferOutputStream.close();
-					indexingTreeHandler.writeFailed(this);
-					serializerQueue.add(serializer);
-					if (log.isWarnEnabled()) {
-						log.warn("Serialization for the object " + data + " failed. Data will be skipped.", e);
-					}
-					return;
-				}
-				serializerQueue.add(serializer);
-
-				// final reference needed because of the runnable
-				int buffersToWrite = extendedByteBufferOutputStream.getBuffersCount();
-				final ExtendedByteBufferOutputStream finalOutputStream = extendedByteBufferOutputStream;
-				WriteReadCompletionRunnable completionRunnable = new WriteReadCompletionRunnable(buffersToWrite) {
-					@Override
-					public void run() {
-						finalOutputStream.close();
-						if (isCompleted()) {
-							indexingTreeHandler.writeSuccessful(WriteTask.this, getAttemptedWriteReadPosition(), getAttemptedWriteReadSize());
-						} else {
-							indexingTreeHandler.writeFailed(WriteTask.this);
-
-						}
-					}
-				};
-
-				// write to disk
-				Path channelPath = storageManager.getChannelPath(storageData, channelId);
-				openedChannelPaths.add(channelPath);
-				try {
-					// position and size will be set in the completion runnable
-					writingChannelManager.write(extendedByteBufferOutputStream, channelPath, completionRunnable);
-				} catch (IOException e) {
-					// remove from indexing tree if exception occurs
-					extendedByteBufferOutputStream.close();
-					indexingTreeHandler.writeFailed(this);
-					log.error("Exception occurred while attempting to write data to disk", e);
-					return;
-				}
-			} catch (Throwable t) { // NOPMD
-				// catch any exception
-				if (null != extendedByteBufferOutputStream) {
-					extendedByteBufferOutputStream.close();
-				}
-				indexingTreeHandler.writeFailed(this);
-				log.error("Unknown exception occurred during data write", t);
-			}
+			writeBatch(Collections.singletonList(this));
 		}
 
 		/**
@@ -708,21 +931,35 @@ public class StorageWriter implements IWriter {
 
 	/**
 	 * Writing future task that will remove itself from the {@link StorageWriter#activeWritingTasks}
-	 * set after the completion of runnable it has been assigned.
+	 * set after the batch containing its {@link WriteTask} has been written.
 	 *
 	 * @author Ivan Senic
 	 *
 	 */
 	private class WriteFutureTask extends FutureTask<Void> {
 
+		/**
+		 * Write task of this future.
+		 */
+		private final WriteTask writeTask;
+
 		/**
 		 * Default constructor.
 		 *
-		 * @param runnable
-		 *            Runnable to execute.
+		 * @param writeTask
+		 *            Write task of this future.
+		 */
+		public WriteFutureTask(WriteTask writeTask) {
+			super(writeTask, null);
+			this.writeTask = writeTask;
+		}
+
+		/**
+		 * Marks the future as done, called when the batch containing the write task has been
+		 * written.
 		 */
-		public WriteFutureTask(Runnable runnable) {
-			super(runnable, null);
+		void writeExecuted() {
+			set(null);
 		}
 
 		/**
@@ -731,6 +968,16 @@ public class StorageWriter implements IWriter {
 		@Override
 		protected void done() {
 			activeWritingTasks.remove(this);
+			finishedWrites.incrementAndGet();
+		}
+
+		/**
+		 * Gets {@link #writeTask}.
+		 *
+		 * @return {@link #writeTask}
+		 */
+		public WriteTask getWriteTask() {
+			return writeTask;
 		}
 
 	}
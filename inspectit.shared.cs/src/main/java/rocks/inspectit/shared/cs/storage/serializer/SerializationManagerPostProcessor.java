@@ -46,6 +46,7 @@ import rocks.inspectit.shared.cs.ci.sensor.platform.impl.SystemSensorConfig;
 import rocks.inspectit.shared.cs.ci.sensor.platform.impl.ThreadSensorConfig;
 import rocks.inspectit.shared.cs.ci.strategy.impl.ListSendingStrategyConfig;
 import rocks.inspectit.shared.cs.ci.strategy.impl.SimpleBufferStrategyConfig;
+import rocks.inspectit.shared.cs.ci.strategy.impl.SizeAndBytesSendingStrategyConfig;
 import rocks.inspectit.shared.cs.ci.strategy.impl.SizeBufferStrategyConfig;
 import rocks.inspectit.shared.cs.ci.strategy.impl.TimeSendingStrategyConfig;
 import rocks.inspectit.shared.cs.cmr.property.configuration.Configuration;
@@ -91,6 +92,7 @@ import rocks.inspectit.shared.cs.indexing.indexer.impl.SqlStringIndexer;
 import rocks.inspectit.shared.cs.indexing.indexer.impl.TimestampIndexer;
 import rocks.inspectit.shared.cs.indexing.storage.impl.ArrayBasedStorageLeaf;
 import rocks.inspectit.shared.cs.indexing.storage.impl.LeafWithNoDescriptors;
+import rocks.inspectit.shared.cs.indexing.storage.impl.MappedStorageLeaf;
 import rocks.inspectit.shared.cs.indexing.storage.impl.SimpleStorageDescriptor;
 import rocks.inspectit.shared.cs.indexing.storage.impl.StorageBranch;
 import rocks.inspectit.shared.cs.indexing.storage.impl.StorageBranchIndexer;
@@ -331,6 +333,12 @@ public class SerializationManagerPostProcessor implements BeanPostProcessor {
 
 		// INSPECTIT-2101
 		kryo.register(ChartingMethodSensorAssignment.class, new FieldSerializer<ChartingMethodSensorAssignment>(kryo, ChartingMethodSensorAssignment.class), nextRegistrationId++);
+
+		// size and bytes sending strategy
+		kryo.register(SizeAndBytesSendingStrategyConfig.class, new FieldSerializer<SizeAndBytesSendingStrategyConfig>(kryo, SizeAndBytesSendingStrategyConfig.class), nextRegistrationId++);
+
+		// page structured storage index
+		kryo.register(MappedStorageLeaf.class, new CustomCompatibleFieldSerializer<MappedStorageLeaf<?>>(kryo, MappedStorageLeaf.class, schemaManager), nextRegistrationId++);
 	}
 
 }
@@ -16,7 +16,9 @@ import org.testng.annotations.Test;
 
 import rocks.inspectit.shared.all.communication.DefaultData;
 import rocks.inspectit.shared.cs.indexing.buffer.IBufferBranchIndexer;
+import rocks.inspectit.shared.cs.indexing.buffer.IBufferSegmentTracker;
 import rocks.inspectit.shared.cs.indexing.buffer.IBufferTreeComponent;
+import rocks.inspectit.shared.cs.indexing.buffer.ISerializedElementStore;
 import rocks.inspectit.shared.cs.indexing.indexer.IBranchIndexer;
 
 /**
@@ -73,6 +75,16 @@ public class BufferBranchIndexerTest {
 		bufferBranchIndexer = new BufferBranchIndexer<>(delegateIndexer, null);
 		component = bufferBranchIndexer.getNextTreeComponent();
 		assertThat(component, is(instanceOf(Leaf.class)));
+
+		// when there is element store create serialized leaf
+		bufferBranchIndexer = new BufferBranchIndexer<>(delegateIndexer, null, mock(ISerializedElementStore.class));
+		component = bufferBranchIndexer.getNextTreeComponent();
+		assertThat(component, is(instanceOf(SerializedLeaf.class)));
+
+		// when there is segment tracker create segmented leaf
+		bufferBranchIndexer = new BufferBranchIndexer<>(delegateIndexer, null, mock(IBufferSegmentTracker.class));
+		component = bufferBranchIndexer.getNextTreeComponent();
+		assertThat(component, is(instanceOf(SegmentedLeaf.class)));
 	}
 
 	/**
@@ -0,0 +1,160 @@
+package rocks.inspectit.shared.cs.indexing.buffer.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.when;
+
+import org.mockito.Mock;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.indexing.IIndexQuery;
+import rocks.inspectit.shared.all.testbase.TestBase;
+import rocks.inspectit.shared.cs.indexing.buffer.IBufferSegmentTracker;
+
+/**
+ * Test for the {@link SegmentedLeaf}.
+ */
+@SuppressWarnings("PMD")
+public class SegmentedLeafTest extends TestBase {
+
+	SegmentedLeaf<DefaultData> leaf;
+
+	@Mock
+	IBufferSegmentTracker<DefaultData> segmentTracker;
+
+	@Mock
+	DefaultData element;
+
+	@Mock
+	DefaultData otherSegmentElement;
+
+	@Mock
+	DefaultData heapElement;
+
+	@Mock
+	DefaultData template;
+
+	@Mock
+	IIndexQuery query;
+
+	@BeforeMethod
+	public void init() {
+		leaf = new SegmentedLeaf<>(segmentTracker);
+		when(element.getId()).thenReturn(1L);
+		when(otherSegmentElement.getId()).thenReturn(2L);
+		when(heapElement.getId()).thenReturn(3L);
+		when(template.getId()).thenReturn(1L);
+		when(segmentTracker.getSegmentId(element)).thenReturn(10L);
+		when(segmentTracker.getSegmentId(otherSegmentElement)).thenReturn(11L);
+		when(segmentTracker.getSegmentId(heapElement)).thenReturn(IBufferSegmentTracker.NO_SEGMENT);
+		when(segmentTracker.isAvailable(10L)).thenReturn(true);
+		when(segmentTracker.isAvailable(11L)).thenReturn(true);
+		when(element.isQueryComplied(query)).thenReturn(true);
+		when(otherSegmentElement.isQueryComplied(query)).thenReturn(true);
+		when(heapElement.isQueryComplied(query)).thenReturn(true);
+	}
+
+	public class Get extends SegmentedLeafTest {
+
+		@Test
+		public void fromSegment() {
+			leaf.put(element);
+			leaf.put(otherSegmentElement);
+
+			DefaultData result = leaf.get(template);
+
+			assertThat(result, is(element));
+		}
+
+		@Test
+		public void segmentEvicted() {
+			leaf.put(element);
+			when(segmentTracker.isAvailable(10L)).thenReturn(false);
+
+			DefaultData result = leaf.get(template);
+
+			assertThat(result, is(nullValue()));
+		}
+
+		@Test
+		public void notInSegment() {
+			leaf.put(heapElement);
+			when(template.getId()).thenReturn(3L);
+
+			DefaultData result = leaf.get(template);
+
+			assertThat(result, is(heapElement));
+		}
+
+		@Test
+		public void andRemove() {
+			leaf.put(element);
+
+			DefaultData result = leaf.getAndRemove(template);
+
+			assertThat(result, is(element));
+			assertThat(leaf.getNumberOfElements(), is(0L));
+		}
+	}
+
+	public class Query extends SegmentedLeafTest {
+
+		@Test
+		public void segmentAndHeapElements() {
+			leaf.put(element);
+			leaf.put(otherSegmentElement);
+			leaf.put(heapElement);
+
+			assertThat(leaf.query(query), containsInAnyOrder(element, otherSegmentElement, heapElement));
+		}
+
+		@Test
+		public void notComplied() {
+			when(element.isQueryComplied(query)).thenReturn(false);
+			leaf.put(element);
+
+			assertThat(leaf.query(query), is(empty()));
+		}
+
+		@Test
+		public void segmentEvicted() {
+			leaf.put(element);
+			leaf.put(otherSegmentElement);
+			when(segmentTracker.isAvailable(10L)).thenReturn(false);
+
+			assertThat(leaf.query(query), containsInAnyOrder(otherSegmentElement));
+		}
+	}
+
+	public class Clean extends SegmentedLeafTest {
+
+		@Test
+		public void evictedSegmentRemoved() {
+			leaf.put(element);
+			leaf.put(otherSegmentElement);
+			when(segmentTracker.isAvailable(10L)).thenReturn(false);
+
+			boolean empty = leaf.clean();
+
+			assertThat(empty, is(false));
+			assertThat(leaf.getNumberOfElements(), is(1L));
+		}
+
+		@Test
+		public void allSegmentsEvicted() {
+			leaf.put(element);
+			when(segmentTracker.isAvailable(10L)).thenReturn(false);
+
+			boolean empty = leaf.clean();
+
+			assertThat(empty, is(true));
+			assertThat(leaf.getNumberOfElements(), is(0L));
+			assertThat(leaf.clearEmptyComponents(), is(true));
+		}
+	}
+}
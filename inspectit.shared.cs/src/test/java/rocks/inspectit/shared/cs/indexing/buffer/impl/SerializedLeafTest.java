@@ -0,0 +1,156 @@
+package rocks.inspectit.shared.cs.indexing.buffer.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.mockito.Mock;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.indexing.IIndexQuery;
+import rocks.inspectit.shared.all.testbase.TestBase;
+import rocks.inspectit.shared.cs.indexing.buffer.ISerializedElementStore;
+
+/**
+ * Test for the {@link SerializedLeaf}.
+ */
+@SuppressWarnings("PMD")
+public class SerializedLeafTest extends TestBase {
+
+	SerializedLeaf<DefaultData> leaf;
+
+	@Mock
+	ISerializedElementStore<DefaultData> elementStore;
+
+	@Mock
+	DefaultData element;
+
+	@Mock
+	DefaultData heapElement;
+
+	@Mock
+	DefaultData template;
+
+	@Mock
+	IIndexQuery query;
+
+	@BeforeMethod
+	public void init() {
+		leaf = new SerializedLeaf<>(elementStore);
+		when(element.getId()).thenReturn(1L);
+		when(heapElement.getId()).thenReturn(2L);
+		when(template.getId()).thenReturn(1L);
+		when(elementStore.getLocation(element)).thenReturn(10L);
+		when(elementStore.getLocation(heapElement)).thenReturn(ISerializedElementStore.NO_LOCATION);
+	}
+
+	public class Get extends SerializedLeafTest {
+
+		@Test
+		public void readFromStore() {
+			DefaultData read = mock(DefaultData.class);
+			when(elementStore.read(10L)).thenReturn(read);
+			leaf.put(element);
+
+			DefaultData result = leaf.get(template);
+
+			assertThat(result, is(read));
+			assertThat(leaf.getNumberOfElements(), is(1L));
+		}
+
+		@Test
+		public void evicted() {
+			when(elementStore.read(10L)).thenReturn(null);
+			leaf.put(element);
+
+			DefaultData result = leaf.get(template);
+
+			assertThat(result, is(nullValue()));
+			assertThat(leaf.getNumberOfElements(), is(0L));
+		}
+
+		@Test
+		public void notInStore() {
+			leaf.put(heapElement);
+			when(template.getId()).thenReturn(2L);
+
+			DefaultData result = leaf.get(template);
+
+			assertThat(result, is(heapElement));
+			verify(elementStore, never()).read(anyLong());
+		}
+	}
+
+	public class Query extends SerializedLeafTest {
+
+		@Test
+		public void storeAndHeapElements() {
+			DefaultData read = mock(DefaultData.class);
+			when(read.isQueryComplied(query)).thenReturn(true);
+			when(heapElement.isQueryComplied(query)).thenReturn(true);
+			when(elementStore.read(10L)).thenReturn(read);
+			leaf.put(element);
+			leaf.put(heapElement);
+
+			assertThat(leaf.query(query), containsInAnyOrder(read, heapElement));
+		}
+
+		@Test
+		public void notComplied() {
+			DefaultData read = mock(DefaultData.class);
+			when(read.isQueryComplied(query)).thenReturn(false);
+			when(elementStore.read(10L)).thenReturn(read);
+			leaf.put(element);
+
+			assertThat(leaf.query(query), is(empty()));
+			assertThat(leaf.getNumberOfElements(), is(1L));
+		}
+
+		@Test
+		public void evictedRemoved() {
+			when(elementStore.read(10L)).thenReturn(null);
+			leaf.put(element);
+
+			assertThat(leaf.query(query), is(empty()));
+			assertThat(leaf.getNumberOfElements(), is(0L));
+		}
+	}
+
+	public class Clean extends SerializedLeafTest {
+
+		@Test
+		public void evictedLocationsRemoved() {
+			when(elementStore.isAvailable(10L)).thenReturn(false);
+			leaf.put(element);
+
+			boolean empty = leaf.clean();
+
+			assertThat(empty, is(true));
+			assertThat(leaf.getNumberOfElements(), is(0L));
+		}
+
+		@Test
+		public void availableLocationsKept() {
+			DefaultData read = mock(DefaultData.class);
+			when(read.isQueryComplied(query)).thenReturn(true);
+			when(elementStore.read(10L)).thenReturn(read);
+			when(elementStore.isAvailable(10L)).thenReturn(true);
+			leaf.put(element);
+
+			boolean empty = leaf.clean();
+
+			assertThat(empty, is(false));
+			assertThat(leaf.query(query), contains(read));
+		}
+	}
+}
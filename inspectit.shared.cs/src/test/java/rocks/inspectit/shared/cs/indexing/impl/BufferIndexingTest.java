@@ -34,6 +34,7 @@ import rocks.inspectit.shared.cs.indexing.indexer.impl.ObjectTypeIndexer;
 import rocks.inspectit.shared.cs.indexing.indexer.impl.PlatformIdentIndexer;
 import rocks.inspectit.shared.cs.indexing.indexer.impl.SensorTypeIdentIndexer;
 import rocks.inspectit.shared.cs.indexing.indexer.impl.TimestampIndexer;
+import rocks.inspectit.shared.cs.indexing.restriction.ICompiledIndexQueryRestrictions;
 import rocks.inspectit.shared.cs.indexing.restriction.IIndexQueryRestrictionProcessor;
 
 /**
@@ -68,6 +69,9 @@ public class BufferIndexingTest {
 	public void init() {
 		processor = mock(IIndexQueryRestrictionProcessor.class);
 		when(processor.areAllRestrictionsFulfilled(anyObject(), anyList())).thenReturn(true);
+		ICompiledIndexQueryRestrictions compiledRestrictions = mock(ICompiledIndexQueryRestrictions.class);
+		when(compiledRestrictions.areAllRestrictionsFulfilled(anyObject())).thenReturn(true);
+		when(processor.compile(anyList())).thenReturn(compiledRestrictions);
 	}
 
 	/**
@@ -3,6 +3,7 @@ package rocks.inspectit.shared.cs.indexing.restriction;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -642,4 +643,72 @@ public class IndexQueryRestrictionProcessorTest extends TestBase {
 		}
 	}
 
+	public static class Compile extends IndexQueryRestrictionProcessorTest {
+
+		/**
+		 * Tests that compiled restrictions are checked against many objects.
+		 */
+		@Test
+		public void manyObjects() {
+			TimerData timerData = new TimerData();
+			timerData.setId(1L);
+			timerData.setPlatformIdent(2L);
+			TimerData otherTimerData = new TimerData();
+			otherTimerData.setId(1L);
+			otherTimerData.setPlatformIdent(3L);
+			List<IIndexQueryRestriction> restrictions = Arrays.asList(IndexQueryRestrictionFactory.equal("id", 1L), IndexQueryRestrictionFactory.equal("platformIdent", 2L));
+
+			ICompiledIndexQueryRestrictions compiled = processor.compile(restrictions);
+
+			assertThat(compiled.areAllRestrictionsFulfilled(timerData), is(true));
+			assertThat(compiled.areAllRestrictionsFulfilled(otherTimerData), is(false));
+			assertThat(compiled.areAllRestrictionsFulfilled(timerData), is(true));
+		}
+
+		/**
+		 * Tests that compiled restrictions work when the class of checked objects changes.
+		 */
+		@Test
+		public void classChange() {
+			TimerData timerData = new TimerData();
+			timerData.setId(1L);
+			HttpTimerData httpData = new HttpTimerData();
+			httpData.setId(1L);
+			List<IIndexQueryRestriction> restrictions = Collections.singletonList(IndexQueryRestrictionFactory.equal("id", 1L));
+
+			ICompiledIndexQueryRestrictions compiled = processor.compile(restrictions);
+
+			assertThat(compiled.areAllRestrictionsFulfilled(timerData), is(true));
+			assertThat(compiled.areAllRestrictionsFulfilled(httpData), is(true));
+			assertThat(compiled.areAllRestrictionsFulfilled(timerData), is(true));
+		}
+
+		/**
+		 * Tests that field existing only in one of the checked classes.
+		 */
+		@Test
+		public void fieldOnlyInOneClass() {
+			TimerData timerData = new TimerData();
+			HttpTimerData httpData = new HttpTimerData();
+			httpData.getHttpInfo().setId(1L);
+			List<IIndexQueryRestriction> restrictions = Collections.singletonList(IndexQueryRestrictionFactory.equal("httpInfo.id", 1L));
+
+			ICompiledIndexQueryRestrictions compiled = processor.compile(restrictions);
+
+			assertThat(compiled.areAllRestrictionsFulfilled(httpData), is(true));
+			assertThat(compiled.areAllRestrictionsFulfilled(timerData), is(false));
+			assertThat(compiled.areAllRestrictionsFulfilled(httpData), is(true));
+		}
+
+		/**
+		 * Tests that no restrictions are always fulfilled.
+		 */
+		@Test
+		public void noRestrictions() {
+			ICompiledIndexQueryRestrictions compiled = processor.compile(Collections.<IIndexQueryRestriction> emptyList());
+
+			assertThat(compiled.areAllRestrictionsFulfilled(new TimerData()), is(true));
+		}
+	}
+
 }
@@ -0,0 +1,219 @@
+package rocks.inspectit.shared.cs.indexing.storage.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.slf4j.Logger;
+import org.springframework.core.io.ClassPathResource;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.esotericsoftware.kryo.io.Output;
+
+import rocks.inspectit.shared.all.communication.DefaultData;
+import rocks.inspectit.shared.all.communication.data.InvocationSequenceData;
+import rocks.inspectit.shared.all.storage.serializer.ISerializer;
+import rocks.inspectit.shared.all.storage.serializer.SerializationException;
+import rocks.inspectit.shared.all.storage.serializer.impl.SerializationManager;
+import rocks.inspectit.shared.all.storage.serializer.schema.ClassSchemaManager;
+import rocks.inspectit.shared.all.testbase.TestBase;
+import rocks.inspectit.shared.all.util.KryoNetNetwork;
+import rocks.inspectit.shared.cs.indexing.ITreeComponent;
+import rocks.inspectit.shared.cs.indexing.impl.IndexQuery;
+import rocks.inspectit.shared.cs.indexing.impl.IndexingException;
+import rocks.inspectit.shared.cs.indexing.indexer.impl.PlatformIdentIndexer;
+import rocks.inspectit.shared.cs.indexing.storage.IStorageDescriptor;
+import rocks.inspectit.shared.cs.indexing.storage.IStorageTreeComponent;
+import rocks.inspectit.shared.cs.storage.serializer.SerializationManagerPostProcessor;
+
+/**
+ * Test for the {@link MappedStorageIndex} and {@link MappedStorageLeaf}.
+ */
+@SuppressWarnings("PMD")
+public class MappedStorageIndexTest extends TestBase {
+
+	/**
+	 * Amount of platforms, thus leaves in the tree.
+	 */
+	private static final int PLATFORMS = 3;
+
+	/**
+	 * Amount of elements per platform.
+	 */
+	private static final int ELEMENTS = 20;
+
+	/**
+	 * Serializer.
+	 */
+	private SerializationManager serializer;
+
+	@InjectMocks
+	private ClassSchemaManager schemaManager;
+
+	@Mock
+	private Logger log;
+
+	/**
+	 * Index file.
+	 */
+	private Path path;
+
+	/**
+	 * Instantiates the {@link SerializationManager} and the file path.
+	 *
+	 * @throws IOException
+	 *             If {@link IOException} occurs.
+	 */
+	@BeforeMethod
+	public void init() throws IOException {
+		schemaManager.setSchemaListFile(new ClassPathResource(ClassSchemaManager.SCHEMA_DIR + "/" + ClassSchemaManager.SCHEMA_LIST_FILE, schemaManager.getClass().getClassLoader()));
+		schemaManager.loadSchemasFromLocations();
+
+		serializer = new SerializationManager();
+		serializer.setSchemaManager(schemaManager);
+		serializer.setKryoNetNetwork(new KryoNetNetwork());
+		serializer.initKryo();
+
+		SerializationManagerPostProcessor postProcessor = new SerializationManagerPostProcessor();
+		postProcessor.postProcessAfterInitialization(serializer, "mappedStorageIndexTest");
+
+		path = Files.createTempFile("mappedStorageIndexTest", ".index");
+		Files.delete(path);
+	}
+
+	/**
+	 * Deletes the index file.
+	 *
+	 * @throws IOException
+	 *             If {@link IOException} occurs.
+	 */
+	@AfterMethod
+	public void deleteFile() throws IOException {
+		Files.deleteIfExists(path);
+	}
+
+	/**
+	 * Written tree is read with the mapped leaves that are loaded only when queried and return
+	 * same results as the original tree.
+	 */
+	@Test
+	public void writeRead() throws IOException, SerializationException, IndexingException {
+		IStorageTreeComponent<DefaultData> indexingTree = getIndexingTree();
+		IndexQuery query = mock(IndexQuery.class);
+
+		MappedStorageIndex.write(indexingTree, path, serializer);
+		IStorageTreeComponent<DefaultData> readTree = MappedStorageIndex.read(path, serializer);
+
+		assertThat(readTree, is(instanceOf(StorageBranch.class)));
+		StorageBranch<DefaultData> branch = (StorageBranch<DefaultData>) readTree;
+		assertThat(branch.getComponentMap().size(), is(PLATFORMS));
+		for (ITreeComponent<IStorageDescriptor, DefaultData> child : branch.getComponentMap().values()) {
+			assertThat(child, is(instanceOf(MappedStorageLeaf.class)));
+			assertThat(((MappedStorageLeaf<DefaultData>) child).getLoadedLeaf(), is(nullValue()));
+		}
+
+		List<IStorageDescriptor> result = readTree.query(query);
+		assertThat(result, hasSize(indexingTree.query(query).size()));
+		assertThat(result, hasSize(PLATFORMS * ELEMENTS));
+		for (ITreeComponent<IStorageDescriptor, DefaultData> child : branch.getComponentMap().values()) {
+			assertThat(((MappedStorageLeaf<DefaultData>) child).getLoadedLeaf(), is(notNullValue()));
+		}
+	}
+
+	/**
+	 * Files holding the complete serialized tree are still read.
+	 */
+	@Test
+	public void readCompleteTree() throws IOException, SerializationException, IndexingException {
+		IStorageTreeComponent<DefaultData> indexingTree = getIndexingTree();
+		IndexQuery query = mock(IndexQuery.class);
+
+		Output output = new Output(Files.newOutputStream(path));
+		serializer.serialize(indexingTree, output);
+		output.close();
+		IStorageTreeComponent<DefaultData> readTree = MappedStorageIndex.read(path, serializer);
+
+		assertThat(readTree, is(instanceOf(StorageBranch.class)));
+		for (ITreeComponent<IStorageDescriptor, DefaultData> child : ((StorageBranch<DefaultData>) readTree).getComponentMap().values()) {
+			assertThat(child, is(instanceOf(ArrayBasedStorageLeaf.class)));
+		}
+		assertThat(readTree.query(query), hasSize(PLATFORMS * ELEMENTS));
+	}
+
+	/**
+	 * Failed write leaves neither the index file nor the temporary file.
+	 */
+	@Test
+	public void failedWriteLeavesNoFile() throws IOException, SerializationException, IndexingException {
+		ISerializer failingSerializer = mock(ISerializer.class);
+		doThrow(SerializationException.class).when(failingSerializer).serialize(any(), any(Output.class));
+
+		try {
+			MappedStorageIndex.write(getIndexingTree(), path, failingSerializer);
+		} catch (SerializationException e) { // NOPMD
+			// expected
+		}
+
+		assertThat(Files.exists(path), is(false));
+		assertThat(Files.exists(path.resolveSibling(path.getFileName() + MappedStorageIndex.TEMP_SUFFIX)), is(false));
+	}
+
+	/**
+	 * Existing file is replaced with the written index.
+	 */
+	@Test
+	public void writeReplacesExistingFile() throws IOException, SerializationException, IndexingException {
+		IndexQuery query = mock(IndexQuery.class);
+		Files.write(path, new byte[] { 1, 2, 3 });
+
+		MappedStorageIndex.write(getIndexingTree(), path, serializer);
+		IStorageTreeComponent<DefaultData> readTree = MappedStorageIndex.read(path, serializer);
+
+		assertThat(readTree.query(query), hasSize(PLATFORMS * ELEMENTS));
+		assertThat(Files.exists(path.resolveSibling(path.getFileName() + MappedStorageIndex.TEMP_SUFFIX)), is(false));
+	}
+
+	/**
+	 * Mapped leaf can not index elements.
+	 */
+	@Test(expectedExceptions = { UnsupportedOperationException.class })
+	public void putOnMappedLeaf() throws IndexingException {
+		new MappedStorageLeaf<>(0L, 0).put(new InvocationSequenceData());
+	}
+
+	/**
+	 * Creates the tree with one leaf per platform.
+	 *
+	 * @return Indexing tree.
+	 * @throws IndexingException
+	 *             If indexing fails.
+	 */
+	private IStorageTreeComponent<DefaultData> getIndexingTree() throws IndexingException {
+		StorageBranch<DefaultData> indexingTree = new StorageBranch<>(new StorageBranchIndexer<>(new PlatformIdentIndexer<>(), true));
+		long id = 1;
+		for (int platform = 1; platform <= PLATFORMS; platform++) {
+			for (int i = 0; i < ELEMENTS; i++) {
+				InvocationSequenceData invocation = new InvocationSequenceData();
+				invocation.setId(id++);
+				invocation.setPlatformIdent(platform);
+				indexingTree.put(invocation);
+			}
+		}
+		return indexingTree;
+	}
+}
@@ -12,6 +12,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
+import java.util.Arrays;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -103,6 +104,30 @@ public class StorageIndexingTreeHandlerTest {
 		verify(storageDescriptor, times(1)).setPositionAndSize(position, size);
 	}
 
+	@Test
+	public void successfulBatchWrite() throws IndexingException {
+		IStorageDescriptor firstDescriptor = mock(IStorageDescriptor.class);
+		IStorageDescriptor secondDescriptor = mock(IStorageDescriptor.class);
+		when(firstDescriptor.getChannelId()).thenReturn(1);
+		when(secondDescriptor.getChannelId()).thenReturn(1);
+		DefaultData firstData = mock(DefaultData.class);
+		DefaultData secondData = mock(DefaultData.class);
+		when(indexingTree.put(firstData)).thenReturn(firstDescriptor);
+		when(indexingTree.put(secondData)).thenReturn(secondDescriptor);
+		WriteTask firstTask = mock(WriteTask.class);
+		WriteTask secondTask = mock(WriteTask.class);
+		when(firstTask.getData()).thenReturn(firstData);
+		when(secondTask.getData()).thenReturn(secondData);
+		indexingTreeHandler.startWrite(firstTask);
+		indexingTreeHandler.startWrite(secondTask);
+
+		indexingTreeHandler.writeSuccessful(Arrays.asList(firstTask, secondTask), 100L, new long[] { 0L, 20L }, new long[] { 20L, 30L });
+
+		assertThat(indexingTreeHandler.getWriteTaskInProgressCount(), is(0));
+		verify(firstDescriptor, times(1)).setPositionAndSize(100L, 20L);
+		verify(secondDescriptor, times(1)).setPositionAndSize(120L, 30L);
+	}
+
 	@Test
 	public void failedWrite() throws IndexingException {
 		IStorageDescriptor storageDescriptor = mock(IStorageDescriptor.class);
@@ -126,9 +151,9 @@ public class StorageIndexingTreeHandlerTest {
 	@Test
 	public void treeWrittenOnFinish() {
 		when(future.isDone()).thenReturn(true);
-		when(storageWriter.writeNonDefaultDataObject(eq(indexingTree), anyString())).thenReturn(true);
+		when(storageWriter.writeIndexingTree(eq(indexingTree), anyString())).thenReturn(true);
 		indexingTreeHandler.finish();
-		verify(storageWriter, times(1)).writeNonDefaultDataObject(eq(indexingTree), anyString());
+		verify(storageWriter, times(1)).writeIndexingTree(eq(indexingTree), anyString());
 	}
 
 	@Test
@@ -145,8 +170,8 @@ public class StorageIndexingTreeHandlerTest {
 		ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
 		verify(executorService, times(1)).submit(captor.capture());
 
-		when(storageWriter.writeNonDefaultDataObject(eq(indexingTree), anyString())).thenReturn(true);
+		when(storageWriter.writeIndexingTree(eq(indexingTree), anyString())).thenReturn(true);
 		captor.getValue().run();
-		verify(storageWriter, times(1)).writeNonDefaultDataObject(eq(indexingTree), anyString());
+		verify(storageWriter, times(1)).writeIndexingTree(eq(indexingTree), anyString());
 	}
 }
@@ -6,6 +6,7 @@ import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyObject;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -18,6 +19,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
@@ -27,6 +29,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
+import org.mockito.ArgumentCaptor;
 import org.mockito.Matchers;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -246,6 +249,47 @@ public class StorageWriterTest {
 		verify(serializerQueue, times(1)).add(serializer);
 	}
 
+	@Test
+	public void batchWrittenWithSingleWrite() throws IOException, SerializationException {
+		TimerData first = new TimerData();
+		TimerData second = new TimerData();
+		WriteTask firstTask = storageWriter.new WriteTask(first, Collections.emptyMap());
+		WriteTask secondTask = storageWriter.new WriteTask(second, Collections.emptyMap());
+		when(extendedByteBufferOutputStream.getTotalWriteSize()).thenReturn(0L, 20L, 20L, 50L);
+		when(extendedByteBufferOutputStream.getBuffersCount()).thenReturn(1);
+
+		storageWriter.writeBatch(Arrays.asList(firstTask, secondTask));
+
+		verify(serializer, times(1)).serialize(eq(first), Matchers.<Output> anyObject(), Matchers.<Map<?, ?>> anyObject());
+		verify(serializer, times(1)).serialize(eq(second), Matchers.<Output> anyObject(), Matchers.<Map<?, ?>> anyObject());
+		verify(serializerQueue, times(1)).add(serializer);
+		ArgumentCaptor<WriteReadCompletionRunnable> captor = ArgumentCaptor.forClass(WriteReadCompletionRunnable.class);
+		verify(writingChannelManager, times(1)).write(eq(extendedByteBufferOutputStream), Matchers.<Path> anyObject(), captor.capture());
+
+		WriteReadCompletionRunnable completionRunnable = captor.getValue();
+		completionRunnable.setAttemptedWriteReadPosition(100L);
+		completionRunnable.markSuccess();
+		completionRunnable.run();
+
+		verify(storageIndexingTreeHandler, times(1)).writeSuccessful(Arrays.asList(firstTask, secondTask), 100L, new long[] { 0L, 20L }, new long[] { 20L, 30L });
+		verify(extendedByteBufferOutputStream, times(1)).close();
+	}
+
+	@Test
+	public void batchFailedSerializationSkipsData() throws IOException, SerializationException {
+		TimerData first = new TimerData();
+		TimerData second = new TimerData();
+		WriteTask firstTask = storageWriter.new WriteTask(first, Collections.emptyMap());
+		WriteTask secondTask = storageWriter.new WriteTask(second, Collections.emptyMap());
+		doThrow(SerializationException.class).when(serializer).serialize(eq(first), Matchers.<Output> anyObject(), Matchers.<Map<?, ?>> anyObject());
+
+		storageWriter.writeBatch(Arrays.asList(firstTask, secondTask));
+
+		verify(storageIndexingTreeHandler, times(1)).writeFailed(firstTask);
+		verify(storageIndexingTreeHandler, times(0)).writeFailed(secondTask);
+		verify(writingChannelManager, times(1)).write(eq(extendedByteBufferOutputStream), Matchers.<Path> anyObject(), Matchers.<WriteReadCompletionRunnable> anyObject());
+	}
+
 	@Test
 	public void objectWriteNoSerializerAvailable() throws InterruptedException {
 		when(serializerQueue.take()).thenReturn(null);
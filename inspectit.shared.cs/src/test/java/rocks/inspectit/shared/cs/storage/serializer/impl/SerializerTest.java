@@ -78,6 +78,7 @@ import rocks.inspectit.shared.cs.indexing.indexer.impl.SensorTypeIdentIndexer;
 import rocks.inspectit.shared.cs.indexing.indexer.impl.SqlStringIndexer;
 import rocks.inspectit.shared.cs.indexing.indexer.impl.TimestampIndexer;
 import rocks.inspectit.shared.cs.indexing.storage.impl.ArrayBasedStorageLeaf;
+import rocks.inspectit.shared.cs.indexing.storage.impl.MappedStorageLeaf;
 import rocks.inspectit.shared.cs.indexing.storage.impl.SimpleStorageDescriptor;
 import rocks.inspectit.shared.cs.indexing.storage.impl.StorageBranch;
 import rocks.inspectit.shared.cs.indexing.storage.impl.StorageBranchIndexer;
@@ -123,7 +124,7 @@ public class SerializerTest extends TestBase {
 			{ SqlStringIndexer.class }, { BooleanStorageLabel.class }, { DateStorageLabel.class }, { NumberStorageLabel.class }, { StringStorageLabel.class }, { CustomDateLabelType.class },
 			{ CmrStatusData.class }, { AgentStatusData.class }, { RecordingData.class }, { CustomBooleanLabelType.class }, { CustomNumberLabelType.class }, { CustomStringLabelType.class },
 			{ AssigneeLabelType.class }, { RatingLabelType.class }, { ExploredByLabelType.class }, { CreationDateLabelType.class }, { StatusLabelType.class }, { UseCaseLabelType.class },
-			{ AggregatedHttpTimerData.class }, { AggregatedSqlStatementData.class }, { AggregatedTimerData.class }, { ArrayBasedStorageLeaf.class } };
+			{ AggregatedHttpTimerData.class }, { AggregatedSqlStatementData.class }, { AggregatedTimerData.class }, { ArrayBasedStorageLeaf.class }, { MappedStorageLeaf.class } };
 
 	/**
 	 * Serializer.
@@ -243,6 +244,20 @@ public class SerializerTest extends TestBase {
 		assertThat(copy == object, is(false));
 	}
 
+	/**
+	 * Tests that the fingerprint of the SQL is serialized, also when the SQL-String is not sent.
+	 */
+	@Test
+	public void sqlFingerprint() throws SerializationException {
+		SqlStatementData sqlStatementData = new SqlStatementData();
+		sqlStatementData.setSqlFingerprint(RandomUtils.nextLong());
+
+		SqlStatementData deserialized = serializeBackAndForth(sqlStatementData);
+
+		assertThat(deserialized.getSqlFingerprint(), is(sqlStatementData.getSqlFingerprint()));
+		assertThat(deserialized.getSql(), is(nullValue()));
+	}
+
 	private Object getInstanceWithPrimitiveFieldsSet(Class<?> testingClass) throws IllegalArgumentException, IllegalAccessException, InstantiationException {
 		Object object = testingClass.newInstance();
 
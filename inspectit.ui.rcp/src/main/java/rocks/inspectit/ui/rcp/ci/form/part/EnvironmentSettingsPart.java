@@ -105,6 +105,11 @@ public class EnvironmentSettingsPart extends SectionPart implements IPropertyLis
 	 */
 	private Button classDelegationButton;
 
+	/**
+	 * Button for data compression.
+	 */
+	private Button dataCompressionButton;
+
 	/**
 	 * Default constructor.
 	 *
@@ -255,6 +260,14 @@ public class EnvironmentSettingsPart extends SectionPart implements IPropertyLis
 		createInfoLabel(mainComposite, toolkit,
 				"If activated all sub-classes of java.lang.ClassLoader will be instrumented so that loading of the inspectIT classes is delegated to the inspectIT class loader. Should only be changed to false in rare cases and is expert user level option.");
 
+		// data compression
+		toolkit.createLabel(mainComposite, "Data compression:").setLayoutData(new GridData(SWT.FILL, SWT.CENTER, false, false));
+		dataCompressionButton = toolkit.createButton(mainComposite, "Active", SWT.CHECK);
+		dataCompressionButton.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, false, 2, 1));
+		dataCompressionButton.setSelection(environment.isDataCompression());
+		createInfoLabel(mainComposite, toolkit,
+				"If activated the agents compress the data they send to the CMR. Reduces the network traffic several times at the cost of additional CPU time on the agent and the CMR, thus it should be activated only when the bandwidth between the agents and the CMR is limited. Becomes active when the agent is restarted.");
+
 		// dirty listener
 		Listener dirtyListener = new Listener() {
 			@Override
@@ -269,6 +282,7 @@ public class EnvironmentSettingsPart extends SectionPart implements IPropertyLis
 		sendingValue.addListener(SWT.Modify, dirtyListener);
 		bufferValue.addListener(SWT.Modify, dirtyListener);
 		classDelegationButton.addListener(SWT.Selection, dirtyListener);
+		dataCompressionButton.addListener(SWT.Selection, dirtyListener);
 	}
 
 	/**
@@ -282,6 +296,7 @@ public class EnvironmentSettingsPart extends SectionPart implements IPropertyLis
 			validateUpdateSendingStrategy(true);
 			validateUpdateBufferStrategy(true);
 			environment.setClassLoadingDelegation(classDelegationButton.getSelection());
+			environment.setDataCompression(dataCompressionButton.getSelection());
 			getManagedForm().dirtyStateChanged();
 		}
 	}
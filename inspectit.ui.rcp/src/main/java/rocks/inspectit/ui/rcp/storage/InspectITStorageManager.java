@@ -37,6 +37,7 @@ import rocks.inspectit.shared.all.util.ObjectUtils;
 import rocks.inspectit.shared.cs.indexing.storage.IStorageTreeComponent;
 import rocks.inspectit.shared.cs.indexing.storage.impl.ArrayBasedStorageLeaf;
 import rocks.inspectit.shared.cs.indexing.storage.impl.CombinedStorageBranch;
+import rocks.inspectit.shared.cs.indexing.storage.impl.MappedStorageIndex;
 import rocks.inspectit.shared.cs.storage.IStorageData;
 import rocks.inspectit.shared.cs.storage.LocalStorageData;
 import rocks.inspectit.shared.cs.storage.StorageData;
@@ -900,7 +901,8 @@ public class InspectITStorageManager extends StorageManager implements CmrReposi
 	}
 
 	/**
-	 * Loads indexing tree from a disk for a storage.
+	 * Loads indexing tree from a disk for a storage. The page structured index files are mapped
+	 * and only their branches are read, the leaves are loaded when queried.
 	 *
 	 * @param storageData
 	 *            {@link IStorageData}
@@ -909,10 +911,31 @@ public class InspectITStorageManager extends StorageManager implements CmrReposi
 	 *             If {@link IOException} occurs.
 	 * @throws SerializationException
 	 *             If data can not be deserialized.
+	 * @see MappedStorageIndex
 	 */
 	private IStorageTreeComponent<DefaultData> getIndexingTree(final IStorageData storageData) throws IOException, SerializationException {
 		Path storagePath = getStoragePath(storageData);
-		List<IStorageTreeComponent<DefaultData>> indexingTrees = this.getObjectsByFileTreeWalk(storagePath, StorageFileType.INDEX_FILE.getExtension());
+		if (!Files.isDirectory(storagePath)) {
+			return null;
+		}
+
+		final List<Path> indexFiles = new ArrayList<>();
+		Files.walkFileTree(storagePath, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+				if (file.toString().endsWith(StorageFileType.INDEX_FILE.getExtension())) {
+					indexFiles.add(file);
+				}
+				return FileVisitResult.CONTINUE;
+			}
+		});
+
+		List<IStorageTreeComponent<DefaultData>> indexingTrees = new ArrayList<>(indexFiles.size());
+		for (Path indexFile : indexFiles) {
+			// each index gets its own serializer as the leaves are loaded with it later on
+			IStorageTreeComponent<DefaultData> indexingTree = MappedStorageIndex.read(indexFile, getSerializationManagerProvider().createSerializer());
+			indexingTrees.add(indexingTree);
+		}
 		if (!indexingTrees.isEmpty()) {
 			if (indexingTrees.size() == 1) {
 				return indexingTrees.get(0);